@@ -0,0 +1,604 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Analyses a Registry profile (written by a node with <code>registry.profile</code> enabled) against the Derby runtime
+ * statistics of each profiled query, and recommends the indexes that would replace the table scans found.
+ * <p>
+ * Each query (and the search condition of each <code>UPDATE</code> and <code>DELETE</code>, run as a query) is re-run
+ * against the Registry with runtime statistics enabled. For each table scanned, the columns compared in the
+ * <code>WHERE</code> clause (equality comparisons first, then one range comparison) are proposed as an index, and the
+ * proposals for each table are merged where one is a prefix of another. Proposals whose leading column is already
+ * indexed are reported as comments only, since the optimizer chose the scan regardless (typically because the table is
+ * small), as are proposals for scans that qualified most of the rows they visited (e.g. on a column such as
+ * <code>AVAILABILITY</code> that has few distinct values), since an index would not be selective. The recommendations
+ * are written as <code>CREATE INDEX</code> statements that can be run with <code>fabreg -r</code>.
+ * </p>
+ */
+public class RegistryIndexAdvisor {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** A table scan in the runtime statistics. */
+    private static final Pattern TABLE_SCAN = Pattern.compile("Table Scan ResultSet for (\\w+)");
+
+    /** The rows visited by a scan in the runtime statistics. */
+    private static final Pattern ROWS_VISITED = Pattern.compile("Number of rows visited\\s*=\\s*(\\d+)");
+
+    /** The rows qualified by a scan in the runtime statistics. */
+    private static final Pattern ROWS_QUALIFIED = Pattern.compile("Number of rows qualified\\s*=\\s*(\\d+)");
+
+    /** An <code>UPDATE</code> statement. */
+    private static final Pattern UPDATE = Pattern
+            .compile("(?is)^\\s*update\\s+([\\w.]+)\\s+set\\s+.*?\\s(where\\s.*)$");
+
+    /** A <code>DELETE</code> statement. */
+    private static final Pattern DELETE = Pattern.compile("(?is)^\\s*delete\\s+from\\s+([\\w.]+)\\s+(where\\s.*)$");
+
+    /** The tables (and their correlation names) listed in a <code>FROM</code> clause. */
+    private static final Pattern FROM_TABLE = Pattern.compile("(?i)(?:from|join|,)\\s+(?:(\\w+)\\.)?(\\w+)"
+            + "(?:\\s+(?:as\\s+)?(?!where\\b|on\\b|join\\b|inner\\b|left\\b|order\\b|group\\b)(\\w+))?");
+
+    /** A comparison in a <code>WHERE</code> clause. */
+    private static final Pattern PREDICATE = Pattern.compile("(?i)(?:(\\w+)\\.)?(\\w+)\\s*(=|<=|>=|<|>|like\\b|in\\b"
+            + "|between\\b)");
+
+    /** The largest fraction of the rows visited by a scan that can qualify for an index on its columns to be useful. */
+    private static final double MAX_SELECTIVITY = 0.5;
+
+    /** The end of a <code>WHERE</code> clause. */
+    private static final Pattern WHERE_END = Pattern
+            .compile("(?i)\\s(?:order|group)\\s+by\\s|\\sfetch\\s|\\shaving\\s");
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * A proposed index.
+     */
+    private static class Proposal {
+
+        /** The indexed table. */
+        final String table;
+
+        /** The indexed columns, in order. */
+        final List<String> columns;
+
+        /** The profiled statements that would use the index. */
+        final Set<String> statements = new LinkedHashSet<String>();
+
+        /** The number of times those statements were run. */
+        long calls = 0;
+
+        /** The total time (in milliseconds) spent running those statements. */
+        double totalMillis = 0;
+
+        /** The rows visited by the scans replaced by the index. */
+        long rowsVisited = 0;
+
+        /** The rows qualified by the scans replaced by the index. */
+        long rowsQualified = 0;
+
+        Proposal(String table, List<String> columns) {
+
+            this.table = table;
+            this.columns = columns;
+        }
+
+        void merge(Proposal other) {
+
+            statements.addAll(other.statements);
+            calls += other.calls;
+            totalMillis += other.totalMillis;
+            rowsVisited += other.rowsVisited;
+            rowsQualified += other.rowsQualified;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    private RegistryIndexAdvisor() {
+
+    }
+
+    /**
+     * Analyses a Registry profile and writes the recommended indexes.
+     *
+     * @param conn
+     *            a connection to the Registry database.
+     *
+     * @param profileFile
+     *            the profile.
+     *
+     * @param out
+     *            the stream to which the recommendations are written.
+     *
+     * @throws IOException
+     *             if the profile cannot be read.
+     *
+     * @throws SQLException
+     *             if runtime statistics cannot be collected.
+     */
+    public static void advise(Connection conn, File profileFile, PrintStream out) throws IOException, SQLException {
+
+        String schema = currentSchema(conn);
+        Map<String, List<String>> tableColumns = new HashMap<String, List<String>>();
+        Map<String, List<List<String>>> tableIndexes = new HashMap<String, List<List<String>>>();
+        Map<String, List<Proposal>> proposals = new LinkedHashMap<String, List<Proposal>>();
+        int analysed = 0;
+
+        Statement stmt = conn.createStatement();
+
+        try {
+
+            stmt.execute("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(1)");
+
+            for (String[] entry : readProfile(profileFile)) {
+
+                String query = toQuery(entry[5]);
+
+                if (query == null) {
+                    continue;
+                }
+
+                String statistics = null;
+
+                try {
+                    statistics = runtimeStatistics(stmt, query);
+                } catch (SQLException e) {
+                    out.println(String.format("-- Cannot analyse [%s]: %s", entry[4], e.getMessage()));
+                    continue;
+                }
+
+                analysed++;
+
+                /* Find each table scan and the number of rows it visited to find the rows required */
+                Matcher scan = TABLE_SCAN.matcher(statistics);
+
+                while (scan.find()) {
+
+                    String table = scan.group(1).toUpperCase();
+                    int next = statistics.indexOf("ResultSet", scan.end());
+                    String scanStatistics = statistics.substring(scan.end(), (next < 0) ? statistics.length() : next);
+
+                    if (!tableColumns.containsKey(table)) {
+                        tableColumns.put(table, columns(conn, schema, table));
+                        tableIndexes.put(table, indexes(conn, schema, table));
+                    }
+
+                    List<String> columns = indexColumns(query, table, tableColumns.get(table));
+
+                    if (columns.isEmpty()) {
+                        continue;
+                    }
+
+                    Proposal proposal = new Proposal(table, columns);
+                    proposal.statements.add(entry[4]);
+                    proposal.calls = Long.parseLong(entry[0]);
+                    proposal.totalMillis = Double.parseDouble(entry[1]);
+                    proposal.rowsVisited = count(ROWS_VISITED, scanStatistics);
+                    proposal.rowsQualified = count(ROWS_QUALIFIED, scanStatistics);
+                    addProposal(proposals, proposal);
+                }
+            }
+
+            stmt.execute("CALL SYSCS_UTIL.SYSCS_SET_RUNTIMESTATISTICS(0)");
+
+        } finally {
+
+            stmt.close();
+        }
+
+        out.println(String.format("-- Registry indexes recommended from profile [%s] (%d queries analysed)",
+                profileFile.getPath(), analysed));
+
+        int recommended = 0;
+
+        for (List<Proposal> tableProposals : proposals.values()) {
+
+            for (Proposal p : tableProposals) {
+
+                out.println();
+                out.println(String.format("-- %s: %d call(s), %.3f ms, %d row(s) visited for %d row(s) qualified",
+                        p.table, p.calls, p.totalMillis, p.rowsVisited, p.rowsQualified));
+
+                for (String statement : p.statements) {
+                    out.println("--   " + statement);
+                }
+
+                String existing = existingIndex(tableIndexes.get(p.table), p.columns);
+
+                if (existing != null) {
+                    out.println(String.format("-- Already indexed on (%s); the optimizer chose a table scan "
+                            + "(the table is small or the comparison is not selective)", existing));
+                } else if (p.rowsQualified > p.rowsVisited * MAX_SELECTIVITY) {
+                    out.println(String.format("-- Not indexed on (%s): the scans qualified most of the rows they "
+                            + "visited, so an index would not be selective", join(p.columns)));
+                } else {
+                    out.println(String.format("CREATE INDEX %s.%s ON %s.%s (%s);", schema, indexName(p), schema,
+                            p.table, join(p.columns)));
+                    recommended++;
+                }
+            }
+        }
+
+        if (recommended == 0) {
+            out.println();
+            out.println("-- No indexes recommended");
+        }
+    }
+
+    /**
+     * Reads the entries in a Registry profile.
+     *
+     * @param profileFile
+     *            the profile.
+     *
+     * @return the fields of each entry: calls, total time, maximum time, rows, shape and sample statement.
+     *
+     * @throws IOException
+     */
+    private static List<String[]> readProfile(File profileFile) throws IOException {
+
+        List<String[]> entries = new ArrayList<String[]>();
+        BufferedReader in = new BufferedReader(new FileReader(profileFile));
+
+        try {
+
+            String line = null;
+
+            while ((line = in.readLine()) != null) {
+
+                if (line.startsWith("#") || line.trim().length() == 0) {
+                    continue;
+                }
+
+                String[] fields = line.split("\t", 6);
+
+                if (fields.length == 6) {
+                    entries.add(fields);
+                }
+            }
+
+        } finally {
+
+            in.close();
+        }
+
+        return entries;
+    }
+
+    /**
+     * Answers a profiled statement as a query that can be safely re-run, i.e. a query as-is, or the search condition of
+     * an <code>UPDATE</code> or <code>DELETE</code> as a query.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @return the query, or <code>null</code> if the statement cannot be used.
+     */
+    private static String toQuery(String sql) {
+
+        String query = null;
+        Matcher m = null;
+
+        if (sql.trim().toLowerCase().startsWith("select")) {
+            query = sql;
+        } else if ((m = UPDATE.matcher(sql)).matches() || (m = DELETE.matcher(sql)).matches()) {
+            query = "select * from " + m.group(1) + ' ' + m.group(2);
+        }
+
+        return query;
+    }
+
+    /**
+     * Runs a query and answers its runtime statistics.
+     *
+     * @param stmt
+     *            the statement with which to run the query.
+     *
+     * @param query
+     *            the query.
+     *
+     * @return the runtime statistics.
+     *
+     * @throws SQLException
+     */
+    private static String runtimeStatistics(Statement stmt, String query) throws SQLException {
+
+        ResultSet rs = stmt.executeQuery(query);
+
+        try {
+            /* The statistics are only complete once all rows have been read */
+            while (rs.next()) {
+            }
+        } finally {
+            rs.close();
+        }
+
+        String statistics = "";
+        rs = stmt.executeQuery("VALUES SYSCS_UTIL.SYSCS_GET_RUNTIMESTATISTICS()");
+
+        try {
+            if (rs.next()) {
+                statistics = rs.getString(1);
+            }
+        } finally {
+            rs.close();
+        }
+
+        return (statistics != null) ? statistics : "";
+    }
+
+    /**
+     * Answers the columns of a query's <code>WHERE</code> clause that would make a useful index for a table: the
+     * columns compared for equality (in the order in which they appear) followed by the first column compared with a
+     * range.
+     *
+     * @param query
+     *            the query.
+     *
+     * @param table
+     *            the table.
+     *
+     * @param tableColumns
+     *            the columns of the table.
+     *
+     * @return the columns, or an empty list if there are none.
+     */
+    private static List<String> indexColumns(String query, String table, List<String> tableColumns) {
+
+        String upperQuery = query.toUpperCase();
+        int where = upperQuery.lastIndexOf(" WHERE ");
+        List<String> columns = new ArrayList<String>();
+
+        if (where < 0) {
+            return columns;
+        }
+
+        /* Find the names by which the table is referenced */
+        Set<String> names = new LinkedHashSet<String>();
+        names.add(table);
+        Matcher from = FROM_TABLE.matcher(upperQuery.substring(0, where));
+
+        while (from.find()) {
+            if (table.equals(from.group(2))) {
+                if (from.group(3) != null) {
+                    names.add(from.group(3));
+                }
+            }
+        }
+
+        String whereClause = upperQuery.substring(where + " WHERE ".length());
+        Matcher end = WHERE_END.matcher(whereClause);
+
+        if (end.find()) {
+            whereClause = whereClause.substring(0, end.start());
+        }
+
+        /* Ignore the contents of string literals */
+        whereClause = whereClause.replaceAll("'(?:[^']|'')*'", "?");
+
+        Set<String> equalities = new LinkedHashSet<String>();
+        String range = null;
+        Matcher predicate = PREDICATE.matcher(whereClause);
+
+        while (predicate.find()) {
+
+            String qualifier = predicate.group(1);
+            String column = predicate.group(2);
+
+            if ((qualifier != null && !names.contains(qualifier)) || !tableColumns.contains(column)) {
+                continue;
+            }
+
+            String operator = predicate.group(3);
+
+            if (operator.equals("=") || operator.equals("IN")) {
+                equalities.add(column);
+            } else if (range == null) {
+                range = column;
+            }
+        }
+
+        columns.addAll(equalities);
+
+        if (range != null && !equalities.contains(range)) {
+            columns.add(range);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Adds a proposed index, merging it with any existing proposal for the same table whose columns it extends, or
+     * which extends it.
+     *
+     * @param proposals
+     *            the proposals so far, by table.
+     *
+     * @param proposal
+     *            the new proposal.
+     */
+    private static void addProposal(Map<String, List<Proposal>> proposals, Proposal proposal) {
+
+        List<Proposal> tableProposals = proposals.get(proposal.table);
+
+        if (tableProposals == null) {
+            tableProposals = new ArrayList<Proposal>();
+            proposals.put(proposal.table, tableProposals);
+        }
+
+        for (int p = 0; p < tableProposals.size(); p++) {
+
+            Proposal existing = tableProposals.get(p);
+
+            if (isPrefix(proposal.columns, existing.columns)) {
+                existing.merge(proposal);
+                return;
+            } else if (isPrefix(existing.columns, proposal.columns)) {
+                proposal.merge(existing);
+                tableProposals.set(p, proposal);
+                return;
+            }
+        }
+
+        tableProposals.add(proposal);
+    }
+
+    /**
+     * Answers the existing index (if any) that leads with the first of a set of columns.
+     *
+     * @param indexes
+     *            the columns of each existing index.
+     *
+     * @param columns
+     *            the columns.
+     *
+     * @return the columns of the existing index, or <code>null</code> if there is none.
+     */
+    private static String existingIndex(List<List<String>> indexes, List<String> columns) {
+
+        for (List<String> index : indexes) {
+            if (!index.isEmpty() && index.get(0).equals(columns.get(0))) {
+                return join(index);
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isPrefix(List<String> prefix, List<String> columns) {
+
+        return prefix.size() <= columns.size() && columns.subList(0, prefix.size()).equals(prefix);
+    }
+
+    private static String indexName(Proposal proposal) {
+
+        StringBuilder name = new StringBuilder(proposal.table);
+
+        for (String column : proposal.columns) {
+            name.append('_').append(column);
+        }
+
+        return name.append("_IX").toString();
+    }
+
+    private static String join(List<String> columns) {
+
+        StringBuilder joined = new StringBuilder();
+
+        for (String column : columns) {
+            if (joined.length() > 0) {
+                joined.append(", ");
+            }
+            joined.append(column);
+        }
+
+        return joined.toString();
+    }
+
+    private static long count(Pattern pattern, String statistics) {
+
+        Matcher m = pattern.matcher(statistics);
+        return m.find() ? Long.parseLong(m.group(1)) : 0;
+    }
+
+    private static String currentSchema(Connection conn) throws SQLException {
+
+        String schema = "FABRIC";
+        Statement stmt = conn.createStatement();
+
+        try {
+            ResultSet rs = stmt.executeQuery("VALUES CURRENT SCHEMA");
+            if (rs.next()) {
+                schema = rs.getString(1).trim();
+            }
+            rs.close();
+        } finally {
+            stmt.close();
+        }
+
+        return schema;
+    }
+
+    private static List<String> columns(Connection conn, String schema, String table) throws SQLException {
+
+        List<String> columns = new ArrayList<String>();
+        ResultSet rs = conn.getMetaData().getColumns(null, schema, table, null);
+
+        try {
+            while (rs.next()) {
+                columns.add(rs.getString("COLUMN_NAME"));
+            }
+        } finally {
+            rs.close();
+        }
+
+        return columns;
+    }
+
+    private static List<List<String>> indexes(Connection conn, String schema, String table) throws SQLException {
+
+        Map<String, List<String>> indexes = new LinkedHashMap<String, List<String>>();
+        ResultSet rs = conn.getMetaData().getIndexInfo(null, schema, table, false, true);
+
+        try {
+            while (rs.next()) {
+
+                if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+
+                String name = rs.getString("INDEX_NAME");
+                List<String> columns = indexes.get(name);
+
+                if (columns == null) {
+                    columns = new ArrayList<String>();
+                    indexes.put(name, columns);
+                }
+
+                /* Columns are returned in ordinal order */
+                columns.add(rs.getString("COLUMN_NAME"));
+            }
+        } finally {
+            rs.close();
+        }
+
+        return new ArrayList<List<String>>(indexes.values());
+    }
+}
@@ -74,8 +74,13 @@ public class RegistryTool {
 
     private static final String OPT_RUN = "r";
 
+    private static final String OPT_ADVISE_INDEXES = "ix";
+
     private static final String OPT_GAIAN = "g";
 
+    private static final String LOCAL_DB_URL = "jdbc:derby://localhost:6414/FABRIC;create=false;user=fabric;"
+            + "password=fabric;";
+
     /*
      * Class fields
      */
@@ -111,6 +116,7 @@ public class RegistryTool {
     private static Option optUnsetNodeConfig = null;
 
     private static Option optRun = null;
+    private static Option optAdviseIndexes = null;
     private static Option optGaian = null;
 
     private static Options options = new Options();
@@ -195,6 +201,9 @@ public class RegistryTool {
         optRun = OptionBuilder.withArgName("filename").hasArg().withDescription("run a file of SQL statements")
                 .withLongOpt("run-sql").create(OPT_RUN);
 
+        optAdviseIndexes = Option.builder(OPT_ADVISE_INDEXES).argName("profile").hasArg().desc(
+                "recommend Registry indexes from a Registry profile").longOpt("advise-indexes").build();
+
         optGaian = OptionBuilder.withDescription("make the selected query a distributed (global) query").withLongOpt(
                 "gaian").create(OPT_GAIAN);
 
@@ -232,6 +241,7 @@ public class RegistryTool {
         optionGroup.addOption(optUnsetNodeConfig);
 
         optionGroup.addOption(optRun);
+        optionGroup.addOption(optAdviseIndexes);
 
         optionGroup.setRequired(true);
 
@@ -265,11 +275,29 @@ public class RegistryTool {
                 e.printStackTrace();
             }
 
+        } else if (line.hasOption(OPT_ADVISE_INDEXES)) {
+
+            Connection conn = null;
+
+            try {
+                conn = DriverManager.getConnection(LOCAL_DB_URL);
+                RegistryIndexAdvisor.advise(conn, new File(line.getOptionValue(OPT_ADVISE_INDEXES)), System.out);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                if (conn != null) {
+                    try {
+                        conn.close();
+                    } catch (SQLException e) {
+                    }
+                }
+            }
+
         } else {
 
             /* Determine if queries are to be made against the Gaian Database (where appropriate) */
 
-            String localDBConnect = "CONNECT 'jdbc:derby://localhost:6414/FABRIC;create=false;user=fabric;password=fabric;';";
+            String localDBConnect = "CONNECT '" + LOCAL_DB_URL + "';";
             String distributedDBConnect = null;
             boolean isGaian = false;
             String fromSQL = null;
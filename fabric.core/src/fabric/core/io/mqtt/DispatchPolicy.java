@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.core.io.mqtt;
+
+/**
+ * Enumerated type representing the action taken when a message arrives on a channel whose dispatch queue is full.
+ * <p>
+ * Possible settings are:
+ * <ul>
+ * <li><strong>BLOCK:</strong> wait for space in the queue (delaying delivery of messages to all channels of the end
+ * point, and stalling the MQTT client's callback thread) for a limited time, then handle the message as for
+ * <code>SPILL</code>.</li>
+ * <li><strong>DROP_OLDEST:</strong> discard the oldest message in the queue to make space for the new message.</li>
+ * <li><strong>DROP_NEWEST:</strong> discard the new message.</li>
+ * <li><strong>SPILL:</strong> write the new message to a file, from which it is read back when the queue has been
+ * drained; if the file has reached its size limit then the new message is discarded.</li>
+ * </ul>
+ * </p>
+ */
+public enum DispatchPolicy {
+
+    BLOCK, DROP_OLDEST, DROP_NEWEST, SPILL;
+
+    /**
+     * Answers the policy corresponding to a configuration value (<code>block</code>, <code>dropOldest</code>,
+     * <code>dropNewest</code> or <code>spill</code>).
+     *
+     * @param value
+     *            the configuration value.
+     *
+     * @return the policy, or <code>null</code> if the value is not recognized.
+     */
+    public static DispatchPolicy decode(String value) {
+
+        DispatchPolicy policy = null;
+
+        if ("block".equalsIgnoreCase(value)) {
+            policy = BLOCK;
+        } else if ("dropOldest".equalsIgnoreCase(value) || "DROP_OLDEST".equalsIgnoreCase(value)) {
+            policy = DROP_OLDEST;
+        } else if ("dropNewest".equalsIgnoreCase(value) || "DROP_NEWEST".equalsIgnoreCase(value)) {
+            policy = DROP_NEWEST;
+        } else if ("spill".equalsIgnoreCase(value)) {
+            policy = SPILL;
+        }
+
+        return policy;
+
+    }
+}
@@ -8,12 +8,25 @@
 package fabric.core.io.mqtt;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.DatagramPacket;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 
 import fabric.core.io.Channel;
@@ -43,6 +56,9 @@ public class MqttChannel extends Channel {
     /** Separator for the topic part of the header */
     private static final byte[] MQTTS_TOPIC_SEPARATOR = new byte[] {' ', ' '};
 
+    /** The minimum interval between reports that the dispatch queue is full (nanoseconds) */
+    private static final long OVERLOAD_REPORT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
     /** The prefix for worker thread names */
     private static final String prefix = "Fabric-Worker-";
 
@@ -72,14 +88,77 @@ public class MqttChannel extends Channel {
     /** Indicates if the MQTT-S is enabled */
     private boolean mqttsEnabled = false;
 
+    /** Indicates if messages are published without waiting for delivery to complete */
+    private boolean asyncPublish = false;
+
+    /** The time (milliseconds) that a synchronous publication waits for delivery to complete */
+    private int publishTimeout = 30000;
+
     /** The default <code>MessageQoS</code> for messages */
     private MessageQoS defaultMessageQos = MessageQoS.UNKNOWN;
 
     /** The maximum size of a message (in bytes) that can be sent as <code>MessageQoS.BEST_EFFORT</code> */
     private int maxMqttsPayload = 500;
 
-    /** The buffer used to store messages arriving on this channel */
-    private final ArrayList<Message> buffer = new ArrayList<Message>();
+    /** The buffer used to store messages arriving on this channel (used for synchronous I/O) */
+    private final LinkedBlockingQueue<Message> buffer = new LinkedBlockingQueue<Message>();
+
+    /** The queue of messages waiting to be passed to the callbacks (used for asynchronous I/O) */
+    private final ConcurrentLinkedQueue<DispatchEntry> dispatchQueue = new ConcurrentLinkedQueue<DispatchEntry>();
+
+    /** The free space in the dispatch queue, or <code>null</code> if it is unbounded */
+    private Semaphore dispatchCapacity = null;
+
+    /** The action taken when a message arrives and the dispatch queue is full */
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.SPILL;
+
+    /** Messages that have overflowed the dispatch queue (created on demand, used by the <code>SPILL</code> policy) */
+    private SpillQueue spillQueue = null;
+
+    /** The directory in which overflowed messages are held */
+    private File spillDirectory = null;
+
+    /** The maximum size (bytes) of the file holding overflowed messages */
+    private long spillLimit = 0;
+
+    /** The time (milliseconds) that the <code>BLOCK</code> policy waits for space in the dispatch queue */
+    private int blockTimeout = 0;
+
+    /** Object used to synchronize access to the spill queue */
+    private final Object spillLock = new Object();
+
+    /** The number of messages in the spill queue */
+    private final AtomicInteger spillDepth = new AtomicInteger(0);
+
+    /** Flag indicating that this channel has been closed */
+    private volatile boolean isClosed = false;
+
+    /** The number of messages waiting to be passed to the callbacks */
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+
+    /** The number of messages passed to the callbacks */
+    private final AtomicLong dispatchedCount = new AtomicLong(0);
+
+    /** The number of messages discarded because the dispatch queue was full */
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    /** The number of messages written to the spill queue */
+    private final AtomicLong spilledCount = new AtomicLong(0);
+
+    /** The total time (nanoseconds) that dispatched messages have spent in the queue */
+    private final AtomicLong totalWaitTime = new AtomicLong(0);
+
+    /** The total time (nanoseconds) that the end point has been blocked waiting for space in the queue */
+    private final AtomicLong totalBlockedTime = new AtomicLong(0);
+
+    /** The time at which the dispatch queue was last reported as full (nanoseconds) */
+    private final AtomicLong lastOverloadReport = new AtomicLong(System.nanoTime() - OVERLOAD_REPORT_INTERVAL);
+
+    /** Flag indicating if the dispatcher has been scheduled to drain the dispatch queue */
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+
+    /** Passes queued messages to the callbacks */
+    private final CallbackDispatcher dispatcher = new CallbackDispatcher();
 
     /** The topic to which to send messages to the target */
     private OutputTopic outputTopic = null;
@@ -87,8 +166,8 @@ public class MqttChannel extends Channel {
     /** The topic from which reply messages will be received (i.e. the local topic) */
     private InputTopic inputTopic = null;
 
-    /** The callback to handle incoming messages (used for asynchronous I/O) */
-    private ArrayList<ICallback> callbacks = new ArrayList<ICallback>();
+    /** The callbacks to handle incoming messages (used for asynchronous I/O) */
+    private final CopyOnWriteArrayList<ICallback> callbacks = new CopyOnWriteArrayList<ICallback>();
 
     /** To manage worker threads */
     private ExecutorService executor = null;
@@ -123,29 +202,31 @@ public class MqttChannel extends Channel {
     }
 
     /**
-     * Runnable class used to invoke asynchronous I/O callbacks.
+     * A message waiting in the dispatch queue.
      */
-    private class CallbackInvoker implements Runnable {
+    private static class DispatchEntry {
 
-        private ICallback callback = null;
+        /** The message */
+        final Message message;
 
-        private Message message = null;
+        /** The time (from <code>System.nanoTime()</code>) at which the message was queued */
+        final long queuedAt;
 
-        /**
-         * Constructs a new instance.
-         *
-         * @param callback
-         *            the callback to invoke.
-         *
-         * @param message
-         *            the callback argument.
-         */
-        public CallbackInvoker(ICallback callback, Message message) {
+        DispatchEntry(Message message, long queuedAt) {
 
-            this.callback = callback;
             this.message = message;
-
+            this.queuedAt = queuedAt;
         }
+    }
+
+    /**
+     * Runnable class used to invoke asynchronous I/O callbacks.
+     * <p>
+     * A single instance is used for the lifetime of the channel: it is scheduled when messages are queued for delivery
+     * and runs until the queue is empty, passing each message to every registered callback in turn.
+     * </p>
+     */
+    private class CallbackDispatcher implements Runnable {
 
         /*
          * (non-Javadoc)
@@ -154,16 +235,101 @@ public class MqttChannel extends Channel {
         @Override
         public void run() {
 
-            try {
+            boolean moreMessages = true;
 
-                /* Invoke the callback with the new message */
-                logger.log(Level.FINEST, "Sending message to callback [{0}]", callback.getClass().getName());
-                callback.handleMessage(message);
+            long[] queuedAt = new long[1];
 
-            } catch (Exception e) {
+            while (moreMessages) {
 
-                logger.log(Level.WARNING, "Exception in callback: ", e);
+                Message message = null;
+
+                while ((message = nextMessage(queuedAt)) != null) {
+
+                    queueDepth.decrementAndGet();
+                    totalWaitTime.addAndGet(System.nanoTime() - queuedAt[0]);
+                    dispatch(message);
+                    dispatchedCount.incrementAndGet();
+
+                }
+
+                /* Allow the dispatcher to be rescheduled, unless a message has been queued in the meantime */
+                dispatchScheduled.set(false);
+                moreMessages = (!dispatchQueue.isEmpty() || spillDepth.get() > 0)
+                        && dispatchScheduled.compareAndSet(false, true);
+
+            }
+        }
+
+        /**
+         * Removes the next message from the dispatch queue or, once that is empty, from the spill queue.
+         *
+         * @param queuedAt
+         *            array into which the time at which the message was queued is returned (as element zero).
+         *
+         * @return the message, or <code>null</code> if there are none.
+         */
+        private Message nextMessage(long[] queuedAt) {
+
+            Message message = null;
+            DispatchEntry entry = dispatchQueue.poll();
+
+            if (entry != null) {
+
+                if (dispatchCapacity != null) {
+                    dispatchCapacity.release();
+                }
+
+                message = entry.message;
+                queuedAt[0] = entry.queuedAt;
+
+            } else if (spillDepth.get() > 0) {
+
+                synchronized (spillLock) {
+
+                    try {
+
+                        message = spillQueue.poll(queuedAt);
+
+                    } catch (IOException e) {
+
+                        logger.log(Level.WARNING,
+                                "Cannot read overflowed messages for channel [{0}], discarding {1}: {2}",
+                                new Object[] {inputTopic, spillQueue.size(), e.getMessage()});
+                        droppedCount.addAndGet(spillQueue.size());
+                        queueDepth.addAndGet(-spillQueue.size());
+                        spillQueue.close();
+
+                    }
+
+                    spillDepth.set(spillQueue.size());
+
+                }
+            }
+
+            return message;
+        }
+
+        /**
+         * Passes a message to each of the registered callbacks.
+         *
+         * @param message
+         *            the message.
+         */
+        private void dispatch(Message message) {
+
+            for (ICallback callback : callbacks) {
+
+                try {
 
+                    /* Invoke the callback with the new message */
+                    logger.log(Level.FINEST, "Sending message to callback [{0}]", callback.getClass().getName());
+                    callback.handleMessage(message);
+
+                } catch (Exception e) {
+
+                    logger.log(Level.WARNING, "Exception in callback: ", e);
+
+                }
             }
         }
     }
@@ -210,6 +376,17 @@ public class MqttChannel extends Channel {
         this.mqttQos = ((MqttConfig) endPoint.getConfig()).getMqttQos();
         this.retain = ((MqttConfig) endPoint.getConfig()).isRetain();
         this.mqttsEnabled = ((MqttConfig) endPoint.getConfig()).isMqttsEnabled();
+        this.asyncPublish = ((MqttConfig) endPoint.getConfig()).isAsyncPublish();
+        this.publishTimeout = ((MqttConfig) endPoint.getConfig()).getPublishTimeout();
+
+        /* Set up the bounds of the dispatch queue */
+        int dispatchLimit = ((MqttConfig) endPoint.getConfig()).getDispatchQueueLimit();
+        this.dispatchCapacity = (dispatchLimit > 0) ? new Semaphore(dispatchLimit) : null;
+        this.dispatchPolicy = ((MqttConfig) endPoint.getConfig()).getDispatchPolicy();
+        String spillDirectoryName = ((MqttConfig) endPoint.getConfig()).getSpillDirectory();
+        this.spillDirectory = (spillDirectoryName != null) ? new File(spillDirectoryName) : null;
+        this.spillLimit = ((MqttConfig) endPoint.getConfig()).getSpillLimit();
+        this.blockTimeout = ((MqttConfig) endPoint.getConfig()).getBlockTimeout();
         this.defaultMessageQos = ((MqttConfig) endPoint.getConfig()).getDefaultMessageQos();
         this.maxMqttsPayload = ((MqttConfig) endPoint.getConfig()).getMaxMqttsPayload();
 
@@ -241,6 +418,9 @@ public class MqttChannel extends Channel {
     @Override
     public void close() throws IOException, UnsupportedOperationException {
 
+        /* Release anyone waiting for space in the dispatch queue */
+        isClosed = true;
+
         /* Cancel any active asynchronous I/O */
         cancelCallbacks();
 
@@ -261,6 +441,14 @@ public class MqttChannel extends Channel {
         outputTopic = null;
         inputTopic = null;
         buffer.clear();
+        dispatchQueue.clear();
+
+        synchronized (spillLock) {
+            if (spillQueue != null) {
+                spillQueue.close();
+            }
+            spillDepth.set(0);
+        }
 
     }
 
@@ -300,6 +488,11 @@ public class MqttChannel extends Channel {
 
     /**
      * Writes a message to the end point associated with this channel.
+     * <p>
+     * If asynchronous publication is configured (<code>mqtt.asyncPublish</code>) then this method does not wait for
+     * the delivery of MQTT messages to complete, and delivery failures are logged rather than reported to the caller.
+     * Otherwise the write fails if delivery does not complete within <code>mqtt.publishTimeout</code> milliseconds.
+     * </p>
      *
      * @param message
      *            the message data.
@@ -317,6 +510,84 @@ public class MqttChannel extends Channel {
     public void write(byte[] message, OutputTopic outputTopic, MessageQoS qos) throws IOException,
         UnsupportedOperationException {
 
+        CompletableFuture<Void> delivery = send(message, outputTopic, qos, asyncPublish);
+
+        /* If delivery is still in progress... */
+        if (delivery != null && !delivery.isDone()) {
+
+            final OutputTopic deliveryTopic = outputTopic;
+
+            /* Report any failure when it completes */
+            delivery.whenComplete(new BiConsumer<Void, Throwable>() {
+
+                @Override
+                public void accept(Void result, Throwable t) {
+
+                    if (t != null) {
+                        logger.log(Level.WARNING, "Asynchronous publication to [{0}] failed: {1}", new Object[] {
+                                deliveryTopic, t.getMessage()});
+                        logger.log(Level.FINEST, "Full exception: ", t);
+                    }
+                }
+            });
+
+        }
+    }
+
+    /**
+     * Writes a message to the end point associated with this channel without waiting for delivery to complete.
+     * <p>
+     * The number of messages in flight is limited by the end point (<code>mqtt.maxInflight</code>); if the limit has
+     * been reached then this method blocks until an earlier message has been delivered, failing if that takes longer
+     * than <code>mqtt.publishTimeout</code> milliseconds.
+     * </p>
+     *
+     * @param message
+     *            the message data.
+     *
+     * @param outputTopic
+     *            the name of the remote (target) topic (i.e. topic name).
+     *
+     * @param qos
+     *            the quality of service required for this message.
+     *
+     * @return a future completed when the message has been delivered (or delivery has failed).
+     *
+     * @throws IOException
+     *             thrown if the message cannot be sent.
+     */
+    public CompletableFuture<Void> writeAsync(byte[] message, OutputTopic outputTopic, MessageQoS qos)
+        throws IOException {
+
+        return send(message, outputTopic, qos, true);
+
+    }
+
+    /**
+     * Sends a message to the end point associated with this channel.
+     *
+     * @param message
+     *            the message data.
+     *
+     * @param outputTopic
+     *            the name of the remote (target) topic (i.e. topic name).
+     *
+     * @param qos
+     *            the quality of service required for this message.
+     *
+     * @param async
+     *            <code>true</code> if MQTT messages are to be published without waiting for delivery to complete,
+     *            <code>false</code> otherwise.
+     *
+     * @return a future completed when the message has been delivered.
+     *
+     * @throws IOException
+     */
+    private CompletableFuture<Void> send(byte[] message, OutputTopic outputTopic, MessageQoS qos, boolean async)
+        throws IOException {
+
+        CompletableFuture<Void> delivery = null;
+
         if (outputTopic != null) {
 
             MqttConfig config = (MqttConfig) endPoint.getConfig();
@@ -328,9 +599,7 @@ public class MqttChannel extends Channel {
                         || (qos == MessageQoS.DEFAULT && defaultMessageQos == MessageQoS.RELIABLE)) {
 
                     /* Publish a MQTT message */
-                    logger.log(Level.FINEST, "Publishing {0} byte MQTT payload to [{1}]", new Object[] {message.length,
-                            outputTopic});
-                    endPoint.getMqttClient().publish(outputTopic.name(), message, mqttQos, retain);
+                    delivery = publish(message, outputTopic, async);
 
                 } else {
 
@@ -346,13 +615,12 @@ public class MqttChannel extends Channel {
                         DatagramPacket packet = new DatagramPacket(finalPacketBytes, finalPacketBytes.length, endPoint
                                 .getDatagramAddress(), config.getIPPort());
                         endPoint.getDatagramSocket().send(packet);
+                        delivery = CompletableFuture.completedFuture(null);
 
                     } else {
 
                         /* Fallback to publishing it as an MQTT message */
-                        logger.log(Level.FINEST, "Publishing {0} byte MQTT payload to [{1}]", new Object[] {
-                                message.length, outputTopic});
-                        endPoint.getMqttClient().publish(outputTopic.name(), message, mqttQos, retain);
+                        delivery = publish(message, outputTopic, async);
 
                     }
                 }
@@ -369,6 +637,56 @@ public class MqttChannel extends Channel {
             throw new IOException("No output topic; cannot publish message");
 
         }
+
+        return delivery;
+    }
+
+    /**
+     * Publishes an MQTT message.
+     * <p>
+     * All publications, synchronous or not, are made within the end point's in-flight window, so that synchronous
+     * writers and asynchronous writers share (and are bounded by) the same limit. A synchronous publication waits for
+     * at most <code>mqtt.publishTimeout</code> milliseconds for delivery to complete; since completions are reported
+     * on the MQTT client's callback thread, this bounds the wait of a write made from (or while blocking) that thread.
+     * </p>
+     *
+     * @param message
+     *            the message data.
+     *
+     * @param outputTopic
+     *            the name of the remote (target) topic (i.e. topic name).
+     *
+     * @param async
+     *            <code>true</code> if the message is to be published without waiting for delivery to complete,
+     *            <code>false</code> otherwise.
+     *
+     * @return a future completed when the message has been delivered.
+     *
+     * @throws Exception
+     */
+    private CompletableFuture<Void> publish(byte[] message, OutputTopic outputTopic, boolean async) throws Exception {
+
+        logger.log(Level.FINEST, "Publishing {0} byte MQTT payload to [{1}]", new Object[] {message.length,
+                outputTopic});
+
+        CompletableFuture<Void> delivery = endPoint.publishAsync(outputTopic.name(), message, mqttQos, retain);
+
+        /* If the caller is to wait for delivery to complete... */
+        if (!async) {
+
+            try {
+                delivery.get(publishTimeout, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+                throw new IOException(cause.getMessage());
+            } catch (TimeoutException e) {
+                throw new IOException("Timed out waiting for delivery to [" + outputTopic + "]");
+            }
+
+        }
+
+        return delivery;
+
     }
 
     /**
@@ -474,16 +792,11 @@ public class MqttChannel extends Channel {
                 throw new IllegalStateException("Synchronous I/O attempted on channel configured for asynchronous I/O");
             }
 
-            synchronized (buffer) {
-
-                while (buffer.size() == 0) {
-                    try {
-                        buffer.wait();
-                    } catch (InterruptedException e) {
-                    }
+            while (incomingMessage == null) {
+                try {
+                    incomingMessage = buffer.take();
+                } catch (InterruptedException e) {
                 }
-
-                incomingMessage = buffer.remove(0);
             }
 
             /* If the user wants the full details of the message... */
@@ -584,39 +897,296 @@ public class MqttChannel extends Channel {
 
         boolean messageAccepted = true;
 
-        synchronized (buffer) {
+        /* If there is a callback... */
+        if (callbacks.size() > 0) {
 
-            /* If there is a callback... */
-            if (callbacks.size() > 0) {
+            /* Queue the message for the callbacks */
+            messageAccepted = enqueue(message);
+
+            /* If the dispatcher is not already running... */
+            if (messageAccepted && dispatchScheduled.compareAndSet(false, true)) {
+
+                try {
+
+                    /* Invoke the callbacks on a thread from the pool */
+                    executor.execute(dispatcher);
 
-                for (ICallback callback : callbacks) {
+                } catch (RejectedExecutionException e) {
 
-                    /* Invoke the callback on a thread from the pool */
-                    CallbackInvoker invoker = new CallbackInvoker(callback, message);
-                    executor.execute(invoker);
+                    /* The channel has been closed */
+                    logger.log(Level.FINE, "Message arrived on closed channel [{0}]; discarding", inputTopic);
+                    dispatchQueue.clear();
+                    queueDepth.set(0);
+                    dispatchScheduled.set(false);
+                    messageAccepted = false;
 
                 }
+            }
+
+        } else {
+
+            if (bufferLimit != 0 && buffer.size() >= bufferLimit) {
+
+                /* We can't handle it */
+                messageAccepted = false;
 
             } else {
 
-                if (bufferLimit != 0 && buffer.size() == bufferLimit) {
+                /* Add this message to the buffer (notifying anyone who is waiting for data) */
+                buffer.offer(message);
 
-                    /* We can't handle it */
-                    messageAccepted = false;
+            }
+        }
 
-                } else {
+        return messageAccepted;
+    }
+
+    /**
+     * Adds a message to the dispatch queue, applying the overload policy if the queue is full.
+     *
+     * @param message
+     *            the message.
+     *
+     * @return <code>true</code> if the message was queued, <code>false</code> if it was discarded.
+     */
+    private boolean enqueue(Message message) {
 
-                    /* Add this message to the buffer */
-                    buffer.add(message);
+        boolean isQueued = true;
+        boolean isFull = false;
+        long queuedAt = System.nanoTime();
 
-                    /* Notify anyone who is waiting for data */
-                    buffer.notifyAll();
+        /* If the queue is unbounded... */
+        if (dispatchCapacity == null) {
 
-                }
+            dispatchQueue.offer(new DispatchEntry(message, queuedAt));
+
+        } else {
+
+            switch (dispatchPolicy) {
+
+                case DROP_NEWEST:
+
+                    isQueued = dispatchCapacity.tryAcquire();
+                    isFull = !isQueued;
+                    break;
+
+                case DROP_OLDEST:
+
+                    /* Make space by discarding the oldest messages */
+                    while (!dispatchCapacity.tryAcquire()) {
+                        isFull = true;
+                        if (dispatchQueue.poll() != null) {
+                            dispatchCapacity.release();
+                            queueDepth.decrementAndGet();
+                            droppedCount.incrementAndGet();
+                        }
+                    }
+                    break;
+
+                case SPILL:
+
+                    synchronized (spillLock) {
+
+                        /* If messages are already overflowing (they must be delivered first) or the queue is full... */
+                        if (spillDepth.get() > 0 || !dispatchCapacity.tryAcquire()) {
+                            isFull = true;
+                            isQueued = spill(message, queuedAt);
+                            message = null;
+                        }
+
+                    }
+                    break;
+
+                default:
+
+                    /*
+                     * Wait for space in the queue, but only briefly: this is the MQTT client's callback thread, which
+                     * also completes the publications that the callbacks may be waiting for
+                     */
+                    boolean hasSpace = false;
+
+                    if (spillDepth.get() == 0 && !isClosed) {
+
+                        try {
+                            hasSpace = dispatchCapacity.tryAcquire();
+                            if (!hasSpace) {
+                                isFull = true;
+                                hasSpace = dispatchCapacity.tryAcquire(blockTimeout, TimeUnit.MILLISECONDS);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+
+                        totalBlockedTime.addAndGet(System.nanoTime() - queuedAt);
+
+                    }
+
+                    /* If there is still no space, overflow to the spill queue (unless the channel is closed) */
+                    if (!hasSpace && isClosed) {
+
+                        isQueued = false;
+
+                    } else if (!hasSpace) {
+
+                        synchronized (spillLock) {
+
+                            if (spillDepth.get() > 0 || !dispatchCapacity.tryAcquire()) {
+                                isFull = true;
+                                isQueued = spill(message, queuedAt);
+                                message = null;
+                            }
+
+                        }
+                    }
+                    break;
+
+            }
+
+            /* If the message can be added to the queue... */
+            if (isQueued && message != null) {
+                dispatchQueue.offer(new DispatchEntry(message, queuedAt));
             }
         }
 
-        return messageAccepted;
+        if (isQueued) {
+            queueDepth.incrementAndGet();
+        } else {
+            droppedCount.incrementAndGet();
+            logger.log(Level.FINE, "Dispatch queue for channel [{0}] full, discarding message", inputTopic);
+        }
+
+        if (isFull) {
+            reportOverload();
+        }
+
+        return isQueued;
+
+    }
+
+    /**
+     * Logs the dispatch queue statistics of this channel when its queue is full, at most once every
+     * <code>OVERLOAD_REPORT_INTERVAL</code>.
+     */
+    private void reportOverload() {
+
+        long now = System.nanoTime();
+        long lastReport = lastOverloadReport.get();
+
+        if (now - lastReport >= OVERLOAD_REPORT_INTERVAL && lastOverloadReport.compareAndSet(lastReport, now)) {
+            logger.log(Level.WARNING, "Dispatch queue for channel [{0}] is full (policy {1}): depth {2}, "
+                    + "dispatched {3}, dropped {4}, spilled {5}, blocked {6} ms", new Object[] {inputTopic,
+                    dispatchPolicy, getDispatchQueueDepth(), getDispatchedCount(), getDroppedCount(),
+                    getSpilledCount(), getTotalBlockedTime()});
+        }
+
+    }
+
+    /**
+     * Adds a message to the spill queue (the caller must hold <code>spillLock</code>).
+     *
+     * @param message
+     *            the message.
+     *
+     * @param queuedAt
+     *            the time at which the message was queued.
+     *
+     * @return <code>true</code> if the message was added, <code>false</code> otherwise (including if the spill queue
+     *         has reached its size limit).
+     */
+    private boolean spill(Message message, long queuedAt) {
+
+        boolean isSpilled = false;
+
+        try {
+
+            if (spillQueue == null) {
+                spillQueue = new SpillQueue(spillDirectory, "fabric-channel-", spillLimit);
+            }
+
+            isSpilled = spillQueue.append(message, queuedAt);
+
+            if (isSpilled) {
+                spillDepth.set(spillQueue.size());
+                spilledCount.incrementAndGet();
+            }
+
+        } catch (IOException e) {
+
+            logger.log(Level.WARNING, "Cannot write overflowed message for channel [{0}]: {1}", new Object[] {
+                    inputTopic, e.getMessage()});
+
+        }
+
+        return isSpilled;
+
+    }
+
+    /**
+     * Answers the number of messages waiting to be passed to the callbacks of this channel (including any that have
+     * overflowed to disk).
+     *
+     * @return the queue depth.
+     */
+    public int getDispatchQueueDepth() {
+
+        return queueDepth.get();
+
+    }
+
+    /**
+     * Answers the number of messages that have been passed to the callbacks of this channel.
+     *
+     * @return the message count.
+     */
+    public long getDispatchedCount() {
+
+        return dispatchedCount.get();
+
+    }
+
+    /**
+     * Answers the number of messages that have been discarded because the dispatch queue was full.
+     *
+     * @return the message count.
+     */
+    public long getDroppedCount() {
+
+        return droppedCount.get();
+
+    }
+
+    /**
+     * Answers the number of messages that have overflowed the dispatch queue to disk.
+     *
+     * @return the message count.
+     */
+    public long getSpilledCount() {
+
+        return spilledCount.get();
+
+    }
+
+    /**
+     * Answers the total time that dispatched messages have spent waiting in the queue.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getTotalWaitTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitTime.get());
+
+    }
+
+    /**
+     * Answers the total time that the end point has been blocked waiting for space in the dispatch queue (when using
+     * the <code>BLOCK</code> policy).
+     *
+     * @return the time in milliseconds.
+     */
+    public long getTotalBlockedTime() {
+
+        return TimeUnit.NANOSECONDS.toMillis(totalBlockedTime.get());
+
     }
 
     /**
@@ -711,23 +1281,20 @@ public class MqttChannel extends Channel {
 
         if (callbacks.contains(callback)) {
 
-            synchronized (buffer) {
-
-                try {
+            try {
 
-                    /* Invoke the callback's clean up method */
-                    callback.cancelCallback(null);
+                /* Invoke the callback's clean up method */
+                callback.cancelCallback(null);
 
-                } catch (Exception e) {
+            } catch (Exception e) {
 
-                    logger.log(Level.WARNING, "Exception in callback: ", e);
+                logger.log(Level.WARNING, "Exception in callback: ", e);
 
-                }
+            }
 
-                callbacks.remove(callback);
-                oldCallback = callback;
+            callbacks.remove(callback);
+            oldCallback = callback;
 
-            }
         }
 
         return oldCallback;
@@ -739,14 +1306,9 @@ public class MqttChannel extends Channel {
     @Override
     public void cancelCallbacks() {
 
-        synchronized (buffer) {
-
-            ArrayList<ICallback> callbacksCopy = (ArrayList<ICallback>) callbacks.clone();
-
-            for (ICallback callback : callbacksCopy) {
-                cancelCallback(callback);
-            }
-
+        /* Iteration is over a snapshot of the callbacks, so they can be removed as we go */
+        for (ICallback callback : callbacks) {
+            cancelCallback(callback);
         }
     }
 }
@@ -7,6 +7,9 @@
 
 package fabric.core.io.mqtt;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 import fabric.core.io.Config;
 import fabric.core.properties.ConfigProperties;
 import fabric.core.properties.Properties;
@@ -82,6 +85,30 @@ public class MqttConfig extends Config {
      */
     private int maxMqttsPayload = 500;
 
+    /** Indicates if messages are published asynchronously (defaults to <code>false</code>). */
+    private boolean asyncPublish = false;
+
+    /** The maximum number of asynchronous publications in flight at any one time (defaults to <code>10</code>). */
+    private int maxInflight = 10;
+
+    /** The time (milliseconds) that a publication waits to be sent and delivered (defaults to <code>30000</code>). */
+    private int publishTimeout = 30000;
+
+    /** The maximum number of messages queued for the callbacks of a channel (<code>0</code> for unlimited). */
+    private int dispatchQueueLimit = 10000;
+
+    /** The action taken when a channel's dispatch queue is full (defaults to <code>SPILL</code>). */
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.SPILL;
+
+    /** The directory in which overflowed messages are held (defaults to the system temporary directory). */
+    private String spillDirectory = null;
+
+    /** The maximum size (bytes) of the file holding overflowed messages (defaults to 64 MB). */
+    private long spillLimit = 64 * 1024 * 1024;
+
+    /** The time (milliseconds) that the <code>BLOCK</code> policy waits for space (defaults to <code>100</code>). */
+    private int blockTimeout = 100;
+
     /*
      * Class methods
      */
@@ -112,6 +139,18 @@ public class MqttConfig extends Config {
         this.mqttsEnabled = source.mqttsEnabled;
         this.maxMqttsPayload = source.maxMqttsPayload;
 
+        /* Publication settings */
+        this.asyncPublish = source.asyncPublish;
+        this.maxInflight = source.maxInflight;
+        this.publishTimeout = source.publishTimeout;
+
+        /* Dispatch settings */
+        this.dispatchQueueLimit = source.dispatchQueueLimit;
+        this.dispatchPolicy = source.dispatchPolicy;
+        this.spillDirectory = source.spillDirectory;
+        this.spillLimit = source.spillLimit;
+        this.blockTimeout = source.blockTimeout;
+
     }
 
     /**
@@ -145,6 +184,33 @@ public class MqttConfig extends Config {
         maxMqttsPayload = Integer.parseInt(config.getProperty("mqtts.maxPayload", "500"));
         mqttsEnabled = Boolean.parseBoolean(config.getProperty("mqtts.enabled", "false"));
 
+        /* Publication settings */
+        asyncPublish = Boolean.parseBoolean(config.getProperty(ConfigProperties.MQTT_ASYNC_PUBLISH,
+                ConfigProperties.MQTT_ASYNC_PUBLISH_DEFAULT));
+        maxInflight = Integer.parseInt(config.getProperty(ConfigProperties.MQTT_MAX_INFLIGHT,
+                ConfigProperties.MQTT_MAX_INFLIGHT_DEFAULT));
+        publishTimeout = Integer.parseInt(config.getProperty(ConfigProperties.MQTT_PUBLISH_TIMEOUT,
+                ConfigProperties.MQTT_PUBLISH_TIMEOUT_DEFAULT));
+
+        /* Dispatch settings */
+        dispatchQueueLimit = Integer.parseInt(config.getProperty(ConfigProperties.MQTT_DISPATCH_QUEUE_LIMIT,
+                ConfigProperties.MQTT_DISPATCH_QUEUE_LIMIT_DEFAULT));
+        String policy = config.getProperty(ConfigProperties.MQTT_DISPATCH_QUEUE_POLICY,
+                ConfigProperties.MQTT_DISPATCH_QUEUE_POLICY_DEFAULT);
+        dispatchPolicy = DispatchPolicy.decode(policy);
+        if (dispatchPolicy == null) {
+            dispatchPolicy = DispatchPolicy.decode(ConfigProperties.MQTT_DISPATCH_QUEUE_POLICY_DEFAULT);
+            Logger.getLogger("fabric.core.io.mqtt").log(Level.WARNING,
+                    "Unrecognized value for {0}: [{1}]; using [{2}]",
+                    new Object[] {ConfigProperties.MQTT_DISPATCH_QUEUE_POLICY, policy,
+                            ConfigProperties.MQTT_DISPATCH_QUEUE_POLICY_DEFAULT});
+        }
+        spillDirectory = config.getProperty(ConfigProperties.MQTT_DISPATCH_SPILL_DIRECTORY, (String) null);
+        spillLimit = Long.parseLong(config.getProperty(ConfigProperties.MQTT_DISPATCH_SPILL_LIMIT,
+                ConfigProperties.MQTT_DISPATCH_SPILL_LIMIT_DEFAULT));
+        blockTimeout = Integer.parseInt(config.getProperty(ConfigProperties.MQTT_DISPATCH_BLOCK_TIMEOUT,
+                ConfigProperties.MQTT_DISPATCH_BLOCK_TIMEOUT_DEFAULT));
+
     }
 
     /**
@@ -238,6 +304,87 @@ public class MqttConfig extends Config {
         return maxMqttsPayload;
     }
 
+    /**
+     * Gets the flag indicating if messages are published asynchronously.
+     *
+     * @return <code>true</code> if publications do not wait for delivery to complete, <code>false</code> otherwise.
+     */
+    public boolean isAsyncPublish() {
+
+        return asyncPublish;
+    }
+
+    /**
+     * Gets the maximum number of asynchronous publications in flight at any one time.
+     *
+     * @return the size of the in-flight window.
+     */
+    public int getMaxInflight() {
+
+        return maxInflight;
+    }
+
+    /**
+     * Gets the time that a publication will wait for space in the in-flight window and, if it is synchronous, for
+     * delivery to complete.
+     *
+     * @return the timeout in milliseconds.
+     */
+    public int getPublishTimeout() {
+
+        return publishTimeout;
+    }
+
+    /**
+     * Gets the maximum number of messages queued for the callbacks of a channel.
+     *
+     * @return the queue limit (<code>0</code> for unlimited).
+     */
+    public int getDispatchQueueLimit() {
+
+        return dispatchQueueLimit;
+    }
+
+    /**
+     * Gets the action taken when a channel's dispatch queue is full.
+     *
+     * @return the policy.
+     */
+    public DispatchPolicy getDispatchPolicy() {
+
+        return dispatchPolicy;
+    }
+
+    /**
+     * Gets the directory in which messages that overflow a channel's dispatch queue are held.
+     *
+     * @return the directory name, or <code>null</code> for the system temporary directory.
+     */
+    public String getSpillDirectory() {
+
+        return spillDirectory;
+    }
+
+    /**
+     * Gets the maximum size of the file holding the messages that overflow a channel's dispatch queue.
+     *
+     * @return the size in bytes.
+     */
+    public long getSpillLimit() {
+
+        return spillLimit;
+    }
+
+    /**
+     * Gets the time that the <code>BLOCK</code> policy waits for space in a channel's dispatch queue.
+     *
+     * @return the timeout in milliseconds.
+     */
+    public int getBlockTimeout() {
+
+        return blockTimeout;
+    }
+
     /**
      * Gets the "clean start" flag (defaults to <code>true</code>).
      *
@@ -12,13 +12,16 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
@@ -32,7 +35,6 @@ import fabric.core.io.InputTopic;
 import fabric.core.io.Message;
 import fabric.core.io.OutputTopic;
 import fabric.core.properties.Properties;
-import fabric.core.util.Split;
 
 /**
  * Class representing an I/O end point, i.e. a logical connection to a remote node, implemented using MQTT or MQTT-S as
@@ -47,12 +49,21 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
      * Class constants
      */
 
+    /** The maximum number of publications that the MQTT client allows to be in flight at any one time. */
+    private static final int CLIENT_MAX_INFLIGHT = 10;
+
     /*
      * Class fields
      */
 
     /** MQTT client connection. */
-    private MqttClient mqttClient = null;
+    private FabricMqttClient mqttClient = null;
+
+    /** Limits the number of asynchronous publications in flight (replaced when the connection is re-established). */
+    private volatile Semaphore publishWindow = null;
+
+    /** The size of the in-flight window for asynchronous publications. */
+    private int publishWindowSize = CLIENT_MAX_INFLIGHT;
 
     /** The socket for MQTT-S messages. */
     private DatagramSocket datagramSocket = null;
@@ -63,8 +74,11 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
     /** The set of channels open against this end point. */
     private final HashMap<String, MqttChannel> channels = new HashMap<String, MqttChannel>();
 
-    /** The set of subscribed topics (one per channel). */
-    private final ArrayList<String> topics = new ArrayList<String>();
+    /** Snapshot of the channels open against this end point (replaced whenever the set of channels changes). */
+    private volatile MqttChannel[] channelSnapshot = new MqttChannel[0];
+
+    /** The subscribed topics (one per channel), mapped to their channels. */
+    private final TopicTrie<MqttChannel> subscriptions = new TopicTrie<MqttChannel>();
 
     /** The configuration settings for this end point. */
     private MqttConfig config = null;
@@ -72,6 +86,27 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
     /** The class logger. */
     protected Logger logger;
 
+    /*
+     * Inner classes
+     */
+
+    /**
+     * MQTT client providing access to the underlying asynchronous client, allowing messages to be published without
+     * waiting for delivery to complete (using the same broker connection).
+     */
+    private static class FabricMqttClient extends MqttClient {
+
+        public FabricMqttClient(String serverURI, String clientId) throws MqttException {
+
+            super(serverURI, clientId, null);
+        }
+
+        public MqttAsyncClient asyncClient() {
+
+            return aClient;
+        }
+    }
+
     /*
      * Class methods
      */
@@ -134,6 +169,11 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
             /* Record the Fabric configuration information */
             this.config = new MqttConfig((MqttConfig) config);
 
+            /* Size the window for asynchronous publications (the MQTT client imposes its own limit) */
+            int maxInflight = this.config.getMaxInflight();
+            publishWindowSize = (maxInflight > 0 && maxInflight < CLIENT_MAX_INFLIGHT) ? maxInflight
+                    : CLIENT_MAX_INFLIGHT;
+
             /* Initialise MQTT */
             mqttInit();
 
@@ -236,13 +276,8 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
         synchronized (channels) {
             if (inputTopic != null) {
                 channels.put(inputTopic.name(), mqttChannel);
-            }
-        }
-
-        /* Make a note of the new topic */
-        synchronized (topics) {
-            if (inputTopic != null) {
-                topics.add(inputTopic.name());
+                subscriptions.put(inputTopic.name(), mqttChannel);
+                channelSnapshot = channels.values().toArray(new MqttChannel[channels.size()]);
             }
         }
 
@@ -278,6 +313,9 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
 
             mqttConnect();
 
+            /* Publications in flight on the old connection have been lost, so start with a new window */
+            publishWindow = new Semaphore(publishWindowSize);
+
             /* Reconnect each of the current channels */
 
             logger.log(Level.FINER, "Re-subscribing to channel topics");
@@ -319,49 +357,45 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
     public void messageArrived(String topic, MqttMessage msg) throws Exception {
 
         byte[] messageBytes = msg.getPayload();
-        int qos = msg.getQos();
-        boolean retain = msg.isRetained();
-        String messageStr = new String(messageBytes);
 
-        logger.log(Level.FINEST, "Message received on topic [{0}]:\n{1}", new Object[] {topic, messageStr});
+        if (logger.isLoggable(Level.FINEST)) {
+            logger.log(Level.FINEST, "Message received on topic [{0}]:\n{1}", new Object[] {topic,
+                    new String(messageBytes)});
+        }
 
         boolean messageHandled = true;
 
-        /* Build the message */
+        /*
+         * Build the message. The MQTT client does not reuse the payload buffer once this callback returns, so it is
+         * passed on without copying (allowing message payloads to be handled as views of the received buffer).
+         */
         Message message = new Message();
         message.topic = topic;
-        byte[] data = new byte[messageBytes.length];
-        System.arraycopy(messageBytes, 0, data, 0, messageBytes.length);
-        message.data = data;
+        message.data = messageBytes;
 
         /* Pass the message to the channel */
 
-        synchronized (channels) {
-
-            /* Get the channel for this topic */
-            String[] subscribedTopics = matchTopicToSubscriptions(topic);
+        /* Get the channels subscribed to this topic */
+        ArrayList<MqttChannel> subscribedChannels = subscriptions.match(topic);
 
-            /* If there is one... */
-            if (subscribedTopics.length > 0) {
+        /* If there are any... */
+        if (subscribedChannels.size() > 0) {
 
-                /* For each topic... */
-                for (int t = 0; t < subscribedTopics.length; t++) {
+            /* For each channel... */
+            for (int c = 0; c < subscribedChannels.size(); c++) {
 
-                    MqttChannel channel = channels.get(subscribedTopics[t]);
+                /* Pass the message */
+                messageHandled = subscribedChannels.get(c).messageArrived(message);
 
-                    /* Pass the message */
-                    messageHandled = channel.messageArrived(message);
-
-                }
+            }
 
-            } else {
+        } else {
 
-                /* We can't handle the message, so drop it */
-                logger.log(Level.WARNING, "No channel open for topic [{0}], dropping message:\n{1}", new Object[] {
-                        topic, message.toString()});
-                messageHandled = false;
+            /* We can't handle the message, so drop it */
+            logger.log(Level.WARNING, "No channel open for topic [{0}], dropping message:\n{1}", new Object[] {topic,
+                    message.toString()});
+            messageHandled = false;
 
-            }
         }
 
         logger.log(Level.FINEST, "Message handled (status [{0}])", Boolean.toString(messageHandled));
@@ -382,14 +416,11 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
         /* Get the name of the inbound topic */
         String inboundTopic = channel.inputTopic().name();
 
-        /* Clean up references this topic */
-        synchronized (topics) {
-            topics.remove(inboundTopic);
-        }
-
-        /* Clean up references to the channel */
+        /* Clean up references to the channel and its topic */
         synchronized (channels) {
             channels.remove(inboundTopic);
+            subscriptions.remove(inboundTopic);
+            channelSnapshot = channels.values().toArray(new MqttChannel[channels.size()]);
         }
     }
 
@@ -416,6 +447,77 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
 
     }
 
+    /**
+     * Publishes a message without waiting for delivery to complete.
+     * <p>
+     * At most <code>mqtt.maxInflight</code> publications can be in flight at any one time; if the window is full then
+     * this method blocks until an earlier publication completes, for at most <code>mqtt.publishTimeout</code>
+     * milliseconds.
+     * </p>
+     *
+     * @param topic
+     *            the topic to which the message is to be published.
+     *
+     * @param payload
+     *            the message payload.
+     *
+     * @param qos
+     *            the MQTT QoS for the message.
+     *
+     * @param retain
+     *            the "retain publication" flag.
+     *
+     * @return a future completed when delivery is complete (or has failed).
+     *
+     * @throws IOException
+     *             thrown if the publication cannot be started (including if there is no space in the window before the
+     *             timeout expires).
+     */
+    public CompletableFuture<Void> publishAsync(String topic, byte[] payload, int qos, boolean retain)
+        throws IOException {
+
+        final CompletableFuture<Void> delivery = new CompletableFuture<Void>();
+        final Semaphore window = publishWindow;
+
+        try {
+            if (!window.tryAcquire(config.getPublishTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out waiting to publish to [" + topic + "]");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting to publish to [" + topic + "]");
+        }
+
+        try {
+
+            mqttClient.asyncClient().publish(topic, payload, qos, retain, null, new IMqttActionListener() {
+
+                @Override
+                public void onSuccess(IMqttToken token) {
+
+                    window.release();
+                    delivery.complete(null);
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable t) {
+
+                    window.release();
+                    delivery.completeExceptionally(t);
+                }
+            });
+
+        } catch (Exception e) {
+
+            window.release();
+            throw new IOException(e.getMessage());
+
+        }
+
+        return delivery;
+
+    }
+
     /**
      * Gets the datagam socket created for MQTT-S messages.
      *
@@ -448,9 +550,10 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
 
         try {
 
-            mqttClient = new MqttClient("tcp://" + config.getIPHost() + ":" + config.getIPPort(), config.getClient(),
-                    null);
+            mqttClient = new FabricMqttClient("tcp://" + config.getIPHost() + ":" + config.getIPPort(), config
+                    .getClient());
             mqttClient.setCallback(this);
+            publishWindow = new Semaphore(publishWindowSize);
 
         } catch (MqttException e) {
 
@@ -580,91 +683,6 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
         }
     }
 
-    /**
-     * Checks the specified topic for a match in the list subscribed to by the channels of this end point, taking
-     * account of wildcards used in the channel topic names.
-     *
-     * @param topic
-     *            the topic to check.
-     *
-     * @return the list of names of the matching channel topics.
-     */
-    private String[] matchTopicToSubscriptions(String topic) {
-
-        ArrayList<String> matchingTopics = new ArrayList<String>();
-
-        synchronized (topics) {
-
-            /* Get the list of active topics */
-            Iterator<String> topicIterator = topics.iterator();
-
-            String[] topicParts = Split.divide(topic, "/");
-            int t = 0;
-
-            /* For each registered topic... */
-            for (t = 0; topicIterator.hasNext(); t++) {
-
-                boolean isMatch = false;
-                boolean complete = false;
-                int p = 0;
-
-                String nextTopic = topicIterator.next();
-                String[] nextTopicParts = Split.divide(nextTopic, "/");
-
-                for (p = 0; p < nextTopicParts.length && !complete; p++) {
-
-                    if (nextTopicParts[p].equals("#")) {
-
-                        /* Match found */
-                        complete = true;
-                        isMatch = true;
-
-                    } else if (nextTopicParts[p].equals("+")) {
-
-                        /* Still matches, skip this level */
-                        isMatch = true;
-
-                    } else if (p >= topicParts.length) {
-
-                        /* No match */
-                        complete = true;
-                        isMatch = false;
-
-                    } else if (nextTopicParts[p].equals(topicParts[p])) {
-
-                        /* Still matches */
-                        isMatch = true;
-
-                    } else {
-
-                        /* No match */
-                        complete = true;
-                        isMatch = false;
-                    }
-                }
-
-                /* If we ran out of "next topic" parts without completing the match... */
-                if (p < topicParts.length && !complete) {
-                    isMatch = false;
-                }
-
-                /* If a match was found... */
-                if (isMatch) {
-
-                    /* Save it */
-                    matchingTopics.add(nextTopic);
-
-                }
-            }
-        }
-
-        /* Convert the list of matching topics to an array */
-        String[] matchingTopicNames = new String[matchingTopics.size()];
-        matchingTopicNames = matchingTopics.toArray(matchingTopicNames);
-
-        return matchingTopicNames;
-    }
-
     /**
      * Gets the list of active channels.
      *
@@ -672,21 +690,8 @@ public class MqttEndPoint extends EndPoint implements MqttCallback {
      */
     private MqttChannel[] channelList() {
 
-        MqttChannel[] channelList = null;
-
-        synchronized (channels) {
-
-            Set<Entry<String, MqttChannel>> entrySet = channels.entrySet();
-            Iterator<Entry<String, MqttChannel>> channelIterator = entrySet.iterator();
-            channelList = new MqttChannel[entrySet.size()];
-
-            for (int c = 0; channelIterator.hasNext(); c++) {
-                channelList[c] = channelIterator.next().getValue();
-            }
-
-        }
-
-        return channelList;
+        /* The snapshot is never modified, only replaced, so it can be used without locking */
+        return channelSnapshot;
     }
 
     /**
@@ -0,0 +1,254 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.core.io.mqtt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import fabric.core.io.Message;
+
+/**
+ * A first-in, first-out queue of messages held in a temporary file.
+ * <p>
+ * Used to hold messages that have overflowed a channel's dispatch queue. The file is limited in size; it is reused from
+ * the beginning each time the queue is emptied. Instances are not thread safe.
+ * </p>
+ */
+public class SpillQueue {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class fields
+     */
+
+    /** The directory in which the spill file is created. */
+    private final File directory;
+
+    /** The prefix for the name of the spill file. */
+    private final String prefix;
+
+    /** The maximum size of the spill file (bytes), or <code>0</code> if it is unlimited. */
+    private final long limit;
+
+    /** The spill file, or <code>null</code> if it has not yet been created. */
+    private File file = null;
+
+    /** Access to the spill file. */
+    private RandomAccessFile data = null;
+
+    /** The offset in the file of the next message to read. */
+    private long readPosition = 0;
+
+    /** The offset in the file at which the next message will be written. */
+    private long writePosition = 0;
+
+    /** The number of messages in the queue. */
+    private int size = 0;
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param directory
+     *            the directory in which the spill file is to be created (<code>null</code> for the default temporary
+     *            directory).
+     *
+     * @param prefix
+     *            the prefix for the name of the spill file.
+     *
+     * @param limit
+     *            the maximum size of the spill file in bytes, or <code>0</code> if it is unlimited.
+     */
+    public SpillQueue(File directory, String prefix, long limit) {
+
+        this.directory = directory;
+        this.prefix = prefix;
+        this.limit = limit;
+
+    }
+
+    /**
+     * Adds a message to the end of the queue, unless the spill file would exceed its size limit.
+     *
+     * @param message
+     *            the message.
+     *
+     * @param queuedAt
+     *            the time (from <code>System.nanoTime()</code>) at which the message was queued.
+     *
+     * @return <code>true</code> if the message was added, <code>false</code> if the spill file is full.
+     *
+     * @throws IOException
+     *             thrown if the message cannot be written.
+     */
+    public boolean append(Message message, long queuedAt) throws IOException {
+
+        byte[] topicBytes = (message.topic != null) ? message.topic.toString().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] messageBytes = message.data;
+        long recordLength = 8 + 4 + ((topicBytes != null) ? topicBytes.length : 0) + 4
+                + ((messageBytes != null) ? messageBytes.length : 0);
+
+        if (limit > 0 && writePosition + recordLength > limit) {
+            return false;
+        }
+
+        if (data == null) {
+            file = File.createTempFile(prefix, ".spill", directory);
+            file.deleteOnExit();
+            data = new RandomAccessFile(file, "rw");
+        }
+
+        data.seek(writePosition);
+        data.writeLong(queuedAt);
+        writeBytes(topicBytes);
+        writeBytes(messageBytes);
+        writePosition = data.getFilePointer();
+        size++;
+
+        return true;
+
+    }
+
+    /**
+     * Writes a length-prefixed byte array (a length of <code>-1</code> representing <code>null</code>) to the spill
+     * file.
+     *
+     * @param bytes
+     *            the bytes, or <code>null</code>.
+     *
+     * @throws IOException
+     */
+    private void writeBytes(byte[] bytes) throws IOException {
+
+        if (bytes == null) {
+            data.writeInt(-1);
+        } else {
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed byte array from the spill file.
+     *
+     * @return the bytes, or <code>null</code>.
+     *
+     * @throws IOException
+     */
+    private byte[] readBytes() throws IOException {
+
+        byte[] bytes = null;
+        int length = data.readInt();
+
+        if (length >= 0) {
+            bytes = new byte[length];
+            data.readFully(bytes);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Removes the message at the head of the queue.
+     *
+     * @param queuedAt
+     *            array into which the time at which the message was queued is returned (as element zero), or
+     *            <code>null</code>.
+     *
+     * @return the message, or <code>null</code> if the queue is empty.
+     *
+     * @throws IOException
+     *             thrown if the message cannot be read.
+     */
+    public Message poll(long[] queuedAt) throws IOException {
+
+        Message message = null;
+
+        if (size > 0) {
+
+            data.seek(readPosition);
+            long time = data.readLong();
+            byte[] topicBytes = readBytes();
+            byte[] messageBytes = readBytes();
+            readPosition = data.getFilePointer();
+            size--;
+
+            message = new Message();
+            message.topic = (topicBytes != null) ? new String(topicBytes, StandardCharsets.UTF_8) : null;
+            message.data = messageBytes;
+
+            if (queuedAt != null) {
+                queuedAt[0] = time;
+            }
+
+            /* If the queue is now empty, reuse the file from the beginning */
+            if (size == 0) {
+                readPosition = 0;
+                writePosition = 0;
+                data.setLength(0);
+            }
+        }
+
+        return message;
+
+    }
+
+    /**
+     * Answers the number of messages in the queue.
+     *
+     * @return the number of messages.
+     */
+    public int size() {
+
+        return size;
+
+    }
+
+    /**
+     * Answers the size of the spill file.
+     *
+     * @return the size in bytes.
+     */
+    public long length() {
+
+        return writePosition;
+
+    }
+
+    /**
+     * Discards the content of the queue and deletes the spill file.
+     */
+    public void close() {
+
+        try {
+            if (data != null) {
+                data.close();
+            }
+        } catch (IOException e) {
+            /* Since we're cleaning up, ignore and carry on */
+        }
+
+        if (file != null) {
+            file.delete();
+        }
+
+        data = null;
+        file = null;
+        readPosition = 0;
+        writePosition = 0;
+        size = 0;
+
+    }
+}
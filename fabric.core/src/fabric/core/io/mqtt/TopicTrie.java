@@ -0,0 +1,243 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.core.io.mqtt;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A tree of MQTT topic filters, used to find the filters (and associated values) matching a topic.
+ * <p>
+ * Each level of a filter is a node in the tree; filters may contain the MQTT single level (<code>+</code>) and multi
+ * level (<code>#</code>) wildcards. Lookups do not lock and may run concurrently with updates; updates are serialized.
+ * </p>
+ *
+ * @param <T>
+ *            the type of the value associated with each filter.
+ */
+public class TopicTrie<T> {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The topic level separator. */
+    private static final char SEPARATOR = '/';
+
+    /** The single level wildcard. */
+    private static final String SINGLE_LEVEL = "+";
+
+    /** The multi level wildcard. */
+    private static final String MULTI_LEVEL = "#";
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * A node in the tree, representing one level of a topic filter.
+     */
+    private static class Node<T> {
+
+        /** The child nodes, keyed by topic level. */
+        final ConcurrentHashMap<String, Node<T>> children = new ConcurrentHashMap<String, Node<T>>();
+
+        /** The value associated with the filter ending at this node, or <code>null</code> if there is none. */
+        volatile T value = null;
+
+    }
+
+    /*
+     * Class fields
+     */
+
+    /** The root of the tree. */
+    private final Node<T> root = new Node<T>();
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Adds a topic filter to the tree, replacing any value already associated with it.
+     *
+     * @param filter
+     *            the topic filter.
+     *
+     * @param value
+     *            the value to associate with the filter.
+     */
+    public synchronized void put(String filter, T value) {
+
+        Node<T> node = root;
+        int start = 0;
+        int end = 0;
+
+        /* For each level of the filter... */
+        do {
+
+            end = filter.indexOf(SEPARATOR, start);
+            String level = (end < 0) ? filter.substring(start) : filter.substring(start, end);
+            start = end + 1;
+
+            Node<T> child = node.children.get(level);
+
+            if (child == null) {
+                child = new Node<T>();
+                node.children.put(level, child);
+            }
+
+            node = child;
+
+        } while (end >= 0);
+
+        node.value = value;
+
+    }
+
+    /**
+     * Removes a topic filter from the tree.
+     *
+     * @param filter
+     *            the topic filter.
+     */
+    public synchronized void remove(String filter) {
+
+        remove(root, filter, 0);
+
+    }
+
+    /**
+     * Removes a topic filter from the sub-tree rooted at the specified node, pruning nodes that are no longer required.
+     *
+     * @param node
+     *            the root of the sub-tree.
+     *
+     * @param filter
+     *            the topic filter.
+     *
+     * @param start
+     *            the offset in the filter of the level corresponding to the children of the node.
+     *
+     * @return <code>true</code> if the node is no longer required, <code>false</code> otherwise.
+     */
+    private boolean remove(Node<T> node, String filter, int start) {
+
+        int end = filter.indexOf(SEPARATOR, start);
+        String level = (end < 0) ? filter.substring(start) : filter.substring(start, end);
+        Node<T> child = node.children.get(level);
+
+        if (child != null) {
+
+            boolean isEmpty = false;
+
+            /* If this is the last level of the filter... */
+            if (end < 0) {
+                child.value = null;
+                isEmpty = child.children.isEmpty();
+            } else {
+                isEmpty = remove(child, filter, end + 1);
+            }
+
+            if (isEmpty) {
+                node.children.remove(level);
+            }
+
+        }
+
+        return node != root && node.value == null && node.children.isEmpty();
+
+    }
+
+    /**
+     * Finds the values associated with all of the filters that match a topic.
+     *
+     * @param topic
+     *            the topic (which must not contain wildcards).
+     *
+     * @return the list of matching values (empty if there are none).
+     */
+    public ArrayList<T> match(String topic) {
+
+        ArrayList<T> matches = new ArrayList<T>();
+        match(root, topic, 0, matches);
+        return matches;
+
+    }
+
+    /**
+     * Finds the values associated with the filters in the sub-tree rooted at the specified node that match a topic.
+     *
+     * @param node
+     *            the root of the sub-tree.
+     *
+     * @param topic
+     *            the topic.
+     *
+     * @param start
+     *            the offset in the topic of the level to match against the children of the node, or <code>-1</code>
+     *            if all levels have been matched.
+     *
+     * @param matches
+     *            the list to which matching values are added.
+     */
+    private void match(Node<T> node, String topic, int start, ArrayList<T> matches) {
+
+        /* A multi level wildcard matches the remainder of the topic, including the parent level */
+        Node<T> multiLevel = node.children.get(MULTI_LEVEL);
+        addValue(multiLevel, matches);
+
+        /* If all levels of the topic have been matched... */
+        if (start < 0) {
+
+            addValue(node, matches);
+
+        } else {
+
+            int end = topic.indexOf(SEPARATOR, start);
+            String level = (end < 0) ? topic.substring(start) : topic.substring(start, end);
+            int next = (end < 0) ? -1 : end + 1;
+
+            Node<T> child = node.children.get(level);
+
+            if (child != null) {
+                match(child, topic, next, matches);
+            }
+
+            Node<T> singleLevel = node.children.get(SINGLE_LEVEL);
+
+            if (singleLevel != null) {
+                match(singleLevel, topic, next, matches);
+            }
+        }
+    }
+
+    /**
+     * Adds the value of a node (if it has one) to a list of matches.
+     *
+     * @param node
+     *            the node, or <code>null</code>.
+     *
+     * @param matches
+     *            the list of matches.
+     */
+    private void addValue(Node<T> node, ArrayList<T> matches) {
+
+        if (node != null) {
+
+            T value = node.value;
+
+            if (value != null) {
+                matches.add(value);
+            }
+        }
+    }
+}
@@ -59,6 +59,97 @@ public class ConfigProperties {
     /** Timeout configuration property indicating how long a local Registry query will wait for a response. */
     public static final String REGISTRY_LOCAL_TIMEOUT = "registry.local.timeout";
 
+    /** Configuration property indicating the maximum number of prepared statements cached per Registry connection. */
+    public static final String REGISTRY_STATEMENT_CACHE_SIZE = "registry.statementCacheSize";
+
+    /** Default maximum number of prepared statements cached per Registry connection (<code>0</code> to disable). */
+    public static final String REGISTRY_STATEMENT_CACHE_SIZE_DEFAULT = "64";
+
+    /** Configuration property indicating the maximum number of JDBC connections to the Registry. */
+    public static final String REGISTRY_CONNECTION_POOL_SIZE = "registry.connectionPoolSize";
+
+    /** Default maximum number of JDBC connections to the Registry. */
+    public static final String REGISTRY_CONNECTION_POOL_SIZE_DEFAULT = "4";
+
+    /** Configuration property indicating how long (in milliseconds) to wait for a free Registry connection. */
+    public static final String REGISTRY_CONNECTION_POOL_TIMEOUT = "registry.connectionPoolTimeout";
+
+    /** Default time (in milliseconds) to wait for a free Registry connection. */
+    public static final String REGISTRY_CONNECTION_POOL_TIMEOUT_DEFAULT = "30000";
+
+    /**
+     * Configuration property indicating how long (in milliseconds) a Registry connection may be idle before it is
+     * checked prior to reuse.
+     */
+    public static final String REGISTRY_CONNECTION_VALIDATION_INTERVAL = "registry.connectionValidationInterval";
+
+    /** Default time (in milliseconds) a Registry connection may be idle before it is checked prior to reuse. */
+    public static final String REGISTRY_CONNECTION_VALIDATION_INTERVAL_DEFAULT = "30000";
+
+    /** Configuration property indicating if the results of local Registry queries are cached. */
+    public static final String REGISTRY_QUERY_CACHE = "registry.queryCache";
+
+    /**
+     * Default flag indicating if the results of local Registry queries are cached (off, as changes made by other nodes
+     * are only seen once they are reported by the Registry triggers).
+     */
+    public static final String REGISTRY_QUERY_CACHE_DEFAULT = "false";
+
+    /** Configuration property indicating the maximum number of cached Registry query results. */
+    public static final String REGISTRY_QUERY_CACHE_SIZE = "registry.queryCacheSize";
+
+    /** Default maximum number of cached Registry query results. */
+    public static final String REGISTRY_QUERY_CACHE_SIZE_DEFAULT = "1024";
+
+    /** Configuration property indicating how long (in milliseconds) a Registry query result is cached. */
+    public static final String REGISTRY_QUERY_CACHE_TTL = "registry.queryCacheTTL";
+
+    /** Default time (in milliseconds) for which a Registry query result is cached (<code>0</code> for no limit). */
+    public static final String REGISTRY_QUERY_CACHE_TTL_DEFAULT = "60000";
+
+    /** Configuration property listing the Registry tables whose query results may be cached. */
+    public static final String REGISTRY_QUERY_CACHE_TABLES = "registry.queryCacheTables";
+
+    /** Default list of Registry tables whose query results may be cached (those monitored by the Registry triggers). */
+    public static final String REGISTRY_QUERY_CACHE_TABLES_DEFAULT = "NODES,NODE_NEIGHBOURS,NODE_IP_MAPPING,"
+            + "NODE_PLUGINS,TASK_PLUGINS,ACTOR_PLUGINS,PLATFORMS,SERVICES,DATA_FEEDS,TASK_SUBSCRIPTIONS";
+
+    /** Configuration property indicating if queued Registry saves are written in batches. */
+    public static final String REGISTRY_WRITE_BEHIND = "registry.writeBehind";
+
+    /** Default flag indicating if queued Registry saves are written in batches. */
+    public static final String REGISTRY_WRITE_BEHIND_DEFAULT = "false";
+
+    /** Configuration property indicating how often (in milliseconds) queued Registry saves are written. */
+    public static final String REGISTRY_WRITE_BEHIND_INTERVAL = "registry.writeBehindInterval";
+
+    /** Default interval (in milliseconds) at which queued Registry saves are written. */
+    public static final String REGISTRY_WRITE_BEHIND_INTERVAL_DEFAULT = "500";
+
+    /** Configuration property indicating the number of queued Registry saves that triggers an immediate write. */
+    public static final String REGISTRY_WRITE_BEHIND_MAX_PENDING = "registry.writeBehindMaxPending";
+
+    /** Default number of queued Registry saves that triggers an immediate write. */
+    public static final String REGISTRY_WRITE_BEHIND_MAX_PENDING_DEFAULT = "256";
+
+    /** Configuration property indicating if the latency and frequency of Registry statements are profiled. */
+    public static final String REGISTRY_PROFILE = "registry.profile";
+
+    /** Default flag indicating if Registry statements are profiled. */
+    public static final String REGISTRY_PROFILE_DEFAULT = "false";
+
+    /** Configuration property indicating the file to which the Registry profile is written. */
+    public static final String REGISTRY_PROFILE_FILE = "registry.profileFile";
+
+    /** Default file to which the Registry profile is written. */
+    public static final String REGISTRY_PROFILE_FILE_DEFAULT = "registry_profile.txt";
+
+    /** Configuration property indicating how often (in milliseconds) the Registry profile is written. */
+    public static final String REGISTRY_PROFILE_INTERVAL = "registry.profileInterval";
+
+    /** Default interval (in milliseconds) at which the Registry profile is written. */
+    public static final String REGISTRY_PROFILE_INTERVAL_DEFAULT = "60000";
+
     /**
      * Configuration property indicating the amount by which the distributed Registry timeout is reduced at each hop in
      * the flood, to avoid requests timing-out before partial results are returned.
@@ -147,6 +238,138 @@ public class ConfigProperties {
     /** Default Fabric discovery messages topic. */
     public static final String AUTO_DISCOVERY_TOPIC_DEFAULT = "$fabric/{0}/$discovery";
 
+    /*
+     * Fabric message configuration
+     */
+
+    /**
+     * Configuration property for the format in which Fabric messages are sent: <code>xml</code>, <code>hybrid</code>
+     * (XML followed by raw payload bytes) or <code>binary</code>. All nodes accept any format, so <code>hybrid</code>
+     * and <code>binary</code> must only be enabled once every node in the Fabric has been upgraded to a level that
+     * understands them.
+     */
+    public static final String MESSAGE_WIRE_FORMAT = "fabric.message.wireFormat";
+
+    /** Default Fabric message wire format. */
+    public static final String MESSAGE_WIRE_FORMAT_DEFAULT = "xml";
+
+    /**
+     * Configuration property indicating if the properties and payload of inbound Fabric messages are decoded on first
+     * access (<code>true</code>) rather than when the message is received (<code>false</code>).
+     */
+    public static final String MESSAGE_LAZY_PARSING = "fabric.message.lazyParsing";
+
+    /** Default Fabric message lazy parsing setting. */
+    public static final String MESSAGE_LAZY_PARSING_DEFAULT = "false";
+
+    /**
+     * Configuration property for the number of threads used by the Fabric Manager to parse and handle inbound messages
+     * (<code>0</code> to process them on the thread that delivers them). Messages for different feeds are handled in
+     * parallel, but each plug-in is called by one thread at a time, and service messages are handled one at a time.
+     */
+    public static final String BUS_WORKER_THREADS = "fabric.bus.workerThreads";
+
+    /** Default number of inbound message worker threads. */
+    public static final String BUS_WORKER_THREADS_DEFAULT = "0";
+
+    /**
+     * Configuration property for the maximum number of consecutive messages for the same feed that a worker thread
+     * handles as a single batch (<code>1</code> to handle messages one at a time).
+     */
+    public static final String BUS_BATCH_SIZE = "fabric.bus.batchSize";
+
+    /** Default feed message batch size. */
+    public static final String BUS_BATCH_SIZE_DEFAULT = "32";
+
+    /**
+     * Configuration property indicating if messages from locally attached feeds are handled in-process
+     * (<code>true</code>) rather than being republished onto the feed bus via the broker (<code>false</code>).
+     */
+    public static final String FEEDS_LOCAL_DELIVERY = "fabric.feeds.localDelivery";
+
+    /** Default local feed delivery setting. */
+    public static final String FEEDS_LOCAL_DELIVERY_DEFAULT = "false";
+
+    /**
+     * Configuration property for the interval (in seconds) after which the in-memory topology graph used for routing
+     * is reloaded from the Registry (<code>0</code> to rely on Registry update notifications alone). Each reload is a
+     * distributed query.
+     */
+    public static final String ROUTING_TOPOLOGY_REFRESH = "routing.topology.refreshInterval";
+
+    /** Default topology graph refresh interval. */
+    public static final String ROUTING_TOPOLOGY_REFRESH_DEFAULT = "0";
+
+    /** Configuration property for the time (in milliseconds) for which a flooded message remains valid. */
+    public static final String ROUTING_FLOOD_TTL = "routing.flood.ttl";
+
+    /** Default flooded message time-to-live. */
+    public static final String ROUTING_FLOOD_TTL_DEFAULT = "600000";
+
+    /**
+     * Configuration property for the time (in milliseconds) for which the neighbours of a node are cached for use when
+     * flooding messages (<code>0</code> to query the Registry for every message).
+     */
+    public static final String ROUTING_FLOOD_NEIGHBOUR_CACHE_TTL = "routing.flood.neighbourCacheTTL";
+
+    /** Default flood neighbour cache time-to-live. */
+    public static final String ROUTING_FLOOD_NEIGHBOUR_CACHE_TTL_DEFAULT = "60000";
+
+    /** The time span (in milliseconds) of each bucket of the flood duplicate detector. */
+    public static final String ROUTING_FLOOD_DUPLICATES_BUCKET = "routing.flood.duplicates.bucketWidth";
+
+    /** Default flood duplicate detector bucket time span. */
+    public static final String ROUTING_FLOOD_DUPLICATES_BUCKET_DEFAULT = "30000";
+
+    /** The maximum number of message UIDs held by the flood duplicate detector (0 for no limit). */
+    public static final String ROUTING_FLOOD_DUPLICATES_MAX = "routing.flood.duplicates.maxEntries";
+
+    /** Default maximum number of message UIDs held by the flood duplicate detector. */
+    public static final String ROUTING_FLOOD_DUPLICATES_MAX_DEFAULT = "1000000";
+
+    /** Flooded message routing mode ("tree" for multicast tree routing, "flood" to send to all neighbours). */
+    public static final String ROUTING_FLOOD_MODE = "routing.flood.mode";
+
+    /** Default flooded message routing mode. */
+    public static final String ROUTING_FLOOD_MODE_DEFAULT = "flood";
+
+    /** The time (in milliseconds) for which the topology must be unchanged before multicast trees are used. */
+    public static final String ROUTING_FLOOD_TREE_SETTLE = "routing.flood.tree.settleTime";
+
+    /** Default multicast tree settle time. */
+    public static final String ROUTING_FLOOD_TREE_SETTLE_DEFAULT = "30000";
+
+    /** Configuration property indicating if the link quality service is to be loaded. */
+    public static final String ROUTING_LINK_QUALITY = "routing.linkQuality.enabled";
+
+    /** Default link quality service setting. */
+    public static final String ROUTING_LINK_QUALITY_DEFAULT = "false";
+
+    /** The interval (in milliseconds) between link quality probes to each neighbour (0 to disable probing). */
+    public static final String ROUTING_LINK_PROBE_INTERVAL = "routing.linkQuality.probeInterval";
+
+    /** Default link quality probe interval. */
+    public static final String ROUTING_LINK_PROBE_INTERVAL_DEFAULT = "30000";
+
+    /** The time (in milliseconds) after which an unanswered link quality probe is counted as lost. */
+    public static final String ROUTING_LINK_PROBE_TIMEOUT = "routing.linkQuality.probeTimeout";
+
+    /** Default link quality probe timeout. */
+    public static final String ROUTING_LINK_PROBE_TIMEOUT_DEFAULT = "10000";
+
+    /** The multiple of its best weight above which a link is degraded and its subscriptions re-routed (0 for never). */
+    public static final String ROUTING_LINK_DEGRADE_FACTOR = "routing.linkQuality.degradeFactor";
+
+    /** Default link degradation factor. */
+    public static final String ROUTING_LINK_DEGRADE_FACTOR_DEFAULT = "5";
+
+    /** The class name of the handler invoked when a link degrades (see <code>IRerouteHandler</code>); none if empty. */
+    public static final String ROUTING_LINK_REROUTE_HANDLER = "routing.linkQuality.rerouteHandler";
+
+    /** Default link degradation handler, moving the subscriptions that use the link onto the better route. */
+    public static final String ROUTING_LINK_REROUTE_HANDLER_DEFAULT =
+            "fabric.services.linkquality.SubscriptionRerouteHandler";
+
     /*
      * MQTT configuration
      */
@@ -196,6 +419,66 @@ public class ConfigProperties {
     /** The MQTT retain publication setting configuration property. */
     public static final String MQTT_RETAIN = "mqtt.retainPublication";
 
+    /**
+     * Configuration property indicating if all MQTT messages are published asynchronously, i.e. without waiting for
+     * delivery to complete (feed messages sent by the bus are always published asynchronously).
+     */
+    public static final String MQTT_ASYNC_PUBLISH = "mqtt.asyncPublish";
+
+    /** Default MQTT asynchronous publication setting. */
+    public static final String MQTT_ASYNC_PUBLISH_DEFAULT = "false";
+
+    /** Configuration property for the maximum number of publications in flight per broker connection. */
+    public static final String MQTT_MAX_INFLIGHT = "mqtt.maxInflight";
+
+    /** Default maximum number of asynchronous publications in flight. */
+    public static final String MQTT_MAX_INFLIGHT_DEFAULT = "10";
+
+    /**
+     * Configuration property for the time (in milliseconds) that a publication will wait for space in the in-flight
+     * window and, if it is synchronous, for delivery to complete.
+     */
+    public static final String MQTT_PUBLISH_TIMEOUT = "mqtt.publishTimeout";
+
+    /** Default publication timeout. */
+    public static final String MQTT_PUBLISH_TIMEOUT_DEFAULT = "30000";
+
+    /** Configuration property for the maximum number of messages queued for the callbacks of a channel. */
+    public static final String MQTT_DISPATCH_QUEUE_LIMIT = "mqtt.dispatchQueue.limit";
+
+    /** Default maximum number of messages queued for the callbacks of a channel. */
+    public static final String MQTT_DISPATCH_QUEUE_LIMIT_DEFAULT = "10000";
+
+    /**
+     * Configuration property for the action taken when a channel's dispatch queue is full: <code>block</code>,
+     * <code>dropOldest</code>, <code>dropNewest</code> or <code>spill</code>.
+     */
+    public static final String MQTT_DISPATCH_QUEUE_POLICY = "mqtt.dispatchQueue.policy";
+
+    /** Default dispatch queue overload policy. */
+    public static final String MQTT_DISPATCH_QUEUE_POLICY_DEFAULT = "spill";
+
+    /** Configuration property for the directory in which messages overflowing a channel's dispatch queue are held. */
+    public static final String MQTT_DISPATCH_SPILL_DIRECTORY = "mqtt.dispatchQueue.spillDirectory";
+
+    /**
+     * Configuration property for the maximum size (in bytes) of the file holding the messages overflowing a channel's
+     * dispatch queue; once it is reached further overflowing messages are discarded.
+     */
+    public static final String MQTT_DISPATCH_SPILL_LIMIT = "mqtt.dispatchQueue.spillLimit";
+
+    /** Default maximum size of a channel's spill file (64 MB). */
+    public static final String MQTT_DISPATCH_SPILL_LIMIT_DEFAULT = "67108864";
+
+    /**
+     * Configuration property for the time (in milliseconds) that the <code>block</code> policy waits for space in a
+     * channel's dispatch queue before the message overflows to the spill file.
+     */
+    public static final String MQTT_DISPATCH_BLOCK_TIMEOUT = "mqtt.dispatchQueue.blockTimeout";
+
+    /** Default dispatch queue block timeout. */
+    public static final String MQTT_DISPATCH_BLOCK_TIMEOUT_DEFAULT = "100";
+
     /*
      * Default node properties
      */
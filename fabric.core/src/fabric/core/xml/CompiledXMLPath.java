@@ -0,0 +1,152 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.core.xml;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An XML element or attribute path that has been parsed ready for use with the <code>XML</code> accessor methods.
+ * <p>
+ * Parsing a path is relatively expensive, so instances are immutable and cached: use <code>compile()</code> to obtain
+ * an instance rather than constructing one directly.
+ * </p>
+ */
+public final class CompiledXMLPath {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The maximum number of paths held in the cache before it is cleared. */
+    private static final int CACHE_LIMIT = 4096;
+
+    /*
+     * Class static fields
+     */
+
+    /** The cache of compiled paths, keyed by the external form of the path. */
+    private static final ConcurrentHashMap<String, CompiledXMLPath> cache = new ConcurrentHashMap<String, CompiledXMLPath>();
+
+    /*
+     * Class fields
+     */
+
+    /** The external form of the path. */
+    private final String path;
+
+    /** The segments of the path (terminated with a text node segment unless this is an attribute path). */
+    private final XMLPathSegment[] segments;
+
+    /** The name of the attribute identified by this path, or an empty string if this is not an attribute path. */
+    private final String attributeName;
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Answers the compiled form of the specified path, reusing a cached instance if one is available.
+     *
+     * @param path
+     *            the external format path (as used by <code>XML.get(String)</code>).
+     *
+     * @return the compiled path.
+     */
+    public static CompiledXMLPath compile(String path) {
+
+        CompiledXMLPath compiledPath = cache.get(path);
+
+        if (compiledPath == null) {
+
+            compiledPath = new CompiledXMLPath(path);
+
+            /* Paths containing indexes can be numerous, so bound the size of the cache */
+            if (cache.size() >= CACHE_LIMIT) {
+                cache.clear();
+            }
+
+            cache.put(path, compiledPath);
+
+        }
+
+        return compiledPath;
+
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param path
+     *            the external format path (as used by <code>XML.get(String)</code>).
+     */
+    public CompiledXMLPath(String path) {
+
+        this.path = path;
+
+        String fullPath = path;
+
+        /* If this is not an attribute path and it is not terminated properly to match a text node... */
+        if (path.indexOf('@') < 0 && !(XML.regexpTextNodePath.matcher(path).matches())) {
+            fullPath = path + "/$";
+        }
+
+        /* Expand the path and convert it to its internal format */
+        ArrayList<XMLPathSegment> segmentList = XMLPathSegment.split(fullPath);
+        segments = segmentList.toArray(new XMLPathSegment[segmentList.size()]);
+        attributeName = segments[segments.length - 1].getAttributeName();
+
+    }
+
+    /**
+     * Answers the segments of this path.
+     *
+     * @return the segments (which must not be modified).
+     */
+    XMLPathSegment[] segments() {
+
+        return segments;
+
+    }
+
+    /**
+     * Answers <code>true</code> if this path identifies an attribute, <code>false</code> if it identifies the text
+     * content of an element.
+     *
+     * @return <code>true</code> for attribute paths, <code>false</code> otherwise.
+     */
+    public boolean isAttribute() {
+
+        return attributeName.length() > 0;
+
+    }
+
+    /**
+     * Answers the name of the attribute identified by this path.
+     *
+     * @return the attribute name, or an empty string if this is not an attribute path.
+     */
+    public String attributeName() {
+
+        return attributeName;
+
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return path;
+
+    }
+}
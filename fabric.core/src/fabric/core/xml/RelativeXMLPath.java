@@ -0,0 +1,103 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.core.xml;
+
+/**
+ * An XML element or attribute path relative to an enclosing element, e.g. <code>"@uid"</code> or
+ * <code>"/rt/strt"</code>.
+ * <p>
+ * Instances are intended to be held in constants. The compiled form of the full path is remembered for the most
+ * recent enclosing element, so resolving the path again for the same element (the usual case when the same part of
+ * each message is read or written) needs neither string concatenation nor a cache lookup.
+ * </p>
+ */
+public final class RelativeXMLPath {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class fields
+     */
+
+    /** The external form of the path, relative to the enclosing element. */
+    private final String path;
+
+    /** The most recent resolution of the path. */
+    private volatile Resolution last = null;
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * The compiled form of the path for an enclosing element.
+     */
+    private static final class Resolution {
+
+        /** The enclosing element. */
+        final String element;
+
+        /** The compiled full path. */
+        final CompiledXMLPath compiledPath;
+
+        Resolution(String element, CompiledXMLPath compiledPath) {
+
+            this.element = element;
+            this.compiledPath = compiledPath;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param path
+     *            the external format path, relative to the enclosing element (i.e. starting with <code>/</code> or
+     *            <code>@</code>).
+     */
+    public RelativeXMLPath(String path) {
+
+        this.path = path;
+
+    }
+
+    /**
+     * Answers the compiled form of this path within the specified element.
+     *
+     * @param element
+     *            the external format path of the enclosing element.
+     *
+     * @return the compiled path.
+     */
+    public CompiledXMLPath in(String element) {
+
+        Resolution resolution = last;
+
+        if (resolution == null || !resolution.element.equals(element)) {
+            resolution = new Resolution(element, CompiledXMLPath.compile(element + path));
+            last = resolution;
+        }
+
+        return resolution.compiledPath;
+
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return path;
+
+    }
+}
@@ -711,26 +711,31 @@ public class XML implements IXMLTokenHandler {
      */
     public String get(String path) {
 
-        String value = null;
+        return get(CompiledXMLPath.compile(path));
 
-        /* If this is not an attribute path and it is not terminated properly to match a text node... */
-        if (path.indexOf('@') < 0 && !(regexpTextNodePath.matcher(path).matches())) {
-            path = path + "/$";
-        }
+    }
 
-        /* Expand the path and convert it to its internal format */
-        ArrayList<XMLPathSegment> segments = XMLPathSegment.split(path);
-        XMLPathSegment lastSegment = segments.get(segments.size() - 1);
+    /**
+     * As <code>get(<em>path</em>)</code>, but using a path that has already been compiled.
+     *
+     * @param path
+     *            the compiled path.
+     *
+     * @return the value, or <code>null</code> if it is not defined.
+     */
+    public String get(CompiledXMLPath path) {
+
+        String value = null;
 
         /* Get the node */
-        XMLNode node = findNode(segments, false);
+        XMLNode node = findNode(path.segments(), false);
 
         /* If an attribute was requested... */
-        if (lastSegment.getAttributeName().length() > 0) {
+        if (path.isAttribute()) {
 
             /* Get it */
             XMLElement element = (XMLElement) node;
-            value = (element != null) ? (String) element.getAttributes().get(lastSegment.getAttributeName()) : null;
+            value = (element != null) ? (String) element.getAttributes().get(path.attributeName()) : null;
 
         } else if (node != null) {
 
@@ -813,6 +818,20 @@ public class XML implements IXMLTokenHandler {
      */
     public boolean getBoolean(String path) {
 
+        return getBoolean(CompiledXMLPath.compile(path));
+
+    }
+
+    /**
+     * As <code>getBoolean(<em>path</em>)</code>, but using a path that has already been compiled.
+     *
+     * @param path
+     *            the compiled path.
+     *
+     * @return the value, or <code>false</code> if it is not defined.
+     */
+    public boolean getBoolean(CompiledXMLPath path) {
+
         String result = get(path);
 
         if (result == null) {
@@ -874,6 +893,18 @@ public class XML implements IXMLTokenHandler {
      */
     public byte[] getBytes(String path) {
 
+        return getBytes(CompiledXMLPath.compile(path));
+
+    }
+
+    /**
+     * As <code>getBytes(<em>path</em>)</code>, but using a path that has already been compiled.
+     *
+     * @param path
+     *            the compiled path.
+     */
+    public byte[] getBytes(CompiledXMLPath path) {
+
         /* To hold the result */
         byte[] result = null;
 
@@ -994,6 +1025,20 @@ public class XML implements IXMLTokenHandler {
      */
     public void set(String path, String value) {
 
+        set(CompiledXMLPath.compile(path), value);
+
+    }
+
+    /**
+     * As <code>set(<em>path</em>, <em>value</em>)</code>, but using a path that has already been compiled.
+     *
+     * @param path
+     *            the compiled path.
+     * @param value
+     *            the value.
+     */
+    public void set(CompiledXMLPath path, String value) {
+
         if (isReadOnly) {
             throw new UnsupportedOperationException("XML document is read-only");
         }
@@ -1004,32 +1049,21 @@ public class XML implements IXMLTokenHandler {
 
         if (value != null) {
 
-            /*
-             * If this is not an attribute path and it is not terminated properly to match a text node...
-             */
-            if (path.indexOf('@') < 0 && !(regexpTextNodePath.matcher(path).matches())) {
-                path = path + "/$";
-            }
-
-            /* Expand the path and convert it to its internal format */
-            ArrayList<XMLPathSegment> segments = XMLPathSegment.split(path);
-            XMLPathSegment lastSegment = segments.get(segments.size() - 1);
-
             /* Get the node */
-            XMLNode node = findNode(segments, true);
+            XMLNode node = findNode(path.segments(), true);
 
             /* If an attribute was specified... */
-            if (lastSegment.getAttributeName().length() > 0) {
+            if (path.isAttribute()) {
 
                 /* Set it */
                 XMLElement element = (XMLElement) node;
 
                 if (value != null) {
                     /* Set it */
-                    element.getAttributes().put(lastSegment.getAttributeName(), value);
+                    element.getAttributes().put(path.attributeName(), value);
                 } else {
                     /* Remove it */
-                    element.getAttributes().remove(lastSegment.getAttributeName());
+                    element.getAttributes().remove(path.attributeName());
                 }
 
             } else {
@@ -1045,7 +1079,7 @@ public class XML implements IXMLTokenHandler {
         } else {
 
             /* Remove the element */
-            remove(path);
+            remove(path.toString());
 
         }
 
@@ -1206,6 +1240,21 @@ public class XML implements IXMLTokenHandler {
      */
     public void setBytes(String path, byte[] value) {
 
+        setBytes(CompiledXMLPath.compile(path), value);
+
+    }
+
+    /**
+     * As <code>setBytes(<em>path</em>, <em>value</em>)</code>, but using a path that has already been compiled.
+     *
+     * @param path
+     *            the compiled path.
+     *
+     * @param value
+     *            the new value.
+     */
+    public void setBytes(CompiledXMLPath path, byte[] value) {
+
         if (value == null) {
             throw new IllegalArgumentException("'value' parameter cannot be null");
         }
@@ -2094,15 +2143,27 @@ public class XML implements IXMLTokenHandler {
      */
     protected XMLNode findNode(ArrayList<XMLPathSegment> path, boolean doCreate) {
 
+        return findNode(path.toArray(new XMLPathSegment[path.size()]), doCreate);
+    }
+
+    /**
+     * Locates a node based upon its path.
+     *
+     * @param path
+     *            the segments of the path to the node.
+     * @param doCreate
+     *            <code>true</code> if missing nodes should be created, <code>false</code> otherwise.
+     */
+    protected XMLNode findNode(XMLPathSegment[] path, boolean doCreate) {
+
         if (doCreate && documentElement == null) {
 
-            XMLPathSegment segment = path.get(0);
+            XMLPathSegment segment = path[0];
             documentElement = new XMLElement(segment.getNodeName(), null);
 
         }
 
-        ArrayList<XMLPathSegment> pathCopy = new ArrayList<XMLPathSegment>(path);
-        XMLNode resultNode = findNode(documentElement, 0, pathCopy, doCreate);
+        XMLNode resultNode = findNode(documentElement, 0, path, 0, doCreate);
 
         return resultNode;
     }
@@ -2112,21 +2173,22 @@ public class XML implements IXMLTokenHandler {
      *
      * @param node
      *            the starting node.
+     * @param index
+     *            the index of the starting node relative to its peers.
      * @param path
-     *            the path to the node.
+     *            the segments of the path to the node.
+     * @param offset
+     *            the offset of the segment in the path corresponding to the starting node.
      * @param doCreate
      *            <code>true</code> if missing nodes should be created, <code>false</code> otherwise.
      */
-    protected XMLNode findNode(XMLNode node, int index, ArrayList<XMLPathSegment> path, boolean doCreate) {
-
-        /* Flag indicating that the required node has been located */
-        boolean nodeFound = false;
+    protected XMLNode findNode(XMLNode node, int index, XMLPathSegment[] path, int offset, boolean doCreate) {
 
         /* To hold the result */
         XMLNode resultNode = null;
 
         /* Get the current segment */
-        XMLPathSegment currentSegment = path.get(0);
+        XMLPathSegment currentSegment = path[offset];
 
         /* To hold the current element */
         XMLElement element = null;
@@ -2134,7 +2196,7 @@ public class XML implements IXMLTokenHandler {
         /* If this is the node we are looking for... */
         if (node.getNodeName().equals(currentSegment.getNodeName()) && currentSegment.getIndex() == index) {
 
-            if (path.size() == 1) {
+            if (offset == path.length - 1) {
 
                 /* We've finished */
                 resultNode = node;
@@ -2144,7 +2206,7 @@ public class XML implements IXMLTokenHandler {
                 /* Look through the nodes children to match the next segment */
 
                 element = (XMLElement) node;
-                currentSegment = path.get(1);
+                currentSegment = path[offset + 1];
 
                 /* If this node does not have any children, and we are looking for a text node... */
                 if (element.getSubnodes().size() == 0 && currentSegment.getNodeName().equals("$")
@@ -2163,37 +2225,11 @@ public class XML implements IXMLTokenHandler {
 
                 } else {
 
-                    /* Search through the children for a match */
-
-                    /* To track the index of potential matches (to find the right occurrence of the matching node) */
-                    int nodeIndex = 0;
-
-                    /* For each sub-node or until a match is found... */
-                    for (int s = 0; !nodeFound && s < element.getSubnodes().size(); s++) {
-
-                        /* Get the next sub-node */
-                        XMLNode subnode = element.getSubnodes().get(s);
-
-                        /* If this is the type of node we are looking for... */
-                        if (subnode.getNodeName().equals(currentSegment.getNodeName())) {
-
-                            /* If this is the actual node we are looking for... */
-                            if (nodeIndex == currentSegment.getIndex()) {
-
-                                nodeFound = true;
-                                path.remove(0);
-
-                                /* If there are any path elements left... */
-                                if (path.size() > 0) {
-                                    resultNode = findNode(subnode, nodeIndex, path, doCreate);
-                                }
-
-                            } else {
-
-                                nodeIndex++;
+                    /* Look up the matching child (by name and occurrence) */
+                    XMLNode subnode = element.getSubnode(currentSegment.getNodeName(), currentSegment.getIndex());
 
-                            }
-                        }
+                    if (subnode != null) {
+                        resultNode = findNode(subnode, currentSegment.getIndex(), path, offset + 1, doCreate);
                     }
                 }
             }
@@ -2214,7 +2250,7 @@ public class XML implements IXMLTokenHandler {
             /* Create a new node */
 
             /* If it is a text node... */
-            if (path.get(1).getNodeName().equals("$")) {
+            if (path[offset + 1].getNodeName().equals("$")) {
 
                 resultNode = new XMLText("", element);
                 element.getSubnodes().add(resultNode);
@@ -2223,7 +2259,7 @@ public class XML implements IXMLTokenHandler {
 
                 XMLElement newElement = new XMLElement(currentSegment.getNodeName(), element);
                 element.getSubnodes().add(newElement);
-                resultNode = findNode(node, index, path, doCreate);
+                resultNode = findNode(node, index, path, offset, doCreate);
 
             }
         }
@@ -27,7 +27,55 @@ public class XMLElement extends XMLNode {
     private HashMap<String, String> attributes = new HashMap<String, String>();
 
     /** To hold the sub-nodes of this element */
-    private ArrayList<XMLNode> subnodes = new ArrayList<XMLNode>();
+    private SubnodeList subnodes = new SubnodeList();
+
+    /** Index of the sub-nodes of this element by name (built on demand) */
+    private HashMap<String, ArrayList<XMLNode>> subnodeIndex = null;
+
+    /** The modification count of the sub-node list when the index was built */
+    private int subnodeIndexModCount = -1;
+
+    /*
+     * Class constants
+     */
+
+    /** The number of sub-nodes above which name lookups use an index rather than a linear search */
+    private static final int INDEX_THRESHOLD = 8;
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * List of sub-nodes that exposes its modification count, allowing the name index to detect changes.
+     */
+    private static class SubnodeList extends ArrayList<XMLNode> {
+
+        private static final long serialVersionUID = 1L;
+
+        public SubnodeList() {
+
+            super();
+        }
+
+        public SubnodeList(ArrayList<XMLNode> source) {
+
+            super(source);
+        }
+
+        @Override
+        public XMLNode set(int index, XMLNode element) {
+
+            /* Replacement does not normally count as a modification, but it changes the index */
+            modCount++;
+            return super.set(index, element);
+        }
+
+        int modCount() {
+
+            return modCount;
+        }
+    }
 
     /*
      * Class methods
@@ -100,6 +148,83 @@ public class XMLElement extends XMLNode {
 
     public void setSubnodes(ArrayList<XMLNode> subnodes) {
 
-        this.subnodes = subnodes;
+        this.subnodes = (subnodes instanceof SubnodeList) ? (SubnodeList) subnodes : new SubnodeList(subnodes);
+        subnodeIndex = null;
+    }
+
+    /**
+     * Answers the specified occurrence of the sub-node with the specified name.
+     *
+     * @param name
+     *            the name of the sub-node.
+     *
+     * @param index
+     *            the occurrence of the named sub-node (counting from zero).
+     *
+     * @return the sub-node, or <code>null</code> if there is no such sub-node.
+     */
+    public XMLNode getSubnode(String name, int index) {
+
+        XMLNode subnode = null;
+
+        /* If there are only a few sub-nodes... */
+        if (subnodes.size() <= INDEX_THRESHOLD) {
+
+            /* Search through the sub-nodes for a match */
+            int nodeIndex = 0;
+
+            for (int s = 0; subnode == null && s < subnodes.size(); s++) {
+
+                XMLNode next = subnodes.get(s);
+
+                if (next.getNodeName().equals(name)) {
+
+                    if (nodeIndex == index) {
+                        subnode = next;
+                    } else {
+                        nodeIndex++;
+                    }
+                }
+            }
+
+        } else {
+
+            /* If the index is out of date... */
+            if (subnodeIndex == null || subnodeIndexModCount != subnodes.modCount()) {
+                buildSubnodeIndex();
+            }
+
+            ArrayList<XMLNode> named = subnodeIndex.get(name);
+
+            if (named != null && index >= 0 && index < named.size()) {
+                subnode = named.get(index);
+            }
+        }
+
+        return subnode;
+    }
+
+    /**
+     * Builds the index of sub-nodes by name.
+     */
+    private void buildSubnodeIndex() {
+
+        HashMap<String, ArrayList<XMLNode>> index = new HashMap<String, ArrayList<XMLNode>>();
+
+        for (int s = 0; s < subnodes.size(); s++) {
+
+            XMLNode next = subnodes.get(s);
+            ArrayList<XMLNode> named = index.get(next.getNodeName());
+
+            if (named == null) {
+                named = new ArrayList<XMLNode>();
+                index.put(next.getNodeName(), named);
+            }
+
+            named.add(next);
+        }
+
+        subnodeIndex = index;
+        subnodeIndexModCount = subnodes.modCount();
     }
 }
@@ -0,0 +1,346 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.core.xml;
+
+import java.util.HashMap;
+
+/**
+ * An XML document split into its <em>envelope</em> and selected top-level child elements (<em>sections</em>).
+ * <p>
+ * The split is made by a single scan of the document text, without tokenizing attribute values or text, so that the
+ * envelope can be parsed on its own and each section parsed only if and when it is needed.
+ * </p>
+ */
+public final class XMLSections {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class fields
+     */
+
+    /** The name of the document element. */
+    private final String rootName;
+
+    /** The text of the document with the sections removed. */
+    private final String envelope;
+
+    /** The text of each section, keyed by element name. */
+    private final HashMap<String, String> sections;
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param rootName
+     *            the name of the document element.
+     *
+     * @param envelope
+     *            the text of the document with the sections removed.
+     *
+     * @param sections
+     *            the text of each section, keyed by element name.
+     */
+    private XMLSections(String rootName, String envelope, HashMap<String, String> sections) {
+
+        this.rootName = rootName;
+        this.envelope = envelope;
+        this.sections = sections;
+
+    }
+
+    /**
+     * Splits the named top-level child elements out of an XML document.
+     *
+     * @param xml
+     *            the text of the XML document.
+     *
+     * @param names
+     *            the names of the child elements of the document element to split out.
+     *
+     * @return the split document, or <code>null</code> if the document cannot be split (for example, because it is
+     *         not well formed, or because one of the named elements occurs more than once); the document must then be
+     *         parsed as a whole.
+     */
+    public static XMLSections split(String xml, String... names) {
+
+        HashMap<String, String> sections = new HashMap<String, String>();
+        StringBuilder envelope = new StringBuilder(xml.length());
+        String rootName = null;
+
+        /* The number of elements currently open */
+        int depth = 0;
+
+        /* The start of the section currently open (if any), and the end of the text copied to the envelope */
+        String openSection = null;
+        int sectionStart = -1;
+        int copied = 0;
+
+        int length = xml.length();
+        int i = xml.indexOf('<');
+
+        while (i >= 0) {
+
+            int next = -1;
+
+            if (xml.startsWith("<!--", i)) {
+
+                next = endOf(xml, "-->", i + 4);
+
+            } else if (xml.startsWith("<![CDATA[", i)) {
+
+                next = endOf(xml, "]]>", i + 9);
+
+            } else if (xml.startsWith("<?", i)) {
+
+                next = endOf(xml, "?>", i + 2);
+
+            } else if (xml.startsWith("<!", i)) {
+
+                /* A document type declaration (internal subsets are not supported) */
+                next = endOf(xml, ">", i + 2);
+
+            } else if (xml.startsWith("</", i)) {
+
+                next = endOf(xml, ">", i + 2);
+                depth--;
+
+                if (next >= 0 && depth == 1 && openSection != null) {
+                    if (!closeSection(xml, openSection, sectionStart, next, envelope, copied, sections)) {
+                        return null;
+                    }
+                    copied = next;
+                    openSection = null;
+                }
+
+            } else {
+
+                /* A start tag: find its end, skipping any '>' characters in quoted attribute values */
+                int nameEnd = i + 1;
+                while (nameEnd < length && !isNameEnd(xml.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                String name = xml.substring(i + 1, nameEnd);
+
+                char quote = 0;
+                int end = nameEnd;
+                for (; end < length; end++) {
+                    char c = xml.charAt(end);
+                    if (quote != 0) {
+                        if (c == quote) {
+                            quote = 0;
+                        }
+                    } else if (c == '"' || c == '\'') {
+                        quote = c;
+                    } else if (c == '>') {
+                        break;
+                    }
+                }
+
+                if (end == length || name.length() == 0) {
+                    return null;
+                }
+
+                next = end + 1;
+                boolean isEmpty = xml.charAt(end - 1) == '/';
+
+                if (depth == 0) {
+                    if (rootName != null) {
+                        return null;
+                    }
+                    rootName = name;
+                } else if (depth == 1 && isSelected(name, names)) {
+                    openSection = name;
+                    sectionStart = i;
+                }
+
+                if (!isEmpty) {
+                    depth++;
+                } else if (depth == 1 && openSection != null) {
+                    if (!closeSection(xml, openSection, sectionStart, next, envelope, copied, sections)) {
+                        return null;
+                    }
+                    copied = next;
+                    openSection = null;
+                }
+            }
+
+            if (next < 0 || depth < 0) {
+                return null;
+            }
+
+            i = xml.indexOf('<', next);
+
+        }
+
+        if (rootName == null || depth != 0) {
+            return null;
+        }
+
+        envelope.append(xml, copied, length);
+        return new XMLSections(rootName, envelope.toString(), sections);
+
+    }
+
+    /**
+     * Answers the position following the next occurrence of a delimiter.
+     *
+     * @param xml
+     *            the text to search.
+     *
+     * @param delimiter
+     *            the delimiter.
+     *
+     * @param from
+     *            the position from which to search.
+     *
+     * @return the position following the delimiter, or <code>-1</code> if it is not found.
+     */
+    private static int endOf(String xml, String delimiter, int from) {
+
+        int index = xml.indexOf(delimiter, from);
+        return (index < 0) ? -1 : index + delimiter.length();
+
+    }
+
+    /**
+     * Answers <code>true</code> if the specified character terminates an element name in a start tag.
+     *
+     * @param c
+     *            the character.
+     *
+     * @return <code>true</code> if the character ends the name, <code>false</code> otherwise.
+     */
+    private static boolean isNameEnd(char c) {
+
+        return c == '>' || c == '/' || Character.isWhitespace(c);
+
+    }
+
+    /**
+     * Answers <code>true</code> if the specified element name is one of those selected.
+     *
+     * @param name
+     *            the element name.
+     *
+     * @param names
+     *            the selected names.
+     *
+     * @return <code>true</code> if the name is selected, <code>false</code> otherwise.
+     */
+    private static boolean isSelected(String name, String[] names) {
+
+        for (int n = 0; n < names.length; n++) {
+            if (names[n].equals(name)) {
+                return true;
+            }
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Records a section, copying the envelope text that precedes it.
+     *
+     * @param xml
+     *            the text of the XML document.
+     *
+     * @param name
+     *            the element name of the section.
+     *
+     * @param start
+     *            the position of the start of the section.
+     *
+     * @param end
+     *            the position following the end of the section.
+     *
+     * @param envelope
+     *            the envelope text copied so far.
+     *
+     * @param copied
+     *            the position following the text already copied to the envelope.
+     *
+     * @param sections
+     *            the sections recorded so far.
+     *
+     * @return <code>false</code> if a section of the same name has already been recorded, <code>true</code>
+     *         otherwise.
+     */
+    private static boolean closeSection(String xml, String name, int start, int end, StringBuilder envelope,
+            int copied, HashMap<String, String> sections) {
+
+        if (sections.containsKey(name)) {
+            return false;
+        }
+
+        envelope.append(xml, copied, start);
+        sections.put(name, xml.substring(start, end));
+        return true;
+
+    }
+
+    /**
+     * Answers the name of the document element.
+     *
+     * @return the name.
+     */
+    public String getRootName() {
+
+        return rootName;
+
+    }
+
+    /**
+     * Answers the text of the document with the sections removed.
+     *
+     * @return the envelope.
+     */
+    public String getEnvelope() {
+
+        return envelope;
+
+    }
+
+    /**
+     * Answers the text of the named section.
+     *
+     * @param name
+     *            the element name of the section.
+     *
+     * @return the text of the element, or <code>null</code> if it was not present in the document.
+     */
+    public String getSection(String name) {
+
+        return sections.get(name);
+
+    }
+
+    /**
+     * Parses the named section as the only child of a document element of the same name as the original (so that it
+     * can be read using the same paths as the original document).
+     *
+     * @param name
+     *            the element name of the section.
+     *
+     * @return the parsed section, or <code>null</code> if it was not present in the document.
+     *
+     * @throws Exception
+     *             thrown if the section cannot be parsed.
+     */
+    public XML parseSection(String name) throws Exception {
+
+        String section = sections.get(name);
+        return (section == null) ? null : new XML('<' + rootName + '>' + section + "</" + rootName + '>');
+
+    }
+}
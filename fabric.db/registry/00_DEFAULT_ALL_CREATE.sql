@@ -319,6 +319,16 @@ CREATE TABLE Fabric.Actor_Config (
 		PRIMARY KEY (Actor_ID, Platform_ID, Name)
 );
 	
+--------------------------------------------------------------------------------
+-- CREATE the secondary indexes used by the bus's own queries (the primary keys
+-- serve the remaining lookups). Additional indexes can be recommended from a
+-- Registry profile using "fabreg --advise-indexes <file>"; the Availability
+-- columns are not indexed, as most rows share the same value.
+--------------------------------------------------------------------------------
+
+-- Platforms by node (availability fablet)
+CREATE INDEX Fabric.Platforms_Node_ID_IX ON Fabric.Platforms (Node_ID);
+
 DISCONNECT;
 EXIT;
 
@@ -86,6 +86,62 @@ insert into fabric.default_config values ('instrumentation.buffer', '100');
 -- This does not effect retries on startup which will always be attempted.
 --insert into fabric.default_config values ('registry.reconnect', 'true');
 
+-- The maximum number of prepared Registry statements (parsed and planned SQL)
+-- cached for each JDBC connection to the Registry; 0 disables the cache.
+--insert into fabric.default_config values ('registry.statementCacheSize', '64');
+
+-- The maximum number of JDBC connections to the Registry. Queries run
+-- concurrently on separate connections; updates are applied one at a time.
+--insert into fabric.default_config values ('registry.connectionPoolSize', '4');
+
+-- The time (in milliseconds) to wait for a free Registry connection before a
+-- query or update fails.
+--insert into fabric.default_config values ('registry.connectionPoolTimeout', '30000');
+
+-- The time (in milliseconds) for which a Registry connection may be idle
+-- before it is checked (and replaced if it has failed) prior to reuse.
+--insert into fabric.default_config values ('registry.connectionValidationInterval', '30000');
+
+-- Flag controlling whether the results of local Registry queries are cached.
+-- Cached results are invalidated when the node updates the Registry, and by
+-- the notifications sent by the Registry triggers (see 85_REGMON_ALL_LOAD.sql).
+-- Off by default: only enable it if the triggers are installed and cover every
+-- table listed in registry.queryCacheTables.
+--insert into fabric.default_config values ('registry.queryCache', 'false');
+
+-- The maximum number of cached Registry query results.
+--insert into fabric.default_config values ('registry.queryCacheSize', '1024');
+
+-- The time (in milliseconds) for which a Registry query result is cached, as a
+-- safety net for changes that are not reported; 0 for no limit.
+--insert into fabric.default_config values ('registry.queryCacheTTL', '60000');
+
+-- The Registry tables whose query results may be cached.
+--insert into fabric.default_config values ('registry.queryCacheTables', 'NODES,NODE_NEIGHBOURS,NODE_IP_MAPPING,NODE_PLUGINS,TASK_PLUGINS,ACTOR_PLUGINS,PLATFORMS,SERVICES,DATA_FEEDS,TASK_SUBSCRIPTIONS');
+
+-- Flag controlling whether routine Registry saves (for example availability
+-- changes, cached messages and discovery updates) are queued and written in
+-- batches. Saves of the same object that are queued together are coalesced.
+-- Queued saves are written before any local query of their tables.
+--insert into fabric.default_config values ('registry.writeBehind', 'false');
+
+-- The interval (in milliseconds) at which queued Registry saves are written.
+--insert into fabric.default_config values ('registry.writeBehindInterval', '500');
+
+-- The number of queued Registry saves that triggers an immediate write.
+--insert into fabric.default_config values ('registry.writeBehindMaxPending', '256');
+
+-- Flag controlling whether the latency, row counts and frequency of each
+-- Registry statement shape are recorded. The profile can be analysed with
+-- "fabreg --advise-indexes <file>" to recommend Registry indexes.
+--insert into fabric.default_config values ('registry.profile', 'false');
+
+-- The file to which the Registry profile is written.
+--insert into fabric.default_config values ('registry.profileFile', 'registry_profile.txt');
+
+-- The interval (in milliseconds) at which the Registry profile is written.
+--insert into fabric.default_config values ('registry.profileInterval', '60000');
+
 -- Configuration property indicating whether remote distributed queries
 -- received should be forwarded to neighbours. Setting this to true will
 -- increase network traffic but will allow distributed queries to reach nodes
@@ -231,6 +287,93 @@ insert into fabric.default_config values ('fabric.feeds.bus', '$fabric/{0}/$feed
 --    <client-id>/<task-id>/<platform>/<service>/<feed> 
 insert into fabric.default_config values ('fabric.feeds.offramp', '$fabric/{0}/$feeds/$offramp');
 
+-- The format in which Fabric messages are sent between nodes:
+--
+--    xml:    messages are sent as XML documents.
+--    hybrid: messages with binary payloads are sent as an XML document
+--            followed by the raw payload bytes (rather than base 64);
+--            other messages are sent as XML.
+--    binary: messages are sent in the compact binary format (payloads are
+--            carried as raw bytes rather than base 64).
+--
+-- Nodes accept messages in any format. Switch to hybrid or binary only when
+-- every node in the Fabric has been upgraded to a level that supports it.
+insert into fabric.default_config values ('fabric.message.wireFormat', 'xml');
+
+-- Flag indicating if the properties and payload of inbound messages are only
+-- decoded when they are first used (true) rather than when the message is
+-- received (false). Nodes that mostly relay messages should set this to true.
+insert into fabric.default_config values ('fabric.message.lazyParsing', 'false');
+
+-- The number of threads used by the Fabric Manager to parse and handle inbound
+-- messages. Messages for the same feed (or received on the same topic) are
+-- always handled by the same thread, so their order is preserved. Messages for
+-- different feeds are handled in parallel, but each plug-in is only called by
+-- one thread at a time, and service messages are handled one at a time while
+-- no feed messages are being handled. A value of 0 processes all messages on
+-- the thread that delivers them.
+insert into fabric.default_config values ('fabric.bus.workerThreads', '0');
+
+-- The maximum number of consecutive messages for the same feed that a worker
+-- thread hands to the feed plug-ins as a single batch when messages arrive
+-- faster than they can be processed (only used when fabric.bus.workerThreads
+-- is greater than 0). A value of 1 handles messages one at a time.
+insert into fabric.default_config values ('fabric.bus.batchSize', '32');
+
+-- Flag indicating if messages published by locally attached feeds are passed
+-- straight to the Fabric Manager's feed handler (true), or republished onto
+-- the feed bus via the broker and then received back (false, the original
+-- behaviour). Setting this to true saves a broker round trip and a parse for
+-- each local feed message, but local feed messages then no longer appear on
+-- the feed bus topic, so only opt in if no other client relies on seeing them
+-- there.
+insert into fabric.default_config values ('fabric.feeds.localDelivery', 'false');
+
+-- The interval (in seconds) after which the in-memory topology graph used by
+-- fabric.bus.routing.TopologyRoutingFactory is reloaded from the Registry. The
+-- graph is loaded once, and is then updated from Registry update notifications
+-- and from changes to the availability of neighbours. Each reload is a
+-- distributed query issued by every node, so only set this if notifications
+-- are disabled. A value of 0 disables reloading.
+insert into fabric.default_config values ('routing.topology.refreshInterval', '0');
+
+-- The time (in milliseconds) for which the neighbours of this node are cached
+-- when flooding messages. The cache is cleared whenever a neighbour becomes
+-- available or unavailable; this setting limits how long changes made by
+-- other means go unnoticed. A value of 0 queries the Registry for every message.
+insert into fabric.default_config values ('routing.flood.neighbourCacheTTL', '60000');
+
+-- Flooded messages are discarded if they have already been seen. Message UIDs
+-- are remembered in buckets spanning the given time (in milliseconds), and at
+-- most maxEntries UIDs are held (0 for no limit); the oldest bucket is dropped
+-- first.
+insert into fabric.default_config values ('routing.flood.duplicates.bucketWidth', '30000');
+insert into fabric.default_config values ('routing.flood.duplicates.maxEntries', '1000000');
+
+-- How flooded messages are routed: "flood" sends them to every neighbour, and
+-- "tree" sends them along a multicast tree computed from the topology graph once
+-- the topology has been unchanged for settleTime milliseconds. A node whose view
+-- of the topology differs from that of the originating node, or whose topology
+-- graph has not been loaded yet, floods the message instead.
+insert into fabric.default_config values ('routing.flood.mode', 'flood');
+insert into fabric.default_config values ('routing.flood.tree.settleTime', '30000');
+
+-- Link quality probing (off by default): the interval (in milliseconds) between
+-- probes to each neighbour (0 to disable), the time after which an unanswered
+-- probe is counted as lost, and the multiple of its baseline weight above which
+-- a link is treated as degraded (0 for never). The baseline follows the lowest
+-- recent weight of the link, rising slowly if the link stays slow. When a link
+-- degrades, and the topology graph offers a better route, the class named by
+-- rerouteHandler (an implementation of
+-- fabric.services.linkquality.IRerouteHandler) is invoked, if set; the default
+-- handler moves the subscriptions using the link onto the better route. Link
+-- weights are used by fabric.bus.routing.TopologyRoutingFactory only.
+insert into fabric.default_config values ('routing.linkQuality.enabled', 'false');
+insert into fabric.default_config values ('routing.linkQuality.probeInterval', '30000');
+insert into fabric.default_config values ('routing.linkQuality.probeTimeout', '10000');
+insert into fabric.default_config values ('routing.linkQuality.degradeFactor', '5');
+insert into fabric.default_config values ('routing.linkQuality.rerouteHandler', 'fabric.services.linkquality.SubscriptionRerouteHandler');
+
 -----------------------------------------------------------------------------
 -- M Q T T   C o n f i g u r a t i o n
 --
@@ -248,6 +391,38 @@ insert into fabric.default_config values ('mqtt.ip.port.local', '1884');
 --     QOS_2: the message is delivered once and only once
 insert into fabric.default_config values ('mqtt.qos', 'QOS_2');
 
+-- Flag indicating if all messages are published asynchronously, i.e. without
+-- the sending thread waiting for the broker to acknowledge delivery (feed
+-- messages sent by the bus are always published this way). At most
+-- mqtt.maxInflight publications, synchronous or not, are outstanding on each
+-- broker connection (the MQTT client currently limits this to 10).
+insert into fabric.default_config values ('mqtt.asyncPublish', 'false');
+insert into fabric.default_config values ('mqtt.maxInflight', '10');
+
+-- The time (in milliseconds) that a publication waits for space in the
+-- in-flight window and, if it is synchronous, for the broker to acknowledge
+-- delivery. The publication fails if the time expires.
+insert into fabric.default_config values ('mqtt.publishTimeout', '30000');
+
+-- The maximum number of inbound messages queued for delivery on each channel
+-- (0 for unlimited), and the action taken when the queue is full:
+--
+--     block:      wait up to mqtt.dispatchQueue.blockTimeout milliseconds for
+--                 space (stalling all channels of the connection), then spill
+--     dropOldest: discard the oldest queued message
+--     dropNewest: discard the new message
+--     spill:      hold the new message in a file until the queue drains
+--
+-- Spilled messages are held in mqtt.dispatchQueue.spillDirectory (if set),
+-- otherwise in the system temporary directory. Once a channel's spill file
+-- reaches mqtt.dispatchQueue.spillLimit bytes further overflowing messages are
+-- discarded until it has been drained. While a queue is full a warning
+-- reporting its depth and drop/spill counts is logged at most once a minute.
+insert into fabric.default_config values ('mqtt.dispatchQueue.limit', '10000');
+insert into fabric.default_config values ('mqtt.dispatchQueue.policy', 'spill');
+insert into fabric.default_config values ('mqtt.dispatchQueue.spillLimit', '67108864');
+insert into fabric.default_config values ('mqtt.dispatchQueue.blockTimeout', '100');
+
 -- Broker connection client ID prefix
 insert into fabric.default_config values ('mqtt.clientId', 'EF');
 
@@ -64,6 +64,22 @@ DROP TRIGGER SUBSCRIPTIONS_DT;
 DROP TRIGGER SUBSCRIPTIONS_IT;
 DROP TRIGGER SUBSCRIPTIONS_UT;
 
+DROP TRIGGER IPMAPPING_DT;
+DROP TRIGGER IPMAPPING_IT;
+DROP TRIGGER IPMAPPING_UT;
+
+DROP TRIGGER NODEPLUGINS_DT;
+DROP TRIGGER NODEPLUGINS_IT;
+DROP TRIGGER NODEPLUGINS_UT;
+
+DROP TRIGGER TASKPLUGINS_DT;
+DROP TRIGGER TASKPLUGINS_IT;
+DROP TRIGGER TASKPLUGINS_UT;
+
+DROP TRIGGER ACTORPLUGINS_DT;
+DROP TRIGGER ACTORPLUGINS_IT;
+DROP TRIGGER ACTORPLUGINS_UT;
+
 -- Add triggers to each table that we want to monitor
 
 -- NODES
@@ -132,6 +148,50 @@ REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('T
 CREATE TRIGGER subscriptions_ut AFTER UPDATE ON Fabric.Task_Subscriptions
 REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('TASK_SUBSCRIPTIONS', 'TASK_ID/ACTOR_ID/PLATFORM_ID/SERVICE_ID/DATA_FEED_ID/ACTOR_PLATFORM_ID', newRow.TASK_ID || '/' || newRow.ACTOR_ID || '/' || newRow.PLATFORM_ID || '/' || newRow.SERVICE_ID || '/' || newRow.DATA_FEED_ID || '/' || newRow.ACTOR_PLATFORM_ID, 'UPDATE') FROM sysibm.sysdummy1;
 
+-- NODE_IP_MAPPING
+
+CREATE TRIGGER ipmapping_dt AFTER DELETE ON Fabric.Node_IP_Mapping
+REFERENCING OLD AS oldRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('NODE_IP_MAPPING', 'NODE_ID/NODE_INTERFACE', oldRow.NODE_ID || '/' || oldRow.NODE_INTERFACE, 'DELETE') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER ipmapping_it AFTER INSERT ON Fabric.Node_IP_Mapping
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('NODE_IP_MAPPING', 'NODE_ID/NODE_INTERFACE', newRow.NODE_ID || '/' || newRow.NODE_INTERFACE, 'INSERT') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER ipmapping_ut AFTER UPDATE ON Fabric.Node_IP_Mapping
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('NODE_IP_MAPPING', 'NODE_ID/NODE_INTERFACE', newRow.NODE_ID || '/' || newRow.NODE_INTERFACE, 'UPDATE') FROM sysibm.sysdummy1;
+
+-- NODE_PLUGINS
+
+CREATE TRIGGER nodeplugins_dt AFTER DELETE ON Fabric.Node_Plugins
+REFERENCING OLD AS oldRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('NODE_PLUGINS', 'NODE_ID/NAME/FAMILY', oldRow.NODE_ID || '/' || oldRow.NAME || '/' || oldRow.FAMILY, 'DELETE') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER nodeplugins_it AFTER INSERT ON Fabric.Node_Plugins
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('NODE_PLUGINS', 'NODE_ID/NAME/FAMILY', newRow.NODE_ID || '/' || newRow.NAME || '/' || newRow.FAMILY, 'INSERT') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER nodeplugins_ut AFTER UPDATE ON Fabric.Node_Plugins
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('NODE_PLUGINS', 'NODE_ID/NAME/FAMILY', newRow.NODE_ID || '/' || newRow.NAME || '/' || newRow.FAMILY, 'UPDATE') FROM sysibm.sysdummy1;
+
+-- TASK_PLUGINS
+
+CREATE TRIGGER taskplugins_dt AFTER DELETE ON Fabric.Task_Plugins
+REFERENCING OLD AS oldRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('TASK_PLUGINS', 'NODE_ID/TASK_ID/NAME/FAMILY', oldRow.NODE_ID || '/' || oldRow.TASK_ID || '/' || oldRow.NAME || '/' || oldRow.FAMILY, 'DELETE') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER taskplugins_it AFTER INSERT ON Fabric.Task_Plugins
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('TASK_PLUGINS', 'NODE_ID/TASK_ID/NAME/FAMILY', newRow.NODE_ID || '/' || newRow.TASK_ID || '/' || newRow.NAME || '/' || newRow.FAMILY, 'INSERT') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER taskplugins_ut AFTER UPDATE ON Fabric.Task_Plugins
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('TASK_PLUGINS', 'NODE_ID/TASK_ID/NAME/FAMILY', newRow.NODE_ID || '/' || newRow.TASK_ID || '/' || newRow.NAME || '/' || newRow.FAMILY, 'UPDATE') FROM sysibm.sysdummy1;
+
+-- ACTOR_PLUGINS
+
+CREATE TRIGGER actorplugins_dt AFTER DELETE ON Fabric.Actor_Plugins
+REFERENCING OLD AS oldRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('ACTOR_PLUGINS', 'NODE_ID/TASK_ID/ACTOR_ID/NAME/FAMILY', oldRow.NODE_ID || '/' || oldRow.TASK_ID || '/' || oldRow.ACTOR_ID || '/' || oldRow.NAME || '/' || oldRow.FAMILY, 'DELETE') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER actorplugins_it AFTER INSERT ON Fabric.Actor_Plugins
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('ACTOR_PLUGINS', 'NODE_ID/TASK_ID/ACTOR_ID/NAME/FAMILY', newRow.NODE_ID || '/' || newRow.TASK_ID || '/' || newRow.ACTOR_ID || '/' || newRow.NAME || '/' || newRow.FAMILY, 'INSERT') FROM sysibm.sysdummy1;
+
+CREATE TRIGGER actorplugins_ut AFTER UPDATE ON Fabric.Actor_Plugins
+REFERENCING NEW AS newRow FOR EACH ROW MODE DB2SQL SELECT FUNC_UPDATE_TRIGGER('ACTOR_PLUGINS', 'NODE_ID/TASK_ID/ACTOR_ID/NAME/FAMILY', newRow.NODE_ID || '/' || newRow.TASK_ID || '/' || newRow.ACTOR_ID || '/' || newRow.NAME || '/' || newRow.FAMILY, 'UPDATE') FROM sysibm.sysdummy1;
+
 -------------------------------------------------------------------------------
 DISCONNECT;
 EXIT;
@@ -27,11 +27,13 @@ import fabric.registry.NodeIpMappingFactory;
 import fabric.registry.NodeNeighbour;
 import fabric.registry.NodeNeighbourFactory;
 import fabric.registry.QueryScope;
+import fabric.registry.SaveStatus;
 import fabric.registry.Type;
 import fabric.registry.TypeFactory;
 import fabric.registry.exception.IncompleteObjectException;
 import fabric.registry.exception.PersistenceException;
 import fabric.registry.exception.RegistryQueryException;
+import fabric.services.floodmessage.NeighbourCache;
 
 /**
  * Fablet class to handle discovery configuration messages containing platform/service/feed definition information.
@@ -321,6 +323,7 @@ public class AutoDiscoveryFablet extends FabricBus implements IFabletPlugin, ICa
                             neighbourId, neighbourAvailability});
 
                     nnf.delete(neighbourRecord);
+                    NeighbourCache.invalidate(homeNode);
                 }
 
             } else {
@@ -354,7 +357,17 @@ public class AutoDiscoveryFablet extends FabricBus implements IFabletPlugin, ICa
 
                     try {
 
-                        FabricRegistry.save(neighbourRecord);
+                        /* Written together with any IP mapping queued for the neighbour */
+                        SaveStatus status = FabricRegistry.queueSave(neighbourRecord);
+                        if (status == SaveStatus.QUEUED) {
+                            status = FabricRegistry.flush() ? SaveStatus.SAVED : SaveStatus.NOT_SAVED;
+                        }
+                        NeighbourCache.invalidate(homeNode);
+
+                        if (status != SaveStatus.SAVED) {
+                            logger.log(Level.WARNING, "Failed to save neighbour [{0}] to the Registry; "
+                                    + "neighbour availability not updated", neighbourId);
+                        }
 
                     } catch (IncompleteObjectException e) {
 
@@ -403,7 +416,9 @@ public class AutoDiscoveryFablet extends FabricBus implements IFabletPlugin, ICa
                         new Object[] {nodeId, nodeInterface, nodeIpAddress, port});
 
                 nim = nimf.createNodeIpMapping(nodeId, nodeInterface, nodeIpAddress, port);
-                FabricRegistry.save(nim);
+                if (FabricRegistry.queueSave(nim) == SaveStatus.NOT_SAVED) {
+                    logger.log(Level.WARNING, "Failed to save IP mapping for node [{0}]", nodeId);
+                }
 
             } catch (IncompleteObjectException e) {
 
@@ -27,7 +27,9 @@ import fabric.registry.Node;
 import fabric.registry.NodeFactory;
 import fabric.registry.Platform;
 import fabric.registry.PlatformFactory;
+import fabric.registry.RegistryObject;
 import fabric.registry.Service;
+import fabric.registry.SaveStatus;
 import fabric.registry.ServiceFactory;
 import fabric.registry.System;
 import fabric.registry.SystemFactory;
@@ -255,6 +257,13 @@ public class AvailabilityFablet extends FabricBus implements IFabletPlugin, ICal
                         new Object[] {serviceDescriptor.toString(), availabilityFeedsTopic});
             }
 
+            /* Write the queued changes together */
+            if (!FabricRegistry.flush()) {
+                logger.log(Level.WARNING, "Failed to save availability received on topic [{0}] (value [{1}])",
+                        new Object[] {messageTopic, messageString});
+            }
+            pause();
+
         } catch (Exception e) {
 
             logger.log(Level.WARNING, "Cannot update availability received on topic [{0}] (value [{1}]): {2}",
@@ -281,8 +290,7 @@ public class AvailabilityFablet extends FabricBus implements IFabletPlugin, ICal
         NodeFactory nodeFactory = FabricRegistry.getNodeFactory();
         Node node = nodeFactory.getNodeById(homeNode());
         node.setAvailability(availability);
-        nodeFactory.update(node);
-        pause();
+        queueSave(node);
 
         if (doPropagate) {
 
@@ -323,8 +331,7 @@ public class AvailabilityFablet extends FabricBus implements IFabletPlugin, ICal
         PlatformFactory platformFactory = FabricRegistry.getPlatformFactory();
         Platform platform = platformFactory.getPlatformById(serviceDescriptor.platform());
         platform.setAvailability(availability);
-        platformFactory.update(platform);
-        pause();
+        queueSave(platform);
 
         if (doPropagate) {
 
@@ -365,8 +372,7 @@ public class AvailabilityFablet extends FabricBus implements IFabletPlugin, ICal
         SystemFactory systemFactory = FabricRegistry.getSystemFactory();
         System system = systemFactory.getSystemsById(serviceDescriptor.platform(), serviceDescriptor.system());
         system.setAvailability(availability);
-        systemFactory.update(system);
-        pause();
+        queueSave(system);
 
         /* Get the list of feeds for this system */
         ServiceFactory serviceFactory = FabricRegistry.getServiceFactory();
@@ -378,9 +384,23 @@ public class AvailabilityFablet extends FabricBus implements IFabletPlugin, ICal
 
             /* Update the availability */
             servicesForSystem[f].setAvailability(availability);
-            serviceFactory.update(servicesForSystem[f]);
-            pause();
+            queueSave(servicesForSystem[f]);
+
+        }
+    }
+
+    /**
+     * Queues an availability change to be saved to the Registry, logging it if it cannot be saved.
+     *
+     * @param obj
+     *            the changed object.
+     *
+     * @throws IncompleteObjectException
+     */
+    private void queueSave(RegistryObject obj) throws IncompleteObjectException {
 
+        if (FabricRegistry.queueSave(obj) == SaveStatus.NOT_SAVED) {
+            logger.log(Level.WARNING, "Failed to save availability change: {0}", obj);
         }
     }
 
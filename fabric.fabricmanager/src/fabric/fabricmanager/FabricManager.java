@@ -59,6 +59,7 @@ import fabric.registry.Type;
 import fabric.registry.exception.DuplicateKeyException;
 import fabric.registry.exception.IncompleteObjectException;
 import fabric.registry.exception.PersistenceException;
+import fabric.services.linkquality.LinkQualityService;
 import fabric.services.messageforwarding.MessageForwardingService;
 import fabric.session.NodeDescriptor;
 
@@ -509,6 +510,12 @@ public class FabricManager extends FabricBus implements IBusServices, IFabricShu
         forwardingManager = (MessageForwardingService) busMessageHandler.loadService(MessageForwardingService.class
                 .getName(), Fabric.FABRIC_PLUGIN_FAMILY);
 
+        /* Link quality service (optional) */
+        if (Boolean.parseBoolean(config(ConfigProperties.ROUTING_LINK_QUALITY,
+                ConfigProperties.ROUTING_LINK_QUALITY_DEFAULT))) {
+            busMessageHandler.loadService(LinkQualityService.class.getName(), Fabric.FABRIC_PLUGIN_FAMILY);
+        }
+
         /* SOA manager service */
         // soaManager = (IComponentManager) busMessageHandler.loadService(ComponentManager.class.getName(),
         // Fabric.FABRIC_PLUGIN_FAMILY);
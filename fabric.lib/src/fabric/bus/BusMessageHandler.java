@@ -404,6 +404,24 @@ public class BusMessageHandler extends Fabric {
 
     }
 
+    /**
+     * Handles a batch of feed messages from the same feed, invoking any plug-ins associated with them, and routing them
+     * to the next node or local subscriber.
+     *
+     * @param messages
+     *            the messages, in the order in which they were received.
+     *
+     * @throws Exception
+     *             thrown if an exception is encountered whilst handling the feed messages.
+     */
+    public void handleFeedMessages(IFeedMessage[] messages) throws Exception {
+
+        /* Delegate this to the subscription handler */
+        subscriptionManager.handleFeeds(messages);
+        logger.log(Level.FINEST, "Batch of {0} feed messages handled", messages.length);
+
+    }
+
     /**
      * Stops the message handler.
      */
@@ -8,6 +8,7 @@
 package fabric.bus;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import fabric.core.io.Channel;
 import fabric.core.io.ICallback;
@@ -15,6 +16,7 @@ import fabric.core.io.InputTopic;
 import fabric.core.io.Message;
 import fabric.core.io.MessageQoS;
 import fabric.core.io.OutputTopic;
+import fabric.core.io.mqtt.MqttChannel;
 
 /**
  * Class representing a Fabric channel to a node using the <code>fabric.core.io</code> package.
@@ -174,6 +176,39 @@ public class SharedChannel extends Channel {
 		channel.write(message, remoteTopic, qos);
 	}
 
+	/**
+	 * Writes a message to the channel without waiting for delivery to complete, if the underlying channel supports it
+	 * (see <code>MqttChannel.writeAsync()</code>); otherwise the message is written synchronously.
+	 * 
+	 * @param message
+	 *            the message data.
+	 * 
+	 * @param remoteTopic
+	 *            the name of the remote (target) topic.
+	 * 
+	 * @param qos
+	 *            the quality of service required for this message.
+	 * 
+	 * @return a future completed when the message has been delivered (or delivery has failed).
+	 * 
+	 * @throws IOException
+	 *             thrown if the message cannot be sent.
+	 */
+	public CompletableFuture<Void> writeAsync(byte[] message, OutputTopic remoteTopic, MessageQoS qos)
+			throws IOException {
+
+		CompletableFuture<Void> delivery = null;
+
+		if (channel instanceof MqttChannel) {
+			delivery = ((MqttChannel) channel).writeAsync(message, remoteTopic, qos);
+		} else {
+			channel.write(message, remoteTopic, qos);
+			delivery = CompletableFuture.completedFuture(null);
+		}
+
+		return delivery;
+	}
+
 	/**
 	 * @see fabric.core.io.Channel#read(fabric.core.io.Message)
 	 */
@@ -43,4 +43,38 @@ public interface ISubscriptionManager extends IBusService {
 	 */
 	public void handleFeed(IFeedMessage nodeMessage) throws Exception;
 
+	/**
+	 * Handles a batch of Fabric messages from the same feed, in the order in which they were received.
+	 * <p>
+	 * The effect is the same as calling <code>handleFeed()</code> for each message in turn, except that plug-ins
+	 * implementing <code>IBatchFeedPlugin</code> may be invoked once for the whole batch.
+	 * </p>
+	 * 
+	 * @param nodeMessages
+	 *            the messages.
+	 * 
+	 * @throws Exception
+	 *             thrown if an error is encountered whilst handling a feed message. See the exception detail for more
+	 *             information.
+	 */
+	public void handleFeeds(IFeedMessage[] nodeMessages) throws Exception;
+
+	/**
+	 * Moves the subscriptions whose feed messages are sent from this node directly to a neighbour onto a new route to
+	 * that neighbour, for example because the link to the neighbour has degraded.
+	 * <p>
+	 * The part of each route beyond the neighbour is unchanged. The subscription is restored along the new route so
+	 * that the nodes on it forward the feed messages.
+	 * </p>
+	 * 
+	 * @param neighbour
+	 *            the ID of the neighbour.
+	 * 
+	 * @param route
+	 *            the new route from this node to the neighbour (including both nodes).
+	 * 
+	 * @return the number of subscriptions moved.
+	 */
+	public int rerouteSubscriptions(String neighbour, String[] route);
+
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.feeds.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import fabric.bus.plugins.impl.FeedPluginDispatcher;
+import fabric.core.io.MessageQoS;
+import fabric.services.floodmessage.NeighbourCache;
+
+/**
+ * The precompiled plan for delivering the messages of a single feed to its local subscriptions.
+ * <p>
+ * A plan lists, for each task with plug-ins registered for the feed, the task plug-in dispatchers, the subscriptions
+ * made via the task, and the next hop(s) towards each subscriber. Plans are rebuilt by the
+ * <code>SubscriptionManager</code> whenever the subscriptions for the feed change, and replace the previous plan as a
+ * whole. The next hops are resolved from each subscription's routing when the plan is built, and resolved again the
+ * first time they are used after the neighbours of a node change (see <code>NeighbourCache.generation()</code>).
+ * </p>
+ */
+public final class FeedDeliveryPlan {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * The next hop(s) for each subscription of a task, as resolved for a particular generation of the neighbour cache.
+     */
+    private static final class NextHops {
+
+        /** The neighbour cache generation for which the next hops were resolved */
+        final long generation;
+
+        /** The next hop(s) for each subscription */
+        final String[][] nodes;
+
+        NextHops(long generation, String[][] nodes) {
+
+            this.generation = generation;
+            this.nodes = nodes;
+        }
+    }
+
+    /**
+     * The part of a delivery plan covering a single task.
+     */
+    public static final class TaskPlan {
+
+        /** The task ID */
+        public final String task;
+
+        /** The in-bound task plug-in dispatcher */
+        public final FeedPluginDispatcher inboundDispatcher;
+
+        /** The out-bound task plug-in dispatcher */
+        public final FeedPluginDispatcher outboundDispatcher;
+
+        /** The subscriptions made to the feed via this task */
+        public final SubscriptionRecord[] subscriptions;
+
+        /** The ID of the current node (the next hop for subscribers attached to it) */
+        public final String homeNode;
+
+        /** Flag indicating if there are no in-bound task plug-ins (so messages pass through unchanged) */
+        public final boolean inboundPassThrough;
+
+        /**
+         * Flags indicating, for each subscription, if there are no actor or out-bound task plug-ins (so messages pass
+         * through unchanged)
+         */
+        public final boolean[] actorPassThrough;
+
+        /** The next hop(s) for each subscription (replaced as a whole when the neighbours of a node change) */
+        private volatile NextHops nextHops = null;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param task
+         *            the task ID.
+         *
+         * @param inboundDispatcher
+         *            the in-bound task plug-in dispatcher.
+         *
+         * @param outboundDispatcher
+         *            the out-bound task plug-in dispatcher.
+         *
+         * @param subscriptions
+         *            the subscriptions made to the feed via the task.
+         *
+         * @param homeNode
+         *            the ID of the current node (the next hop for subscribers attached to it).
+         */
+        public TaskPlan(String task, FeedPluginDispatcher inboundDispatcher, FeedPluginDispatcher outboundDispatcher,
+                List<SubscriptionRecord> subscriptions, String homeNode) {
+
+            this.task = task;
+            this.inboundDispatcher = inboundDispatcher;
+            this.outboundDispatcher = outboundDispatcher;
+            this.subscriptions = subscriptions.toArray(new SubscriptionRecord[subscriptions.size()]);
+            this.homeNode = homeNode;
+            this.inboundPassThrough = inboundDispatcher.isEmpty();
+            this.actorPassThrough = new boolean[this.subscriptions.length];
+
+            for (int s = 0; s < this.subscriptions.length; s++) {
+                actorPassThrough[s] = this.subscriptions[s].inboundActorDispatcher().isEmpty()
+                        && this.subscriptions[s].outboundActorDispatcher().isEmpty() && outboundDispatcher.isEmpty();
+            }
+
+            nextHops = resolveNextHops();
+        }
+
+        /**
+         * Answers the next hop(s) towards the subscriber of a subscription.
+         *
+         * @param s
+         *            the index of the subscription in <code>subscriptions</code>.
+         *
+         * @return the next hop(s), which must not be modified; the current node if the subscriber is attached to it.
+         */
+        public String[] nextNodes(int s) {
+
+            NextHops hops = nextHops;
+
+            /* If the neighbours of a node have changed since the next hops were resolved... */
+            if (hops.generation != NeighbourCache.generation()) {
+                hops = resolveNextHops();
+                nextHops = hops;
+            }
+
+            return hops.nodes[s];
+        }
+
+        /**
+         * Resolves the next hop(s) for each subscription from its routing.
+         *
+         * @return the next hops.
+         */
+        private NextHops resolveNextHops() {
+
+            /* Read the generation first, so that a change made while resolving causes the hops to be resolved again */
+            long generation = NeighbourCache.generation();
+            String[][] nodes = new String[subscriptions.length][];
+
+            for (int s = 0; s < subscriptions.length; s++) {
+
+                nodes[s] = subscriptions[s].routing().nextNodes();
+
+                /* If there is no next hop then the message has arrived: deliver it to the local actor */
+                if (nodes[s] == null || nodes[s].length == 0) {
+                    nodes[s] = new String[] {homeNode};
+                }
+            }
+
+            return new NextHops(generation, nodes);
+        }
+    }
+
+    /*
+     * Class fields
+     */
+
+    /** The name of the feed */
+    private final String feedName;
+
+    /** The QoS setting for the feed */
+    private final MessageQoS qos;
+
+    /** The plans for each task */
+    private final TaskPlan[] taskPlans;
+
+    /** The plans for each task, keyed by task ID */
+    private final HashMap<String, TaskPlan> taskPlanIndex = new HashMap<String, TaskPlan>();
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param feedName
+     *            the name of the feed.
+     *
+     * @param homeNode
+     *            the ID of the current node.
+     *
+     * @param inboundTaskDispatchers
+     *            the in-bound task plug-in dispatchers for the feed, keyed by task ID.
+     *
+     * @param outboundTaskDispatchers
+     *            the out-bound task plug-in dispatchers for the feed, keyed by task ID.
+     *
+     * @param feedSubscriptions
+     *            the active subscriptions for the feed (may be <code>null</code>).
+     *
+     * @param qos
+     *            the QoS setting for the feed.
+     */
+    public FeedDeliveryPlan(String feedName, String homeNode,
+            HashMap<String, FeedPluginDispatcher> inboundTaskDispatchers,
+            HashMap<String, FeedPluginDispatcher> outboundTaskDispatchers,
+            ArrayList<SubscriptionRecord> feedSubscriptions, MessageQoS qos) {
+
+        this.feedName = feedName;
+        this.qos = qos;
+        this.taskPlans = new TaskPlan[inboundTaskDispatchers.size()];
+
+        int t = 0;
+
+        /* For each task... */
+        for (Iterator<String> i = inboundTaskDispatchers.keySet().iterator(); i.hasNext(); t++) {
+
+            String task = i.next();
+
+            /* Get the subscriptions made via this task */
+            ArrayList<SubscriptionRecord> taskSubscriptions = new ArrayList<SubscriptionRecord>();
+
+            for (int s = 0; feedSubscriptions != null && s < feedSubscriptions.size(); s++) {
+                if (feedSubscriptions.get(s).service().task().equals(task)) {
+                    taskSubscriptions.add(feedSubscriptions.get(s));
+                }
+            }
+
+            taskPlans[t] = new TaskPlan(task, inboundTaskDispatchers.get(task), outboundTaskDispatchers.get(task),
+                    taskSubscriptions, homeNode);
+            taskPlanIndex.put(task, taskPlans[t]);
+
+        }
+    }
+
+    /**
+     * Answers the name of the feed.
+     *
+     * @return the feed name.
+     */
+    public String feedName() {
+
+        return feedName;
+
+    }
+
+    /**
+     * Answers the QoS setting for the feed.
+     *
+     * @return the QoS.
+     */
+    public MessageQoS qos() {
+
+        return qos;
+
+    }
+
+    /**
+     * Answers the plans for all of the tasks associated with the feed.
+     *
+     * @return the task plans (which must not be modified).
+     */
+    public TaskPlan[] taskPlans() {
+
+        return taskPlans;
+
+    }
+
+    /**
+     * Answers the plan for the specified task.
+     *
+     * @param task
+     *            the task ID.
+     *
+     * @return the task plan, or <code>null</code> if the task is not associated with the feed.
+     */
+    public TaskPlan taskPlan(String task) {
+
+        return taskPlanIndex.get(task);
+
+    }
+}
@@ -14,15 +14,19 @@ import java.util.logging.Logger;
 
 import fabric.Notifier;
 import fabric.TaskServiceDescriptor;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
+import fabric.bus.messages.IEmbeddedBinary;
 import fabric.bus.messages.IEmbeddedXML;
 import fabric.bus.messages.IReplicate;
+import fabric.core.xml.CompiledXMLPath;
 import fabric.core.xml.XML;
 
 /**
  * Class representing the list of Fabric services embedded in a subscription message.
  *
  */
-public class ServiceList extends Notifier implements IEmbeddedXML {
+public class ServiceList extends Notifier implements IEmbeddedXML, IEmbeddedBinary {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2016";
@@ -79,10 +83,10 @@ public class ServiceList extends Notifier implements IEmbeddedXML {
 
             /* Get and record the next service */
 
-            String task = messageXML.get(paths[p] + "@tsk");
-            String platform = messageXML.get(paths[p] + "@plt");
-            String system = messageXML.get(paths[p] + "@sys");
-            String service = messageXML.get(paths[p] + "@srv");
+            String task = messageXML.get(CompiledXMLPath.compile(paths[p] + "@tsk"));
+            String platform = messageXML.get(CompiledXMLPath.compile(paths[p] + "@plt"));
+            String system = messageXML.get(CompiledXMLPath.compile(paths[p] + "@sys"));
+            String service = messageXML.get(CompiledXMLPath.compile(paths[p] + "@srv"));
 
             TaskServiceDescriptor nextService = new TaskServiceDescriptor(task, platform, system, service);
 
@@ -115,6 +119,50 @@ public class ServiceList extends Notifier implements IEmbeddedXML {
 
     }
 
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        serviceList.clear();
+
+        /* For each service... */
+        for (int s = in.readVarInt(); s > 0; s--) {
+
+            String task = in.readString();
+            String platform = in.readString();
+            String system = in.readString();
+            String service = in.readString();
+
+            serviceList.add(new TaskServiceDescriptor(task, platform, system, service));
+
+        }
+
+        xmlCache = null;
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        out.writeVarInt(serviceList.size());
+
+        /* For each service... */
+        for (int s = 0; s < serviceList.size(); s++) {
+
+            TaskServiceDescriptor nextService = serviceList.get(s);
+
+            out.writeString(nextService.task());
+            out.writeString(nextService.platform());
+            out.writeString(nextService.system());
+            out.writeString(nextService.service());
+
+        }
+    }
+
     /**
      * Answers the list of services.
      *
@@ -396,9 +396,12 @@ public class Subscription implements ISubscription, ICallback, IClientNotificati
     FactoryCreationException {
 
         // Query not restricted to just local
-        RegistryObject[] objects = FabricRegistry.runQuery(FeedRoutesFactoryImpl.getRouteQuery(feedPattern.task(),
-                feedPattern.platform(), feedPattern.system(), feedPattern.service(), fabricClient.homeNode()),
-                FeedRoutesFactoryImpl.class, QueryScope.DISTRIBUTED);
+        String query = FeedRoutesFactoryImpl.getRouteQuery(feedPattern.task(), feedPattern.platform(),
+                feedPattern.system(), feedPattern.service(), fabricClient.homeNode());
+        Object[] parameters = FeedRoutesFactoryImpl.getRouteQueryParameters(feedPattern.task(),
+                feedPattern.platform(), feedPattern.system(), feedPattern.service(), fabricClient.homeNode());
+        RegistryObject[] objects = FabricRegistry.runQuery(query, parameters, FeedRoutesFactoryImpl.class,
+                QueryScope.DISTRIBUTED);
 
         /* If matching feeds have been found... */
         if (objects != null && objects.length > 0) {
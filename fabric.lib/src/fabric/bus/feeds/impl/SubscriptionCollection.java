@@ -119,9 +119,12 @@ public abstract class SubscriptionCollection implements ISubscriptionCollection,
         FactoryCreationException {
 
         // Query not restricted to just local
-        RegistryObject[] objects = FabricRegistry.runQuery(FeedRoutesFactoryImpl.getRouteQuery(feedPattern.task(),
-                feedPattern.platform(), feedPattern.system(), feedPattern.service(), fabricClient.homeNode()),
-                FeedRoutesFactoryImpl.class, QueryScope.DISTRIBUTED);
+        String query = FeedRoutesFactoryImpl.getRouteQuery(feedPattern.task(), feedPattern.platform(),
+                feedPattern.system(), feedPattern.service(), fabricClient.homeNode());
+        Object[] parameters = FeedRoutesFactoryImpl.getRouteQueryParameters(feedPattern.task(),
+                feedPattern.platform(), feedPattern.system(), feedPattern.service(), fabricClient.homeNode());
+        RegistryObject[] objects = FabricRegistry.runQuery(query, parameters, FeedRoutesFactoryImpl.class,
+                QueryScope.DISTRIBUTED);
 
         /* Get the matching list of feeds */
         FeedRoutes[] matchingFeeds = null;
@@ -9,10 +9,13 @@ package fabric.bus.feeds.impl;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +24,7 @@ import fabric.ServiceDescriptor;
 import fabric.TaskServiceDescriptor;
 import fabric.bus.IBusServices;
 import fabric.bus.feeds.ISubscriptionManager;
+import fabric.bus.messages.FabricMessageFactory;
 import fabric.bus.messages.IClientNotificationMessage;
 import fabric.bus.messages.IFeedMessage;
 import fabric.bus.messages.INotificationMessage;
@@ -115,6 +119,18 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
     /** A local copy of the interface to Fabric management functions. */
     private IBusServices busServices = null;
 
+    /**
+     * The delivery plans for each feed with active subscriptions, keyed by feed name. The table is never modified: it
+     * is replaced whenever a plan is rebuilt, so that feed messages can be handled without locking.
+     */
+    private volatile HashMap<String, FeedDeliveryPlan> deliveryPlans = new HashMap<String, FeedDeliveryPlan>();
+
+    /** The number of task and actor message copies (and plug-in dispatches) skipped because no plug-ins apply. */
+    private final AtomicLong passThroughCount = new AtomicLong(0);
+
+    /** The number of feed messages handled as part of a batch. */
+    private final AtomicLong batchedMessageCount = new AtomicLong(0);
+
     /*
      * Inner classes
      */
@@ -145,22 +161,31 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
         /* The action resulting from actor plug-ins */
         int actorPluginAction = IFeedPlugin.ACTION_CONTINUE;
 
-        /* The list of active subscriptions at which this message is associated */
-        ArrayList<SubscriptionRecord> feedSubscriptions = null;
+        /* The delivery plan for this feed */
+        FeedDeliveryPlan plan = null;
 
-        /* The in-bound task plug-in dispatchers for this feed */
-        HashMap<String, FeedPluginDispatcher> inboundFeedTaskDispatchers = null;
+        /*
+         * The copies of the message to which the in-bound task plug-ins have already been applied as part of a batch,
+         * and the resulting actions, indexed as the task plans for the feed (null if the message was not batched)
+         */
+        IFeedMessage[] inboundTaskMessages = null;
 
-        /* The out-bound task plug-in dispatchers for this feed */
-        HashMap<String, FeedPluginDispatcher> outboundFeedTaskDispatchers = null;
+        int[] inboundTaskActions = null;
 
         /*
          * Table recoding the nodes to which this message is to be sent next. The key for each entry in the table is the
          * node ID, and the value is a sub-table listing the subscriptions (for the current message) that use the node
-         * as the next hop en route to the actor. The key for each entry in the sub-table of subscriptions is the string
-         * value of the actual message, and the value is the list of subscriptions that need to receive the message.
+         * as the next hop en route to the actor. The key for each entry in the sub-table of subscriptions is the actual
+         * message (one instance per distinct message, see addMessageToSendList()), and the value is the list of
+         * subscriptions that need to receive the message.
          */
-        HashMap<String, HashMap<IFeedMessage, ArrayList<SubscriptionRecord>>> nodeTable = null;
+        HashMap<String, IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>>> nodeTable = null;
+
+        /* The instance used for all messages that are unchanged by task and actor plug-ins (they are identical) */
+        IFeedMessage unmodifiedMessage = null;
+
+        /* The instances used for messages that have been changed by task and actor plug-ins, keyed by content */
+        HashMap<String, IFeedMessage> modifiedMessages = null;
 
     }
 
@@ -304,15 +329,11 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
         /* If the message is to be processed further... */
         if (fhmd.nodePluginAction == IFeedPlugin.ACTION_CONTINUE) {
 
-            /* Get the list of active subscriptions for the feed associated with this message */
-            fhmd.feedSubscriptions = activeSubscriptions.get(fhmd.feedName);
-
-            /* Get the task plug-in dispatchers for this feed */
-            fhmd.inboundFeedTaskDispatchers = inboundTaskDispatchers.get(fhmd.feedName);
-            fhmd.outboundFeedTaskDispatchers = outboundTaskDispatchers.get(fhmd.feedName);
+            /* Get the delivery plan for the feed associated with this message */
+            fhmd.plan = deliveryPlans.get(fhmd.feedName);
 
             /* Get the list of tasks with subscriptions for this feed */
-            Iterator<String> tasks = feedTaskList(nodeMessage, fhmd);
+            FeedDeliveryPlan.TaskPlan[] tasks = feedTaskList(nodeMessage, fhmd);
 
             /* If there are any tasks to handle... */
             if (tasks != null) {
@@ -336,6 +357,224 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
         FLog.exit(logger, Level.FINER, this, "handleFeed", null);
     }
 
+    /**
+     * @see fabric.bus.feeds.ISubscriptionManager#handleFeeds(fabric.bus.messages.IFeedMessage[])
+     */
+    @Override
+    public void handleFeeds(IFeedMessage[] nodeMessages) throws Exception {
+
+        FLog.enter(logger, Level.FINER, this, "handleFeeds", nodeMessages.length);
+
+        /* Check that the messages are all from the same feed */
+        String feedName = nodeMessages[0].metaGetFeedDescriptor().toString();
+        boolean isSameFeed = true;
+
+        for (int m = 1; isSameFeed && m < nodeMessages.length; m++) {
+            isSameFeed = feedName.equals(nodeMessages[m].metaGetFeedDescriptor().toString());
+        }
+
+        /* If there is nothing to be gained from batching... */
+        if (nodeMessages.length == 1 || !isSameFeed) {
+
+            handleFeedsSeparately(nodeMessages);
+
+        } else {
+
+            logger.log(Level.FINEST, "Handling batch of {0} Fabric messages from feed [{1}]", new Object[] {
+                    nodeMessages.length, feedName});
+            batchedMessageCount.addAndGet(nodeMessages.length);
+
+            /* Apply node plug-ins to the messages */
+            int[] nodePluginActions = new int[nodeMessages.length];
+            Arrays.fill(nodePluginActions, IFeedPlugin.ACTION_CONTINUE);
+
+            try {
+                nodePluginActions = inboundNodeDispatcher.dispatch(nodeMessages, null, nodePluginActions);
+            } catch (Exception e) {
+                /* The plug-ins may have handled part of the batch, so drop it rather than applying them again */
+                logger.log(Level.WARNING, "Failed to apply node plug-ins to a batch of {0} messages from feed [{1}], "
+                        + "discarding the batch: {2}", new Object[] {nodeMessages.length, feedName, e.getMessage()});
+                logger.log(Level.FINEST, "Full exception: ", e);
+                FLog.exit(logger, Level.FINER, this, "handleFeeds", null);
+                return;
+            }
+
+            /* Get the delivery plan for the feed, and the tasks to which each message is to be delivered */
+            FeedDeliveryPlan plan = deliveryPlans.get(feedName);
+            FeedHandlingMetaData[] fhmds = new FeedHandlingMetaData[nodeMessages.length];
+            FeedDeliveryPlan.TaskPlan[][] messageTasks = new FeedDeliveryPlan.TaskPlan[nodeMessages.length][];
+
+            for (int m = 0; m < nodeMessages.length; m++) {
+
+                fhmds[m] = new FeedHandlingMetaData();
+                fhmds[m].feedName = feedName;
+                fhmds[m].nodePluginAction = nodePluginActions[m];
+                fhmds[m].plan = plan;
+
+                if (fhmds[m].nodePluginAction == IFeedPlugin.ACTION_CONTINUE) {
+                    messageTasks[m] = feedTaskList(nodeMessages[m], fhmds[m]);
+                }
+            }
+
+            /* Apply the in-bound task plug-ins to the messages as a batch (where possible) */
+            dispatchTaskBatches(nodeMessages, messageTasks, fhmds, plan);
+
+            /* Complete the handling of each message, in order */
+            for (int m = 0; m < nodeMessages.length; m++) {
+
+                /* If the message is to be processed further... */
+                if (fhmds[m].nodePluginAction == IFeedPlugin.ACTION_CONTINUE) {
+
+                    /* If there are any tasks to handle... */
+                    if (messageTasks[m] != null) {
+
+                        /* A failure to handle one message must not prevent the handling of the rest of the batch */
+                        try {
+
+                            /* Handle the feed message for each task with an active subscription */
+                            handleFeedForTaskList(nodeMessages[m], messageTasks[m], fhmds[m]);
+
+                            /* Forward the message */
+                            sendFeedMessageToNextHop(fhmds[m]);
+
+                        } catch (Exception e) {
+
+                            logFeedFailure(nodeMessages[m], e);
+
+                        }
+                    }
+
+                } else {
+
+                    /* The message is not to be processed further */
+                    logger.log(Level.FINEST, "Discarding message from feed [{0}] due to in-bound node plug-in action",
+                            feedName);
+
+                }
+            }
+        }
+
+        FLog.exit(logger, Level.FINER, this, "handleFeeds", null);
+    }
+
+    /**
+     * Handles each of a list of feed messages on its own, so that a failure to handle one of them does not prevent the
+     * handling of the rest.
+     *
+     * @param nodeMessages
+     *            the feed messages.
+     */
+    private void handleFeedsSeparately(IFeedMessage[] nodeMessages) {
+
+        for (int m = 0; m < nodeMessages.length; m++) {
+            try {
+                handleFeed(nodeMessages[m]);
+            } catch (Exception e) {
+                logFeedFailure(nodeMessages[m], e);
+            }
+        }
+    }
+
+    /**
+     * Logs a failure to handle a feed message.
+     *
+     * @param message
+     *            the feed message.
+     *
+     * @param e
+     *            the cause of the failure.
+     */
+    private void logFeedFailure(IFeedMessage message, Exception e) {
+
+        logger.log(Level.WARNING, "Failed to handle message [{0}] from feed [{1}]: {2}", new Object[] {
+                message.getUID(), message.metaGetFeedDescriptor(), e.getMessage()});
+        logger.log(Level.FINEST, "Full exception: ", e);
+    }
+
+    /**
+     * Applies the in-bound task plug-ins to a batch of messages from the same feed.
+     * <p>
+     * Only messages that are to be delivered to every task for the feed (i.e. that are not targeted at specific tasks)
+     * are included; the copies of the messages produced for each task, and the resulting plug-in actions, are recorded
+     * in the feed handling meta-data for use by <code>handleFeedForTask()</code>.
+     * </p>
+     *
+     * @param nodeMessages
+     *            the feed messages.
+     *
+     * @param messageTasks
+     *            the plans for the tasks to which each message is to be delivered (<code>null</code> for a message that
+     *            is not to be delivered).
+     *
+     * @param fhmds
+     *            feed handling meta-data for each message.
+     *
+     * @param plan
+     *            the delivery plan for the feed, or <code>null</code> if there is none.
+     *
+     * @throws Exception
+     */
+    private void dispatchTaskBatches(IFeedMessage[] nodeMessages, FeedDeliveryPlan.TaskPlan[][] messageTasks,
+            FeedHandlingMetaData[] fhmds, FeedDeliveryPlan plan) throws Exception {
+
+        /* Find the messages to be delivered to all of the tasks in the plan */
+        FeedDeliveryPlan.TaskPlan[] taskPlans = (plan != null) ? plan.taskPlans() : null;
+        ArrayList<Integer> batch = new ArrayList<Integer>();
+
+        for (int m = 0; taskPlans != null && m < nodeMessages.length; m++) {
+            if (messageTasks[m] == taskPlans) {
+                batch.add(m);
+            }
+        }
+
+        /* If there is a batch to dispatch... */
+        if (batch.size() > 1) {
+
+            IFeedMessage[] taskMessages = new IFeedMessage[batch.size()];
+            int[] taskPluginActions = new int[batch.size()];
+
+            for (int b = 0; b < batch.size(); b++) {
+                FeedHandlingMetaData fhmd = fhmds[batch.get(b)];
+                fhmd.inboundTaskMessages = new IFeedMessage[taskPlans.length];
+                fhmd.inboundTaskActions = new int[taskPlans.length];
+            }
+
+            /* For each task with in-bound task plug-ins... */
+            for (int t = 0; t < taskPlans.length; t++) {
+
+                if (!taskPlans[t].inboundPassThrough) {
+
+                    /* Apply the plug-ins to a copy of each message */
+                    for (int b = 0; b < batch.size(); b++) {
+                        int m = batch.get(b);
+                        taskMessages[b] = (IFeedMessage) nodeMessages[m].replicate();
+                        taskPluginActions[b] = fhmds[m].nodePluginAction;
+                    }
+
+                    int[] actions = null;
+
+                    try {
+                        actions = taskPlans[t].inboundDispatcher.dispatch(taskMessages, null, taskPluginActions);
+                    } catch (Exception e) {
+                        /* The plug-ins may have handled part of the batch, so drop it for this task */
+                        logger.log(Level.WARNING, "Failed to apply in-bound plug-ins for task [{0}] to a batch of {1} "
+                                + "messages, discarding the batch for the task: {2}", new Object[] {taskPlans[t].task,
+                                batch.size(), e.getMessage()});
+                        logger.log(Level.FINEST, "Full exception: ", e);
+                        actions = new int[batch.size()];
+                        Arrays.fill(actions, IFeedPlugin.ACTION_DISCARD_IMMEDIATE);
+                    }
+
+                    for (int b = 0; b < batch.size(); b++) {
+                        FeedHandlingMetaData fhmd = fhmds[batch.get(b)];
+                        fhmd.inboundTaskMessages[t] = taskMessages[b];
+                        fhmd.inboundTaskActions[t] = actions[b];
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Answers the list of tasks with subscriptions for this feed.
      *
@@ -345,9 +584,9 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      * @param fhmd
      *            feed handling meta-data for this message.
      *
-     * @return the list of tasks.
+     * @return the plans for the tasks, or <code>null</code> if there are none.
      */
-    private Iterator<String> feedTaskList(IFeedMessage message, FeedHandlingMetaData fhmd) {
+    private FeedDeliveryPlan.TaskPlan[] feedTaskList(IFeedMessage message, FeedHandlingMetaData fhmd) {
 
         /* Extract the task and actor details from the message header */
         fhmd.taskSubscriptions = message.getSubscriptions();
@@ -358,17 +597,34 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
          * at specific tasks and actors, or the list of all tasks for the feed
          */
 
-        Iterator<String> tasks = null;
+        FeedDeliveryPlan.TaskPlan[] tasks = null;
 
-        /* If the message is directed at specific tasks and actors... */
-        if (fhmd.messageIsTargetted) {
-            /* Iterate across the list contained in the message */
-            tasks = fhmd.taskSubscriptions.taskIterator();
+        /* If there is no plan then there are no task dispatchers registered for this feed */
+        if (fhmd.plan == null) {
+            /* Nothing to do */
         }
-        /* Else if there are any task dispatchers registered for this feed */
-        else if (fhmd.inboundFeedTaskDispatchers != null) {
-            /* Iterate across the dispatchers */
-            tasks = fhmd.inboundFeedTaskDispatchers.keySet().iterator();
+        /* Else if the message is directed at specific tasks and actors... */
+        else if (fhmd.messageIsTargetted) {
+
+            /* Use the list contained in the message (ignoring any tasks unknown to this node) */
+            ArrayList<FeedDeliveryPlan.TaskPlan> targetTasks = new ArrayList<FeedDeliveryPlan.TaskPlan>();
+
+            for (Iterator<String> t = fhmd.taskSubscriptions.taskIterator(); t.hasNext();) {
+
+                FeedDeliveryPlan.TaskPlan taskPlan = fhmd.plan.taskPlan(t.next());
+
+                if (taskPlan != null) {
+                    targetTasks.add(taskPlan);
+                }
+            }
+
+            tasks = targetTasks.toArray(new FeedDeliveryPlan.TaskPlan[targetTasks.size()]);
+
+        } else {
+
+            /* Use all of the tasks in the plan */
+            tasks = fhmd.plan.taskPlans();
+
         }
 
         return tasks;
@@ -382,42 +638,39 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      *            the feed message.
      *
      * @param tasks
-     *            the list of tasks.
+     *            the plans for the tasks.
      *
      * @param fhmd
      *            feed handling meta-data for this message.
      *
      * @throws Exception
      */
-    private void handleFeedForTaskList(IFeedMessage message, Iterator<String> tasks, FeedHandlingMetaData fhmd)
-        throws Exception {
+    private void handleFeedForTaskList(IFeedMessage message, FeedDeliveryPlan.TaskPlan[] tasks,
+            FeedHandlingMetaData fhmd) throws Exception {
 
         /*
          * Initialize a table recoding the nodes to which this message is to be sent next. The key for each entry in the
          * table is the node ID, and the value is a sub-table listing the subscriptions (for the current message) that
          * use the node as the next hop en route to the actor. The key for each entry in the sub-table of subscriptions
-         * is the string value of the actual message, and the value is the list of subscriptions that need to receive
-         * the message.
+         * is the actual message, and the value is the list of subscriptions that need to receive the message.
          */
-        fhmd.nodeTable = new HashMap<String, HashMap<IFeedMessage, ArrayList<SubscriptionRecord>>>();
+        fhmd.nodeTable = new HashMap<String, IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>>>();
+        fhmd.modifiedMessages = new HashMap<String, IFeedMessage>();
 
-        /* While there are more tasks... */
-        while (tasks.hasNext()) {
-
-            /* Get the task name */
-            String task = tasks.next();
+        /* For each task... */
+        for (int t = 0; t < tasks.length; t++) {
 
             /* Task instrumentation */
             FabricMetric taskMetric = null;
 
             if (doInstrument()) {
-                taskMetric = new FabricMetric(homeNode(), task, null, message.metaGetFeedDescriptor(),
+                taskMetric = new FabricMetric(homeNode(), tasks[t].task, null, message.metaGetFeedDescriptor(),
                         message.getUID(), message.getOrdinal(), message.toXML().toBytes(), null);
                 metrics().startTiming(taskMetric, FabricMetric.EVENT_TASK_PROCESSING_START);
             }
 
             /* Handle the message */
-            handleFeedForTask(message, fhmd, task);
+            handleFeedForTask(message, fhmd, tasks[t], t);
 
             if (doInstrument()) {
                 metrics().endTiming(taskMetric, FabricMetric.EVENT_TASK_PROCESSING_STOP);
@@ -435,37 +688,62 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      * @param fhmd
      *            feed handling meta-data for this message.
      *
-     * @param task
-     *            the task.
+     * @param taskPlan
+     *            the delivery plan for the task.
+     *
+     * @param taskIndex
+     *            the index of the task in the list of tasks to which the message is being delivered.
      *
      * @throws Exception
      */
-    private void handleFeedForTask(IFeedMessage message, FeedHandlingMetaData fhmd, String task) throws Exception {
+    private void handleFeedForTask(IFeedMessage message, FeedHandlingMetaData fhmd,
+            FeedDeliveryPlan.TaskPlan taskPlan, int taskIndex) throws Exception {
+
+        IFeedMessage taskMessage = null;
+        boolean isTaskModified = false;
+
+        /* If there are no in-bound task plug-ins... */
+        if (taskPlan.inboundPassThrough) {
+
+            /* The message passes through unchanged, so there is no need for a copy */
+            taskMessage = message;
+            fhmd.taskPluginAction = fhmd.nodePluginAction;
+            passThroughCount.incrementAndGet();
 
-        /* Apply the in-bound task plug-ins to the message */
-        IFeedMessage taskMessage = (IFeedMessage) message.replicate();
-        FeedPluginDispatcher inboundTaskDispatcher = fhmd.inboundFeedTaskDispatchers.get(task);
-        fhmd.taskPluginAction = inboundTaskDispatcher.dispatch(taskMessage, fhmd.nodePluginAction);
+        } else if (fhmd.inboundTaskMessages != null && fhmd.inboundTaskMessages[taskIndex] != null) {
+
+            /* The in-bound task plug-ins have already been applied to a copy of the message as part of a batch */
+            taskMessage = fhmd.inboundTaskMessages[taskIndex];
+            fhmd.taskPluginAction = fhmd.inboundTaskActions[taskIndex];
+
+        } else {
+
+            /* Apply the in-bound task plug-ins to the message */
+            taskMessage = (IFeedMessage) message.replicate();
+            fhmd.taskPluginAction = taskPlan.inboundDispatcher.dispatch(taskMessage, fhmd.nodePluginAction);
+
+        }
 
         /* If the message is to be processed further... */
         if (fhmd.taskPluginAction == IFeedPlugin.ACTION_CONTINUE) {
 
             /* Determine if the message was modified by the plug-ins */
-            fhmd.messageModified = (fhmd.messageModified == true) ? true : taskMessage.metaIsModified();
+            isTaskModified = (taskMessage != message) && taskMessage.metaIsModified();
+            fhmd.messageModified = (fhmd.messageModified == true) ? true : isTaskModified;
 
-            /* If there are any subscriptions for this feed... */
-            if (fhmd.feedSubscriptions != null) {
+            /* If there are any subscriptions for this feed via the task... */
+            if (taskPlan.subscriptions.length > 0) {
 
                 List<String> actorList = null;
 
                 /* If the message is directed at specific tasks and actors... */
                 if (fhmd.messageIsTargetted) {
                     /* Get the list of actors for this message */
-                    actorList = fhmd.taskSubscriptions.getActors(task);
+                    actorList = fhmd.taskSubscriptions.getActors(taskPlan.task);
                 }
 
                 /* Handle the message for each actor */
-                handleFeedForActorList(taskMessage, task, actorList, fhmd);
+                handleFeedForActorList(taskMessage, isTaskModified, taskPlan, actorList, fhmd);
 
             }
 
@@ -490,8 +768,11 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      * @param taskMessage
      *            the feed message.
      *
-     * @param task
-     *            the task via which the actors are subscribed.
+     * @param isTaskModified
+     *            flag indicating if the message has been modified by in-bound task plug-ins.
+     *
+     * @param taskPlan
+     *            the delivery plan for the task via which the actors are subscribed.
      *
      * @param actorList
      *            the list of actors.
@@ -501,30 +782,44 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      *
      * @throws Exception
      */
-    private void handleFeedForActorList(IFeedMessage taskMessage, String task, List<String> actorList,
-            FeedHandlingMetaData fhmd) throws Exception {
+    private void handleFeedForActorList(IFeedMessage taskMessage, boolean isTaskModified,
+            FeedDeliveryPlan.TaskPlan taskPlan, List<String> actorList, FeedHandlingMetaData fhmd) throws Exception {
 
-        /* For each subscription... */
-        for (Iterator<SubscriptionRecord> s = fhmd.feedSubscriptions.iterator(); s.hasNext();) {
+        /* For each subscription via the task... */
+        for (int s = 0; s < taskPlan.subscriptions.length; s++) {
 
             /* Get the next subscription */
-            SubscriptionRecord nextSubscription = s.next();
+            SubscriptionRecord nextSubscription = taskPlan.subscriptions[s];
 
-            /* If it is for the current task and actor... */
-            if (nextSubscription.service().task().equals(task)
-                    && (actorList == null || actorList.contains(nextSubscription.actor()))) {
+            /* If it is for the current actor... */
+            if (actorList == null || actorList.contains(nextSubscription.actor())) {
 
                 /* Actor instrumentation */
                 FabricMetric actorMetric = null;
 
                 if (doInstrument()) {
-                    actorMetric = new FabricMetric(homeNode(), task, null, taskMessage.metaGetFeedDescriptor(),
+                    actorMetric = new FabricMetric(homeNode(), taskPlan.task, null, taskMessage.metaGetFeedDescriptor(),
                             taskMessage.getUID(), taskMessage.getOrdinal(), taskMessage.toXML().toBytes(), null);
                     metrics().startTiming(actorMetric, FabricMetric.EVENT_ACTOR_PROCESSING_START);
                 }
 
-                /* Handle the message for this actor */
-                IFeedMessage actorMessage = handleFeedForActor(taskMessage, nextSubscription, fhmd);
+                IFeedMessage actorMessage = null;
+                boolean isPassThrough = taskPlan.actorPassThrough[s];
+
+                /* If there are no actor or out-bound task plug-ins... */
+                if (isPassThrough) {
+
+                    /* The message passes through unchanged, so there is no need for a copy */
+                    actorMessage = taskMessage;
+                    fhmd.actorPluginAction = fhmd.taskPluginAction;
+                    passThroughCount.incrementAndGet();
+
+                } else {
+
+                    /* Handle the message for this actor */
+                    actorMessage = handleFeedForActor(taskMessage, nextSubscription, fhmd);
+
+                }
 
                 if (doInstrument()) {
                     metrics().endTiming(actorMetric, FabricMetric.EVENT_ACTOR_PROCESSING_STOP);
@@ -534,17 +829,19 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
                 if (actorMessage != null) {
 
                     /* Apply the out-bound task plug-ins to the message */
-                    FeedPluginDispatcher outboundTaskDispatcher = fhmd.outboundFeedTaskDispatchers.get(task);
-                    fhmd.taskPluginAction = outboundTaskDispatcher.dispatch(actorMessage, fhmd.actorPluginAction);
+                    fhmd.taskPluginAction = (isPassThrough) ? fhmd.actorPluginAction : taskPlan.outboundDispatcher
+                            .dispatch(actorMessage, fhmd.actorPluginAction);
 
                     /* If the message is to be processed further... */
                     if (fhmd.taskPluginAction == IFeedPlugin.ACTION_CONTINUE) {
 
                         /* Determine if the message was modified by the plug-ins */
-                        fhmd.messageModified = (fhmd.messageModified == true) ? true : actorMessage.metaIsModified();
+                        boolean isActorModified = !isPassThrough && actorMessage.metaIsModified();
+                        fhmd.messageModified = (fhmd.messageModified == true) ? true : isActorModified;
 
                         /* Task and actor processing is now complete */
-                        addMessageToSendList(nextSubscription, fhmd, actorMessage);
+                        addMessageToSendList(nextSubscription, taskPlan.nextNodes(s), fhmd, actorMessage,
+                                !isTaskModified && !isActorModified);
 
                     } else {
 
@@ -624,41 +921,75 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
     /**
      * Records a message ready for sending. The data structures used enable optimized forwarding of messages, ensuring
      * that duplicate messages are not necessarily sent to a node.
+     * <p>
+     * Identical messages are recorded against a single instance: messages unchanged by task and actor plug-ins share
+     * one instance without needing to be compared, and changed messages are matched by content. Each distinct message
+     * is therefore sent (and serialized) only once per next hop, with the targeting for all of its subscriptions.
+     * </p>
      *
      * @param subscription
      *            the subscription associated with this message.
      *
+     * @param nextNodes
+     *            the next node(s) (hops) for this message en route to the actor (from the delivery plan).
+     *
      * @param fhmd
      *            feed handling meta-data for this message.
      *
      * @param message
      *            the message.
+     *
+     * @param isUnmodified
+     *            flag indicating if the message is unchanged by task and actor plug-ins.
      */
-    private void addMessageToSendList(SubscriptionRecord subscription, FeedHandlingMetaData fhmd, IFeedMessage message) {
+    private void addMessageToSendList(SubscriptionRecord subscription, String[] nextNodes, FeedHandlingMetaData fhmd,
+            IFeedMessage message, boolean isUnmodified) {
 
         /*
          * Save the message and the details of this subscription ready for sending
          */
 
-        /* Get the name of the next node (hop) for this message en route to the actor */
-        String[] nextNodes = subscription.routing().nextNodes();
+        /* Find the instance used for this message */
+        IFeedMessage key = null;
+
+        if (isUnmodified) {
+
+            if (fhmd.unmodifiedMessage == null) {
+                fhmd.unmodifiedMessage = message;
+            }
+
+            key = fhmd.unmodifiedMessage;
 
-        /* If there is no next hop... */
-        if (nextNodes == null || nextNodes.length == 0) {
+        } else {
 
-            /* The message has arrived to deliver it to the local actor */
-            nextNodes = new String[] {homeNode()};
+            String content = message.toString();
+            key = fhmd.modifiedMessages.get(content);
 
+            if (key == null) {
+                key = message;
+                fhmd.modifiedMessages.put(content, message);
+            }
         }
 
         /* For each node... */
         for (int n = 0; n < nextNodes.length; n++) {
 
             /* Get the table of subscriptions involving this node */
-            HashMap<String, ArrayList<Subscription>> messageTable = lookupSubmap(nextNodes[n], fhmd.nodeTable);
+            IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable = fhmd.nodeTable
+                    .get(nextNodes[n]);
+
+            if (messageTable == null) {
+                messageTable = new IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>>();
+                fhmd.nodeTable.put(nextNodes[n], messageTable);
+            }
 
             /* Get the list of subscriptions that will receive this message */
-            ArrayList<SubscriptionRecord> subscriptionList = lookupSublist(message, messageTable);
+            ArrayList<SubscriptionRecord> subscriptionList = messageTable.get(key);
+
+            if (subscriptionList == null) {
+                subscriptionList = new ArrayList<SubscriptionRecord>();
+                messageTable.put(key, subscriptionList);
+            }
 
             /* Add the subscription */
             subscriptionList.add(subscription);
@@ -783,7 +1114,7 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      *
      * @throws Exception
      */
-    private void actionSubscribe(SubscriptionMessage message) throws Exception {
+    private synchronized void actionSubscribe(SubscriptionMessage message) throws Exception {
 
         FLog.enter(logger, Level.FINER, this, "actionSubscribe", message);
 
@@ -805,13 +1136,18 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
 
             /* Set up the feed subscription */
             subscribeToFeed(message, actor, actorPlatform, feeds[f]);
+            rebuildDeliveryPlan(new ServiceDescriptor(feeds[f]).toString());
 
         }
 
         IRouting messageRoute = message.getRouting();
 
-        /* If this is the node to which the subscriber is connected, and it's a multi-hop route... */
-        if (message.isSubscriberNode() && !message.isPublisherNode()) {
+        /*
+         * If this is the node to which the subscriber is connected, and it's a multi-hop route (a restored subscription
+         * is already established at the subscriber's node, and is not acknowledged)...
+         */
+        if (message.isSubscriberNode() && !message.isPublisherNode()
+                && message.getAction().equals(IServiceMessage.ACTION_SUBSCRIBE)) {
 
             /*
              * Set-up timeout handling for this subscription (i.e. the actions to take if no acknowledgment is received
@@ -1195,7 +1531,7 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      *
      * @throws Exception
      */
-    private void actionUnsubscribe(SubscriptionMessage message) throws Exception {
+    private synchronized void actionUnsubscribe(SubscriptionMessage message) throws Exception {
 
         /* Extract the unsubscribe parameters */
         String actor = message.getProperty(SubscriptionMessage.PROPERTY_ACTOR);
@@ -1214,6 +1550,7 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
         for (int s = 0; s < services.length; s++) {
 
             unsubscribeFromFeed(message.getCorrelationID(), message.getEvent(), actor, actorPlatform, services[s]);
+            rebuildDeliveryPlan(new ServiceDescriptor(services[s]).toString());
 
         }
 
@@ -1324,6 +1661,184 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
         }
     }
 
+    /**
+     * @see fabric.bus.feeds.ISubscriptionManager#rerouteSubscriptions(java.lang.String, java.lang.String[])
+     */
+    @Override
+    public synchronized int rerouteSubscriptions(String neighbour, String[] route) {
+
+        int rerouted = 0;
+
+        for (Iterator<String> f = activeSubscriptions.keySet().iterator(); f.hasNext();) {
+
+            String feedName = f.next();
+            boolean isChanged = false;
+
+            for (SubscriptionRecord subscription : activeSubscriptions.get(feedName)) {
+
+                /* Only subscriptions whose feed messages are sent directly from this node to the neighbour move */
+                if (!(subscription.routing() instanceof StaticRouting)
+                        || !Arrays.asList(subscription.routing().nextNodes()).contains(neighbour)) {
+                    continue;
+                }
+
+                StaticRouting feedRouting = (StaticRouting) subscription.routing();
+                String[] newRoute = spliceRoute(feedRouting.getRouteNodes(), feedRouting.currentNodeIndex(), route);
+
+                if (newRoute == null) {
+
+                    logger.log(Level.FINE, "Cannot re-route subscription [{0}] without passing through a node "
+                            + "before this one in its route", subscription);
+                    continue;
+
+                }
+
+                StaticRouting newRouting = new StaticRouting(newRoute);
+                String nextNode = newRouting.nextNodes()[0];
+
+                /* Restore the subscription along the new route, so that the nodes on it forward the feed messages */
+                SubscriptionMessage restore = new SubscriptionMessage();
+                restore.setCorrelationID(FabricMessageFactory.generateUID());
+                restore.setAction(IServiceMessage.ACTION_RESTORE_SUBSCRIPTION);
+                restore.setEvent(IServiceMessage.EVENT_ACTOR_REQUEST);
+                restore.setNotification(false);
+                restore.setProperty(IServiceMessage.PROPERTY_ACTOR, subscription.actor());
+                restore.setProperty(IServiceMessage.PROPERTY_ACTOR_PLATFORM, subscription.actorPlatform());
+                ServiceList serviceList = new ServiceList();
+                serviceList.addService(subscription.service());
+                restore.setServiceList(serviceList);
+                restore.setRouting(newRouting);
+
+                try {
+
+                    busServices.sendServiceMessage(restore, nextNode);
+
+                } catch (Exception e) {
+
+                    logger.log(Level.WARNING, "Failed to re-route subscription [{0}] via node [{1}]: {2}",
+                            new Object[] {subscription, nextNode, e.getMessage()});
+                    logger.log(Level.FINEST, "Full exception: ", e);
+                    continue;
+
+                }
+
+                /* Clean up the subscription if the new next node is lost (as for a previous node when subscribing) */
+                String handle = busServices.addNodeMessage(nextNode, createCleanupMessage(restore, subscription
+                        .service(), true), IServiceMessage.EVENT_DISCONNECTED, true);
+                subscription.cleanupMessageHandles().add(handle);
+
+                subscription.setRouting(newRouting);
+                isChanged = true;
+                rerouted++;
+
+                logger.log(Level.FINE, "Subscription [{0}] re-routed via {1}", new Object[] {subscription,
+                        Arrays.toString(newRoute)});
+
+            }
+
+            if (isChanged) {
+                rebuildDeliveryPlan(feedName);
+            }
+        }
+
+        return rerouted;
+
+    }
+
+    /**
+     * Replaces the hop from a node to the next node in a route with a new route between the two, removing any loops
+     * that result.
+     *
+     * @param route
+     *            the original route.
+     *
+     * @param at
+     *            the index of the node in the route at which the new route starts.
+     *
+     * @param detour
+     *            the new route to the next node (including both nodes).
+     *
+     * @return the new route, or <code>null</code> if it would pass through a node before <code>at</code> in the
+     *         original route.
+     */
+    public static String[] spliceRoute(String[] route, int at, String[] detour) {
+
+        ArrayList<String> spliced = new ArrayList<String>(Arrays.asList(route).subList(0, at));
+        spliced.addAll(Arrays.asList(detour));
+        spliced.addAll(Arrays.asList(route).subList(Math.min(at + 2, route.length), route.length));
+
+        for (int n = 0; n < spliced.size(); n++) {
+
+            int repeat = spliced.lastIndexOf(spliced.get(n));
+
+            if (repeat > n) {
+
+                /* A loop back through a node before the start of the new route cannot be removed here */
+                if (n < at) {
+                    return null;
+                }
+
+                spliced.subList(n + 1, repeat + 1).clear();
+
+            }
+        }
+
+        return spliced.toArray(new String[spliced.size()]);
+
+    }
+
+    /**
+     * Answers the number of times that a feed message has been passed to a task or actor without being copied or
+     * dispatched to plug-ins, because no plug-ins are configured.
+     *
+     * @return the count.
+     */
+    public long getPassThroughCount() {
+
+        return passThroughCount.get();
+
+    }
+
+    /**
+     * Answers the number of feed messages that have been handled as part of a batch of messages from the same feed.
+     *
+     * @return the count.
+     */
+    public long getBatchedMessageCount() {
+
+        return batchedMessageCount.get();
+
+    }
+
+    /**
+     * Rebuilds the delivery plan for a feed from its current subscriptions and task plug-in dispatchers, and replaces
+     * the plan in use.
+     *
+     * @param feedName
+     *            the name of the feed.
+     */
+    private void rebuildDeliveryPlan(String feedName) {
+
+        HashMap<String, FeedPluginDispatcher> feedInboundDispatchers = inboundTaskDispatchers.get(feedName);
+        HashMap<String, FeedDeliveryPlan> newPlans = new HashMap<String, FeedDeliveryPlan>(deliveryPlans);
+
+        /* If there are no tasks for this feed... */
+        if (feedInboundDispatchers == null || feedInboundDispatchers.isEmpty()) {
+
+            newPlans.remove(feedName);
+
+        } else {
+
+            FeedDeliveryPlan plan = new FeedDeliveryPlan(feedName, homeNode(), feedInboundDispatchers,
+                    outboundTaskDispatchers.get(feedName), activeSubscriptions.get(feedName), feedQoS.get(feedName));
+            newPlans.put(feedName, plan);
+
+        }
+
+        deliveryPlans = newPlans;
+
+    }
+
     /**
      * Fires client notification messages for each feed being unsubscribed.
      *
@@ -1455,7 +1970,7 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
             String node = n.next();
 
             /* Get the table of messages for the node */
-            HashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable = fhmd.nodeTable.get(node);
+            IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable = fhmd.nodeTable.get(node);
 
             /* If the target node is the current node... */
             if (node.equals(homeNode())) {
@@ -1488,23 +2003,28 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      *             thrown if the message cannot be sent. See the exception detail for more information.
      */
     private void forwardFeedMessageToNode(String node,
-            HashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable, FeedHandlingMetaData fhmd)
+            IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable, FeedHandlingMetaData fhmd)
         throws Exception {
 
         /* For each message to be forwarded to the node... */
         for (Iterator<IFeedMessage> m = messageTable.keySet().iterator(); m.hasNext();) {
 
             /* Get the message to be sent (which doubles up as the key) */
-            IFeedMessage message = m.next();
+            IFeedMessage key = m.next();
+            boolean addTargetting = fhmd.messageModified || fhmd.messageIsTargetted;
+
+            /* The key is shared with other nodes, so this link needs its own copy if the message is to be changed */
+            IFeedMessage message = (addTargetting || !outboundNodeDispatcher.isEmpty()) ? (IFeedMessage) key
+                    .replicate() : key;
 
             /*
              * If the message has been modified by per-task or per-actor processing, or it is targeted at a specific
              * node...
              */
-            if (fhmd.messageModified || fhmd.messageIsTargetted) {
+            if (addTargetting) {
 
-                /* Get the list of subscriptions relevant to this message */
-                ArrayList<SubscriptionRecord> subscriptionList = messageTable.get(message);
+                /* Get the list of subscriptions relevant to this message (merged into a single header) */
+                ArrayList<SubscriptionRecord> subscriptionList = messageTable.get(key);
 
                 /* Now add information into the message so that the next hop knows to whom it belongs */
 
@@ -1528,9 +2048,12 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
             /* If the message is to be processed further... */
             if (fhmd.nodePluginAction == IFeedPlugin.ACTION_CONTINUE) {
 
-                /* Forward the message across the Fabric to the node */
-                OutboundMessage outboundMessage = new OutboundMessage(message, node, fhmd.feedName, feedQoS
-                        .get(fhmd.feedName));
+                /* Serialize the message now, before it is shared with the forwarding thread */
+                message.toWireBytes();
+
+                /* Forward the message across the Fabric to the node (no need for a further copy) */
+                OutboundMessage outboundMessage = new OutboundMessage(message, node, fhmd.feedName, fhmd.plan.qos(),
+                        false);
                 busServices.forwardingManager().add(outboundMessage);
 
             } else {
@@ -1554,15 +2077,15 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
      *
      * @throws Exception
      */
-    private void sendFeedMessageToActor(HashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable,
+    private void sendFeedMessageToActor(IdentityHashMap<IFeedMessage, ArrayList<SubscriptionRecord>> messageTable,
             FeedHandlingMetaData fhmd) throws Exception {
 
         /* For each message to be published... */
         for (Iterator<IFeedMessage> m = messageTable.keySet().iterator(); m.hasNext();) {
 
-            /* Get the message to be sent (which doubles up as the key) */
+            /* Get the message to be sent (which doubles up as the key), copying it if node plug-ins may change it */
             IFeedMessage key = m.next();
-            IFeedMessage message = (IFeedMessage) key.replicate();
+            IFeedMessage message = (outboundNodeDispatcher.isEmpty()) ? key : (IFeedMessage) key.replicate();
 
             /* Apply the out-bound node plug-ins to the message */
             fhmd.nodePluginAction = outboundNodeDispatcher.dispatch(message, fhmd.taskPluginAction);
@@ -1570,6 +2093,9 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
             /* If the message is to be processed further... */
             if (fhmd.nodePluginAction == IFeedPlugin.ACTION_CONTINUE) {
 
+                /* Serialize the message now, before it is shared with the forwarding thread */
+                message.toWireBytes();
+
                 /* Get the list of subscriptions relevant to this feed */
                 ArrayList<SubscriptionRecord> subscriptionList = messageTable.get(key);
 
@@ -1579,9 +2105,9 @@ public class SubscriptionManager extends BusService implements ISubscriptionMana
                     /* Get the next subscription */
                     SubscriptionRecord subscription = s.next();
 
-                    /* Queue the message to be sent to the actor */
-                    OutboundMessage outboundMessage = new OutboundMessage(message, subscription, fhmd.feedName, feedQoS
-                            .get(fhmd.feedName));
+                    /* Queue the message to be sent to the actor (sharing it, so that it is only serialized once) */
+                    OutboundMessage outboundMessage = new OutboundMessage(message, subscription, fhmd.feedName,
+                            fhmd.plan.qos(), false);
                     busServices.forwardingManager().add(outboundMessage);
 
                 }
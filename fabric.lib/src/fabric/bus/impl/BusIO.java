@@ -8,8 +8,17 @@
 package fabric.bus.impl;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,6 +30,7 @@ import fabric.bus.BusIOChannels;
 import fabric.bus.BusMessageHandler;
 import fabric.bus.IBusIO;
 import fabric.bus.NeighbourChannels;
+import fabric.bus.SharedChannel;
 import fabric.bus.SharedEndPoint;
 import fabric.bus.feeds.impl.SubscriptionRecord;
 import fabric.bus.messages.FabricMessageFactory;
@@ -31,6 +41,7 @@ import fabric.bus.messages.IServiceMessage;
 import fabric.bus.messages.impl.FeedMessage;
 import fabric.bus.messages.impl.MessagePayload;
 import fabric.bus.messages.impl.ServiceMessage;
+import fabric.bus.routing.TopologyGraph;
 import fabric.core.io.EndPoint;
 import fabric.core.io.ICallback;
 import fabric.core.io.IEndPointCallback;
@@ -47,6 +58,7 @@ import fabric.registry.NodeIpMapping;
 import fabric.registry.NodeNeighbour;
 import fabric.registry.QueryScope;
 import fabric.services.floodmessage.FloodRouting;
+import fabric.services.floodmessage.NeighbourCache;
 import fabric.session.NodeDescriptor;
 
 /**
@@ -64,6 +76,182 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2007, 2014";
 
+    /*
+     * Inner classes
+     */
+
+    /**
+     * An inbound message waiting to be processed by a worker thread.
+     */
+    private static class PendingMessage {
+
+        /** The message */
+        final Message message;
+
+        /** The message parsed as a Fabric message, or <code>null</code> */
+        final IFabricMessage parsedMessage;
+
+        /** Flag indicating if the message has already been parsed */
+        final boolean isParsed;
+
+        PendingMessage(Message message, IFabricMessage parsedMessage, boolean isParsed) {
+
+            this.message = message;
+            this.parsedMessage = parsedMessage;
+            this.isParsed = isParsed;
+        }
+    }
+
+    /**
+     * A partition of the inbound messages, processed in order by a single worker thread.
+     * <p>
+     * Consecutive messages for the same feed that have accumulated in the partition are handled as a batch.
+     * </p>
+     */
+    private class Partition implements Runnable {
+
+        /** The worker thread for the partition */
+        private final ExecutorService worker;
+
+        /** The messages waiting to be processed */
+        private final ConcurrentLinkedQueue<PendingMessage> pending = new ConcurrentLinkedQueue<PendingMessage>();
+
+        /** Flag indicating if the worker has been asked to process the waiting messages */
+        private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+
+        Partition(ExecutorService worker) {
+
+            this.worker = worker;
+        }
+
+        /**
+         * Adds a message to the partition.
+         *
+         * @param message
+         *            the message.
+         */
+        void add(PendingMessage message) {
+
+            pending.offer(message);
+
+            if (isScheduled.compareAndSet(false, true)) {
+                worker.execute(this);
+            }
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        @Override
+        public void run() {
+
+            boolean isDraining = true;
+
+            while (isDraining) {
+
+                PendingMessage next = pending.poll();
+
+                while (next != null) {
+                    next = processPending(next);
+                }
+
+                isScheduled.set(false);
+
+                /* Pick up any messages that arrived after the queue was found to be empty */
+                isDraining = !pending.isEmpty() && isScheduled.compareAndSet(false, true);
+            }
+        }
+
+        /**
+         * Processes a message, together with any waiting messages for the same feed that can be batched with it.
+         *
+         * @param first
+         *            the message.
+         *
+         * @return the next message to process (already removed from the queue), or <code>null</code> if there are
+         *         none.
+         */
+        private PendingMessage processPending(PendingMessage first) {
+
+            PendingMessage next = null;
+            String messageTopic = (String) first.message.topic;
+
+            /* If there are more messages waiting and this one is from the feed bus... */
+            boolean isBatchable = batchSize > 1 && !pending.isEmpty() && !doInstrument()
+                    && messageTopic.startsWith(ioChannels.receiveBus.name());
+
+            if (isBatchable) {
+                first = parsePending(first);
+            }
+
+            if (isBatchable && first.parsedMessage instanceof IFeedMessage) {
+
+                ArrayList<IFeedMessage> batch = new ArrayList<IFeedMessage>();
+                batch.add((IFeedMessage) first.parsedMessage);
+
+                PendingMessage candidate = null;
+
+                /* Collect the immediately following messages for the same feed */
+                while (next == null && batch.size() < batchSize && (candidate = pending.poll()) != null) {
+
+                    if (messageTopic.equals(candidate.message.topic)) {
+
+                        candidate = parsePending(candidate);
+
+                        if (candidate.parsedMessage instanceof IFeedMessage) {
+                            batch.add((IFeedMessage) candidate.parsedMessage);
+                        } else {
+                            next = candidate;
+                        }
+
+                    } else {
+
+                        next = candidate;
+
+                    }
+                }
+
+                if (batch.size() == 1) {
+                    processMessage(first.message, first.parsedMessage, true);
+                } else {
+                    processBatch(messageTopic, batch);
+                }
+
+            } else {
+
+                processMessage(first.message, first.parsedMessage, first.isParsed);
+
+            }
+
+            if (next == null) {
+                next = pending.poll();
+            }
+
+            return next;
+        }
+
+        /**
+         * Parses a waiting message (if this has not already been done).
+         *
+         * @param message
+         *            the message.
+         *
+         * @return the parsed message.
+         */
+        private PendingMessage parsePending(PendingMessage message) {
+
+            PendingMessage parsed = message;
+
+            if (!message.isParsed) {
+                byte[] messageData = (message.message.data != null) ? message.message.data : new byte[0];
+                parsed = new PendingMessage(message.message, parseMessage((String) message.message.topic,
+                        messageData), true);
+            }
+
+            return parsed;
+        }
+    }
+
     /*
      * Class fields
      */
@@ -72,7 +260,30 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
     private BusMessageHandler messageHandler = null;
 
     /** The list of nodes neighbouring this Fabric Manager */
-    private final HashMap<NodeDescriptor, NeighbourChannels> neighbourChannelsTable = new HashMap<NodeDescriptor, NeighbourChannels>();
+    private final ConcurrentHashMap<NodeDescriptor, NeighbourChannels> neighbourChannelsTable = new ConcurrentHashMap<NodeDescriptor, NeighbourChannels>();
+
+    /** Object used to serialize connections to new neighbours */
+    private final Object neighbourLock = new Object();
+
+    /**
+     * Lock used to coordinate the handling of inbound messages: feed messages are handled under the read lock, so that
+     * unrelated feeds are handled in parallel by the worker threads (the delivery plans they use are immutable, and
+     * each plug-in dispatcher serializes its own plug-ins), while service messages, which change the subscriptions and
+     * plans, are handled under the write lock, one at a time
+     */
+    private final ReentrantReadWriteLock handlerLock = new ReentrantReadWriteLock();
+
+    /**
+     * The partitions of the inbound messages, each with its own worker thread (<code>null</code> if messages are
+     * processed on the thread that delivers them)
+     */
+    private Partition[] partitions = null;
+
+    /** The maximum number of messages for the same feed handled as a single batch by a worker thread */
+    private int batchSize = 1;
+
+    /** Flag indicating if messages from locally attached feeds are handled in-process rather than via the broker */
+    private boolean localDelivery = false;
 
     /** To hold the channels and topics used by the Fabric Manager */
     private final BusIOChannels ioChannels = new BusIOChannels();
@@ -121,6 +332,39 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
         fabricFeedsBusTemplate = config(ConfigProperties.TOPIC_FEEDS_BUS, ConfigProperties.TOPIC_FEEDS_BUS_DEFAULT);
         fabricRegistryBusTemplate = config(ConfigProperties.REGISTRY_COMMAND_TOPIC,
                 ConfigProperties.REGISTRY_COMMAND_TOPIC_DEFAULT);
+
+        int workerCount = Integer.parseInt(config(ConfigProperties.BUS_WORKER_THREADS,
+                ConfigProperties.BUS_WORKER_THREADS_DEFAULT));
+
+        /* If inbound messages are to be processed by a pool of worker threads... */
+        if (workerCount > 0) {
+
+            partitions = new Partition[workerCount];
+
+            for (int w = 0; w < workerCount; w++) {
+
+                final String workerName = "Bus-Worker-" + w;
+
+                partitions[w] = new Partition(Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+
+                        Thread workerThread = new Thread(r, workerName);
+                        workerThread.setDaemon(true);
+                        return workerThread;
+                    }
+                }));
+            }
+
+            batchSize = Integer.parseInt(config(ConfigProperties.BUS_BATCH_SIZE,
+                    ConfigProperties.BUS_BATCH_SIZE_DEFAULT));
+
+            logger.log(Level.FINE, "Inbound messages will be processed by {0} worker thread(s)", workerCount);
+        }
+
+        localDelivery = Boolean.parseBoolean(config(ConfigProperties.FEEDS_LOCAL_DELIVERY,
+                ConfigProperties.FEEDS_LOCAL_DELIVERY_DEFAULT));
     }
 
     /**
@@ -218,15 +462,114 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
      * @see fabric.core.io.ICallback#handleMessage(fabric.core.io.Message)
      */
     @Override
-    public synchronized void handleMessage(Message message) {
+    public void handleMessage(Message message) {
 
         FLog.enter(logger, Level.FINER, this, "handleMessage", message);
 
+        /* If messages are processed on the delivering thread... */
+        if (partitions == null) {
+
+            processMessage(message, null, false);
+
+        } else {
+
+            /*
+             * Hand the message to the worker for its partition (preserving the order of related messages); messages are
+             * parsed by the worker, so the key is taken from the topic: the feed for feed messages, and the topic
+             * itself for everything else
+             */
+            String messageTopic = (String) message.topic;
+            String partitionKey = feedPartitionKey(messageTopic);
+
+            if (partitionKey == null) {
+                partitionKey = messageTopic;
+            }
+
+            int partition = (partitionKey.hashCode() & Integer.MAX_VALUE) % partitions.length;
+            partitions[partition].add(new PendingMessage(message, null, false));
+        }
+
+        FLog.exit(logger, Level.FINER, this, "handleMessage", null);
+    }
+
+    /**
+     * Answers the key used to partition a message received on a feed topic.
+     *
+     * @param messageTopic
+     *            the topic on which the message was received.
+     *
+     * @return the feed descriptor (the remainder of the topic following the feed prefix), or <code>null</code> if this
+     *         is not a feed topic.
+     */
+    private String feedPartitionKey(String messageTopic) {
+
+        String partitionKey = null;
+        String[] feedPrefixes = new String[] {ioChannels.receiveBus.name(), ioChannels.receiveLocalFeeds.name(),
+                ioChannels.receiveLocalReplayFeeds.name()};
+
+        for (int p = 0; partitionKey == null && p < feedPrefixes.length; p++) {
+            if (messageTopic.startsWith(feedPrefixes[p])) {
+                partitionKey = messageTopic.substring(feedPrefixes[p].length());
+            }
+        }
+
+        return partitionKey;
+    }
+
+    /**
+     * Parses an inbound Fabric message.
+     *
+     * @param messageTopic
+     *            the topic on which the message was received.
+     *
+     * @param messageData
+     *            the message.
+     *
+     * @return the parsed message, or <code>null</code> if it is not a properly formatted Fabric message.
+     */
+    private IFabricMessage parseMessage(String messageTopic, byte[] messageData) {
+
+        IFabricMessage parsedMessage = null;
+
+        try {
+
+            parsedMessage = FabricMessageFactory.create(messageTopic, messageData);
+
+        } catch (Exception e) {
+
+            logger.log(Level.WARNING, "Improperly formatted message received on topic {0}: {1}", new Object[] {
+                    messageTopic, e.getMessage()});
+            logger.log(Level.FINEST, "Full message:\n{0}", new String(messageData));
+            logger.log(Level.FINEST, "Full exception: ", e);
+
+        }
+
+        return parsedMessage;
+    }
+
+    /**
+     * Processes an inbound message.
+     *
+     * @param message
+     *            the message.
+     *
+     * @param parsedMessage
+     *            the message parsed as a Fabric message, or <code>null</code>.
+     *
+     * @param isParsed
+     *            flag indicating if the message has already been parsed.
+     */
+    private void processMessage(Message message, IFabricMessage parsedMessage, boolean isParsed) {
+
         String messageTopic = (String) message.topic;
-        byte[] messageData = message.data;
-        String messageString = new String((messageData != null) ? messageData : new byte[0]);
+        byte[] messageData = (message.data != null) ? message.data : new byte[0];
+        String messageString = null;
 
-        logger.log(Level.FINEST, "Full message:\n{0}", messageString);
+        /* Only convert the message to a string if it is needed */
+        if (logger.isLoggable(Level.FINEST)) {
+            messageString = new String(messageData);
+            logger.log(Level.FINEST, "Full message:\n{0}", messageString);
+        }
 
         /* Instrumentation */
         FabricMetric metric = null;
@@ -268,32 +611,33 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
             /* Else this should be a message that we can parse */
             else {
 
-                IFabricMessage parsedMessage = null;
-
-                try {
-
-                    /* Parse the message */
-                    parsedMessage = FabricMessageFactory.create(messageTopic, messageData);
-
-                } catch (Exception e) {
-
-                    logger.log(Level.WARNING, "Improperly formatted message received on topic {0}: {1}", new Object[] {
-                            messageTopic, e.getMessage()});
-                    logger.log(Level.FINEST, "Full message:\n{0}", messageString);
-                    logger.log(Level.FINEST, "Full exception: ", e);
-
+                /* Parse the message (if this has not already been done) */
+                if (!isParsed) {
+                    parsedMessage = parseMessage(messageTopic, messageData);
                 }
 
                 /* If this is a Fabric feed message... */
                 if (parsedMessage instanceof IFeedMessage) {
 
-                    messageHandler.handleFeedMessage((IFeedMessage) parsedMessage);
+                    handlerLock.readLock().lock();
+
+                    try {
+                        messageHandler.handleFeedMessage((IFeedMessage) parsedMessage);
+                    } finally {
+                        handlerLock.readLock().unlock();
+                    }
 
                 }
                 /* Else if this is a Fabric service message... */
                 else if (parsedMessage instanceof IServiceMessage) {
 
-                    messageHandler.handleServiceMessage((ServiceMessage) parsedMessage);
+                    handlerLock.writeLock().lock();
+
+                    try {
+                        messageHandler.handleServiceMessage((ServiceMessage) parsedMessage);
+                    } finally {
+                        handlerLock.writeLock().unlock();
+                    }
 
                 }
                 /* Else if this is any other kind of Fabric message... */
@@ -312,12 +656,12 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
                     logger.log(
                             Level.WARNING,
                             "Ignoring improperly formatted connection status (last-will-and-testament) message recevied on topic {0}:\n{1}",
-                            new Object[] {messageTopic, messageString});
+                            new Object[] {messageTopic, new String(messageData)});
 
                 } else {
 
                     logger.log(Level.WARNING, "Ignoring improperly formatted message recevied on topic {0}:\n{1}",
-                            new Object[] {messageTopic, messageString});
+                            new Object[] {messageTopic, new String(messageData)});
 
                 }
 
@@ -337,8 +681,36 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
             }
 
         }
+    }
 
-        FLog.exit(logger, Level.FINER, this, "handleMessage", null);
+    /**
+     * Processes a batch of feed messages received on the same feed bus topic.
+     *
+     * @param messageTopic
+     *            the topic on which the messages were received.
+     *
+     * @param batch
+     *            the parsed messages, in the order in which they were received.
+     */
+    private void processBatch(String messageTopic, ArrayList<IFeedMessage> batch) {
+
+        try {
+
+            handlerLock.readLock().lock();
+
+            try {
+                messageHandler.handleFeedMessages(batch.toArray(new IFeedMessage[batch.size()]));
+            } finally {
+                handlerLock.readLock().unlock();
+            }
+
+        } catch (Exception e) {
+
+            logger.log(Level.WARNING, "Exception handling batch of {0} messages received on topic [{1}]: {2}",
+                    new Object[] {batch.size(), messageTopic, e.getMessage()});
+            logger.log(Level.FINEST, "Full exception: ", e);
+
+        }
     }
 
     /**
@@ -410,6 +782,42 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
         NeighbourChannels neighbourChannels = null;
         NodeDescriptor nodeDescriptor = createDescriptor(neighbour);
 
+        /* If there is already a connection to the neighbour... */
+        if (nodeDescriptor != null) {
+            neighbourChannels = neighbourChannelsTable.get(nodeDescriptor);
+        }
+
+        if (neighbourChannels == null && nodeDescriptor != null) {
+
+            /* Serialize new connections (re-checking for a connection made while we waited) */
+            synchronized (neighbourLock) {
+                neighbourChannels = connectNeighbour(neighbour, nodeDescriptor);
+            }
+        }
+
+        if (nodeDescriptor == null) {
+            logger.log(Level.WARNING, "Could not connect to neighbour [{0}]; node details not found", neighbour);
+        }
+
+        return neighbourChannels;
+    }
+
+    /**
+     * Connects to a neighbouring Fabric node, trying each of its available network interfaces in turn until a
+     * connection is made. The caller must hold <code>neighbourLock</code>.
+     *
+     * @param neighbour
+     *            the Fabric name of the node.
+     *
+     * @param nodeDescriptor
+     *            the descriptor of the first interface to try.
+     *
+     * @return the connection to the neighbour, or <code>null</code> if no connection could be made.
+     */
+    private NeighbourChannels connectNeighbour(String neighbour, NodeDescriptor nodeDescriptor) {
+
+        NeighbourChannels neighbourChannels = null;
+
         while (neighbourChannels == null && nodeDescriptor != null) {
 
             /* Get the the existing Fabric connection to the node */
@@ -429,12 +837,15 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
 
                     logger.log(Level.INFO, "Connected to new neighbour [{0}]", neighbour);
                     neighbourChannelsTable.put(nodeDescriptor, neighbourChannels);
+                    TopologyGraph.getInstance().setEdgeAvailable(homeNode(), neighbour, true);
+                    NeighbourCache.invalidate(homeNode());
 
                 } else {
 
                     /* Mark this nodeDescriptor as unavailable */
                     FabricRegistry.getNodeNeighbourFactory(QueryScope.LOCAL)
                             .markUnavailable(homeNode(), nodeDescriptor);
+                    NeighbourCache.invalidate(homeNode());
                     /*
                      * Move onto next possible nodeDescriptor, previous one should be marked unavailable and not
                      * returned.
@@ -447,9 +858,11 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
                  * again next time.
                  */
                 FabricRegistry.getNodeNeighbourFactory(QueryScope.LOCAL).markStaticNeighboursAsAvailable(homeNode());
+                NeighbourCache.invalidate(homeNode());
             }
         }
 
+        /* If every interface has been tried without success... */
         if (nodeDescriptor == null) {
             logger.log(Level.WARNING, "Could not connect to neighbour [{0}]; node details not found", neighbour);
         }
@@ -576,10 +989,8 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
     @Override
     public void disconnectNeighbour(String id) throws UnsupportedOperationException, IOException {
 
-        HashMap<NodeDescriptor, NeighbourChannels> neighbourChannelsTableCopy = (HashMap<NodeDescriptor, NeighbourChannels>) neighbourChannelsTable
-                .clone();
-
-        for (NodeDescriptor nodeDescriptor : neighbourChannelsTableCopy.keySet()) {
+        /* Note that the key set is safe to iterate while neighbours are being disconnected */
+        for (NodeDescriptor nodeDescriptor : neighbourChannelsTable.keySet()) {
             if (nodeDescriptor.name().equals(id)) {
                 disconnectNeighbour(nodeDescriptor, false);
             }
@@ -617,26 +1028,56 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
         /* Package the incoming resource message as a Fabric feed message */
         IFeedMessage message = wrapRawMessage(messageData, isReplay);
         message.metaSetTopic(fullTopic);
+        String busTopic = ioChannels.receiveBus.name() + '/' + message.metaGetFeedDescriptor();
 
-        /* Republish the message onto the Fabric */
-        byte[] fabricMessageBytes = null;
+        /*
+         * If the message can be handled in-process (local subscribers are served directly and remote routing is
+         * performed by the handler itself, so there is no need for a round trip via the broker)...
+         */
+        if (localDelivery && messageHandler != null) {
 
-        try {
+            /* Make the message look as if it had arrived from the bus */
+            message.metaSetTopic(busTopic);
 
-            fabricMessageBytes = message.toWireBytes();
+            try {
 
-        } catch (Exception e) {
+                handlerLock.readLock().lock();
 
-            logger.log(Level.WARNING,
-                    "Internal error: cannot convert [{0}] to bytes, message cannot be pushed onto the bus: {1}",
-                    new Object[] {FeedMessage.class.getName(), e.getMessage()});
-            logger.log(Level.FINEST, "Full exception: ", e);
+                try {
+                    messageHandler.handleFeedMessage(message);
+                } finally {
+                    handlerLock.readLock().unlock();
+                }
 
-        }
+            } catch (Exception e) {
+
+                logger.log(Level.WARNING, "Exception handling local message for feed [{0}]: {1}", new Object[] {
+                        message.metaGetFeedDescriptor(), e.getMessage()});
+                logger.log(Level.FINEST, "Full exception: ", e);
+
+            }
+
+        } else {
+
+            /* Republish the message onto the Fabric */
+            byte[] fabricMessageBytes = null;
 
-        ioChannels.receiveBusChannel.write(fabricMessageBytes, new OutputTopic(ioChannels.receiveBus.name() + '/'
-                + message.metaGetFeedDescriptor()));
+            try {
 
+                fabricMessageBytes = message.toWireBytes();
+
+            } catch (Exception e) {
+
+                logger.log(Level.WARNING,
+                        "Internal error: cannot convert [{0}] to bytes, message cannot be pushed onto the bus: {1}",
+                        new Object[] {FeedMessage.class.getName(), e.getMessage()});
+                logger.log(Level.FINEST, "Full exception: ", e);
+
+            }
+
+            ioChannels.receiveBusChannel.write(fabricMessageBytes, new OutputTopic(busTopic));
+
+        }
     }
 
     /**
@@ -701,7 +1142,7 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
             logger.log(Level.FINEST, "Sending feed [{0}] message to node [{1}]", new Object[] {feedTopic,
                     nodeConnection.neighbourDescriptor()});
             String fullTopic = nodeConnection.outboundFeedBus().name() + '/' + feedTopic;
-            nodeConnection.feedBusChannel().write(message.toWireBytes(), new OutputTopic(fullTopic));
+            publishFeed(nodeConnection.feedBusChannel(), message.toWireBytes(), fullTopic);
 
         } else {
 
@@ -724,10 +1165,46 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
         logger.log(Level.FINEST, "Delivering service [{0}] message to client [{1}], task [{2}] using topic [{3}]",
                 new Object[] {subscription.service(), subscription.actor(), subscription.service().task(), fullTopic});
 
-        ioChannels.sendLocalSubscriptionChannel.write(message.toWireBytes(), new OutputTopic(fullTopic));
+        publishFeed(ioChannels.sendLocalSubscriptionChannel, message.toWireBytes(), fullTopic);
 
     }
 
+    /**
+     * Publishes a feed message without waiting for delivery to complete, so that many feed messages can be in flight
+     * to each destination (within the limit set by <code>mqtt.maxInflight</code>). Delivery failures are logged.
+     *
+     * @param channel
+     *            the channel on which to publish the message.
+     *
+     * @param messageBytes
+     *            the wire form of the message.
+     *
+     * @param fullTopic
+     *            the topic to which the message is to be published.
+     *
+     * @throws IOException
+     *             thrown if the message cannot be sent.
+     */
+    private void publishFeed(SharedChannel channel, byte[] messageBytes, final String fullTopic) throws IOException {
+
+        CompletableFuture<Void> delivery = channel.writeAsync(messageBytes, new OutputTopic(fullTopic),
+                MessageQoS.DEFAULT);
+
+        /* Report any failure when delivery completes */
+        delivery.whenComplete(new BiConsumer<Void, Throwable>() {
+
+            @Override
+            public void accept(Void result, Throwable t) {
+
+                if (t != null) {
+                    logger.log(Level.WARNING, "Failed to deliver feed message to [{0}]: {1}", new Object[] {fullTopic,
+                            t.getMessage()});
+                    logger.log(Level.FINEST, "Full exception: ", t);
+                }
+            }
+        });
+    }
+
     /**
      * @see fabric.bus.IBusIO#ioChannels()
      */
@@ -809,6 +1286,8 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
 
                 // Mark this Neighbour Node Descriptor as Unavailable.
                 FabricRegistry.getNodeNeighbourFactory(QueryScope.LOCAL).markUnavailable(homeNode(), nodeDescriptor);
+                TopologyGraph.getInstance().setEdgeAvailable(homeNode(), nodeDescriptor.name(), false);
+                NeighbourCache.invalidate(homeNode());
 
             } else if (ep instanceof MqttEndPoint) {
 
@@ -828,6 +1307,8 @@ public class BusIO extends FabricBus implements IBusIO, ICallback, IEndPointCall
                     /* Mark this Neighbour Node Descriptor as Unavailable */
                     FabricRegistry.getNodeNeighbourFactory(QueryScope.LOCAL)
                             .markUnavailable(homeNode(), nodeDescriptor);
+                    TopologyGraph.getInstance().setEdgeAvailable(homeNode(), nodeDescriptor.name(), false);
+                    NeighbourCache.invalidate(homeNode());
                 }
             }
         } catch (UnsupportedOperationException | IOException e) {
@@ -0,0 +1,301 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads a message in the Fabric binary wire format.
+ * <p>
+ * See <code>BinaryWireWriter</code> for a description of the encoding.
+ * </p>
+ */
+public class BinaryWireReader {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class fields
+     */
+
+    /** The message buffer. */
+    private final byte[] buffer;
+
+    /** The current read position in the buffer. */
+    private int position = 0;
+
+    /** The position in the buffer at which reading must stop. */
+    private final int limit;
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param buffer
+     *            the message.
+     */
+    public BinaryWireReader(byte[] buffer) {
+
+        this(buffer, 0, buffer.length);
+
+    }
+
+    /**
+     * Constructs a new instance reading a portion of a buffer.
+     *
+     * @param buffer
+     *            the buffer containing the message.
+     *
+     * @param offset
+     *            the offset of the start of the message.
+     *
+     * @param length
+     *            the length of the message.
+     */
+    public BinaryWireReader(byte[] buffer, int offset, int length) {
+
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IllegalArgumentException("Invalid buffer range");
+        }
+
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+
+    }
+
+    /**
+     * Reads a single byte.
+     *
+     * @return the byte.
+     */
+    public byte readByte() {
+
+        require(1);
+        return buffer[position++];
+
+    }
+
+    /**
+     * Reads a boolean value.
+     *
+     * @return the value.
+     */
+    public boolean readBoolean() {
+
+        return readByte() != 0;
+
+    }
+
+    /**
+     * Reads a non-negative integer encoded using the variable length encoding.
+     *
+     * @return the value.
+     */
+    public int readVarInt() {
+
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalStateException("Malformed variable length integer in binary message");
+
+    }
+
+    /**
+     * Reads a long value.
+     *
+     * @return the value.
+     */
+    public long readLong() {
+
+        require(8);
+        long value = 0;
+
+        for (int b = 0; b < 8; b++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+
+        return value;
+
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return the string, or <code>null</code>.
+     */
+    public String readString() {
+
+        String value = null;
+        int length = readVarInt();
+
+        if (length > 0) {
+
+            length--;
+            require(length);
+            value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+
+        }
+
+        return value;
+
+    }
+
+    /**
+     * Reads a length-prefixed byte array.
+     *
+     * @return a copy of the bytes.
+     */
+    public byte[] readBytes() {
+
+        int length = readVarInt();
+        require(length);
+        byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return value;
+
+    }
+
+    /**
+     * Reads a length-prefixed byte array without copying it.
+     *
+     * @return a read-only view of the bytes in the underlying buffer.
+     */
+    public ByteBuffer readByteBuffer() {
+
+        int length = readVarInt();
+        require(length);
+        ByteBuffer value = ByteBuffer.wrap(buffer, position, length).slice().asReadOnlyBuffer();
+        position += length;
+        return value;
+
+    }
+
+    /**
+     * Reads all of the remaining bytes.
+     *
+     * @return a copy of the bytes.
+     */
+    public byte[] readRemaining() {
+
+        byte[] value = Arrays.copyOfRange(buffer, position, limit);
+        position = limit;
+        return value;
+
+    }
+
+    /**
+     * Answers the remaining bytes without reading them.
+     *
+     * @return a read-only view of the unread bytes in the underlying buffer.
+     */
+    public ByteBuffer remainingBuffer() {
+
+        return ByteBuffer.wrap(buffer, position, limit - position).slice().asReadOnlyBuffer();
+
+    }
+
+    /**
+     * Reads a section, advancing this reader past it.
+     *
+     * @return a reader for the content of the section.
+     */
+    public BinaryWireReader readSection() {
+
+        require(4);
+        int length = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16)
+                | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+        position += 4;
+        require(length);
+
+        BinaryWireReader section = new BinaryWireReader(buffer, position, length);
+        position += length;
+
+        return section;
+
+    }
+
+    /**
+     * Answers <code>true</code> if there are unread bytes remaining.
+     *
+     * @return <code>true</code> if there is more to read, <code>false</code> otherwise.
+     */
+    public boolean hasRemaining() {
+
+        return position < limit;
+
+    }
+
+    /**
+     * Answers the number of unread bytes remaining.
+     *
+     * @return the number of bytes.
+     */
+    public int remaining() {
+
+        return limit - position;
+
+    }
+
+    /**
+     * Answers the current read position.
+     *
+     * @return the position.
+     */
+    public int position() {
+
+        return position;
+
+    }
+
+    /**
+     * Sets the current read position, for example to re-read a value.
+     *
+     * @param position
+     *            the new position (typically a value previously returned by <code>position()</code>).
+     */
+    public void position(int position) {
+
+        if (position < 0 || position > limit) {
+            throw new IllegalArgumentException("Invalid position: " + position);
+        }
+
+        this.position = position;
+
+    }
+
+    /**
+     * Checks that the specified number of bytes can be read.
+     *
+     * @param length
+     *            the number of bytes required.
+     */
+    private void require(int length) {
+
+        if (length < 0 || position + length > limit) {
+            throw new IllegalStateException("Truncated binary message");
+        }
+
+    }
+}
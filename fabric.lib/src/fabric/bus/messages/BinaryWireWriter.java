@@ -0,0 +1,313 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds a message in the Fabric binary wire format.
+ * <p>
+ * Values are written as follows:
+ * <ul>
+ * <li><strong>Integers:</strong> unsigned variable length (seven bits per byte, least significant group first).</li>
+ * <li><strong>Strings:</strong> the length of the UTF-8 encoding plus one, followed by the encoded bytes; a length of
+ * zero represents <code>null</code>.</li>
+ * <li><strong>Byte arrays:</strong> the length, followed by the bytes.</li>
+ * <li><strong>Sections:</strong> a four byte (big-endian) length, followed by the section content. Sections allow a
+ * reader to skip content that it does not need.</li>
+ * </ul>
+ * </p>
+ */
+public class BinaryWireWriter {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The initial size of the buffer. */
+    private static final int INITIAL_SIZE = 256;
+
+    /*
+     * Class fields
+     */
+
+    /** The message buffer. */
+    private byte[] buffer = null;
+
+    /** The number of bytes written into the buffer. */
+    private int count = 0;
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     */
+    public BinaryWireWriter() {
+
+        this(INITIAL_SIZE);
+
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param size
+     *            the initial buffer size.
+     */
+    public BinaryWireWriter(int size) {
+
+        buffer = new byte[(size > 0) ? size : INITIAL_SIZE];
+
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param b
+     *            the byte (the low order eight bits are written).
+     */
+    public void writeByte(int b) {
+
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+
+    }
+
+    /**
+     * Writes a boolean value (as a single byte).
+     *
+     * @param value
+     *            the value.
+     */
+    public void writeBoolean(boolean value) {
+
+        writeByte(value ? 1 : 0);
+
+    }
+
+    /**
+     * Writes a non-negative integer using the variable length encoding.
+     *
+     * @param value
+     *            the value.
+     */
+    public void writeVarInt(int value) {
+
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value cannot be encoded: " + value);
+        }
+
+        ensureCapacity(5);
+
+        while ((value & ~0x7F) != 0) {
+            buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buffer[count++] = (byte) value;
+
+    }
+
+    /**
+     * Writes a long value (eight bytes, big-endian).
+     *
+     * @param value
+     *            the value.
+     */
+    public void writeLong(long value) {
+
+        ensureCapacity(8);
+
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[count++] = (byte) (value >>> shift);
+        }
+
+    }
+
+    /**
+     * Writes a string.
+     *
+     * @param value
+     *            the string, or <code>null</code>.
+     */
+    public void writeString(String value) {
+
+        if (value == null) {
+
+            writeVarInt(0);
+
+        } else {
+
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(valueBytes.length + 1);
+            writeRaw(valueBytes, 0, valueBytes.length);
+
+        }
+    }
+
+    /**
+     * Writes a length-prefixed byte array.
+     *
+     * @param value
+     *            the byte array (<code>null</code> is written as an empty array).
+     */
+    public void writeBytes(byte[] value) {
+
+        if (value == null) {
+            writeVarInt(0);
+        } else {
+            writeBytes(value, 0, value.length);
+        }
+
+    }
+
+    /**
+     * Writes a length-prefixed portion of a byte array.
+     *
+     * @param value
+     *            the byte array.
+     *
+     * @param offset
+     *            the offset of the first byte to write.
+     *
+     * @param length
+     *            the number of bytes to write.
+     */
+    public void writeBytes(byte[] value, int offset, int length) {
+
+        writeVarInt(length);
+        writeRaw(value, offset, length);
+
+    }
+
+    /**
+     * Writes the remaining content of a byte buffer, length-prefixed. The position of the buffer is not changed.
+     *
+     * @param value
+     *            the byte buffer.
+     */
+    public void writeBytes(ByteBuffer value) {
+
+        int length = value.remaining();
+        writeVarInt(length);
+        ensureCapacity(length);
+        value.duplicate().get(buffer, count, length);
+        count += length;
+
+    }
+
+    /**
+     * Writes bytes without a length prefix.
+     *
+     * @param value
+     *            the byte array.
+     *
+     * @param offset
+     *            the offset of the first byte to write.
+     *
+     * @param length
+     *            the number of bytes to write.
+     */
+    public void writeRaw(byte[] value, int offset, int length) {
+
+        ensureCapacity(length);
+        System.arraycopy(value, offset, buffer, count, length);
+        count += length;
+
+    }
+
+    /**
+     * Writes the remaining content of a byte buffer without a length prefix. The position of the buffer is not changed.
+     *
+     * @param value
+     *            the byte buffer.
+     */
+    public void writeRaw(ByteBuffer value) {
+
+        int length = value.remaining();
+        ensureCapacity(length);
+        value.duplicate().get(buffer, count, length);
+        count += length;
+
+    }
+
+    /**
+     * Starts a new section, reserving space for the section length.
+     *
+     * @return the mark to be passed to <code>endSection()</code> when the section is complete.
+     */
+    public int beginSection() {
+
+        ensureCapacity(4);
+        int mark = count;
+        count += 4;
+        return mark;
+
+    }
+
+    /**
+     * Completes a section, recording its length.
+     *
+     * @param mark
+     *            the mark returned by the corresponding call to <code>beginSection()</code>.
+     */
+    public void endSection(int mark) {
+
+        int length = count - mark - 4;
+        buffer[mark] = (byte) (length >>> 24);
+        buffer[mark + 1] = (byte) (length >>> 16);
+        buffer[mark + 2] = (byte) (length >>> 8);
+        buffer[mark + 3] = (byte) length;
+
+    }
+
+    /**
+     * Answers the number of bytes written so far.
+     *
+     * @return the size of the message.
+     */
+    public int size() {
+
+        return count;
+
+    }
+
+    /**
+     * Answers a copy of the message bytes.
+     *
+     * @return the message.
+     */
+    public byte[] toByteArray() {
+
+        return Arrays.copyOf(buffer, count);
+
+    }
+
+    /**
+     * Grows the buffer (if required) to accommodate the specified number of additional bytes.
+     *
+     * @param additional
+     *            the number of bytes about to be written.
+     */
+    private void ensureCapacity(int additional) {
+
+        int required = count + additional;
+
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+
+    }
+}
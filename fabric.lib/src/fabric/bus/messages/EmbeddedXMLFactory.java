@@ -8,6 +8,7 @@
 package fabric.bus.messages;
 
 import fabric.Fabric;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
 
 /**
@@ -19,6 +20,13 @@ public class EmbeddedXMLFactory {
 	/** Copyright notice. */
 	public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2012";
 
+	/*
+	 * Class constants
+	 */
+
+	/** The path of the encoding (class name) of the embedded object, relative to its element. */
+	private static final RelativeXMLPath ENCODING = new RelativeXMLPath("@enc");
+
 	/*
 	 * Class static fields
 	 */
@@ -63,7 +71,7 @@ public class EmbeddedXMLFactory {
 		IEmbeddedXML instance = null;
 
 		/* Get the message type */
-		String type = messageXML.get(element + "@enc");
+		String type = messageXML.get(ENCODING.in(element));
 
 		/* If no message type has been specified... */
 		if (type == null) {
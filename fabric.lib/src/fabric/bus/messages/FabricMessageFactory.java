@@ -12,7 +12,9 @@ import java.net.UnknownHostException;
 
 import fabric.Fabric;
 import fabric.bus.messages.impl.FabricMessage;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
+import fabric.core.xml.XMLSections;
 
 /**
  * Factory class for Fabric messages.
@@ -22,6 +24,13 @@ public abstract class FabricMessageFactory {
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2012";
 
+    /*
+     * Class constants
+     */
+
+    /** The path of the message type, relative to the message element. */
+    private static final RelativeXMLPath MESSAGE_TYPE = new RelativeXMLPath("@t");
+
     /*
      * Class static fields
      */
@@ -142,11 +151,40 @@ public abstract class FabricMessageFactory {
     public static IFabricMessage create(String topic, XML messageXML) throws ClassNotFoundException,
     IllegalAccessException, InstantiationException, Exception {
 
+        return create(topic, messageXML, false, null);
+
+    }
+
+    /**
+     * Create a Fabric message from an existing XML representation.
+     *
+     * @param topic
+     *            the topic associated with the message or <code>null</code> if none.
+     *
+     * @param messageXML
+     *            the Fabric message.
+     *
+     * @param deferDecoding
+     *            <code>true</code> if the properties and payload may be decoded on first access (in which case the XML
+     *            must not be modified by the caller), <code>false</code> otherwise.
+     *
+     * @param sections
+     *            the properties and payload elements split from the message before <code>messageXML</code> was parsed,
+     *            or <code>null</code> if <code>messageXML</code> is the complete message.
+     *
+     * @return the instance.
+     *
+     * @throws Exception
+     *             thrown if the class cannot be instantiated or initialized.
+     */
+    private static IFabricMessage create(String topic, XML messageXML, boolean deferDecoding, XMLSections sections)
+        throws Exception {
+
         /* To hold the new instance */
         IFabricMessage instance = null;
 
         /* Get the message type */
-        String compactType = messageXML.get(messageXML.getDocumentElementPath() + "@t");
+        String compactType = messageXML.get(MESSAGE_TYPE.in(messageXML.getDocumentElementPath()));
 
         /* If no message type has been specified... */
         if (compactType == null) {
@@ -163,6 +201,12 @@ public abstract class FabricMessageFactory {
         /* If we have created a new instance... */
         if (instance != null) {
 
+            if (sections != null) {
+                ((FabricMessage) instance).deferDecoding(sections);
+            } else if (deferDecoding && instance instanceof FabricMessage) {
+                ((FabricMessage) instance).deferDecoding();
+            }
+
             instance.init(messageXML.getDocumentElementPath(), messageXML);
             instance.metaSetTopic(topic);
 
@@ -198,9 +242,138 @@ public abstract class FabricMessageFactory {
     public static IFabricMessage create(String topic, byte[] wireBytes) throws ClassNotFoundException,
     IllegalAccessException, InstantiationException, Exception {
 
-        /* Currently the wire format is just a byte array representation of an XML document */
-        XML messageXML = new XML(wireBytes);
-        return create(topic, messageXML);
+        IFabricMessage instance = null;
+
+        /* If this is a binary message... */
+        if (wireBytes.length > 0 && wireBytes[0] == IWireBinary.MAGIC) {
+
+            instance = createFromBinary(topic, wireBytes);
+
+        } else {
+
+            /* The wire format is a byte array representation of an XML document */
+            instance = createFromXML(topic, new String(wireBytes));
+
+        }
+
+        return instance;
+
+    }
+
+    /**
+     * Create a Fabric message from the text of its XML form.
+     * <p>
+     * If lazy parsing is enabled only the message envelope is parsed here; the properties and payload elements are
+     * split from the text unparsed, and parsed on first access.
+     * </p>
+     *
+     * @param topic
+     *            the topic associated with the message of <code>null</code> if none.
+     *
+     * @param messageText
+     *            the XML form of the message.
+     *
+     * @return the instance.
+     *
+     * @throws Exception
+     *             thrown if the message cannot be decoded.
+     */
+    private static IFabricMessage createFromXML(String topic, String messageText) throws Exception {
+
+        IFabricMessage instance = null;
+
+        XMLSections sections = null;
+        if (FabricMessage.isLazyParsing()) {
+            sections = XMLSections.split(messageText, FabricMessage.PROPERTIES_ELEMENT, FabricMessage.PAYLOAD_ELEMENT);
+        }
+
+        if (sections != null) {
+            instance = create(topic, new XML(sections.getEnvelope()), true, sections);
+        } else {
+            instance = create(topic, new XML(messageText), true, null);
+        }
+
+        return instance;
+
+    }
+
+    /**
+     * Create a Fabric message from a message in the binary wire format.
+     *
+     * @param topic
+     *            the topic associated with the message of <code>null</code> if none.
+     *
+     * @param wireBytes
+     *            the Fabric message, as received.
+     *
+     * @return the instance.
+     *
+     * @throws Exception
+     *             thrown if the message cannot be decoded.
+     */
+    private static IFabricMessage createFromBinary(String topic, byte[] wireBytes) throws Exception {
+
+        /* To hold the new instance */
+        IFabricMessage instance = null;
+
+        BinaryWireReader in = new BinaryWireReader(wireBytes);
+
+        /* Check the message header */
+        in.readByte();
+        byte version = in.readByte();
+        byte flags = in.readByte();
+
+        if (version > IWireBinary.VERSION) {
+            throw new IllegalArgumentException("Unsupported binary Fabric message version: " + version);
+        }
+
+        /* If this is an XML message followed by the raw payload bytes... */
+        if ((flags & IWireBinary.FLAG_XML_HEADER) != 0) {
+
+            instance = createFromXML(topic, new String(in.readSection().readRemaining()));
+
+            /* If we have created a new instance... */
+            if (instance != null) {
+
+                /* Attach the payload (a view of the message buffer; the bytes are not copied) */
+                instance.getPayload().setPayloadBuffer(in.readByteBuffer());
+                instance.metaResetModified();
+
+            }
+
+        } else {
+
+            /* Get the message type (leaving it in place to be read by the instance) */
+            int start = in.position();
+            String compactType = in.readString();
+            in.position(start);
+
+            /* If no message type has been specified... */
+            if (compactType == null) {
+                throw new IllegalArgumentException("No type in Fabric message");
+            }
+
+            /* Make sure that we have the full class name for the type */
+            String type = Fabric.longName(compactType);
+            String className = (type != null) ? type : compactType;
+
+            /* Create a new instance */
+            instance = (IFabricMessage) Fabric.instantiate(className);
+
+            /* If we have created a new instance... */
+            if (instance != null) {
+
+                if (instance instanceof FabricMessage) {
+                    ((FabricMessage) instance).deferDecoding();
+                }
+
+                ((IEmbeddedBinary) instance).init(in);
+                instance.metaSetTopic(topic);
+
+            }
+        }
+
+        return instance;
 
     }
 
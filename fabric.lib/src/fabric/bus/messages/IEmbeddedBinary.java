@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.messages;
+
+/**
+ * Interface for classes that can be serialized into, and initialized from, the Fabric binary wire format.
+ * <p>
+ * This is the binary counterpart of <code>IEmbeddedXML</code>. Classes implementing both interfaces must serialize the
+ * same state in each format; in particular, a subclass that adds state to <code>embed(String, XML)</code> must also add
+ * it to <code>embed(BinaryWireWriter)</code>.
+ * </p>
+ */
+public interface IEmbeddedBinary {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Interface methods
+     */
+
+    /**
+     * Serializes this instance into the specified binary message.
+     *
+     * @param out
+     *            the binary message into which this instance will be serialized.
+     *
+     * @throws Exception
+     *             thrown if the instance cannot be embedded.
+     */
+    public void embed(BinaryWireWriter out) throws Exception;
+
+    /**
+     * Initializes this instance from the specified binary message.
+     *
+     * @param in
+     *            the binary message from which this instance will be initialized.
+     *
+     * @throws Exception
+     *             thrown if the instance cannot be initialized from the message.
+     */
+    public void init(BinaryWireReader in) throws Exception;
+
+}
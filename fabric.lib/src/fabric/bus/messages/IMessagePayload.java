@@ -7,6 +7,8 @@
 
 package fabric.bus.messages;
 
+import java.nio.ByteBuffer;
+
 /**
  * Base interface for classes representing a Fabric message payload.
  */
@@ -90,6 +92,29 @@ public interface IMessagePayload extends IEmbeddedXML {
 	 */
 	public void setPayloadBytes(byte[] payload);
 
+	/**
+	 * Gets a binary message payload as a read-only buffer.
+	 * <p>
+	 * Unlike <code>getPayloadBytes()</code>, no copy of the payload is made; for a received message the buffer is
+	 * typically a view of the message as it arrived.
+	 * </p>
+	 * 
+	 * @return the message payload, or <code>null</code> if there is none.
+	 * 
+	 * @throws IllegalStateException
+	 *             thrown if the payload type is not <code>PAYLOAD_BYTES</code>.
+	 */
+	public ByteBuffer getPayloadBuffer();
+
+	/**
+	 * Sets a binary message payload from a buffer. The remaining content of the buffer becomes the payload; it must
+	 * not be subsequently modified by the caller.
+	 * 
+	 * @param payload
+	 *            the new payload.
+	 */
+	public void setPayloadBuffer(ByteBuffer payload);
+
 	/**
 	 * Gets an XML message payload.
 	 * 
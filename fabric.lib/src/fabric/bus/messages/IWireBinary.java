@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.messages;
+
+/**
+ * Interface defining constants for the Fabric binary wire protocol.
+ * <p>
+ * A binary wire message has the form:
+ * </p>
+ *
+ * <pre>
+ *     magic (1 byte) | version (1 byte) | flags (1 byte) | message
+ * </pre>
+ * <p>
+ * where <code>message</code> is the output of <code>IEmbeddedBinary.embed()</code> for the message. The magic byte is
+ * not a legal leading byte for a UTF-8 encoded XML document, allowing receivers to distinguish between binary and XML
+ * messages.
+ * </p>
+ * <p>
+ * If the <code>FLAG_XML_HEADER</code> flag is set then <code>message</code> is instead a section containing the
+ * message as an XML document (with a payload encoding of <code>raw</code>), followed by the length-prefixed raw bytes
+ * of the payload.
+ * </p>
+ */
+public interface IWireBinary {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The first byte of every binary wire message. */
+    public static final byte MAGIC = (byte) 0xFB;
+
+    /** The current version of the binary wire format. */
+    public static final byte VERSION = 1;
+
+    /** Flags value indicating that no optional features are in use. */
+    public static final byte FLAGS_NONE = 0;
+
+    /** Flag indicating that the message is an XML header followed by the raw payload bytes. */
+    public static final byte FLAG_XML_HEADER = 0x01;
+
+    /** Wire format configuration value for XML messages. */
+    public static final String WIRE_FORMAT_XML = "xml";
+
+    /** Wire format configuration value for binary messages. */
+    public static final String WIRE_FORMAT_BINARY = "binary";
+
+    /** Wire format configuration value for XML messages with raw (rather than base 64) byte payloads. */
+    public static final String WIRE_FORMAT_HYBRID = "hybrid";
+
+}
@@ -15,22 +15,49 @@ import java.util.logging.Logger;
 
 import fabric.Fabric;
 import fabric.Notifier;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
 import fabric.bus.messages.FabricMessageFactory;
+import fabric.bus.messages.IEmbeddedBinary;
 import fabric.bus.messages.IFabricMessage;
 import fabric.bus.messages.IMessagePayload;
 import fabric.bus.messages.IReplicate;
+import fabric.bus.messages.IWireBinary;
 import fabric.bus.routing.IRouting;
 import fabric.bus.routing.MessageRoutingFactory;
+import fabric.core.properties.ConfigProperties;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
+import fabric.core.xml.XMLSections;
 
 /**
  * Class representing a Fabric message.
  */
-public abstract class FabricMessage extends Notifier implements IFabricMessage {
+public abstract class FabricMessage extends Notifier implements IFabricMessage, IEmbeddedBinary {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2014";
 
+    /*
+     * Class constants
+     */
+
+    /* The paths of the message attributes, relative to the message element */
+
+    private static final RelativeXMLPath UID = new RelativeXMLPath("@uid");
+
+    private static final RelativeXMLPath CORRELATION_ID = new RelativeXMLPath("@cid");
+
+    private static final RelativeXMLPath NAMESPACE = new RelativeXMLPath("@xmlns");
+
+    private static final RelativeXMLPath MESSAGE_TYPE = new RelativeXMLPath("@t");
+
+    /** The name of the element holding the message properties. */
+    public static final String PROPERTIES_ELEMENT = "prop";
+
+    /** The name of the element holding the message payload. */
+    public static final String PAYLOAD_ELEMENT = "pay";
+
     /*
      * Class static fields
      */
@@ -41,6 +68,15 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     /** The XML namespace synchronization lock. */
     private static Object xmlNamespaceLock = new Object();
 
+    /** Flag indicating if messages are to be sent using the binary wire format. */
+    private static boolean useBinaryWireFormat = false;
+
+    /** Flag indicating if messages with byte payloads are to be sent as XML followed by the raw payload bytes. */
+    private static boolean useHybridWireFormat = false;
+
+    /** Flag indicating if the decoding of the properties and payload of inbound messages can be deferred. */
+    private static boolean useLazyParsing = false;
+
     /*
      * Class fields
      */
@@ -75,9 +111,39 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     /** Cache of the XML form of the message. */
     private XML xmlCache = null;
 
+    /** Cache of the wire form of the message (binary, hybrid or XML, as returned by toWireBytes()). */
+    private byte[] binaryCache = null;
+
+    /** Flag indicating if byte payloads are to be omitted from the XML form of the message (see toWireBytes()). */
+    private boolean detachPayload = false;
+
     /** The message object's meta data properties. */
     private final HashMap<String, Object> metaProperties = new HashMap<String, Object>();
 
+    /** Flag indicating if the properties and payload are to be decoded on first access rather than during init. */
+    private boolean deferDecoding = false;
+
+    /** Flag indicating if the properties are yet to be decoded. */
+    private volatile boolean propertiesPending = false;
+
+    /** Flag indicating if the payload is yet to be decoded. */
+    private volatile boolean payloadPending = false;
+
+    /** The element containing this message in <code>pendingXML</code>. */
+    private String pendingElement = null;
+
+    /** The XML form of the message from which the properties and/or payload are yet to be decoded. */
+    private XML pendingXML = null;
+
+    /** The properties and payload elements split from the XML form of the message, yet to be parsed. */
+    private XMLSections pendingSections = null;
+
+    /** The binary section from which the properties are yet to be decoded. */
+    private BinaryWireReader pendingPropertiesSection = null;
+
+    /** The binary section from which the payload is yet to be decoded. */
+    private BinaryWireReader pendingPayloadSection = null;
+
     /*
      * Class methods
      */
@@ -93,6 +159,16 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
             if (xmlNamespace == null) {
                 /* Get the name of the XML namespace for Fabric messages */
                 xmlNamespace = config("fabric.xml.namespace", "http://edgware-fabric.org");
+
+                /* Get the format in which messages are sent */
+                String wireFormat = config(ConfigProperties.MESSAGE_WIRE_FORMAT,
+                        ConfigProperties.MESSAGE_WIRE_FORMAT_DEFAULT);
+                useBinaryWireFormat = IWireBinary.WIRE_FORMAT_BINARY.equalsIgnoreCase(wireFormat);
+                useHybridWireFormat = IWireBinary.WIRE_FORMAT_HYBRID.equalsIgnoreCase(wireFormat);
+
+                /* Determine if the properties and payload of inbound messages are to be decoded on demand */
+                useLazyParsing = Boolean.parseBoolean(config(ConfigProperties.MESSAGE_LAZY_PARSING,
+                        ConfigProperties.MESSAGE_LAZY_PARSING_DEFAULT));
             }
         }
 
@@ -117,6 +193,44 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
 
     }
 
+    /**
+     * Constructs a new instance, initialized from the specified instance.
+     * <p>
+     * The properties, routing and payload of the new instance are replicas of those of the source (replicas share
+     * state with their source until one of them is modified). Meta-data is not copied.
+     * </p>
+     *
+     * @param source
+     *            the instance to copy.
+     */
+    protected FabricMessage(FabricMessage source) {
+
+        super(Logger.getLogger("fabric.bus.messages"));
+
+        type = source.type;
+        compactType = source.compactType;
+        uid = source.uid;
+        correlationID = source.correlationID;
+        topic = source.topic;
+
+        MessageProperties sourceProperties = source.getProperties();
+        IMessagePayload sourcePayload = source.getPayload();
+
+        setProperties((sourceProperties != null) ? (MessageProperties) sourceProperties.replicate() : null);
+        setRouting((source.routing != null) ? (IRouting) source.routing.replicate() : null);
+        setPayload((sourcePayload != null) ? (IMessagePayload) sourcePayload.replicate() : null);
+
+        /* These changes shouldn't be reflected in the instance's "modified" status as this is a new instance */
+        metaResetModified();
+
+        /* But we do need to regenerate the XML */
+        invalidateXMLCache();
+
+        /* Listen for changes to embedded objects */
+        addChangeListener(this);
+
+    }
+
     /**
      * @see fabric.bus.messages.IFabricMessage#type()
      */
@@ -125,6 +239,19 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
         return type;
     }
 
+    /**
+     * Answers <code>true</code> if the decoding of the properties and payload of inbound messages can be deferred
+     * until they are first accessed (see <code>ConfigProperties.MESSAGE_LAZY_PARSING</code>).
+     *
+     * @return <code>true</code> if lazy parsing is enabled, <code>false</code> otherwise (including before the first
+     *         message has been constructed).
+     */
+    public static boolean isLazyParsing() {
+
+        return useLazyParsing;
+
+    }
+
     /**
      * @see fabric.bus.messages.IEmbeddedXML#init(java.lang.String, fabric.core.xml.XML)
      */
@@ -132,19 +259,40 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     public void init(String element, XML messageXML) throws Exception {
 
         /* Get the message's unique identifier */
-        uid = messageXML.get(element + "@uid");
+        uid = messageXML.get(UID.in(element));
 
         /* Get the message's correlation ID */
-        correlationID = messageXML.get(element + "@cid");
-
-        /* Get the message properties */
-        properties.init(element, messageXML);
+        correlationID = messageXML.get(CORRELATION_ID.in(element));
 
         /* Get the routing information from the message */
         setRouting(MessageRoutingFactory.construct(element, messageXML));
 
-        /* Get the payload */
-        payload.init(element, messageXML);
+        /* If the properties and payload are only to be decoded when they are first used... */
+        if (deferDecoding) {
+
+            pendingElement = element;
+            pendingXML = messageXML;
+            propertiesPending = true;
+            payloadPending = true;
+
+        } else if (pendingSections != null) {
+
+            /* The properties and payload were split from the message XML, so decode them now */
+            pendingElement = element;
+            pendingXML = messageXML;
+            propertiesPending = true;
+            payloadPending = true;
+            decodePending(true, true);
+
+        } else {
+
+            /* Get the message properties */
+            properties.init(element, messageXML);
+
+            /* Get the payload */
+            payload.init(element, messageXML);
+
+        }
 
         /* These changes shouldn't be reflected in the instance's "modified" status as this is a new instance */
         metaResetModified();
@@ -158,22 +306,22 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     public void embed(String element, XML messageXML) throws Exception {
 
         /* Set the XML namespace */
-        messageXML.set(element + "@xmlns", xmlNamespace);
+        messageXML.set(NAMESPACE.in(element), xmlNamespace);
 
         /* Set the message type */
-        messageXML.set(element + "@t", compactType);
+        messageXML.set(MESSAGE_TYPE.in(element), compactType);
 
         /* Set the message's unique identifier */
-        messageXML.set(element + "@uid", uid);
+        messageXML.set(UID.in(element), uid);
 
         /* If there is a correlation ID... */
         if (correlationID != null) {
             /* Serialize it */
-            messageXML.set(element + "@cid", correlationID);
+            messageXML.set(CORRELATION_ID.in(element), correlationID);
         }
 
         /* If there are any properties associated with this message... */
-        if (properties != null) {
+        if (getProperties() != null) {
             /* Set the message properties */
             properties.embed(element, messageXML);
         }
@@ -185,11 +333,156 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
         }
 
         /* If there is a payload associated with this message... */
-        if (payload != null) {
-            /* Set the payload */
-            payload.embed(element, messageXML);
+        if (getPayload() != null) {
+
+            /* If the payload bytes are to follow the XML on the wire... */
+            if (detachPayload && payload instanceof MessagePayload) {
+                /* Only record the payload encoding */
+                ((MessagePayload) payload).embedDetached(element, messageXML);
+            } else {
+                /* Set the payload */
+                payload.embed(element, messageXML);
+            }
+        }
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        /* Skip the message type (already used to create this instance) */
+        in.readString();
+
+        /* Get the message's unique identifier and correlation ID */
+        uid = in.readString();
+        correlationID = in.readString();
+
+        /* Get the message properties */
+        BinaryWireReader propertiesSection = in.readSection();
+
+        /* Get the routing information from the message */
+        setRouting(MessageRoutingFactory.construct(in.readSection()));
+
+        /* Get the message type specific content */
+        initBody(in.readSection());
+
+        /* Get the payload */
+        BinaryWireReader payloadSection = in.readSection();
+
+        /* If the properties and payload are only to be decoded when they are first used... */
+        if (deferDecoding) {
+
+            pendingPropertiesSection = propertiesSection;
+            propertiesPending = true;
+
+            if (payloadSection.hasRemaining()) {
+                pendingPayloadSection = payloadSection;
+                payloadPending = true;
+            }
+
+        } else {
+
+            properties.init(propertiesSection);
+
+            if (payloadSection.hasRemaining()) {
+                ((IEmbeddedBinary) payload).init(payloadSection);
+            }
+
         }
 
+        /* These changes shouldn't be reflected in the instance's "modified" status as this is a new instance */
+        metaResetModified();
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        /* Set the message type and identifiers */
+        out.writeString(compactType);
+        out.writeString(uid);
+        out.writeString(correlationID);
+
+        /* Set the message properties (copying them unchanged if they have not yet been decoded) */
+        int mark = out.beginSection();
+        BinaryWireReader rawProperties = pendingPropertiesSection;
+        if (propertiesPending && rawProperties != null) {
+            out.writeRaw(rawProperties.remainingBuffer());
+        } else if (properties != null) {
+            properties.embed(out);
+        } else {
+            out.writeVarInt(0);
+        }
+        out.endSection(mark);
+
+        /* Set the routing information (an empty section if there is none) */
+        mark = out.beginSection();
+        if (routing != null) {
+            ((IEmbeddedBinary) routing).embed(out);
+        }
+        out.endSection(mark);
+
+        /* Set the message type specific content */
+        mark = out.beginSection();
+        embedBody(out);
+        out.endSection(mark);
+
+        /* Set the payload (an empty section if there is none, copied unchanged if it has not yet been decoded) */
+        mark = out.beginSection();
+        BinaryWireReader rawPayload = pendingPayloadSection;
+        if (payloadPending && rawPayload != null) {
+            out.writeRaw(rawPayload.remainingBuffer());
+        } else if (payload != null) {
+            ((IEmbeddedBinary) payload).embed(out);
+        }
+        out.endSection(mark);
+
+    }
+
+    /**
+     * Initializes the message type specific content of this instance from a binary message. Subclasses that serialize
+     * additional state in <code>embed(String, XML)</code> must override this method (and <code>embedBody()</code>).
+     *
+     * @param in
+     *            the binary message section containing the content.
+     *
+     * @throws Exception
+     *             thrown if the instance cannot be initialized from the message.
+     */
+    protected void initBody(BinaryWireReader in) throws Exception {
+
+    }
+
+    /**
+     * Serializes the message type specific content of this instance into a binary message.
+     *
+     * @param out
+     *            the binary message into which the content will be serialized.
+     *
+     * @throws Exception
+     *             thrown if the instance cannot be embedded.
+     */
+    protected void embedBody(BinaryWireWriter out) throws Exception {
+
+    }
+
+    /**
+     * Answers <code>true</code> if this message, including its routing and payload, can be serialized in the binary
+     * wire format.
+     *
+     * @return <code>true</code> if the message can be encoded as binary, <code>false</code> otherwise.
+     */
+    protected boolean isBinaryEncodable() {
+
+        return (routing == null || routing instanceof IEmbeddedBinary)
+                && (payload == null || payload instanceof IEmbeddedBinary);
+
     }
 
     /**
@@ -198,7 +491,7 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     @Override
     public String getProperty(String key) {
 
-        return properties.getProperty(key);
+        return getProperties().getProperty(key);
 
     }
 
@@ -208,7 +501,7 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     @Override
     public void setProperty(String key, String value) {
 
-        properties.setProperty(key, value);
+        getProperties().setProperty(key, value);
 
     }
 
@@ -218,6 +511,10 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     @Override
     public MessageProperties getProperties() {
 
+        if (propertiesPending) {
+            decodePending(true, false);
+        }
+
         return properties;
 
     }
@@ -239,8 +536,10 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
 
         }
 
-        /* Record the new properties */
+        /* Record the new properties (replacing any yet to be decoded) */
         this.properties = properties;
+        propertiesPending = false;
+        pendingPropertiesSection = null;
 
         /* If there is currently a properties object... */
         if (properties != null) {
@@ -261,7 +560,7 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     @Override
     public Iterator<String> propertyKeys() {
 
-        return properties.propertyKeys();
+        return getProperties().propertyKeys();
 
     }
 
@@ -382,6 +681,10 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     @Override
     public IMessagePayload getPayload() {
 
+        if (payloadPending) {
+            decodePending(false, true);
+        }
+
         return payload;
 
     }
@@ -403,8 +706,10 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
 
         }
 
-        /* Record the new payload */
+        /* Record the new payload (replacing any yet to be decoded) */
         this.payload = payload;
+        payloadPending = false;
+        pendingPayloadSection = null;
 
         /* If there is currently a payload object... */
         if (payload != null) {
@@ -442,16 +747,186 @@ public abstract class FabricMessage extends Notifier implements IFabricMessage {
     @Override
     public byte[] toWireBytes() throws Exception {
 
-        return toXML().toBytes();
+        byte[] wireBytes = null;
+
+        /* If this message is to be sent in binary... */
+        if (useBinaryWireFormat && isBinaryEncodable()) {
+
+            if (binaryCache == null) {
+
+                BinaryWireWriter out = new BinaryWireWriter();
+                out.writeByte(IWireBinary.MAGIC);
+                out.writeByte(IWireBinary.VERSION);
+                out.writeByte(IWireBinary.FLAGS_NONE);
+                embed(out);
+                binaryCache = out.toByteArray();
+
+            }
+
+            wireBytes = binaryCache;
+
+        }
+        /* Else if the payload is to be sent as raw bytes following the XML... */
+        else if (useHybridWireFormat && getPayload() instanceof MessagePayload
+                && payload.getPayloadEncoding() == IMessagePayload.PAYLOAD_BYTES && payload.getPayloadBuffer() != null) {
+
+            if (binaryCache == null) {
+
+                /* Generate the XML without the payload bytes */
+                XML headerXML = new XML();
+                detachPayload = true;
+                try {
+                    embed("/fab", headerXML);
+                } finally {
+                    detachPayload = false;
+                }
+
+                BinaryWireWriter out = new BinaryWireWriter();
+                out.writeByte(IWireBinary.MAGIC);
+                out.writeByte(IWireBinary.VERSION);
+                out.writeByte(IWireBinary.FLAG_XML_HEADER);
+                int mark = out.beginSection();
+                byte[] headerBytes = headerXML.toBytes();
+                out.writeRaw(headerBytes, 0, headerBytes.length);
+                out.endSection(mark);
+                out.writeBytes(payload.getPayloadBuffer());
+                binaryCache = out.toByteArray();
+
+            }
+
+            wireBytes = binaryCache;
+
+        } else {
+
+            /* Keep the bytes so that a message forwarded to several destinations is only serialized once */
+            if (binaryCache == null) {
+                binaryCache = toXML().toBytes();
+            }
+
+            wireBytes = binaryCache;
+
+        }
+
+        return wireBytes;
+
+    }
+
+    /**
+     * Requests that the properties and payload of this message are not decoded by <code>init()</code>, but on first
+     * access. This is only honoured if lazy parsing is enabled in the configuration (see
+     * <code>ConfigProperties.MESSAGE_LAZY_PARSING</code>), and must only be used when the source of the message will
+     * not be modified after <code>init()</code> has been called.
+     */
+    public void deferDecoding() {
+
+        deferDecoding = useLazyParsing;
+
+    }
+
+    /**
+     * Requests that the properties and payload of this message, split from the XML form of the message before the rest
+     * of it was parsed, are not decoded by <code>init()</code>, but on first access. If lazy parsing is not enabled in
+     * the configuration they are decoded by <code>init()</code>.
+     *
+     * @param sections
+     *            the message XML split into its envelope (from which this message will be initialized) and its
+     *            properties and payload elements.
+     */
+    public void deferDecoding(XMLSections sections) {
+
+        deferDecoding = useLazyParsing;
+        pendingSections = sections;
+
+    }
+
+    /**
+     * Decodes the properties and/or payload if their decoding was deferred by <code>init()</code>.
+     * <p>
+     * Decoding does not change the <em>modified</em> status of the message. If decoding fails the source is retained,
+     * so that the message does not appear to be empty, and the failure is reported to the caller (and to any later
+     * caller).
+     * </p>
+     *
+     * @param decodeProperties
+     *            <code>true</code> if the properties are to be decoded.
+     *
+     * @param decodePayload
+     *            <code>true</code> if the payload is to be decoded.
+     *
+     * @throws IllegalStateException
+     *             thrown if the message cannot be decoded.
+     */
+    private synchronized void decodePending(boolean decodeProperties, boolean decodePayload) {
+
+        boolean wasModified = isModified;
+
+        try {
+
+            if (decodeProperties && propertiesPending) {
+
+                if (pendingPropertiesSection != null) {
+                    properties.init(pendingPropertiesSection);
+                } else if (pendingSections != null) {
+                    XML propertiesXML = pendingSections.parseSection(PROPERTIES_ELEMENT);
+                    if (propertiesXML != null) {
+                        properties.init(propertiesXML.getDocumentElementPath(), propertiesXML);
+                    }
+                } else {
+                    properties.init(pendingElement, pendingXML);
+                }
+
+                propertiesPending = false;
+                pendingPropertiesSection = null;
+
+            }
+
+            if (decodePayload && payloadPending) {
+
+                if (pendingPayloadSection != null) {
+                    ((IEmbeddedBinary) payload).init(pendingPayloadSection);
+                } else if (pendingSections != null) {
+                    XML payloadXML = pendingSections.parseSection(PAYLOAD_ELEMENT);
+                    if (payloadXML != null) {
+                        payload.init(payloadXML.getDocumentElementPath(), payloadXML);
+                    }
+                } else {
+                    payload.init(pendingElement, pendingXML);
+                }
+
+                payloadPending = false;
+                pendingPayloadSection = null;
+
+            }
+
+        } catch (Exception e) {
+
+            logger.log(Level.FINEST, "Full exception:\n", e);
+            throw new IllegalStateException("Failed to decode message " + uid + ": " + e.getMessage(), e);
+
+        } finally {
+
+            /* Release the source message once there is nothing left to decode from it */
+            if (!propertiesPending && !payloadPending) {
+                pendingElement = null;
+                pendingXML = null;
+                pendingSections = null;
+            }
+
+            if (!wasModified) {
+                metaResetModified();
+            }
+
+        }
 
     }
 
     /**
-     * Invalidates the cached XML for this message.
+     * Invalidates the cached XML (and binary) forms of this message.
      */
     protected void invalidateXMLCache() {
 
         xmlCache = null;
+        binaryCache = null;
 
     }
 
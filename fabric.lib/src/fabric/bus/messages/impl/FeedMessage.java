@@ -12,7 +12,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 
 import fabric.ServiceDescriptor;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
 import fabric.bus.messages.IFeedMessage;
+import fabric.bus.messages.IReplicate;
 import fabric.core.xml.XML;
 
 /**
@@ -61,6 +64,24 @@ public class FeedMessage extends FabricMessage implements IFeedMessage {
 
     }
 
+    /**
+     * Constructs a new instance, initialized from the specified instance.
+     *
+     * @param source
+     *            the instance to copy.
+     */
+    protected FeedMessage(FeedMessage source) {
+
+        super(source);
+
+        serviceDescriptor = source.serviceDescriptor;
+        setSubscriptions((TaskSubscriptions) source.subscriptions.replicate());
+
+        /* These changes shouldn't be reflected in the instance's "modified" status as this is a new instance */
+        metaResetModified();
+
+    }
+
     /**
      * @see fabric.bus.messages.impl.FabricMessage#init(java.lang.String, fabric.core.xml.XML)
      */
@@ -90,6 +111,28 @@ public class FeedMessage extends FabricMessage implements IFeedMessage {
 
     }
 
+    /**
+     * @see fabric.bus.messages.impl.FabricMessage#initBody(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    protected void initBody(BinaryWireReader in) throws Exception {
+
+        /* Get the list of subscriptions in this message */
+        subscriptions.init(in);
+
+    }
+
+    /**
+     * @see fabric.bus.messages.impl.FabricMessage#embedBody(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    protected void embedBody(BinaryWireWriter out) throws Exception {
+
+        /* Set the list of subscriptions in this message */
+        subscriptions.embed(out);
+
+    }
+
     /**
      * Makes a deep copy of a table of task and client IDs.
      * <p>
@@ -269,4 +312,25 @@ public class FeedMessage extends FabricMessage implements IFeedMessage {
         fireChangeNotification("subscriptions", oldSubscriptions, subscriptions);
 
     }
+
+    /**
+     * Answers a copy of this message. The copy shares state with this instance until one of them is modified.
+     *
+     * @see fabric.bus.messages.impl.FabricMessage#replicate()
+     */
+    @Override
+    public IReplicate replicate() {
+
+        IReplicate replica = null;
+
+        /* If this is exactly a feed message (subclasses may hold additional state)... */
+        if (getClass() == FeedMessage.class) {
+            replica = new FeedMessage(this);
+        } else {
+            replica = super.replicate();
+        }
+
+        return replica;
+
+    }
 }
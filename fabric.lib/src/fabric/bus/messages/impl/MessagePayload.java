@@ -8,20 +8,27 @@
 package fabric.bus.messages.impl;
 
 import java.beans.PropertyChangeEvent;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import fabric.Notifier;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
 import fabric.bus.messages.EmbeddedXMLFactory;
+import fabric.bus.messages.IEmbeddedBinary;
 import fabric.bus.messages.IEmbeddedXML;
 import fabric.bus.messages.IMessagePayload;
 import fabric.bus.messages.IReplicate;
+import fabric.core.xml.CompiledXMLPath;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
 
 /**
  * Class representing Fabric message payload.
  */
-public class MessagePayload extends Notifier implements IMessagePayload {
+public class MessagePayload extends Notifier implements IMessagePayload, IEmbeddedBinary {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2012";
@@ -44,6 +51,18 @@ public class MessagePayload extends Notifier implements IMessagePayload {
     /** An XML payload */
     public static final String PAYLOAD_XML_STRING = "xml";
 
+    /** A binary payload carried as raw bytes following the XML form of the message (see <code>IWireBinary</code>) */
+    public static final String PAYLOAD_RAW_STRING = "raw";
+
+    /** The path of the payload encoding in a standalone payload document. */
+    private static final CompiledXMLPath PAYLOAD_ENCODING_PATH = CompiledXMLPath.compile("/pay@enc");
+
+    /** The path of the payload encoding, relative to the message element. */
+    private static final RelativeXMLPath PAYLOAD_ENCODING = new RelativeXMLPath("/pay@enc");
+
+    /** The path of the payload, relative to the message element. */
+    private static final RelativeXMLPath PAYLOAD = new RelativeXMLPath("/pay");
+
     /*
      * Class fields
      */
@@ -57,6 +76,12 @@ public class MessagePayload extends Notifier implements IMessagePayload {
     /** Cache of the XML form of the message. */
     private XML xmlCache = null;
 
+    /**
+     * Flag indicating if the payload object is shared with a replica of this instance, and must therefore be copied
+     * before it is handed out.
+     */
+    private boolean isShared = false;
+
     /*
      * Class methods
      */
@@ -83,38 +108,46 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         payloadEncoding = source.payloadEncoding;
 
-        if (source.payload != null) {
+        /*
+         * Share the source's payload. Text payloads are immutable; byte and XML payloads are copied by whichever
+         * instance first hands them out for (potential) modification.
+         */
+        payload = source.payload;
+        isShared = (payloadEncoding != PAYLOAD_TEXT);
+        source.isShared = source.isShared || isShared;
 
-            switch (payloadEncoding) {
+        xmlCache = null;
+    }
 
-                case PAYLOAD_TEXT:
+    /**
+     * Ensures that the payload object is not shared with any other instance before it is made available to code that
+     * may modify it.
+     */
+    private void copyOnWrite() {
 
-                    payload = source.payload;
-                    break;
+        if (isShared && payload != null) {
+
+            switch (payloadEncoding) {
 
                 case PAYLOAD_XML:
 
-                    IReplicate sourceXML = (IReplicate) payload;
-                    payload = sourceXML.replicate();
+                    payload = ((IReplicate) payload).replicate();
                     break;
 
-                default:
-
-                    logger.log(Level.WARNING,
-                            "Internal error; unrecognized payload encoding ({0}), message will be encode as bytes",
-                            payloadEncoding);
-
                 case PAYLOAD_BYTES:
 
-                    byte[] sourceBytes = (byte[]) source.payload;
-                    payload = new byte[sourceBytes.length];
-                    System.arraycopy(sourceBytes, 0, payload, 0, sourceBytes.length);
+                    /* Buffers are read-only, so only arrays need to be copied */
+                    if (payload instanceof byte[]) {
+                        byte[] sharedBytes = (byte[]) payload;
+                        payload = Arrays.copyOf(sharedBytes, sharedBytes.length);
+                    }
                     break;
 
             }
         }
 
-        xmlCache = null;
+        isShared = false;
+
     }
 
     /**
@@ -125,6 +158,7 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         /* Get the payload */
         getPayloadFromMessage(element, messageXML);
+        isShared = false;
 
         xmlCache = null;
 
@@ -141,6 +175,88 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
     }
 
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        payloadEncoding = in.readByte();
+        isShared = false;
+
+        switch (payloadEncoding) {
+
+            case PAYLOAD_UNKNOWN:
+
+                payload = null;
+                break;
+
+            case PAYLOAD_TEXT:
+
+                payload = in.readString();
+                break;
+
+            case PAYLOAD_BYTES:
+
+                /* A view of the received message; the bytes are not copied */
+                payload = in.readByteBuffer();
+                break;
+
+            case PAYLOAD_XML:
+
+                /* The embedded XML payload is carried as an XML document */
+                XML payloadXML = new XML(in.readBytes());
+                payload = EmbeddedXMLFactory.create("/pay", payloadXML);
+                break;
+
+            default:
+
+                throw new IllegalArgumentException("Unrecognized payload encoding in binary message: "
+                        + payloadEncoding);
+
+        }
+
+        xmlCache = null;
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        int encoding = (payload != null) ? payloadEncoding : PAYLOAD_UNKNOWN;
+        out.writeByte(encoding);
+
+        switch (encoding) {
+
+            case PAYLOAD_TEXT:
+
+                out.writeString((String) payload);
+                break;
+
+            case PAYLOAD_BYTES:
+
+                /* Raw bytes; no base 64 encoding is required */
+                if (payload instanceof ByteBuffer) {
+                    out.writeBytes((ByteBuffer) payload);
+                } else {
+                    out.writeBytes((byte[]) payload);
+                }
+                break;
+
+            case PAYLOAD_XML:
+
+                XML payloadXML = new XML();
+                payloadXML.set(PAYLOAD_ENCODING_PATH, payload.getClass().getName());
+                ((IEmbeddedXML) payload).embed("/pay", payloadXML);
+                out.writeBytes(payloadXML.toBytes());
+                break;
+
+        }
+    }
+
     /**
      * Gets the payload and payload-type from the message. Several payload types are supported:
      * <ul>
@@ -160,7 +276,7 @@ public class MessagePayload extends Notifier implements IMessagePayload {
     private void getPayloadFromMessage(String element, XML messageXML) throws Exception {
 
         /* Get the encoding from the message */
-        String encodingString = messageXML.get(element + "/pay@enc");
+        String encodingString = messageXML.get(PAYLOAD_ENCODING.in(element));
 
         /* If there is a payload... */
         if (encodingString != null) {
@@ -170,13 +286,19 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
                 /* It's a simple ASCII string */
                 payloadEncoding = PAYLOAD_TEXT;
-                payload = messageXML.get(element + "/pay");
+                payload = messageXML.get(PAYLOAD.in(element));
 
             } else if (encodingString.equals(PAYLOAD_BYTES_STRING)) {
 
                 /* It's a base 64 string */
                 payloadEncoding = PAYLOAD_BYTES;
-                payload = messageXML.getBytes(element + "/pay");
+                payload = messageXML.getBytes(PAYLOAD.in(element));
+
+            } else if (encodingString.equals(PAYLOAD_RAW_STRING)) {
+
+                /* The bytes follow the XML on the wire, and will be set separately */
+                payloadEncoding = PAYLOAD_BYTES;
+                payload = null;
 
             } else {
 
@@ -207,20 +329,20 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
                 case PAYLOAD_TEXT:
 
-                    messageXML.set(element + "/pay@enc", PAYLOAD_TEXT_STRING);
-                    messageXML.set(element + "/pay", (String) payload);
+                    messageXML.set(PAYLOAD_ENCODING.in(element), PAYLOAD_TEXT_STRING);
+                    messageXML.set(PAYLOAD.in(element), (String) payload);
                     break;
 
                 case PAYLOAD_BYTES:
 
-                    messageXML.set(element + "/pay@enc", PAYLOAD_BYTES_STRING);
-                    messageXML.setBytes(element + "/pay", (byte[]) payload);
+                    messageXML.set(PAYLOAD_ENCODING.in(element), PAYLOAD_BYTES_STRING);
+                    messageXML.setBytes(PAYLOAD.in(element), payloadArray());
                     break;
 
                 case PAYLOAD_XML:
 
                     IEmbeddedXML embeddedXML = (IEmbeddedXML) payload;
-                    messageXML.set(element + "/pay@enc", payload.getClass().getName());
+                    messageXML.set(PAYLOAD_ENCODING.in(element), payload.getClass().getName());
                     embeddedXML.embed(element + "/pay", messageXML);
                     break;
 
@@ -228,6 +350,50 @@ public class MessagePayload extends Notifier implements IMessagePayload {
         }
     }
 
+    /**
+     * Serializes this instance into the XML form of a message that will be followed on the wire by the raw payload
+     * bytes. Byte payloads are recorded with the encoding <code>raw</code> but their content is omitted; other
+     * payloads are embedded in full.
+     *
+     * @param element
+     *            the element that will contain the XML.
+     *
+     * @param messageXML
+     *            the XML into which this instance will be serialized.
+     *
+     * @throws Exception
+     */
+    void embedDetached(String element, XML messageXML) throws Exception {
+
+        if (payload != null && payloadEncoding == PAYLOAD_BYTES) {
+            messageXML.set(PAYLOAD_ENCODING.in(element), PAYLOAD_RAW_STRING);
+        } else {
+            setPayloadInMessage(element, messageXML);
+        }
+
+    }
+
+    /**
+     * Answers the byte payload as an array, without modifying this instance.
+     *
+     * @return the payload bytes (which may be shared, and must not be modified).
+     */
+    private byte[] payloadArray() {
+
+        byte[] payloadArray = null;
+
+        if (payload instanceof ByteBuffer) {
+            ByteBuffer payloadBuffer = ((ByteBuffer) payload).duplicate();
+            payloadArray = new byte[payloadBuffer.remaining()];
+            payloadBuffer.get(payloadArray);
+        } else {
+            payloadArray = (byte[]) payload;
+        }
+
+        return payloadArray;
+
+    }
+
     /**
      * @see fabric.bus.messages.IMessagePayload#getPayload()
      */
@@ -361,6 +527,7 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         Object oldPayload = this.payload;
         this.payload = payload;
+        isShared = false;
         payloadEncoding = PAYLOAD_TEXT;
         fireChangeNotification("payload", oldPayload, this.payload);
 
@@ -376,6 +543,18 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         if (payloadEncoding == PAYLOAD_BYTES) {
 
+            if (payload instanceof ByteBuffer) {
+
+                /* The caller may modify the array, so switch from the (read-only) buffer to a private copy */
+                payload = payloadArray();
+                isShared = false;
+
+            } else {
+
+                copyOnWrite();
+
+            }
+
             payloadBytes = (byte[]) payload;
 
         } else if (payloadEncoding == PAYLOAD_UNKNOWN) {
@@ -400,11 +579,52 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         Object oldPayload = this.payload;
         this.payload = payload;
+        isShared = false;
         payloadEncoding = PAYLOAD_BYTES;
         fireChangeNotification("payload", oldPayload, payload);
 
     }
 
+    /**
+     * @see fabric.bus.messages.IMessagePayload#getPayloadBuffer()
+     */
+    @Override
+    public ByteBuffer getPayloadBuffer() {
+
+        ByteBuffer payloadBuffer = null;
+
+        if (payloadEncoding == PAYLOAD_BYTES) {
+
+            if (payload instanceof ByteBuffer) {
+                payloadBuffer = ((ByteBuffer) payload).duplicate();
+            } else if (payload != null) {
+                payloadBuffer = ByteBuffer.wrap((byte[]) payload).asReadOnlyBuffer();
+            }
+
+        } else if (payloadEncoding != PAYLOAD_UNKNOWN) {
+
+            throw new IllegalStateException("Wrong payload encoding (" + payloadEncoding + ")");
+
+        }
+
+        return payloadBuffer;
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IMessagePayload#setPayloadBuffer(java.nio.ByteBuffer)
+     */
+    @Override
+    public void setPayloadBuffer(ByteBuffer payload) {
+
+        Object oldPayload = this.payload;
+        this.payload = (payload != null) ? payload.slice().asReadOnlyBuffer() : null;
+        isShared = false;
+        payloadEncoding = PAYLOAD_BYTES;
+        fireChangeNotification("payload", oldPayload, this.payload);
+
+    }
+
     /**
      * @see fabric.bus.messages.IMessagePayload#getPayloadXML()
      */
@@ -415,6 +635,7 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         if (payloadEncoding == PAYLOAD_XML) {
 
+            copyOnWrite();
             payloadXML = (IEmbeddedXML) payload;
 
         } else if (payloadEncoding == PAYLOAD_UNKNOWN) {
@@ -439,6 +660,7 @@ public class MessagePayload extends Notifier implements IMessagePayload {
 
         Object oldPayload = this.payload;
         this.payload = payload;
+        isShared = false;
         payloadEncoding = PAYLOAD_XML;
         fireChangeNotification("payload", oldPayload, payload);
 
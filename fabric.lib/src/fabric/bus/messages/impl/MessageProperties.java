@@ -8,19 +8,24 @@
 package fabric.bus.messages.impl;
 
 import java.beans.PropertyChangeEvent;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.logging.Logger;
 
 import fabric.Notifier;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
+import fabric.bus.messages.IEmbeddedBinary;
 import fabric.bus.messages.IEmbeddedXML;
 import fabric.bus.messages.IReplicate;
+import fabric.core.xml.CompiledXMLPath;
 import fabric.core.xml.XML;
 
 /**
  * Class representing a set of properties (name/value pairs) embedded in a Fabric message.
  */
-public class MessageProperties extends Notifier implements IEmbeddedXML {
+public class MessageProperties extends Notifier implements IEmbeddedXML, IEmbeddedBinary {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2016";
@@ -34,6 +39,12 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
     /** The message's properties (a table of name/value pairs). */
     private HashMap<String, String> properties = new HashMap<String, String>();
 
+    /**
+     * Flag indicating if the properties table is shared with a replica of this instance, and must therefore be copied
+     * before it is modified.
+     */
+    private boolean isShared = false;
+
     /** Cache of the XML form of the message. */
     private XML xmlCache = null;
 
@@ -56,11 +67,27 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
     public MessageProperties(MessageProperties source) {
 
         this();
-        properties = (HashMap<String, String>) source.properties.clone();
+
+        /* Share the source's properties; they will be copied by whichever instance is modified first */
+        properties = source.properties;
+        isShared = true;
+        source.isShared = true;
         xmlCache = null;
 
     }
 
+    /**
+     * Ensures that the properties table is not shared with any other instance before it is modified.
+     */
+    private void copyOnWrite() {
+
+        if (isShared) {
+            properties = (HashMap<String, String>) properties.clone();
+            isShared = false;
+        }
+
+    }
+
     /**
      * @see fabric.bus.messages.IEmbeddedXML#init(java.lang.String, fabric.core.xml.XML)
      */
@@ -68,6 +95,7 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
     public void init(String element, XML messageXML) throws Exception {
 
         properties = new HashMap<String, String>();
+        isShared = false;
 
         /* Get the XML paths for the properties */
         String elementPath = XML.expandPath(element);
@@ -78,11 +106,11 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
         for (int p = 0; p < propertyPaths.length; p++) {
 
             /* Get the property name */
-            String name = messageXML.get(propertyPaths[p] + "@n");
+            String name = messageXML.get(CompiledXMLPath.compile(propertyPaths[p] + "@n"));
 
             /* Get the property value */
             p++;
-            String value = messageXML.get(propertyPaths[p]);
+            String value = messageXML.get(CompiledXMLPath.compile(propertyPaths[p]));
 
             /* Save it away */
             properties.put(name, value);
@@ -119,6 +147,46 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
 
     }
 
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        properties = new HashMap<String, String>();
+        isShared = false;
+
+        /* For each property... */
+        for (int p = in.readVarInt(); p > 0; p--) {
+
+            String name = in.readString();
+            String value = in.readString();
+            properties.put(name, value);
+
+        }
+
+        xmlCache = null;
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        out.writeVarInt(properties.size());
+
+        /* For each property... */
+        for (Iterator<String> i = properties.keySet().iterator(); i.hasNext();) {
+
+            String name = i.next();
+            out.writeString(name);
+            out.writeString(properties.get(name));
+
+        }
+    }
+
     /**
      * Gets the value of the specified property.
      *
@@ -148,6 +216,7 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
     public void setProperty(String key, String value) {
 
         String oldValue = properties.get(key);
+        copyOnWrite();
 
         /* If a value has been supplied... */
         if (value != null) {
@@ -171,7 +240,7 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
      */
     public Iterator<String> propertyKeys() {
 
-        return properties.keySet().iterator();
+        return Collections.unmodifiableSet(properties.keySet()).iterator();
 
     }
 
@@ -180,7 +249,8 @@ public class MessageProperties extends Notifier implements IEmbeddedXML {
      */
     public void empty() {
 
-        properties.clear();
+        properties = new HashMap<String, String>();
+        isShared = false;
         fireChangeNotification("properties", null, null);
 
     }
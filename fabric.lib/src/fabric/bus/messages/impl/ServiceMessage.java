@@ -11,7 +11,10 @@ import java.util.HashMap;
 
 import fabric.Fabric;
 import fabric.bus.feeds.impl.ServiceList;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
 import fabric.bus.messages.IServiceMessage;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
 
 /**
@@ -22,6 +25,24 @@ public class ServiceMessage extends FabricMessage implements IServiceMessage {
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2014";
 
+    /*
+     * Class constants
+     */
+
+    /* The paths of the service message attributes, relative to the message element */
+
+    private static final RelativeXMLPath PLUGIN_FAMILY = new RelativeXMLPath('@' + ATTRIBUTE_PLUGIN_FAMILY);
+
+    private static final RelativeXMLPath FABRIC_SERVICE = new RelativeXMLPath('@' + ATTRIBUTE_FABRIC_SERVICE);
+
+    private static final RelativeXMLPath ACTION_EN_ROUTE = new RelativeXMLPath('@' + ATTRIBUTE_ACTION_IN_FLIGHT);
+
+    private static final RelativeXMLPath NOTIFICATION_REQUIRED = new RelativeXMLPath('@'
+            + ATTRIBUTE_NOTIFICATION_REQUIRED);
+
+    private static final RelativeXMLPath NOTIFICATION_TIMEOUT = new RelativeXMLPath('@'
+            + ATTRIBUTE_NOTIFICATION_TIMEOUT);
+
     /*
      * Class fields
      */
@@ -87,28 +108,27 @@ public class ServiceMessage extends FabricMessage implements IServiceMessage {
         super.init(element, messageXML);
 
         /* Get the service family name */
-        this.serviceFamilyName = messageXML.get(element + '@' + IServiceMessage.ATTRIBUTE_PLUGIN_FAMILY);
+        this.serviceFamilyName = messageXML.get(PLUGIN_FAMILY.in(element));
 
         /* Get the service name (i.e. the class name) */
-        this.compactServiceName = messageXML.get(element + '@' + IServiceMessage.ATTRIBUTE_FABRIC_SERVICE);
+        this.compactServiceName = messageXML.get(FABRIC_SERVICE.in(element));
         String className = Fabric.longName(compactServiceName);
         this.serviceName = (className != null) ? className : compactServiceName;
 
         /* Get the "action en route" flag */
-        String actionEnRouteString = messageXML.get(element + '@' + IServiceMessage.ATTRIBUTE_ACTION_IN_FLIGHT);
+        String actionEnRouteString = messageXML.get(ACTION_EN_ROUTE.in(element));
         if (actionEnRouteString != null) {
             this.actionEnRoute = Boolean.parseBoolean(actionEnRouteString);
         }
 
         /* Get the "notification required" flag */
-        String notificationString = messageXML.get(element + '@' + IServiceMessage.ATTRIBUTE_NOTIFICATION_REQUIRED);
+        String notificationString = messageXML.get(NOTIFICATION_REQUIRED.in(element));
         if (notificationString != null) {
             this.notification = Boolean.parseBoolean(notificationString);
         }
 
         /* Get the "notification timeout" value */
-        String notificationTimeoutString = messageXML.get(element + '@'
-                + IServiceMessage.ATTRIBUTE_NOTIFICATION_TIMEOUT);
+        String notificationTimeoutString = messageXML.get(NOTIFICATION_TIMEOUT.in(element));
         if (notificationTimeoutString != null) {
             this.notificationTimeout = Integer.parseInt(notificationTimeoutString);
         }
@@ -130,20 +150,19 @@ public class ServiceMessage extends FabricMessage implements IServiceMessage {
         super.embed(element, messageXML);
 
         /* Set the service family name */
-        messageXML.set(element + '@' + IServiceMessage.ATTRIBUTE_PLUGIN_FAMILY, serviceFamilyName);
+        messageXML.set(PLUGIN_FAMILY.in(element), serviceFamilyName);
 
         /* Set the service name (i.e. the class name) */
-        messageXML.set(element + '@' + IServiceMessage.ATTRIBUTE_FABRIC_SERVICE, compactServiceName);
+        messageXML.set(FABRIC_SERVICE.in(element), compactServiceName);
 
         /* Set the "action en route" flag */
-        messageXML.set(element + '@' + IServiceMessage.ATTRIBUTE_ACTION_IN_FLIGHT, Boolean.toString(actionEnRoute));
+        messageXML.set(ACTION_EN_ROUTE.in(element), Boolean.toString(actionEnRoute));
 
         /* Set the "notification required" flag */
-        messageXML.set(element + '@' + IServiceMessage.ATTRIBUTE_NOTIFICATION_REQUIRED, Boolean.toString(notification));
+        messageXML.set(NOTIFICATION_REQUIRED.in(element), Boolean.toString(notification));
 
         /* Set the "notification timeout" value */
-        messageXML.set(element + '@' + IServiceMessage.ATTRIBUTE_NOTIFICATION_TIMEOUT, Integer
-                .toString(notificationTimeout));
+        messageXML.set(NOTIFICATION_TIMEOUT.in(element), Integer.toString(notificationTimeout));
 
         /* If there is a service list associated with this message... */
         if (serviceList != null) {
@@ -152,6 +171,52 @@ public class ServiceMessage extends FabricMessage implements IServiceMessage {
         }
     }
 
+    /**
+     * @see fabric.bus.messages.impl.FabricMessage#initBody(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    protected void initBody(BinaryWireReader in) throws Exception {
+
+        /* Get the service family and service name (i.e. the class name) */
+        this.serviceFamilyName = in.readString();
+        this.compactServiceName = in.readString();
+        String className = Fabric.longName(compactServiceName);
+        this.serviceName = (className != null) ? className : compactServiceName;
+
+        /* Get the flags and notification timeout */
+        this.actionEnRoute = in.readBoolean();
+        this.notification = in.readBoolean();
+        this.notificationTimeout = in.readVarInt();
+
+        /* Get the list of feeds */
+        serviceList.init(in);
+
+    }
+
+    /**
+     * @see fabric.bus.messages.impl.FabricMessage#embedBody(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    protected void embedBody(BinaryWireWriter out) throws Exception {
+
+        /* Set the service family and service name (i.e. the class name) */
+        out.writeString(serviceFamilyName);
+        out.writeString(compactServiceName);
+
+        /* Set the flags and notification timeout */
+        out.writeBoolean(actionEnRoute);
+        out.writeBoolean(notification);
+        out.writeVarInt(Math.max(notificationTimeout, 0));
+
+        /* Set the list of feeds */
+        if (serviceList != null) {
+            serviceList.embed(out);
+        } else {
+            out.writeVarInt(0);
+        }
+
+    }
+
     /**
      * Answers the name corresponding to the specified resource type ID.
      *
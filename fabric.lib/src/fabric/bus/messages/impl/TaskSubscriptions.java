@@ -9,20 +9,25 @@ package fabric.bus.messages.impl;
 
 import java.beans.PropertyChangeEvent;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
 
 import fabric.Notifier;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
+import fabric.bus.messages.IEmbeddedBinary;
 import fabric.bus.messages.IReplicate;
 import fabric.bus.messages.ITaskSubscriptions;
+import fabric.core.xml.CompiledXMLPath;
 import fabric.core.xml.XML;
 
 /**
  * Class representing the list of client subscriptions associated with a task.
  */
-public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
+public class TaskSubscriptions extends Notifier implements ITaskSubscriptions, IEmbeddedBinary {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2012";
@@ -37,6 +42,12 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
      */
     private HashMap<String, ArrayList<String>> taskSubscriptions = new HashMap<String, ArrayList<String>>();
 
+    /**
+     * Flag indicating if the subscriptions table is shared with a replica of this instance, and must therefore be
+     * copied before it is modified.
+     */
+    private boolean isShared = false;
+
     /** Cache of the XML form of the message. */
     private XML xmlCache = null;
 
@@ -59,20 +70,61 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
 
         this();
 
-        /* For each set of subscriptions in the source... */
-        for (Iterator<String> s = source.taskSubscriptions.keySet().iterator(); s.hasNext();) {
+        /* Share the source's subscriptions; they will be copied by whichever instance is modified first */
+        taskSubscriptions = source.taskSubscriptions;
+        isShared = true;
+        source.isShared = true;
+
+        xmlCache = null;
+    }
+
+    /**
+     * Ensures that the subscriptions table (and the client lists that it contains) is not shared with any other
+     * instance before it is modified.
+     */
+    private void copyOnWrite() {
+
+        if (isShared) {
+
+            HashMap<String, ArrayList<String>> copy = new HashMap<String, ArrayList<String>>();
+
+            /* For each set of subscriptions... */
+            for (Iterator<String> s = taskSubscriptions.keySet().iterator(); s.hasNext();) {
 
-            /* Get the next list of client IDs */
-            String nextKey = s.next();
-            ArrayList<String> nextClientList = source.taskSubscriptions.get(nextKey);
+                /* Get the next list of client IDs */
+                String nextKey = s.next();
+                ArrayList<String> nextClientList = taskSubscriptions.get(nextKey);
 
-            /* Clone and save */
-            nextClientList = (nextClientList != null) ? (ArrayList<String>) nextClientList.clone() : null;
-            taskSubscriptions.put(nextKey, nextClientList);
+                /* Clone and save */
+                nextClientList = (nextClientList != null) ? new ArrayList<String>(nextClientList) : null;
+                copy.put(nextKey, nextClientList);
+
+            }
+
+            taskSubscriptions = copy;
+            isShared = false;
 
         }
+    }
 
-        xmlCache = null;
+    /**
+     * Lookup the list of client IDs subscribed to a task, creating it if required.
+     *
+     * @param task
+     *            the task ID.
+     *
+     * @return the list of client IDs.
+     */
+    private ArrayList<String> lookupClients(String task) {
+
+        ArrayList<String> clients = taskSubscriptions.get(task);
+
+        if (clients == null) {
+            clients = new ArrayList<String>();
+            taskSubscriptions.put(task, clients);
+        }
+
+        return clients;
     }
 
     /**
@@ -81,7 +133,8 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
     @Override
     public void init(String element, XML messageXML) throws Exception {
 
-        taskSubscriptions.clear();
+        taskSubscriptions = new HashMap<String, ArrayList<String>>();
+        isShared = false;
 
         /* Get the XML paths for the subscription elements */
         String elementPath = XML.expandPath(element);
@@ -92,13 +145,13 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
         for (int s = 0; s < subscriptionPaths.length; s++) {
 
             /* Get the task ID from the next subscription element */
-            String task = messageXML.get(subscriptionPaths[s] + "@tsk");
+            String task = messageXML.get(CompiledXMLPath.compile(subscriptionPaths[s] + "@tsk"));
 
             /* Get the list of clients subscribed to this task */
-            ArrayList<String> clients = lookupSublist(task, taskSubscriptions);
+            ArrayList<String> clients = lookupClients(task);
 
             /* Get and record the client ID */
-            String client = messageXML.get(subscriptionPaths[s] + "@clnt");
+            String client = messageXML.get(CompiledXMLPath.compile(subscriptionPaths[s] + "@clnt"));
             clients.add(client);
 
         }
@@ -133,15 +186,72 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
         }
     }
 
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        taskSubscriptions = new HashMap<String, ArrayList<String>>();
+        isShared = false;
+
+        /* For each task... */
+        for (int t = in.readVarInt(); t > 0; t--) {
+
+            String task = in.readString();
+            ArrayList<String> clients = lookupClients(task);
+
+            /* For each client subscribed to this task... */
+            for (int c = in.readVarInt(); c > 0; c--) {
+                clients.add(in.readString());
+            }
+        }
+
+        xmlCache = null;
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        out.writeVarInt(taskSubscriptions.size());
+
+        /* For each task... */
+        for (Iterator<String> s = taskSubscriptions.keySet().iterator(); s.hasNext();) {
+
+            String task = s.next();
+            ArrayList<String> clientIDs = taskSubscriptions.get(task);
+            out.writeString(task);
+
+            if (clientIDs == null) {
+
+                out.writeVarInt(0);
+
+            } else {
+
+                out.writeVarInt(clientIDs.size());
+
+                for (int c = 0; c < clientIDs.size(); c++) {
+                    out.writeString(clientIDs.get(c));
+                }
+            }
+        }
+    }
+
     /**
      * @see fabric.bus.messages.ITaskSubscriptions#addActor(java.lang.String, java.lang.String)
      */
     @Override
     public void addActor(String task, String actorID) {
 
+        copyOnWrite();
+
         /* Get the list of client IDs */
         ArrayList<String> actorList = taskSubscriptions.get(task);
-        ArrayList<String> oldActorList = (actorList != null) ? (ArrayList<String>) actorList.clone() : null;
+        ArrayList<String> oldActorList = (actorList != null) ? new ArrayList<String>(actorList) : null;
 
         /* If the list is empty... */
         if (actorList == null) {
@@ -170,13 +280,15 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
     @Override
     public void removeActor(String task, String actorID) {
 
+        copyOnWrite();
+
         /* Get the list of actor IDs */
         ArrayList<String> actorList = taskSubscriptions.get(task);
 
         /* If the list isn't empty... */
         if (actorList != null) {
 
-            ArrayList<String> oldActorList = (ArrayList<String>) actorList.clone();
+            ArrayList<String> oldActorList = new ArrayList<String>(actorList);
 
             /* Remove the actor ID */
             actorList.remove(actorID);
@@ -202,7 +314,7 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
         if (actorList != null) {
 
             /* Copy the list */
-            getActors = (List<String>) actorList.clone();
+            getActors = new ArrayList<String>(actorList);
 
         } else {
 
@@ -219,9 +331,11 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
     @Override
     public void setActors(String task, List<String> actors) {
 
+        copyOnWrite();
+
         /* Get the list of actor IDs */
-        ArrayList<String> actorList = lookupSublist(task, taskSubscriptions);
-        ArrayList<String> oldActorList = (ArrayList<String>) actorList.clone();
+        ArrayList<String> actorList = lookupClients(task);
+        ArrayList<String> oldActorList = new ArrayList<String>(actorList);
 
         /* Remove the current list contents */
         actorList.clear();
@@ -292,7 +406,7 @@ public class TaskSubscriptions extends Notifier implements ITaskSubscriptions {
     @Override
     public Iterator<String> taskIterator() {
 
-        return taskSubscriptions.keySet().iterator();
+        return Collections.unmodifiableSet(taskSubscriptions.keySet()).iterator();
 
     }
 
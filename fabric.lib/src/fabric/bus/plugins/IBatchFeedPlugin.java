@@ -0,0 +1,53 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ * 
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.plugins;
+
+import fabric.bus.messages.IFeedMessage;
+import fabric.bus.routing.IRouting;
+
+/**
+ * Interface implemented by feed plug-ins that can handle several messages in a single invocation.
+ * <p>
+ * When messages for the same feed arrive in bursts the Fabric Manager may pass them to the plug-in together, allowing
+ * per-invocation costs to be shared across the batch. Plug-ins implementing only <code>IFeedPlugin</code> continue to
+ * receive one message at a time.
+ * </p>
+ */
+public interface IBatchFeedPlugin extends IFeedPlugin {
+
+	/** Copyright notice. */
+	public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+	/*
+	 * Interface methods
+	 */
+
+	/**
+	 * Handles a batch of messages from the same feed, in the order in which they were received.
+	 * <p>
+	 * Messages whose current action is <code>ACTION_DISCARD_IMMEDIATE</code> are included in the batch for
+	 * completeness but must not be processed; their action cannot be overridden.
+	 * </p>
+	 * 
+	 * @param messages
+	 *            the messages.
+	 * 
+	 * @param routing
+	 *            the routing for the feed messages.
+	 * 
+	 * @param pluginActions
+	 *            the action to take for each message (one of the <code>ACTION_</code> constants defined in the
+	 *            <code>IFeedPlugin</code> interface) as defined by any earlier plugins invoked to handle the messages;
+	 *            this plug-in can override these actions if required.
+	 * 
+	 * @return the plug-in determined action for each message (in the same order as <code>messages</code>), each one of
+	 *         the <code>ACTION_</code> constants defined in the <code>IFeedPlugin</code> interface.
+	 */
+	public int[] handleFeedMessages(IFeedMessage[] messages, IRouting routing, int[] pluginActions);
+
+}
@@ -66,4 +66,39 @@ public interface IFeedPluginDispatcher extends IFabletDispatcher {
 	 */
 	public int dispatch(IFeedMessage message, IRouting routing, int pluginAction) throws Exception;
 
+	/**
+	 * Invoke the handlers for a batch of messages from the same feed.
+	 * <p>
+	 * Each handler is invoked once for the whole batch (see <code>IBatchFeedPlugin</code>). Messages whose action
+	 * becomes <code>ACTION_DISCARD_IMMEDIATE</code> are not processed by any later handler. If a handler fails part of
+	 * the way through a batch it is not invoked again for any of the messages, which keep their current actions.
+	 * </p>
+	 * 
+	 * @param messages
+	 *            the messages to handle.
+	 * 
+	 * @param routing
+	 *            the routing information for the current and next hops in the messages route to the client.
+	 * 
+	 * @param pluginActions
+	 *            the action to take for each message (one of the <code>ACTION_</code> constants defined in the
+	 *            <code>IFeedPlugin</code> interface) as defined by any earlier plugins invoked to handle the messages;
+	 *            these plug-ins can override these actions if required.
+	 * 
+	 * @return the plug-in determined action for each message, one of the <code>ACTION_</code> constants defined in the
+	 *         <code>IFeedPlugin</code> interface.
+	 * 
+	 * @throws Exception
+	 *             thrown if the batch cannot be dispatched.
+	 */
+	public int[] dispatch(IFeedMessage[] messages, IRouting routing, int[] pluginActions) throws Exception;
+
+	/**
+	 * Answers <code>true</code> if there are no plug-ins registered with this dispatcher, in which case dispatching a
+	 * message has no effect: the message is unchanged and the plug-in action returned is the one passed in.
+	 * 
+	 * @return <code>true</code> if the dispatcher is empty, <code>false</code> otherwise.
+	 */
+	public boolean isEmpty();
+
 }
@@ -41,4 +41,27 @@ public interface IFeedPluginHandler extends IPluginHandler {
 	 */
 	public int run(IFeedMessage message, IRouting routing, int pluginAction);
 
+	/**
+	 * Invoke the plug-in to process a batch of messages from the same feed.
+	 * <p>
+	 * Plug-ins implementing <code>IBatchFeedPlugin</code> are passed the whole batch, others are invoked once for each
+	 * message that has not already been discarded.
+	 * </p>
+	 * 
+	 * @param messages
+	 *            the messages to process.
+	 * 
+	 * @param routing
+	 *            the routing information for the current and next hops in the messages route to the client.
+	 * 
+	 * @param pluginActions
+	 *            the current action to take for each message (one of the <code>ACTION_</code> constants defined in the
+	 *            interface) as defined by any earlier plugins invoked to handle the messages; this plug-in can override
+	 *            these actions if required.
+	 * 
+	 * @return the plug-in determined action for each message, one of the <code>ACTION_</code> constants defined in the
+	 *         interface.
+	 */
+	public int[] run(IFeedMessage[] messages, IRouting routing, int[] pluginActions);
+
 }
\ No newline at end of file
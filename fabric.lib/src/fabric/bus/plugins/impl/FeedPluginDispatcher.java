@@ -32,6 +32,16 @@ public class FeedPluginDispatcher extends FabletDispatcher implements IFeedPlugi
 	/** Copyright notice. */
 	public static final String copyrightNotice = "(C) Copyright IBM Corp. 2007, 2012";
 
+	/*
+	 * Class fields
+	 */
+
+	/**
+	 * Object used to serialize the invocation of the plug-ins: feeds are handled in parallel, but each plug-in is only
+	 * ever called by one thread at a time.
+	 */
+	private final Object invocationLock = new Object();
+
 	/*
 	 * Class methods
 	 */
@@ -221,29 +231,118 @@ public class FeedPluginDispatcher extends FabletDispatcher implements IFeedPlugi
 	@Override
 	public int dispatch(IFeedMessage message, IRouting routing, int pluginAction) throws Exception {
 
-		/* Invoke each of the plug-ins for this dispatcher */
+		/* If there are no plug-ins then there is nothing to serialize */
+		if (isEmpty()) {
+			return pluginAction;
+		}
+
+		synchronized (invocationLock) {
+
+			/* Invoke each of the plug-ins for this dispatcher */
 
-		Iterator<IPluginHandler> p = plugins().iterator();
+			Iterator<IPluginHandler> p = plugins().iterator();
 
-		int c = 0;
-		/* While the message has not been dropped and there are more plug-ins... */
-		while (p.hasNext() && pluginAction != IFeedPlugin.ACTION_DISCARD_IMMEDIATE) {
+			/* While the message has not been dropped and there are more plug-ins... */
+			while (p.hasNext() && pluginAction != IFeedPlugin.ACTION_DISCARD_IMMEDIATE) {
 
-			/* Get the next plug-in */
-			IFeedPluginHandler plugin = (IFeedPluginHandler) p.next();
-			IFeedPluginConfig pluginConfig = (IFeedPluginConfig) plugin.pluginConfig();
+				/* Get the next plug-in */
+				IFeedPluginHandler plugin = (IFeedPluginHandler) p.next();
+				IFeedPluginConfig pluginConfig = (IFeedPluginConfig) plugin.pluginConfig();
 
-			logger.log(Level.FINE, "Invoking plug-in {0} (node {1}, task {2}, actor {3})", new Object[] {
-					pluginConfig.getName(), pluginConfig.getNode(), pluginConfig.getTask(), pluginConfig.getActor()});
+				logger.log(Level.FINE, "Invoking plug-in {0} (node {1}, task {2}, actor {3})", new Object[] {
+						pluginConfig.getName(), pluginConfig.getNode(), pluginConfig.getTask(),
+						pluginConfig.getActor()});
 
-			/* Invoke the handler */
-			pluginAction = plugin.run(message, routing, pluginAction);
-			c++;
+				/* Invoke the handler */
+				pluginAction = plugin.run(message, routing, pluginAction);
+			}
 		}
 
 		return pluginAction;
 	}
 
+	/**
+	 * @see fabric.bus.plugins.IFeedPluginDispatcher#dispatch(fabric.bus.messages.IFeedMessage[],
+	 *      fabric.bus.routing.IRouting, int[])
+	 */
+	@Override
+	public int[] dispatch(IFeedMessage[] messages, IRouting routing, int[] pluginActions) throws Exception {
+
+		/* If there are no plug-ins then there is nothing to serialize */
+		if (isEmpty()) {
+			return pluginActions;
+		}
+
+		synchronized (invocationLock) {
+
+			/* Invoke each of the plug-ins for this dispatcher */
+
+			Iterator<IPluginHandler> p = plugins().iterator();
+
+			/* While there are messages that have not been dropped and there are more plug-ins... */
+			while (p.hasNext() && !isDiscarded(pluginActions)) {
+
+				/* Get the next plug-in */
+				IFeedPluginHandler plugin = (IFeedPluginHandler) p.next();
+				IFeedPluginConfig pluginConfig = (IFeedPluginConfig) plugin.pluginConfig();
+
+				logger.log(Level.FINE, "Invoking plug-in {0} (node {1}, task {2}, actor {3}) for {4} messages",
+						new Object[] {pluginConfig.getName(), pluginConfig.getNode(), pluginConfig.getTask(),
+								pluginConfig.getActor(), messages.length});
+
+				/* Invoke the handler */
+				try {
+
+					pluginActions = plugin.run(messages, routing, pluginActions);
+
+				} catch (Exception e) {
+
+					/*
+					 * The plug-in may have processed part of the batch before failing, so it is not invoked again for any
+					 * of the messages (which would apply it twice to some of them): the messages keep their current
+					 * actions, as when a plug-in fails to handle a single message
+					 */
+					logger.log(Level.WARNING, "Batch invocation of plug-in {0} failed for {1} messages: {2}",
+							new Object[] {pluginConfig.getName(), messages.length, e.getMessage()});
+					logger.log(Level.FINEST, "Full exception: ", e);
+
+				}
+			}
+		}
+
+		return pluginActions;
+	}
+
+	/**
+	 * Answers <code>true</code> if all of the messages in a batch have been discarded (and cannot be reinstated).
+	 * 
+	 * @param pluginActions
+	 *            the current action for each message in the batch.
+	 * 
+	 * @return <code>true</code> if every action is <code>ACTION_DISCARD_IMMEDIATE</code>, <code>false</code> otherwise.
+	 */
+	private boolean isDiscarded(int[] pluginActions) {
+
+		boolean isDiscarded = true;
+
+		for (int a = 0; isDiscarded && a < pluginActions.length; a++) {
+			isDiscarded = (pluginActions[a] == IFeedPlugin.ACTION_DISCARD_IMMEDIATE);
+		}
+
+		return isDiscarded;
+
+	}
+
+	/**
+	 * @see fabric.bus.plugins.IFeedPluginDispatcher#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+
+		return plugins().isEmpty();
+
+	}
+
 	/**
 	 * @see fabric.bus.plugins.IDispatcher#initPluginConfig()
 	 */
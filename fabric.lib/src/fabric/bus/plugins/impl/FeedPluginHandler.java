@@ -13,6 +13,7 @@ import java.util.logging.Logger;
 import fabric.Fabric;
 import fabric.FabricMetric;
 import fabric.bus.messages.IFeedMessage;
+import fabric.bus.plugins.IBatchFeedPlugin;
 import fabric.bus.plugins.IFeedPlugin;
 import fabric.bus.plugins.IFeedPluginConfig;
 import fabric.bus.plugins.IFeedPluginHandler;
@@ -135,6 +136,65 @@ public class FeedPluginHandler extends PluginHandler implements IFeedPluginHandl
 
     }
 
+    /**
+     * @see fabric.bus.plugins.IFeedPluginHandler#run(fabric.bus.messages.IFeedMessage[], fabric.bus.routing.IRouting,
+     *      int[])
+     */
+    @Override
+    public int[] run(IFeedMessage[] messages, IRouting routing, int[] pluginActions) {
+
+        int[] batchActions = null;
+
+        /* If the plug-in can handle the batch in one invocation (instrumentation is recorded per message)... */
+        if (feedPlugin instanceof IBatchFeedPlugin && !Fabric.doInstrument()) {
+
+            try {
+
+                /* Invoke the plug-in's batch message handler */
+                batchActions = ((IBatchFeedPlugin) feedPlugin).handleFeedMessages(messages, routing, pluginActions
+                        .clone());
+                logger.log(Level.FINE, "Plugin batch message handler invoked ({0} messages)", messages.length);
+
+                if (batchActions == null || batchActions.length != messages.length) {
+                    logger.log(Level.WARNING, "Plug-in {0} returned an invalid action list for a batch of {1} messages",
+                            new Object[] {pluginConfig.getName(), messages.length});
+                    batchActions = null;
+                }
+
+            } catch (Throwable t) {
+
+                logger.log(Level.WARNING, "Invocation of plug-in failed: ", t);
+                batchActions = null;
+
+            }
+
+            if (batchActions == null) {
+                batchActions = pluginActions.clone();
+            }
+
+            /* Discarded messages remain discarded */
+            for (int m = 0; m < messages.length; m++) {
+                if (pluginActions[m] == IFeedPlugin.ACTION_DISCARD_IMMEDIATE) {
+                    batchActions[m] = IFeedPlugin.ACTION_DISCARD_IMMEDIATE;
+                }
+            }
+
+        } else {
+
+            batchActions = new int[messages.length];
+
+            /* Invoke the plug-in for each message that has not been discarded */
+            for (int m = 0; m < messages.length; m++) {
+                batchActions[m] = (pluginActions[m] == IFeedPlugin.ACTION_DISCARD_IMMEDIATE) ? pluginActions[m]
+                        : run(messages[m], routing, pluginActions[m]);
+            }
+
+        }
+
+        return batchActions;
+
+    }
+
     /**
      * @see fabric.bus.plugins.IPluginHandler#stop()
      */
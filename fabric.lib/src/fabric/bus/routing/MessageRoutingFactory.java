@@ -8,6 +8,9 @@
 package fabric.bus.routing;
 
 import fabric.Fabric;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.IEmbeddedBinary;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
 
 /**
@@ -19,6 +22,13 @@ public abstract class MessageRoutingFactory {
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2012";
 
+    /*
+     * Class constants
+     */
+
+    /** The path of the routing type, relative to the message element. */
+    private static final RelativeXMLPath ROUTING_TYPE = new RelativeXMLPath("/rt@t");
+
     /*
      * Class methods
      */
@@ -47,7 +57,7 @@ public abstract class MessageRoutingFactory {
         IRouting instance = null;
 
         /* Get the message type (making sure that we have the full class name for the type) */
-        String compactType = messageXML.get(element + "/rt@t");
+        String compactType = messageXML.get(ROUTING_TYPE.in(element));
         String type = (compactType != null) ? Fabric.longName(compactType) : null;
         String className = (type != null) ? type : compactType;
 
@@ -65,4 +75,45 @@ public abstract class MessageRoutingFactory {
         return instance;
     }
 
+    /**
+     * Create a Fabric routing instance from an existing binary representation.
+     *
+     * @param in
+     *            the routing section of a binary Fabric message.
+     *
+     * @return the routing instance, or <code>null</code> if the message does not contain routing information.
+     *
+     * @throws Exception
+     */
+    public static IRouting construct(BinaryWireReader in) throws Exception {
+
+        /* To hold the new instance */
+        IRouting instance = null;
+
+        /* If a route is present... */
+        if (in.hasRemaining()) {
+
+            /* Get the routing type (without consuming it, since it is also read by the instance) */
+            int start = in.position();
+            String compactType = in.readString();
+            in.position(start);
+
+            String type = (compactType != null) ? Fabric.longName(compactType) : null;
+            String className = (type != null) ? type : compactType;
+
+            /* If a routing type has been specified... */
+            if (className != null) {
+                /* Create a new instance */
+                instance = (IRouting) Fabric.instantiate(className);
+            }
+
+            /* If we have created a new instance... */
+            if (instance != null) {
+                ((IEmbeddedBinary) instance).init(in);
+            }
+        }
+
+        return instance;
+    }
+
 }
@@ -0,0 +1,1205 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fabric.Fabric;
+import fabric.core.json.JSON;
+import fabric.core.properties.ConfigProperties;
+import fabric.registry.FabricRegistry;
+import fabric.registry.Node;
+import fabric.registry.NodeNeighbour;
+import fabric.registry.QueryScope;
+
+/**
+ * An in-memory, weighted graph of the Fabric topology (the available nodes and their neighbours), used to compute
+ * routes without querying the Registry.
+ * <p>
+ * The graph is loaded from the Registry (with a distributed query) when it is first used, and is then kept up to date
+ * incrementally from Registry update notifications and changes to the availability of this node's neighbours. It is
+ * only reloaded if it is invalidated, or if a refresh interval is configured. The graph is held as an immutable
+ * snapshot that is replaced as a whole when it changes, so route requests do not lock.
+ * </p>
+ * <p>
+ * The multicast tree methods never load the graph themselves, since they are used on the message forwarding path;
+ * callers use <code>isLoaded()</code> to check that the graph is available (and to start loading it if not).
+ * </p>
+ */
+public class TopologyGraph extends Fabric {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The service to which Registry update notifications are published (relative to the feed topic). */
+    public static final String REGISTRY_UPDATES_SERVICE = "$fab/$reg/$updates";
+
+    /** The weight of an edge for which no other information is available. */
+    public static final double DEFAULT_WEIGHT = 1.0;
+
+    /** The availability value for available nodes and neighbours. */
+    private static final String AVAILABLE = "AVAILABLE";
+
+    /** The availability value for unavailable neighbours. */
+    private static final String UNAVAILABLE = "UNAVAILABLE";
+
+    /** The initial interval (in milliseconds) before a failed load of the graph from the Registry is retried. */
+    private static final long MIN_RETRY_INTERVAL = 1000;
+
+    /** The maximum interval (in milliseconds) before a failed load of the graph from the Registry is retried. */
+    private static final long MAX_RETRY_INTERVAL = 60000;
+
+    /*
+     * Class static fields
+     */
+
+    /** The single instance of the graph. */
+    private static final TopologyGraph instance = new TopologyGraph();
+
+    /*
+     * Class fields
+     */
+
+    /**
+     * The edges of the graph: the outer table is keyed by node ID, and each inner table maps the IDs of the node's
+     * neighbours to the weight of the edge to them. Neither table is ever modified once published.
+     */
+    private volatile HashMap<String, HashMap<String, Double>> edges = new HashMap<String, HashMap<String, Double>>();
+
+    /** Flag indicating if the graph must be (re)loaded from the Registry before it is next used. */
+    private volatile boolean isStale = true;
+
+    /** The time (in milliseconds) at which the graph was last loaded from the Registry. */
+    private volatile long loadedAt = 0;
+
+    /** The interval (in milliseconds) after which the graph is reloaded from the Registry (0 to disable). */
+    private volatile long refreshInterval = 0;
+
+    /** The time (in milliseconds) before which a failed load of the graph is not retried. */
+    private volatile long retryAt = 0;
+
+    /** The interval (in milliseconds) before the next failed load of the graph is retried. */
+    private long retryInterval = MIN_RETRY_INTERVAL;
+
+    /** The time (in milliseconds) at which an edge was last added to or removed from the graph. */
+    private volatile long changedAt = System.currentTimeMillis();
+
+    /** The multicast trees computed from the current graph. */
+    private volatile TreeCache trees = new TreeCache(edges);
+
+    /** The number of route requests answered from the graph. */
+    private final AtomicLong routeRequests = new AtomicLong(0);
+
+    /** The number of times that the graph has been loaded from the Registry. */
+    private final AtomicLong reloads = new AtomicLong(0);
+
+    /** The number of times that the graph could not be loaded from the Registry. */
+    private final AtomicLong reloadFailures = new AtomicLong(0);
+
+    /** Flag indicating if the graph is being loaded in the background. */
+    private final AtomicBoolean isLoading = new AtomicBoolean(false);
+
+    /** The thread on which nodes named in Registry notifications are looked up (started when first required). */
+    private final ExecutorService lookupWorker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+
+            Thread lookupThread = new Thread(r, "Topology-Graph-Lookup");
+            lookupThread.setDaemon(true);
+            return lookupThread;
+        }
+    });
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * An entry in the Dijkstra priority queue.
+     */
+    private static class Distance implements Comparable<Distance> {
+
+        /** The node ID. */
+        final String node;
+
+        /** The distance to the node from the start of the route. */
+        final double distance;
+
+        Distance(String node, double distance) {
+
+            this.node = node;
+            this.distance = distance;
+        }
+
+        /**
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        @Override
+        public int compareTo(Distance other) {
+
+            return Double.compare(distance, other.distance);
+        }
+    }
+
+    /**
+     * The multicast trees computed from a snapshot of the graph, keyed by root node ID. Each tree maps the IDs of the
+     * nodes that it reaches to the ID of their parent (the root maps to <code>null</code>).
+     */
+    private static class TreeCache {
+
+        /** The graph snapshot from which the trees were computed. */
+        final HashMap<String, HashMap<String, Double>> graph;
+
+        /** The trees. */
+        final ConcurrentHashMap<String, HashMap<String, String>> parents =
+                new ConcurrentHashMap<String, HashMap<String, String>>();
+
+        /** The version of the topology (see <code>topologyVersion()</code>), computed when first required. */
+        volatile String version = null;
+
+        TreeCache(HashMap<String, HashMap<String, Double>> graph) {
+
+            this.graph = graph;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Answers the topology graph.
+     *
+     * @return the graph.
+     */
+    public static TopologyGraph getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Constructs a new instance.
+     */
+    private TopologyGraph() {
+
+        super(Logger.getLogger("fabric.bus.routing"));
+    }
+
+    /**
+     * Answers the shortest route between two nodes.
+     *
+     * @param startNode
+     *            the ID of the first node in the route.
+     *
+     * @param endNode
+     *            the ID of the last node in the route.
+     *
+     * @return the IDs of the nodes on the route (including the start and end nodes), or an empty array if there is no
+     *         route.
+     */
+    public String[] shortestRoute(String startNode, String endNode) {
+
+        ensureLoaded();
+        routeRequests.incrementAndGet();
+
+        ArrayList<String> route = shortestRoute(edges, startNode, endNode, null, null);
+        return route.toArray(new String[route.size()]);
+    }
+
+    /**
+     * Answers up to <code>k</code> loop-free routes between two nodes, shortest first (using Yen's algorithm).
+     *
+     * @param startNode
+     *            the ID of the first node in each route.
+     *
+     * @param endNode
+     *            the ID of the last node in each route.
+     *
+     * @param k
+     *            the maximum number of routes to return.
+     *
+     * @return the routes (each an array of node IDs including the start and end nodes); empty if there is no route.
+     */
+    public String[][] shortestRoutes(String startNode, String endNode, int k) {
+
+        ensureLoaded();
+        routeRequests.incrementAndGet();
+
+        HashMap<String, HashMap<String, Double>> graph = edges;
+        ArrayList<ArrayList<String>> routes = new ArrayList<ArrayList<String>>();
+        ArrayList<ArrayList<String>> candidates = new ArrayList<ArrayList<String>>();
+
+        ArrayList<String> firstRoute = shortestRoute(graph, startNode, endNode, null, null);
+
+        if (!firstRoute.isEmpty()) {
+            routes.add(firstRoute);
+        }
+
+        while (!routes.isEmpty() && routes.size() < k) {
+
+            ArrayList<String> previousRoute = routes.get(routes.size() - 1);
+
+            /* Find the shortest deviation from the previous route at each of its nodes */
+            for (int spur = 0; spur < previousRoute.size() - 1; spur++) {
+
+                String spurNode = previousRoute.get(spur);
+                ArrayList<String> rootPath = new ArrayList<String>(previousRoute.subList(0, spur + 1));
+
+                /* Exclude the next hop of every known route sharing this root path */
+                HashSet<String> excludedEdges = new HashSet<String>();
+
+                for (ArrayList<String> route : routes) {
+                    if (route.size() > spur + 1 && route.subList(0, spur + 1).equals(rootPath)) {
+                        excludedEdges.add(spurNode + '\u0000' + route.get(spur + 1));
+                    }
+                }
+
+                /* Exclude the nodes of the root path (other than the spur node) to keep the route loop-free */
+                HashSet<String> excludedNodes = new HashSet<String>(rootPath.subList(0, spur));
+
+                ArrayList<String> spurPath = shortestRoute(graph, spurNode, endNode, excludedNodes, excludedEdges);
+
+                if (!spurPath.isEmpty()) {
+
+                    ArrayList<String> candidate = new ArrayList<String>(rootPath.subList(0, spur));
+                    candidate.addAll(spurPath);
+
+                    if (!candidates.contains(candidate) && !routes.contains(candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            /* Promote the shortest candidate */
+            int best = 0;
+
+            for (int c = 1; c < candidates.size(); c++) {
+                if (routeWeight(graph, candidates.get(c)) < routeWeight(graph, candidates.get(best))) {
+                    best = c;
+                }
+            }
+
+            routes.add(candidates.remove(best));
+        }
+
+        String[][] result = new String[routes.size()][];
+
+        for (int r = 0; r < routes.size(); r++) {
+            result[r] = routes.get(r).toArray(new String[routes.get(r).size()]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the shortest route between two nodes using Dijkstra's algorithm.
+     *
+     * @param graph
+     *            the graph.
+     *
+     * @param startNode
+     *            the ID of the first node in the route.
+     *
+     * @param endNode
+     *            the ID of the last node in the route.
+     *
+     * @param excludedNodes
+     *            nodes that the route must not pass through (<code>null</code> if there are none).
+     *
+     * @param excludedEdges
+     *            edges that the route must not use, each encoded as the node IDs separated by a null character
+     *            (<code>null</code> if there are none).
+     *
+     * @return the IDs of the nodes on the route, or an empty list if there is no route.
+     */
+    private ArrayList<String> shortestRoute(HashMap<String, HashMap<String, Double>> graph, String startNode,
+            String endNode, HashSet<String> excludedNodes, HashSet<String> excludedEdges) {
+
+        HashMap<String, Double> distances = new HashMap<String, Double>();
+        HashMap<String, String> previous = new HashMap<String, String>();
+        HashSet<String> visited = new HashSet<String>();
+        PriorityQueue<Distance> queue = new PriorityQueue<Distance>();
+
+        distances.put(startNode, 0.0);
+        queue.add(new Distance(startNode, 0.0));
+
+        while (!queue.isEmpty() && !visited.contains(endNode)) {
+
+            Distance current = queue.poll();
+
+            /* Skip stale queue entries */
+            if (!visited.add(current.node)) {
+                continue;
+            }
+
+            HashMap<String, Double> neighbours = graph.get(current.node);
+
+            if (neighbours != null) {
+
+                for (Iterator<String> n = neighbours.keySet().iterator(); n.hasNext();) {
+
+                    String neighbour = n.next();
+
+                    if (visited.contains(neighbour) || (excludedNodes != null && excludedNodes.contains(neighbour))
+                            || (excludedEdges != null && excludedEdges.contains(current.node + '\u0000' + neighbour))) {
+                        continue;
+                    }
+
+                    double distance = current.distance + neighbours.get(neighbour);
+                    Double knownDistance = distances.get(neighbour);
+
+                    if (knownDistance == null || distance < knownDistance) {
+                        distances.put(neighbour, distance);
+                        previous.put(neighbour, current.node);
+                        queue.add(new Distance(neighbour, distance));
+                    }
+                }
+            }
+        }
+
+        ArrayList<String> route = new ArrayList<String>();
+
+        /* If the end node was reached, back-track to build the route */
+        if (visited.contains(endNode)) {
+
+            for (String node = endNode; node != null; node = previous.get(node)) {
+                route.add(node);
+            }
+
+            Collections.reverse(route);
+        }
+
+        return route;
+    }
+
+    /**
+     * Answers the total weight of a route.
+     *
+     * @param graph
+     *            the graph.
+     *
+     * @param route
+     *            the IDs of the nodes on the route.
+     *
+     * @return the weight.
+     */
+    private double routeWeight(HashMap<String, HashMap<String, Double>> graph, ArrayList<String> route) {
+
+        double weight = 0;
+
+        for (int r = 0; r < route.size() - 1; r++) {
+            HashMap<String, Double> neighbours = graph.get(route.get(r));
+            Double edgeWeight = (neighbours != null) ? neighbours.get(route.get(r + 1)) : null;
+            weight += (edgeWeight != null) ? edgeWeight : Double.POSITIVE_INFINITY;
+        }
+
+        return weight;
+    }
+
+    /**
+     * Reloads the graph from the Registry if it is stale, or if the refresh interval has expired.
+     * <p>
+     * If the last attempt to load the graph failed then it is not retried until its back-off interval has expired; the
+     * current graph (which may be empty) is used in the meantime.
+     * </p>
+     */
+    private void ensureLoaded() {
+
+        if (isReloadDue()) {
+
+            synchronized (this) {
+                if (isReloadDue()) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers <code>true</code> if the graph is to be (re)loaded from the Registry before it is next used.
+     *
+     * @return <code>true</code> if a load is due, <code>false</code> otherwise.
+     */
+    private boolean isReloadDue() {
+
+        return (isStale || refreshExpired()) && System.currentTimeMillis() >= retryAt;
+    }
+
+    /**
+     * Answers <code>true</code> if the graph has been loaded from the Registry, starting to (re)load it in the
+     * background if a load is due. Unlike the routing methods, this method never waits for the Registry.
+     *
+     * @return <code>true</code> if the graph is loaded, <code>false</code> otherwise.
+     */
+    public boolean isLoaded() {
+
+        if (isReloadDue() && isLoading.compareAndSet(false, true)) {
+
+            Thread loadThread = new Thread("Topology-Graph-Load") {
+
+                @Override
+                public void run() {
+
+                    try {
+                        ensureLoaded();
+                    } finally {
+                        isLoading.set(false);
+                    }
+                }
+            };
+
+            loadThread.setDaemon(true);
+            loadThread.start();
+        }
+
+        return !isStale;
+    }
+
+    /**
+     * Answers <code>true</code> if the graph is due to be reloaded from the Registry.
+     *
+     * @return <code>true</code> if the refresh interval has expired, <code>false</code> otherwise.
+     */
+    private boolean refreshExpired() {
+
+        return refreshInterval > 0 && System.currentTimeMillis() - loadedAt > refreshInterval;
+    }
+
+    /**
+     * Loads the graph from the Registry, replacing its current content.
+     */
+    public synchronized void reload() {
+
+        HashMap<String, HashMap<String, Double>> newEdges = new HashMap<String, HashMap<String, Double>>();
+        HashSet<String> availableNodes = new HashSet<String>();
+
+        try {
+
+            refreshInterval = Long.parseLong(config(ConfigProperties.ROUTING_TOPOLOGY_REFRESH,
+                    ConfigProperties.ROUTING_TOPOLOGY_REFRESH_DEFAULT)) * 1000;
+
+            Node[] nodes = FabricRegistry.getNodeFactory().getNodes("AVAILABILITY='AVAILABLE'");
+
+            for (int n = 0; n < nodes.length; n++) {
+                availableNodes.add(nodes[n].getId());
+            }
+
+            NodeNeighbour[] neighbours = FabricRegistry.getNodeNeighbourFactory(QueryScope.DISTRIBUTED)
+                    .getAllNeighbours();
+
+            for (int n = 0; n < neighbours.length; n++) {
+
+                String nodeID = neighbours[n].getNodeId();
+                String neighbourID = neighbours[n].getNeighbourId();
+
+                if (availableNodes.contains(nodeID) && availableNodes.contains(neighbourID)
+                        && !UNAVAILABLE.equalsIgnoreCase(neighbours[n].getAvailability())) {
+
+                    HashMap<String, Double> nodeEdges = newEdges.get(nodeID);
+
+                    if (nodeEdges == null) {
+                        nodeEdges = new HashMap<String, Double>();
+                        newEdges.put(nodeID, nodeEdges);
+                    }
+
+                    Double weight = currentWeight(nodeID, neighbourID);
+                    nodeEdges.put(neighbourID, (weight != null) ? weight : DEFAULT_WEIGHT);
+                }
+            }
+
+            if (!sameTopology(edges, newEdges)) {
+                changedAt = System.currentTimeMillis();
+            }
+
+            edges = newEdges;
+            isStale = false;
+            loadedAt = System.currentTimeMillis();
+            retryAt = 0;
+            retryInterval = MIN_RETRY_INTERVAL;
+            reloads.incrementAndGet();
+
+            logger.log(Level.FINE, "Topology graph loaded: {0} nodes, {1} neighbour entries", new Object[] {
+                    availableNodes.size(), neighbours.length});
+
+        } catch (Exception e) {
+
+            /* Back off before trying again, so that route requests are not each held up by a failing Registry */
+            retryAt = System.currentTimeMillis() + retryInterval;
+            retryInterval = Math.min(retryInterval * 2, MAX_RETRY_INTERVAL);
+            reloadFailures.incrementAndGet();
+
+            logger.log(Level.WARNING, "Failed to load the topology graph from the Registry (retrying in {0} ms): {1}",
+                    new Object[] {retryAt - System.currentTimeMillis(), e.getMessage()});
+            logger.log(Level.FINEST, "Full exception: ", e);
+
+        }
+    }
+
+    /**
+     * Answers the current weight of an edge.
+     *
+     * @param node
+     *            the ID of the node at the start of the edge.
+     *
+     * @param neighbour
+     *            the ID of the node at the end of the edge.
+     *
+     * @return the weight, or <code>null</code> if the edge is not in the graph.
+     */
+    private Double currentWeight(String node, String neighbour) {
+
+        HashMap<String, Double> nodeEdges = edges.get(node);
+        return (nodeEdges != null) ? nodeEdges.get(neighbour) : null;
+    }
+
+    /**
+     * Adds an edge to, or removes an edge from, the graph.
+     *
+     * @param node
+     *            the ID of the node at the start of the edge.
+     *
+     * @param neighbour
+     *            the ID of the node at the end of the edge.
+     *
+     * @param isAvailable
+     *            <code>true</code> if the edge is to be added, <code>false</code> if it is to be removed.
+     */
+    public synchronized void setEdgeAvailable(String node, String neighbour, boolean isAvailable) {
+
+        Double weight = currentWeight(node, neighbour);
+
+        if (isAvailable && weight == null) {
+            replaceEdge(node, neighbour, DEFAULT_WEIGHT);
+        } else if (!isAvailable && weight != null) {
+            replaceEdge(node, neighbour, null);
+        }
+    }
+
+    /**
+     * Sets the weight of an edge (if it is in the graph).
+     *
+     * @param node
+     *            the ID of the node at the start of the edge.
+     *
+     * @param neighbour
+     *            the ID of the node at the end of the edge.
+     *
+     * @param weight
+     *            the new weight.
+     */
+    public synchronized void setEdgeWeight(String node, String neighbour, double weight) {
+
+        Double currentWeight = currentWeight(node, neighbour);
+
+        if (currentWeight != null && currentWeight != weight) {
+            replaceEdge(node, neighbour, weight);
+        }
+    }
+
+    /**
+     * Replaces the graph with a copy in which an edge has been changed.
+     *
+     * @param node
+     *            the ID of the node at the start of the edge.
+     *
+     * @param neighbour
+     *            the ID of the node at the end of the edge.
+     *
+     * @param weight
+     *            the new weight of the edge, or <code>null</code> to remove it.
+     */
+    private void replaceEdge(String node, String neighbour, Double weight) {
+
+        HashMap<String, HashMap<String, Double>> newEdges = new HashMap<String, HashMap<String, Double>>(edges);
+        HashMap<String, Double> nodeEdges = newEdges.get(node);
+        nodeEdges = (nodeEdges != null) ? new HashMap<String, Double>(nodeEdges) : new HashMap<String, Double>();
+
+        if (weight != null) {
+            nodeEdges.put(neighbour, weight);
+        } else {
+            nodeEdges.remove(neighbour);
+        }
+
+        newEdges.put(node, nodeEdges);
+
+        if (weight == null || !edges.containsKey(node) || !edges.get(node).containsKey(neighbour)) {
+            changedAt = System.currentTimeMillis();
+        }
+
+        edges = newEdges;
+
+        logger.log(Level.FINER, "Topology edge [{0}] -> [{1}] set to weight {2}", new Object[] {node, neighbour,
+                weight});
+    }
+
+    /**
+     * Removes a node, and all of the edges to and from it, from the graph.
+     *
+     * @param node
+     *            the node ID.
+     */
+    public synchronized void removeNode(String node) {
+
+        HashMap<String, HashMap<String, Double>> newEdges = new HashMap<String, HashMap<String, Double>>();
+        boolean isChanged = edges.containsKey(node);
+
+        for (Iterator<String> n = edges.keySet().iterator(); n.hasNext();) {
+
+            String nextNode = n.next();
+
+            if (!nextNode.equals(node)) {
+
+                HashMap<String, Double> nodeEdges = edges.get(nextNode);
+
+                if (nodeEdges.containsKey(node)) {
+                    nodeEdges = new HashMap<String, Double>(nodeEdges);
+                    nodeEdges.remove(node);
+                    isChanged = true;
+                }
+
+                newEdges.put(nextNode, nodeEdges);
+            }
+        }
+
+        if (isChanged) {
+            changedAt = System.currentTimeMillis();
+            edges = newEdges;
+        }
+    }
+
+    /**
+     * Answers <code>true</code> if two graphs have the same edges (regardless of their weights).
+     *
+     * @param graph1
+     *            the first graph.
+     *
+     * @param graph2
+     *            the second graph.
+     *
+     * @return <code>true</code> if the graphs have the same edges, <code>false</code> otherwise.
+     */
+    private boolean sameTopology(HashMap<String, HashMap<String, Double>> graph1,
+            HashMap<String, HashMap<String, Double>> graph2) {
+
+        HashSet<String> nodes = new HashSet<String>(graph1.keySet());
+        nodes.addAll(graph2.keySet());
+        boolean isSame = true;
+
+        for (Iterator<String> n = nodes.iterator(); isSame && n.hasNext();) {
+
+            String node = n.next();
+            HashMap<String, Double> edges1 = graph1.get(node);
+            HashMap<String, Double> edges2 = graph2.get(node);
+            Set<String> neighbours1 = (edges1 != null) ? edges1.keySet() : Collections.<String> emptySet();
+            Set<String> neighbours2 = (edges2 != null) ? edges2.keySet() : Collections.<String> emptySet();
+            isSame = neighbours1.equals(neighbours2);
+        }
+
+        return isSame;
+    }
+
+    /**
+     * Answers <code>true</code> if no edge has been added to or removed from the graph for a specified time, i.e. if
+     * the views of the topology held by each node can be expected to have converged.
+     *
+     * @param settleTime
+     *            the time (in milliseconds).
+     *
+     * @return <code>true</code> if the graph is settled, <code>false</code> otherwise.
+     */
+    public boolean isSettled(long settleTime) {
+
+        return System.currentTimeMillis() - changedAt >= settleTime;
+    }
+
+    /**
+     * Answers the neighbours of a node, as currently recorded in the graph.
+     *
+     * @param node
+     *            the node ID.
+     *
+     * @return the IDs of the neighbours (empty if the node is not in the graph).
+     */
+    public Set<String> neighbours(String node) {
+
+        HashMap<String, Double> nodeEdges = edges.get(node);
+        return (nodeEdges != null) ? Collections.unmodifiableSet(nodeEdges.keySet()) : Collections.<String> emptySet();
+    }
+
+    /**
+     * Answers the parent of a node in the multicast tree rooted at a specified node.
+     * <p>
+     * Multicast trees are shortest-path trees by hop count (ignoring edge weights, which may be measured locally and so
+     * differ from node to node), with ties broken on the node ID, so that every node with the same view of the topology
+     * computes the same tree. Only links recorded in both directions (i.e. by both of the nodes concerned) are used.
+     * </p>
+     *
+     * @param root
+     *            the ID of the root node (the source of the multicast messages).
+     *
+     * @param node
+     *            the ID of the node.
+     *
+     * @return the ID of the parent node, or <code>null</code> if the node is the root or is not reached by the tree.
+     */
+    public String treeParent(String root, String node) {
+
+        return multicastTree(currentTrees(), root).get(node);
+    }
+
+    /**
+     * Answers the children of a node in the multicast tree rooted at a specified node (see
+     * <code>treeParent()</code>).
+     *
+     * @param root
+     *            the ID of the root node (the source of the multicast messages).
+     *
+     * @param node
+     *            the ID of the node.
+     *
+     * @return the IDs of the child nodes, or <code>null</code> if the node is not reached by the tree.
+     */
+    public String[] treeChildren(String root, String node) {
+
+        return treeChildren(multicastTree(currentTrees(), root), node);
+    }
+
+    /**
+     * Answers the children of a node in a multicast tree.
+     *
+     * @param tree
+     *            the tree.
+     *
+     * @param node
+     *            the ID of the node.
+     *
+     * @return the IDs of the child nodes, or <code>null</code> if the node is not reached by the tree.
+     */
+    private String[] treeChildren(HashMap<String, String> tree, String node) {
+
+        String[] children = null;
+
+        if (tree.containsKey(node)) {
+
+            ArrayList<String> childList = new ArrayList<String>();
+
+            for (Iterator<String> t = tree.keySet().iterator(); t.hasNext();) {
+
+                String treeNode = t.next();
+
+                if (node.equals(tree.get(treeNode))) {
+                    childList.add(treeNode);
+                }
+            }
+
+            children = childList.toArray(new String[childList.size()]);
+        }
+
+        return children;
+    }
+
+    /**
+     * Answers the next hops of a multicast message at a node, provided that they can be determined from the multicast
+     * tree rooted at the node that originated the message.
+     * <p>
+     * The tree is used only if this node's view of the topology is the same as that of the originating node (i.e. it
+     * has the same version), so that both compute the same tree; if the message arrived from the node's parent in the
+     * tree; and if the neighbours that the tree can reach from the node are its actual neighbours. In any other case
+     * the message must be flooded, so that nodes are not missed because the views of the topology have diverged. (A
+     * link that no longer exists but is still recorded in both directions by the views of the originating node and its
+     * neighbours cannot be detected in this way, which is why the originating node waits for its view to settle.)
+     * </p>
+     *
+     * @param root
+     *            the ID of the node that originated the message.
+     *
+     * @param node
+     *            the ID of the node forwarding the message.
+     *
+     * @param previousNode
+     *            the ID of the node from which the message was received, or <code>null</code> if it originated here.
+     *
+     * @param version
+     *            the version of the topology used by the originating node, or <code>null</code> if it did not use a
+     *            tree.
+     *
+     * @param neighbours
+     *            the IDs of the currently available neighbours of the node.
+     *
+     * @return the next hops, or <code>null</code> if the message is to be flooded.
+     */
+    public String[] treeNextNodes(String root, String node, String previousNode, String version,
+            Set<String> neighbours) {
+
+        String[] nextNodes = null;
+        TreeCache cache = currentTrees();
+
+        if (!isStale && version != null && version.equals(topologyVersion(cache))) {
+
+            HashMap<String, String> tree = multicastTree(cache, root);
+            HashMap<String, Double> nodeEdges = cache.graph.get(node);
+            HashSet<String> treeNeighbours = new HashSet<String>();
+
+            /* The neighbours that the trees can reach from this node */
+            for (Iterator<String> n = (nodeEdges != null) ? nodeEdges.keySet().iterator() : Collections
+                    .<String> emptyIterator(); n.hasNext();) {
+
+                String neighbour = n.next();
+
+                if (isLinked(cache.graph, neighbour, node)) {
+                    treeNeighbours.add(neighbour);
+                }
+            }
+
+            if ((previousNode == null ? node.equals(root) : previousNode.equals(tree.get(node)))
+                    && treeNeighbours.equals(neighbours)) {
+                nextNodes = treeChildren(tree, node);
+            }
+        }
+
+        return nextNodes;
+    }
+
+    /**
+     * Answers <code>true</code> if a graph records an edge from one node to another.
+     *
+     * @param graph
+     *            the graph.
+     *
+     * @param node
+     *            the ID of the node at the start of the edge.
+     *
+     * @param neighbour
+     *            the ID of the node at the end of the edge.
+     *
+     * @return <code>true</code> if the edge is recorded, <code>false</code> otherwise.
+     */
+    private boolean isLinked(HashMap<String, HashMap<String, Double>> graph, String node, String neighbour) {
+
+        HashMap<String, Double> nodeEdges = graph.get(node);
+        return nodeEdges != null && nodeEdges.containsKey(neighbour);
+    }
+
+    /**
+     * Answers the version of the topology currently recorded in the graph: a digest of its edges (regardless of their
+     * weights), which is the same at every node with the same view of the topology.
+     *
+     * @return the version.
+     */
+    public String topologyVersion() {
+
+        return topologyVersion(currentTrees());
+    }
+
+    /**
+     * Answers the version of the topology from which a set of multicast trees are computed, computing it if required.
+     *
+     * @param cache
+     *            the trees.
+     *
+     * @return the version.
+     */
+    private String topologyVersion(TreeCache cache) {
+
+        String version = cache.version;
+
+        if (version == null) {
+
+            /* List the edges in a canonical order */
+            ArrayList<String> edgeList = new ArrayList<String>();
+
+            for (Iterator<String> n = cache.graph.keySet().iterator(); n.hasNext();) {
+
+                String node = n.next();
+
+                for (Iterator<String> e = cache.graph.get(node).keySet().iterator(); e.hasNext();) {
+                    edgeList.add(node + '\u0000' + e.next());
+                }
+            }
+
+            Collections.sort(edgeList);
+
+            try {
+
+                MessageDigest digest = MessageDigest.getInstance("SHA-1");
+
+                for (String edge : edgeList) {
+                    digest.update(edge.getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) '\n');
+                }
+
+                StringBuilder hex = new StringBuilder();
+                byte[] hash = Arrays.copyOf(digest.digest(), 8);
+
+                for (int b = 0; b < hash.length; b++) {
+                    hex.append(String.format("%02x", hash[b]));
+                }
+
+                version = hex.toString();
+
+            } catch (Exception e) {
+
+                /* SHA-1 is always available, but fall back to a weaker digest if not */
+                version = Integer.toHexString(edgeList.hashCode());
+
+            }
+
+            cache.version = version;
+        }
+
+        return version;
+    }
+
+    /**
+     * Answers the multicast trees for the current graph.
+     *
+     * @return the trees.
+     */
+    private TreeCache currentTrees() {
+
+        HashMap<String, HashMap<String, Double>> graph = edges;
+        TreeCache cache = trees;
+
+        if (cache.graph != graph) {
+            cache = new TreeCache(graph);
+            trees = cache;
+        }
+
+        return cache;
+    }
+
+    /**
+     * Answers the multicast tree rooted at a specified node, computing it if required.
+     *
+     * @param cache
+     *            the trees computed so far for the graph.
+     *
+     * @param root
+     *            the ID of the root node.
+     *
+     * @return the tree, mapping the IDs of the nodes that it reaches to the IDs of their parents.
+     */
+    private HashMap<String, String> multicastTree(TreeCache cache, String root) {
+
+        HashMap<String, HashMap<String, Double>> graph = cache.graph;
+        HashMap<String, String> tree = cache.parents.get(root);
+
+        if (tree == null) {
+
+            tree = new HashMap<String, String>();
+            tree.put(root, null);
+
+            /* Breadth-first search, visiting the neighbours of each node in ID order */
+            ArrayList<String> frontier = new ArrayList<String>();
+            frontier.add(root);
+
+            while (!frontier.isEmpty()) {
+
+                ArrayList<String> nextFrontier = new ArrayList<String>();
+
+                for (String node : frontier) {
+
+                    HashMap<String, Double> neighbours = graph.get(node);
+
+                    if (neighbours != null) {
+
+                        ArrayList<String> sortedNeighbours = new ArrayList<String>(neighbours.keySet());
+                        Collections.sort(sortedNeighbours);
+
+                        for (String neighbour : sortedNeighbours) {
+                            if (!tree.containsKey(neighbour) && isLinked(graph, neighbour, node)) {
+                                tree.put(neighbour, node);
+                                nextFrontier.add(neighbour);
+                            }
+                        }
+                    }
+                }
+
+                frontier = nextFrontier;
+            }
+
+            cache.parents.put(root, tree);
+        }
+
+        return tree;
+    }
+
+    /**
+     * Marks the graph as stale, so that it is reloaded from the Registry before it is next used.
+     */
+    public void invalidate() {
+
+        isStale = true;
+    }
+
+    /**
+     * Updates the graph from a Registry update notification.
+     * <p>
+     * Changes to node neighbours are applied directly from the notification. A change to a node (other than its
+     * deletion) is applied from the availability in the notification if it has one; otherwise the node is looked up in
+     * the local Registry on a separate thread, so that the thread delivering notifications is never held up by the
+     * Registry. A node that is no longer available is removed from the graph, and the edges of a node that becomes
+     * available are added as its neighbour entries are updated. Notifications never cause the whole graph to be
+     * reloaded.
+     * </p>
+     *
+     * @param notification
+     *            the notification (a JSON object, as published by the Registry triggers).
+     */
+    public void registryUpdate(String notification) {
+
+        try {
+
+            JSON update = new JSON(notification);
+            String table = update.getString("table");
+            String action = update.getString("action");
+            String id = update.getString("id");
+            String availability = update.getString("availability");
+
+            /* Changes made before the graph is first loaded will be picked up by the load */
+            if (isStale || id == null) {
+                return;
+            }
+
+            if ("NODE_NEIGHBOURS".equals(table)) {
+
+                /* The ID is encoded as "node_id/neighbour_id" (optionally followed by ":availability") */
+                String[] idParts = id.split("/");
+
+                if (idParts.length < 2) {
+                    logger.log(Level.FINE, "Ignoring node neighbour notification with invalid ID [{0}]", id);
+                    return;
+                }
+
+                String[] neighbourParts = idParts[1].split(":");
+
+                if ((availability == null || availability.isEmpty()) && neighbourParts.length > 1) {
+                    availability = neighbourParts[1];
+                }
+
+                /* As when the graph is loaded, a neighbour is included unless it is known to be unavailable */
+                boolean isAvailable = !"DELETE".equals(action) && !UNAVAILABLE.equalsIgnoreCase(availability);
+                setEdgeAvailable(idParts[0], neighbourParts[0], isAvailable);
+
+            } else if ("NODES".equals(table)) {
+
+                /* The ID is encoded as "node_id:type_id" */
+                String nodeID = id.split(":")[0];
+
+                if ("DELETE".equals(action)) {
+
+                    removeNode(nodeID);
+
+                } else if (availability != null && !availability.isEmpty() && !"null".equals(availability)) {
+
+                    if (!AVAILABLE.equalsIgnoreCase(availability)) {
+                        removeNode(nodeID);
+                    }
+
+                } else {
+
+                    checkNodeAvailability(nodeID);
+
+                }
+            }
+
+        } catch (Exception e) {
+
+            logger.log(Level.FINE, "Ignoring improperly formatted Registry update notification: {0}", e.getMessage());
+
+        }
+    }
+
+    /**
+     * Looks up a node in the local Registry on the lookup thread, removing it from the graph if it is no longer
+     * available.
+     *
+     * @param nodeID
+     *            the node ID.
+     */
+    private void checkNodeAvailability(final String nodeID) {
+
+        lookupWorker.execute(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    Node node = FabricRegistry.getNodeFactory(QueryScope.LOCAL).getNodeById(nodeID);
+
+                    if (node != null && !AVAILABLE.equalsIgnoreCase(node.getAvailability())) {
+                        removeNode(nodeID);
+                    }
+
+                } catch (Exception e) {
+
+                    logger.log(Level.FINE, "Cannot check the availability of node [{0}]: {1}", new Object[] {nodeID,
+                            e.getMessage()});
+
+                }
+            }
+        });
+    }
+
+    /**
+     * Answers the number of route requests answered from the graph.
+     *
+     * @return the count.
+     */
+    public long getRouteRequests() {
+
+        return routeRequests.get();
+    }
+
+    /**
+     * Answers the number of times that the graph has been loaded from the Registry.
+     *
+     * @return the count.
+     */
+    public long getReloads() {
+
+        return reloads.get();
+    }
+
+    /**
+     * Answers the number of times that the graph could not be loaded from the Registry.
+     *
+     * @return the count.
+     */
+    public long getReloadFailures() {
+
+        return reloadFailures.get();
+    }
+}
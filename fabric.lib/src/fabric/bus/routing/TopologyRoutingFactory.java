@@ -0,0 +1,33 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.bus.routing;
+
+/**
+ * Routing factory that computes the shortest available path between two nodes from the in-memory topology graph.
+ * <p>
+ * This is an alternative to <code>DynamicRoutingFactory</code> that does not query the Registry for each route. To use
+ * it, specify the route <code>factory=fabric.bus.routing.TopologyRoutingFactory</code>.
+ * </p>
+ *
+ * @see TopologyGraph
+ */
+public class TopologyRoutingFactory implements IRoutingFactory {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /**
+     * @see fabric.bus.routing.IRoutingFactory#getRouteNodes(java.lang.String, java.lang.String)
+     */
+    @Override
+    public String[] getRouteNodes(String startNode, String endNode) {
+
+        return TopologyGraph.getInstance().shortestRoute(startNode, endNode);
+    }
+
+}
@@ -12,15 +12,19 @@ import java.util.logging.Logger;
 
 import fabric.Fabric;
 import fabric.Notifier;
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
+import fabric.bus.messages.IEmbeddedBinary;
 import fabric.bus.messages.IFabricMessage;
 import fabric.bus.messages.impl.MessageProperties;
 import fabric.bus.routing.IRouting;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
 
 /**
  * Class representing the route embedded in a Fabric message.
  */
-public abstract class Routing extends Notifier implements IRouting {
+public abstract class Routing extends Notifier implements IRouting, IEmbeddedBinary {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2007, 2012";
@@ -29,6 +33,9 @@ public abstract class Routing extends Notifier implements IRouting {
      * Class constants
      */
 
+    /** The path of the routing type, relative to the message element. */
+    private static final RelativeXMLPath ROUTING_TYPE = new RelativeXMLPath("/rt@t");
+
     /*
      * Class fields
      */
@@ -89,7 +96,7 @@ public abstract class Routing extends Notifier implements IRouting {
     public void init(String element, XML messageXML) throws Exception {
 
         /* Get the message type */
-        compactType = messageXML.get(element + "/rt@t");
+        compactType = messageXML.get(ROUTING_TYPE.in(element));
         String type = Fabric.longName(compactType);
         this.type = (type != null) ? type : compactType;
 
@@ -107,13 +114,45 @@ public abstract class Routing extends Notifier implements IRouting {
     public void embed(String element, XML messageXML) throws Exception {
 
         /* Set the message type */
-        messageXML.set(element + "/rt@t", compactType);
+        messageXML.set(ROUTING_TYPE.in(element), compactType);
 
         /* Set the message properties */
         properties.embed(element + "/rt", messageXML);
 
     }
 
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        /* Get the message type */
+        compactType = in.readString();
+        String type = Fabric.longName(compactType);
+        this.type = (type != null) ? type : compactType;
+
+        /* Get the message properties */
+        properties.init(in);
+
+        xmlCache = null;
+
+    }
+
+    /**
+     * @see fabric.bus.messages.IEmbeddedBinary#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        /* Set the message type */
+        out.writeString(compactType);
+
+        /* Set the message properties */
+        properties.embed(out);
+
+    }
+
     /**
      * @see fabric.bus.routing.IRouting#getProperty(java.lang.String)
      */
@@ -9,8 +9,11 @@ package fabric.bus.routing.impl;
 
 import java.util.Arrays;
 
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
 import fabric.bus.messages.IReplicate;
 import fabric.bus.routing.IRouting;
+import fabric.core.xml.CompiledXMLPath;
 import fabric.core.xml.XML;
 
 /**
@@ -54,7 +57,8 @@ public class StaticRouting extends Routing {
      */
     public StaticRouting(StaticRouting source) {
 
-        this(source.nodeIDs);
+        super(source);
+        setRouteNodes(source.nodeIDs);
 
     }
 
@@ -97,6 +101,43 @@ public class StaticRouting extends Routing {
 
     }
 
+    /**
+     * @see fabric.bus.routing.impl.Routing#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        super.init(in);
+
+        /* Get each hop in the route */
+        String[] nodeIDs = new String[in.readVarInt()];
+
+        for (int n = 0; n < nodeIDs.length; n++) {
+            nodeIDs[n] = in.readString();
+        }
+
+        setRouteNodes(nodeIDs);
+
+    }
+
+    /**
+     * @see fabric.bus.routing.impl.Routing#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        super.embed(out);
+
+        /* Set each hop in the route */
+        int nodeCount = (nodeIDs != null) ? nodeIDs.length : 0;
+        out.writeVarInt(nodeCount);
+
+        for (int n = 0; n < nodeCount; n++) {
+            out.writeString(nodeIDs[n]);
+        }
+
+    }
+
     /**
      * Gets the list of nodes in the route.
      *
@@ -119,7 +160,7 @@ public class StaticRouting extends Routing {
         for (int n = 0; n < routeNodeXMLPaths.length; n++) {
 
             /* Get the hop name (with a path of the form "/fab/rt/nodes/n[n]/$[n]") */
-            nodeIDs[n] = messageXML.get(routeNodeXMLPaths[n]);
+            nodeIDs[n] = messageXML.get(CompiledXMLPath.compile(routeNodeXMLPaths[n]));
 
         }
 
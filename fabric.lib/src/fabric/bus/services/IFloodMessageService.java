@@ -36,5 +36,16 @@ public interface IFloodMessageService {
 	 * @param retained (currently unused) whether the message should be retained for future nodes to receive 
 	 */
 	public void addMessage(IFabricMessage message, long ttl, boolean retained);
+
+	/**
+	 * Returns whether this message is a duplicate of one previously seen
+	 * by the flood service, adding it to the cache of seen messages if not.
+	 * 
+	 * @param message the message
+	 * @param ttl the time, in relative milliseconds, the message should be held in the cache
+	 * @param retained (currently unused) whether the message should be retained for future nodes to receive
+	 * @return true if this message has already been handled, false otherwise.
+	 */
+	public boolean isDuplicate(IFabricMessage message, long ttl, boolean retained);
 	
 }
@@ -7,9 +7,6 @@
 
 package fabric.bus.services.impl;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.logging.Level;
 
 import fabric.bus.messages.IClientNotificationMessage;
@@ -18,6 +15,8 @@ import fabric.bus.messages.INotificationMessage;
 import fabric.bus.messages.IServiceMessage;
 import fabric.bus.services.IFloodMessageService;
 import fabric.bus.services.IPersistentService;
+import fabric.core.properties.ConfigProperties;
+import fabric.services.floodmessage.DuplicateDetector;
 
 /**
  *
@@ -35,7 +34,7 @@ public class FloodMessageService extends BusService implements IPersistentServic
      * 
      * @return the instance
      */
-    public static IFloodMessageService getInstance() {
+    public static synchronized IFloodMessageService getInstance() {
 
         if (INSTANCE == null) {
             INSTANCE = new FloodMessageService();
@@ -43,11 +42,8 @@ public class FloodMessageService extends BusService implements IPersistentServic
         return INSTANCE;
     }
 
-    /** The cache of messages that have been handled. */
-    private final HashMap<String, MessageCacheEntry> handledMessageCache;
-
-    /** Watchdog for expiring messages from the cache. */
-    private MessageCacheWatchdog watchdog = null;
+    /** The UIDs of the messages that have been handled. */
+    private final DuplicateDetector handledMessages;
 
     /**
      * Create an instance of the service
@@ -62,9 +58,11 @@ public class FloodMessageService extends BusService implements IPersistentServic
             throw new UnsupportedOperationException();
         }
 
-        handledMessageCache = new HashMap<String, MessageCacheEntry>();
-        watchdog = new MessageCacheWatchdog();
-        watchdog.start();
+        long bucketWidth = Long.parseLong(config(ConfigProperties.ROUTING_FLOOD_DUPLICATES_BUCKET,
+                ConfigProperties.ROUTING_FLOOD_DUPLICATES_BUCKET_DEFAULT));
+        int maxEntries = Integer.parseInt(config(ConfigProperties.ROUTING_FLOOD_DUPLICATES_MAX,
+                ConfigProperties.ROUTING_FLOOD_DUPLICATES_MAX_DEFAULT));
+        handledMessages = new DuplicateDetector(bucketWidth, maxEntries);
     }
 
     /**
@@ -76,7 +74,7 @@ public class FloodMessageService extends BusService implements IPersistentServic
     @Override
     public boolean isDuplicate(String uid) {
 
-        return handledMessageCache.containsKey(uid);
+        return handledMessages.contains(uid);
     }
 
     /**
@@ -86,11 +84,26 @@ public class FloodMessageService extends BusService implements IPersistentServic
     public void addMessage(IFabricMessage message, long ttl, boolean retained) {
 
         // A ttl of 0 means never expire
-        long expireyTime = (ttl > 0) ? System.currentTimeMillis() + ttl : 0;
-        MessageCacheEntry entry = new MessageCacheEntry(retained, expireyTime, message);
-        synchronized (handledMessageCache) {
-            handledMessageCache.put(message.getUID(), entry);
-        }
+        handledMessages.add(message.getUID(), ttl);
+    }
+
+    /**
+     * @see IFloodMessageService#isDuplicate(IFabricMessage, long, boolean)
+     */
+    @Override
+    public boolean isDuplicate(IFabricMessage message, long ttl, boolean retained) {
+
+        return handledMessages.checkAndAdd(message.getUID(), ttl);
+    }
+
+    /**
+     * Answers the detector used to record the messages that have been handled (for access to its metrics).
+     *
+     * @return the detector.
+     */
+    public DuplicateDetector getDuplicateDetector() {
+
+        return handledMessages;
     }
 
     /**
@@ -120,100 +133,6 @@ public class FloodMessageService extends BusService implements IPersistentServic
     @Override
     public void stopService() {
 
-        watchdog.shutdown();
         logger.log(Level.FINE, "Service [{0}] stopped", getClass().getName());
     }
-
-    /**
-     * Class representing a message entry in the cache
-     */
-    class MessageCacheEntry {
-
-        IFabricMessage message;
-        long expiryTime;
-        boolean retained;
-
-        public MessageCacheEntry(boolean retained, long expiryTime, IFabricMessage message) {
-
-            this.message = message;
-            this.expiryTime = expiryTime;
-            this.retained = retained;
-
-        }
-    }
-
-    /**
-     * The Watchdog thread used to expire messages from the cache.
-     */
-    class MessageCacheWatchdog extends Thread {
-
-        /**
-         * Default interval for how often the watchdog runs.
-         */
-        public static final int WATCHDOG_INTERVAL = 60000;
-
-        /** flag to control running state of the watchdog. */
-        boolean running = true;
-
-        /** Object to synchronize lifecycle operations against. */
-        Object lifecycle = new Object();
-
-        /** Stops the watchdog. Blocks until the watchdog is stopped. */
-        public void shutdown() {
-
-            synchronized (lifecycle) {
-                running = false;
-                lifecycle.notifyAll();
-                try {
-                    lifecycle.wait(WATCHDOG_INTERVAL);
-                } catch (InterruptedException e) {
-                }
-            }
-        }
-
-        @Override
-        public void run() {
-
-            while (running) {
-                synchronized (lifecycle) {
-                    try {
-                        lifecycle.wait(WATCHDOG_INTERVAL);
-                    } catch (InterruptedException e) {
-                    }
-                    // Check we should still be running
-                    if (!running) {
-                        break;
-                    }
-                }
-
-                // Get the current time
-                long now = System.currentTimeMillis();
-
-                // Build up a list of the messages that have expired.
-                ArrayList<String> toExpire = new ArrayList<String>();
-
-                // Prevent concurrent modification errors
-                synchronized (handledMessageCache) {
-                    Iterator<MessageCacheEntry> it = handledMessageCache.values().iterator();
-                    while (it.hasNext()) {
-                        MessageCacheEntry entry = it.next();
-                        if (entry.expiryTime > 0 && entry.expiryTime < now) {
-                            toExpire.add(entry.message.getUID());
-                        }
-                    }
-
-                    Iterator<String> uidIt = toExpire.iterator();
-                    while (uidIt.hasNext()) {
-                        String uid = uidIt.next();
-                        handledMessageCache.remove(uid);
-                    }
-                }
-
-            }
-
-            synchronized (lifecycle) {
-                lifecycle.notifyAll();
-            }
-        }
-    }
 }
@@ -32,6 +32,7 @@ import fabric.registry.impl.NodeIpMappingFactoryImpl;
 import fabric.registry.impl.NodeNeighbourFactoryImpl;
 import fabric.registry.impl.NodePluginFactoryImpl;
 import fabric.registry.impl.PlatformFactoryImpl;
+import fabric.registry.impl.RegistryWriteBehind;
 import fabric.registry.impl.RouteFactoryImpl;
 import fabric.registry.impl.ServiceFactoryImpl;
 import fabric.registry.impl.SystemFactoryImpl;
@@ -887,6 +888,85 @@ public class FabricRegistry {
         return false;
     }
 
+    /**
+     * Queues the specified object to be saved to the local Registry, in the same way as <code>save()</code>.
+     * <p>
+     * Queued saves are written in batches, and saves of the same object made before it is written are coalesced. Local
+     * Registry queries write any saves queued for the tables that they read first; use <code>flush()</code> to write
+     * the queue, for example before other nodes need to see the object. If write-behind is disabled (the default) the
+     * object is saved immediately.
+     * </p>
+     *
+     * @param obj
+     *            the RegistryObject to be saved
+     * @return <code>SAVED</code> if the object has been written, <code>QUEUED</code> if it is waiting to be written,
+     *         or <code>NOT_SAVED</code> if it could not be saved.
+     */
+    public static SaveStatus queueSave(RegistryObject obj) throws IncompleteObjectException {
+
+        Object factory = null;
+
+        if (obj instanceof Service) {
+            factory = getServiceFactory(QueryScope.LOCAL);
+        } else if (obj instanceof System) {
+            factory = getSystemFactory(QueryScope.LOCAL);
+        } else if (obj instanceof Node) {
+            factory = getNodeFactory(QueryScope.LOCAL);
+        } else if (obj instanceof Platform) {
+            factory = getPlatformFactory(QueryScope.LOCAL);
+        } else if (obj instanceof Type) {
+            factory = getTypeFactory(QueryScope.LOCAL);
+        } else if (obj instanceof Actor) {
+            factory = getActorFactory(QueryScope.LOCAL);
+        } else if (obj instanceof Task) {
+            factory = getTaskFactory(QueryScope.LOCAL);
+        } else if (obj instanceof ActorPlugin) {
+            factory = getActorPluginFactory(QueryScope.LOCAL);
+        } else if (obj instanceof FabricPlugin) {
+            factory = getFabricPluginFactory(QueryScope.LOCAL);
+        } else if (obj instanceof NodePlugin) {
+            factory = getNodePluginFactory(QueryScope.LOCAL);
+        } else if (obj instanceof TaskPlugin) {
+            factory = getTaskPluginFactory(QueryScope.LOCAL);
+        } else if (obj instanceof TaskNode) {
+            factory = getTaskNodeFactory(QueryScope.LOCAL);
+        } else if (obj instanceof Route) {
+            factory = getRouteFactory(QueryScope.LOCAL);
+        } else if (obj instanceof TaskSubscription) {
+            factory = getTaskSubscriptionFactory(QueryScope.LOCAL);
+        } else if (obj instanceof TaskService) {
+            factory = getTaskServiceFactory(QueryScope.LOCAL);
+        } else if (obj instanceof NodeNeighbour) {
+            factory = getNodeNeighbourFactory(QueryScope.LOCAL);
+        } else if (obj instanceof NodeIpMapping) {
+            factory = getNodeIpMappingFactory(QueryScope.LOCAL);
+        } else if (obj instanceof CompositeService) {
+            factory = getCompositeSystemFactory(QueryScope.LOCAL);
+        } else if (obj instanceof CompositePart) {
+            factory = getCompositePartFactory(QueryScope.LOCAL);
+        } else if (obj instanceof SystemWiring) {
+            factory = getSystemWiringFactory(QueryScope.LOCAL);
+        } else if (obj instanceof CachedMessage) {
+            factory = getCachedMessageFactory(QueryScope.LOCAL);
+        }
+
+        if (factory instanceof AbstractFactory) {
+            return RegistryWriteBehind.getInstance().queue(obj, (AbstractFactory) factory);
+        }
+
+        return save(obj) ? SaveStatus.SAVED : SaveStatus.NOT_SAVED;
+    }
+
+    /**
+     * Writes any queued saves to the local Registry, returning once they have been written.
+     *
+     * @return <code>true</code> if every queued save was written, <code>false</code> otherwise.
+     */
+    public static boolean flush() {
+
+        return RegistryWriteBehind.getInstance().flush();
+    }
+
     /**
      * Saves an object using the specified factory.
      *
@@ -1064,6 +1144,39 @@ public class FabricRegistry {
         return objects;
     }
 
+    /**
+     * Runs an arbitrary parameterised SQL query against the Fabric Registry. The specified factory class is then used
+     * to instantiate the objects that should be created for the matching results.
+     *
+     * @param sql
+     *            The SQL SELECT statement to run, with a <code>?</code> marker for each parameter
+     * @param parameters
+     *            The values bound to the markers, in order
+     * @param factoryClass
+     *            The class of the factory used to instantiate the Registry Objects
+     * @param queryScope
+     *            - indicates whether the query should reflect local registry only
+     * @return
+     * @throws PersistenceException
+     *             if the query fails for some reason
+     * @throws FactoryCreationException
+     *             if an error occurs when loading or instantiating the factory class specified.
+     */
+    public static RegistryObject[] runQuery(String sql, Object[] parameters, Class factoryClass,
+            QueryScope queryScope) throws PersistenceException, FactoryCreationException {
+
+        if (sql.toUpperCase().startsWith("DELETE") || sql.toUpperCase().startsWith("INSERT")
+                || sql.toUpperCase().startsWith("UPDATE")) {
+            throw new PersistenceException("Invalid SQL - only SELECT is allowed using this method");
+        }
+        RegistryObject[] objects = null;
+        AbstractFactory factory = FactoryBuilder.createFactory(factoryClass);
+        if (factory != null && sql != null) {
+            objects = PersistenceManager.getPersistence().queryRegistryObjects(sql, parameters, factory, queryScope);
+        }
+        return objects;
+    }
+
     // /**
     // * Runs a SQL query against the Fabric Registry where the expected result is a single integer value.
     // *
@@ -0,0 +1,19 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.registry;
+
+/**
+ * Enumerated type indicating the outcome of queueing an object to be saved to the Registry: SAVED (the object has been
+ * written), QUEUED (it is waiting to be written) or NOT_SAVED (it could not be saved).
+ *
+ */
+public enum SaveStatus {
+
+    /** (C) Copyright IBM Corp. 2016 */
+    SAVED, QUEUED, NOT_SAVED
+}
@@ -8,6 +8,7 @@
 package fabric.registry.impl;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -17,6 +18,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import fabric.Fabric;
+import fabric.core.logging.FLog;
 import fabric.registry.QueryScope;
 import fabric.registry.RegistryObject;
 import fabric.registry.exception.DuplicateKeyException;
@@ -25,6 +27,7 @@ import fabric.registry.exception.MalformedPredicateException;
 import fabric.registry.exception.PersistenceException;
 import fabric.registry.persistence.IPersistenceResultRow;
 import fabric.registry.persistence.PersistenceManager;
+import fabric.registry.persistence.SQLParameters;
 
 /**
  */
@@ -76,6 +79,56 @@ public abstract class AbstractFactory extends Fabric {
      */
     public abstract RegistryObject create(IPersistenceResultRow row) throws PersistenceException;
 
+    /*
+     * Parameterised statements
+     */
+
+    /**
+     * Get the values of the parameter markers in the INSERT statement for a given registry object.
+     *
+     * Factories that return parameters from this method return a statement containing <code>?</code> parameter
+     * markers from <code>getInsertSql()</code>; the statement can then be prepared once and reused. The default
+     * implementation returns <code>null</code>, indicating that <code>getInsertSql()</code> returns literal SQL.
+     *
+     * The parameters of all factories (including those of the update and delete statements, and of their queries)
+     * store and match the rows that the literal SQL did. In particular, a <code>null</code> ID or key value is bound
+     * as the string <code>'null'</code>, using <code>String.valueOf()</code>, since the literal SQL quoted it.
+     * Other columns, which the literal SQL wrote with <code>nullOrString()</code>, are bound as <code>null</code>.
+     * Query parameters were always quoted, so <code>queryRegistryObjects()</code> binds any <code>null</code> query
+     * parameter as <code>'null'</code>.
+     *
+     * @param obj
+     * @return the parameter values, or <code>null</code> if the statement is not parameterised.
+     */
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        return null;
+    }
+
+    /**
+     * Get the values of the parameter markers in the UPDATE statement for a given registry object.
+     *
+     * @param obj
+     * @return the parameter values, or <code>null</code> if the statement is not parameterised.
+     * @see #getInsertParameters(RegistryObject)
+     */
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        return null;
+    }
+
+    /**
+     * Get the values of the parameter markers in the DELETE statement for a given registry object.
+     *
+     * @param obj
+     * @return the parameter values, or <code>null</code> if the statement is not parameterised.
+     * @see #getInsertParameters(RegistryObject)
+     */
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        return null;
+    }
+
     /**
      * Insert an object in the Registry.
      *
@@ -95,8 +148,10 @@ public abstract class AbstractFactory extends Fabric {
 
         if (obj != null && obj.isValid()) {
             try {
-                logger.log(Level.FINEST, "Insert SQL: {0}", factory.getInsertSql(obj));
-                boolean success = PersistenceManager.getPersistence().updateRegistryObject(factory.getInsertSql(obj));
+                String sql = factory.getInsertSql(obj);
+                Object[] parameters = factory.getInsertParameters(obj);
+                logger.log(Level.FINEST, "Insert SQL: {0} {1}", new Object[] {sql, FLog.arrayAsString(parameters)});
+                boolean success = PersistenceManager.getPersistence().updateRegistryObject(sql, parameters, false);
                 if (success) {
                     /* Update shadow since the object is now updated in the database */
                     ((AbstractRegistryObject) obj).createShadow();
@@ -124,8 +179,10 @@ public abstract class AbstractFactory extends Fabric {
         PersistenceException {
 
         if (obj != null && obj.isValid()) {
-            logger.log(Level.FINEST, "Update SQL: {0}", factory.getUpdateSql(obj));
-            boolean success = PersistenceManager.getPersistence().updateRegistryObject(factory.getUpdateSql(obj));
+            String sql = factory.getUpdateSql(obj);
+            Object[] parameters = factory.getUpdateParameters(obj);
+            logger.log(Level.FINEST, "Update SQL: {0} {1}", new Object[] {sql, FLog.arrayAsString(parameters)});
+            boolean success = PersistenceManager.getPersistence().updateRegistryObject(sql, parameters, false);
             if (success) {
                 /* Update shadow since the object is now updated in the database */
                 ((AbstractRegistryObject) obj).createShadow();
@@ -187,8 +244,10 @@ public abstract class AbstractFactory extends Fabric {
 
         if (obj != null && obj.isValid()) {
             try {
-                logger.log(Level.FINEST, "Delete SQL: {0}", factory.getDeleteSql(obj));
-                return PersistenceManager.getPersistence().updateRegistryObject(factory.getDeleteSql(obj));
+                String sql = factory.getDeleteSql(obj);
+                Object[] parameters = factory.getDeleteParameters(obj);
+                logger.log(Level.FINEST, "Delete SQL: {0} {1}", new Object[] {sql, FLog.arrayAsString(parameters)});
+                return PersistenceManager.getPersistence().updateRegistryObject(sql, parameters, false);
             } catch (PersistenceException e) {
                 e.printStackTrace();
                 return false;
@@ -202,11 +261,24 @@ public abstract class AbstractFactory extends Fabric {
 
         if (objects != null && objects.length > 0 && checkObjectsAreValid(objects)) {
             List<String> sqlDeletes = new ArrayList<String>();
+            Object[][] parameters = new Object[objects.length][];
+            boolean isSingleStatement = true;
             for (int i = 0; i < objects.length; i++) {
                 sqlDeletes.add(factory.getDeleteSql(objects[i]));
+                parameters[i] = factory.getDeleteParameters(objects[i]);
+                isSingleStatement = isSingleStatement && parameters[i] != null
+                        && sqlDeletes.get(i).equals(sqlDeletes.get(0));
             }
             try {
-                PersistenceManager.getPersistence().updateRegistryObjects(sqlDeletes.toArray(new String[] {}));
+                if (isSingleStatement) {
+                    /* Run the same prepared statement for each object */
+                    PersistenceManager.getPersistence().updateRegistryObjects(sqlDeletes.get(0), parameters);
+                } else {
+                    for (int i = 0; i < objects.length; i++) {
+                        sqlDeletes.set(i, SQLParameters.inline(sqlDeletes.get(i), parameters[i]));
+                    }
+                    PersistenceManager.getPersistence().updateRegistryObjects(sqlDeletes.toArray(new String[] {}));
+                }
                 return true;
             } catch (PersistenceException e) {
                 e.printStackTrace();
@@ -222,7 +294,48 @@ public abstract class AbstractFactory extends Fabric {
         logger.log(Level.FINEST, "Query SQL: {0}", sqlString);
         RegistryObject[] results = null;
         if (sqlString != null && sqlString.length() > 0) {
-            results = PersistenceManager.getPersistence().queryRegistryObjects(sqlString, factory, queryScope);
+            if (queryScope == QueryScope.LOCAL) {
+                results = RegistryQueryCache.getInstance().query(sqlString, null, factory);
+            } else {
+                results = PersistenceManager.getPersistence().queryRegistryObjects(sqlString, factory, queryScope);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run a parameterised query for Registry objects.
+     * <p>
+     * Local queries are answered from the Registry query cache where possible (see <code>RegistryQueryCache</code>).
+     * </p>
+     *
+     * @param sqlString
+     *            the SELECT statement, containing <code>?</code> parameter markers.
+     * @param parameters
+     *            the values of the parameter markers (<code>null</code> values are bound as <code>'null'</code>).
+     * @param factory
+     *            the factory used to convert each row into a registry object.
+     * @return the matching objects.
+     * @throws PersistenceException
+     */
+    public RegistryObject[] queryRegistryObjects(String sqlString, Object[] parameters, AbstractFactory factory)
+            throws PersistenceException {
+
+        logger.log(Level.FINEST, "Query SQL: {0} {1}", new Object[] {sqlString, FLog.arrayAsString(parameters)});
+        RegistryObject[] results = null;
+        if (parameters != null && Arrays.asList(parameters).contains(null)) {
+            parameters = parameters.clone();
+            for (int p = 0; p < parameters.length; p++) {
+                parameters[p] = (parameters[p] != null) ? parameters[p] : "null";
+            }
+        }
+        if (sqlString != null && sqlString.length() > 0) {
+            if (queryScope == QueryScope.LOCAL) {
+                results = RegistryQueryCache.getInstance().query(sqlString, parameters, factory);
+            } else {
+                results = PersistenceManager.getPersistence().queryRegistryObjects(sqlString, parameters, factory,
+                        queryScope);
+            }
         }
         return results;
     }
@@ -59,6 +59,21 @@ public abstract class AbstractRegistryObject implements RegistryObject, Cloneabl
 		return clone;
 	}
 
+	/**
+	 * Returns a copy of this object, including its shadow.
+	 * 
+	 * This functionality is used internally to hand out cached query results - each caller receives its own copy.
+	 */
+	AbstractRegistryObject copy() {
+		AbstractRegistryObject copy = null;
+		try {
+			copy = (AbstractRegistryObject) this.clone();
+		} catch (CloneNotSupportedException e) {
+			e.printStackTrace();
+		}
+		return copy;
+	}
+
 	@Override
 	public boolean hasChanged() {
 		return !this.equals(shadow);
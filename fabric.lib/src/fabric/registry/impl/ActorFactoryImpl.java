@@ -52,8 +52,8 @@ public class ActorFactoryImpl extends AbstractFactory implements ActorFactory {
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.ACTORS);
-        BY_ID_QUERY = format("select * from %s where ACTOR_ID='\\%s'", FabricRegistry.ACTORS);
-        BY_TYPE_QUERY = format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.ACTORS);
+        BY_ID_QUERY = format("select * from %s where ACTOR_ID=?", FabricRegistry.ACTORS);
+        BY_TYPE_QUERY = format("select * from %s where TYPE_ID=?", FabricRegistry.ACTORS);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.ACTORS);
 
     }
@@ -91,60 +91,61 @@ public class ActorFactoryImpl extends AbstractFactory implements ActorFactory {
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.ACTORS + " where(ACTOR_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Actor) {
             Actor client = (Actor) obj;
-            buf.append("delete from " + FabricRegistry.ACTORS + " where(");
-            buf.append("ACTOR_ID='").append(client.getId()).append("')");
+            parameters = new Object[] {String.valueOf(client.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.ACTORS + " values(?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Actor) {
             Actor client = (Actor) obj;
-            buf.append("insert into " + FabricRegistry.ACTORS + " values(");
-            buf.append(nullOrString(client.getId())).append(',');
-            buf.append(nullOrString(client.getTypeId())).append(',');
-            buf.append(nullOrString(client.getAffiliation())).append(',');
-            buf.append(nullOrString(client.getRoles())).append(',');
-            buf.append(nullOrString(client.getCredentials())).append(',');
-            buf.append(nullOrString(client.getDescription())).append(',');
-            buf.append(nullOrString(client.getAttributes())).append(',');
-            buf.append(nullOrString(client.getAttributesUri())).append(')');
+            parameters = new Object[] {client.getId(), client.getTypeId(), client.getAffiliation(), client.getRoles(),
+                    client.getCredentials(), client.getDescription(), client.getAttributes(),
+                    client.getAttributesUri()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.ACTORS + " set ");
+        buf.append("ACTOR_ID=?,TYPE_ID=?,ROLES=?,CREDENTIALS=?,AFFILIATION=?,");
+        buf.append("DESCRIPTION=?,ATTRIBUTES=?,ATTRIBUTES_URI=?");
+        buf.append(" WHERE ACTOR_ID=? AND TYPE_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Actor) {
             Actor client = (Actor) obj;
-            buf.append("update " + FabricRegistry.ACTORS + " set ");
-            buf.append("ACTOR_ID='").append(client.getId()).append('\'').append(',');
-            buf.append("TYPE_ID=").append(nullOrString(client.getTypeId())).append(',');
-            buf.append("ROLES=").append(nullOrString(client.getRoles())).append(',');
-            buf.append("CREDENTIALS=").append(nullOrString(client.getCredentials())).append(',');
-            buf.append("AFFILIATION=").append(nullOrString(client.getAffiliation())).append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(client.getDescription())).append(',');
-            buf.append("ATTRIBUTES=").append(nullOrString(client.getAttributes())).append(',');
-            buf.append("ATTRIBUTES_URI=").append(nullOrString(client.getAttributesUri()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (client.getShadow() != null) {
-                Actor originalClient = (Actor) client.getShadow();
-                buf.append("ACTOR_ID='").append(originalClient.getId()).append("' AND ");
-                buf.append("TYPE_ID='").append(originalClient.getTypeId()).append('\'');
-            } else {
-                buf.append("ACTOR_ID='").append(client.getId()).append("' AND ");
-                buf.append("TYPE_ID='").append(client.getTypeId()).append('\'');
-            }
+            Actor key = (client.getShadow() != null) ? (Actor) client.getShadow() : client;
+
+            parameters = new Object[] {String.valueOf(client.getId()), client.getTypeId(), client.getRoles(),
+                    client.getCredentials(), client.getAffiliation(), client.getDescription(), client.getAttributes(),
+                    client.getAttributesUri(), String.valueOf(key.getId()), String.valueOf(key.getTypeId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -184,8 +185,7 @@ public class ActorFactoryImpl extends AbstractFactory implements ActorFactory {
     public Actor getActorById(String id) {
         Actor client = null;
         try {
-            String query = format(BY_ID_QUERY, id);
-            Actor[] clients = runQuery(query);
+            Actor[] clients = runQuery(BY_ID_QUERY, id);
             if (clients != null && clients.length > 0) {
                 client = clients[0];
             }
@@ -209,9 +209,9 @@ public class ActorFactoryImpl extends AbstractFactory implements ActorFactory {
         return clients;
     }
 
-    private Actor[] runQuery(String sql) throws PersistenceException {
+    private Actor[] runQuery(String sql, Object... parameters) throws PersistenceException {
         Actor[] clients = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             clients = new Actor[objects.length];
@@ -258,8 +258,7 @@ public class ActorFactoryImpl extends AbstractFactory implements ActorFactory {
     public Actor[] getActorsByType(String typeId) {
         Actor[] clients = null;
         try {
-            String query = format(BY_TYPE_QUERY, typeId);
-            clients = runQuery(query);
+            clients = runQuery(BY_TYPE_QUERY, typeId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
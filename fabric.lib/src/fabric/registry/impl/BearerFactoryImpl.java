@@ -64,7 +64,7 @@ public class BearerFactoryImpl extends AbstractFactory implements BearerFactory
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.BEARERS);
-        BY_ID_QUERY = format("select * from %s where BEARER_ID='\\%s'", FabricRegistry.BEARERS);
+        BY_ID_QUERY = format("select * from %s where BEARER_ID=?", FabricRegistry.BEARERS);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.BEARERS);
     }
 
@@ -91,54 +91,61 @@ public class BearerFactoryImpl extends AbstractFactory implements BearerFactory
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.BEARERS + " where(Bearer_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Bearer) {
             Bearer bearer = (Bearer) obj;
-            buf.append("delete from " + FabricRegistry.BEARERS + " where(");
-            buf.append("Bearer_ID='").append(bearer.getId()).append("')");
+            parameters = new Object[] {String.valueOf(bearer.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.BEARERS + "  values(?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Bearer) {
             Bearer bearer = (Bearer) obj;
-            buf.append("insert into " + FabricRegistry.BEARERS + "  values(");
-            buf.append('\'').append(bearer.getId()).append('\'').append(',');
-            buf.append('\'').append(bearer.getAvailable()).append('\'').append(',');
-            buf.append('\'').append(bearer.getDescription()).append('\'').append(',');
-            buf.append('\'').append(bearer.getAttributes()).append('\'').append(',');
-            buf.append('\'').append(bearer.getAttributesURI()).append("')");
+            parameters = new Object[] {String.valueOf(bearer.getId()), String.valueOf(bearer.getAvailable()),
+                    String.valueOf(bearer.getDescription()), String.valueOf(bearer.getAttributes()),
+                    String.valueOf(bearer.getAttributesURI())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.BEARERS
+                + " set BEARER_ID=?,AVAILABLE=?,DESCRIPTION=?,ATTRIBUTES=?,ATTRIBUTES_URI=? WHERE BEARER_ID=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Bearer) {
             Bearer bearer = (Bearer) obj;
-            buf.append("update " + FabricRegistry.BEARERS + " set ");
-            buf.append("BEARER_ID='").append(bearer.getId()).append('\'').append(',');
-            buf.append("AVAILABLE='").append(bearer.getAvailable()).append('\'').append(',');
-            buf.append("DESCRIPTION='").append(bearer.getDescription()).append('\'').append(',');
-            buf.append("ATTRIBUTES='").append(bearer.getAttributes()).append('\'').append(',');
-            buf.append("ATTRIBUTES_URI='").append(bearer.getAttributesURI()).append('\'');
-            buf.append(" WHERE ");
 
             /* If it exists, use the shadow values for the WHERE clause */
-            if (bearer.getShadow() != null) {
-                Bearer shadow = (Bearer) bearer.getShadow();
-                buf.append("BEARER_ID='").append(shadow.getId()).append('\'');
-            } else {
-                buf.append("BEARER_ID='").append(bearer.getId()).append('\'');
-            }
+            Bearer key = (bearer.getShadow() != null) ? (Bearer) bearer.getShadow() : bearer;
+
+            parameters = new Object[] {String.valueOf(bearer.getId()), String.valueOf(bearer.getAvailable()),
+                    String.valueOf(bearer.getDescription()), String.valueOf(bearer.getAttributes()),
+                    String.valueOf(bearer.getAttributesURI()), String.valueOf(key.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -180,8 +187,7 @@ public class BearerFactoryImpl extends AbstractFactory implements BearerFactory
 
         Bearer bearer = null;
         try {
-            String query = format(BY_ID_QUERY, id);
-            Bearer[] bearers = runQuery(query);
+            Bearer[] bearers = runQuery(BY_ID_QUERY, id);
             if (bearers != null && bearers.length > 0) {
                 bearer = bearers[0];
             }
@@ -232,10 +238,10 @@ public class BearerFactoryImpl extends AbstractFactory implements BearerFactory
         }
     }
 
-    private Bearer[] runQuery(String sql) throws PersistenceException {
+    private Bearer[] runQuery(String sql, Object... parameters) throws PersistenceException {
 
         Bearer[] bearers = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // Necessary
             bearers = new Bearer[objects.length];
@@ -45,23 +45,24 @@ public class CachedMessageFactoryImpl extends AbstractFactory implements CachedM
     private CachedMessageFactoryImpl(QueryScope queryScope) {
         this.queryScope = queryScope;
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.MESSAGE_CACHE);
-        BY_SRC_DST_QUERY = format("select * from %s where SOURCE like '\\%s' and DESTINATION like '\\%s'",
+        BY_SRC_DST_QUERY = format("select * from %s where SOURCE like ? and DESTINATION like ?",
                 FabricRegistry.MESSAGE_CACHE);
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.MESSAGE_CACHE + " values(?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CachedMessage) {
             CachedMessage msg = (CachedMessage) obj;
-            buf.append("insert into " + FabricRegistry.MESSAGE_CACHE + " values(");
-            String ts = (new java.sql.Timestamp(msg.getTimestamp())).toString();
-            buf.append('\'').append(ts).append('\'').append(',');
-            buf.append('\'').append(msg.getSource().replaceAll("'", "''")).append('\'').append(',');
-            buf.append('\'').append(msg.getDestination().replaceAll("'", "''")).append('\'').append(',');
-            buf.append('\'').append(msg.getMessage().replaceAll("'", "''")).append("')");
+            parameters = new Object[] {new java.sql.Timestamp(msg.getTimestamp()), msg.getSource(),
+                    msg.getDestination(), msg.getMessage()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -71,16 +72,18 @@ public class CachedMessageFactoryImpl extends AbstractFactory implements CachedM
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.MESSAGE_CACHE + " where(timestamp=? AND source=? AND destination=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CachedMessage) {
             CachedMessage msg = (CachedMessage) obj;
-            buf.append("delete from " + FabricRegistry.MESSAGE_CACHE + " where(");
-            String ts = (new java.sql.Timestamp(msg.getTimestamp())).toString();
-            buf.append("timestamp='").append(ts).append("' AND ");
-            buf.append("source='").append(msg.getSource().replaceAll("'", "''")).append("' AND ");
-            buf.append("destination='").append(msg.getDestination().replaceAll("'", "''")).append("')");
+            parameters = new Object[] {new java.sql.Timestamp(msg.getTimestamp()), msg.getSource(),
+                    msg.getDestination()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -143,9 +146,9 @@ public class CachedMessageFactoryImpl extends AbstractFactory implements CachedM
         return new CachedMessageImpl(timestamp, source, destination, message);
     }
 
-    private CachedMessage[] runQuery(String sql) throws PersistenceException {
+    private CachedMessage[] runQuery(String sql, Object... parameters) throws PersistenceException {
         CachedMessage[] msgs = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             msgs = new CachedMessage[objects.length];
@@ -181,12 +184,8 @@ public class CachedMessageFactoryImpl extends AbstractFactory implements CachedM
             if (destination == null || destination.equals("")) {
                 destination = "%";
             }
-            // Ensure safe SQL - escape all instances of '
-            source = source.replaceAll("'", "''");
-            destination = destination.replaceAll("'", "''");
-
             try {
-                msgs = runQuery(format(BY_SRC_DST_QUERY, source, destination));
+                msgs = runQuery(BY_SRC_DST_QUERY, source, destination);
             } catch (PersistenceException e) {
                 e.printStackTrace();
             }
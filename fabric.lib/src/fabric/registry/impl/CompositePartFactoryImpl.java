@@ -63,8 +63,7 @@ public class CompositePartFactoryImpl extends AbstractFactory implements Composi
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.COMPOSITE_PARTS);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.COMPOSITE_PARTS);
-        BY_ID_QUERY = format(
-                "select * from %s where COMPOSITE_ID='\\%s' AND SERVICE_PLATFORM_ID='\\%s' AND SERVICE_ID='\\%s'",
+        BY_ID_QUERY = format("select * from %s where COMPOSITE_ID=? AND SERVICE_PLATFORM_ID=? AND SERVICE_ID=?",
                 FabricRegistry.COMPOSITE_PARTS);
     }
 
@@ -89,58 +88,62 @@ public class CompositePartFactoryImpl extends AbstractFactory implements Composi
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.COMPOSITE_PARTS
+                + " where (Composite_ID=? AND Service_Platform_ID=? AND Service_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CompositePart) {
             CompositePart service = (CompositePart) obj;
-            buf.append("delete from " + FabricRegistry.COMPOSITE_PARTS + " where (");
-            buf.append("Composite_ID='").append(service.getCompositeId()).append("' AND ");
-            buf.append("Service_Platform_ID='").append(service.getServicePlatformId()).append("' AND ");
-            buf.append("Service_ID='").append(service.getServiceId()).append("')");
+            parameters = new Object[] {String.valueOf(service.getCompositeId()),
+                    String.valueOf(service.getServicePlatformId()), String.valueOf(service.getServiceId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.COMPOSITE_PARTS + " values(?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CompositePart) {
             CompositePart service = (CompositePart) obj;
-            buf.append("insert into " + FabricRegistry.COMPOSITE_PARTS + " values(");
-            buf.append('\'').append(service.getCompositeId()).append('\'').append(',');
-            buf.append('\'').append(service.getServicePlatformId()).append('\'').append(',');
-            buf.append('\'').append(service.getServiceId()).append('\'').append(',');
-            buf.append("").append(nullOrString(service.getAttributes())).append(',');
-            buf.append("").append(nullOrString(service.getAttributesURI())).append(')');
+            parameters = new Object[] {String.valueOf(service.getCompositeId()),
+                    String.valueOf(service.getServicePlatformId()), String.valueOf(service.getServiceId()),
+                    service.getAttributes(), service.getAttributesURI()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.COMPOSITE_PARTS + " set ");
+        buf.append("COMPOSITE_ID=?,SERVICE_PLATFORM_ID=?,SERVICE_ID=?,Attributes=?,Attributes_URI=?");
+        buf.append(" WHERE COMPOSITE_ID=? AND SERVICE_PLATFORM_ID=? AND SERVICE_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CompositePart) {
             CompositePart service = (CompositePart) obj;
-            buf.append("update " + FabricRegistry.COMPOSITE_PARTS + " set ");
-            buf.append("COMPOSITE_ID='").append(service.getCompositeId()).append('\'').append(',');
-            buf.append("SERVICE_PLATFORM_ID='").append(service.getServicePlatformId()).append('\'').append(',');
-            buf.append("SERVICE_ID='").append(service.getServiceId()).append('\'').append(',');
-            buf.append("Attributes=").append(nullOrString(service.getAttributes())).append(',');
-            buf.append("Attributes_URI=").append(nullOrString(service.getAttributesURI()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (service.getShadow() != null) {
-                CompositePart originalService = (CompositePart) service.getShadow();
-                buf.append(" COMPOSITE_ID='").append(originalService.getCompositeId()).append("' AND ");
-                buf.append(" SERVICE_PLATFORM_ID='").append(originalService.getServicePlatformId()).append("' AND ");
-                buf.append(" SERVICE_ID='").append(originalService.getServiceId()).append('\'');
-            } else {
-                buf.append(" COMPOSITE_ID='").append(service.getCompositeId()).append("' AND ");
-                buf.append(" SERVICE_PLATFORM_ID='").append(service.getServicePlatformId()).append("' AND ");
-                buf.append(" SERVICE_ID='").append(service.getServiceId()).append('\'');
-            }
+            CompositePart key = (service.getShadow() != null) ? (CompositePart) service.getShadow() : service;
+
+            parameters = new Object[] {String.valueOf(service.getCompositeId()),
+                    String.valueOf(service.getServicePlatformId()), String.valueOf(service.getServiceId()),
+                    service.getAttributes(), service.getAttributesURI(), String.valueOf(key.getCompositeId()),
+                    String.valueOf(key.getServicePlatformId()), String.valueOf(key.getServiceId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -189,8 +192,7 @@ public class CompositePartFactoryImpl extends AbstractFactory implements Composi
 
         CompositePart service = null;
         try {
-            String query = format(BY_ID_QUERY, compositeId, servicePlatformId, serviceId);
-            CompositePart[] systems = queryServices(query);
+            CompositePart[] systems = queryServices(BY_ID_QUERY, compositeId, servicePlatformId, serviceId);
             if (systems != null && systems.length > 0) {
                 service = systems[0]; /* pick the first one - ignore any duplicates */
             }
@@ -200,9 +202,9 @@ public class CompositePartFactoryImpl extends AbstractFactory implements Composi
         return service;
     }
 
-    private CompositePart[] queryServices(String sql) throws PersistenceException {
+    private CompositePart[] queryServices(String sql, Object... parameters) throws PersistenceException {
         CompositePart[] systems = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             systems = new CompositePart[objects.length];
             for (int x = 0; x < objects.length; x++) {
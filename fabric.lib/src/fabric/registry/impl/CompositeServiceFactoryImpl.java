@@ -42,6 +42,8 @@ public class CompositeServiceFactoryImpl extends AbstractFactory implements Comp
     private String SELECT_ALL_QUERY = null;
     /** Select records by type */
     private String BY_TYPE_QUERY = null;
+    /** Select records with no type */
+    private String BY_NULL_TYPE_QUERY = null;
     /** Select records using an arbitrary WHERE clause */
     private String PREDICATE_QUERY = null;
     /** Select record by id */
@@ -64,9 +66,10 @@ public class CompositeServiceFactoryImpl extends AbstractFactory implements Comp
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.COMPOSITE_SYSTEMS);
-        BY_TYPE_QUERY = format("select * from %s where TYPE \\%s", FabricRegistry.COMPOSITE_SYSTEMS);
+        BY_TYPE_QUERY = format("select * from %s where TYPE=?", FabricRegistry.COMPOSITE_SYSTEMS);
+        BY_NULL_TYPE_QUERY = format("select * from %s where TYPE IS NULL", FabricRegistry.COMPOSITE_SYSTEMS);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.COMPOSITE_SYSTEMS);
-        BY_ID_QUERY = format("select * from %s where ID='\\%s'", FabricRegistry.COMPOSITE_SYSTEMS);
+        BY_ID_QUERY = format("select * from %s where ID=?", FabricRegistry.COMPOSITE_SYSTEMS);
     }
 
     @Override
@@ -93,56 +96,59 @@ public class CompositeServiceFactoryImpl extends AbstractFactory implements Comp
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.COMPOSITE_SYSTEMS + " where ID=?";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CompositeService) {
             CompositeService service = (CompositeService) obj;
-            buf.append("delete from " + FabricRegistry.COMPOSITE_SYSTEMS + " where ");
-            buf.append("ID='").append(service.getId()).append('\'');
+            parameters = new Object[] {String.valueOf(service.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.COMPOSITE_SYSTEMS + " values(?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CompositeService) {
             CompositeService service = (CompositeService) obj;
-            buf.append("insert into " + FabricRegistry.COMPOSITE_SYSTEMS + " values(");
-            buf.append('\'').append(service.getId()).append('\'').append(',');
-            buf.append("").append(nullOrString(service.getType())).append(',');
-            buf.append("").append(nullOrString(service.getAffiliation())).append(',');
-            buf.append("").append(nullOrString(service.getCredentials())).append(',');
-            buf.append("").append(nullOrString(service.getDescription())).append(',');
-            buf.append("").append(nullOrString(service.getAttributes())).append(',');
-            buf.append("").append(nullOrString(service.getAttributesURI())).append(')');
+            parameters = new Object[] {String.valueOf(service.getId()), service.getType(), service.getAffiliation(),
+                    service.getCredentials(), service.getDescription(), service.getAttributes(),
+                    service.getAttributesURI()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.COMPOSITE_SYSTEMS + " set ");
+        buf.append("ID=?,TYPE=?,AFFILIATION=?,Credentials=?,Description=?,Attributes=?,Attributes_URI=?");
+        buf.append(" WHERE ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof CompositeService) {
             CompositeService service = (CompositeService) obj;
-            buf.append("update " + FabricRegistry.COMPOSITE_SYSTEMS + " set ");
-            buf.append("ID='").append(service.getId()).append('\'').append(',');
-            buf.append("TYPE=").append(nullOrString(service.getType())).append(',');
-            buf.append("AFFILIATION=").append(nullOrString(service.getAffiliation())).append(',');
-            buf.append("Credentials=").append(nullOrString(service.getCredentials())).append(',');
-            buf.append("Description=").append(nullOrString(service.getDescription())).append(',');
-            buf.append("Attributes=").append(nullOrString(service.getAttributes())).append(',');
-            buf.append("Attributes_URI=").append(nullOrString(service.getAttributesURI())).append("");
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (service.getShadow() != null) {
-                CompositeService originalService = (CompositeService) service.getShadow();
-                buf.append(" ID='").append(originalService.getId()).append('\'');
-            } else {
-                buf.append(" ID='").append(service.getId()).append('\'');
-            }
+            CompositeService key = (service.getShadow() != null) ? (CompositeService) service.getShadow() : service;
+
+            parameters = new Object[] {String.valueOf(service.getId()), service.getType(), service.getAffiliation(),
+                    service.getCredentials(), service.getDescription(), service.getAttributes(),
+                    service.getAttributesURI(), String.valueOf(key.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -188,8 +194,7 @@ public class CompositeServiceFactoryImpl extends AbstractFactory implements Comp
     public CompositeService getById(String id) {
         CompositeService service = null;
         try {
-            String query = format(BY_ID_QUERY, id);
-            CompositeService[] systems = querySystems(query);
+            CompositeService[] systems = querySystems(BY_ID_QUERY, id);
             if (systems != null && systems.length > 0) {
                 service = systems[0]; /* pick the first one - ignore any duplicates */
             }
@@ -205,21 +210,19 @@ public class CompositeServiceFactoryImpl extends AbstractFactory implements Comp
         try {
             // null values have to be handled differently in SQL
             if (type == null) {
-                type = "IS NULL";
+                systems = querySystems(BY_NULL_TYPE_QUERY);
             } else {
-                type = "=" + nullOrString(type);
+                systems = querySystems(BY_TYPE_QUERY, type);
             }
-            String query = format(BY_TYPE_QUERY, type);
-            systems = querySystems(query);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
         return systems;
     }
 
-    private CompositeService[] querySystems(String sql) throws PersistenceException {
+    private CompositeService[] querySystems(String sql, Object... parameters) throws PersistenceException {
         CompositeService[] systems = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             systems = new CompositeService[objects.length];
             for (int x = 0; x < objects.length; x++) {
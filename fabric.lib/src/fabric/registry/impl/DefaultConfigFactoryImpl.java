@@ -63,7 +63,7 @@ public class DefaultConfigFactoryImpl extends AbstractFactory implements Default
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.DEFAULT_CONFIG);
-        BY_NAME_QUERY = format("select * from %s where NAME='\\%s'", FabricRegistry.DEFAULT_CONFIG);
+        BY_NAME_QUERY = format("select * from %s where NAME=?", FabricRegistry.DEFAULT_CONFIG);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.DEFAULT_CONFIG);
     }
 
@@ -98,17 +98,21 @@ public class DefaultConfigFactoryImpl extends AbstractFactory implements Default
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.DEFAULT_CONFIG + " where(NAME=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
 
         if (obj instanceof DefaultConfig) {
 
             DefaultConfig dc = (DefaultConfig) obj;
-
-            buf.append("delete from " + FabricRegistry.DEFAULT_CONFIG + " where(");
-            buf.append("NAME='").append(dc.getName()).append("')");
+            parameters = new Object[] {String.valueOf(dc.getName())};
         }
 
-        return buf.toString();
+        return parameters;
     }
 
     /*
@@ -118,18 +122,22 @@ public class DefaultConfigFactoryImpl extends AbstractFactory implements Default
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.DEFAULT_CONFIG + "  values(?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
 
         if (obj instanceof DefaultConfig) {
 
             DefaultConfig dc = (DefaultConfig) obj;
 
-            buf.append("insert into " + FabricRegistry.DEFAULT_CONFIG + "  values(");
-            buf.append('\'').append(dc.getName()).append('\'').append(',');
-            buf.append('\'').append(dc.getValue()).append("')");
+            parameters = new Object[] {String.valueOf(dc.getName()), String.valueOf(dc.getValue())};
         }
 
-        return buf.toString();
+        return parameters;
     }
 
     /*
@@ -139,30 +147,25 @@ public class DefaultConfigFactoryImpl extends AbstractFactory implements Default
     @Override
     public String getUpdateSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.DEFAULT_CONFIG + " set VALUE=? WHERE NAME=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
 
         if (obj instanceof DefaultConfig) {
 
             DefaultConfig dc = (DefaultConfig) obj;
 
-            buf.append("update " + FabricRegistry.DEFAULT_CONFIG + " set ");
-            buf.append("VALUE='").append(dc.getValue()).append('\'');
-            buf.append(" WHERE ");
-
             /* If it exists, use the shadow values for the WHERE clause */
-            if (dc.getShadow() != null) {
+            DefaultConfig key = (dc.getShadow() != null) ? (DefaultConfig) dc.getShadow() : dc;
 
-                DefaultConfig shadow = (DefaultConfig) dc.getShadow();
-                buf.append("NAME='").append(shadow.getName()).append('\'');
-
-            } else {
-
-                buf.append("NAME='").append(dc.getName()).append('\'');
-
-            }
+            parameters = new Object[] {String.valueOf(dc.getValue()), String.valueOf(key.getName())};
         }
 
-        return buf.toString();
+        return parameters;
     }
 
     /*
@@ -204,8 +207,7 @@ public class DefaultConfigFactoryImpl extends AbstractFactory implements Default
 
         try {
 
-            String query = format(BY_NAME_QUERY, name);
-            DefaultConfig[] dcs = runQuery(query);
+            DefaultConfig[] dcs = runQuery(BY_NAME_QUERY, name);
 
             if (dcs != null && dcs.length > 0) {
                 dc = dcs[0];
@@ -306,11 +308,11 @@ public class DefaultConfigFactoryImpl extends AbstractFactory implements Default
      *
      * @throws PersistenceException
      */
-    private DefaultConfig[] runQuery(String sql) throws PersistenceException {
+    private DefaultConfig[] runQuery(String sql, Object... parameters) throws PersistenceException {
 
         DefaultConfig[] dcs = null;
 
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
 
         if (objects != null && objects.length > 0) {
 
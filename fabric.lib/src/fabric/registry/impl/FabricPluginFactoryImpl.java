@@ -59,53 +59,47 @@ public class FabricPluginFactoryImpl extends AbstractFactory implements FabricPl
 
         SELECT_ALL_QUERY_FABRIC_PLUGINS = format("select * from %s", FabricRegistry.FABLET_PLUGINS);
 
-        BY_NODE_QUERY_FABRIC_PLUGINS = format("select * from %s where NODE_ID='\\%s'", FabricRegistry.FABLET_PLUGINS);
+        BY_NODE_QUERY_FABRIC_PLUGINS = format("select * from %s where NODE_ID=?", FabricRegistry.FABLET_PLUGINS);
 
         PREDICATE_QUERY_FABRIC_PLUGINS = format("select * from %s where \\%s", FabricRegistry.FABLET_PLUGINS);
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.FABLET_PLUGINS
+                + " set NODE_ID=?,NAME=?,DESCRIPTION=?,ARGUMENTS=? WHERE NODE_ID=? AND NAME=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof FabricPlugin) {
             FabricPlugin plugin = (FabricPlugin) obj;
-            buf.append("update ");
-            buf.append(FabricRegistry.FABLET_PLUGINS);
-            buf.append(" set ");
-            buf.append("NODE_ID='").append(plugin.getNodeId()).append('\'').append(',');
-            buf.append("NAME='").append(plugin.getName()).append('\'').append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(plugin.getDescription())).append(',');
-            buf.append("ARGUMENTS=").append(nullOrString(plugin.getArguments()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (plugin.getShadow() != null) {
-                FabricPlugin shadow = (FabricPlugin) plugin.getShadow();
-                buf.append("NODE_ID='").append(shadow.getNodeId()).append("' AND ");
-                buf.append("NAME='").append(shadow.getName()).append('\'');
-            } else {
-                buf.append("NODE_ID='").append(plugin.getNodeId()).append("' AND ");
-                buf.append("NAME='").append(plugin.getName()).append('\'');
-            }
+            FabricPlugin key = (plugin.getShadow() != null) ? (FabricPlugin) plugin.getShadow() : plugin;
+
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    plugin.getDescription(), plugin.getArguments(), String.valueOf(key.getNodeId()),
+                    String.valueOf(key.getName())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.FABLET_PLUGINS + " values(?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof FabricPlugin) {
             FabricPlugin plugin = (FabricPlugin) obj;
-            buf.append("insert into ");
-            buf.append(FabricRegistry.FABLET_PLUGINS);
-            buf.append(" values(");
-            buf.append('\'').append(plugin.getNodeId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getName()).append('\'').append(',');
-            buf.append(nullOrString(plugin.getFamilyName())).append(',');
-            buf.append(nullOrString(plugin.getDescription())).append(',');
-            buf.append(nullOrString(plugin.getArguments())).append(')');
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    plugin.getFamilyName(), plugin.getDescription(), plugin.getArguments()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -180,17 +174,16 @@ public class FabricPluginFactoryImpl extends AbstractFactory implements FabricPl
     public FabricPlugin[] getFabricPluginsByNode(String id) {
         FabricPlugin[] plugins = null;
         try {
-            String query = format(BY_NODE_QUERY_FABRIC_PLUGINS, id);
-            plugins = runFabricPluginQuery(query);
+            plugins = runFabricPluginQuery(BY_NODE_QUERY_FABRIC_PLUGINS, id);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
         return plugins;
     }
 
-    private FabricPlugin[] runFabricPluginQuery(String sql) throws PersistenceException {
+    private FabricPlugin[] runFabricPluginQuery(String sql, Object... parameters) throws PersistenceException {
         FabricPlugin[] plugins = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             plugins = new FabricPlugin[objects.length];
@@ -261,22 +254,19 @@ public class FabricPluginFactoryImpl extends AbstractFactory implements FabricPl
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
-
-        FabricPlugin plugin = (FabricPlugin) obj;
-        buf.append("delete FROM ");
-        buf.append(FabricRegistry.FABLET_PLUGINS);
-        buf.append(" WHERE (");
-        buf.append("NODE_ID='");
-        buf.append(plugin.getNodeId()).append("' AND ");
-        buf.append("NAME='");
-        buf.append(plugin.getName()).append("' AND ");
-        buf.append("FAMILY='");
-        buf.append(plugin.getFamilyName()).append('\'');
+        return "delete FROM " + FabricRegistry.FABLET_PLUGINS + " WHERE (NODE_ID=? AND NAME=? AND FAMILY=?)";
+    }
 
-        buf.append(')');
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
 
-        return buf.toString();
+        Object[] parameters = null;
+        if (obj instanceof FabricPlugin) {
+            FabricPlugin plugin = (FabricPlugin) obj;
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    String.valueOf(plugin.getFamilyName())};
+        }
+        return parameters;
     }
 
 }
@@ -7,6 +7,9 @@
 
 package fabric.registry.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import fabric.registry.FabricRegistry;
 import fabric.registry.RegistryObject;
 import fabric.registry.exception.PersistenceException;
@@ -79,13 +82,14 @@ public class FeedRoutesFactoryImpl extends CustomQueryFactory {
 	 *            - the ID of system attached to the platform
 	 * @param feed
 	 * @param startNode
-	 * @return a String containing the complete SQL query
+	 * @return a String containing the complete SQL query, with a <code>?</code> marker for each value returned by
+	 *         {@link #getRouteQueryParameters(String, String, String, String, String)}
 	 */
 	public static String getRouteQuery(String task, String platform, String systemId, String feedId, String startNode) {
 
 		/* Build the query */
 		String query = "select ";
-		query += "'" + startNode + "' as my_node, ";
+		query += "cast(? as varchar(32672)) as my_node, ";
 		query += "ts.task_id, ";
 		query += "ts.platform_id, ";
 		query += "ts.service_id, ";
@@ -101,24 +105,24 @@ public class FeedRoutesFactoryImpl extends CustomQueryFactory {
 		query += "where ";
 
 		if (!task.equals("*")) {
-			query += "ts.task_id='" + task + "' and ";
+			query += "ts.task_id=? and ";
 		}
 
 		if (!platform.equals("*")) {
-			query += "ts.platform_id='" + platform + "' and ";
+			query += "ts.platform_id=? and ";
 		}
 
 		if (!systemId.equals("*")) {
-			query += "ts.service_id='" + systemId + "' and ";
+			query += "ts.service_id=? and ";
 		}
 
 		if (!feedId.equals("*")) {
-			query += "ts.data_feed_id='" + feedId + "' and ";
+			query += "ts.data_feed_id=? and ";
 		}
 
 		query += "ts.platform_id = p.platform_id and ";
 		query += "(" + "(p.node_id='$virtual' and r.start_node_id='*' and r.end_node_id='*')" + " or "
-				+ "(r.start_node_id='" + startNode + "' and r.end_node_id=p.node_id)" + " or "
+				+ "(r.start_node_id=? and r.end_node_id=p.node_id)" + " or "
 				+ "(r.start_node_id='*' and r.end_node_id='*')" + ") ";
 		query += "order by ";
 		query += "ts.task_id, ";
@@ -131,4 +135,29 @@ public class FeedRoutesFactoryImpl extends CustomQueryFactory {
 		return query;
 	}
 
+	/**
+	 * Gets the values to bind to the query returned by
+	 * {@link #getRouteQuery(String, String, String, String, String)} for the same arguments.
+	 * 
+	 * @param task
+	 * @param platform
+	 * @param systemId
+	 * @param feedId
+	 * @param startNode
+	 * @return the parameter values, in marker order
+	 */
+	public static Object[] getRouteQueryParameters(String task, String platform, String systemId, String feedId,
+			String startNode) {
+
+		List<Object> parameters = new ArrayList<Object>();
+		parameters.add(String.valueOf(startNode));
+		for (String id : new String[] {task, platform, systemId, feedId}) {
+			if (!id.equals("*")) {
+				parameters.add(id);
+			}
+		}
+		parameters.add(String.valueOf(startNode));
+		return parameters.toArray();
+	}
+
 }
@@ -63,7 +63,7 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.NODE_CONFIG);
-        BY_NODE_AND_NAME_QUERY = format("select * from %s where NODE_ID='\\%s' and NAME='\\%s'",
+        BY_NODE_AND_NAME_QUERY = format("select * from %s where NODE_ID=? and NAME=?",
                 FabricRegistry.NODE_CONFIG);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.NODE_CONFIG);
     }
@@ -100,19 +100,22 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.NODE_CONFIG + " where(NODE_ID=? AND NAME=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
 
         if (obj instanceof NodeConfig) {
 
             NodeConfig nc = (NodeConfig) obj;
-
-            buf.append("delete from " + FabricRegistry.NODE_CONFIG + " where(");
-            buf.append("NODE_ID='").append(nc.getNode()).append("' AND ");
-            buf.append("NAME='").append(nc.getName()).append("')");
+            parameters = new Object[] {String.valueOf(nc.getNode()), String.valueOf(nc.getName())};
 
         }
 
-        return buf.toString();
+        return parameters;
     }
 
     /*
@@ -122,19 +125,23 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.NODE_CONFIG + "  values(?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
 
         if (obj instanceof NodeConfig) {
 
             NodeConfig nc = (NodeConfig) obj;
 
-            buf.append("insert into " + FabricRegistry.NODE_CONFIG + "  values(");
-            buf.append('\'').append(nc.getNode()).append('\'').append(',');
-            buf.append('\'').append(nc.getName()).append('\'').append(',');
-            buf.append('\'').append(nc.getValue()).append("')");
+            parameters = new Object[] {String.valueOf(nc.getNode()), String.valueOf(nc.getName()),
+                    String.valueOf(nc.getValue())};
         }
 
-        return buf.toString();
+        return parameters;
     }
 
     /*
@@ -144,16 +151,18 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
     @Override
     public String getUpdateSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.NODE_CONFIG + " set VALUE=? WHERE NODE_ID=? AND NAME=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
 
         if (obj instanceof NodeConfig) {
 
             NodeConfig nc = (NodeConfig) obj;
 
-            buf.append("update " + FabricRegistry.NODE_CONFIG + " set ");
-            buf.append("VALUE='").append(nc.getValue()).append('\'');
-            buf.append(" WHERE ");
-
             NodeConfig configValue = null;
 
             /* If it exists, use the shadow values for the WHERE clause */
@@ -163,11 +172,11 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
                 configValue = nc;
             }
 
-            buf.append("NODE_ID='").append(configValue.getNode()).append("' AND ");
-            buf.append("NAME='").append(configValue.getName()).append('\'');
+            parameters = new Object[] {String.valueOf(nc.getValue()), String.valueOf(configValue.getNode()),
+                    String.valueOf(configValue.getName())};
         }
 
-        return buf.toString();
+        return parameters;
     }
 
     /*
@@ -209,8 +218,7 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
 
         try {
 
-            String query = format(BY_NODE_AND_NAME_QUERY, node, name);
-            NodeConfig[] ncs = runQuery(query);
+            NodeConfig[] ncs = runQuery(BY_NODE_AND_NAME_QUERY, node, name);
 
             if (ncs != null && ncs.length > 0) {
                 nc = ncs[0];
@@ -311,11 +319,11 @@ public class NodeConfigFactoryImpl extends AbstractFactory implements NodeConfig
      *
      * @throws PersistenceException
      */
-    private NodeConfig[] runQuery(String sql) throws PersistenceException {
+    private NodeConfig[] runQuery(String sql, Object... parameters) throws PersistenceException {
 
         NodeConfig[] ncs = null;
 
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
 
         if (objects != null && objects.length > 0) {
 
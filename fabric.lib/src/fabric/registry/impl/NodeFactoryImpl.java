@@ -60,8 +60,8 @@ public class NodeFactoryImpl extends AbstractFactory implements NodeFactory {
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.NODES);
-        BY_ID_QUERY = format("select * from %s where NODE_ID='\\%s'", FabricRegistry.NODES);
-        BY_TYPE_QUERY = format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.NODES);
+        BY_ID_QUERY = format("select * from %s where NODE_ID=?", FabricRegistry.NODES);
+        BY_TYPE_QUERY = format("select * from %s where TYPE_ID=?", FabricRegistry.NODES);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.NODES);
     }
 
@@ -95,71 +95,67 @@ public class NodeFactoryImpl extends AbstractFactory implements NodeFactory {
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.NODES + " where(Type_ID=? AND NODE_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Node) {
             Node node = (Node) obj;
-            buf.append("delete from " + FabricRegistry.NODES + " where(");
-            buf.append("Type_ID='").append(node.getTypeId()).append("' AND ");
-            buf.append("NODE_ID='").append(node.getId()).append("')");
+            parameters = new Object[] {node.getTypeId(), node.getId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.NODES + "  values(?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Node) {
             Node node = (Node) obj;
-            buf.append("insert into " + FabricRegistry.NODES + "  values(");
-            buf.append('\'').append(node.getId()).append('\'').append(',');
-            buf.append('\'').append(node.getTypeId()).append('\'').append(',');
-            buf.append('\'').append(node.getAffiliation()).append('\'').append(',');
-            buf.append('\'').append(node.getSecurityClassification()).append('\'').append(',');
-            buf.append('\'').append(node.getReadiness()).append('\'').append(',');
-            buf.append('\'').append(node.getAvailability()).append('\'').append(',');
-            buf.append(node.getLatitude()).append(',');
-            buf.append(node.getLongitude()).append(',');
-            buf.append(node.getAltitude()).append(',');
-            buf.append(node.getBearing()).append(',');
-            buf.append(node.getVelocity()).append(',');
-            buf.append('\'').append(node.getDescription()).append('\'').append(',');
-            buf.append('\'').append(node.getAttributes()).append('\'').append(',');
-            buf.append('\'').append(node.getAttributesURI()).append("')");
+            parameters = new Object[] {String.valueOf(node.getId()), String.valueOf(node.getTypeId()),
+                    String.valueOf(node.getAffiliation()), String.valueOf(node.getSecurityClassification()),
+                    String.valueOf(node.getReadiness()), String.valueOf(node.getAvailability()), node.getLatitude(),
+                    node.getLongitude(), node.getAltitude(), node.getBearing(), node.getVelocity(),
+                    String.valueOf(node.getDescription()), String.valueOf(node.getAttributes()),
+                    String.valueOf(node.getAttributesURI())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.NODES + " set ");
+        buf.append("NODE_ID=?,TYPE_ID=?,AFFILIATION=?,CREDENTIALS=?,READINESS=?,AVAILABILITY=?,");
+        buf.append("LATITUDE=?,LONGITUDE=?,ALTITUDE=?,BEARING=?,VELOCITY=?,");
+        buf.append("DESCRIPTION=?,ATTRIBUTES=?,ATTRIBUTES_URI=?");
+        buf.append(" WHERE NODE_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Node) {
             Node node = (Node) obj;
-            buf.append("update " + FabricRegistry.NODES + " set ");
-            buf.append("NODE_ID='").append(node.getId()).append('\'').append(',');
-            buf.append("TYPE_ID='").append(node.getTypeId()).append('\'').append(',');
-            buf.append("AFFILIATION='").append(node.getAffiliation()).append('\'').append(',');
-            buf.append("CREDENTIALS='").append(node.getSecurityClassification()).append('\'').append(',');
-            buf.append("READINESS='").append(node.getReadiness()).append('\'').append(',');
-            buf.append("AVAILABILITY='").append(node.getAvailability()).append('\'').append(',');
-            buf.append("LATITUDE=").append(node.getLatitude()).append(',');
-            buf.append("LONGITUDE=").append(node.getLongitude()).append(',');
-            buf.append("ALTITUDE=").append(node.getAltitude()).append(',');
-            buf.append("BEARING=").append(node.getBearing()).append(',');
-            buf.append("VELOCITY=").append(node.getVelocity()).append(',');
-            buf.append("DESCRIPTION='").append(node.getDescription()).append('\'').append(',');
-            buf.append("ATTRIBUTES='").append(node.getAttributes()).append('\'').append(',');
-            buf.append("ATTRIBUTES_URI='").append(node.getAttributesURI()).append('\'');
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (node.getShadow() != null) {
-                Node shadow = (Node) node.getShadow();
-                buf.append("NODE_ID='").append(shadow.getId()).append('\'');
-            } else {
-                buf.append("NODE_ID='").append(node.getId()).append('\'');
-            }
+            Node key = (node.getShadow() != null) ? (Node) node.getShadow() : node;
+
+            parameters = new Object[] {String.valueOf(node.getId()), String.valueOf(node.getTypeId()),
+                    String.valueOf(node.getAffiliation()), String.valueOf(node.getSecurityClassification()),
+                    String.valueOf(node.getReadiness()), String.valueOf(node.getAvailability()), node.getLatitude(),
+                    node.getLongitude(), node.getAltitude(), node.getBearing(), node.getVelocity(),
+                    String.valueOf(node.getDescription()), String.valueOf(node.getAttributes()),
+                    String.valueOf(node.getAttributesURI()), key.getId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -202,8 +198,7 @@ public class NodeFactoryImpl extends AbstractFactory implements NodeFactory {
     public Node getNodeById(String id) {
         Node node = null;
         try {
-            String query = format(BY_ID_QUERY, id);
-            Node[] nodes = runQuery(query);
+            Node[] nodes = runQuery(BY_ID_QUERY, id);
             if (nodes != null && nodes.length > 0) {
                 node = nodes[0];
             }
@@ -229,8 +224,7 @@ public class NodeFactoryImpl extends AbstractFactory implements NodeFactory {
     public Node[] getNodesByType(String typeId) {
         Node[] nodes = null;
         try {
-            String query = format(BY_TYPE_QUERY, typeId);
-            nodes = runQuery(query);
+            nodes = runQuery(BY_TYPE_QUERY, typeId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -263,9 +257,9 @@ public class NodeFactoryImpl extends AbstractFactory implements NodeFactory {
         }
     }
 
-    private Node[] runQuery(String sql) throws PersistenceException {
+    private Node[] runQuery(String sql, Object... parameters) throws PersistenceException {
         Node[] nodes = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             nodes = new Node[objects.length];
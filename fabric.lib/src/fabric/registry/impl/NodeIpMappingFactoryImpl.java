@@ -73,9 +73,9 @@ public class NodeIpMappingFactoryImpl extends AbstractFactory implements NodeIpM
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.NODE_IP_MAPPING);
 
-        BY_ID_QUERY = format("select * from %s where NODE_ID='\\%s'", FabricRegistry.NODE_IP_MAPPING);
+        BY_ID_QUERY = format("select * from %s where NODE_ID=?", FabricRegistry.NODE_IP_MAPPING);
 
-        BY_ID_AND_INTERFACE_QUERY = format("select * from %s where NODE_ID='\\%s' AND NODE_INTERFACE='\\%s'",
+        BY_ID_AND_INTERFACE_QUERY = format("select * from %s where NODE_ID=? AND NODE_INTERFACE=?",
                 FabricRegistry.NODE_IP_MAPPING);
 
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.NODE_IP_MAPPING);
@@ -123,59 +123,62 @@ public class NodeIpMappingFactoryImpl extends AbstractFactory implements NodeIpM
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.NODE_IP_MAPPING + " where(NODE_ID=? AND NODE_INTERFACE=? AND IP=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodeIpMapping) {
             NodeIpMapping ipMapping = (NodeIpMapping) obj;
-            buf.append("delete from " + FabricRegistry.NODE_IP_MAPPING + " where(");
-            buf.append("NODE_ID='").append(ipMapping.getNodeId()).append("' AND ");
-            buf.append("NODE_INTERFACE='").append(ipMapping.getNodeInterface()).append("' AND ");
-            buf.append("IP='").append(ipMapping.getIpAddress()).append("')");
+            parameters = new Object[] {String.valueOf(ipMapping.getNodeId()),
+                    String.valueOf(ipMapping.getNodeInterface()), String.valueOf(ipMapping.getIpAddress())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.NODE_IP_MAPPING + " values(?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodeIpMapping) {
             NodeIpMapping ipMapping = (NodeIpMapping) obj;
-            buf.append("insert into " + FabricRegistry.NODE_IP_MAPPING + " values(");
-            buf.append('\'').append(ipMapping.getNodeId()).append('\'').append(',');
-            buf.append('\'').append(ipMapping.getNodeInterface()).append('\'').append(',');
-            buf.append('\'').append(ipMapping.getIpAddress()).append('\'').append(',');
-            buf.append(ipMapping.getPort()).append(')');
+            parameters = new Object[] {String.valueOf(ipMapping.getNodeId()),
+                    String.valueOf(ipMapping.getNodeInterface()), String.valueOf(ipMapping.getIpAddress()),
+                    ipMapping.getPort()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.NODE_IP_MAPPING
+                + " set NODE_ID=?,NODE_INTERFACE=?,IP=?,PORT=? where NODE_ID=? and NODE_INTERFACE=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodeIpMapping) {
             NodeIpMapping ipMapping = (NodeIpMapping) obj;
-            buf.append("update " + FabricRegistry.NODE_IP_MAPPING + " set ");
-            buf.append("NODE_ID='").append(ipMapping.getNodeId()).append('\'').append(',');
-            buf.append("NODE_INTERFACE='").append(ipMapping.getNodeInterface()).append('\'').append(',');
-            buf.append("IP='").append(ipMapping.getIpAddress()).append('\'').append(',');
-            buf.append("PORT=").append(ipMapping.getPort());
-            buf.append(" where ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (ipMapping.getShadow() != null) {
-                NodeIpMapping shadow = (NodeIpMapping) ipMapping.getShadow();
-                buf.append("NODE_ID='").append(shadow.getNodeId()).append('\'');
-                buf.append(" and NODE_INTERFACE='").append(shadow.getNodeInterface()).append('\'');
-            } else {
-                buf.append("NODE_ID='").append(ipMapping.getNodeId()).append('\'');
-                buf.append(" and NODE_INTERFACE='").append(ipMapping.getNodeInterface()).append('\'');
-            }
+            NodeIpMapping key = (ipMapping.getShadow() != null) ? (NodeIpMapping) ipMapping.getShadow() : ipMapping;
+
+            parameters = new Object[] {String.valueOf(ipMapping.getNodeId()),
+                    String.valueOf(ipMapping.getNodeInterface()), String.valueOf(ipMapping.getIpAddress()),
+                    ipMapping.getPort(), String.valueOf(key.getNodeId()), String.valueOf(key.getNodeInterface())};
         }
-        return buf.toString();
+        return parameters;
     }
 
-    private NodeIpMapping[] runQuery(String sql) throws PersistenceException {
+    private NodeIpMapping[] runQuery(String sql, Object... parameters) throws PersistenceException {
         NodeIpMapping[] ipMappings = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             ipMappings = new NodeIpMapping[objects.length];
@@ -206,8 +209,7 @@ public class NodeIpMappingFactoryImpl extends AbstractFactory implements NodeIpM
     public NodeIpMapping[] getAllMappingsForNode(String nodeId) {
         NodeIpMapping[] ipMappings = null;
         try {
-            String query = format(BY_ID_QUERY, nodeId);
-            ipMappings = runQuery(query);
+            ipMappings = runQuery(BY_ID_QUERY, nodeId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -228,8 +230,7 @@ public class NodeIpMappingFactoryImpl extends AbstractFactory implements NodeIpM
     public NodeIpMapping getMappingForNode(String nodeId, String nodeInterface) {
         NodeIpMapping ipMapping = null;
         try {
-            String query = format(BY_ID_AND_INTERFACE_QUERY, nodeId, nodeInterface);
-            NodeIpMapping[] ipMappings = runQuery(query);
+            NodeIpMapping[] ipMappings = runQuery(BY_ID_AND_INTERFACE_QUERY, nodeId, nodeInterface);
             if (ipMappings != null && ipMappings.length > 0) {
                 ipMapping = ipMappings[0];
             }
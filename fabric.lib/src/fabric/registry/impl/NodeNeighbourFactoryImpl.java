@@ -85,24 +85,22 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.NODE_NEIGHBOURS);
 
-        UNIQUE_BY_ID_QUERY = format("select * from %s where node_id='\\%s'", FabricRegistry.NODE_NEIGHBOURS);
+        UNIQUE_BY_ID_QUERY = format("select * from %s where node_id=?", FabricRegistry.NODE_NEIGHBOURS);
 
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.NODE_NEIGHBOURS);
 
-        AVAILABLE_NEIGHBOURS_QUERY = format(
-                "select * from %s where NODE_ID='\\%s' and NEIGHBOUR_ID='\\%s' AND AVAILABILITY='"
-                        + NodeNeighbour.AVAILABLE + "'", FabricRegistry.NODE_NEIGHBOURS);
+        AVAILABLE_NEIGHBOURS_QUERY = format("select * from %s where NODE_ID=? and NEIGHBOUR_ID=? AND AVAILABILITY='"
+                + NodeNeighbour.AVAILABLE + "'", FabricRegistry.NODE_NEIGHBOURS);
 
         /** Delete records matching a specified node ID */
-        DELETE_NEIGHBOURS_BY_NODE = "delete from " + FabricRegistry.NODE_NEIGHBOURS + " where NODE_ID='\\%s'";
+        DELETE_NEIGHBOURS_BY_NODE = "delete from " + FabricRegistry.NODE_NEIGHBOURS + " where NODE_ID=?";
 
         SET_STATIC_NEIGHBOURS_TO_AVAILABLE = format("UPDATE %s SET AVAILABILITY='" + NodeNeighbour.AVAILABLE
-                + "' WHERE DISCOVEREDBY='" + NodeNeighbour.DISCOVEREDBY_STATIC + "' AND NODE_ID='\\%s'",
+                + "' WHERE DISCOVEREDBY='" + NodeNeighbour.DISCOVEREDBY_STATIC + "' AND NODE_ID=?",
                 FabricRegistry.NODE_NEIGHBOURS);
 
         MARK_UNAVAILABLE = format("UPDATE %s SET AVAILABILITY='" + NodeNeighbour.UNAVAILABLE
-                + "' WHERE NODE_ID='\\%s' AND NEIGHBOUR_ID='\\%s' AND NEIGHBOUR_INTERFACE='\\%s' ",
-                FabricRegistry.NODE_NEIGHBOURS);
+                + "' WHERE NODE_ID=? AND NEIGHBOUR_ID=? AND NEIGHBOUR_INTERFACE=? ", FabricRegistry.NODE_NEIGHBOURS);
 
     }
 
@@ -147,70 +145,71 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.NODE_NEIGHBOURS
+                + " where(NODE_ID=? AND NODE_INTERFACE=? AND NEIGHBOUR_ID=? AND NEIGHBOUR_INTERFACE=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodeNeighbour) {
             NodeNeighbour neighbour = (NodeNeighbour) obj;
-            buf.append("delete from " + FabricRegistry.NODE_NEIGHBOURS + " where(");
-            buf.append("NODE_ID='").append(neighbour.getNodeId()).append("' AND ");
-            buf.append("NODE_INTERFACE='").append(neighbour.getNodeInterface()).append("' AND ");
-            buf.append("NEIGHBOUR_ID='").append(neighbour.getNeighbourId()).append("' AND ");
-            buf.append("NEIGHBOUR_INTERFACE='").append(neighbour.getNeighbourInterface()).append("')");
+            parameters = new Object[] {neighbour.getNodeId(), neighbour.getNodeInterface(), neighbour.getNeighbourId(),
+                    neighbour.getNeighbourInterface()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.NODE_NEIGHBOURS + " values(?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodeNeighbour) {
             NodeNeighbour neighbour = (NodeNeighbour) obj;
-            buf.append("insert into " + FabricRegistry.NODE_NEIGHBOURS + " values(");
-            buf.append('\'').append(neighbour.getNodeId()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getNodeInterface()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getNeighbourId()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getNeighbourInterface()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getDiscoveredBy()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getAvailability()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getBearerId()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getConnectionAttributes()).append('\'').append(',');
-            buf.append('\'').append(neighbour.getConnectionAttributesUri()).append("')");
+            parameters = new Object[] {String.valueOf(neighbour.getNodeId()),
+                    String.valueOf(neighbour.getNodeInterface()), String.valueOf(neighbour.getNeighbourId()),
+                    String.valueOf(neighbour.getNeighbourInterface()), String.valueOf(neighbour.getDiscoveredBy()),
+                    String.valueOf(neighbour.getAvailability()), String.valueOf(neighbour.getBearerId()),
+                    String.valueOf(neighbour.getConnectionAttributes()),
+                    String.valueOf(neighbour.getConnectionAttributesUri())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.NODE_NEIGHBOURS + " set ");
+        buf.append("DISCOVEREDBY=?,AVAILABILITY=?,BEARER_ID=?,CONNECTION_ATTRIBUTES=?,CONNECTION_ATTRIBUTES_URI=?");
+        buf.append(" WHERE NODE_ID=? AND NODE_INTERFACE=? AND NEIGHBOUR_ID=? AND NEIGHBOUR_INTERFACE=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodeNeighbour) {
             NodeNeighbour neighbour = (NodeNeighbour) obj;
-            buf.append("update " + FabricRegistry.NODE_NEIGHBOURS + " set ");
-            buf.append("DISCOVEREDBY='").append(neighbour.getDiscoveredBy()).append('\'').append(',');
-            buf.append("AVAILABILITY='").append(neighbour.getAvailability()).append('\'').append(',');
-            buf.append("BEARER_ID='").append(neighbour.getBearerId()).append('\'').append(',');
-            buf.append("CONNECTION_ATTRIBUTES='").append(neighbour.getConnectionAttributes()).append('\'').append(',');
-            buf.append("CONNECTION_ATTRIBUTES_URI='").append(neighbour.getConnectionAttributesUri()).append('\'');
-            buf.append(" WHERE");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (neighbour.getShadow() != null) {
-                NodeNeighbour shadow = (NodeNeighbour) neighbour.getShadow();
-                buf.append(" NODE_ID='").append(shadow.getNodeId()).append("' AND");
-                buf.append(" NODE_INTERFACE='").append(shadow.getNodeInterface()).append("' AND");
-                buf.append(" NEIGHBOUR_ID='").append(shadow.getNeighbourId()).append("' AND");
-                buf.append(" NEIGHBOUR_INTERFACE='").append(shadow.getNeighbourInterface()).append('\'');
-            } else {
-                buf.append(" NODE_ID='").append(neighbour.getNodeId()).append("' AND");
-                buf.append(" NODE_INTERFACE='").append(neighbour.getNodeInterface()).append("' AND");
-                buf.append(" NEIGHBOUR_ID='").append(neighbour.getNeighbourId()).append("' AND");
-                buf.append(" NEIGHBOUR_INTERFACE='").append(neighbour.getNeighbourInterface()).append('\'');
-            }
+            NodeNeighbour key = (neighbour.getShadow() != null) ? (NodeNeighbour) neighbour.getShadow() : neighbour;
+
+            parameters = new Object[] {String.valueOf(neighbour.getDiscoveredBy()),
+                    String.valueOf(neighbour.getAvailability()), String.valueOf(neighbour.getBearerId()),
+                    String.valueOf(neighbour.getConnectionAttributes()),
+                    String.valueOf(neighbour.getConnectionAttributesUri()), key.getNodeId(), key.getNodeInterface(),
+                    key.getNeighbourId(), key.getNeighbourInterface()};
         }
-        return buf.toString();
+        return parameters;
     }
 
-    private NodeNeighbour[] runQuery(String sql) throws PersistenceException {
+    private NodeNeighbour[] runQuery(String sql, Object... parameters) throws PersistenceException {
         NodeNeighbour[] neighbours = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             neighbours = new NodeNeighbour[objects.length];
@@ -238,8 +237,7 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
     public NodeNeighbour[] getUniqueNeighboursByNeighbourId(String nodeId) {
         NodeNeighbour[] neighbours = null;
         try {
-            String query = format(UNIQUE_BY_ID_QUERY, nodeId);
-            neighbours = runQuery(query);
+            neighbours = runQuery(UNIQUE_BY_ID_QUERY, nodeId);
         } catch (PersistenceException e) {
             e.printStackTrace();
 
@@ -261,9 +259,9 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
     }
 
     public boolean deleteNeighboursForNode(String nodeId) {
-        String sql = format(DELETE_NEIGHBOURS_BY_NODE, nodeId);
         try {
-            boolean success = PersistenceManager.getPersistence().updateRegistryObject(sql);
+            boolean success = PersistenceManager.getPersistence().updateRegistryObject(DELETE_NEIGHBOURS_BY_NODE,
+                    new Object[] {nodeId}, false);
             return success;
         } catch (PersistenceException e) {
             e.printStackTrace();
@@ -334,8 +332,7 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
     public NodeNeighbour[] getAvailableNeighboursEntries(String nodeId, String neighbourId) {
         NodeNeighbour[] neighbours = null;
         try {
-            String query = format(AVAILABLE_NEIGHBOURS_QUERY, nodeId, neighbourId);
-            neighbours = runQuery(query);
+            neighbours = runQuery(AVAILABLE_NEIGHBOURS_QUERY, nodeId, neighbourId);
         } catch (PersistenceException e) {
             e.printStackTrace();
 
@@ -346,9 +343,9 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
 
     @Override
     public boolean markStaticNeighboursAsAvailable(String localNode) {
-        String sql = format(SET_STATIC_NEIGHBOURS_TO_AVAILABLE, localNode);
         try {
-            boolean success = PersistenceManager.getPersistence().updateRegistryObject(sql);
+            boolean success = PersistenceManager.getPersistence().updateRegistryObject(
+                    SET_STATIC_NEIGHBOURS_TO_AVAILABLE, new Object[] {localNode}, false);
             return success;
         } catch (PersistenceException e) {
             e.printStackTrace();
@@ -359,9 +356,10 @@ public class NodeNeighbourFactoryImpl extends AbstractFactory implements NodeNei
 
     @Override
     public boolean markUnavailable(String localNode, NodeDescriptor nodeDescriptor) {
-        String sql = format(MARK_UNAVAILABLE, localNode, nodeDescriptor.name(), nodeDescriptor.networkInterface());
+        Object[] parameters = new Object[] {localNode, nodeDescriptor.name(), nodeDescriptor.networkInterface()};
         try {
-            boolean success = PersistenceManager.getPersistence().updateRegistryObject(sql);
+            boolean success = PersistenceManager.getPersistence().updateRegistryObject(MARK_UNAVAILABLE, parameters,
+                    false);
             return success;
         } catch (PersistenceException e) {
             e.printStackTrace();
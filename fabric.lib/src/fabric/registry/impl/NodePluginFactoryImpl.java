@@ -60,55 +60,47 @@ public class NodePluginFactoryImpl extends AbstractFactory implements NodePlugin
 
         SELECT_ALL_QUERY_NODE_PLUGINS = format("select * from %s", FabricRegistry.NODE_PLUGINS);
 
-        BY_NODE_QUERY_NODE_PLUGINS = format("select * from %s where NODE_ID='\\%s'", FabricRegistry.NODE_PLUGINS);
+        BY_NODE_QUERY_NODE_PLUGINS = format("select * from %s where NODE_ID=?", FabricRegistry.NODE_PLUGINS);
 
         PREDICATE_QUERY_NODE_PLUGINS = format("select * from %s where \\%s", FabricRegistry.NODE_PLUGINS);
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.NODE_PLUGINS
+                + " set DESCRIPTION=?,ARGUMENTS=? WHERE NODE_ID=? AND ORDINAL=? AND TYPE=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodePlugin) {
             NodePlugin plugin = (NodePlugin) obj;
-            buf.append("update ");
-            buf.append(FabricRegistry.NODE_PLUGINS);
-            buf.append(" set ");
-            buf.append("DESCRIPTION=").append(nullOrString(plugin.getDescription())).append(',');
-            buf.append("ARGUMENTS=").append(nullOrString(plugin.getArguments()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (plugin.getShadow() != null) {
-                NodePlugin shadow = (NodePlugin) plugin.getShadow();
-                buf.append("NODE_ID='").append(shadow.getNodeId()).append("' AND ");
-                buf.append("ORDINAL=").append(shadow.getOrdinal()).append(" AND ");
-                buf.append("TYPE='").append(shadow.getPluginType()).append('\'');
-            } else {
-                buf.append("NODE_ID='").append(plugin.getNodeId()).append("' AND ");
-                buf.append("ORDINAL=").append(plugin.getOrdinal()).append(" AND ");
-                buf.append("TYPE='").append(plugin.getPluginType()).append('\'');
-            }
+            NodePlugin key = (plugin.getShadow() != null) ? (NodePlugin) plugin.getShadow() : plugin;
+
+            parameters = new Object[] {plugin.getDescription(), plugin.getArguments(),
+                    String.valueOf(key.getNodeId()), key.getOrdinal(), String.valueOf(key.getPluginType())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.NODE_PLUGINS + " values(?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof NodePlugin) {
             NodePlugin plugin = (NodePlugin) obj;
-            buf.append("insert into ");
-            buf.append(FabricRegistry.NODE_PLUGINS);
-            buf.append(" values(");
-            buf.append('\'').append(plugin.getNodeId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getName()).append('\'').append(',');
-            buf.append(nullOrString(plugin.getFamilyName())).append(',');
-            buf.append('\'').append(plugin.getPluginType()).append('\'').append(',');
-            buf.append(plugin.getOrdinal()).append(',');
-            buf.append(nullOrString(plugin.getDescription())).append(',');
-            buf.append(nullOrString(plugin.getArguments())).append(')');
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    plugin.getFamilyName(), String.valueOf(plugin.getPluginType()), plugin.getOrdinal(),
+                    plugin.getDescription(), plugin.getArguments()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -185,17 +177,16 @@ public class NodePluginFactoryImpl extends AbstractFactory implements NodePlugin
     public NodePlugin[] getNodePluginsByNode(String id) {
         NodePlugin[] plugins = null;
         try {
-            String query = format(BY_NODE_QUERY_NODE_PLUGINS, id);
-            plugins = runNodePluginQuery(query);
+            plugins = runNodePluginQuery(BY_NODE_QUERY_NODE_PLUGINS, id);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
         return plugins;
     }
 
-    private NodePlugin[] runNodePluginQuery(String sql) throws PersistenceException {
+    private NodePlugin[] runNodePluginQuery(String sql, Object... parameters) throws PersistenceException {
         NodePlugin[] plugins = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             plugins = new NodePlugin[objects.length];
@@ -266,23 +257,21 @@ public class NodePluginFactoryImpl extends AbstractFactory implements NodePlugin
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
-
-        NodePlugin plugin = (NodePlugin) obj;
-        buf.append("DELETE FROM " + FabricRegistry.NODE_PLUGINS + " WHERE NODE_ID = '");
-        buf.append(plugin.getNodeId());
-        buf.append("' AND NAME = '");
-        buf.append(plugin.getName());
-        buf.append("' AND FAMILY = '");
-        buf.append(plugin.getFamilyName());
-        buf.append("' AND TYPE = '");
-        buf.append(plugin.getPluginType());
-        buf.append("' AND ORDINAL = ");
-        buf.append(plugin.getOrdinal());
-        buf.append(" AND DESCRIPTION = '");
-        buf.append(plugin.getDescription());
-        buf.append('\'');
-        return buf.toString();
+        return "DELETE FROM " + FabricRegistry.NODE_PLUGINS
+                + " WHERE NODE_ID = ? AND NAME = ? AND FAMILY = ? AND TYPE = ? AND ORDINAL = ? AND DESCRIPTION = ?";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
+        if (obj instanceof NodePlugin) {
+            NodePlugin plugin = (NodePlugin) obj;
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    String.valueOf(plugin.getFamilyName()), String.valueOf(plugin.getPluginType()),
+                    plugin.getOrdinal(), String.valueOf(plugin.getDescription())};
+        }
+        return parameters;
     }
 
 }
@@ -70,9 +70,9 @@ public class PlatformFactoryImpl extends AbstractFactory implements PlatformFact
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.PLATFORMS);
-        BY_ID_QUERY = format("select * from %s where PLATFORM_ID='\\%s'", FabricRegistry.PLATFORMS);
-        BY_NODE_QUERY = format("select * from %s where NODE_ID='\\%s'", FabricRegistry.PLATFORMS);
-        BY_TYPE_QUERY = format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.PLATFORMS);
+        BY_ID_QUERY = format("select * from %s where PLATFORM_ID=?", FabricRegistry.PLATFORMS);
+        BY_NODE_QUERY = format("select * from %s where NODE_ID=?", FabricRegistry.PLATFORMS);
+        BY_TYPE_QUERY = format("select * from %s where TYPE_ID=?", FabricRegistry.PLATFORMS);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.PLATFORMS);
     }
 
@@ -107,73 +107,65 @@ public class PlatformFactoryImpl extends AbstractFactory implements PlatformFact
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.PLATFORMS + " where(PLATFORM_ID=? AND Type_ID=? AND NODE_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Platform) {
             Platform platform = (Platform) obj;
-            buf.append("delete from " + FabricRegistry.PLATFORMS + " where(");
-            buf.append("PLATFORM_ID=").append(nullOrString(platform.getId())).append(" AND ");
-            buf.append("Type_ID=").append(nullOrString(platform.getTypeId())).append(" AND ");
-            buf.append("NODE_ID=").append(nullOrString(platform.getNodeId())).append(')');
+            parameters = new Object[] {platform.getId(), platform.getTypeId(), platform.getNodeId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.PLATFORMS + " values(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Platform) {
             Platform platform = (Platform) obj;
-            buf.append("insert into " + FabricRegistry.PLATFORMS + " values(");
-            buf.append(nullOrString(platform.getId())).append(',');
-            buf.append(nullOrString(platform.getTypeId())).append(',');
-            buf.append(nullOrString(platform.getNodeId())).append(',');
-            buf.append(nullOrString(platform.getAffiliation())).append(',');
-            buf.append(nullOrString(platform.getCredentials())).append(',');
-            buf.append(nullOrString(platform.getReadiness())).append(',');
-            buf.append(nullOrString(platform.getAvailability())).append(',');
-            buf.append(platform.getLatitude()).append(',');
-            buf.append(platform.getLongitude()).append(',');
-            buf.append(platform.getAltitude()).append(',');
-            buf.append(platform.getBearing()).append(',');
-            buf.append(platform.getVelocity()).append(',');
-            buf.append(nullOrString(platform.getDescription())).append(',');
-            buf.append(nullOrString(platform.getAttributes())).append(',');
-            buf.append(nullOrString(platform.getAttributesURI())).append(')');
+            parameters = new Object[] {platform.getId(), platform.getTypeId(), platform.getNodeId(),
+                    platform.getAffiliation(), platform.getCredentials(), platform.getReadiness(),
+                    platform.getAvailability(), platform.getLatitude(), platform.getLongitude(), platform.getAltitude(),
+                    platform.getBearing(), platform.getVelocity(), platform.getDescription(), platform.getAttributes(),
+                    platform.getAttributesURI()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.PLATFORMS + " set ");
+        buf.append("TYPE_ID=?,NODE_ID=?,AFFILIATION=?,CREDENTIALS=?,AVAILABILITY=?,READINESS=?,");
+        buf.append("LATITUDE=?,LONGITUDE=?,ALTITUDE=?,BEARING=?,VELOCITY=?,");
+        buf.append("DESCRIPTION=?,ATTRIBUTES=?,ATTRIBUTES_URI=?");
+        buf.append(" WHERE PLATFORM_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Platform) {
             Platform platform = (Platform) obj;
-            buf.append("update " + FabricRegistry.PLATFORMS + " set ");
-            buf.append("TYPE_ID=").append(nullOrString(platform.getTypeId())).append(',');
-            buf.append("NODE_ID=").append(nullOrString(platform.getNodeId())).append(',');
-            buf.append("AFFILIATION=").append(nullOrString(platform.getAffiliation())).append(',');
-            buf.append("CREDENTIALS=").append(nullOrString(platform.getCredentials())).append(',');
-            buf.append("AVAILABILITY=").append(nullOrString(platform.getAvailability())).append(',');
-            buf.append("READINESS=").append(nullOrString(platform.getReadiness())).append(',');
-            buf.append("LATITUDE=").append(platform.getLatitude()).append(',');
-            buf.append("LONGITUDE=").append(platform.getLongitude()).append(',');
-            buf.append("ALTITUDE=").append(platform.getAltitude()).append(',');
-            buf.append("BEARING=").append(platform.getBearing()).append(',');
-            buf.append("VELOCITY=").append(platform.getVelocity()).append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(platform.getDescription())).append(',');
-            buf.append("ATTRIBUTES=").append(nullOrString(platform.getAttributes())).append(',');
-            buf.append("ATTRIBUTES_URI=").append(nullOrString(platform.getAttributesURI()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (platform.getShadow() != null) {
-                Platform shadow = (Platform) platform.getShadow();
-                buf.append("PLATFORM_ID=").append(nullOrString(shadow.getId()));
-            } else {
-                buf.append("PLATFORM_ID=").append(nullOrString(platform.getId()));
-            }
+            Platform key = (platform.getShadow() != null) ? (Platform) platform.getShadow() : platform;
+
+            parameters = new Object[] {platform.getTypeId(), platform.getNodeId(), platform.getAffiliation(),
+                    platform.getCredentials(), platform.getAvailability(), platform.getReadiness(),
+                    platform.getLatitude(), platform.getLongitude(), platform.getAltitude(), platform.getBearing(),
+                    platform.getVelocity(), platform.getDescription(), platform.getAttributes(),
+                    platform.getAttributesURI(), key.getId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -238,8 +230,7 @@ public class PlatformFactoryImpl extends AbstractFactory implements PlatformFact
     public Platform getPlatformById(String id) {
         Platform p = null;
         try {
-            String query = format(BY_ID_QUERY, id);
-            Platform[] platforms = runQuery(query);
+            Platform[] platforms = runQuery(BY_ID_QUERY, id);
             if (platforms != null && platforms.length > 0) {
                 p = platforms[0];
             }
@@ -253,17 +244,16 @@ public class PlatformFactoryImpl extends AbstractFactory implements PlatformFact
     public Platform[] getPlatformsByType(String typeId) {
         Platform[] platforms = null;
         try {
-            String query = format(BY_TYPE_QUERY, typeId);
-            platforms = runQuery(query);
+            platforms = runQuery(BY_TYPE_QUERY, typeId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
         return platforms;
     }
 
-    private Platform[] runQuery(String sql) throws PersistenceException {
+    private Platform[] runQuery(String sql, Object... parameters) throws PersistenceException {
         Platform[] platforms = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             platforms = new Platform[objects.length];
@@ -310,8 +300,7 @@ public class PlatformFactoryImpl extends AbstractFactory implements PlatformFact
     public Platform[] getPlatformsByNode(String nodeId) {
         Platform[] platforms = null;
         try {
-            String query = format(BY_NODE_QUERY, nodeId);
-            platforms = runQuery(query);
+            platforms = runQuery(BY_NODE_QUERY, nodeId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
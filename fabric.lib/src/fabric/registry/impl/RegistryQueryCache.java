@@ -0,0 +1,1071 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.registry.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import fabric.Fabric;
+import fabric.core.json.JSON;
+import fabric.core.properties.ConfigProperties;
+import fabric.registry.QueryScope;
+import fabric.registry.RegistryObject;
+import fabric.registry.exception.PersistenceException;
+import fabric.registry.persistence.PersistenceManager;
+
+/**
+ * A read-through cache of the results of local Registry queries made by the Registry factories.
+ * <p>
+ * Each cached result is tagged with the table it was read from and with the column values its <code>WHERE</code>
+ * clause fixes (e.g. <code>NODE_ID</code>). Results are invalidated when a change to the same table could affect them:
+ * changes made by this node are seen as the statements are run, and changes made by anyone else are seen via the
+ * notifications published by the Registry triggers. A time-to-live acts as a safety net for changes that are not
+ * reported. Concurrent requests for a result that is not cached share a single Registry query.
+ * </p>
+ * <p>
+ * Results are indexed by table, so that an update only examines the results read from the tables it changes, and the
+ * least recently used result is discarded when the cache is full.
+ * </p>
+ */
+public class RegistryQueryCache extends Fabric {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The names used in trigger notifications for tables whose notification name differs from the table name. */
+    private static final Map<String, String> NOTIFICATION_TABLES = new HashMap<String, String>();
+
+    static {
+        NOTIFICATION_TABLES.put("SYSTEMS", "SERVICES");
+        NOTIFICATION_TABLES.put("SERVICES", "DATA_FEEDS");
+    }
+
+    /** The tables referenced by a query. */
+    private static final Pattern QUERY_TABLE = Pattern.compile("\\b(?:FROM|JOIN)\\s+([\\w$.\"]+)");
+
+    /** A comma-separated list of tables in a <code>FROM</code> clause. */
+    private static final Pattern TABLE_LIST = Pattern.compile("\\bFROM\\s+[\\w$.\"]+(?:\\s+(?:AS\\s+)?[\\w$]+)?\\s*,");
+
+    /** Keywords after which the column values fixed by a <code>WHERE</code> clause cannot be relied upon. */
+    private static final Pattern UNSAFE_PREDICATE = Pattern.compile("\\b(?:OR|NOT|SELECT)\\b");
+
+    /** An equality between a column and a value, at the start of a condition or assignment. */
+    private static final Pattern COLUMN_EQUALS = Pattern
+            .compile("(?:^|\\bWHERE|\\bAND|[(,])\\s*(?:[\\w$]+\\.)?([\\w$]+)\\s*=\\s*\\?");
+
+    /** The start of a <code>WHERE</code> clause. */
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\b");
+
+    /** An <code>UPDATE</code> statement. */
+    private static final Pattern UPDATE = Pattern.compile(
+            "^\\s*UPDATE\\s+([\\w$.\"]+)\\s+SET\\b(.*?)(?:\\bWHERE\\b(.*))?$", Pattern.DOTALL);
+
+    /** A <code>DELETE</code> statement. */
+    private static final Pattern DELETE = Pattern.compile(
+            "^\\s*DELETE\\s+FROM\\s+([\\w$.\"]+)(?:\\s*\\bWHERE\\b(.*))?$", Pattern.DOTALL);
+
+    /** An <code>INSERT</code> statement, optionally with its column list and values. */
+    private static final Pattern INSERT = Pattern.compile(
+            "^\\s*INSERT\\s+INTO\\s+([\\w$.\"]+)(?:\\s*\\(([^)]*)\\)\\s*VALUES\\s*\\((.*)\\)\\s*$)?", Pattern.DOTALL);
+
+    /*
+     * Class static fields
+     */
+
+    /** The single instance of the cache. */
+    private static final RegistryQueryCache instance = new RegistryQueryCache();
+
+    /*
+     * Class fields
+     */
+
+    /** Flag indicating if the configuration has been read. */
+    private volatile boolean isConfigured = false;
+
+    /** Flag indicating if the cache is enabled. */
+    private boolean isEnabled = false;
+
+    /** The maximum number of cached results. */
+    private int maxEntries = 0;
+
+    /** The time (in milliseconds) for which a result is cached, or <code>0</code> if there is no limit. */
+    private long ttl = 0;
+
+    /** The tables whose query results may be cached. */
+    private Set<String> cacheableTables = new HashSet<String>();
+
+    /**
+     * The cached results (and queries in progress), keyed by factory, SQL and parameter values, in least recently used
+     * order. Access to this map, and to the index of its keys by table, is synchronized on this map.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RegistryQueryCache.Entry> eldest) {
+
+            boolean isFull = size() > maxEntries;
+
+            if (isFull) {
+                unindex(eldest.getKey(), eldest.getValue());
+                evictions.incrementAndGet();
+            }
+
+            return isFull;
+        }
+    };
+
+    /** The cached results read from each table, keyed as in the cache. */
+    private final HashMap<String, Map<String, Entry>> entriesByTable = new HashMap<String, Map<String, Entry>>();
+
+    /** The number of times each table has been invalidated, used to discard results read while a change was made. */
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<String, AtomicLong>();
+
+    /** The number of queries answered from the cache. */
+    private final AtomicLong hits = new AtomicLong(0);
+
+    /** The number of queries run against the Registry to fill the cache. */
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /** The number of queries that waited for an identical query already in progress. */
+    private final AtomicLong coalesced = new AtomicLong(0);
+
+    /** The number of cached results discarded because of a change to the Registry. */
+    private final AtomicLong invalidations = new AtomicLong(0);
+
+    /** The number of cached results discarded because they expired or to bound memory use. */
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * The tables and column values that determine which rows a statement reads or writes.
+     */
+    private static class Footprint {
+
+        /** The tables referenced by the statement. */
+        final Set<String> tables = new HashSet<String>();
+
+        /**
+         * The column values shared by every row touched by the statement (for an update, before and after it is
+         * applied). Empty if nothing is known.
+         */
+        final List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+
+        /** Flag indicating if the statement could be analysed. */
+        boolean isKnown = false;
+    }
+
+    /**
+     * A cached query result, or a query in progress.
+     */
+    private static class Entry {
+
+        /** The tables from which the result is read. */
+        final Set<String> tables;
+
+        /** The column values fixed by the query (empty if nothing is known). */
+        final Map<String, String> columns;
+
+        /** The query. */
+        final FutureTask<RegistryObject[]> result;
+
+        /** The time (in milliseconds) at which the result was read, or <code>0</code> if it is still being read. */
+        volatile long loadedAt = 0;
+
+        /** Flag indicating if the result is still in the cache (guarded by the lock on the cache). */
+        boolean isCached = false;
+
+        Entry(Set<String> tables, Map<String, String> columns, FutureTask<RegistryObject[]> result) {
+
+            this.tables = tables;
+            this.columns = columns;
+            this.result = result;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Answers the single instance of the cache.
+     *
+     * @return the cache.
+     */
+    public static RegistryQueryCache getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Constructs a new instance.
+     */
+    private RegistryQueryCache() {
+
+        super(Logger.getLogger("fabric.registry"));
+    }
+
+    /**
+     * Reads the configuration of the cache, if it has not already been read and the Registry is connected (queries made
+     * before then are passed straight to the Registry).
+     */
+    private void configure() {
+
+        if (!isConfigured && PersistenceManager.getPersistence() != null) {
+
+            synchronized (this) {
+
+                if (!isConfigured) {
+
+                    isEnabled = Boolean.parseBoolean(config(ConfigProperties.REGISTRY_QUERY_CACHE,
+                            ConfigProperties.REGISTRY_QUERY_CACHE_DEFAULT));
+                    maxEntries = Integer.parseInt(config(ConfigProperties.REGISTRY_QUERY_CACHE_SIZE,
+                            ConfigProperties.REGISTRY_QUERY_CACHE_SIZE_DEFAULT));
+                    ttl = Long.parseLong(config(ConfigProperties.REGISTRY_QUERY_CACHE_TTL,
+                            ConfigProperties.REGISTRY_QUERY_CACHE_TTL_DEFAULT));
+
+                    String tables = config(ConfigProperties.REGISTRY_QUERY_CACHE_TABLES,
+                            ConfigProperties.REGISTRY_QUERY_CACHE_TABLES_DEFAULT);
+                    for (String table : tables.split(",")) {
+                        if (!table.trim().isEmpty()) {
+                            cacheableTables.add(normalise(table.trim().toUpperCase()));
+                        }
+                    }
+
+                    isEnabled = isEnabled && maxEntries > 0;
+                    logger.log(Level.FINE, "Registry query cache enabled: {0} (size {1}, TTL {2} ms, tables {3})",
+                            new Object[] {isEnabled, maxEntries, ttl, cacheableTables});
+                    isConfigured = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a local Registry query, answering the result from the cache if possible.
+     * <p>
+     * Queries against tables that are not cacheable, or that cannot be analysed, are passed straight to the Registry.
+     * Each caller receives its own copy of the cached objects.
+     * </p>
+     *
+     * @param sql
+     *            the SELECT statement, optionally containing <code>?</code> parameter markers.
+     *
+     * @param parameters
+     *            the values of the parameter markers, or <code>null</code> if there are none.
+     *
+     * @param factory
+     *            the factory used to convert each row into a registry object.
+     *
+     * @return the matching objects.
+     *
+     * @throws PersistenceException
+     */
+    public RegistryObject[] query(final String sql, final Object[] parameters, final AbstractFactory factory)
+            throws PersistenceException {
+
+        configure();
+
+        /* Write any queued saves that the query could read, so that neither it nor the cache is stale */
+        RegistryWriteBehind.getInstance().flush(sql);
+
+        Footprint footprint = isEnabled ? analyse(sql, parameters) : null;
+
+        if (footprint == null || !footprint.isKnown || footprint.tables.isEmpty()
+                || !cacheableTables.containsAll(footprint.tables)) {
+            return PersistenceManager.getPersistence().queryRegistryObjects(sql, parameters, factory,
+                    QueryScope.LOCAL);
+        }
+
+        String key = factory.getClass().getName() + '\n' + sql + '\n' + Arrays.deepToString(parameters);
+        Entry entry = null;
+
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null && isExpired(entry, System.currentTimeMillis())) {
+            if (remove(key, entry)) {
+                evictions.incrementAndGet();
+            }
+            entry = null;
+        }
+
+        if (entry == null) {
+
+            List<String> tables = new ArrayList<String>(footprint.tables);
+            long[] startGenerations = new long[tables.size()];
+            for (int t = 0; t < startGenerations.length; t++) {
+                startGenerations[t] = generation(tables.get(t)).get();
+            }
+
+            FutureTask<RegistryObject[]> load = new FutureTask<RegistryObject[]>(new Callable<RegistryObject[]>() {
+
+                @Override
+                public RegistryObject[] call() throws Exception {
+
+                    return PersistenceManager.getPersistence().queryRegistryObjects(sql, parameters, factory,
+                            QueryScope.LOCAL);
+                }
+            });
+
+            Map<String, String> columns = (footprint.tables.size() == 1 && footprint.rows.size() == 1) ? footprint.rows
+                    .get(0) : new HashMap<String, String>();
+            Entry newEntry = new Entry(new HashSet<String>(tables), columns, load);
+            entry = putIfAbsent(key, newEntry);
+
+            if (entry == null) {
+
+                /* This thread runs the query; anyone else asking for the same result waits for it */
+                entry = newEntry;
+                misses.incrementAndGet();
+                load.run();
+                entry.loadedAt = System.currentTimeMillis();
+
+                /* If a table changed while the query was running then the result may be stale */
+                for (int t = 0; t < startGenerations.length; t++) {
+                    if (generation(tables.get(t)).get() != startGenerations[t]) {
+                        remove(key, entry);
+                        break;
+                    }
+                }
+
+            } else {
+                coalesced.incrementAndGet();
+            }
+
+        } else if (entry.loadedAt == 0) {
+            coalesced.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+
+            return copy(entry.result.get());
+
+        } catch (ExecutionException e) {
+
+            remove(key, entry);
+            Throwable cause = e.getCause();
+            if (cause instanceof PersistenceException) {
+                throw (PersistenceException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new PersistenceException("Registry query failed", cause);
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Interrupted waiting for Registry query", e);
+
+        }
+    }
+
+    /**
+     * Invalidates the cached results that could be affected by a Registry update statement run by this node.
+     *
+     * @param sql
+     *            the INSERT, UPDATE or DELETE statement, optionally containing <code>?</code> parameter markers.
+     *
+     * @param parameters
+     *            the values of the parameter markers, or <code>null</code> if there are none.
+     */
+    public void invalidate(String sql, Object[] parameters) {
+
+        String table = updatedTable(sql);
+
+        if (table != null && !isCached(table)) {
+
+            /* Nothing read from the table is cached, so there is no need to analyse the statement */
+            generation(table).incrementAndGet();
+
+        } else if (getSize() > 0) {
+
+            Footprint footprint = analyse(sql, parameters);
+
+            if (footprint.isKnown) {
+                for (String changed : footprint.tables) {
+                    invalidate(changed, footprint.rows);
+                }
+            } else {
+                invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cached results that could be affected by a change reported by the Registry triggers.
+     * <p>
+     * The notification identifies the changed row by its key; the leading key column (for example
+     * <code>NODE_ID</code>) is used to limit the results invalidated.
+     * </p>
+     *
+     * @param notification
+     *            the notification (a JSON object, as published by the Registry triggers).
+     */
+    public void registryUpdate(String notification) {
+
+        try {
+
+            JSON update = new JSON(notification);
+            String table = update.getString("table");
+            String key = update.getString("key");
+            String id = update.getString("id");
+
+            if (table != null) {
+
+                table = table.toUpperCase();
+                table = NOTIFICATION_TABLES.containsKey(table) ? NOTIFICATION_TABLES.get(table) : table;
+                List<Map<String, String>> rows = new ArrayList<Map<String, String>>();
+
+                if (key != null && id != null) {
+                    String[] keyParts = key.split("[/:]");
+                    String[] idParts = id.split("[/:]");
+                    if (keyParts.length > 0 && idParts.length > 0 && !keyParts[0].isEmpty()) {
+                        Map<String, String> row = new HashMap<String, String>();
+                        row.put(keyParts[0].toUpperCase(), idParts[0]);
+                        rows.add(row);
+                    }
+                }
+
+                invalidate(table, rows);
+            }
+
+        } catch (Exception e) {
+
+            logger.log(Level.FINE, "Ignoring improperly formatted Registry update notification: {0}", e.getMessage());
+
+        }
+    }
+
+    /**
+     * Invalidates the cached results read from a table that could include any of a set of rows.
+     *
+     * @param table
+     *            the table.
+     *
+     * @param rows
+     *            the column values known for each row, or an empty list to invalidate every result read from the
+     *            table.
+     */
+    private void invalidate(String table, List<Map<String, String>> rows) {
+
+        generation(table).incrementAndGet();
+
+        synchronized (entries) {
+
+            Map<String, Entry> tableEntries = entriesByTable.get(table);
+
+            if (tableEntries != null) {
+
+                for (Map.Entry<String, Entry> next : new ArrayList<Map.Entry<String, Entry>>(tableEntries.entrySet())) {
+                    if (isAffected(next.getValue().columns, rows) && remove(next.getKey(), next.getValue())) {
+                        invalidations.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates every cached result.
+     */
+    public void invalidateAll() {
+
+        for (AtomicLong generation : generations.values()) {
+            generation.incrementAndGet();
+        }
+
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                entry.isCached = false;
+            }
+
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+            entriesByTable.clear();
+        }
+    }
+
+    /**
+     * Answers <code>true</code> if a cached result could include any of a set of rows.
+     *
+     * @param columns
+     *            the column values fixed by the query.
+     *
+     * @param rows
+     *            the column values known for each row; if empty then the result is assumed to be affected.
+     *
+     * @return <code>true</code> if the result may be affected, <code>false</code> otherwise.
+     */
+    private boolean isAffected(Map<String, String> columns, List<Map<String, String>> rows) {
+
+        boolean isAffected = rows.isEmpty();
+
+        for (Iterator<Map<String, String>> r = rows.iterator(); !isAffected && r.hasNext();) {
+
+            Map<String, String> row = r.next();
+            boolean isDisjoint = false;
+
+            for (Iterator<Map.Entry<String, String>> c = columns.entrySet().iterator(); !isDisjoint && c.hasNext();) {
+                Map.Entry<String, String> column = c.next();
+                String value = row.get(column.getKey());
+                isDisjoint = value != null && !value.equals(column.getValue());
+            }
+
+            isAffected = !isDisjoint;
+        }
+
+        return isAffected;
+    }
+
+    /**
+     * Adds a result to the cache, unless a result is already cached for the same query.
+     *
+     * @param key
+     *            the key of the query.
+     *
+     * @param entry
+     *            the result.
+     *
+     * @return the result already cached, or <code>null</code> if the new result was added.
+     */
+    private Entry putIfAbsent(String key, Entry entry) {
+
+        synchronized (entries) {
+
+            Entry existing = entries.get(key);
+
+            if (existing == null) {
+
+                for (String table : entry.tables) {
+                    Map<String, Entry> tableEntries = entriesByTable.get(table);
+                    if (tableEntries == null) {
+                        tableEntries = new HashMap<String, Entry>();
+                        entriesByTable.put(table, tableEntries);
+                    }
+                    tableEntries.put(key, entry);
+                }
+
+                /* May discard the least recently used result */
+                entry.isCached = true;
+                entries.put(key, entry);
+            }
+
+            return existing;
+        }
+    }
+
+    /**
+     * Removes a result from the cache, if it is still cached.
+     *
+     * @param key
+     *            the key of the query.
+     *
+     * @param entry
+     *            the result.
+     *
+     * @return <code>true</code> if the result was removed, <code>false</code> otherwise.
+     */
+    private boolean remove(String key, Entry entry) {
+
+        synchronized (entries) {
+
+            boolean isRemoved = entry.isCached;
+
+            if (isRemoved) {
+                entries.remove(key);
+                unindex(key, entry);
+            }
+
+            return isRemoved;
+        }
+    }
+
+    /**
+     * Removes a result from the index of results by table, marking it as no longer cached (the caller must hold the
+     * lock on the cache).
+     *
+     * @param key
+     *            the key of the query.
+     *
+     * @param entry
+     *            the result.
+     */
+    private void unindex(String key, Entry entry) {
+
+        entry.isCached = false;
+
+        for (String table : entry.tables) {
+
+            Map<String, Entry> tableEntries = entriesByTable.get(table);
+
+            if (tableEntries != null) {
+                tableEntries.remove(key);
+                if (tableEntries.isEmpty()) {
+                    entriesByTable.remove(table);
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers <code>true</code> if any result read from a table is cached.
+     *
+     * @param table
+     *            the table.
+     *
+     * @return <code>true</code> if the table is cached, <code>false</code> otherwise.
+     */
+    private boolean isCached(String table) {
+
+        synchronized (entries) {
+            return entriesByTable.containsKey(table);
+        }
+    }
+
+    /**
+     * Answers <code>true</code> if a cached result has expired.
+     *
+     * @param entry
+     *            the cached result.
+     *
+     * @param now
+     *            the current time (in milliseconds).
+     *
+     * @return <code>true</code> if the result has expired, <code>false</code> otherwise.
+     */
+    private boolean isExpired(Entry entry, long now) {
+
+        return ttl > 0 && entry.loadedAt != 0 && now - entry.loadedAt > ttl;
+    }
+
+    /**
+     * Answers the invalidation count of a table.
+     *
+     * @param table
+     *            the table.
+     *
+     * @return the count.
+     */
+    private AtomicLong generation(String table) {
+
+        AtomicLong generation = generations.get(table);
+
+        if (generation == null) {
+            AtomicLong newGeneration = new AtomicLong(0);
+            generation = generations.putIfAbsent(table, newGeneration);
+            generation = (generation != null) ? generation : newGeneration;
+        }
+
+        return generation;
+    }
+
+    /**
+     * Answers copies of a set of cached objects, so that callers cannot modify the cached values.
+     *
+     * @param objects
+     *            the cached objects.
+     *
+     * @return the copies.
+     */
+    private RegistryObject[] copy(RegistryObject[] objects) {
+
+        RegistryObject[] copies = null;
+
+        if (objects != null) {
+
+            copies = new RegistryObject[objects.length];
+
+            for (int o = 0; o < objects.length; o++) {
+                copies[o] = (objects[o] instanceof AbstractRegistryObject) ? ((AbstractRegistryObject) objects[o])
+                        .copy() : objects[o];
+            }
+        }
+
+        return copies;
+    }
+
+    /**
+     * Answers the table changed by an <code>INSERT</code>, <code>UPDATE</code> or <code>DELETE</code> statement,
+     * without analysing the rest of the statement.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @return the normalised table name, or <code>null</code> if it cannot be determined.
+     */
+    private static String updatedTable(String sql) {
+
+        String table = null;
+        StringTokenizer tokens = new StringTokenizer(sql, " \t\r\n(");
+
+        if (tokens.countTokens() >= 2) {
+
+            String verb = tokens.nextToken().toUpperCase();
+
+            if (verb.equals("UPDATE")) {
+                table = tokens.nextToken();
+            } else if ((verb.equals("INSERT") || verb.equals("DELETE")) && tokens.countTokens() >= 2) {
+                tokens.nextToken();
+                table = tokens.nextToken();
+            }
+        }
+
+        return (table != null && table.indexOf('\'') < 0) ? normalise(table.toUpperCase()) : null;
+    }
+
+    /**
+     * Determines the tables and column values that a statement reads or writes.
+     *
+     * @param sql
+     *            the statement, optionally containing <code>?</code> parameter markers.
+     *
+     * @param parameters
+     *            the values of the parameter markers, or <code>null</code> if there are none.
+     *
+     * @return the footprint of the statement.
+     */
+    private static Footprint analyse(String sql, Object[] parameters) {
+
+        Footprint footprint = new Footprint();
+        List<String> values = new ArrayList<String>();
+        String shape = shape(sql, parameters, values);
+        Matcher m = null;
+
+        if (shape.trim().startsWith("SELECT")) {
+
+            for (m = QUERY_TABLE.matcher(shape); m.find();) {
+                footprint.tables.add(normalise(m.group(1)));
+            }
+
+            footprint.isKnown = !TABLE_LIST.matcher(shape).find();
+            Matcher where = WHERE.matcher(shape);
+            int start = where.find() ? where.start() : shape.length();
+            footprint.rows.add(columnValues(shape, start, shape.length(), values));
+
+        } else if ((m = UPDATE.matcher(shape)).matches()) {
+
+            footprint.tables.add(normalise(m.group(1)));
+            footprint.isKnown = true;
+
+            /* The rows as they were, and as they will be */
+            Map<String, String> before = columnValues(shape, m.start(3), m.end(3), values);
+            Map<String, String> after = new HashMap<String, String>(before);
+            for (String assignment : split(m.group(2))) {
+                after.remove(normalise(assignment.split("=")[0].trim()));
+            }
+            after.putAll(columnValues(shape, m.start(2), m.end(2), values));
+            footprint.rows.add(before);
+            footprint.rows.add(after);
+
+        } else if ((m = DELETE.matcher(shape)).matches()) {
+
+            footprint.tables.add(normalise(m.group(1)));
+            footprint.isKnown = true;
+            footprint.rows.add(columnValues(shape, m.start(2), m.end(2), values));
+
+        } else if ((m = INSERT.matcher(shape)).lookingAt()) {
+
+            footprint.tables.add(normalise(m.group(1)));
+            footprint.isKnown = true;
+
+            if (m.group(2) != null && m.end() == shape.length()) {
+
+                List<String> columns = split(m.group(2));
+                List<String> rowValues = split(m.group(3));
+                Map<String, String> row = new HashMap<String, String>();
+
+                if (columns.size() == rowValues.size()) {
+
+                    int marker = countMarkers(shape, m.start(3));
+
+                    for (int c = 0; c < columns.size(); c++) {
+                        if (rowValues.get(c).trim().equals("?")) {
+                            if (values.get(marker) != null) {
+                                row.put(normalise(columns.get(c).trim()), values.get(marker));
+                            }
+                            marker++;
+                        } else {
+                            marker += countMarkers(rowValues.get(c), rowValues.get(c).length());
+                        }
+                    }
+                }
+
+                footprint.rows.add(row);
+            }
+        }
+
+        return footprint;
+    }
+
+    /**
+     * Answers the upper case form of a statement with each string literal and parameter marker replaced by a
+     * <code>?</code>, and records their values.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @param parameters
+     *            the values of the parameter markers, or <code>null</code> if there are none.
+     *
+     * @param values
+     *            populated with the value of each <code>?</code> in the result (<code>null</code> if unknown).
+     *
+     * @return the shape of the statement.
+     */
+    private static String shape(String sql, Object[] parameters, List<String> values) {
+
+        StringBuilder shape = new StringBuilder(sql.length());
+        int p = 0;
+
+        for (int c = 0; c < sql.length(); c++) {
+
+            char next = sql.charAt(c);
+
+            if (next == '\'') {
+
+                StringBuilder literal = new StringBuilder();
+                for (c++; c < sql.length(); c++) {
+                    if (sql.charAt(c) == '\'') {
+                        if (c + 1 < sql.length() && sql.charAt(c + 1) == '\'') {
+                            literal.append('\'');
+                            c++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        literal.append(sql.charAt(c));
+                    }
+                }
+                values.add(literal.toString());
+                shape.append('?');
+
+            } else if (next == '?') {
+
+                Object value = (parameters != null && p < parameters.length) ? parameters[p] : null;
+                values.add((value != null) ? value.toString() : null);
+                p++;
+                shape.append('?');
+
+            } else {
+
+                shape.append(Character.toUpperCase(next));
+
+            }
+        }
+
+        return shape.toString();
+    }
+
+    /**
+     * Answers the column values fixed by the equalities in part of a statement.
+     *
+     * @param shape
+     *            the shape of the statement.
+     *
+     * @param start
+     *            the start of the part (<code>-1</code> if there is none).
+     *
+     * @param end
+     *            the end of the part.
+     *
+     * @param values
+     *            the values of the <code>?</code> markers in the statement.
+     *
+     * @return the column values; empty if none can be relied upon.
+     */
+    private static Map<String, String> columnValues(String shape, int start, int end, List<String> values) {
+
+        Map<String, String> columns = new HashMap<String, String>();
+
+        if (start >= 0 && !UNSAFE_PREDICATE.matcher(shape.substring(start, end)).find()) {
+
+            Set<String> repeated = new HashSet<String>();
+            Matcher m = COLUMN_EQUALS.matcher(shape);
+            m.region(start, end);
+
+            while (m.find()) {
+
+                String column = m.group(1);
+                String value = values.get(countMarkers(shape, m.end() - 1));
+
+                if (columns.containsKey(column) || value == null) {
+                    repeated.add(column);
+                } else {
+                    columns.put(column, value);
+                }
+            }
+
+            columns.keySet().removeAll(repeated);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Answers the number of <code>?</code> markers before a position in a statement.
+     *
+     * @param shape
+     *            the shape of the statement.
+     *
+     * @param end
+     *            the position.
+     *
+     * @return the count.
+     */
+    private static int countMarkers(String shape, int end) {
+
+        int count = 0;
+
+        for (int c = 0; c < end; c++) {
+            if (shape.charAt(c) == '?') {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Splits a comma-separated list, ignoring commas within parentheses.
+     *
+     * @param list
+     *            the list.
+     *
+     * @return the items.
+     */
+    private static List<String> split(String list) {
+
+        List<String> items = new ArrayList<String>();
+        int depth = 0;
+        int start = 0;
+
+        for (int c = 0; c < list.length(); c++) {
+
+            char next = list.charAt(c);
+
+            if (next == '(') {
+                depth++;
+            } else if (next == ')') {
+                depth--;
+            } else if (next == ',' && depth == 0) {
+                items.add(list.substring(start, c));
+                start = c + 1;
+            }
+        }
+
+        items.add(list.substring(start));
+        return items;
+    }
+
+    /**
+     * Answers the unqualified, unquoted form of a table or column name.
+     *
+     * @param name
+     *            the name.
+     *
+     * @return the normalised name.
+     */
+    private static String normalise(String name) {
+
+        String unquoted = name.replace("\"", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Answers the number of results currently cached (including queries in progress).
+     *
+     * @return the count.
+     */
+    public int getSize() {
+
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Answers the number of queries answered from the cache.
+     *
+     * @return the count.
+     */
+    public long getHits() {
+
+        return hits.get();
+    }
+
+    /**
+     * Answers the number of queries run against the Registry to fill the cache.
+     *
+     * @return the count.
+     */
+    public long getMisses() {
+
+        return misses.get();
+    }
+
+    /**
+     * Answers the number of queries that waited for an identical query already in progress rather than querying the
+     * Registry.
+     *
+     * @return the count.
+     */
+    public long getCoalesced() {
+
+        return coalesced.get();
+    }
+
+    /**
+     * Answers the number of cached results discarded because of a change to the Registry.
+     *
+     * @return the count.
+     */
+    public long getInvalidations() {
+
+        return invalidations.get();
+    }
+
+    /**
+     * Answers the number of cached results discarded because they expired or to bound memory use.
+     *
+     * @return the count.
+     */
+    public long getEvictions() {
+
+        return evictions.get();
+    }
+}
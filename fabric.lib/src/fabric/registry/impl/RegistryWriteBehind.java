@@ -0,0 +1,574 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.registry.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import fabric.Fabric;
+import fabric.core.properties.ConfigProperties;
+import fabric.registry.RegistryObject;
+import fabric.registry.SaveStatus;
+import fabric.registry.exception.IncompleteObjectException;
+import fabric.registry.exception.PersistenceException;
+import fabric.registry.persistence.Persistence;
+import fabric.registry.persistence.PersistenceManager;
+
+/**
+ * A write-behind queue for routine Registry saves.
+ * <p>
+ * Queued saves are written periodically (or when enough are pending) in a single transaction, using batches of UPDATE
+ * and INSERT statements in place of the insert-then-update round trips made by <code>AbstractFactory.save()</code>.
+ * As for <code>AbstractFactory.save()</code>, an object that has already been saved or read from the Registry (i.e. it
+ * has a shadow) is only updated, and is never inserted if its row has since been deleted. Saves of the same object
+ * made before it is written are coalesced, so only the latest state is written. A query of the local Registry writes
+ * the queue first if it reads a table with queued (or in-flight) saves, so it never returns rows older than those
+ * queued, and any synchronous change made to the local Registry writes the whole queue first, so it cannot be
+ * overtaken by an earlier queued save.
+ * </p>
+ * <p>
+ * Write-behind is disabled by default (see <code>registry.writeBehind</code>), in which case saves are written
+ * immediately.
+ * </p>
+ */
+public class RegistryWriteBehind extends Fabric implements Runnable {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The table named by an <code>INSERT</code> statement. */
+    private static final Pattern INSERT_TABLE = Pattern.compile("^\\s*INSERT\\s+INTO\\s+([\\w$.\"]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    /** The patterns matching the name of each table to which saves have been queued. */
+    private static final ConcurrentHashMap<String, Pattern> TABLE_NAMES = new ConcurrentHashMap<String, Pattern>();
+
+    /*
+     * Class static fields
+     */
+
+    /** The single instance of the queue. */
+    private static final RegistryWriteBehind instance = new RegistryWriteBehind();
+
+    /*
+     * Class fields
+     */
+
+    /** Flag indicating if the configuration has been read. */
+    private volatile boolean isConfigured = false;
+
+    /** Flag indicating if saves are queued (if not then they are written immediately). */
+    private boolean isEnabled = false;
+
+    /** The interval (in milliseconds) at which the queue is written, or <code>0</code> if only on demand. */
+    private long flushInterval = 0;
+
+    /** The number of queued saves that triggers an immediate write. */
+    private int maxPending = 0;
+
+    /** The queued saves, in the order in which they were first queued, keyed by factory and object key. */
+    private final LinkedHashMap<String, PendingSave> pending = new LinkedHashMap<String, PendingSave>();
+
+    /**
+     * The tables to which saves are queued (<code>null</code> if a table is unknown), guarded by the lock on the queue.
+     */
+    private final Set<String> pendingTables = new HashSet<String>();
+
+    /** The tables to which the batch being written saves, guarded by the lock on the queue. */
+    private final Set<String> flushingTables = new HashSet<String>();
+
+    /** Lock used to write the queue one batch at a time. */
+    private final Object flushLock = new Object();
+
+    /** Flag indicating if a batch taken from the queue is being written. */
+    private volatile boolean isFlushing = false;
+
+    /** The thread that writes the queue periodically. */
+    private Thread workerThread = null;
+
+    /** Object used to synchronize with the worker thread. */
+    private final Object threadSync = new Object();
+
+    /** The number of saves queued. */
+    private final AtomicLong queued = new AtomicLong(0);
+
+    /** The number of queued saves replaced by a later save of the same object. */
+    private final AtomicLong coalesced = new AtomicLong(0);
+
+    /** The number of batches written. */
+    private final AtomicLong flushes = new AtomicLong(0);
+
+    /** The number of saves written in batches. */
+    private final AtomicLong batchedSaves = new AtomicLong(0);
+
+    /** The number of batches that failed and were written one save at a time instead. */
+    private final AtomicLong fallbacks = new AtomicLong(0);
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * A queued save.
+     */
+    private static class PendingSave {
+
+        /** The factory for the object. */
+        final AbstractFactory factory;
+
+        /** A copy of the object, as it was when queued. */
+        final AbstractRegistryObject object;
+
+        /** The name of the table to which the object is saved, or <code>null</code> if unknown. */
+        final String table;
+
+        /**
+         * Flag indicating if the object is only to be updated: it already existed in the Registry (i.e. had a shadow)
+         * before it was first queued.
+         */
+        final boolean isUpdate;
+
+        PendingSave(AbstractFactory factory, AbstractRegistryObject object) {
+
+            this.factory = factory;
+            this.object = object;
+            this.isUpdate = object.getShadow() != null;
+
+            Matcher insert = INSERT_TABLE.matcher(factory.getInsertSql(object));
+            this.table = insert.find() ? insert.group(1) : null;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Answers the single instance of the queue.
+     *
+     * @return the queue.
+     */
+    public static RegistryWriteBehind getInstance() {
+
+        return instance;
+    }
+
+    /**
+     * Constructs a new instance.
+     */
+    private RegistryWriteBehind() {
+
+        super(Logger.getLogger("fabric.registry"));
+    }
+
+    /**
+     * Reads the configuration of the queue and starts the worker thread, if this has not already been done.
+     */
+    private void configure() {
+
+        if (!isConfigured) {
+
+            synchronized (this) {
+
+                if (!isConfigured) {
+
+                    isEnabled = Boolean.parseBoolean(config(ConfigProperties.REGISTRY_WRITE_BEHIND,
+                            ConfigProperties.REGISTRY_WRITE_BEHIND_DEFAULT));
+                    flushInterval = Long.parseLong(config(ConfigProperties.REGISTRY_WRITE_BEHIND_INTERVAL,
+                            ConfigProperties.REGISTRY_WRITE_BEHIND_INTERVAL_DEFAULT));
+                    maxPending = Integer.parseInt(config(ConfigProperties.REGISTRY_WRITE_BEHIND_MAX_PENDING,
+                            ConfigProperties.REGISTRY_WRITE_BEHIND_MAX_PENDING_DEFAULT));
+
+                    if (isEnabled && flushInterval > 0) {
+                        workerThread = new Thread(this, "Registry-Write-Behind");
+                        workerThread.setDaemon(true);
+                        workerThread.start();
+                    }
+
+                    logger.log(Level.FINE, "Registry write-behind enabled: {0} (interval {1} ms, max pending {2})",
+                            new Object[] {isEnabled, flushInterval, maxPending});
+                    isConfigured = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues an object to be saved to the local Registry.
+     * <p>
+     * If write-behind is disabled the object is saved immediately. Otherwise it is written with the next batch;
+     * failures to write it are logged at that point.
+     * </p>
+     *
+     * @param obj
+     *            the object to save.
+     *
+     * @param factory
+     *            the local factory for the object.
+     *
+     * @return <code>SAVED</code> if the object has been written, <code>QUEUED</code> if it is waiting to be written,
+     *         or <code>NOT_SAVED</code> if it could not be saved.
+     *
+     * @throws IncompleteObjectException
+     *             if the object is not valid.
+     */
+    public SaveStatus queue(RegistryObject obj, AbstractFactory factory) throws IncompleteObjectException {
+
+        configure();
+
+        if (!isEnabled) {
+            return factory.save(obj, factory) ? SaveStatus.SAVED : SaveStatus.NOT_SAVED;
+        }
+
+        if (obj == null || !obj.isValid()) {
+            if (obj != null) {
+                logger.log(Level.FINE, "Registry object is not valid and will not be saved: {0}", obj);
+                /* call validate directly, which will throw exception that can be passed to application */
+                obj.validate();
+            }
+            return SaveStatus.NOT_SAVED;
+        }
+
+        AbstractRegistryObject copy = ((AbstractRegistryObject) obj).copy();
+        String key = factory.getClass().getName() + '\n' + factory.getDeleteSql(obj) + '\n'
+                + Arrays.deepToString(factory.getDeleteParameters(obj));
+        int pendingCount = 0;
+
+        synchronized (pending) {
+
+            PendingSave previous = pending.get(key);
+
+            if (previous != null) {
+                /* The row in the Registry is still as it was before the earlier save */
+                copy.shadow = previous.object.shadow;
+                coalesced.incrementAndGet();
+            }
+
+            PendingSave save = new PendingSave(factory, copy);
+            pending.put(key, save);
+            pendingTables.add(save.table);
+            pendingCount = pending.size();
+        }
+
+        queued.incrementAndGet();
+
+        /* As for a synchronous save, later saves of the object are made relative to this one */
+        ((AbstractRegistryObject) obj).createShadow();
+
+        SaveStatus status = SaveStatus.QUEUED;
+
+        if (pendingCount >= maxPending) {
+            /* The batch includes this save; if it fails then the save has been logged (and dropped) */
+            status = flush() ? SaveStatus.SAVED : SaveStatus.NOT_SAVED;
+        }
+
+        return status;
+    }
+
+    /**
+     * Writes all of the queued saves to the Registry, returning once they have been written.
+     * <p>
+     * The saves are written in a single batch; if that fails they are written one at a time, so that a single bad
+     * object does not prevent the others from being saved.
+     * </p>
+     *
+     * @return <code>true</code> if every queued save was written, <code>false</code> otherwise.
+     */
+    public boolean flush() {
+
+        if (getPending() == 0 && !isFlushing) {
+            return true;
+        }
+
+        synchronized (flushLock) {
+
+            isFlushing = true;
+
+            try {
+                return write();
+            } finally {
+                isFlushing = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the queued saves to the Registry if any of them are to a table that a statement could read, returning once
+     * they have been written.
+     * <p>
+     * Used before a query of the local Registry so that it sees the latest saves.
+     * </p>
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @return <code>true</code> if there were no such saves or they were written, <code>false</code> otherwise.
+     */
+    public boolean flush(String sql) {
+
+        boolean isRead = false;
+
+        synchronized (pending) {
+
+            for (Iterator<String> t = pendingTables.iterator(); !isRead && t.hasNext();) {
+                isRead = isReadBy(sql, t.next());
+            }
+
+            for (Iterator<String> t = flushingTables.iterator(); !isRead && t.hasNext();) {
+                isRead = isReadBy(sql, t.next());
+            }
+        }
+
+        /* Write the queue (waiting for any batch being written) only if the statement reads a table that it changes */
+        return isRead ? flush() : true;
+    }
+
+    /**
+     * Answers whether a statement could read a table.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @param table
+     *            the name of the table, or <code>null</code> if unknown.
+     *
+     * @return <code>true</code> if the statement names the table (or the table is unknown), <code>false</code>
+     *         otherwise.
+     */
+    private static boolean isReadBy(String sql, String table) {
+
+        boolean isRead = true;
+
+        if (table != null) {
+
+            Pattern name = TABLE_NAMES.get(table);
+
+            if (name == null) {
+                name = Pattern.compile("(?<![\\w$.])" + Pattern.quote(table) + "(?![\\w$])", Pattern.CASE_INSENSITIVE);
+                TABLE_NAMES.putIfAbsent(table, name);
+            }
+
+            isRead = name.matcher(sql).find();
+        }
+
+        return isRead;
+    }
+
+    /**
+     * Writes the queued saves to the Registry (the caller must hold the flush lock).
+     *
+     * @return <code>true</code> if every queued save was written, <code>false</code> otherwise.
+     */
+    private boolean write() {
+
+        List<PendingSave> saves = null;
+
+        synchronized (pending) {
+            saves = new ArrayList<PendingSave>(pending.values());
+            pending.clear();
+            flushingTables.addAll(pendingTables);
+            pendingTables.clear();
+        }
+
+        try {
+            return write(saves);
+        } finally {
+            synchronized (pending) {
+                flushingTables.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of saves to the Registry (the caller must hold the flush lock).
+     *
+     * @param saves
+     *            the saves.
+     *
+     * @return <code>true</code> if every save was written, <code>false</code> otherwise.
+     */
+    private boolean write(List<PendingSave> saves) {
+
+        if (saves.isEmpty()) {
+            return true;
+        }
+
+        Persistence persistence = PersistenceManager.getPersistence();
+
+        if (persistence == null) {
+            logger.log(Level.WARNING, "No connection to the Registry; {0} queued save(s) discarded", saves.size());
+            return false;
+        }
+
+        String[] updateStrings = new String[saves.size()];
+        Object[][] updateParameters = new Object[saves.size()][];
+        String[] insertStrings = new String[saves.size()];
+        Object[][] insertParameters = new Object[saves.size()][];
+
+        for (int s = 0; s < saves.size(); s++) {
+
+            PendingSave save = saves.get(s);
+
+            try {
+                updateStrings[s] = save.factory.getUpdateSql(save.object);
+                updateParameters[s] = save.factory.getUpdateParameters(save.object);
+            } catch (UnsupportedOperationException e) {
+                /* The object can only be inserted */
+            }
+
+            /* As for a synchronous save, an object that already existed is not inserted again if it has been deleted */
+            if (!save.isUpdate || updateStrings[s] == null) {
+                insertStrings[s] = save.factory.getInsertSql(save.object);
+                insertParameters[s] = save.factory.getInsertParameters(save.object);
+            }
+        }
+
+        boolean isWritten = false;
+
+        try {
+
+            if (persistence.saveRegistryObjects(updateStrings, updateParameters, insertStrings, insertParameters)) {
+                flushes.incrementAndGet();
+                batchedSaves.addAndGet(saves.size());
+                isWritten = true;
+            } else {
+                logger.log(Level.WARNING, "No connection to the Registry; {0} queued save(s) discarded", saves.size());
+            }
+
+        } catch (PersistenceException e) {
+
+            logger.log(Level.FINE, "Batched save failed, saving {0} object(s) individually: {1}", new Object[] {
+                    saves.size(), e.getMessage()});
+            fallbacks.incrementAndGet();
+            isWritten = true;
+
+            for (PendingSave save : saves) {
+                try {
+                    if (!save.factory.save(save.object, save.factory)) {
+                        isWritten = false;
+                    }
+                } catch (Exception e1) {
+                    isWritten = false;
+                    logger.log(Level.WARNING, "Failed to save object: {1}\n{0}", new Object[] {save.object,
+                            e1.getMessage()});
+                    logger.log(Level.FINEST, "Full exception: ", e1);
+                }
+            }
+        }
+
+        return isWritten;
+    }
+
+    /**
+     * Writes the queue at regular intervals.
+     *
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+
+        while (true) {
+
+            synchronized (threadSync) {
+                try {
+                    threadSync.wait(flushInterval);
+                } catch (InterruptedException e) {
+                    /* Ignore */
+                }
+            }
+
+            try {
+
+                flush();
+
+            } catch (Exception e) {
+
+                logger.log(Level.WARNING, "Failed to write queued Registry saves: {0}", e.getMessage());
+                logger.log(Level.FINEST, "Full exception: ", e);
+
+            }
+        }
+    }
+
+    /**
+     * Answers the number of saves waiting to be written.
+     *
+     * @return the count.
+     */
+    public int getPending() {
+
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Answers the number of saves queued.
+     *
+     * @return the count.
+     */
+    public long getQueued() {
+
+        return queued.get();
+    }
+
+    /**
+     * Answers the number of queued saves replaced by a later save of the same object.
+     *
+     * @return the count.
+     */
+    public long getCoalesced() {
+
+        return coalesced.get();
+    }
+
+    /**
+     * Answers the number of batches written.
+     *
+     * @return the count.
+     */
+    public long getFlushes() {
+
+        return flushes.get();
+    }
+
+    /**
+     * Answers the number of saves written in batches.
+     *
+     * @return the count.
+     */
+    public long getBatchedSaves() {
+
+        return batchedSaves.get();
+    }
+
+    /**
+     * Answers the number of batches that failed and were written one save at a time instead.
+     *
+     * @return the count.
+     */
+    public long getFallbacks() {
+
+        return fallbacks.get();
+    }
+}
@@ -52,6 +52,8 @@ public class RouteFactoryImpl extends AbstractFactory implements RouteFactory {
     private String BY_START_NODE_QUERY = null;
     /** Select records using an arbitrary WHERE clause */
     private String PREDICATE_QUERY = null;
+    /** Select the records for a route between two nodes, plus the default route */
+    private String POINT_TO_POINT_QUERY = null;
 
     /*
      * Static initialisation
@@ -67,8 +69,22 @@ public class RouteFactoryImpl extends AbstractFactory implements RouteFactory {
         SELECT_COLUMNS = format("r.start_node_id, r.end_node_id, r.ordinal, r.route from %s as r ",
                 FabricRegistry.ROUTES);
         SELECT_ALL_QUERY = format("select 'all' as type, %s", SELECT_COLUMNS);
-        BY_START_NODE_QUERY = format("select 'byStartNode' as type, %s where START_NODE_ID='\\%s'", SELECT_COLUMNS);
+        BY_START_NODE_QUERY = format("select 'byStartNode' as type, %s where START_NODE_ID=?", SELECT_COLUMNS);
         PREDICATE_QUERY = format("select 'predicate' as type, %s where \\%s", SELECT_COLUMNS);
+
+        String query = "select ";
+        query += "'pointToPoint' as type, ";
+        query += "r.start_node_id, ";
+        query += "r.end_node_id, ";
+        query += "r.ordinal, ";
+        query += "r.route, ";
+        query += "cast(? as varchar(32672)) as target_start_node, ";
+        query += "cast(? as varchar(32672)) as target_end_node ";
+        query += "from " + FabricRegistry.ROUTES + " as r ";
+        query += "where ((r.start_node_id=? and r.end_node_id=?) or ";
+        query += "(r.start_node_id='*' and r.end_node_id='*')) ";
+        query += "order by r.ordinal";
+        POINT_TO_POINT_QUERY = query;
     }
 
     public static RouteFactoryImpl getInstance(QueryScope queryScope) {
@@ -132,55 +148,59 @@ public class RouteFactoryImpl extends AbstractFactory implements RouteFactory {
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.ROUTES + " where(START_NODE_ID=? AND END_NODE_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Route) {
             Route route = (Route) obj;
-            buf.append("delete from " + FabricRegistry.ROUTES + " where(");
-            buf.append("START_NODE_ID='").append(route.getStartNode()).append("' AND ");
-            buf.append("END_NODE_ID='").append(route.getEndNode()).append("')");
+            parameters = new Object[] {String.valueOf(route.getStartNode()), String.valueOf(route.getEndNode())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.ROUTES + " values(?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Route) {
             Route route = (Route) obj;
-            buf.append("insert into " + FabricRegistry.ROUTES + " values(");
-            buf.append(nullOrString(route.getStartNode())).append(',');
-            buf.append(nullOrString(route.getEndNode())).append(',');
-            buf.append(route.getOrdinal()).append(',');
-            buf.append(nullOrString(route.getRoute())).append(')');
+            parameters = new Object[] {route.getStartNode(), route.getEndNode(), route.getOrdinal(), route.getRoute()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.ROUTES
+                + " set START_NODE_ID=?,END_NODE_ID=?,ORDINAL=?,ROUTE=? WHERE START_NODE_ID=? AND END_NODE_ID=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Route) {
             Route route = (Route) obj;
-            buf.append("update " + FabricRegistry.ROUTES + " set ");
-            buf.append("START_NODE_ID='").append(route.getStartNode()).append('\'').append(',');
-            buf.append("END_NODE_ID='").append(route.getEndNode()).append('\'').append(',');
-            buf.append("ORDINAL=").append(route.getOrdinal()).append(',');
-            buf.append("ROUTE=").append(nullOrString(route.getRoute()));
-            buf.append(" WHERE");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (route.getShadow() != null) {
-                Route shadow = (Route) route.getShadow();
-                buf.append(" START_NODE_ID='").append(shadow.getStartNode()).append('\'');
-                buf.append(" AND END_NODE_ID='").append(shadow.getEndNode()).append('\'');
-            } else {
-                buf.append(" START_NODE_ID='").append(route.getStartNode()).append('\'');
-                buf.append(" AND END_NODE_ID='").append(route.getEndNode()).append('\'');
-            }
+            Route key = (route.getShadow() != null) ? (Route) route.getShadow() : route;
+
+            parameters = new Object[] {String.valueOf(route.getStartNode()), String.valueOf(route.getEndNode()),
+                    route.getOrdinal(), route.getRoute(), String.valueOf(key.getStartNode()),
+                    String.valueOf(key.getEndNode())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     // public Route createRoute(String startNode, String endNode, int ordinal, String route) {
@@ -205,8 +225,7 @@ public class RouteFactoryImpl extends AbstractFactory implements RouteFactory {
 
         Route[] routes = null;
         try {
-            String query = format(BY_START_NODE_QUERY, id);
-            routes = runQuery(query);
+            routes = runQuery(BY_START_NODE_QUERY, id);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -220,21 +239,9 @@ public class RouteFactoryImpl extends AbstractFactory implements RouteFactory {
 
         try {
 
-            /* Build the query */
-            String query = "select ";
-            query += "'pointToPoint' as type, ";
-            query += "r.start_node_id, ";
-            query += "r.end_node_id, ";
-            query += "r.ordinal, ";
-            query += "r.route, ";
-            query += "'" + startNode + "' as target_start_node, ";
-            query += "'" + endNode + "' as target_end_node ";
-            query += "from " + FabricRegistry.ROUTES + " as r ";
-            query += "where ((r.start_node_id='" + startNode + "' and r.end_node_id='" + endNode + "') or ";
-            query += "(r.start_node_id='*' and r.end_node_id='*')) ";
-            query += "order by r.ordinal";
-
-            routes = runQuery(query);
+            String start = String.valueOf(startNode);
+            String end = String.valueOf(endNode);
+            routes = runQuery(POINT_TO_POINT_QUERY, start, end, start, end);
 
         } catch (PersistenceException e) {
 
@@ -259,10 +266,10 @@ public class RouteFactoryImpl extends AbstractFactory implements RouteFactory {
         return routes;
     }
 
-    private Route[] runQuery(String sql) throws PersistenceException {
+    private Route[] runQuery(String sql, Object... parameters) throws PersistenceException {
 
         Route[] routes = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             routes = new Route[objects.length];
@@ -94,14 +94,14 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
 
         SELECT_ALL_QUERY = Fabric.format("select * from %s", FabricRegistry.DATA_FEEDS);
 
-        BY_TYPE_QUERY = Fabric.format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.DATA_FEEDS);
+        BY_TYPE_QUERY = Fabric.format("select * from %s where TYPE_ID=?", FabricRegistry.DATA_FEEDS);
 
-        BY_SYSTEM_QUERY = Fabric.format("select * from %s where SERVICE_ID='\\%s' AND PLATFORM_ID='\\%s'",
+        BY_SYSTEM_QUERY = Fabric.format("select * from %s where SERVICE_ID=? AND PLATFORM_ID=?",
                 FabricRegistry.DATA_FEEDS);
 
         PREDICATE_QUERY = Fabric.format("select * from %s where \\%s", FabricRegistry.DATA_FEEDS);
 
-        BY_ID_QUERY = Fabric.format("select * from %s where PLATFORM_ID='\\%s' AND SERVICE_ID='\\%s' AND ID='\\%s'",
+        BY_ID_QUERY = Fabric.format("select * from %s where PLATFORM_ID=? AND SERVICE_ID=? AND ID=?",
                 FabricRegistry.DATA_FEEDS);
 
         SELECT_ALL_INPUT_QUERY = Fabric.format("select * from %s where direction='%s'", FabricRegistry.DATA_FEEDS,
@@ -331,8 +331,7 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
 
         Service[] services = null;
         try {
-            String query = Fabric.format(BY_TYPE_QUERY, type);
-            services = queryServices(query);
+            services = queryServices(BY_TYPE_QUERY, type);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -347,10 +346,10 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
      * @return a list of Service objects or an empty list if no matches were found.
      * @throws PersistenceException
      */
-    private Service[] queryServices(String sql) throws PersistenceException {
+    private Service[] queryServices(String sql, Object... parameters) throws PersistenceException {
 
         Service[] services = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             services = new Service[objects.length];
             for (int x = 0; x < objects.length; x++) {
@@ -394,15 +393,18 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.DATA_FEEDS + " where(Platform_ID=? AND SERVICE_ID=? AND ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Service) {
             Service service = (Service) obj;
-            buf.append("delete from " + FabricRegistry.DATA_FEEDS + " where(");
-            buf.append("Platform_ID=").append(nullOrString(service.getPlatformId())).append(" AND ");
-            buf.append("SERVICE_ID=").append(nullOrString(service.getSystemId())).append(" AND ");
-            buf.append("ID=").append(nullOrString(service.getId())).append(')');
+            parameters = new Object[] {service.getPlatformId(), service.getSystemId(), service.getId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -412,34 +414,29 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
     public String getUpdateSql(RegistryObject obj) {
 
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.DATA_FEEDS + " set ");
+        buf.append("PLATFORM_ID=?,SERVICE_ID=?,ID=?,Type_ID=?,Credentials=?,Availability=?,Description=?,");
+        buf.append("Attributes=?,Direction=?,Attributes_URI=?");
+        buf.append(" WHERE PLATFORM_ID=? AND SERVICE_ID=? AND ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Service) {
             Service service = (Service) obj;
-            buf.append("update " + FabricRegistry.DATA_FEEDS + " set ");
-            buf.append("PLATFORM_ID=").append(nullOrString(service.getPlatformId())).append(',');
-            buf.append("SERVICE_ID=").append(nullOrString(service.getSystemId())).append(',');
-            buf.append("ID=").append(nullOrString(service.getId())).append(',');
-            buf.append("Type_ID=").append(nullOrString(service.getTypeId())).append(',');
-            buf.append("Credentials=").append(nullOrString(service.getCredentials())).append(',');
-            buf.append("Availability=").append(nullOrString(service.getAvailability())).append(',');
-            buf.append("Description=").append(nullOrString(service.getDescription())).append(',');
-            buf.append("Attributes=").append(nullOrString(service.getAttributes())).append(',');
-            buf.append("Direction=").append(nullOrString(service.getMode())).append(',');
-            buf.append("Attributes_URI=").append(nullOrString(service.getAttributesURI()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (service.getShadow() != null) {
-                Service originalService = (Service) service.getShadow();
-                buf.append(" PLATFORM_ID=").append(nullOrString(originalService.getPlatformId())).append(" AND");
-                buf.append(" SERVICE_ID=").append(nullOrString(originalService.getSystemId())).append(" AND");
-                buf.append(" ID=").append(nullOrString(originalService.getId()));
-            } else {
-                buf.append(" PLATFORM_ID=").append(nullOrString(service.getPlatformId())).append(" AND");
-                buf.append(" SERVICE_ID=").append(nullOrString(service.getSystemId())).append(" AND");
-                buf.append(" ID=").append(nullOrString(service.getId()));
-            }
+            Service key = (service.getShadow() != null) ? (Service) service.getShadow() : service;
+
+            parameters = new Object[] {service.getPlatformId(), service.getSystemId(), service.getId(),
+                    service.getTypeId(), service.getCredentials(), service.getAvailability(), service.getDescription(),
+                    service.getAttributes(), service.getMode(), service.getAttributesURI(), key.getPlatformId(),
+                    key.getSystemId(), key.getId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -448,22 +445,20 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.DATA_FEEDS + " values(?,?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Service) {
             Service service = (Service) obj;
-            buf.append("insert into " + FabricRegistry.DATA_FEEDS + " values(");
-            buf.append(nullOrString(service.getPlatformId())).append(',');
-            buf.append(nullOrString(service.getSystemId())).append(',');
-            buf.append(nullOrString(service.getId())).append(',');
-            buf.append(nullOrString(service.getTypeId())).append(',');
-            buf.append(nullOrString(service.getMode())).append(',');
-            buf.append(nullOrString(service.getCredentials())).append(',');
-            buf.append(nullOrString(service.getAvailability())).append(',');
-            buf.append(nullOrString(service.getDescription())).append(',');
-            buf.append(nullOrString(service.getAttributes())).append(',');
-            buf.append(nullOrString(service.getAttributesURI())).append(')');
+            parameters = new Object[] {service.getPlatformId(), service.getSystemId(), service.getId(),
+                    service.getTypeId(), service.getMode(), service.getCredentials(), service.getAvailability(),
+                    service.getDescription(), service.getAttributes(), service.getAttributesURI()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -503,8 +498,7 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
 
         Service[] services = null;
         try {
-            String query = Fabric.format(BY_SYSTEM_QUERY, serviceId, platformId);
-            services = queryServices(query);
+            services = queryServices(BY_SYSTEM_QUERY, serviceId, platformId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -546,8 +540,7 @@ public class ServiceFactoryImpl extends AbstractFactory implements ServiceFactor
 
         Service service = null;
         try {
-            String query = Fabric.format(BY_ID_QUERY, platformId, serviceId, feedId);
-            Service[] services = queryServices(query);
+            Service[] services = queryServices(BY_ID_QUERY, platformId, serviceId, feedId);
             if (services != null && services.length > 0) {
                 service = services[0]; /* pick the first one - ignore any duplicates */
             }
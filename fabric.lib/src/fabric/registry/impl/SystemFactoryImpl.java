@@ -63,13 +63,12 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.SYSTEMS);
-        BY_ID_QUERY = format("select * from %s where ID='\\%s' AND PLATFORM_ID='\\%s'", FabricRegistry.SYSTEMS);
-        BY_TYPE_QUERY = format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.SYSTEMS);
-        BY_PLATFORM_QUERY = format("select * from %s where PLATFORM_ID='\\%s'", FabricRegistry.SYSTEMS);
+        BY_ID_QUERY = format("select * from %s where ID=? AND PLATFORM_ID=?", FabricRegistry.SYSTEMS);
+        BY_TYPE_QUERY = format("select * from %s where TYPE_ID=?", FabricRegistry.SYSTEMS);
+        BY_PLATFORM_QUERY = format("select * from %s where PLATFORM_ID=?", FabricRegistry.SYSTEMS);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.SYSTEMS);
 
-        SELECT_ALL_SYSTEMS_QUERY = format("select * from %s where kind = '\\%s'", FabricRegistry.SYSTEMS,
-                System.SERVICE_KIND);
+        SELECT_ALL_SYSTEMS_QUERY = format("select * from %s where kind = ?", FabricRegistry.SYSTEMS);
     }
 
     /*
@@ -164,7 +163,7 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
 
         System[] systems = null;
         try {
-            systems = runQuery(SELECT_ALL_SYSTEMS_QUERY);
+            systems = runQuery(SELECT_ALL_SYSTEMS_QUERY, System.SERVICE_KIND);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -196,8 +195,7 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
 
         System system = null;
         try {
-            String query = format(BY_ID_QUERY, systemId, platformId);
-            System[] systems = runQuery(query);
+            System[] systems = runQuery(BY_ID_QUERY, systemId, platformId);
             if (systems != null && systems.length > 0) {
                 system = systems[0];
             }
@@ -215,8 +213,7 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
 
         System[] systems = null;
         try {
-            String query = format(BY_TYPE_QUERY, type);
-            systems = runQuery(query);
+            systems = runQuery(BY_TYPE_QUERY, type);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -226,10 +223,10 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
     /**
      * Run a query against the Registry for a list of systems.
      */
-    private System[] runQuery(String sql) throws PersistenceException {
+    private System[] runQuery(String sql, Object... parameters) throws PersistenceException {
 
         System[] systems = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             systems = new System[objects.length];
@@ -274,15 +271,18 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.SYSTEMS + " where(ID=? AND Type_ID=? AND Platform_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof System) {
             System system = (System) obj;
-            buf.append("delete from " + FabricRegistry.SYSTEMS + " where(");
-            buf.append("ID=").append(nullOrString(system.getId())).append(" AND ");
-            buf.append("Type_ID=").append(nullOrString(system.getTypeId())).append(" AND ");
-            buf.append("Platform_ID=").append(nullOrString(system.getPlatformId())).append(')');
+            parameters = new Object[] {system.getId(), system.getTypeId(), system.getPlatformId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -292,37 +292,31 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
     public String getUpdateSql(RegistryObject obj) {
 
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.SYSTEMS + " set ");
+        buf.append("ID=?,PLATFORM_ID=?,TYPE_ID=?,KIND=?,CREDENTIALS=?,READINESS=?,AVAILABILITY=?,");
+        buf.append("LATITUDE=?,LONGITUDE=?,ALTITUDE=?,BEARING=?,VELOCITY=?,");
+        buf.append("DESCRIPTION=?,ATTRIBUTES=?,ATTRIBUTES_URI=?");
+        buf.append(" WHERE ID=? AND PLATFORM_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof System) {
             System system = (System) obj;
-            buf.append("update " + FabricRegistry.SYSTEMS + " set ");
-            buf.append("ID=").append(nullOrString(system.getId())).append(',');
-            buf.append("PLATFORM_ID=").append(nullOrString(system.getPlatformId())).append(',');
-            buf.append("TYPE_ID=").append(nullOrString(system.getTypeId())).append(',');
-            buf.append("KIND=").append(nullOrString(system.getKind())).append(',');
-            buf.append("CREDENTIALS=").append(nullOrString(system.getCredentials())).append(',');
-            buf.append("READINESS=").append(nullOrString(system.getReadiness())).append(',');
-            buf.append("AVAILABILITY=").append(nullOrString(system.getAvailability())).append(',');
-            buf.append("LATITUDE=").append(system.getLatitude()).append(',');
-            buf.append("LONGITUDE=").append(system.getLongitude()).append(',');
-            buf.append("ALTITUDE=").append(system.getAltitude()).append(',');
-            buf.append("BEARING=").append(system.getBearing()).append(',');
-            buf.append("VELOCITY=").append(system.getVelocity()).append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(system.getDescription())).append(',');
-            buf.append("ATTRIBUTES=").append(nullOrString(system.getAttributes())).append(',');
-            buf.append("ATTRIBUTES_URI=").append(nullOrString(system.getAttributesURI()));
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (system.getShadow() != null) {
-                System shadow = (System) system.getShadow();
-                buf.append("ID=").append(nullOrString(shadow.getId())).append(" AND ");
-                buf.append("PLATFORM_ID=").append(nullOrString(shadow.getPlatformId()));
-            } else {
-                buf.append("ID=").append(nullOrString(system.getId())).append(" AND ");
-                buf.append("PLATFORM_ID=").append(nullOrString(system.getPlatformId()));
-            }
+            System key = (system.getShadow() != null) ? (System) system.getShadow() : system;
+
+            parameters = new Object[] {system.getId(), system.getPlatformId(), system.getTypeId(), system.getKind(),
+                    system.getCredentials(), system.getReadiness(), system.getAvailability(), system.getLatitude(),
+                    system.getLongitude(), system.getAltitude(), system.getBearing(), system.getVelocity(),
+                    system.getDescription(), system.getAttributes(), system.getAttributesURI(), key.getId(),
+                    key.getPlatformId()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -331,27 +325,21 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.SYSTEMS + " values(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof System) {
             System system = (System) obj;
-            buf.append("insert into " + FabricRegistry.SYSTEMS + " values(");
-            buf.append(nullOrString(system.getPlatformId())).append(',');
-            buf.append(nullOrString(system.getId())).append(',');
-            buf.append(nullOrString(system.getTypeId())).append(',');
-            buf.append(nullOrString(system.getKind())).append(',');
-            buf.append(nullOrString(system.getCredentials())).append(',');
-            buf.append(nullOrString(system.getReadiness())).append(',');
-            buf.append(nullOrString(system.getAvailability())).append(',');
-            buf.append(system.getLatitude()).append(',');
-            buf.append(system.getLongitude()).append(',');
-            buf.append(system.getAltitude()).append(',');
-            buf.append(system.getBearing()).append(',');
-            buf.append(system.getVelocity()).append(',');
-            buf.append(nullOrString(system.getDescription())).append(',');
-            buf.append(nullOrString(system.getAttributes())).append(',');
-            buf.append(nullOrString(system.getAttributesURI())).append(')');
+            parameters = new Object[] {system.getPlatformId(), system.getId(), system.getTypeId(), system.getKind(),
+                    system.getCredentials(), system.getReadiness(), system.getAvailability(), system.getLatitude(),
+                    system.getLongitude(), system.getAltitude(), system.getBearing(), system.getVelocity(),
+                    system.getDescription(), system.getAttributes(), system.getAttributesURI()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -395,8 +383,7 @@ public class SystemFactoryImpl extends AbstractFactory implements SystemFactory
 
         System[] systems = null;
         try {
-            String query = format(BY_PLATFORM_QUERY, platformId);
-            systems = runQuery(query);
+            systems = runQuery(BY_PLATFORM_QUERY, platformId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -61,57 +61,50 @@ public class SystemPluginFactoryImpl extends AbstractFactory implements SystemPl
 
         SELECT_ALL_QUERY_SYSTEM_PLUGINS = format("select * from %s", FabricRegistry.SYSTEM_PLUGINS);
 
-        BY_NODE_QUERY_SYSTEM_PLUGINS = format("select * %s where NODE_ID='\\%s'", FabricRegistry.SYSTEM_PLUGINS);
+        BY_NODE_QUERY_SYSTEM_PLUGINS = format("select * from %s where NODE_ID=?", FabricRegistry.SYSTEM_PLUGINS);
 
         PREDICATE_QUERY_SYSTEM_PLUGINS = format("select * from %s where \\%s", FabricRegistry.SYSTEM_PLUGINS);
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "update " + FabricRegistry.SYSTEM_PLUGINS
+                + " set DESCRIPTION=?,ARGUMENTS=? WHERE NODE_ID=? AND NAME=? AND FAMILY=? AND TYPE=?";
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof SystemPlugin) {
-            NodePlugin plugin = (NodePlugin) obj;
-            buf.append("update ");
-            buf.append(FabricRegistry.SYSTEM_PLUGINS);
-            buf.append(" set ");
-            buf.append("DESCRIPTION=").append(nullOrString(plugin.getDescription())).append(',');
-            buf.append("ARGUMENTS=").append(nullOrString(plugin.getArguments()));
-            buf.append(" WHERE ");
+            SystemPlugin plugin = (SystemPlugin) obj;
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (plugin.getShadow() != null) {
-                NodePlugin shadow = (NodePlugin) plugin.getShadow();
-                buf.append("NODE_ID='").append(shadow.getNodeId()).append("' AND ");
-                buf.append("NAME='").append(shadow.getName()).append("' AND ");
-                buf.append("FAMILY='").append(shadow.getFamilyName()).append("' AND ");
-                buf.append("TYPE='").append(shadow.getPluginType()).append('\'');
-            } else {
-                buf.append("NODE_ID='").append(plugin.getNodeId()).append("' AND ");
-                buf.append("NAME='").append(plugin.getName()).append("' AND ");
-                buf.append("FAMILY='").append(plugin.getFamilyName()).append("' AND ");
-                buf.append("TYPE='").append(plugin.getPluginType()).append('\'');
-            }
+            SystemPlugin key = (plugin.getShadow() != null) ? (SystemPlugin) plugin.getShadow() : plugin;
+
+            parameters = new Object[] {plugin.getDescription(), plugin.getArguments(),
+                    String.valueOf(key.getNodeId()), String.valueOf(key.getName()),
+                    String.valueOf(key.getFamilyName()), String.valueOf(key.getPluginType())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.SYSTEM_PLUGINS + " values(?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof SystemPlugin) {
             SystemPlugin plugin = (SystemPlugin) obj;
-            buf.append("insert into ");
-            buf.append(FabricRegistry.SYSTEM_PLUGINS);
-            buf.append(" values(");
-            buf.append('\'').append(plugin.getNodeId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getName()).append('\'').append(',');
-            buf.append(nullOrString(plugin.getFamilyName())).append(',');
-            buf.append('\'').append(plugin.getPluginType()).append('\'').append(',');
-            buf.append(nullOrString(plugin.getDescription())).append(',');
-            buf.append(nullOrString(plugin.getArguments())).append(')');
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    plugin.getFamilyName(), String.valueOf(plugin.getPluginType()), plugin.getDescription(),
+                    plugin.getArguments()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -169,8 +162,7 @@ public class SystemPluginFactoryImpl extends AbstractFactory implements SystemPl
     public SystemPlugin[] getSystemPluginsByNode(String id) {
         SystemPlugin[] plugins = null;
         try {
-            String query = format(BY_NODE_QUERY_SYSTEM_PLUGINS, id);
-            plugins = runSystemPluginQuery(query);
+            plugins = runSystemPluginQuery(BY_NODE_QUERY_SYSTEM_PLUGINS, id);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -195,9 +187,9 @@ public class SystemPluginFactoryImpl extends AbstractFactory implements SystemPl
         return plugins;
     }
 
-    private SystemPlugin[] runSystemPluginQuery(String sql) throws PersistenceException {
+    private SystemPlugin[] runSystemPluginQuery(String sql, Object... parameters) throws PersistenceException {
         SystemPlugin[] plugins = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             plugins = new SystemPlugin[objects.length];
@@ -268,25 +260,19 @@ public class SystemPluginFactoryImpl extends AbstractFactory implements SystemPl
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
-
-        SystemPlugin plugin = (SystemPlugin) obj;
-        buf.append("delete FROM ");
-        buf.append(FabricRegistry.FABLET_PLUGINS);
-        buf.append(" WHERE (");
-        buf.append("NODE_ID='");
-        buf.append(plugin.getNodeId()).append("' AND ");
-        buf.append("NAME='");
-        buf.append(plugin.getName()).append("' AND ");
-        buf.append("FAMILY='");
-        buf.append(plugin.getFamilyName()).append('\'');
-
-        buf.append(" AND TYPE='");
-        buf.append(plugin.getPluginType()).append('\'');
+        return "delete FROM " + FabricRegistry.SYSTEM_PLUGINS + " WHERE (NODE_ID=? AND NAME=? AND FAMILY=? AND TYPE=?)";
+    }
 
-        buf.append(')');
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
 
-        return buf.toString();
+        Object[] parameters = null;
+        if (obj instanceof SystemPlugin) {
+            SystemPlugin plugin = (SystemPlugin) obj;
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getName()),
+                    String.valueOf(plugin.getFamilyName()), String.valueOf(plugin.getPluginType())};
+        }
+        return parameters;
     }
 
 }
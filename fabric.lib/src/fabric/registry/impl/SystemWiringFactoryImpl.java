@@ -7,6 +7,8 @@
 
 package fabric.registry.impl;
 
+import java.util.Arrays;
+
 import fabric.registry.FabricRegistry;
 import fabric.registry.QueryScope;
 import fabric.registry.RegistryObject;
@@ -68,10 +70,10 @@ public class SystemWiringFactoryImpl extends AbstractFactory implements SystemWi
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.SYSTEM_WIRING);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.SYSTEM_WIRING);
-        BY_ID_QUERY = format(
-                "select * from %s where COMPOSITE_ID='\\%s' AND FROM_SERVICE_PLATFORM_ID='\\%s' AND FROM_SERVICE_ID='\\%s' AND "
-                        + "FROM_INTERFACE_ID='\\%s' AND TO_SERVICE_PLATFORM_ID='\\%s' AND TO_SERVICE_ID='\\%s' AND "
-                        + "TO_INTERFACE_ID='\\%s'", FabricRegistry.SYSTEM_WIRING);
+        BY_ID_QUERY = format("select * from %s where COMPOSITE_ID=? AND FROM_SERVICE_PLATFORM_ID=?"
+                + " AND FROM_SERVICE_ID=? AND FROM_INTERFACE_ID=? AND TO_SERVICE_PLATFORM_ID=? AND TO_SERVICE_ID=?"
+                + " AND TO_INTERFACE_ID=?",
+                FabricRegistry.SYSTEM_WIRING);
     }
 
     @Override
@@ -103,82 +105,89 @@ public class SystemWiringFactoryImpl extends AbstractFactory implements SystemWi
     public String getDeleteSql(RegistryObject obj) {
 
         StringBuilder buf = new StringBuilder();
+        buf.append("delete from " + FabricRegistry.SYSTEM_WIRING + " where (");
+        buf.append("Composite_ID=? AND From_Service_Platform_ID=? AND From_Service_ID=? AND From_Interface_ID=? AND ");
+        buf.append("To_Service_Platform_ID=? AND To_Service_ID=? AND TO_INTERFACE_ID=?)");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof SystemWiring) {
             SystemWiring systemWiring = (SystemWiring) obj;
-            buf.append("delete from " + FabricRegistry.SYSTEM_WIRING + " where (");
-            buf.append("Composite_ID='").append(systemWiring.getCompositeId()).append("' AND ");
-            buf.append("From_Service_Platform_ID='").append(systemWiring.getFromSystemPlatformId()).append("' AND ");
-            buf.append("From_Service_ID='").append(systemWiring.getFromSystemId()).append("' AND ");
-            buf.append("From_Interface_ID='").append(systemWiring.getFromInterfaceId()).append("' AND ");
-            buf.append("To_Service_Platform_ID='").append(systemWiring.getToSystemPlatformId()).append("' AND ");
-            buf.append("To_Service_ID='").append(systemWiring.getToSystemId()).append("' AND ");
-            buf.append("TO_INTERFACE_ID='").append(systemWiring.getToInterfaceId()).append("')");
+            parameters = keyParameters(systemWiring);
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.SYSTEM_WIRING + " values(?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof SystemWiring) {
             SystemWiring systemWiring = (SystemWiring) obj;
-            buf.append("insert into " + FabricRegistry.SYSTEM_WIRING + " values(");
-            buf.append('\'').append(systemWiring.getCompositeId()).append('\'').append(',');
-            buf.append('\'').append(systemWiring.getFromSystemPlatformId()).append('\'').append(',');
-            buf.append('\'').append(systemWiring.getFromSystemId()).append('\'').append(',');
-            buf.append('\'').append(systemWiring.getFromInterfaceId()).append('\'').append(',');
-            buf.append('\'').append(systemWiring.getToSystemPlatformId()).append('\'').append(',');
-            buf.append('\'').append(systemWiring.getToSystemId()).append('\'').append(',');
-            buf.append('\'').append(systemWiring.getToInterfaceId()).append('\'').append(',');
-            buf.append("").append(nullOrString(systemWiring.getAttributes())).append(',');
-            buf.append("").append(nullOrString(systemWiring.getAttributesURI())).append(')');
+            Object[] key = keyParameters(systemWiring);
+            parameters = Arrays.copyOf(key, key.length + 2);
+            parameters[key.length] = systemWiring.getAttributes();
+            parameters[key.length + 1] = systemWiring.getAttributesURI();
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
 
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.SYSTEM_WIRING + " set ");
+        buf.append("COMPOSITE_ID=?,FROM_SERVICE_PLATFORM_ID=?,FROM_SERVICE_ID=?,FROM_INTERFACE_ID=?,");
+        buf.append("TO_SERVICE_PLATFORM_ID=?,TO_SERVICE_ID=?,TO_INTERFACE_ID=?,Attributes=?,Attributes_URI=?");
+        buf.append(" WHERE COMPOSITE_ID=? AND FROM_SERVICE_PLATFORM_ID=? AND FROM_SERVICE_ID=?");
+        buf.append(" AND FROM_INTERFACE_ID=? AND TO_SERVICE_PLATFORM_ID=? AND TO_SERVICE_ID=? AND TO_INTERFACE_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof SystemWiring) {
             SystemWiring systemWiring = (SystemWiring) obj;
-            buf.append("update " + FabricRegistry.SYSTEM_WIRING + " set ");
-            buf.append("COMPOSITE_ID='").append(systemWiring.getCompositeId()).append('\'').append(',');
-            buf.append("FROM_SERVICE_PLATFORM_ID='").append(systemWiring.getFromSystemPlatformId()).append('\'').append(',');
-            buf.append("FROM_SERVICE_ID='").append(systemWiring.getFromSystemId()).append('\'').append(',');
-            buf.append("FROM_INTERFACE_ID='").append(systemWiring.getFromInterfaceId()).append('\'').append(',');
-            buf.append("TO_SERVICE_PLATFORM_ID='").append(systemWiring.getToSystemPlatformId()).append('\'').append(',');
-            buf.append("TO_SERVICE_ID='").append(systemWiring.getToSystemId()).append('\'').append(',');
-            buf.append("TO_INTERFACE_ID='").append(systemWiring.getToInterfaceId()).append('\'').append(',');
-            buf.append("Attributes=").append(nullOrString(systemWiring.getAttributes())).append(',');
-            buf.append("Attributes_URI=").append(nullOrString(systemWiring.getAttributesURI())).append("");
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (systemWiring.getShadow() != null) {
-                SystemWiring originalSystemWiring = (SystemWiring) systemWiring.getShadow();
-                buf.append(" COMPOSITE_ID='").append(originalSystemWiring.getCompositeId()).append("' AND ");
-                buf.append(" FROM_SERVICE_PLATFORM_ID='").append(originalSystemWiring.getFromSystemPlatformId())
-                        .append("' AND ");
-                buf.append(" FROM_SERVICE_ID='").append(originalSystemWiring.getFromSystemId()).append("' AND ");
-                buf.append(" FROM_INTERFACE_ID='").append(originalSystemWiring.getFromInterfaceId()).append("' AND ");
-                buf.append(" TO_SERVICE_PLATFORM_ID='").append(originalSystemWiring.getToSystemPlatformId()).append(
-                        "' AND ");
-                buf.append(" TO_SERVICE_ID='").append(originalSystemWiring.getToSystemId()).append("' AND ");
-                buf.append(" TO_INTERFACE_ID='").append(originalSystemWiring.getToInterfaceId()).append('\'');
-            } else {
-                buf.append(" COMPOSITE_ID='").append(systemWiring.getCompositeId()).append("' AND ");
-                buf.append(" FROM_SERVICE_PLATFORM_ID='").append(systemWiring.getFromSystemPlatformId()).append(
-                        "' AND ");
-                buf.append(" FROM_SERVICE_ID='").append(systemWiring.getFromSystemId()).append("' AND ");
-                buf.append(" FROM_INTERFACE_ID='").append(systemWiring.getFromInterfaceId()).append("' AND ");
-                buf.append(" TO_SERVICE_PLATFORM_ID='").append(systemWiring.getToSystemPlatformId()).append("' AND ");
-                buf.append(" TO_SERVICE_ID='").append(systemWiring.getToSystemId()).append("' AND ");
-                buf.append(" TO_INTERFACE_ID='").append(systemWiring.getToInterfaceId()).append('\'');
-            }
+            SystemWiring original = (systemWiring.getShadow() != null) ? (SystemWiring) systemWiring.getShadow()
+                    : systemWiring;
+
+            Object[] values = keyParameters(systemWiring);
+            Object[] key = keyParameters(original);
+            parameters = new Object[values.length + 2 + key.length];
+            System.arraycopy(values, 0, parameters, 0, values.length);
+            parameters[values.length] = systemWiring.getAttributes();
+            parameters[values.length + 1] = systemWiring.getAttributesURI();
+            System.arraycopy(key, 0, parameters, values.length + 2, key.length);
         }
-        return buf.toString();
+        return parameters;
+    }
+
+    /**
+     * Get the values of the key columns of a system wiring record, in table order.
+     *
+     * @param systemWiring
+     * @return the parameter values.
+     */
+    private Object[] keyParameters(SystemWiring systemWiring) {
+
+        return new Object[] {String.valueOf(systemWiring.getCompositeId()),
+                String.valueOf(systemWiring.getFromSystemPlatformId()), String.valueOf(systemWiring.getFromSystemId()),
+                String.valueOf(systemWiring.getFromInterfaceId()), String.valueOf(systemWiring.getToSystemPlatformId()),
+                String.valueOf(systemWiring.getToSystemId()), String.valueOf(systemWiring.getToInterfaceId())};
     }
 
     @Override
@@ -232,9 +241,8 @@ public class SystemWiringFactoryImpl extends AbstractFactory implements SystemWi
 
         SystemWiring systemWiring = null;
         try {
-            String query = format(BY_ID_QUERY, compositeId, fromSystemPlatformId, fromSystemId, fromInterfaceId,
-                    toSystemPlatformId, toSystemId, toInterfaceId);
-            SystemWiring[] systemWiringList = queryWiring(query);
+            SystemWiring[] systemWiringList = queryWiring(BY_ID_QUERY, compositeId, fromSystemPlatformId,
+                    fromSystemId, fromInterfaceId, toSystemPlatformId, toSystemId, toInterfaceId);
             if (systemWiringList != null && systemWiringList.length > 0) {
                 systemWiring = systemWiringList[0]; /* pick the first one - ignore any duplicates */
             }
@@ -244,10 +252,10 @@ public class SystemWiringFactoryImpl extends AbstractFactory implements SystemWi
         return systemWiring;
     }
 
-    private SystemWiring[] queryWiring(String sql) throws PersistenceException {
+    private SystemWiring[] queryWiring(String sql, Object... parameters) throws PersistenceException {
 
         SystemWiring[] systemWiringList = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             systemWiringList = new SystemWiring[objects.length];
             for (int x = 0; x < objects.length; x++) {
@@ -56,7 +56,7 @@ public class TaskFactoryImpl extends AbstractFactory implements TaskFactory {
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.TASKS);
         /** Select a particular record */
-        BY_ID_QUERY = format("select * from %s where TASK_ID='\\%s'", FabricRegistry.TASKS);
+        BY_ID_QUERY = format("select * from %s where TASK_ID=?", FabricRegistry.TASKS);
         /** Select records using an arbitrary WHERE clause */
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.TASKS);
     }
@@ -91,54 +91,57 @@ public class TaskFactoryImpl extends AbstractFactory implements TaskFactory {
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.TASKS + " where(TASK_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Task) {
             Task task = (Task) obj;
-            buf.append("delete from " + FabricRegistry.TASKS + " where(");
-            buf.append("TASK_ID='").append(task.getId()).append("')");
+            parameters = new Object[] {String.valueOf(task.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.TASKS + " values(?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Task) {
             Task task = (Task) obj;
-            buf.append("insert into " + FabricRegistry.TASKS + " values(");
-            buf.append('\'').append(task.getId()).append('\'').append(',');
-            buf.append(task.getPriority()).append(',');
-            buf.append(nullOrString(task.getAffiliation())).append(',');
-            buf.append(nullOrString(task.getDescription())).append(',');
-            buf.append(nullOrString(task.getDetail())).append(',');
-            buf.append(nullOrString(task.getDetailUri())).append(')');
+            parameters = new Object[] {String.valueOf(task.getId()), task.getPriority(), task.getAffiliation(),
+                    task.getDescription(), task.getDetail(), task.getDetailUri()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.TASKS + " set ");
+        buf.append("TASK_ID=?,PRIORITY=?,AFFILIATION=?,DESCRIPTION=?,TASK_DETAIL=?,TASK_DETAIL_URI=?");
+        buf.append(" WHERE TASK_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof Task) {
             Task task = (Task) obj;
-            buf.append("update " + FabricRegistry.TASKS + " set ");
-            buf.append("TASK_ID='").append(task.getId()).append('\'').append(',');
-            buf.append("PRIORITY=").append(task.getPriority()).append(',');
-            buf.append("AFFILIATION=").append(nullOrString(task.getAffiliation())).append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(task.getDescription())).append(',');
-            buf.append("TASK_DETAIL=").append(nullOrString(task.getDetail())).append(',');
-            buf.append("TASK_DETAIL_URI=").append(nullOrString(task.getDetailUri())).append("");
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (task.getShadow() != null) {
-                Task shadow = (Task) task.getShadow();
-                buf.append("TASK_ID='").append(shadow.getId()).append('\'');
-            } else {
-                buf.append("TASK_ID='").append(task.getId()).append('\'');
-            }
+            Task key = (task.getShadow() != null) ? (Task) task.getShadow() : task;
+
+            parameters = new Object[] {String.valueOf(task.getId()), task.getPriority(), task.getAffiliation(),
+                    task.getDescription(), task.getDetail(), task.getDetailUri(), String.valueOf(key.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -180,8 +183,7 @@ public class TaskFactoryImpl extends AbstractFactory implements TaskFactory {
     public Task getTaskById(String id) {
         Task task = null;
         try {
-            String query = format(BY_ID_QUERY, id);
-            Task[] tasks = runQuery(query);
+            Task[] tasks = runQuery(BY_ID_QUERY, id);
             if (tasks != null && tasks.length > 0) {
                 task = tasks[0];
             }
@@ -236,9 +238,9 @@ public class TaskFactoryImpl extends AbstractFactory implements TaskFactory {
      * @return
      * @throws PersistenceException
      */
-    private Task[] runQuery(String sql) throws PersistenceException {
+    private Task[] runQuery(String sql, Object... parameters) throws PersistenceException {
         Task[] tasks = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             tasks = new Task[objects.length];
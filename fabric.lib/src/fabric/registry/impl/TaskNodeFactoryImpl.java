@@ -59,7 +59,7 @@ public class TaskNodeFactoryImpl extends AbstractFactory implements TaskNodeFact
         this.queryScope = queryScope;
 
         SELECT_ALL_QUERY = format("select * from %s", FabricRegistry.TASK_NODES);
-        BY_TASK_QUERY = format("select * from %s where TASK_ID='\\%s'", FabricRegistry.TASK_NODES);
+        BY_TASK_QUERY = format("select * from %s where TASK_ID=?", FabricRegistry.TASK_NODES);
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.TASK_NODES);
     }
 
@@ -92,55 +92,58 @@ public class TaskNodeFactoryImpl extends AbstractFactory implements TaskNodeFact
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.TASK_NODES + " where(TASK_ID=? AND NODE_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskNode) {
             TaskNode taskNode = (TaskNode) obj;
-            buf.append("delete from " + FabricRegistry.TASK_NODES + " where(");
-            buf.append("TASK_ID='").append(taskNode.getTaskId()).append("' AND ");
-            buf.append("NODE_ID='").append(taskNode.getNodeId()).append("')");
+            parameters = new Object[] {String.valueOf(taskNode.getTaskId()), String.valueOf(taskNode.getNodeId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.TASK_NODES + " values(?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskNode) {
             TaskNode taskNode = (TaskNode) obj;
-            buf.append("insert into " + FabricRegistry.TASK_NODES + " values(");
-            buf.append(nullOrString(taskNode.getTaskId())).append(',');
-            buf.append(nullOrString(taskNode.getNodeId())).append(',');
-            buf.append(nullOrString(taskNode.getDescription())).append(',');
-            buf.append(nullOrString(taskNode.getConfiguration())).append(',');
-            buf.append(nullOrString(taskNode.getConfigurationUri())).append(')');
+            parameters = new Object[] {taskNode.getTaskId(), taskNode.getNodeId(), taskNode.getDescription(),
+                    taskNode.getConfiguration(), taskNode.getConfigurationUri()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.TASK_NODES + " set ");
+        buf.append("TASK_ID=?,NODE_ID=?,DESCRIPTION=?,CONFIGURATION=?,CONFIGURATION_URI=?");
+        buf.append(" WHERE TASK_ID=? AND NODE_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskNode) {
             TaskNode taskNode = (TaskNode) obj;
-            buf.append("update " + FabricRegistry.TASK_NODES + " set ");
-            buf.append("TASK_ID='").append(taskNode.getTaskId()).append('\'').append(',');
-            buf.append("NODE_ID='").append(taskNode.getNodeId()).append('\'').append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(taskNode.getDescription())).append(',');
-            buf.append("TASK_CONFIGURATION=").append(nullOrString(taskNode.getConfiguration())).append(',');
-            buf.append("TASK_CONFIGURATION_URI=").append(nullOrString(taskNode.getConfigurationUri()));
-            buf.append(" WHERE");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (taskNode.getShadow() != null) {
-                TaskNode shadow = (TaskNode) taskNode.getShadow();
-                buf.append(" TASK_ID='").append(shadow.getTaskId()).append('\'');
-                buf.append(" AND NODE_ID='").append(shadow.getNodeId()).append('\'');
-            } else {
-                buf.append(" TASK_ID='").append(taskNode.getTaskId()).append('\'');
-                buf.append(" AND NODE_ID='").append(taskNode.getNodeId()).append('\'');
-            }
+            TaskNode key = (taskNode.getShadow() != null) ? (TaskNode) taskNode.getShadow() : taskNode;
+
+            parameters = new Object[] {String.valueOf(taskNode.getTaskId()), String.valueOf(taskNode.getNodeId()),
+                    taskNode.getDescription(), taskNode.getConfiguration(), taskNode.getConfigurationUri(),
+                    String.valueOf(key.getTaskId()), String.valueOf(key.getNodeId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -183,8 +186,7 @@ public class TaskNodeFactoryImpl extends AbstractFactory implements TaskNodeFact
     public TaskNode[] getTaskNodesByTask(String taskId) {
         TaskNode[] taskNodes = null;
         try {
-            String query = format(BY_TASK_QUERY, taskId);
-            taskNodes = runQuery(query);
+            taskNodes = runQuery(BY_TASK_QUERY, taskId);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -208,9 +210,9 @@ public class TaskNodeFactoryImpl extends AbstractFactory implements TaskNodeFact
         return taskNodes;
     }
 
-    private TaskNode[] runQuery(String sql) throws PersistenceException {
+    private TaskNode[] runQuery(String sql, Object... parameters) throws PersistenceException {
         TaskNode[] taskNodes = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             taskNodes = new TaskNode[objects.length];
@@ -60,7 +60,7 @@ public class TaskPluginFactoryImpl extends AbstractFactory implements TaskPlugin
 
         SELECT_ALL_QUERY_TASK_PLUGINS = format("select * from %s", FabricRegistry.TASK_PLUGINS);
 
-        BY_NODE_QUERY_TASK_PLUGINS = format("select * from %s where NODE_ID='\\%s'", FabricRegistry.TASK_PLUGINS);
+        BY_NODE_QUERY_TASK_PLUGINS = format("select * from %s where NODE_ID=?", FabricRegistry.TASK_PLUGINS);
 
         PREDICATE_QUERY_TASK_PLUGINS = format("select * from %s where \\%s", FabricRegistry.TASK_PLUGINS);
     }
@@ -68,59 +68,46 @@ public class TaskPluginFactoryImpl extends AbstractFactory implements TaskPlugin
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.TASK_PLUGINS + " set ");
+        buf.append("DESCRIPTION=?,ARGUMENTS=?,PLATFORM_ID=?,SERVICE_ID=?,DATA_FEED_ID=?");
+        buf.append(" WHERE NODE_ID=? AND TASK_ID=? AND NAME=? AND ORDINAL=? AND TYPE=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskPlugin) {
             TaskPlugin plugin = (TaskPlugin) obj;
-            buf.append("update ");
-            buf.append(FabricRegistry.TASK_PLUGINS);
-            buf.append(" set ");
-            buf.append("DESCRIPTION=").append(nullOrString(plugin.getDescription())).append(',');
-            buf.append("ARGUMENTS=").append(nullOrString(plugin.getArguments())).append(',');
-            buf.append("PLATFORM_ID='").append(plugin.getPlatformId()).append('\'').append(',');
-            buf.append("SERVICE_ID='").append(plugin.getSensorId()).append('\'').append(',');
-            buf.append("DATA_FEED_ID=").append(plugin.getFeedId()).append('\'');
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (plugin.getShadow() != null) {
-                TaskPlugin shadow = (TaskPlugin) plugin.getShadow();
-                buf.append("NODE_ID='").append(shadow.getNodeId()).append("' AND ");
-                buf.append("TASK_ID='").append(shadow.getTaskId()).append("' AND ");
-                buf.append("NAME='").append(shadow.getName()).append("' AND ");
-                buf.append("ORDINAL=").append(shadow.getOrdinal()).append(" AND ");
-                buf.append("TYPE='").append(shadow.getPluginType()).append('\'');
-            } else {
-                buf.append("NODE_ID='").append(plugin.getNodeId()).append("' AND ");
-                buf.append("TASK_ID='").append(plugin.getTaskId()).append("' AND ");
-                buf.append("NAME='").append(plugin.getName()).append("' AND ");
-                buf.append("ORDINAL=").append(plugin.getOrdinal()).append(" AND ");
-                buf.append("TYPE='").append(plugin.getPluginType()).append('\'');
-            }
+            TaskPlugin key = (plugin.getShadow() != null) ? (TaskPlugin) plugin.getShadow() : plugin;
 
+            parameters = new Object[] {plugin.getDescription(), plugin.getArguments(),
+                    String.valueOf(plugin.getPlatformId()), String.valueOf(plugin.getSensorId()),
+                    String.valueOf(plugin.getFeedId()), String.valueOf(key.getNodeId()),
+                    String.valueOf(key.getTaskId()), String.valueOf(key.getName()), key.getOrdinal(),
+                    String.valueOf(key.getPluginType())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.TASK_PLUGINS + " values(?,?,?,?,?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskPlugin) {
             TaskPlugin plugin = (TaskPlugin) obj;
-            buf.append("insert into ");
-            buf.append(FabricRegistry.TASK_PLUGINS);
-            buf.append(" values(");
-            buf.append('\'').append(plugin.getNodeId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getTaskId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getName()).append('\'').append(',');
-            buf.append(nullOrString(plugin.getFamilyName())).append(',');
-            buf.append('\'').append(plugin.getPluginType()).append('\'').append(',');
-            buf.append(plugin.getOrdinal()).append(',');
-            buf.append('\'').append(plugin.getPlatformId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getSensorId()).append('\'').append(',');
-            buf.append('\'').append(plugin.getFeedId()).append('\'').append(',');
-            buf.append(nullOrString(plugin.getDescription())).append(',');
-            buf.append(nullOrString(plugin.getArguments())).append(')');
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getTaskId()),
+                    String.valueOf(plugin.getName()), plugin.getFamilyName(), String.valueOf(plugin.getPluginType()),
+                    plugin.getOrdinal(), String.valueOf(plugin.getPlatformId()), String.valueOf(plugin.getSensorId()),
+                    String.valueOf(plugin.getFeedId()), plugin.getDescription(), plugin.getArguments()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -186,8 +173,7 @@ public class TaskPluginFactoryImpl extends AbstractFactory implements TaskPlugin
     public TaskPlugin[] getTaskPluginsByNode(String id) {
         TaskPlugin[] plugins = null;
         try {
-            String query = format(BY_NODE_QUERY_TASK_PLUGINS, id);
-            plugins = runTaskPluginQuery(query);
+            plugins = runTaskPluginQuery(BY_NODE_QUERY_TASK_PLUGINS, id);
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -212,9 +198,9 @@ public class TaskPluginFactoryImpl extends AbstractFactory implements TaskPlugin
         return plugins;
     }
 
-    private TaskPlugin[] runTaskPluginQuery(String sql) throws PersistenceException {
+    private TaskPlugin[] runTaskPluginQuery(String sql, Object... parameters) throws PersistenceException {
         TaskPlugin[] plugins = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             plugins = new TaskPlugin[objects.length];
@@ -285,31 +271,24 @@ public class TaskPluginFactoryImpl extends AbstractFactory implements TaskPlugin
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "DELETE FROM " + FabricRegistry.TASK_PLUGINS + " WHERE NODE_ID = ? AND TASK_ID = ? AND NAME = ?"
+                + " AND FAMILY = ? AND TYPE = ? AND ORDINAL = ? AND PLATFORM_ID = ? AND SERVICE_ID = ?"
+                + " AND DATA_FEED_ID = ? AND DESCRIPTION = ?";
+    }
 
-        TaskPlugin plugin = (TaskPlugin) obj;
-        buf.append("DELETE FROM " + FabricRegistry.TASK_PLUGINS + " WHERE NODE_ID = '");
-        buf.append(plugin.getNodeId());
-        buf.append("' AND TASK_ID = '");
-        buf.append(plugin.getTaskId());
-        buf.append("' AND NAME = '");
-        buf.append(plugin.getName());
-        buf.append("' AND FAMILY = '");
-        buf.append(plugin.getFamilyName());
-        buf.append("' AND TYPE = '");
-        buf.append(plugin.getPluginType());
-        buf.append("' AND ORDINAL = ");
-        buf.append(plugin.getOrdinal());
-        buf.append(" AND PLATFORM_ID = '");
-        buf.append(plugin.getPlatformId());
-        buf.append("' AND SERVICE_ID = '");
-        buf.append(plugin.getSensorId());
-        buf.append("' AND DATA_FEED_ID = '");
-        buf.append(plugin.getFeedId());
-        buf.append("' AND DESCRIPTION = '");
-        buf.append(plugin.getDescription());
-        buf.append('\'');
-        return buf.toString();
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
+        if (obj instanceof TaskPlugin) {
+            TaskPlugin plugin = (TaskPlugin) obj;
+            parameters = new Object[] {String.valueOf(plugin.getNodeId()), String.valueOf(plugin.getTaskId()),
+                    String.valueOf(plugin.getName()), String.valueOf(plugin.getFamilyName()),
+                    String.valueOf(plugin.getPluginType()), plugin.getOrdinal(), String.valueOf(plugin.getPlatformId()),
+                    String.valueOf(plugin.getSensorId()), String.valueOf(plugin.getFeedId()),
+                    String.valueOf(plugin.getDescription())};
+        }
+        return parameters;
     }
 
 }
@@ -52,7 +52,7 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
     private String SELECT_BY_ID = null;
 
     /** Delete records for a particular task */
-    private static String DELETE_FEEDS_BY_TASK = "delete from " + FabricRegistry.TASK_SYSTEMS + " where TASK_ID='%s'";
+    private static String DELETE_FEEDS_BY_TASK = "delete from " + FabricRegistry.TASK_SYSTEMS + " where TASK_ID=?";
 
     /*
      * Static initialisation
@@ -68,9 +68,8 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
 
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.TASK_SYSTEMS);
         SELECT_ALL_SENSOR_FEEDS = format("select * from %s", FabricRegistry.TASK_SYSTEMS);
-        SELECT_SENSOR_FEEDS_BY_TASK = format("select * from %s where TASK_ID='\\%s'", FabricRegistry.TASK_SYSTEMS);
-        SELECT_BY_ID = format(
-                "select * from %s where TASK_ID='\\%s' and PLATFORM_ID='\\%s' and SERVICE_ID='\\%s' and DATA_FEED_ID='\\%s'",
+        SELECT_SENSOR_FEEDS_BY_TASK = format("select * from %s where TASK_ID=?", FabricRegistry.TASK_SYSTEMS);
+        SELECT_BY_ID = format("select * from %s where TASK_ID=? and PLATFORM_ID=? and SERVICE_ID=? and DATA_FEED_ID=?",
                 FabricRegistry.TASK_SYSTEMS);
     }
 
@@ -134,16 +133,18 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.TASK_SYSTEMS
+                + " where(TASK_ID=? AND DATA_FEED_ID=? AND SERVICE_ID=? AND PLATFORM_ID=?)";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof TaskService) {
-            TaskService taskService = (TaskService) obj;
-            buf.append("delete from " + FabricRegistry.TASK_SYSTEMS + " where(");
-            buf.append("TASK_ID='").append(taskService.getTaskId()).append("' AND");
-            buf.append(" DATA_FEED_ID='").append(taskService.getServiceId()).append("' AND");
-            buf.append(" SERVICE_ID='").append(taskService.getSystemId()).append("' AND");
-            buf.append(" PLATFORM_ID='").append(taskService.getPlatformId()).append("')");
+            parameters = keyParameters((TaskService) obj);
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -152,19 +153,20 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.TASK_SYSTEMS + " values(?,?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof TaskService) {
             TaskService taskService = (TaskService) obj;
-            buf.append("insert into " + FabricRegistry.TASK_SYSTEMS + " values(");
-            buf.append(nullOrString(taskService.getTaskId())).append(',');
-            buf.append(nullOrString(taskService.getPlatformId())).append(',');
-            buf.append(nullOrString(taskService.getSystemId())).append(',');
-            buf.append(nullOrString(taskService.getServiceId())).append(',');
-            buf.append(nullOrString(taskService.getDescription())).append(',');
-            buf.append(nullOrString(taskService.getConfiguration())).append(',');
-            buf.append(nullOrString(taskService.getConfigurationURI())).append(')');
+            parameters = new Object[] {taskService.getTaskId(), taskService.getPlatformId(), taskService.getSystemId(),
+                    taskService.getServiceId(), taskService.getDescription(), taskService.getConfiguration(),
+                    taskService.getConfigurationURI()};
         }
-        return buf.toString();
+        return parameters;
     }
 
     /**
@@ -174,33 +176,42 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
     public String getUpdateSql(RegistryObject obj) {
 
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.TASK_SYSTEMS + " set ");
+        buf.append("TASK_ID=?,PLATFORM_ID=?,SERVICE_ID=?,DATA_FEED_ID=?,");
+        buf.append("DESCRIPTION=?,CONFIGURATION=?,CONFIGURATION_URI=?");
+        buf.append(" WHERE TASK_ID=? AND DATA_FEED_ID=? AND SERVICE_ID=? AND PLATFORM_ID=?");
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof TaskService) {
             TaskService taskService = (TaskService) obj;
-            buf.append("update " + FabricRegistry.TASK_SYSTEMS + " set ");
-            buf.append("TASK_ID='").append(taskService.getTaskId()).append('\'').append(',');
-            buf.append("PLATFORM_ID='").append(taskService.getPlatformId()).append('\'').append(',');
-            buf.append("SERVICE_ID='").append(taskService.getSystemId()).append('\'').append(',');
-            buf.append("DATA_FEED_ID='").append(taskService.getServiceId()).append('\'').append(',');
-            buf.append("DESCRIPTION=").append(nullOrString(taskService.getDescription())).append(',');
-            buf.append("CONFIGURATION=").append(nullOrString(taskService.getConfiguration())).append(',');
-            buf.append("CONFIGURATION_URI=").append(nullOrString(taskService.getConfigurationURI()));
-            buf.append(" WHERE");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (taskService.getShadow() != null) {
-                TaskService shadow = (TaskService) taskService.getShadow();
-                buf.append(" TASK_ID='").append(shadow.getTaskId()).append("' AND");
-                buf.append(" DATA_FEED_ID='").append(shadow.getServiceId()).append("' AND");
-                buf.append(" SERVICE_ID='").append(shadow.getSystemId()).append("' AND");
-                buf.append(" PLATFORM_ID='").append(shadow.getPlatformId()).append('\'');
-            } else {
-                buf.append(" TASK_ID='").append(taskService.getTaskId()).append("' AND");
-                buf.append(" DATA_FEED_ID='").append(taskService.getServiceId()).append("' AND");
-                buf.append(" SERVICE_ID='").append(taskService.getSystemId()).append("' AND");
-                buf.append(" PLATFORM_ID='").append(taskService.getPlatformId()).append('\'');
-            }
+            TaskService key = (taskService.getShadow() != null) ? (TaskService) taskService.getShadow() : taskService;
+
+            parameters = new Object[] {String.valueOf(taskService.getTaskId()),
+                    String.valueOf(taskService.getPlatformId()), String.valueOf(taskService.getSystemId()),
+                    String.valueOf(taskService.getServiceId()), taskService.getDescription(),
+                    taskService.getConfiguration(), taskService.getConfigurationURI(), null, null, null, null};
+            System.arraycopy(keyParameters(key), 0, parameters, 7, 4);
         }
-        return buf.toString();
+        return parameters;
+    }
+
+    /**
+     * Get the values of the key columns of a task service record, in WHERE clause order.
+     *
+     * @param taskService
+     * @return the parameter values.
+     */
+    private Object[] keyParameters(TaskService taskService) {
+
+        return new Object[] {String.valueOf(taskService.getTaskId()), String.valueOf(taskService.getServiceId()),
+                String.valueOf(taskService.getSystemId()), String.valueOf(taskService.getPlatformId())};
     }
 
     /**
@@ -241,8 +252,7 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
 
         TaskService[] taskServices = null;
         try {
-            String query = format(SELECT_SENSOR_FEEDS_BY_TASK, taskId);
-            taskServices = runTaskServiceQuery(query);
+            taskServices = runTaskServiceQuery(SELECT_SENSOR_FEEDS_BY_TASK, String.valueOf(taskId));
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -258,10 +268,10 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
      * @throws PersistenceException
      *             if an error occurs executing the query.
      */
-    private TaskService[] runTaskServiceQuery(String sql) throws PersistenceException {
+    private TaskService[] runTaskServiceQuery(String sql, Object... parameters) throws PersistenceException {
 
         TaskService[] taskSensorFeeds = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             taskSensorFeeds = new TaskService[objects.length];
@@ -280,9 +290,9 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
     @Override
     public boolean deleteTaskServicesForTask(String taskId) {
 
-        String deleteSql = format(DELETE_FEEDS_BY_TASK, taskId);
         try {
-            boolean success = PersistenceManager.getPersistence().updateRegistryObject(deleteSql);
+            boolean success = PersistenceManager.getPersistence().updateRegistryObject(DELETE_FEEDS_BY_TASK,
+                    new Object[] {String.valueOf(taskId)}, false);
             return success;
         } catch (PersistenceException e) {
             e.printStackTrace();
@@ -366,11 +376,9 @@ public class TaskServiceFactoryImpl extends AbstractFactory implements TaskServi
     public TaskService getTaskServiceById(String taskId, String platformId, String systemId, String feedId) {
 
         TaskService taskService = null;
-        String query = null;
         try {
-            query = format(SELECT_BY_ID, taskId, platformId, systemId, feedId);
-
-            TaskService[] taskServices = runTaskServiceQuery(query);
+            TaskService[] taskServices = runTaskServiceQuery(SELECT_BY_ID, String.valueOf(taskId),
+                    String.valueOf(platformId), String.valueOf(systemId), String.valueOf(feedId));
             if (taskServices != null && taskServices.length > 0) {
                 taskService = taskServices[0];
             }
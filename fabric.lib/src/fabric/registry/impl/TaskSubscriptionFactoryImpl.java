@@ -47,9 +47,13 @@ public class TaskSubscriptionFactoryImpl extends AbstractFactory implements Task
     /** Select all records for a particular task Id */
     private String SELECT_SUBSCRIPTIONS_BY_TASK = null;
 
+    /** Match a single record on all of its columns */
+    private static final String KEY_CLAUSE = "TASK_ID=? AND ACTOR_ID=? AND PLATFORM_ID=? AND SERVICE_ID=?"
+            + " AND DATA_FEED_ID=? AND ACTOR_PLATFORM_ID=?";
+
     /** Delete records for a particular task ID */
     private static String DELETE_SUBSCRIPTIONS_BY_TASK = "delete from " + FabricRegistry.TASK_SUBSCRIPTIONS
-            + " where TASK_ID='%s'";
+            + " where TASK_ID=?";
 
     /*
      * Static initialisation
@@ -64,8 +68,7 @@ public class TaskSubscriptionFactoryImpl extends AbstractFactory implements Task
 
         PREDICATE_QUERY = format("select * from %s where \\%s", FabricRegistry.TASK_SUBSCRIPTIONS);
         SELECT_ALL_TASK_ACTORS = format("select * from %s", FabricRegistry.TASK_SUBSCRIPTIONS);
-        SELECT_SUBSCRIPTIONS_BY_TASK = format("select * from %s where TASK_ID='\\%s'",
-                FabricRegistry.TASK_SUBSCRIPTIONS);
+        SELECT_SUBSCRIPTIONS_BY_TASK = format("select * from %s where TASK_ID=?", FabricRegistry.TASK_SUBSCRIPTIONS);
     }
 
     public static TaskSubscriptionFactoryImpl getInstance(QueryScope queryScope) {
@@ -132,8 +135,7 @@ public class TaskSubscriptionFactoryImpl extends AbstractFactory implements Task
     public TaskSubscription[] getTaskSubscriptionsByTask(String taskId) {
         TaskSubscription[] taskClients = null;
         try {
-            String query = format(SELECT_SUBSCRIPTIONS_BY_TASK, taskId);
-            taskClients = runQuery(query);
+            taskClients = runQuery(SELECT_SUBSCRIPTIONS_BY_TASK, String.valueOf(taskId));
         } catch (PersistenceException e) {
             e.printStackTrace();
         }
@@ -141,9 +143,9 @@ public class TaskSubscriptionFactoryImpl extends AbstractFactory implements Task
     }
 
     public boolean deleteClientsForTask(String taskId) {
-        String deleteSql = format(DELETE_SUBSCRIPTIONS_BY_TASK, taskId);
         try {
-            boolean success = PersistenceManager.getPersistence().updateRegistryObject(deleteSql);
+            boolean success = PersistenceManager.getPersistence().updateRegistryObject(DELETE_SUBSCRIPTIONS_BY_TASK,
+                    new Object[] {String.valueOf(taskId)}, false);
             return success;
         } catch (PersistenceException e) {
             e.printStackTrace();
@@ -151,9 +153,9 @@ public class TaskSubscriptionFactoryImpl extends AbstractFactory implements Task
         }
     }
 
-    private TaskSubscription[] runQuery(String sql) throws PersistenceException {
+    private TaskSubscription[] runQuery(String sql, Object... parameters) throws PersistenceException {
         TaskSubscription[] taskClients = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             taskClients = new TaskSubscription[objects.length];
@@ -168,70 +170,70 @@ public class TaskSubscriptionFactoryImpl extends AbstractFactory implements Task
 
     @Override
     public String getDeleteSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "delete from " + FabricRegistry.TASK_SUBSCRIPTIONS + " where(" + KEY_CLAUSE + ")";
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskSubscription) {
-            TaskSubscription taskClient = (TaskSubscription) obj;
-            buf.append("delete from " + FabricRegistry.TASK_SUBSCRIPTIONS + " where(");
-            buf.append("TASK_ID='").append(taskClient.getTaskId()).append("' AND");
-            buf.append(" ACTOR_ID='").append(taskClient.getActorId()).append("' AND");
-            buf.append(" PLATFORM_ID='").append(taskClient.getPlatformId()).append("' AND");
-            buf.append(" SERVICE_ID='").append(taskClient.getSystemId()).append("' AND");
-            buf.append(" DATA_FEED_ID='").append(taskClient.getFeedId()).append("' AND");
-            buf.append(" ACTOR_PLATFORM_ID='").append(taskClient.getActorPlatformId()).append("')");
+            parameters = keyParameters((TaskSubscription) obj);
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
-        StringBuilder buf = new StringBuilder();
+        return "insert into " + FabricRegistry.TASK_SUBSCRIPTIONS + " values(?,?,?,?,?,?)";
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskSubscription) {
-            TaskSubscription taskClient = (TaskSubscription) obj;
-            buf.append("insert into " + FabricRegistry.TASK_SUBSCRIPTIONS + " values(");
-            buf.append('\'').append(taskClient.getTaskId()).append('\'').append(',');
-            buf.append('\'').append(taskClient.getActorId()).append('\'').append(',');
-            buf.append('\'').append(taskClient.getPlatformId()).append('\'').append(',');
-            buf.append('\'').append(taskClient.getSystemId()).append('\'').append(',');
-            buf.append('\'').append(taskClient.getFeedId()).append('\'').append(',');
-            buf.append('\'').append(taskClient.getActorPlatformId()).append("')");
+            parameters = keyParameters((TaskSubscription) obj);
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
         StringBuilder buf = new StringBuilder();
+        buf.append("update " + FabricRegistry.TASK_SUBSCRIPTIONS + " set ");
+        buf.append("TASK_ID=?,ACTOR_ID=?,PLATFORM_ID=?,SERVICE_ID=?,DATA_FEED_ID=?,ACTOR_PLATFORM_ID=?");
+        buf.append(" WHERE ").append(KEY_CLAUSE);
+        return buf.toString();
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+        Object[] parameters = null;
         if (obj instanceof TaskSubscription) {
             TaskSubscription taskClient = (TaskSubscription) obj;
-            buf.append("update " + FabricRegistry.TASK_SUBSCRIPTIONS + " set ");
-            buf.append("TASK_ID='").append(taskClient.getTaskId()).append('\'').append(',');
-            buf.append("ACTOR_ID='").append(taskClient.getActorId()).append('\'').append(',');
-            buf.append("PLATFORM_ID='").append(taskClient.getPlatformId()).append('\'').append(',');
-            buf.append("SERVICE_ID='").append(taskClient.getSystemId()).append('\'').append(',');
-            buf.append("DATA_FEED_ID='").append(taskClient.getFeedId()).append('\'').append(',');
-            buf.append("ACTOR_PLATFORM_ID='").append(taskClient.getActorPlatformId()).append('\'');
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (taskClient.getShadow() != null) {
-                TaskSubscription shadow = (TaskSubscription) taskClient.getShadow();
-                buf.append("TASK_ID='").append(shadow.getTaskId()).append("' AND ");
-                buf.append("ACTOR_ID='").append(shadow.getActorId()).append("' AND ");
-                buf.append("PLATFORM_ID='").append(shadow.getPlatformId()).append("' AND ");
-                buf.append("SERVICE_ID='").append(shadow.getSystemId()).append("' AND ");
-                buf.append("DATA_FEED_ID='").append(shadow.getFeedId()).append("' AND ");
-                buf.append("ACTOR_PLATFORM_ID='").append(shadow.getActorPlatformId()).append('\'');
-            } else {
-                buf.append("TASK_ID='").append(taskClient.getTaskId()).append("' AND ");
-                buf.append("ACTOR_ID='").append(taskClient.getActorId()).append("' AND ");
-                buf.append("PLATFORM_ID='").append(taskClient.getPlatformId()).append("' AND ");
-                buf.append("SERVICE_ID='").append(taskClient.getSystemId()).append("' AND ");
-                buf.append("DATA_FEED_ID='").append(taskClient.getFeedId()).append("' AND ");
-                buf.append("ACTOR_PLATFORM_ID='").append(taskClient.getActorPlatformId()).append('\'');
-            }
+            TaskSubscription key = (taskClient.getShadow() != null) ? (TaskSubscription) taskClient.getShadow()
+                    : taskClient;
+
+            Object[] values = keyParameters(taskClient);
+            Object[] keys = keyParameters(key);
+            parameters = new Object[values.length + keys.length];
+            System.arraycopy(values, 0, parameters, 0, values.length);
+            System.arraycopy(keys, 0, parameters, values.length, keys.length);
         }
+        return parameters;
+    }
 
-        return buf.toString();
+    /**
+     * Get the values of the columns of a task subscription record, in table order.
+     *
+     * @param taskClient
+     * @return the parameter values.
+     */
+    private Object[] keyParameters(TaskSubscription taskClient) {
+        return new Object[] {String.valueOf(taskClient.getTaskId()), String.valueOf(taskClient.getActorId()),
+                String.valueOf(taskClient.getPlatformId()), String.valueOf(taskClient.getSystemId()),
+                String.valueOf(taskClient.getFeedId()), String.valueOf(taskClient.getActorPlatformId())};
     }
 
     /**
@@ -85,12 +85,12 @@ public class TypeFactoryImpl extends AbstractFactory implements TypeFactory {
         SELECT_ALL_QUERY_SYSTEM_TYPES = Fabric.format("select * from %s", FabricRegistry.SYSTEM_TYPES);
         SELECT_ALL_SERVICE_WIRING = Fabric.format("select * from %s", FabricRegistry.SYSTEM_WIRING);
 
-        BY_ID_QUERY_ACTOR_TYPE = Fabric.format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.ACTOR_TYPES);
-        BY_ID_QUERY_SERVICE_TYPE = Fabric.format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.FEED_TYPES);
-        BY_ID_QUERY_NODE_TYPE = Fabric.format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.NODE_TYPES);
-        BY_ID_QUERY_PLATFORM_TYPE = Fabric.format("select * from %s where TYPE_ID='\\%s'",
+        BY_ID_QUERY_ACTOR_TYPE = Fabric.format("select * from %s where TYPE_ID=?", FabricRegistry.ACTOR_TYPES);
+        BY_ID_QUERY_SERVICE_TYPE = Fabric.format("select * from %s where TYPE_ID=?", FabricRegistry.FEED_TYPES);
+        BY_ID_QUERY_NODE_TYPE = Fabric.format("select * from %s where TYPE_ID=?", FabricRegistry.NODE_TYPES);
+        BY_ID_QUERY_PLATFORM_TYPE = Fabric.format("select * from %s where TYPE_ID=?",
                 FabricRegistry.PLATFORM_TYPES);
-        BY_ID_QUERY_SYSTEM_TYPE = Fabric.format("select * from %s where TYPE_ID='\\%s'", FabricRegistry.SYSTEM_TYPES);
+        BY_ID_QUERY_SYSTEM_TYPE = Fabric.format("select * from %s where TYPE_ID=?", FabricRegistry.SYSTEM_TYPES);
 
         PREDICATE_QUERY_ACTOR_TYPES = Fabric.format("select * from %s where \\%s", FabricRegistry.ACTOR_TYPES);
         PREDICATE_QUERY_SERVICE_TYPES = Fabric.format("select * from %s where \\%s", FabricRegistry.FEED_TYPES);
@@ -186,65 +186,75 @@ public class TypeFactoryImpl extends AbstractFactory implements TypeFactory {
     @Override
     public String getDeleteSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        String sql = null;
         if (obj instanceof Type) {
             Type type = (Type) obj;
-            buf.append("delete FROM ");
-            buf.append(getTableNameForUpdate(type.getClassifier()));
-            buf.append(" WHERE (");
-            buf.append("TYPE_ID='");
-            buf.append(type.getId()).append("')");
+            sql = "delete FROM " + getTableNameForUpdate(type.getClassifier()) + " WHERE (TYPE_ID=?)";
         }
-        return buf.toString();
+        return sql;
+    }
+
+    @Override
+    public Object[] getDeleteParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
+        if (obj instanceof Type) {
+            Type type = (Type) obj;
+            parameters = new Object[] {String.valueOf(type.getId())};
+        }
+        return parameters;
     }
 
     @Override
     public String getInsertSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        String sql = null;
+        if (obj instanceof Type) {
+            Type type = (Type) obj;
+            sql = "insert into " + getTableNameForUpdate(type.getClassifier()) + " values(?,?,?,?)";
+        }
+        return sql;
+    }
+
+    @Override
+    public Object[] getInsertParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Type) {
             Type type = (Type) obj;
-            buf.append("insert into ");
-            buf.append(getTableNameForUpdate(type.getClassifier()));
-            buf.append(" values(");
-            buf.append('\'').append(type.getId()).append('\'').append(',');
-            buf.append('\'').append(type.getDescription()).append('\'').append(',');
-            buf.append('\'').append(type.getAttributes()).append('\'').append(',');
-            buf.append('\'').append(type.getAttributesUri()).append("')");
+            parameters = new Object[] {String.valueOf(type.getId()), String.valueOf(type.getDescription()),
+                    String.valueOf(type.getAttributes()), String.valueOf(type.getAttributesUri())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
     public String getUpdateSql(RegistryObject obj) {
 
-        StringBuilder buf = new StringBuilder();
+        String sql = null;
+        if (obj instanceof Type) {
+            Type type = (Type) obj;
+            sql = "update " + getTableNameForUpdate(type.getClassifier())
+                    + " set TYPE_ID=?,DESCRIPTION=?,ATTRIBUTES=?,ATTRIBUTES_URI=? WHERE TYPE_ID=?";
+        }
+        return sql;
+    }
+
+    @Override
+    public Object[] getUpdateParameters(RegistryObject obj) {
+
+        Object[] parameters = null;
         if (obj instanceof Type) {
             Type type = (Type) obj;
-            buf.append("update ");
-            buf.append(getTableNameForUpdate(type.getClassifier()));
-            buf.append(" set ");
-            buf.append("TYPE_ID='");
-            buf.append(type.getId()).append('\'').append(',');
-            buf.append("DESCRIPTION='").append(type.getDescription()).append('\'').append(',');
-            buf.append("ATTRIBUTES='").append(type.getAttributes()).append('\'').append(',');
-            buf.append("ATTRIBUTES_URI='").append(type.getAttributesUri()).append('\'');
-            buf.append(" WHERE ");
 
             /* if it exists, use the shadow values for the WHERE clause */
-            if (type.getShadow() != null) {
-                Type shadow = (Type) type.getShadow();
-                buf.append("TYPE_ID='");
-                buf.append(shadow.getId());
-                buf.append('\'');
-            } else {
-                buf.append("TYPE_ID='");
-                buf.append(type.getId());
-                buf.append('\'');
-            }
+            Type key = (type.getShadow() != null) ? (Type) type.getShadow() : type;
 
+            parameters = new Object[] {String.valueOf(type.getId()), String.valueOf(type.getDescription()),
+                    String.valueOf(type.getAttributes()), String.valueOf(type.getAttributesUri()),
+                    String.valueOf(key.getId())};
         }
-        return buf.toString();
+        return parameters;
     }
 
     @Override
@@ -427,8 +437,7 @@ public class TypeFactoryImpl extends AbstractFactory implements TypeFactory {
 
         Type type = null;
         try {
-            String query = Fabric.format(sql, id);
-            Type[] types = runQuery(query, classifier);
+            Type[] types = runQuery(sql, classifier, String.valueOf(id));
             if (types.length > 0) {
                 type = types[0];
             }
@@ -464,10 +473,10 @@ public class TypeFactoryImpl extends AbstractFactory implements TypeFactory {
      * @return
      * @throws PersistenceException
      */
-    private Type[] runQuery(String sql, int classifier) throws PersistenceException {
+    private Type[] runQuery(String sql, int classifier, Object... parameters) throws PersistenceException {
 
         Type[] types = null;
-        RegistryObject[] objects = queryRegistryObjects(sql, this);
+        RegistryObject[] objects = queryRegistryObjects(sql, parameters, this);
         if (objects != null && objects.length > 0) {
             // necessary
             types = new Type[objects.length];
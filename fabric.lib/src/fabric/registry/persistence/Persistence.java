@@ -76,6 +76,30 @@ public interface Persistence {
     public RegistryObject[] queryRegistryObjects(String queryString, AbstractFactory factory,
             QueryScope queryScope) throws PersistenceException;
 
+    /**
+     * Run a parameterised query for Registry objects, i.e. a SQL SELECT statement containing <code>?</code> parameter
+     * markers with their values supplied separately.
+     *
+     * Implementations may prepare and cache the statement so that repeated queries of the same form are not parsed
+     * and planned each time.
+     *
+     * @param queryString
+     *            - the SELECT statement to execute.
+     * @param parameters
+     *            - the values of the parameter markers, in order (<code>null</code> elements are bound as SQL
+     *            <code>NULL</code>), or <code>null</code> if there are none.
+     * @param factory
+     *            - the object factory used to convert each row into the appropriate registry object.
+     * @param queryScope
+     *            - indicates whether the query should only reflect local registry only.
+     * @return an array of objects or null if no results were returned from the database.
+     *
+     * @throws PersistenceException
+     *             if an error occurs running the specified SELECT statement.
+     */
+    public RegistryObject[] queryRegistryObjects(String queryString, Object[] parameters, AbstractFactory factory,
+            QueryScope queryScope) throws PersistenceException;
+
     /**
      * Run a query that is only expected to return a simple string value. This method can be used for cases where only a
      * single value is required (e.g. to check a particularly field of a certain object).
@@ -111,4 +135,62 @@ public interface Persistence {
     public boolean updateRegistryObject(String updateString) throws PersistenceException;
 
     public boolean updateRegistryObjects(String[] updateStrings) throws PersistenceException;
+
+    /**
+     * Runs a parameterised INSERT, UPDATE or DELETE statement.
+     *
+     * @param updateString
+     *            - the SQL statement, containing <code>?</code> parameter markers.
+     * @param parameters
+     *            - the values of the parameter markers, in order (<code>null</code> elements are bound as SQL
+     *            <code>NULL</code>), or <code>null</code> if there are none.
+     * @param ignoreDuplicateWarning
+     *            - <code>true</code> if duplicate key errors are to be ignored, <code>false</code> otherwise.
+     * @return <code>true</code> if the statement was run, <code>false</code> if there is no Registry connection.
+     *
+     * @throws PersistenceException
+     */
+    public boolean updateRegistryObject(String updateString, Object[] parameters, boolean ignoreDuplicateWarning)
+            throws PersistenceException;
+
+    /**
+     * Runs a parameterised INSERT, UPDATE or DELETE statement once for each set of parameter values, as a single
+     * batch.
+     *
+     * @param updateString
+     *            - the SQL statement, containing <code>?</code> parameter markers.
+     * @param parameters
+     *            - the parameter values for each execution of the statement.
+     * @return <code>true</code> if the batch was run, <code>false</code> if there is no Registry connection.
+     *
+     * @throws PersistenceException
+     */
+    public boolean updateRegistryObjects(String updateString, Object[][] parameters) throws PersistenceException;
+
+    /**
+     * Saves a set of Registry objects in a single transaction, using batches of UPDATE and INSERT statements.
+     *
+     * The UPDATE for each object is run first; its INSERT is then run only if the UPDATE matched no rows (or if the
+     * object has no UPDATE). Statements of the same form are batched together, so the order in which they are run is
+     * not preserved: each object must be saved to a different row. If any statement fails then none of the changes are
+     * made.
+     *
+     * @param updateStrings
+     *            - the UPDATE statement for each object (<code>null</code> elements indicate that the object can only
+     *            be inserted).
+     * @param updateParameters
+     *            - the values of the parameter markers of each UPDATE statement (<code>null</code> elements indicate
+     *            literal SQL).
+     * @param insertStrings
+     *            - the INSERT statement for each object (<code>null</code> elements indicate that the object is only
+     *            to be updated).
+     * @param insertParameters
+     *            - the values of the parameter markers of each INSERT statement (<code>null</code> elements indicate
+     *            literal SQL).
+     * @return <code>true</code> if the objects were saved, <code>false</code> if there is no Registry connection.
+     *
+     * @throws PersistenceException
+     */
+    public boolean saveRegistryObjects(String[] updateStrings, Object[][] updateParameters, String[] insertStrings,
+            Object[][] insertParameters) throws PersistenceException;
 }
\ No newline at end of file
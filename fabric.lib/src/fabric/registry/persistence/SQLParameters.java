@@ -0,0 +1,91 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.registry.persistence;
+
+/**
+ * Utility methods for parameterised Registry SQL statements.
+ * <p>
+ * For how factories bind <code>null</code> values, see <code>AbstractFactory.getInsertParameters()</code>.
+ * </p>
+ */
+public final class SQLParameters {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class methods
+     */
+
+    private SQLParameters() {
+
+    }
+
+    /**
+     * Answers the literal form of a parameterised SQL statement, i.e. with each <code>?</code> parameter marker
+     * replaced by the corresponding value as a SQL literal.
+     * <p>
+     * Used where the statement cannot be prepared locally, for example when it is sent to other nodes as part of a
+     * distributed query.
+     * </p>
+     *
+     * @param sql
+     *            the SQL statement.
+     *
+     * @param parameters
+     *            the values of the parameter markers, in order, or <code>null</code> if there are none.
+     *
+     * @return the literal SQL.
+     */
+    public static String inline(String sql, Object[] parameters) {
+
+        if (parameters == null || parameters.length == 0) {
+            return sql;
+        }
+
+        StringBuilder literal = new StringBuilder(sql.length() + parameters.length * 16);
+        boolean inQuotes = false;
+        int p = 0;
+
+        for (int c = 0; c < sql.length(); c++) {
+
+            char next = sql.charAt(c);
+
+            if (next == '\'') {
+                inQuotes = !inQuotes;
+                literal.append(next);
+            } else if (next == '?' && !inQuotes && p < parameters.length) {
+                appendLiteral(literal, parameters[p++]);
+            } else {
+                literal.append(next);
+            }
+        }
+
+        return literal.toString();
+    }
+
+    /**
+     * Appends a value to a SQL statement as a SQL literal.
+     *
+     * @param sql
+     *            the SQL statement being built.
+     *
+     * @param value
+     *            the value.
+     */
+    private static void appendLiteral(StringBuilder sql, Object value) {
+
+        if (value == null) {
+            sql.append("NULL");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sql.append(value);
+        } else {
+            sql.append('\'').append(value.toString().replace("'", "''")).append('\'');
+        }
+    }
+}
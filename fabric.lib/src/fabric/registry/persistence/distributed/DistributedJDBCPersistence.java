@@ -34,6 +34,7 @@ import fabric.registry.RegistryObject;
 import fabric.registry.exception.PersistenceException;
 import fabric.registry.impl.AbstractFactory;
 import fabric.registry.persistence.Persistence;
+import fabric.registry.persistence.SQLParameters;
 import fabric.registry.persistence.impl.SingletonJDBCPersistence;
 import fabric.services.floodmessage.FloodRouting;
 
@@ -191,6 +192,20 @@ public class DistributedJDBCPersistence implements Persistence, ICallback {
         return results;
     }
 
+    @Override
+    public RegistryObject[] queryRegistryObjects(String queryString, Object[] parameters, AbstractFactory factory,
+        QueryScope queryScope) throws PersistenceException {
+
+        RegistryObject[] results = null;
+        if (queryScope == QueryScope.LOCAL) {
+            results = localJDBCPersistence.queryRegistryObjects(queryString, parameters, factory, queryScope);
+        } else {
+            // Remote nodes run the query as plain SQL
+            results = queryRegistryObjects(SQLParameters.inline(queryString, parameters), factory, queryScope);
+        }
+        return results;
+    }
+
     @Override
     public String queryString(String sqlString, QueryScope queryScope) throws PersistenceException {
 
@@ -244,6 +259,33 @@ public class DistributedJDBCPersistence implements Persistence, ICallback {
         return result;
     }
 
+    @Override
+    public boolean updateRegistryObject(String updateString, Object[] parameters, boolean ignoreDuplicateWarning)
+        throws PersistenceException {
+
+        // Updates are local Only
+        boolean result = localJDBCPersistence.updateRegistryObject(updateString, parameters, ignoreDuplicateWarning);
+        return result;
+    }
+
+    @Override
+    public boolean updateRegistryObjects(String updateString, Object[][] parameters) throws PersistenceException {
+
+        // Updates are local Only
+        boolean result = localJDBCPersistence.updateRegistryObjects(updateString, parameters);
+        return result;
+    }
+
+    @Override
+    public boolean saveRegistryObjects(String[] updateStrings, Object[][] updateParameters, String[] insertStrings,
+        Object[][] insertParameters) throws PersistenceException {
+
+        // Updates are local Only
+        boolean result = localJDBCPersistence.saveRegistryObjects(updateStrings, updateParameters, insertStrings,
+                insertParameters);
+        return result;
+    }
+
     private ServiceMessage constructMessage(String query) throws PersistenceException {
 
         // Build Query Object
@@ -95,13 +95,13 @@ public class GaianPersistence extends SingletonJDBCPersistence {
     }
 
     @Override
-    public RegistryObject[] queryRegistryObjects(String queryString, AbstractFactory factory, QueryScope queryScope)
-        throws PersistenceException {
+    public RegistryObject[] queryRegistryObjects(String queryString, Object[] parameters, AbstractFactory factory,
+        QueryScope queryScope) throws PersistenceException {
 
         if (queryScope == QueryScope.DISTRIBUTED) {
             queryString = mapSQLForGaian(queryString);
         }
-        return super.queryRegistryObjects(queryString, factory, queryScope);
+        return super.queryRegistryObjects(queryString, parameters, factory, queryScope);
     }
 
     @Override
@@ -0,0 +1,677 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.registry.persistence.impl;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of JDBC connections to the Registry.
+ * <p>
+ * Connections are opened on demand, up to the maximum pool size; callers requesting a connection when all are in use
+ * wait (up to a timeout) for one to be released. Idle connections are checked before reuse if they have not been used
+ * recently, and connections that fail are discarded and replaced. Each connection has its own cache of prepared
+ * statements; a statement is taken out of the cache while it is in use, so that a statement whose results are still
+ * being read is never handed out again.
+ * </p>
+ */
+public class RegistryConnectionPool {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class static fields
+     */
+
+    private final static Logger logger = Logger.getLogger(RegistryConnectionPool.class.getPackage().getName());
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * A pooled connection, and its prepared statement cache.
+     * <p>
+     * A pooled connection is used by one thread at a time, between <code>acquire()</code> and <code>release()</code>.
+     * </p>
+     */
+    public class PooledConnection {
+
+        /** The JDBC connection. */
+        final Connection connection;
+
+        /** Cache of the prepared statements not in use, keyed by SQL and in least recently used order. */
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16,
+                0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+
+                boolean isFull = size() > statementCacheSize;
+
+                if (isFull) {
+                    closeStatement(eldest.getValue());
+                }
+
+                return isFull;
+            }
+        };
+
+        /** The time (from <code>System.currentTimeMillis()</code>) at which the connection was last released. */
+        long lastUsed = System.currentTimeMillis();
+
+        /** The time (from <code>System.nanoTime()</code>) at which the connection was last acquired. */
+        long acquiredAt = 0;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param connection
+         *            the JDBC connection.
+         */
+        PooledConnection(Connection connection) {
+
+            this.connection = connection;
+        }
+
+        /**
+         * Answers the JDBC connection.
+         *
+         * @return the connection.
+         */
+        public Connection getConnection() {
+
+            return connection;
+        }
+
+        /**
+         * Answers a prepared statement for the specified SQL, taking it out of the cache if available.
+         * <p>
+         * The statement must be returned using <code>releaseStatement()</code>.
+         * </p>
+         *
+         * @param sql
+         *            the SQL.
+         *
+         * @return the statement.
+         *
+         * @throws SQLException
+         */
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+
+            PreparedStatement s = statements.remove(sql);
+
+            if (s != null) {
+
+                statementCacheHits.incrementAndGet();
+
+            } else {
+
+                statementCacheMisses.incrementAndGet();
+                s = connection.prepareStatement(sql);
+
+                if (queryTimeout != -1) {
+                    s.setQueryTimeout(queryTimeout);
+                }
+            }
+
+            return s;
+        }
+
+        /**
+         * Returns a statement obtained from <code>prepareStatement()</code>, putting it back in the cache if it can be
+         * reused, or closing it otherwise.
+         *
+         * @param sql
+         *            the SQL of the statement.
+         *
+         * @param s
+         *            the statement (may be <code>null</code>).
+         *
+         * @param reusable
+         *            <code>false</code> if the statement must not be reused (for example following an error),
+         *            <code>true</code> otherwise.
+         */
+        public void releaseStatement(String sql, PreparedStatement s, boolean reusable) {
+
+            if (s == null) {
+                return;
+            }
+
+            /* Keep one statement per SQL (another may have been cached while this one was in use) */
+            if (reusable && statementCacheSize > 0 && !statements.containsKey(sql)) {
+                statements.put(sql, s);
+            } else {
+                closeStatement(s);
+            }
+        }
+
+        /**
+         * Returns the connection to the pool.
+         *
+         * @param isBroken
+         *            <code>true</code> if the connection has failed and must be discarded, <code>false</code>
+         *            otherwise.
+         */
+        public void release(boolean isBroken) {
+
+            RegistryConnectionPool.this.release(this, isBroken);
+        }
+
+        /**
+         * Closes the connection and its cached statements, ignoring any errors.
+         */
+        void close() {
+
+            for (Iterator<PreparedStatement> i = statements.values().iterator(); i.hasNext();) {
+                closeStatement(i.next());
+            }
+
+            statements.clear();
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINEST, "Could not close Registry connection: {0}", e.getMessage());
+            }
+        }
+    }
+
+    /*
+     * Class fields
+     */
+
+    /** The JDBC URL of the Registry. */
+    private final String url;
+
+    /** The maximum number of connections. */
+    private final int maxSize;
+
+    /** The maximum time (in milliseconds) to wait for a connection. */
+    private final long acquireTimeout;
+
+    /** The time (in milliseconds) for which a connection may be idle before it is checked prior to reuse. */
+    private final long validationInterval;
+
+    /** The maximum number of prepared statements cached per connection (<code>0</code> to disable caching). */
+    private final int statementCacheSize;
+
+    /** The JDBC query timeout (in seconds), or <code>-1</code> for none. */
+    private final int queryTimeout;
+
+    /** The idle connections, most recently used first. */
+    private final LinkedList<PooledConnection> idle = new LinkedList<PooledConnection>();
+
+    /** The number of connections open or being opened (idle and in use). */
+    private int size = 0;
+
+    /** The number of connections in use. */
+    private int inUse = 0;
+
+    /** The highest number of connections in use at once. */
+    private int peakInUse = 0;
+
+    /** Flag indicating if the pool has been closed. */
+    private boolean isClosed = false;
+
+    /** The time (from <code>System.nanoTime()</code>) at which the pool was created. */
+    private final long createdAt = System.nanoTime();
+
+    /** The number of connections handed out. */
+    private final AtomicLong acquisitions = new AtomicLong(0);
+
+    /** The total time (in nanoseconds) spent waiting for connections. */
+    private final AtomicLong totalWaitTime = new AtomicLong(0);
+
+    /** The longest time (in nanoseconds) spent waiting for a connection. */
+    private final AtomicLong maxWaitTime = new AtomicLong(0);
+
+    /** The total time (in nanoseconds) for which connections have been in use. */
+    private final AtomicLong busyTime = new AtomicLong(0);
+
+    /** The number of requests for a connection that timed out. */
+    private final AtomicLong timeouts = new AtomicLong(0);
+
+    /** The number of connections discarded because they failed a check or an operation. */
+    private final AtomicLong discarded = new AtomicLong(0);
+
+    /** The number of statements taken from the statement caches. */
+    private final AtomicLong statementCacheHits = new AtomicLong(0);
+
+    /** The number of statements prepared because there was no cached statement available. */
+    private final AtomicLong statementCacheMisses = new AtomicLong(0);
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param url
+     *            the JDBC URL of the Registry.
+     *
+     * @param maxSize
+     *            the maximum number of connections.
+     *
+     * @param acquireTimeout
+     *            the maximum time (in milliseconds) to wait for a connection.
+     *
+     * @param validationInterval
+     *            the time (in milliseconds) for which a connection may be idle before it is checked prior to reuse.
+     *
+     * @param statementCacheSize
+     *            the maximum number of prepared statements cached per connection (<code>0</code> to disable caching).
+     *
+     * @param queryTimeout
+     *            the JDBC query timeout (in seconds), or <code>-1</code> for none.
+     */
+    public RegistryConnectionPool(String url, int maxSize, long acquireTimeout, long validationInterval,
+            int statementCacheSize, int queryTimeout) {
+
+        this.url = url;
+        this.maxSize = Math.max(maxSize, 1);
+        this.acquireTimeout = acquireTimeout;
+        this.validationInterval = validationInterval;
+        this.statementCacheSize = Math.max(statementCacheSize, 0);
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Answers a connection from the pool, opening a new one if none is idle and the pool is not full, otherwise waiting
+     * for one to be released.
+     * <p>
+     * The connection must be returned using <code>release()</code>.
+     * </p>
+     *
+     * @return the connection.
+     *
+     * @throws SQLException
+     *             thrown if no connection becomes available in time, or a new connection cannot be opened.
+     */
+    public PooledConnection acquire() throws SQLException {
+
+        long start = System.nanoTime();
+        PooledConnection pooled = null;
+
+        synchronized (this) {
+
+            long remaining = acquireTimeout;
+
+            while (pooled == null && !isClosed && idle.isEmpty() && size >= maxSize && remaining > 0) {
+
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                remaining = acquireTimeout - (System.nanoTime() - start) / 1000000;
+            }
+
+            if (isClosed) {
+                throw new SQLException("The Registry connection pool is closed", "08003");
+            }
+
+            if (!idle.isEmpty()) {
+                pooled = idle.removeFirst();
+            } else if (size < maxSize) {
+                /* Reserve a place for a new connection */
+                size++;
+            } else {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out waiting for a Registry connection", "HYT00");
+            }
+
+            inUse++;
+            peakInUse = Math.max(peakInUse, inUse);
+        }
+
+        try {
+
+            if (pooled != null && System.currentTimeMillis() - pooled.lastUsed > validationInterval
+                    && !isValid(pooled)) {
+                logger.log(Level.FINE, "Discarding failed Registry connection");
+                discarded.incrementAndGet();
+                pooled.close();
+                pooled = null;
+            }
+
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url));
+            }
+
+        } catch (SQLException e) {
+
+            synchronized (this) {
+                size--;
+                inUse--;
+                notifyAll();
+            }
+
+            throw e;
+        }
+
+        long waited = System.nanoTime() - start;
+        acquisitions.incrementAndGet();
+        totalWaitTime.addAndGet(waited);
+
+        long max = maxWaitTime.get();
+        while (waited > max && !maxWaitTime.compareAndSet(max, waited)) {
+            max = maxWaitTime.get();
+        }
+
+        pooled.acquiredAt = System.nanoTime();
+        return pooled;
+    }
+
+    /**
+     * Returns a connection to the pool.
+     *
+     * @param pooled
+     *            the connection.
+     *
+     * @param isBroken
+     *            <code>true</code> if the connection has failed and must be discarded, <code>false</code> otherwise.
+     */
+    void release(PooledConnection pooled, boolean isBroken) {
+
+        busyTime.addAndGet(System.nanoTime() - pooled.acquiredAt);
+        boolean doClose = false;
+
+        synchronized (this) {
+
+            inUse--;
+
+            if (isBroken || isClosed) {
+                size--;
+                doClose = true;
+            } else {
+                pooled.lastUsed = System.currentTimeMillis();
+                idle.addFirst(pooled);
+            }
+
+            notifyAll();
+        }
+
+        if (doClose) {
+
+            if (isBroken) {
+                discarded.incrementAndGet();
+            }
+
+            pooled.close();
+        }
+    }
+
+    /**
+     * Checks the idle connections, discarding any that have failed.
+     */
+    public void purge() {
+
+        List<PooledConnection> toCheck = null;
+
+        synchronized (this) {
+            toCheck = new ArrayList<PooledConnection>(idle);
+            idle.clear();
+            size -= toCheck.size();
+        }
+
+        for (PooledConnection pooled : toCheck) {
+
+            boolean isValid = isValid(pooled);
+
+            synchronized (this) {
+                if (isValid && !isClosed) {
+                    size++;
+                    idle.addLast(pooled);
+                    pooled = null;
+                }
+                notifyAll();
+            }
+
+            if (pooled != null) {
+                if (!isValid) {
+                    discarded.incrementAndGet();
+                }
+                pooled.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the pool. Idle connections are closed immediately, and those in use when they are released.
+     */
+    public void close() {
+
+        List<PooledConnection> toClose = null;
+
+        synchronized (this) {
+            isClosed = true;
+            toClose = new ArrayList<PooledConnection>(idle);
+            idle.clear();
+            size -= toClose.size();
+            notifyAll();
+        }
+
+        for (PooledConnection pooled : toClose) {
+            pooled.close();
+        }
+    }
+
+    /**
+     * Answers <code>true</code> if the pool has been closed.
+     *
+     * @return <code>true</code> if closed, <code>false</code> otherwise.
+     */
+    public synchronized boolean isClosed() {
+
+        return isClosed;
+    }
+
+    /**
+     * Checks that a connection is still usable.
+     *
+     * @param pooled
+     *            the connection.
+     *
+     * @return <code>true</code> if the connection is usable, <code>false</code> otherwise.
+     */
+    private boolean isValid(PooledConnection pooled) {
+
+        boolean isValid = false;
+        Statement s = null;
+        ResultSet rs = null;
+
+        try {
+            s = pooled.connection.createStatement();
+            rs = s.executeQuery("values(1)");
+            isValid = true;
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Exception using Registry connection: {0}", e.getMessage());
+        } finally {
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (SQLException e) {
+                    logger.log(Level.FINEST, "Could not close Registry result set: {0}", e.getMessage());
+                }
+            }
+            if (s != null) {
+                closeStatement(s);
+            }
+        }
+
+        return isValid;
+    }
+
+    /**
+     * Closes a statement, ignoring any error.
+     *
+     * @param s
+     *            the statement.
+     */
+    static void closeStatement(Statement s) {
+
+        try {
+            s.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINEST, "Could not close Registry statement: {0}", e.getMessage());
+        }
+    }
+
+    /**
+     * Answers the maximum number of connections.
+     *
+     * @return the maximum pool size.
+     */
+    public int getMaxSize() {
+
+        return maxSize;
+    }
+
+    /**
+     * Answers the number of open connections (idle and in use).
+     *
+     * @return the pool size.
+     */
+    public synchronized int getSize() {
+
+        return size;
+    }
+
+    /**
+     * Answers the number of connections in use.
+     *
+     * @return the count.
+     */
+    public synchronized int getInUse() {
+
+        return inUse;
+    }
+
+    /**
+     * Answers the highest number of connections in use at once.
+     *
+     * @return the count.
+     */
+    public synchronized int getPeakInUse() {
+
+        return peakInUse;
+    }
+
+    /**
+     * Answers the number of connections handed out by the pool.
+     *
+     * @return the count.
+     */
+    public long getAcquisitions() {
+
+        return acquisitions.get();
+    }
+
+    /**
+     * Answers the total time spent waiting for connections.
+     *
+     * @return the time (in milliseconds).
+     */
+    public long getTotalWaitTime() {
+
+        return totalWaitTime.get() / 1000000;
+    }
+
+    /**
+     * Answers the longest time spent waiting for a connection.
+     *
+     * @return the time (in milliseconds).
+     */
+    public long getMaxWaitTime() {
+
+        return maxWaitTime.get() / 1000000;
+    }
+
+    /**
+     * Answers the mean time spent waiting for a connection.
+     *
+     * @return the time (in milliseconds).
+     */
+    public double getMeanWaitTime() {
+
+        long count = acquisitions.get();
+        return (count > 0) ? totalWaitTime.get() / 1000000.0 / count : 0;
+    }
+
+    /**
+     * Answers the utilisation of the pool since it was created, i.e. the time for which connections have been in use as
+     * a fraction of the time for which the maximum number of connections could have been in use.
+     *
+     * @return the utilisation (from <code>0</code> to <code>1</code>).
+     */
+    public double getUtilisation() {
+
+        long elapsed = System.nanoTime() - createdAt;
+        return (elapsed > 0) ? (double) busyTime.get() / ((double) elapsed * maxSize) : 0;
+    }
+
+    /**
+     * Answers the number of requests for a connection that timed out.
+     *
+     * @return the count.
+     */
+    public long getTimeouts() {
+
+        return timeouts.get();
+    }
+
+    /**
+     * Answers the number of connections discarded because they failed a check or an operation.
+     *
+     * @return the count.
+     */
+    public long getDiscarded() {
+
+        return discarded.get();
+    }
+
+    /**
+     * Answers the number of statements taken from the statement caches.
+     *
+     * @return the count.
+     */
+    public long getStatementCacheHits() {
+
+        return statementCacheHits.get();
+    }
+
+    /**
+     * Answers the number of statements prepared because there was no cached statement available.
+     *
+     * @return the count.
+     */
+    public long getStatementCacheMisses() {
+
+        return statementCacheMisses.get();
+    }
+}
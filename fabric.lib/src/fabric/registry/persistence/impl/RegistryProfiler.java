@@ -0,0 +1,361 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.registry.persistence.impl;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import fabric.registry.persistence.SQLParameters;
+
+/**
+ * Records the latency, row counts and frequency of the statements run against the Registry, grouped by the shape of
+ * each statement (i.e. with its literal values replaced by <code>?</code> markers).
+ * <p>
+ * The profile is written to a tab-separated file (one line per shape, most expensive first) that can be analysed by the
+ * Registry index advisor (<code>fabreg --advise-indexes</code>). Each line holds the number of calls, the total and
+ * maximum time (in milliseconds), the total number of rows returned or changed, the shape and the most recent
+ * instance of the statement (with its parameter values inlined).
+ * </p>
+ */
+public class RegistryProfiler implements Runnable {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** String and numeric literals. */
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+
+    /** Runs of whitespace. */
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /*
+     * Class static fields
+     */
+
+    private final static Logger logger = Logger.getLogger(RegistryProfiler.class.getPackage().getName());
+
+    /*
+     * Class fields
+     */
+
+    /** The profile, keyed by statement shape. */
+    private final ConcurrentHashMap<String, Profile> profiles = new ConcurrentHashMap<String, Profile>();
+
+    /** The file to which the profile is written. */
+    private final File profileFile;
+
+    /** The interval (in milliseconds) at which the profile is written, or <code>0</code> if only on demand. */
+    private final long writeInterval;
+
+    /** The thread that writes the profile periodically. */
+    private Thread workerThread = null;
+
+    /** Object used to synchronize with the worker thread. */
+    private final Object threadSync = new Object();
+
+    /** Flag indicating if the worker thread is running. */
+    private volatile boolean isRunning = false;
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * The statistics recorded for one statement shape.
+     */
+    public static class Profile {
+
+        /** The statement shape. */
+        private final String shape;
+
+        /** The most recent instance of the statement. */
+        private String sample = null;
+
+        /** The number of times the statement has been run. */
+        private long calls = 0;
+
+        /** The total time (in nanoseconds) spent running the statement. */
+        private long totalNanos = 0;
+
+        /** The longest time (in nanoseconds) taken to run the statement. */
+        private long maxNanos = 0;
+
+        /** The total number of rows returned or changed by the statement. */
+        private long rows = 0;
+
+        Profile(String shape) {
+
+            this.shape = shape;
+        }
+
+        synchronized void record(String sample, long elapsedNanos, long rowCount) {
+
+            this.sample = sample;
+            calls++;
+            totalNanos += elapsedNanos;
+            maxNanos = Math.max(maxNanos, elapsedNanos);
+            rows += Math.max(rowCount, 0);
+        }
+
+        /**
+         * Answers the statement shape.
+         *
+         * @return the shape.
+         */
+        public String getShape() {
+
+            return shape;
+        }
+
+        /**
+         * Answers the most recent instance of the statement, with any parameter values inlined.
+         *
+         * @return the statement.
+         */
+        public synchronized String getSample() {
+
+            return sample;
+        }
+
+        /**
+         * Answers the number of times the statement has been run.
+         *
+         * @return the count.
+         */
+        public synchronized long getCalls() {
+
+            return calls;
+        }
+
+        /**
+         * Answers the total time (in nanoseconds) spent running the statement.
+         *
+         * @return the time.
+         */
+        public synchronized long getTotalNanos() {
+
+            return totalNanos;
+        }
+
+        /**
+         * Answers the longest time (in nanoseconds) taken to run the statement.
+         *
+         * @return the time.
+         */
+        public synchronized long getMaxNanos() {
+
+            return maxNanos;
+        }
+
+        /**
+         * Answers the total number of rows returned or changed by the statement.
+         *
+         * @return the count.
+         */
+        public synchronized long getRows() {
+
+            return rows;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param profileFile
+     *            the file to which the profile is written.
+     *
+     * @param writeInterval
+     *            the interval (in milliseconds) at which the profile is written, or <code>0</code> if only on demand.
+     */
+    public RegistryProfiler(File profileFile, long writeInterval) {
+
+        this.profileFile = profileFile;
+        this.writeInterval = writeInterval;
+    }
+
+    /**
+     * Starts writing the profile periodically (if required).
+     */
+    public void start() {
+
+        if (writeInterval > 0 && workerThread == null) {
+            isRunning = true;
+            workerThread = new Thread(this, "Registry-Profiler");
+            workerThread.setDaemon(true);
+            workerThread.start();
+        }
+
+        logger.log(Level.INFO, "Registry profiling enabled; profile will be written to [{0}]", profileFile
+                .getAbsolutePath());
+    }
+
+    /**
+     * Stops writing the profile periodically, and writes it one final time.
+     */
+    public void stop() {
+
+        isRunning = false;
+
+        synchronized (threadSync) {
+            threadSync.notify();
+        }
+
+        write();
+    }
+
+    /**
+     * Records a run of a statement.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @param parameters
+     *            the values of its parameter markers, or <code>null</code> if there are none.
+     *
+     * @param elapsedNanos
+     *            the time taken (in nanoseconds).
+     *
+     * @param rowCount
+     *            the number of rows returned or changed.
+     */
+    public void record(String sql, Object[] parameters, long elapsedNanos, long rowCount) {
+
+        String shape = shape(sql);
+        Profile profile = profiles.get(shape);
+
+        if (profile == null) {
+            Profile newProfile = new Profile(shape);
+            profile = profiles.putIfAbsent(shape, newProfile);
+            if (profile == null) {
+                profile = newProfile;
+            }
+        }
+
+        String sample = WHITESPACE.matcher(SQLParameters.inline(sql, parameters)).replaceAll(" ").trim();
+        profile.record(sample, elapsedNanos, rowCount);
+    }
+
+    /**
+     * Answers the shape of a statement, i.e. the statement with its literal values replaced by <code>?</code> markers
+     * and its whitespace normalised.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @return the shape.
+     */
+    static String shape(String sql) {
+
+        String shape = LITERAL.matcher(sql).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    /**
+     * Answers the profile recorded so far, most expensive (by total time) first.
+     *
+     * @return the statistics for each statement shape.
+     */
+    public List<Profile> getProfiles() {
+
+        List<Profile> sorted = new ArrayList<Profile>(profiles.values());
+
+        Collections.sort(sorted, new Comparator<Profile>() {
+
+            @Override
+            public int compare(Profile p1, Profile p2) {
+
+                return Long.compare(p2.getTotalNanos(), p1.getTotalNanos());
+            }
+        });
+
+        return sorted;
+    }
+
+    /**
+     * Discards the profile recorded so far.
+     */
+    public void reset() {
+
+        profiles.clear();
+    }
+
+    /**
+     * Writes the profile to the profile file.
+     */
+    public void write() {
+
+        PrintWriter out = null;
+
+        try {
+
+            out = new PrintWriter(new FileWriter(profileFile));
+            out.println("# Fabric Registry profile: calls, total ms, max ms, rows, statement shape, sample statement");
+
+            for (Profile p : getProfiles()) {
+                /* Locale independent, so that the advisor can read the times wherever the profile was written */
+                out.printf(Locale.ROOT, "%d\t%.3f\t%.3f\t%d\t%s\t%s%n", p.getCalls(),
+                        p.getTotalNanos() / 1000000.0, p.getMaxNanos() / 1000000.0, p.getRows(), p.getShape(),
+                        p.getSample());
+            }
+
+        } catch (IOException e) {
+
+            logger.log(Level.WARNING, "Failed to write Registry profile to [{0}]: {1}", new Object[] {profileFile,
+                    e.getMessage()});
+
+        } finally {
+
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the profile at regular intervals.
+     *
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+
+        while (isRunning) {
+
+            synchronized (threadSync) {
+                try {
+                    threadSync.wait(writeInterval);
+                } catch (InterruptedException e) {
+                    /* Ignore */
+                }
+            }
+
+            if (isRunning) {
+                write();
+            }
+        }
+    }
+}
@@ -7,17 +7,16 @@
 
 package fabric.registry.persistence.impl;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.io.File;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,8 +28,11 @@ import fabric.registry.QueryScope;
 import fabric.registry.RegistryObject;
 import fabric.registry.exception.PersistenceException;
 import fabric.registry.impl.AbstractFactory;
+import fabric.registry.impl.RegistryQueryCache;
+import fabric.registry.impl.RegistryWriteBehind;
 import fabric.registry.persistence.Persistence;
 import fabric.registry.persistence.distributed.DistributedQueryResult;
+import fabric.registry.persistence.impl.RegistryConnectionPool.PooledConnection;
 
 /**
  * The JDBC based implementation of persistence
@@ -40,27 +42,39 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2009, 2014";
 
-    /** Connection to the Fabric Registry database. */
-    private Connection fabricConnection = null;
+    /** Pool of connections to the Fabric Registry database, published once a connection has been established. */
+    private volatile RegistryConnectionPool connectionPool = null;
 
-    /** Lock object controlling access to the thread connection. */
+    /** Lock object serialising the creation, reconnection and closing of the connection pool. */
     private Object fabricConnectionLock = new Object();
 
+    /** Lock object serialising Registry updates, so that they are applied one at a time as on a single connection. */
+    private final Object updateLock = new Object();
+
     /** URL of the Fabric Registry database, used for all queries, inserts, deletes and updates. */
     protected String fabricDbUrl = null;
 
     /** JDBC query timeout. */
     private int queryTimeout = 60;
 
-    /** Cache of JDBC Statements, one per thread. */
-    HashMap<String, Statement> statementCache = new HashMap<String, Statement>();
+    /** The maximum number of prepared statements cached per connection (<code>0</code> to disable caching). */
+    private int statementCacheSize = 64;
+
+    /** The maximum number of connections to the Registry. */
+    private int connectionPoolSize = 4;
+
+    /** The maximum time (in milliseconds) to wait for a Registry connection. */
+    private long connectionPoolTimeout = 30000;
+
+    /** The time (in milliseconds) for which a connection may be idle before it is checked prior to reuse. */
+    private long connectionValidationInterval = 30000;
+
+    /** The profile of the statements run against the Registry, or <code>null</code> if profiling is disabled. */
+    private RegistryProfiler profiler = null;
 
     /** Object used to synchronise Fabric Registry reconnection attempts. */
     private Object monitor = new Object();
 
-    /** Thread pool for Registry connection test worker threads. */
-    private ExecutorService executor = Executors.newSingleThreadExecutor();
-
     /** Flag (set via configuration) indicating if the experimental Fabric Registry reconnection feature is enabled. */
     private boolean experimentalRegistryTimeoutMonitor = false;
 
@@ -70,27 +84,6 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     private final static Logger logger = Logger.getLogger(PACKAGE_NAME);
     protected Properties config;
 
-    /*
-     * Inner classes
-     */
-
-    class Bool {
-
-        boolean value = false;
-
-        public Bool(boolean value) {
-            this.value = value;
-        }
-
-        public void set(boolean value) {
-            this.value = value;
-        }
-
-        public boolean get() {
-            return value;
-        }
-    }
-
     /*
      * Class methods
      */
@@ -117,186 +110,236 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             this.queryTimeout = -1;
         }
 
+        try {
+            String configValue = fabric.config(ConfigProperties.REGISTRY_STATEMENT_CACHE_SIZE,
+                    ConfigProperties.REGISTRY_STATEMENT_CACHE_SIZE_DEFAULT);
+            this.statementCacheSize = Math.max(Integer.parseInt(configValue), 0);
+        } catch (Exception e) {
+            this.statementCacheSize = Integer.parseInt(ConfigProperties.REGISTRY_STATEMENT_CACHE_SIZE_DEFAULT);
+        }
+
+        try {
+            String configValue = fabric.config(ConfigProperties.REGISTRY_CONNECTION_POOL_SIZE,
+                    ConfigProperties.REGISTRY_CONNECTION_POOL_SIZE_DEFAULT);
+            this.connectionPoolSize = Math.max(Integer.parseInt(configValue), 1);
+        } catch (Exception e) {
+            this.connectionPoolSize = Integer.parseInt(ConfigProperties.REGISTRY_CONNECTION_POOL_SIZE_DEFAULT);
+        }
+
+        try {
+            String configValue = fabric.config(ConfigProperties.REGISTRY_CONNECTION_POOL_TIMEOUT,
+                    ConfigProperties.REGISTRY_CONNECTION_POOL_TIMEOUT_DEFAULT);
+            this.connectionPoolTimeout = Long.parseLong(configValue);
+        } catch (Exception e) {
+            this.connectionPoolTimeout = Long.parseLong(ConfigProperties.REGISTRY_CONNECTION_POOL_TIMEOUT_DEFAULT);
+        }
+
+        try {
+            String configValue = fabric.config(ConfigProperties.REGISTRY_CONNECTION_VALIDATION_INTERVAL,
+                    ConfigProperties.REGISTRY_CONNECTION_VALIDATION_INTERVAL_DEFAULT);
+            this.connectionValidationInterval = Long.parseLong(configValue);
+        } catch (Exception e) {
+            this.connectionValidationInterval = Long
+                    .parseLong(ConfigProperties.REGISTRY_CONNECTION_VALIDATION_INTERVAL_DEFAULT);
+        }
+
         try {
             String configValue = fabric.config("experimental.registry.timeoutMonitor", "false");
             this.experimentalRegistryTimeoutMonitor = Boolean.parseBoolean(configValue);
         } catch (Exception e) {
             this.experimentalRegistryTimeoutMonitor = false;
         }
+
+        /* The experimental monitor checks the connection before every use */
+        if (experimentalRegistryTimeoutMonitor) {
+            this.connectionValidationInterval = 0;
+        }
+
+        try {
+            if (Boolean.parseBoolean(fabric.config(ConfigProperties.REGISTRY_PROFILE,
+                    ConfigProperties.REGISTRY_PROFILE_DEFAULT))) {
+                String profileFile = fabric.config(ConfigProperties.REGISTRY_PROFILE_FILE,
+                        ConfigProperties.REGISTRY_PROFILE_FILE_DEFAULT);
+                long profileInterval = Long.parseLong(fabric.config(ConfigProperties.REGISTRY_PROFILE_INTERVAL,
+                        ConfigProperties.REGISTRY_PROFILE_INTERVAL_DEFAULT));
+                this.profiler = new RegistryProfiler(new File(profileFile), profileInterval);
+                this.profiler.start();
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Cannot enable Registry profiling: {0}", e.getMessage());
+        }
     }
 
     /**
-     * Answers a new JDBC statement instance.
-     *
-     * @return the new statement.
+     * Answers the profile of the statements run against the Registry.
      *
-     * @throws SQLException
+     * @return the profiler, or <code>null</code> if profiling is disabled.
      */
-    private Statement createStatement() throws SQLException {
+    public RegistryProfiler getProfiler() {
 
-        Statement s = null;
-        String threadName = Thread.currentThread().getName();
-
-        if (experimentalRegistryTimeoutMonitor) {
+        return profiler;
+    }
 
-            s = registryConnectionWithRefresh().createStatement();
+    /**
+     * Answers the pool of connections to the Registry.
+     *
+     * @return the connection pool, or <code>null</code> if there is no connection to the Registry.
+     */
+    public RegistryConnectionPool getConnectionPool() {
 
-        } else {
+        return connectionPool;
+    }
 
-            s = registryConnection().createStatement();
-
-            // synchronized (statementCache) {
-            //
-            // s = statementCache.get(threadName);
-            //
-            // if (s == null) {
-            //
-            // s = registryConnection().createStatement();
-            //
-            // if (queryTimeout != -1) {
-            // s.setQueryTimeout(queryTimeout);
-            // }
-            //
-            // statementCache.put(threadName, s);
-            // }
-            // }
-        }
+    /**
+     * Answers <code>true</code> if a connection to the Registry has been established.
+     *
+     * @return <code>true</code> if connected, <code>false</code> otherwise.
+     */
+    private boolean isConnected() {
 
-        return s;
+        return getConnectionPool() != null;
     }
 
     /**
-     * Answers the JDBC connection to the Registry.
+     * Answers a connection from the pool.
+     * <p>
+     * The connection must be returned using <code>releaseConnection()</code>.
+     * </p>
+     *
+     * @return the connection.
      *
-     * @return the JDBC connection.
+     * @throws SQLException
      */
-    private Connection registryConnection() {
+    private PooledConnection acquireConnection() throws SQLException {
 
-        Connection connection = null;
+        RegistryConnectionPool pool = getConnectionPool();
 
-        synchronized (fabricConnectionLock) {
-            connection = fabricConnection;
+        if (pool == null) {
+            throw new SQLException("No connection to the Registry", "08003");
         }
 
-        return connection;
+        return pool.acquire();
     }
 
     /**
-     * Answers the JDBC connection to the Registry, checking its validity and renewing if necessary.
+     * Returns a connection obtained from <code>acquireConnection()</code> to the pool.
+     *
+     * @param connection
+     *            the connection (may be <code>null</code>).
      *
-     * @return the JDBC connection.
+     * @param thrownException
+     *            the exception thrown while using the connection, or <code>null</code> if there was none.
      */
-    private Connection registryConnectionWithRefresh() {
-
-        final Bool isThreadComplete = new Bool(false);
-        final Bool doCloseConnection = new Bool(false);
-
-        Object waitMonitor = new Object();
-
-        Runnable testConnectionWorker = new Runnable() {
-
-            @Override
-            public void run() {
-
-                Connection connection = null;
-
-                synchronized (fabricConnectionLock) {
-
-                    if (fabricConnection == null) {
-                        jdbcConnect();
-                    }
+    private void releaseConnection(PooledConnection connection, SQLException thrownException) {
 
-                    connection = fabricConnection;
-                }
+        if (connection != null) {
+            /* 08 prefix codes are connection exceptions in Derby */
+            connection.release(thrownException != null && thrownException.getSQLState() != null
+                    && thrownException.getSQLState().startsWith("08"));
+        }
+    }
 
-                try {
-                    Statement s = fabricConnection.createStatement();
-                    s.executeQuery("values(1)");
-                } catch (SQLException e) {
-                    synchronized (doCloseConnection) {
-                        doCloseConnection.set(true);
-                        logger.log(Level.FINE, "Exception using Registry connection: {0}", e.getMessage());
-                    }
-                }
+    /**
+     * Answers a prepared statement for the specified SQL, with its parameters bound. The statement is taken from the
+     * connection's cache if available, otherwise a new one is prepared.
+     * <p>
+     * The statement must be returned using <code>releaseStatement()</code> once any result set has been closed.
+     * </p>
+     *
+     * @param connection
+     *            the connection.
+     *
+     * @param sql
+     *            the SQL, containing <code>?</code> parameter markers.
+     *
+     * @param parameters
+     *            the values of the parameter markers, or <code>null</code> if there are none.
+     *
+     * @return the statement.
+     *
+     * @throws SQLException
+     */
+    private PreparedStatement prepareStatement(PooledConnection connection, String sql, Object[] parameters)
+            throws SQLException {
 
-                synchronized (isThreadComplete) {
-                    isThreadComplete.set(true);
-                }
+        PreparedStatement s = connection.prepareStatement(sql);
 
-                synchronized (waitMonitor) {
-                    waitMonitor.notify();
-                }
+        try {
+            bindParameters(s, parameters);
+        } catch (SQLException e) {
+            connection.releaseStatement(sql, s, false);
+            throw e;
+        }
 
-                // try {
-                // Thread.sleep(1);
-                // } catch (InterruptedException e1) {
-                // }
+        return s;
+    }
 
-                synchronized (doCloseConnection) {
-                    if (doCloseConnection.get()) {
-                        try {
-                            connection.close();
-                        } catch (SQLException e) {
-                            logger.log(Level.FINE, "Could not close stale Registry connection: {0}", e.getMessage());
-                        }
-                    }
-                }
-            }
-        };
+    /**
+     * Binds values to the parameter markers of a prepared statement.
+     *
+     * @param s
+     *            the statement.
+     *
+     * @param parameters
+     *            the values of the parameter markers, or <code>null</code> if there are none.
+     *
+     * @throws SQLException
+     */
+    private void bindParameters(PreparedStatement s, Object[] parameters) throws SQLException {
 
-        executor.execute(testConnectionWorker);
+        for (int p = 0; parameters != null && p < parameters.length; p++) {
 
-        long waitFor = 5000;
-        long start = System.currentTimeMillis();
-        long end = 0;
-        boolean interrupted = false;
-        do {
-            try {
-                interrupted = false;
-                synchronized (waitMonitor) {
-                    waitMonitor.wait(waitFor);
-                }
-            } catch (InterruptedException e) {
-                interrupted = true;
+            if (parameters[p] == null) {
+                s.setNull(p + 1, s.getParameterMetaData().getParameterType(p + 1));
+            } else {
+                s.setObject(p + 1, parameters[p]);
             }
-            end = System.currentTimeMillis();
-        } while (interrupted && ((end - start) < waitFor));
-
-        synchronized (isThreadComplete) {
-
-            synchronized (doCloseConnection) {
+        }
+    }
 
-                if (!isThreadComplete.get() || doCloseConnection.get()) {
+    /**
+     * Returns a statement obtained from <code>prepareStatement()</code> to its connection's cache.
+     *
+     * @param connection
+     *            the connection used to prepare the statement (may be <code>null</code>).
+     *
+     * @param sql
+     *            the SQL of the statement.
+     *
+     * @param s
+     *            the statement (may be <code>null</code>).
+     *
+     * @param reusable
+     *            <code>false</code> if the statement must not be reused (for example following an error),
+     *            <code>true</code> otherwise.
+     */
+    private void releaseStatement(PooledConnection connection, String sql, PreparedStatement s, boolean reusable) {
 
-                    synchronized (fabricConnectionLock) {
+        if (connection != null) {
+            connection.releaseStatement(sql, s, reusable);
+        }
+    }
 
-                        /* Refresh the JDBC connection */
-                        logger.log(Level.FINE, "Resetting JDBC connection");
-                        fabricConnection = null;
-                        jdbcConnect();
+    /**
+     * Answers the number of statements taken from the statement caches.
+     *
+     * @return the count.
+     */
+    public long getStatementCacheHits() {
 
-                        /* Tell the thread to clean up the connection */
-                        doCloseConnection.set(true);
+        RegistryConnectionPool pool = getConnectionPool();
+        return (pool != null) ? pool.getStatementCacheHits() : 0;
+    }
 
-                        try {
-                            start = System.currentTimeMillis();
-                            Statement s = fabricConnection.createStatement();
-                            s.executeQuery("values(1)");
-                            end = System.currentTimeMillis();
-                            logger.log(Level.FINE, "Query took [{0}] seconds with the new connection",
-                                    (end - start) / 1000);
-                        } catch (SQLException e) {
-                            synchronized (doCloseConnection) {
-                                doCloseConnection.set(true);
-                                logger.log(Level.FINE, "Exception using Registry connection: {0}", e.getMessage());
-                            }
-                        }
-                    }
-                }
-            }
-        }
+    /**
+     * Answers the number of statements prepared because there was no cached statement available.
+     *
+     * @return the count.
+     */
+    public long getStatementCacheMisses() {
 
-        return fabricConnection;
+        RegistryConnectionPool pool = getConnectionPool();
+        return (pool != null) ? pool.getStatementCacheMisses() : 0;
     }
 
     /**
@@ -321,43 +364,19 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
 
         synchronized (fabricConnectionLock) {
 
-            /* if we were connected, tidy up the previous connection where possible */
-            if (fabricConnection != null) { /* runtime connection drop */
-                logger.log(Level.FINEST,
-                        "Testing if Registry connection has already been established by another thread");
-                Statement stmt = null;
-                ResultSet rs = null;
-                try {
-                    stmt = fabricConnection.createStatement();
-                    rs = stmt.executeQuery("values(1)");
-                    /* if we get here we just return */
-                    logger.log(Level.FINER, "Registry connection already established");
-                    return;
-                } catch (SQLException e) {
-                    if (e.getSQLState().startsWith("08")) { /* not connected */
-                        try {
-                            fabricConnection.close(); /* attempt to release any resources */
-                        } catch (Exception e1) {
-                        } finally {
-                            fabricConnection = null;
-                        }
-                    } else {
-                        /* some other exception */
-                    }
-                } finally {
-                    if (rs != null) {
-                        try {
-                            rs.close();
-                        } catch (SQLException e) {
-                        }
-                    }
-                    if (stmt != null) {
-                        try {
-                            stmt.close();
-                        } catch (SQLException e) {
-                        }
-                    }
-                }
+            /* Queries use the published pool without locking, so a new pool is only published once it connects */
+            RegistryConnectionPool pool = connectionPool;
+
+            if (pool != null && !pool.isClosed()) { /* runtime connection drop */
+
+                /* Tidy up any failed connections; if others are still good then we will connect immediately */
+                logger.log(Level.FINEST, "Checking existing Registry connections");
+                pool.purge();
+
+            } else {
+
+                pool = new RegistryConnectionPool(fabricDbUrl, connectionPoolSize, connectionPoolTimeout,
+                        connectionValidationInterval, statementCacheSize, queryTimeout);
             }
 
             logger.log(Level.FINER, "Connecting to the Registry");
@@ -365,7 +384,8 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             while (!connected) {
                 try {
                     Class.forName("org.apache.derby.jdbc.ClientDriver").newInstance();
-                    fabricConnection = DriverManager.getConnection(fabricDbUrl);
+                    pool.acquire().release(false);
+                    connectionPool = pool;
                     connected = true;
 
                     logger.log(Level.FINER, "Registry connection established");
@@ -392,16 +412,17 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     @Override
     public void disconnect() throws PersistenceException {
 
+        /* Write any queued saves before the connections are closed */
+        RegistryWriteBehind.getInstance().flush();
+
+        if (profiler != null) {
+            profiler.stop();
+        }
+
         synchronized (fabricConnectionLock) {
 
-            if (fabricConnection != null) {
-                try {
-                    fabricConnection.close();
-                } catch (SQLException e) {
-                    logger.log(Level.WARNING, "Failed to disconnect from Fabric Registry: ", e.getMessage());
-                    logger.log(Level.FINEST, "Full exception: ", e);
-                    throw new PersistenceException();
-                }
+            if (connectionPool != null) {
+                connectionPool.close();
             }
         }
     }
@@ -410,14 +431,31 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     public RegistryObject[] queryRegistryObjects(String sqlString, AbstractFactory factory, QueryScope queryScope)
             throws PersistenceException {
 
+        return queryRegistryObjects(sqlString, null, factory, queryScope);
+    }
+
+    /**
+     * @see fabric.registry.persistence.Persistence#queryRegistryObjects(java.lang.String, java.lang.Object[],
+     *      fabric.registry.impl.AbstractFactory, fabric.registry.QueryScope)
+     */
+    @Override
+    public RegistryObject[] queryRegistryObjects(String sqlString, Object[] parameters, AbstractFactory factory,
+            QueryScope queryScope) throws PersistenceException {
+
+        /* Write any queued saves that the query could read */
+        RegistryWriteBehind.getInstance().flush(sqlString);
+
         ArrayList<RegistryObject> objects = new ArrayList<RegistryObject>();
-        Statement stmt = null;
+        PooledConnection connection = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         SQLException thrownException = null;
+        long start = (profiler != null) ? System.nanoTime() : 0;
 
         try {
-            stmt = createStatement();
-            rs = stmt.executeQuery(sqlString);
+            connection = acquireConnection();
+            stmt = prepareStatement(connection, sqlString, parameters);
+            rs = stmt.executeQuery();
             RegistryObject regObject = null;
             PersistenceResultKeys keys = new PersistenceResultKeys(rs.getMetaData());
             while (rs.next()) {
@@ -436,6 +474,12 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
                     logger.log(Level.WARNING, "Error closing result set! ", thrownException);
                 }
             }
+            releaseStatement(connection, sqlString, stmt, thrownException == null);
+            releaseConnection(connection, thrownException);
+        }
+
+        if (profiler != null && thrownException == null) {
+            profiler.record(sqlString, parameters, System.nanoTime() - start, objects.size());
         }
 
         if (thrownException != null) {
@@ -446,7 +490,7 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             logger.log(Level.FINEST, "Full exception: ", thrownException);
         }
 
-        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || registryConnection() == null) {
+        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || !isConnected()) {
             /* 08 prefix codes are connection exceptions in Derby */
             String reconnectEnabled = config.getProperty("registry.reconnect", "false");
             logger.log(Level.FINER, "Reconnect enabled: " + reconnectEnabled);
@@ -468,14 +512,20 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
 
     protected int queryInt(String sqlString, QueryScope queryScope) throws PersistenceException {
 
+        /* Write any queued saves that the query could read */
+        RegistryWriteBehind.getInstance().flush(sqlString);
+
         int returnValue = 0;
-        Statement stmt = null;
+        PooledConnection connection = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         SQLException thrownException = null;
+        long start = (profiler != null) ? System.nanoTime() : 0;
 
         try {
-            stmt = createStatement();
-            rs = stmt.executeQuery(sqlString);
+            connection = acquireConnection();
+            stmt = prepareStatement(connection, sqlString, null);
+            rs = stmt.executeQuery();
             while (rs.next()) {
                 /* only expecting a single int value */
                 returnValue = rs.getInt(1);
@@ -490,6 +540,12 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
                     logger.log(Level.WARNING, "Error closing result set! ", thrownException);
                 }
             }
+            releaseStatement(connection, sqlString, stmt, thrownException == null);
+            releaseConnection(connection, thrownException);
+        }
+
+        if (profiler != null && thrownException == null) {
+            profiler.record(sqlString, null, System.nanoTime() - start, 1);
         }
 
         if (thrownException != null) {
@@ -499,7 +555,7 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             logger.log(Level.FINEST, "Full exception: ", thrownException);
         }
 
-        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || registryConnection() == null) {
+        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || !isConnected()) {
             /* 08 prefix codes are connection exceptions in Derby */
             String reconnectEnabled = config.getProperty("registry.reconnect", "false");
             logger.log(Level.FINER, "Reconnect enabled: " + reconnectEnabled);
@@ -525,15 +581,21 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     @Override
     public String queryString(String queryString, QueryScope queryScope) throws PersistenceException {
 
+        /* Write any queued saves that the query could read */
+        RegistryWriteBehind.getInstance().flush(queryString);
+
         String returnValue = null;
 
-        Statement stmt = null;
+        PooledConnection connection = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         SQLException thrownException = null;
+        long start = (profiler != null) ? System.nanoTime() : 0;
 
         try {
-            stmt = createStatement();
-            rs = stmt.executeQuery(queryString);
+            connection = acquireConnection();
+            stmt = prepareStatement(connection, queryString, null);
+            rs = stmt.executeQuery();
             while (rs.next()) {
                 /* only expecting a single row and a single column value */
                 returnValue = rs.getString(1);
@@ -550,6 +612,12 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
                     // log.log(this, ILogger.ERROR, Fabric.message("registry.resultset.failed"));
                 }
             }
+            releaseStatement(connection, queryString, stmt, thrownException == null);
+            releaseConnection(connection, thrownException);
+        }
+
+        if (profiler != null && thrownException == null) {
+            profiler.record(queryString, null, System.nanoTime() - start, (returnValue != null) ? 1 : 0);
         }
 
         if (thrownException != null) {
@@ -559,7 +627,7 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             logger.log(Level.FINEST, "Full exception: ", thrownException);
         }
 
-        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || registryConnection() == null) {
+        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || !isConnected()) {
             /* 08 prefix codes are connection exceptions in Derby */
             String reconnectEnabled = config.getProperty("registry.reconnect", "false");
             logger.log(Level.FINER, "Reconnect enabled: " + reconnectEnabled);
@@ -582,16 +650,22 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     @Override
     public Object[] query(String sqlString, QueryScope queryScope) throws PersistenceException {
 
+        /* Write any queued saves that the query could read */
+        RegistryWriteBehind.getInstance().flush(sqlString);
+
         Object[] returnValues = null;
         List<Object> values = null;
 
-        Statement stmt = null;
+        PooledConnection connection = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         SQLException thrownException = null;
+        long start = (profiler != null) ? System.nanoTime() : 0;
 
         try {
-            stmt = createStatement();
-            rs = stmt.executeQuery(sqlString);
+            connection = acquireConnection();
+            stmt = prepareStatement(connection, sqlString, null);
+            rs = stmt.executeQuery();
             values = new ArrayList<Object>();
             while (rs.next()) {
                 values.add(processResultRow(rs));
@@ -606,6 +680,12 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
                     logger.log(Level.WARNING, "Error closing result set! ", thrownException);
                 }
             }
+            releaseStatement(connection, sqlString, stmt, thrownException == null);
+            releaseConnection(connection, thrownException);
+        }
+
+        if (profiler != null && thrownException == null) {
+            profiler.record(sqlString, null, System.nanoTime() - start, values.size());
         }
 
         if (thrownException != null) {
@@ -615,7 +695,7 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             logger.log(Level.FINEST, "Full exception: ", thrownException);
         }
 
-        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || registryConnection() == null) {
+        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || !isConnected()) {
             /* 08 prefix codes are connection exceptions in Derby */
             String reconnectEnabled = config.getProperty("registry.reconnect", "false");
             logger.log(Level.FINER, "Reconnect enabled: " + reconnectEnabled);
@@ -697,16 +777,57 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     @Override
     public boolean updateRegistryObject(String sqlString, boolean ignoreDuplicateWarning) throws PersistenceException {
 
-        if (registryConnection() != null) {
+        return updateRegistryObject(sqlString, null, ignoreDuplicateWarning);
+    }
 
-            Statement stmt = null;
+    /**
+     * @see fabric.registry.persistence.Persistence#updateRegistryObject(java.lang.String, java.lang.Object[],
+     *      boolean)
+     */
+    @Override
+    public boolean updateRegistryObject(String sqlString, Object[] parameters, boolean ignoreDuplicateWarning)
+            throws PersistenceException {
 
-            try {
+        if (isConnected()) {
+
+            PooledConnection connection = null;
+            PreparedStatement stmt = null;
+            SQLException thrownException = null;
+
+            /* Write any queued saves first, so that they are not overtaken by this update */
+            RegistryWriteBehind.getInstance().flush();
+
+            /* Updates are applied one at a time, as they were on a single shared connection */
+            synchronized (updateLock) {
 
-                stmt = createStatement();
-                stmt.executeUpdate(sqlString);
+                long start = (profiler != null) ? System.nanoTime() : 0;
 
-            } catch (SQLException e) {
+                try {
+
+                    connection = acquireConnection();
+                    stmt = prepareStatement(connection, sqlString, parameters);
+                    int rowCount = stmt.executeUpdate();
+
+                    if (profiler != null) {
+                        profiler.record(sqlString, parameters, System.nanoTime() - start, rowCount);
+                    }
+
+                } catch (SQLException e) {
+                    thrownException = e;
+                } finally {
+                    /* A duplicate key leaves the statement intact; for anything else discard it */
+                    releaseStatement(connection, sqlString, stmt, thrownException == null
+                            || thrownException.getSQLState().equals("23505"));
+                    releaseConnection(connection, thrownException);
+                }
+
+                /* Discard any cached query results that the update may have changed */
+                RegistryQueryCache.getInstance().invalidate(sqlString, parameters);
+            }
+
+            if (thrownException != null) {
+
+                SQLException e = thrownException;
 
                 if (e.getSQLState().equals("23505") && !ignoreDuplicateWarning) {
 
@@ -729,8 +850,8 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
 
                     } else { // anything else, log it and throw exception
 
-                        logger.log(Level.WARNING, "Failed to execute update statement [{0}]: {1}", new Object[] {
-                                sqlString, e.getMessage()});
+                        logger.log(Level.WARNING, "Failed to execute update statement [{0}] {1}: {2}", new Object[] {
+                                sqlString, FLog.arrayAsString(parameters), e.getMessage()});
                         logger.log(Level.FINEST, "Full exception: ", e);
                         throw new PersistenceException("Error occurred exeuting update.", e.getMessage(), e
                                 .getErrorCode(), e.getSQLState());
@@ -760,48 +881,377 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
     @Override
     public boolean updateRegistryObjects(String[] sqlStrings) throws PersistenceException {
 
-        if (registryConnection() != null) {
-            try {
+        if (isConnected()) {
 
-                Statement stmt = createStatement();
+            PooledConnection connection = null;
+            Statement stmt = null;
+            SQLException thrownException = null;
 
-                for (int z = 0; z < sqlStrings.length; z++) {
-                    stmt.addBatch(sqlStrings[z]);
+            /* Write any queued saves first, so that they are not overtaken by this update */
+            RegistryWriteBehind.getInstance().flush();
+
+            /* Updates are applied one at a time, as they were on a single shared connection */
+            synchronized (updateLock) {
+
+                long start = (profiler != null) ? System.nanoTime() : 0;
+
+                try {
+
+                    connection = acquireConnection();
+                    stmt = connection.connection.createStatement();
+
+                    for (int z = 0; z < sqlStrings.length; z++) {
+                        stmt.addBatch(sqlStrings[z]);
+                    }
+
+                    int[] rowCounts = stmt.executeBatch();
+
+                    if (profiler != null) {
+                        /* The time taken is shared equally by the statements in the batch */
+                        long elapsed = (System.nanoTime() - start) / Math.max(rowCounts.length, 1);
+                        for (int rc = 0; rc < rowCounts.length; rc++) {
+                            profiler.record(sqlStrings[rc], null, elapsed, rowCounts[rc]);
+                        }
+                    }
+
+                    if (logger.isLoggable(Level.FINEST)) {
+
+                        Integer[] rowCountObjs = new Integer[rowCounts.length];
+                        for (int rc = 0; rc < rowCounts.length; rc++) {
+                            rowCountObjs[rc] = rowCounts[rc];
+                        }
+
+                        logger.log(Level.FINEST, "{0} rows updated", FLog.arrayAsString(rowCountObjs));
+                    }
+
+                } catch (SQLException e) {
+                    thrownException = e;
+                    logger.log(Level.WARNING, "Failed to execute batch updates: ", e);
+                    String sqlState = e.getSQLState();
+                    if (sqlState.equals("XJ208")) {
+                        SQLException sqlEx = e.getNextException();
+                        while (sqlEx != null) {
+                            if (sqlEx.getSQLState().equals("23505")) {
+                                sqlState = sqlEx.getSQLState();
+                                break;
+                            }
+                            sqlEx = sqlEx.getNextException();
+                        }
+                        if (!sqlState.equals("23505")) { /* if not a duplicate key exception */
+                            throw new PersistenceException("Exception occurred running batched updates.",
+                                    e.getMessage(), e.getErrorCode(), sqlState);
+                        }
+                    }
+                } finally {
+                    if (stmt != null) {
+                        RegistryConnectionPool.closeStatement(stmt);
+                    }
+                    releaseConnection(connection, thrownException);
+                    for (int z = 0; z < sqlStrings.length; z++) {
+                        RegistryQueryCache.getInstance().invalidate(sqlStrings[z], null);
+                    }
                 }
+            }
 
-                int[] rowCounts = stmt.executeBatch();
+            return true;
+        } else {
+            return false;
+        }
+    }
 
-                if (logger.isLoggable(Level.FINEST)) {
+    /**
+     * @see fabric.registry.persistence.Persistence#updateRegistryObjects(java.lang.String, java.lang.Object[][])
+     */
+    @Override
+    public boolean updateRegistryObjects(String sqlString, Object[][] parameters) throws PersistenceException {
 
-                    Integer[] rowCountObjs = new Integer[rowCounts.length];
-                    for (int rc = 0; rc < rowCounts.length; rc++) {
-                        rowCountObjs[rc] = rowCounts[rc];
+        if (isConnected()) {
+
+            PooledConnection connection = null;
+            PreparedStatement stmt = null;
+            SQLException thrownException = null;
+
+            /* Write any queued saves first, so that they are not overtaken by this update */
+            RegistryWriteBehind.getInstance().flush();
+
+            /* Updates are applied one at a time, as they were on a single shared connection */
+            synchronized (updateLock) {
+
+                long start = (profiler != null) ? System.nanoTime() : 0;
+
+                try {
+
+                    connection = acquireConnection();
+                    stmt = prepareStatement(connection, sqlString, null);
+
+                    for (int z = 0; z < parameters.length; z++) {
+                        bindParameters(stmt, parameters[z]);
+                        stmt.addBatch();
                     }
 
-                    logger.log(Level.FINEST, "{0} rows updated", FLog.arrayAsString(rowCountObjs));
+                    int[] rowCounts = stmt.executeBatch();
+
+                    if (profiler != null) {
+                        /* The time taken is shared equally by the statements in the batch */
+                        long elapsed = (System.nanoTime() - start) / Math.max(rowCounts.length, 1);
+                        for (int rc = 0; rc < rowCounts.length; rc++) {
+                            profiler.record(sqlString, parameters[rc], elapsed, rowCounts[rc]);
+                        }
+                    }
+
+                    if (logger.isLoggable(Level.FINEST)) {
+
+                        Integer[] rowCountObjs = new Integer[rowCounts.length];
+                        for (int rc = 0; rc < rowCounts.length; rc++) {
+                            rowCountObjs[rc] = rowCounts[rc];
+                        }
+
+                        logger.log(Level.FINEST, "{0} rows updated", FLog.arrayAsString(rowCountObjs));
+                    }
+
+                } catch (SQLException e) {
+                    thrownException = e;
+                    logger.log(Level.WARNING, "Failed to execute batch updates: ", e);
+                    String sqlState = e.getSQLState();
+                    if (sqlState.equals("XJ208")) {
+                        SQLException sqlEx = e.getNextException();
+                        while (sqlEx != null) {
+                            if (sqlEx.getSQLState().equals("23505")) {
+                                sqlState = sqlEx.getSQLState();
+                                break;
+                            }
+                            sqlEx = sqlEx.getNextException();
+                        }
+                        if (!sqlState.equals("23505")) { /* if not a duplicate key exception */
+                            throw new PersistenceException("Exception occurred running batched updates.",
+                                    e.getMessage(), e.getErrorCode(), sqlState);
+                        }
+                    }
+                } finally {
+                    if (stmt != null) {
+                        /* Discard anything left by a failed batch before the statement is reused */
+                        try {
+                            stmt.clearBatch();
+                        } catch (SQLException e) {
+                            logger.log(Level.FINEST, "Could not clear batch: {0}", e.getMessage());
+                        }
+                        releaseStatement(connection, sqlString, stmt, true);
+                    }
+                    releaseConnection(connection, thrownException);
+                    for (int z = 0; z < parameters.length; z++) {
+                        RegistryQueryCache.getInstance().invalidate(sqlString, parameters[z]);
+                    }
                 }
+            }
+
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * @see fabric.registry.persistence.Persistence#saveRegistryObjects(java.lang.String[], java.lang.Object[][],
+     *      java.lang.String[], java.lang.Object[][])
+     */
+    @Override
+    public boolean saveRegistryObjects(String[] updateStrings, Object[][] updateParameters, String[] insertStrings,
+            Object[][] insertParameters) throws PersistenceException {
+
+        if (isConnected()) {
+
+            PooledConnection connection = null;
+            SQLException thrownException = null;
+
+            synchronized (updateLock) {
+
+                try {
 
-            } catch (SQLException e) {
-                logger.log(Level.WARNING, "Failed to execute batch updates: ", e);
-                String sqlState = e.getSQLState();
-                if (sqlState.equals("XJ208")) {
-                    SQLException sqlEx = e.getNextException();
-                    while (sqlEx != null) {
-                        if (sqlEx.getSQLState().equals("23505")) {
-                            sqlState = sqlEx.getSQLState();
-                            break;
+                    connection = acquireConnection();
+                    connection.connection.setAutoCommit(false);
+
+                    try {
+
+                        /* Update the rows that already exist, then insert the rest */
+                        boolean[] updated = executeBatches(connection, updateStrings, updateParameters, null);
+                        boolean[] insert = new boolean[insertStrings.length];
+                        for (int z = 0; z < insert.length; z++) {
+                            insert[z] = !updated[z];
                         }
-                        sqlEx = sqlEx.getNextException();
+                        executeBatches(connection, insertStrings, insertParameters, insert);
+
+                        connection.connection.commit();
+
+                    } catch (SQLException e) {
+
+                        try {
+                            connection.connection.rollback();
+                        } catch (SQLException e1) {
+                            logger.log(Level.FINEST, "Could not roll back batch: {0}", e1.getMessage());
+                        }
+                        throw e;
+
+                    } finally {
+                        connection.connection.setAutoCommit(true);
                     }
-                    if (!sqlState.equals("23505")) { /* if not a duplicate key exception */
-                        throw new PersistenceException("Exception occurred running batched updates.", e.getMessage(), e
-                                .getErrorCode(), sqlState);
+
+                } catch (SQLException e) {
+                    thrownException = e;
+                } finally {
+                    releaseConnection(connection, thrownException);
+                    for (int z = 0; z < insertStrings.length; z++) {
+                        if (updateStrings[z] != null) {
+                            RegistryQueryCache.getInstance().invalidate(updateStrings[z], updateParameters[z]);
+                        }
+                        if (insertStrings[z] != null) {
+                            RegistryQueryCache.getInstance().invalidate(insertStrings[z], insertParameters[z]);
+                        }
                     }
                 }
             }
+
+            if (thrownException != null) {
+
+                SQLException e = thrownException.getNextException() != null ? thrownException.getNextException()
+                        : thrownException;
+                logger.log(Level.WARNING, "Failed to save batch of {0} object(s): {1}", new Object[] {
+                        insertStrings.length, e.getMessage()});
+                logger.log(Level.FINEST, "Full exception: ", thrownException);
+                throw new PersistenceException("Exception occurred running batched save.", e.getMessage(), e
+                        .getErrorCode(), e.getSQLState());
+            }
+
             return true;
+
         } else {
+
             return false;
+
+        }
+    }
+
+    /**
+     * Runs a set of statements as batches, one batch for all of the literal statements and one for each distinct
+     * parameterised statement.
+     *
+     * @param connection
+     *            the connection.
+     *
+     * @param sqlStrings
+     *            the statements (<code>null</code> elements are skipped).
+     *
+     * @param parameters
+     *            the values of the parameter markers of each statement (<code>null</code> elements indicate literal
+     *            SQL).
+     *
+     * @param include
+     *            flags indicating which of the statements are to be run, or <code>null</code> to run them all.
+     *
+     * @return flags indicating which of the statements affected at least one row.
+     *
+     * @throws SQLException
+     */
+    private boolean[] executeBatches(PooledConnection connection, String[] sqlStrings, Object[][] parameters,
+            boolean[] include) throws SQLException {
+
+        boolean[] affected = new boolean[sqlStrings.length];
+
+        /* Group the statements into batches */
+        List<Integer> literals = new ArrayList<Integer>();
+        Map<String, List<Integer>> prepared = new LinkedHashMap<String, List<Integer>>();
+
+        for (int z = 0; z < sqlStrings.length; z++) {
+
+            if (sqlStrings[z] != null && (include == null || include[z])) {
+
+                if (parameters[z] == null) {
+                    literals.add(z);
+                } else {
+                    List<Integer> batch = prepared.get(sqlStrings[z]);
+                    if (batch == null) {
+                        batch = new ArrayList<Integer>();
+                        prepared.put(sqlStrings[z], batch);
+                    }
+                    batch.add(z);
+                }
+            }
+        }
+
+        if (!literals.isEmpty()) {
+
+            Statement stmt = connection.connection.createStatement();
+            long start = (profiler != null) ? System.nanoTime() : 0;
+
+            try {
+                for (Integer z : literals) {
+                    stmt.addBatch(sqlStrings[z]);
+                }
+                recordRowCounts(stmt.executeBatch(), literals, affected, sqlStrings, parameters, start);
+            } finally {
+                RegistryConnectionPool.closeStatement(stmt);
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> batch : prepared.entrySet()) {
+
+            String sqlString = batch.getKey();
+            PreparedStatement stmt = prepareStatement(connection, sqlString, null);
+            boolean reusable = false;
+            long start = (profiler != null) ? System.nanoTime() : 0;
+
+            try {
+                for (Integer z : batch.getValue()) {
+                    bindParameters(stmt, parameters[z]);
+                    stmt.addBatch();
+                }
+                recordRowCounts(stmt.executeBatch(), batch.getValue(), affected, sqlStrings, parameters, start);
+                reusable = true;
+            } finally {
+                releaseStatement(connection, sqlString, stmt, reusable);
+            }
+        }
+
+        return affected;
+    }
+
+    /**
+     * Records which statements in a batch affected at least one row, and adds them to the profile (if profiling is
+     * enabled).
+     *
+     * @param rowCounts
+     *            the row counts returned by the batch.
+     *
+     * @param indexes
+     *            the index of each statement in the batch.
+     *
+     * @param affected
+     *            the flags to update.
+     *
+     * @param sqlStrings
+     *            the statements.
+     *
+     * @param parameters
+     *            the values of the parameter markers of each statement.
+     *
+     * @param start
+     *            the time (from <code>System.nanoTime()</code>) at which the batch was started.
+     */
+    private void recordRowCounts(int[] rowCounts, List<Integer> indexes, boolean[] affected, String[] sqlStrings,
+            Object[][] parameters, long start) {
+
+        /* The time taken is shared equally by the statements in the batch */
+        long elapsed = (profiler != null) ? (System.nanoTime() - start) / Math.max(rowCounts.length, 1) : 0;
+
+        for (int rc = 0; rc < rowCounts.length; rc++) {
+
+            int z = indexes.get(rc);
+
+            /* The driver may not report the count for a statement that succeeded */
+            affected[z] = rowCounts[rc] > 0 || rowCounts[rc] == Statement.SUCCESS_NO_INFO;
+
+            if (profiler != null) {
+                profiler.record(sqlStrings[z], parameters[z], elapsed, rowCounts[rc]);
+            }
         }
     }
 
@@ -809,13 +1259,16 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             throws PersistenceException {
 
         DistributedQueryResult queryResult = null;
-        Statement stmt = null;
+        PooledConnection connection = null;
+        PreparedStatement stmt = null;
         ResultSet rs = null;
         SQLException thrownException = null;
+        long start = (profiler != null) ? System.nanoTime() : 0;
 
         try {
-            stmt = createStatement();
-            rs = stmt.executeQuery(sqlString);
+            connection = acquireConnection();
+            stmt = prepareStatement(connection, sqlString, null);
+            rs = stmt.executeQuery();
             queryResult = new DistributedQueryResult(nodeName, rs);
         } catch (SQLException sqlEx) {
             thrownException = sqlEx;
@@ -828,6 +1281,13 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
                     // log.log(this, ILogger.ERROR, Fabric.message("registry.resultset.failed"));
                 }
             }
+            releaseStatement(connection, sqlString, stmt, thrownException == null);
+            releaseConnection(connection, thrownException);
+        }
+
+        if (profiler != null && thrownException == null) {
+            /* The row count is not available here */
+            profiler.record(sqlString, null, System.nanoTime() - start, 0);
         }
 
         if (thrownException != null) {
@@ -837,7 +1297,7 @@ public class SingletonJDBCPersistence extends Object implements Persistence {
             logger.log(Level.FINEST, "Full exception: ", thrownException);
         }
 
-        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || registryConnection() == null) {
+        if ((thrownException != null && thrownException.getSQLState().startsWith("08")) || !isConnected()) {
             /* 08 prefix codes are connection exceptions in Derby */
             String reconnectEnabled = config.getProperty("registry.reconnect", "false");
             logger.log(Level.FINER, "Reconnect enabled: " + reconnectEnabled);
@@ -0,0 +1,255 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.services.floodmessage;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the UIDs of flooded messages that have been seen, in order to detect duplicates.
+ * <p>
+ * UIDs are held in time buckets according to when they expire, so expiring UIDs is simply a matter of dropping the
+ * oldest buckets; no scan of the recorded UIDs is required. The buckets are concurrent sets, so callers do not
+ * serialize on a single lock. Memory is bounded: if the number of recorded UIDs exceeds the configured maximum then the
+ * buckets closest to expiry are dropped early. Detection is exact, so there are no false positives; UIDs dropped early
+ * may, however, allow a late duplicate through (see <code>getEarlyEvictions()</code>).
+ * </p>
+ */
+public class DuplicateDetector {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** The key of the bucket holding UIDs that do not expire. */
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /*
+     * Class fields
+     */
+
+    /** The time span (in milliseconds) covered by each bucket. */
+    private final long bucketWidth;
+
+    /** The maximum number of UIDs recorded. */
+    private final int maxEntries;
+
+    /** The buckets, keyed by the end of the time span they cover (in units of <code>bucketWidth</code>). */
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<Long, Set<String>>();
+
+    /** The number of duplicate checks made. */
+    private final AtomicLong checks = new AtomicLong(0);
+
+    /** The number of duplicates detected. */
+    private final AtomicLong duplicates = new AtomicLong(0);
+
+    /** The number of UIDs dropped before they expired, to bound memory use. */
+    private final AtomicLong earlyEvictions = new AtomicLong(0);
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param bucketWidth
+     *            the time span (in milliseconds) covered by each bucket; UIDs are retained for up to this long after they
+     *            expire.
+     *
+     * @param maxEntries
+     *            the maximum number of UIDs to record.
+     */
+    public DuplicateDetector(long bucketWidth, int maxEntries) {
+
+        this.bucketWidth = Math.max(bucketWidth, 1);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Answers <code>true</code> if a UID has been seen (and has not expired).
+     *
+     * @param uid
+     *            the message UID.
+     *
+     * @return <code>true</code> if the UID has been seen, <code>false</code> otherwise.
+     */
+    public boolean contains(String uid) {
+
+        expire(System.currentTimeMillis());
+
+        boolean isSeen = false;
+
+        for (Iterator<Set<String>> b = buckets.values().iterator(); !isSeen && b.hasNext();) {
+            isSeen = b.next().contains(uid);
+        }
+
+        return isSeen;
+    }
+
+    /**
+     * Checks if a UID has been seen and, if not, records it. If several threads present the same UID at the same time
+     * only one of them sees it as new, unless their expiry times fall either side of a bucket boundary.
+     *
+     * @param uid
+     *            the message UID.
+     *
+     * @param ttl
+     *            the time (in milliseconds) for which the UID is to be recorded, or <code>0</code> if it does not
+     *            expire.
+     *
+     * @return <code>true</code> if the UID is a duplicate, <code>false</code> if it is new.
+     */
+    public boolean checkAndAdd(String uid, long ttl) {
+
+        checks.incrementAndGet();
+
+        boolean isDuplicate = contains(uid);
+
+        if (!isDuplicate) {
+            isDuplicate = !add(uid, ttl);
+        }
+
+        if (isDuplicate) {
+            duplicates.incrementAndGet();
+        }
+
+        return isDuplicate;
+    }
+
+    /**
+     * Records a UID.
+     *
+     * @param uid
+     *            the message UID.
+     *
+     * @param ttl
+     *            the time (in milliseconds) for which the UID is to be recorded, or <code>0</code> if it does not
+     *            expire.
+     *
+     * @return <code>true</code> if the UID was added, <code>false</code> if it was already in its bucket.
+     */
+    public boolean add(String uid, long ttl) {
+
+        long now = System.currentTimeMillis();
+        long key = (ttl > 0) ? (now + ttl + bucketWidth - 1) / bucketWidth : NO_EXPIRY;
+
+        Set<String> bucket = buckets.get(key);
+
+        if (bucket == null) {
+            Set<String> newBucket = ConcurrentHashMap.newKeySet();
+            bucket = buckets.putIfAbsent(key, newBucket);
+            bucket = (bucket != null) ? bucket : newBucket;
+        }
+
+        boolean isAdded = bucket.add(uid);
+
+        if (isAdded && maxEntries > 0 && getOccupancy() > maxEntries) {
+            evict();
+        }
+
+        return isAdded;
+    }
+
+    /**
+     * Drops the buckets whose time span has passed.
+     *
+     * @param now
+     *            the current time (in milliseconds).
+     */
+    private void expire(long now) {
+
+        Map.Entry<Long, Set<String>> oldest = buckets.firstEntry();
+
+        while (oldest != null && oldest.getKey() != NO_EXPIRY && oldest.getKey() * bucketWidth <= now) {
+            buckets.remove(oldest.getKey(), oldest.getValue());
+            oldest = buckets.firstEntry();
+        }
+    }
+
+    /**
+     * Drops the buckets closest to expiry until the number of recorded UIDs is within the maximum.
+     */
+    private void evict() {
+
+        Map.Entry<Long, Set<String>> oldest = buckets.firstEntry();
+
+        while (oldest != null && getOccupancy() > maxEntries) {
+
+            if (buckets.remove(oldest.getKey(), oldest.getValue())) {
+                earlyEvictions.addAndGet(oldest.getValue().size());
+            }
+
+            oldest = buckets.firstEntry();
+        }
+    }
+
+    /**
+     * Answers the number of UIDs currently recorded.
+     *
+     * @return the count.
+     */
+    public long getOccupancy() {
+
+        long occupancy = 0;
+
+        for (Iterator<Set<String>> b = buckets.values().iterator(); b.hasNext();) {
+            occupancy += b.next().size();
+        }
+
+        return occupancy;
+    }
+
+    /**
+     * Answers the number of buckets currently in use.
+     *
+     * @return the count.
+     */
+    public int getBucketCount() {
+
+        return buckets.size();
+    }
+
+    /**
+     * Answers the number of duplicate checks made.
+     *
+     * @return the count.
+     */
+    public long getChecks() {
+
+        return checks.get();
+    }
+
+    /**
+     * Answers the number of duplicates detected.
+     *
+     * @return the count.
+     */
+    public long getDuplicates() {
+
+        return duplicates.get();
+    }
+
+    /**
+     * Answers the number of UIDs dropped before they expired in order to bound memory use. Each may have allowed a
+     * duplicate message through; there are no false positives.
+     *
+     * @return the count.
+     */
+    public long getEarlyEvictions() {
+
+        return earlyEvictions.get();
+    }
+}
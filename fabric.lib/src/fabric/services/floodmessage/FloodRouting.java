@@ -8,28 +8,52 @@
 package fabric.services.floodmessage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
 
+import fabric.bus.messages.BinaryWireReader;
+import fabric.bus.messages.BinaryWireWriter;
 import fabric.bus.messages.IFabricMessage;
 import fabric.bus.messages.IReplicate;
 import fabric.bus.routing.IRouting;
+import fabric.bus.routing.TopologyGraph;
 import fabric.bus.routing.impl.Routing;
 import fabric.bus.routing.impl.StaticRouting;
+import fabric.core.properties.ConfigProperties;
+import fabric.core.xml.RelativeXMLPath;
 import fabric.core.xml.XML;
 import fabric.registry.FabricRegistry;
-import fabric.registry.NodeNeighbour;
-import fabric.registry.QueryScope;
 import fabric.registry.Route;
 import fabric.registry.RouteFactory;
 
 /**
  * Implementation of routing that enables messages to be sent to all nodes in the fabric as efficiently as possible.
- *
+ * <p>
+ * By default messages are flooded to every neighbour except the one from which they were received, with duplicates
+ * discarded on arrival. In <code>tree</code> mode (see <code>ConfigProperties.ROUTING_FLOOD_MODE</code>) they are
+ * instead sent over the edges of a multicast tree rooted at the node that originated them, so that each node receives a
+ * single copy. The originating node records the version of the topology from which it computed the tree, and a node
+ * forwards the message over the tree only if its own view of the topology has the same version (see
+ * <code>TopologyGraph.treeNextNodes()</code>); otherwise, or if the topology graph has not yet been loaded, the message
+ * is flooded. Routing never waits for the topology graph to be loaded from the Registry.
+ * </p>
  */
 public class FloodRouting extends Routing {
 
     /** Copyright notice. */
     public static final String copyrightNotice = "(C) Copyright IBM Corp. 2012";
 
+    /* The paths of the routing fields, relative to the message element */
+
+    private static final RelativeXMLPath START_NODE = new RelativeXMLPath("/rt/strt");
+
+    private static final RelativeXMLPath PREVIOUS_NODE = new RelativeXMLPath("/rt/prev");
+
+    private static final RelativeXMLPath TTL = new RelativeXMLPath("/rt/ttl");
+
+    private static final RelativeXMLPath TOPOLOGY = new RelativeXMLPath("/rt/topo");
+
     /** The node that originated the flood message */
     private String startNode;
 
@@ -39,12 +63,21 @@ public class FloodRouting extends Routing {
     /** Whether the message should be retained for future nodes to receive. */
     private boolean retained;
 
+    /** The version of the topology used to route the message over a multicast tree (<code>null</code> if flooded). */
+    private String topology = null;
+
     /** The time-to-live, in milliseconds, before the message can be expired. */
     private long ttl;
 
     /** The list of nodes to send the message on to next. */
     private String[] nextNodes = null;
 
+    /** The number of messages forwarded over a multicast tree. */
+    private static final AtomicLong treeRouted = new AtomicLong(0);
+
+    /** The number of messages flooded to all neighbours. */
+    private static final AtomicLong flooded = new AtomicLong(0);
+
     public FloodRouting() {
 
         super();
@@ -74,12 +107,13 @@ public class FloodRouting extends Routing {
      */
     private FloodRouting(FloodRouting source) {
 
-        super();
+        super(source);
         this.startNode = source.startNode();
         this.previousNode = source.previousNode();
         this.ttl = source.getTTL();
         this.retained = source.isRetained();
         this.nextNodes = source.nextNodes();
+        this.topology = source.topology;
     }
 
     /**
@@ -91,21 +125,57 @@ public class FloodRouting extends Routing {
         super.init(element, messageXML);
 
         /* Extract the routing specific properties from the message */
-        this.startNode = messageXML.get(element + "/rt/strt");
-        this.previousNode = messageXML.get(element + "/rt/prev");
+        this.startNode = messageXML.get(START_NODE.in(element));
+        this.previousNode = messageXML.get(PREVIOUS_NODE.in(element));
         this.retained = messageXML.getBoolean(element + "/rt/retain");
+        this.topology = messageXML.get(TOPOLOGY.in(element));
 
-        String ttlString = messageXML.get(element + "/rt/ttl");
+        String ttlString = messageXML.get(TTL.in(element));
         if (ttlString != null) {
             this.ttl = Long.parseLong(ttlString);
         } else {
-            this.ttl = Long.parseLong(config("routing.flood.ttl", "600000"));
+            this.ttl = Long.parseLong(config(ConfigProperties.ROUTING_FLOOD_TTL,
+                    ConfigProperties.ROUTING_FLOOD_TTL_DEFAULT));
         }
 
         /* At this point, assume this message won't be forwarded on */
         this.nextNodes = null;
     }
 
+    /**
+     * @see fabric.bus.routing.impl.Routing#init(fabric.bus.messages.BinaryWireReader)
+     */
+    @Override
+    public void init(BinaryWireReader in) throws Exception {
+
+        super.init(in);
+
+        /* Extract the routing specific properties from the message */
+        this.startNode = in.readString();
+        this.previousNode = in.readString();
+        this.retained = in.readBoolean();
+        this.ttl = in.readLong();
+        this.topology = in.readString();
+
+        /* At this point, assume this message won't be forwarded on */
+        this.nextNodes = null;
+    }
+
+    /**
+     * @see fabric.bus.routing.impl.Routing#embed(fabric.bus.messages.BinaryWireWriter)
+     */
+    @Override
+    public void embed(BinaryWireWriter out) throws Exception {
+
+        super.embed(out);
+
+        out.writeString(this.startNode);
+        out.writeString(homeNode());
+        out.writeBoolean(retained);
+        out.writeLong(ttl);
+        out.writeString(topology);
+    }
+
     /**
      * Sets the time-to-live value.
      *
@@ -155,13 +225,16 @@ public class FloodRouting extends Routing {
 
         super.embed(element, messageXML);
 
-        messageXML.set(element + "/rt/strt", this.startNode);
-        messageXML.set(element + "/rt/prev", homeNode());
+        messageXML.set(START_NODE.in(element), this.startNode);
+        messageXML.set(PREVIOUS_NODE.in(element), homeNode());
         if (retained) {
             /* Only add this property if it is TRUE; XML.getBoolean defaults to FALSE if the property is not present */
             messageXML.setBoolean(element + "/rt/retain", retained);
         }
-        messageXML.set(element + "/rt/ttl", Long.toString(ttl));
+        messageXML.set(TTL.in(element), Long.toString(ttl));
+        if (topology != null) {
+            messageXML.set(TOPOLOGY.in(element), topology);
+        }
     }
 
     /**
@@ -197,35 +270,101 @@ public class FloodRouting extends Routing {
         /* If we haven't fetched the list of nodes yet... */
         if (nextNodes == null) {
 
-            /* Get the complete set of unique node neighbours by 'best' interface */
-            NodeNeighbour[] nn = FabricRegistry.getNodeNeighbourFactory(QueryScope.LOCAL)
-                    .getUniqueNeighboursByNeighbourId(homeNode());
-            ArrayList<String> neighbours = new ArrayList<String>();
+            /* Get the unique neighbours of this node (cached, so that flooding does not query the Registry) */
+            String[] nn = NeighbourCache.neighbours(homeNode());
+
+            /* Forward over the multicast tree if possible */
+            nextNodes = treeNextNodes(nn);
 
-            /* For each neighbour... */
-            for (int i = 0; i < nn.length; i++) {
+            if (nextNodes != null) {
 
-                /* If the neighbour is not the previous node... */
-                if (this.previousNode == null || !nn[i].getNeighbourId().equals(this.previousNode)) {
+                treeRouted.incrementAndGet();
 
-                    /* If the neighbour is not this node... */
-                    if (!(nn[i].getNeighbourId().equals(homeNode()))) {
+            } else {
 
-                        /* If the neighbour has not been added already... */
-                        if (!neighbours.contains(nn[i].getNeighbourId())) {
+                ArrayList<String> neighbours = new ArrayList<String>();
 
-                            neighbours.add(nn[i].getNeighbourId());
-                        }
+                /* For each neighbour... */
+                for (int i = 0; i < nn.length; i++) {
+
+                    /* If the neighbour is not the previous node... */
+                    if (this.previousNode == null || !nn[i].equals(this.previousNode)) {
+
+                        neighbours.add(nn[i]);
                     }
                 }
-            }
 
-            nextNodes = neighbours.toArray(new String[neighbours.size()]);
+                nextNodes = neighbours.toArray(new String[neighbours.size()]);
+                flooded.incrementAndGet();
+            }
         }
 
         return nextNodes;
     }
 
+    /**
+     * Answers the next hops of the message in the multicast tree rooted at its start node.
+     *
+     * @param neighbours
+     *            the currently available neighbours of this node.
+     *
+     * @return the next hops, or <code>null</code> if the message is to be flooded instead (because multicast tree
+     *         routing is disabled, the topology graph is not loaded or has not settled, or this node's view of the
+     *         topology differs from that of the originating node).
+     */
+    private String[] treeNextNodes(String[] neighbours) {
+
+        String[] treeNodes = null;
+        boolean isOrigin = (previousNode == null && homeNode().equals(startNode));
+
+        if ("tree".equalsIgnoreCase(config(ConfigProperties.ROUTING_FLOOD_MODE,
+                ConfigProperties.ROUTING_FLOOD_MODE_DEFAULT))) {
+
+            TopologyGraph graph = TopologyGraph.getInstance();
+
+            /* If the graph is available (it is never loaded while a message waits)... */
+            if (graph.isLoaded()) {
+
+                /* If this node originated the message, use a tree only once the topology has settled */
+                if (isOrigin) {
+                    long settleTime = Long.parseLong(config(ConfigProperties.ROUTING_FLOOD_TREE_SETTLE,
+                            ConfigProperties.ROUTING_FLOOD_TREE_SETTLE_DEFAULT));
+                    topology = graph.isSettled(settleTime) ? graph.topologyVersion() : null;
+                }
+
+                treeNodes = graph.treeNextNodes(startNode, homeNode(), previousNode, topology, new HashSet<String>(
+                        Arrays.asList(neighbours)));
+            }
+        }
+
+        /* A message flooded from the originating node is flooded throughout */
+        if (isOrigin && treeNodes == null) {
+            topology = null;
+        }
+
+        return treeNodes;
+    }
+
+    /**
+     * Answers the number of messages forwarded over a multicast tree.
+     *
+     * @return the count.
+     */
+    public static long getTreeRoutedCount() {
+
+        return treeRouted.get();
+    }
+
+    /**
+     * Answers the number of messages flooded to all neighbours.
+     *
+     * @return the count.
+     */
+    public static long getFloodedCount() {
+
+        return flooded.get();
+    }
+
     @Override
     public String endNode() throws UnsupportedOperationException {
 
@@ -270,15 +409,7 @@ public class FloodRouting extends Routing {
     @Override
     public boolean isDuplicate(IFabricMessage message) {
 
-        /* Check the FloodMessageService cache if this message has been seen before */
-        String uid = message.getUID();
-        boolean duplicate = FloodMessageService.getInstance().isDuplicate(uid);
-
-        if (!duplicate) {
-            /* Add the message to the cache */
-            FloodMessageService.getInstance().addMessage(message, this.ttl, this.retained);
-        }
-
-        return duplicate;
+        /* Check the FloodMessageService cache if this message has been seen before (adding it if not) */
+        return FloodMessageService.getInstance().isDuplicate(message, this.ttl, this.retained);
     }
 }
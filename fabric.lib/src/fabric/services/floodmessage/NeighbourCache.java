@@ -0,0 +1,197 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.services.floodmessage;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fabric.Fabric;
+import fabric.core.properties.ConfigProperties;
+import fabric.registry.FabricRegistry;
+import fabric.registry.NodeNeighbour;
+import fabric.registry.QueryScope;
+
+/**
+ * Cache of the neighbours of each node, used to determine the next hops of flooded messages without querying the
+ * Registry for every message.
+ * <p>
+ * Entries are invalidated when the availability of a neighbour changes (see <code>invalidate()</code>), and expire
+ * after a configurable interval as a safety net for changes made by other means.
+ * </p>
+ */
+public final class NeighbourCache {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * The cached neighbours of a node.
+     */
+    private static final class Entry {
+
+        /** The IDs of the neighbours. */
+        final String[] neighbours;
+
+        /** The time (in milliseconds) at which the entry was loaded. */
+        final long loadedAt;
+
+        Entry(String[] neighbours, long loadedAt) {
+
+            this.neighbours = neighbours;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /*
+     * Class static fields
+     */
+
+    /** Fabric class instance used to access configuration only. */
+    private static final Fabric fabric = new Fabric();
+
+    /** The cached neighbours, keyed by node ID. */
+    private static final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+    /** Incremented each time the cache is invalidated, so that loads overtaken by an invalidation are discarded. */
+    private static final AtomicLong generation = new AtomicLong(0);
+
+    /** The time (in milliseconds) after which an entry expires (<code>-1</code> until read from the configuration). */
+    private static volatile long timeToLive = -1;
+
+    /** The number of lookups answered from the cache. */
+    private static final AtomicLong hits = new AtomicLong(0);
+
+    /** The number of lookups that required a Registry query. */
+    private static final AtomicLong misses = new AtomicLong(0);
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * No instantiation of this class.
+     */
+    private NeighbourCache() {
+
+    }
+
+    /**
+     * Answers the unique IDs of the neighbours of a node (excluding the node itself).
+     *
+     * @param node
+     *            the node ID.
+     *
+     * @return the neighbour IDs (which must not be modified).
+     */
+    public static String[] neighbours(String node) {
+
+        if (timeToLive < 0) {
+            timeToLive = Long.parseLong(fabric.config(ConfigProperties.ROUTING_FLOOD_NEIGHBOUR_CACHE_TTL,
+                    ConfigProperties.ROUTING_FLOOD_NEIGHBOUR_CACHE_TTL_DEFAULT));
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(node);
+
+        if (entry != null && now - entry.loadedAt < timeToLive) {
+
+            hits.incrementAndGet();
+
+        } else {
+
+            misses.incrementAndGet();
+            long loadGeneration = generation.get();
+            entry = new Entry(load(node), now);
+
+            /* Only cache the result if the neighbours have not changed while it was being loaded */
+            if (timeToLive > 0 && generation.get() == loadGeneration) {
+                cache.put(node, entry);
+            }
+        }
+
+        return entry.neighbours;
+    }
+
+    /**
+     * Queries the Registry for the unique IDs of the neighbours of a node.
+     *
+     * @param node
+     *            the node ID.
+     *
+     * @return the neighbour IDs.
+     */
+    private static String[] load(String node) {
+
+        /* Get the complete set of unique node neighbours by 'best' interface */
+        NodeNeighbour[] nn = FabricRegistry.getNodeNeighbourFactory(QueryScope.LOCAL).getUniqueNeighboursByNeighbourId(
+                node);
+        ArrayList<String> neighbours = new ArrayList<String>();
+
+        /* For each neighbour... */
+        for (int i = 0; nn != null && i < nn.length; i++) {
+
+            String neighbourID = nn[i].getNeighbourId();
+
+            /* If the neighbour is not this node, and it has not been added already... */
+            if (!neighbourID.equals(node) && !neighbours.contains(neighbourID)) {
+                neighbours.add(neighbourID);
+            }
+        }
+
+        return neighbours.toArray(new String[neighbours.size()]);
+    }
+
+    /**
+     * Discards the cached neighbours of a node; to be called whenever a neighbour of the node becomes available or
+     * unavailable.
+     *
+     * @param node
+     *            the node ID.
+     */
+    public static void invalidate(String node) {
+
+        generation.incrementAndGet();
+        cache.remove(node);
+    }
+
+    /**
+     * Answers the number of times that the cache has been invalidated, so that values derived from the neighbours of a
+     * node can be recomputed when they change.
+     *
+     * @return the generation.
+     */
+    public static long generation() {
+
+        return generation.get();
+    }
+
+    /**
+     * Answers the number of lookups answered from the cache.
+     *
+     * @return the count.
+     */
+    public static long getHits() {
+
+        return hits.get();
+    }
+
+    /**
+     * Answers the number of lookups that required a Registry query.
+     *
+     * @return the count.
+     */
+    public static long getMisses() {
+
+        return misses.get();
+    }
+}
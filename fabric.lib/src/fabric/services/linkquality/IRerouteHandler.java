@@ -0,0 +1,51 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.services.linkquality;
+
+import fabric.bus.IBusServices;
+
+/**
+ * Interface for classes that move traffic away from degraded links, invoked by the link quality service.
+ * <p>
+ * To use a handler, specify its class name in the configuration property
+ * <code>routing.linkQuality.rerouteHandler</code>. The default handler, <code>SubscriptionRerouteHandler</code>, moves
+ * the subscriptions that use the link onto the better route.
+ * </p>
+ */
+public interface IRerouteHandler {
+
+	/** Copyright notice. */
+	public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+	/**
+	 * Initializes the handler, before it is first invoked.
+	 * 
+	 * @param busServices
+	 *            the interface to Fabric management functions.
+	 */
+	public void initHandler(IBusServices busServices);
+
+	/**
+	 * Invoked when the link from this node to a neighbour has degraded, and the topology graph (in which the link has
+	 * already been re-weighted) now offers a better route to the neighbour than the link itself.
+	 * 
+	 * @param neighbour
+	 *            the ID of the neighbour.
+	 * 
+	 * @param route
+	 *            the best route from this node to the neighbour (including both nodes).
+	 * 
+	 * @param weight
+	 *            the current weight of the link.
+	 * 
+	 * @param baseline
+	 *            the baseline weight of the link, against which it was judged to have degraded.
+	 */
+	public void reroute(String neighbour, String[] route, double weight, double baseline);
+
+}
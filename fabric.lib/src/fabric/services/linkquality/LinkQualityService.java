@@ -0,0 +1,616 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.services.linkquality;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import fabric.Fabric;
+import fabric.bus.IBusServices;
+import fabric.bus.messages.FabricMessageFactory;
+import fabric.bus.messages.IClientNotificationMessage;
+import fabric.bus.messages.INotificationMessage;
+import fabric.bus.messages.IServiceMessage;
+import fabric.bus.messages.impl.ServiceMessage;
+import fabric.bus.plugins.IPluginConfig;
+import fabric.bus.routing.TopologyGraph;
+import fabric.bus.routing.impl.StaticRouting;
+import fabric.bus.services.IBusServiceConfig;
+import fabric.bus.services.IPersistentService;
+import fabric.bus.services.impl.BusService;
+import fabric.core.properties.ConfigProperties;
+import fabric.services.floodmessage.FloodRouting;
+import fabric.session.NodeDescriptor;
+
+/**
+ * Measures the round-trip time and loss rate of the links to each neighbouring node, and uses them to weight the edges
+ * of the topology graph used for route computation.
+ * <p>
+ * A probe message is sent to the instance of this service on each connected neighbour at a configurable interval, and
+ * echoed back. Probes that are not echoed within the probe timeout are counted as lost, once the neighbour has echoed
+ * at least one probe (a neighbour that has never echoed a probe may not be running this service). The round-trip time
+ * and loss rate are smoothed, and combined into an edge weight that is applied to the local topology graph and flooded
+ * to the other nodes in the Fabric whenever it changes significantly. The weights are used by
+ * <code>TopologyRoutingFactory</code>; routes computed by <code>DynamicRoutingFactory</code> are unaffected.
+ * </p>
+ * <p>
+ * If the weight of a link rises past a configurable multiple of its baseline weight, the link is considered degraded.
+ * The baseline follows the lowest recent weight of the link: it falls immediately to any lower weight, and rises slowly
+ * towards the current weight, so that a link whose quality changes permanently is eventually judged against its new
+ * normal. If the topology graph then offers a better route to the neighbour than the link itself, the configured
+ * re-route handler (see <code>IRerouteHandler</code>; by default <code>SubscriptionRerouteHandler</code>) is invoked.
+ * New routes computed from the topology graph avoid the link in any case, since its weight has changed.
+ * </p>
+ * <p>
+ * The service is only loaded if <code>ConfigProperties.ROUTING_LINK_QUALITY</code> is set.
+ * </p>
+ */
+public class LinkQualityService extends BusService implements IPersistentService, Runnable {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class constants
+     */
+
+    /** Service message action: probe the link to a neighbour. */
+    public static final String ACTION_PROBE = "lnkPrb";
+
+    /** Service message action: echo of a probe. */
+    public static final String ACTION_ECHO = "lnkEcho";
+
+    /** Service message action: report of the weight of a link. */
+    public static final String ACTION_REPORT = "lnkRprt";
+
+    /** Service message property: the node that sent a probe, or at the start of a reported link. */
+    public static final String PROPERTY_NODE = "node";
+
+    /** Service message property: the node at the end of a reported link. */
+    public static final String PROPERTY_NEIGHBOUR = "nbr";
+
+    /** Service message property: the weight of a reported link. */
+    public static final String PROPERTY_WEIGHT = "wt";
+
+    /** The smoothing factor applied to each new round-trip time and loss sample. */
+    private static final double SMOOTHING = 0.2;
+
+    /** The round-trip time (in milliseconds) corresponding to the default edge weight. */
+    private static final double RTT_UNIT = 10.0;
+
+    /** The proportional change in the weight of a link that causes it to be reported to the other nodes. */
+    private static final double REPORT_CHANGE = 0.25;
+
+    /** The proportion of the difference between the current and baseline weights of a link added to the baseline. */
+    private static final double BASELINE_DECAY = 0.02;
+
+    /*
+     * Class fields
+     */
+
+    /** A local copy of the interface to Fabric management functions. */
+    private IBusServices busServices = null;
+
+    /** The interval (in milliseconds) between probes. */
+    private long probeInterval = 0;
+
+    /** The time (in milliseconds) after which an unanswered probe is counted as lost. */
+    private long probeTimeout = 0;
+
+    /** The multiple of the baseline weight of a link above which it is considered degraded. */
+    private double degradeFactor = 0;
+
+    /** The handler invoked when a link degrades (<code>null</code> if there is none). */
+    private IRerouteHandler rerouteHandler = null;
+
+    /** The quality of the link to each neighbour, keyed by neighbour ID. */
+    private final ConcurrentHashMap<String, Link> links = new ConcurrentHashMap<String, Link>();
+
+    /** The probes awaiting an echo, keyed by correlation ID. */
+    private final ConcurrentHashMap<String, Probe> pendingProbes = new ConcurrentHashMap<String, Probe>();
+
+    /** To hold the reference to the worker thread */
+    private Thread workerThread = null;
+
+    /** Flag used to indicate when the worker thread should terminate */
+    private volatile boolean isRunning = false;
+
+    /** Object used to synchronize with the worker thread */
+    private final Object threadSync = new Object();
+
+    /*
+     * Inner classes
+     */
+
+    /**
+     * A probe awaiting an echo.
+     */
+    private static class Probe {
+
+        /** The ID of the neighbour to which the probe was sent. */
+        final String neighbour;
+
+        /** The time (from <code>System.nanoTime()</code>) at which the probe was sent. */
+        final long sentAt;
+
+        Probe(String neighbour, long sentAt) {
+
+            this.neighbour = neighbour;
+            this.sentAt = sentAt;
+        }
+    }
+
+    /**
+     * The measured quality of the link to a neighbour.
+     */
+    public static class Link {
+
+        /** The smoothed round-trip time (in milliseconds), or <code>-1</code> if it has not been measured. */
+        private double rtt = -1;
+
+        /** The smoothed loss rate (between 0 and 1). */
+        private double loss = 0;
+
+        /** The weight last applied to the topology graph. */
+        private double weight = TopologyGraph.DEFAULT_WEIGHT;
+
+        /** The weight last reported to the other nodes. */
+        private double reportedWeight = TopologyGraph.DEFAULT_WEIGHT;
+
+        /** The baseline weight of the link, following its lowest recent weight. */
+        private double baseline = -1;
+
+        /** Flag indicating if the link is currently considered degraded. */
+        private boolean isDegraded = false;
+
+        /**
+         * Answers the smoothed round-trip time of the link.
+         *
+         * @return the time (in milliseconds), or <code>-1</code> if it has not been measured.
+         */
+        public synchronized double rtt() {
+
+            return rtt;
+        }
+
+        /**
+         * Answers the smoothed loss rate of the link.
+         *
+         * @return the loss rate (between 0 and 1).
+         */
+        public synchronized double loss() {
+
+            return loss;
+        }
+
+        /**
+         * Answers the weight of the link.
+         *
+         * @return the weight.
+         */
+        public synchronized double weight() {
+
+            return weight;
+        }
+
+        /**
+         * Answers the baseline weight of the link.
+         *
+         * @return the weight, or <code>-1</code> if the link has not been measured.
+         */
+        public synchronized double baseline() {
+
+            return baseline;
+        }
+
+        /**
+         * Answers <code>true</code> if the link is currently considered degraded.
+         *
+         * @return the degraded status.
+         */
+        public synchronized boolean isDegraded() {
+
+            return isDegraded;
+        }
+    }
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * Constructs a new instance.
+     */
+    public LinkQualityService() {
+
+        super();
+
+    }
+
+    /**
+     * @see fabric.bus.services.impl.BusService#initService(fabric.bus.plugins.IPluginConfig)
+     */
+    @Override
+    public void initService(IPluginConfig config) {
+
+        super.initService(config);
+
+        /* Make a local copy of the accessor for Fabric management services */
+        busServices = ((IBusServiceConfig) config).getFabricServices();
+
+        probeInterval = Long.parseLong(config(ConfigProperties.ROUTING_LINK_PROBE_INTERVAL,
+                ConfigProperties.ROUTING_LINK_PROBE_INTERVAL_DEFAULT));
+        probeTimeout = Long.parseLong(config(ConfigProperties.ROUTING_LINK_PROBE_TIMEOUT,
+                ConfigProperties.ROUTING_LINK_PROBE_TIMEOUT_DEFAULT));
+        degradeFactor = Double.parseDouble(config(ConfigProperties.ROUTING_LINK_DEGRADE_FACTOR,
+                ConfigProperties.ROUTING_LINK_DEGRADE_FACTOR_DEFAULT));
+
+        String handlerClass = config(ConfigProperties.ROUTING_LINK_REROUTE_HANDLER,
+                ConfigProperties.ROUTING_LINK_REROUTE_HANDLER_DEFAULT);
+
+        if (handlerClass != null && !handlerClass.trim().isEmpty()) {
+            try {
+                rerouteHandler = (IRerouteHandler) Fabric.instantiate(handlerClass.trim());
+                rerouteHandler.initHandler(busServices);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Failed to instantiate re-route handler [{0}]: {1}", new Object[] {
+                        handlerClass, e.getMessage()});
+                logger.log(Level.FINEST, "Full exception: ", e);
+            }
+        }
+
+        /* Start the worker thread (if probing is enabled) */
+        if (probeInterval > 0) {
+            workerThread = new Thread(this, "Link-Quality-Service");
+            workerThread.setDaemon(true);
+            isRunning = true;
+            workerThread.start();
+        }
+    }
+
+    /**
+     * @see fabric.bus.services.IService#handleServiceMessage(fabric.bus.messages.IServiceMessage,INotificationMessage,
+     *      IClientNotificationMessage[])
+     */
+    @Override
+    public IServiceMessage handleServiceMessage(IServiceMessage request, INotificationMessage response,
+            IClientNotificationMessage[] clientResponses) throws Exception {
+
+        IServiceMessage result = null;
+        String action = request.getAction();
+
+        if (ACTION_PROBE.equals(action)) {
+
+            /* Echo the probe straight back to the node that sent it */
+            String origin = request.getProperty(PROPERTY_NODE);
+            IServiceMessage echo = linkMessage(ACTION_ECHO, request.getCorrelationID());
+            echo.setRouting(new StaticRouting(new String[] {homeNode(), origin}));
+            busServices.sendServiceMessage(echo, origin);
+
+        } else if (ACTION_ECHO.equals(action)) {
+
+            Probe probe = pendingProbes.remove(request.getCorrelationID());
+
+            if (probe != null) {
+                double rtt = (System.nanoTime() - probe.sentAt) / 1000000.0;
+                update(probe.neighbour, rtt);
+            }
+
+        } else if (ACTION_REPORT.equals(action)) {
+
+            /* Apply the weight to our view of the topology, and pass the report on */
+            String node = request.getProperty(PROPERTY_NODE);
+            String neighbour = request.getProperty(PROPERTY_NEIGHBOUR);
+
+            if (!homeNode().equals(node)) {
+                TopologyGraph.getInstance().setEdgeWeight(node, neighbour,
+                        Double.parseDouble(request.getProperty(PROPERTY_WEIGHT)));
+            }
+
+            result = request;
+
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates a message addressed to this service on another node.
+     *
+     * @param action
+     *            the message action.
+     *
+     * @param correlationID
+     *            the correlation ID for the message.
+     *
+     * @return the message.
+     */
+    private IServiceMessage linkMessage(String action, String correlationID) {
+
+        ServiceMessage message = new ServiceMessage();
+
+        message.setServiceName(LinkQualityService.class.getName());
+        message.setServiceFamilyName(Fabric.FABRIC_PLUGIN_FAMILY);
+        message.setAction(action);
+        message.setEvent(IServiceMessage.EVENT_SERVICE_REQUEST);
+        message.setNotification(false);
+        message.setCorrelationID(correlationID);
+        message.setProperty(PROPERTY_NODE, homeNode());
+
+        return message;
+    }
+
+    /**
+     * Sends a probe to each connected neighbour, first counting any probes that have timed out as lost.
+     */
+    private void probeNeighbours() {
+
+        long now = System.nanoTime();
+
+        /* Count the probes that have timed out */
+        for (Iterator<String> p = pendingProbes.keySet().iterator(); p.hasNext();) {
+
+            String correlationID = p.next();
+            Probe probe = pendingProbes.get(correlationID);
+
+            if (probe != null && (now - probe.sentAt) / 1000000 > probeTimeout
+                    && pendingProbes.remove(correlationID, probe)) {
+
+                Link link = links.get(probe.neighbour);
+
+                /* Until the neighbour has echoed a probe, it may not be running this service */
+                if (link != null && link.rtt() >= 0) {
+                    update(probe.neighbour, -1);
+                } else {
+                    logger.log(Level.FINER, "No echo yet from node [{0}], probe not counted as lost",
+                            probe.neighbour);
+                }
+            }
+        }
+
+        /* Get the unique IDs of the connected neighbours (there may be a connection per interface) */
+        NodeDescriptor[] connected = busServices.connectedNeighbours();
+        HashSet<String> neighbours = new HashSet<String>();
+
+        for (int n = 0; n < connected.length; n++) {
+            neighbours.add(connected[n].name());
+        }
+
+        /* Forget links that are no longer connected */
+        links.keySet().retainAll(neighbours);
+
+        for (String neighbour : neighbours) {
+
+            String correlationID = FabricMessageFactory.generateUID();
+            IServiceMessage probe = linkMessage(ACTION_PROBE, correlationID);
+            probe.setRouting(new StaticRouting(new String[] {homeNode(), neighbour}));
+
+            try {
+
+                pendingProbes.put(correlationID, new Probe(neighbour, System.nanoTime()));
+                busServices.sendServiceMessage(probe, neighbour);
+
+            } catch (Exception e) {
+
+                logger.log(Level.FINE, "Failed to probe link to node [{0}]: {1}", new Object[] {neighbour,
+                        e.getMessage()});
+
+            }
+        }
+    }
+
+    /**
+     * Updates the quality of the link to a neighbour with the result of a probe.
+     *
+     * @param neighbour
+     *            the neighbour ID.
+     *
+     * @param rtt
+     *            the round-trip time (in milliseconds) of the probe, or <code>-1</code> if it was lost.
+     */
+    private void update(String neighbour, double rtt) {
+
+        Link link = links.get(neighbour);
+
+        if (link == null) {
+            Link newLink = new Link();
+            link = links.putIfAbsent(neighbour, newLink);
+            link = (link != null) ? link : newLink;
+        }
+
+        boolean doReport = false;
+        boolean isNewlyDegraded = false;
+        double weight = 0;
+        double baseline = 0;
+
+        synchronized (link) {
+
+            if (rtt >= 0) {
+                link.rtt = (link.rtt < 0) ? rtt : link.rtt + SMOOTHING * (rtt - link.rtt);
+                link.loss = link.loss - SMOOTHING * link.loss;
+            } else {
+                link.loss = link.loss + SMOOTHING * (1 - link.loss);
+            }
+
+            /* Until the first echo there is no round-trip time, so assume the default */
+            double rttWeight = (link.rtt < 0) ? TopologyGraph.DEFAULT_WEIGHT : Math.max(link.rtt / RTT_UNIT,
+                    TopologyGraph.DEFAULT_WEIGHT);
+            weight = rttWeight / Math.max(1 - link.loss, 0.01);
+            link.weight = weight;
+
+            /* The baseline falls to a lower weight at once, but rises to a higher weight only gradually */
+            if (link.baseline < 0 || weight < link.baseline) {
+                link.baseline = weight;
+            } else {
+                link.baseline += BASELINE_DECAY * (weight - link.baseline);
+            }
+
+            baseline = link.baseline;
+
+            if (Math.abs(weight - link.reportedWeight) > REPORT_CHANGE * link.reportedWeight) {
+                link.reportedWeight = weight;
+                doReport = true;
+            }
+
+            /* A degraded link recovers once its weight has fallen back to half of the threshold */
+            if (degradeFactor > 0 && !link.isDegraded && weight > degradeFactor * baseline) {
+                link.isDegraded = true;
+                isNewlyDegraded = true;
+            } else if (link.isDegraded && weight <= degradeFactor * baseline / 2) {
+                link.isDegraded = false;
+            }
+        }
+
+        TopologyGraph.getInstance().setEdgeWeight(homeNode(), neighbour, weight);
+
+        if (doReport) {
+            report(neighbour, weight);
+        }
+
+        if (isNewlyDegraded) {
+            reroute(neighbour, weight, baseline);
+        }
+    }
+
+    /**
+     * Floods the weight of the link to a neighbour to the other nodes in the Fabric.
+     *
+     * @param neighbour
+     *            the neighbour ID.
+     *
+     * @param weight
+     *            the weight.
+     */
+    private void report(String neighbour, double weight) {
+
+        IServiceMessage report = linkMessage(ACTION_REPORT, FabricMessageFactory.generateUID());
+        report.setActionEnRoute(true);
+        report.setProperty(PROPERTY_NEIGHBOUR, neighbour);
+        report.setProperty(PROPERTY_WEIGHT, Double.toString(weight));
+        report.setRouting(new FloodRouting(homeNode()));
+
+        try {
+
+            busServices.sendServiceMessage(report, homeNode());
+
+        } catch (Exception e) {
+
+            logger.log(Level.FINE, "Failed to report weight of link to node [{0}]: {1}", new Object[] {neighbour,
+                    e.getMessage()});
+
+        }
+    }
+
+    /**
+     * Handles the degradation of the link to a neighbour, invoking the re-route handler if the topology graph now
+     * offers a better route to the neighbour than the link itself.
+     * <p>
+     * The neighbour remains connected, and nothing registered for its disconnection is fired.
+     * </p>
+     *
+     * @param neighbour
+     *            the neighbour ID.
+     *
+     * @param weight
+     *            the current weight of the link.
+     *
+     * @param baseline
+     *            the baseline weight of the link.
+     */
+    private void reroute(String neighbour, double weight, double baseline) {
+
+        String[] route = TopologyGraph.getInstance().shortestRoute(homeNode(), neighbour);
+
+        /* If the link is still the best route to the neighbour, there is nothing to be gained from re-routing */
+        if (route.length <= 2) {
+
+            logger.log(Level.FINE, "Link to node [{0}] has degraded (weight {1}, baseline {2}), but no better route "
+                    + "is available", new Object[] {neighbour, weight, baseline});
+
+        } else {
+
+            logger.log(Level.INFO, "Link to node [{0}] has degraded (weight {1}, baseline {2}); best route is now {3}",
+                    new Object[] {neighbour, weight, baseline, Arrays.toString(route)});
+
+            if (rerouteHandler != null) {
+
+                try {
+
+                    rerouteHandler.reroute(neighbour, route, weight, baseline);
+
+                } catch (Exception e) {
+
+                    logger.log(Level.WARNING, "Failed to re-route traffic over link to node [{0}]: {1}",
+                            new Object[] {neighbour, e.getMessage()});
+                    logger.log(Level.FINEST, "Full exception: ", e);
+
+                }
+            }
+        }
+    }
+
+    /**
+     * Answers the measured quality of the links to each neighbour.
+     *
+     * @return the links, keyed by neighbour ID.
+     */
+    public HashMap<String, Link> links() {
+
+        return new HashMap<String, Link>(links);
+    }
+
+    /**
+     * @see fabric.bus.services.IPersistentService#stopService()
+     */
+    @Override
+    public void stopService() {
+
+        /* Tell the worker thread to stop */
+        isRunning = false;
+
+        synchronized (threadSync) {
+            threadSync.notifyAll();
+        }
+
+        logger.log(Level.FINE, "Service [{0}] stopped", getClass().getName());
+
+    }
+
+    /**
+     * Entry point for the thread responsible for probing the links to neighbours.
+     */
+    @Override
+    public void run() {
+
+        while (isRunning) {
+
+            try {
+
+                probeNeighbours();
+
+            } catch (Exception e) {
+
+                logger.log(Level.WARNING, "Failed to probe links to neighbours: {0}", e.getMessage());
+                logger.log(Level.FINEST, "Full exception: ", e);
+
+            }
+
+            synchronized (threadSync) {
+                try {
+                    threadSync.wait(probeInterval);
+                } catch (InterruptedException e) {
+                    /* Ignore */
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package fabric.services.linkquality;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import fabric.bus.IBusServices;
+
+/**
+ * Re-route handler that moves the subscriptions whose feed messages are sent over a degraded link onto the better route
+ * to the neighbour at the other end of the link.
+ * <p>
+ * Only the hop over the degraded link is replaced; the rest of the route to each subscriber is unchanged.
+ * </p>
+ */
+public class SubscriptionRerouteHandler implements IRerouteHandler {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /*
+     * Class fields
+     */
+
+    private final Logger logger = Logger.getLogger("fabric.bus.services");
+
+    /** A local copy of the interface to Fabric management functions. */
+    private IBusServices busServices = null;
+
+    /*
+     * Class methods
+     */
+
+    /**
+     * @see fabric.services.linkquality.IRerouteHandler#initHandler(fabric.bus.IBusServices)
+     */
+    @Override
+    public void initHandler(IBusServices busServices) {
+
+        this.busServices = busServices;
+
+    }
+
+    /**
+     * @see fabric.services.linkquality.IRerouteHandler#reroute(java.lang.String, java.lang.String[], double, double)
+     */
+    @Override
+    public void reroute(String neighbour, String[] route, double weight, double baseline) {
+
+        int rerouted = busServices.subscriptionManager().rerouteSubscriptions(neighbour, route);
+
+        logger.log(Level.INFO, "Moved {0} subscription(s) from the link to node [{1}] to route {2}", new Object[] {
+                rerouted, neighbour, Arrays.toString(route)});
+
+    }
+}
@@ -76,8 +76,61 @@ public class OutboundMessage {
 	 */
 	public OutboundMessage(IFeedMessage message, String node, String descriptor, MessageQoS messageQoS) {
 
+		this(message, node, descriptor, messageQoS, true);
+
+	}
+
+	/**
+	 * Constructs a new instance of a message to be delivered to an actor.
+	 * 
+	 * @param message
+	 *            the message to be sent.
+	 * 
+	 * @param subscription
+	 *            details of the actor's subscription.
+	 * 
+	 * @param descriptor
+	 *            the feed from which this message originated.
+	 * 
+	 * @param messageQoS
+	 *            the network QoS (QoS) to be used with this message.
+	 */
+	public OutboundMessage(IFeedMessage message, SubscriptionRecord subscription, String descriptor,
+			MessageQoS messageQoS) {
+
+		this(message, subscription, descriptor, messageQoS, true);
+
+	}
+
+	/**
+	 * Constructs a new instance of a message to be sent across the bus (i.e. node to node), optionally sharing the
+	 * message rather than copying it.
+	 * <p>
+	 * A shared message must not be modified once it has been queued; sharing allows a message sent to several
+	 * destinations to be serialized only once.
+	 * </p>
+	 * 
+	 * @param message
+	 *            the message to be sent.
+	 * 
+	 * @param node
+	 *            the node to which this message is to be sent.
+	 * 
+	 * @param descriptor
+	 *            the feed from which this message originated.
+	 * 
+	 * @param messageQoS
+	 *            the network QoS (QoS) to be used with this message.
+	 * 
+	 * @param copyMessage
+	 *            <code>true</code> if a copy of the message is to be queued, <code>false</code> if the message is to be
+	 *            shared.
+	 */
+	public OutboundMessage(IFeedMessage message, String node, String descriptor, MessageQoS messageQoS,
+			boolean copyMessage) {
+
 		this.action = Action.FORWARD;
-		this.message = (IFeedMessage) message.replicate();
+		this.message = (copyMessage) ? (IFeedMessage) message.replicate() : message;
 		this.node = node;
 		this.descriptor = descriptor;
 		this.messageQoS = messageQoS;
@@ -85,22 +138,34 @@ public class OutboundMessage {
 	}
 
 	/**
-	 * Constructs a new instance of a message to be delivered to an actor.
+	 * Constructs a new instance of a message to be delivered to an actor, optionally sharing the message rather than
+	 * copying it.
+	 * <p>
+	 * A shared message must not be modified once it has been queued; sharing allows a message delivered to several
+	 * actors to be serialized only once.
+	 * </p>
 	 * 
 	 * @param message
 	 *            the message to be sent.
 	 * 
+	 * @param subscription
+	 *            details of the actor's subscription.
+	 * 
 	 * @param descriptor
 	 *            the feed from which this message originated.
 	 * 
 	 * @param messageQoS
 	 *            the network QoS (QoS) to be used with this message.
+	 * 
+	 * @param copyMessage
+	 *            <code>true</code> if a copy of the message is to be queued, <code>false</code> if the message is to be
+	 *            shared.
 	 */
 	public OutboundMessage(IFeedMessage message, SubscriptionRecord subscription, String descriptor,
-			MessageQoS messageQoS) {
+			MessageQoS messageQoS, boolean copyMessage) {
 
 		this.action = Action.DELIVER;
-		this.message = (IFeedMessage) message.replicate();
+		this.message = (copyMessage) ? (IFeedMessage) message.replicate() : message;
 		this.subscription = subscription;
 		this.descriptor = descriptor;
 		this.messageQoS = messageQoS;
@@ -18,10 +18,12 @@ import fabric.bus.messages.INotificationMessage;
 import fabric.bus.messages.IServiceMessage;
 import fabric.bus.messages.impl.MessageProperties;
 import fabric.bus.plugins.IPluginConfig;
+import fabric.bus.routing.TopologyGraph;
 import fabric.bus.services.IBusServiceConfig;
 import fabric.bus.services.impl.BusService;
 import fabric.core.io.InputTopic;
 import fabric.core.io.OutputTopic;
+import fabric.registry.impl.RegistryQueryCache;
 
 /**
  * Service to publish Fabric messages locally on behalf of a remote requester.
@@ -100,8 +102,15 @@ public class ProxyPublisherService extends BusService {
         InputTopic busBaseTopic = busServices.ioChannels().receiveBus;
 
         /* Build the bus topic to which the payload is to be published */
-        OutputTopic busTopic = new OutputTopic(busBaseTopic.name() + '/'
-                + serviceMessage.getProperty(IServiceMessage.PROPERTY_DELIVER_TO_SERVICE));
+        String deliverToService = serviceMessage.getProperty(IServiceMessage.PROPERTY_DELIVER_TO_SERVICE);
+        OutputTopic busTopic = new OutputTopic(busBaseTopic.name() + '/' + deliverToService);
+
+        /* If this is a Registry update notification, keep the local copies of Registry data up to date */
+        if (TopologyGraph.REGISTRY_UPDATES_SERVICE.equals(deliverToService)) {
+            String notification = new String(payloadToPublish.getPayload());
+            RegistryQueryCache.getInstance().registryUpdate(notification);
+            TopologyGraph.getInstance().registryUpdate(notification);
+        }
 
         /* Publish the message */
         logger.log(Level.FINEST, "Publishing message to bus topic [{0}]:\n{1}", new Object[] {busTopic,
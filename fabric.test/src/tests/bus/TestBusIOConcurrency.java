@@ -0,0 +1,204 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.bus;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.Fabric;
+import fabric.LocalConfig;
+import fabric.bus.BusIOChannels;
+import fabric.bus.BusMessageHandler;
+import fabric.bus.impl.BusIO;
+import fabric.bus.messages.IFeedMessage;
+import fabric.bus.messages.IServiceMessage;
+import fabric.bus.messages.impl.FeedMessage;
+import fabric.bus.messages.impl.ServiceMessage;
+import fabric.core.io.InputTopic;
+import fabric.core.io.Message;
+
+/**
+ * Tests for the handling of inbound messages by the bus worker threads: messages for unrelated feeds are handled in
+ * parallel, while service messages are handled on their own.
+ */
+public class TestBusIOConcurrency {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private static final int WORKERS = 4;
+
+    private static final String BUS = "$fabric/n0/$feeds/$bus";
+
+    @BeforeClass
+    public static void setConfig() throws Exception {
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        writer.write("fabric.node=n0\nfabric.bus.workerThreads=" + WORKERS + "\nfabric.bus.batchSize=1\n");
+        writer.close();
+        Fabric.setConfig(new LocalConfig(configFile.getPath()));
+    }
+
+    /**
+     * A message handler that records the messages it is passed, holding each feed message until a gate is opened.
+     */
+    private static class GatedHandler extends BusMessageHandler {
+
+        final List<String> handled = Collections.synchronizedList(new ArrayList<String>());
+
+        final AtomicInteger active = new AtomicInteger(0);
+
+        final AtomicInteger activeWithService = new AtomicInteger(0);
+
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        volatile CountDownLatch started = new CountDownLatch(1);
+
+        volatile CountDownLatch done = new CountDownLatch(1);
+
+        GatedHandler() {
+
+            super(null);
+        }
+
+        @Override
+        public void handleFeedMessage(IFeedMessage message) throws Exception {
+
+            active.incrementAndGet();
+            started.countDown();
+
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+                handled.add(message.getProperty("name"));
+            } finally {
+                active.decrementAndGet();
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void handleServiceMessage(IServiceMessage message) throws Exception {
+
+            activeWithService.set(active.get());
+            handled.add("service");
+            done.countDown();
+        }
+    }
+
+    private static BusIO busIO(GatedHandler handler) {
+
+        BusIO busIO = new BusIO();
+        BusIOChannels channels = busIO.ioChannels();
+        channels.receiveBus = new InputTopic(BUS);
+        channels.receiveLocalFeeds = new InputTopic("$fabric/n0/$feeds/$onramp");
+        channels.receiveLocalReplayFeeds = new InputTopic("$fabric/n0/$feeds/$replay");
+        channels.connectionComands = new InputTopic("$fabric/+/$connections");
+        busIO.setBusMessageHandler(handler);
+        return busIO;
+    }
+
+    private static Message feedMessage(String feed) throws Exception {
+
+        FeedMessage feedMessage = new FeedMessage();
+        feedMessage.setProperty("name", feed);
+        feedMessage.getPayload().setPayloadText(feed);
+
+        Message message = new Message();
+        message.topic = BUS + feed;
+        message.data = feedMessage.toWireBytes();
+        return message;
+    }
+
+    /**
+     * Answers a feed (the part of the topic following the feed bus) handled by a different worker than another.
+     */
+    private static String otherFeed(String feed) {
+
+        String other = null;
+
+        for (int f = 0; other == null; f++) {
+            String candidate = "/p/s/f" + f;
+            if (partition(candidate) != partition(feed)) {
+                other = candidate;
+            }
+        }
+
+        return other;
+    }
+
+    private static int partition(String feed) {
+
+        return (feed.hashCode() & Integer.MAX_VALUE) % WORKERS;
+    }
+
+    @Test
+    public void unrelatedFeedsAreHandledConcurrently() throws Exception {
+
+        GatedHandler handler = new GatedHandler();
+        BusIO busIO = busIO(handler);
+        String first = "/p/s/slow";
+        String second = otherFeed(first);
+
+        /* Hold the first feed in its handler... */
+        busIO.handleMessage(feedMessage(first));
+        Assert.assertTrue(handler.started.await(10, TimeUnit.SECONDS));
+
+        /* ...and check that the second feed is handled while the first is still being handled */
+        handler.started = new CountDownLatch(1);
+        busIO.handleMessage(feedMessage(second));
+        Assert.assertTrue("Second feed not handled concurrently", handler.started.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, handler.active.get());
+
+        handler.gate.countDown();
+
+        for (int wait = 0; wait < 1000 && handler.handled.size() < 2; wait++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertTrue(handler.handled.contains(first));
+        Assert.assertTrue(handler.handled.contains(second));
+    }
+
+    @Test
+    public void serviceMessagesWaitForFeedMessagesToBeHandled() throws Exception {
+
+        GatedHandler handler = new GatedHandler();
+        BusIO busIO = busIO(handler);
+
+        busIO.handleMessage(feedMessage("/p/s/slow"));
+        Assert.assertTrue(handler.started.await(10, TimeUnit.SECONDS));
+
+        /* The service message is parsed and queued by a worker, but not handled until the feed message is done */
+        Message message = new Message();
+        message.topic = "$fabric/n0/$commands";
+        message.data = new ServiceMessage().toWireBytes();
+        busIO.handleMessage(message);
+
+        Thread.sleep(200);
+        Assert.assertTrue(handler.handled.isEmpty());
+
+        handler.done = new CountDownLatch(2);
+        handler.gate.countDown();
+        Assert.assertTrue(handler.done.await(10, TimeUnit.SECONDS));
+
+        Assert.assertEquals(0, handler.activeWithService.get());
+        Assert.assertEquals("service", handler.handled.get(1));
+    }
+}
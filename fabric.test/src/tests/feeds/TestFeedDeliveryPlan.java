@@ -0,0 +1,158 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.feeds;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.Fabric;
+import fabric.LocalConfig;
+import fabric.TaskServiceDescriptor;
+import fabric.bus.feeds.impl.FeedDeliveryPlan;
+import fabric.bus.feeds.impl.SubscriptionRecord;
+import fabric.bus.plugins.impl.FeedPluginDispatcher;
+import fabric.bus.routing.impl.StaticRouting;
+import fabric.core.io.MessageQoS;
+import fabric.services.floodmessage.NeighbourCache;
+
+/**
+ * Tests for the building of per-feed delivery plans, and the caching of the next hops towards each subscriber.
+ */
+public class TestFeedDeliveryPlan {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private static final String FEED = "p/s/f";
+
+    @BeforeClass
+    public static void setConfig() throws Exception {
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        writer.write("fabric.node=n0\n");
+        writer.close();
+        Fabric.setConfig(new LocalConfig(configFile.getPath()));
+    }
+
+    /**
+     * A static route whose next hops can be changed by the test, counting the number of times they are resolved.
+     */
+    private static class CountingRouting extends StaticRouting {
+
+        int resolved = 0;
+
+        String[] next = null;
+
+        CountingRouting(String... route) {
+
+            super(route);
+        }
+
+        @Override
+        public String[] nextNodes() {
+
+            resolved++;
+            return (next != null) ? next : super.nextNodes();
+        }
+    }
+
+    private static SubscriptionRecord subscription(String actor, String task, StaticRouting routing) {
+
+        return new SubscriptionRecord(actor, "app", new TaskServiceDescriptor(task, "p", "s", "f"), routing,
+                MessageQoS.DEFAULT, new FeedPluginDispatcher(), new FeedPluginDispatcher(), new ArrayList<String>());
+    }
+
+    private static FeedDeliveryPlan plan(ArrayList<SubscriptionRecord> subscriptions, String... tasks) {
+
+        HashMap<String, FeedPluginDispatcher> inbound = new HashMap<String, FeedPluginDispatcher>();
+        HashMap<String, FeedPluginDispatcher> outbound = new HashMap<String, FeedPluginDispatcher>();
+
+        for (String task : tasks) {
+            inbound.put(task, new FeedPluginDispatcher());
+            outbound.put(task, new FeedPluginDispatcher());
+        }
+
+        return new FeedDeliveryPlan(FEED, "n0", inbound, outbound, subscriptions, MessageQoS.DEFAULT);
+    }
+
+    @Test
+    public void subscriptionsAreGroupedByTask() {
+
+        ArrayList<SubscriptionRecord> subscriptions = new ArrayList<SubscriptionRecord>();
+        subscriptions.add(subscription("a1", "t1", new StaticRouting(new String[] {"n2", "n1", "n0"})));
+        subscriptions.add(subscription("a2", "t2", new StaticRouting(new String[] {"n0", "n1", "n2"})));
+        subscriptions.add(subscription("a3", "t1", new StaticRouting(new String[] {"n0"})));
+
+        FeedDeliveryPlan plan = plan(subscriptions, "t1", "t2", "t3");
+
+        Assert.assertEquals(FEED, plan.feedName());
+        Assert.assertEquals(3, plan.taskPlans().length);
+        Assert.assertNull(plan.taskPlan("t4"));
+
+        FeedDeliveryPlan.TaskPlan t1 = plan.taskPlan("t1");
+        Assert.assertEquals(2, t1.subscriptions.length);
+        Assert.assertEquals("a1", t1.subscriptions[0].actor());
+        Assert.assertEquals("a3", t1.subscriptions[1].actor());
+
+        /* With no plug-ins, messages pass through each stage unchanged */
+        Assert.assertTrue(t1.inboundPassThrough);
+        Assert.assertTrue(t1.actorPassThrough[0] && t1.actorPassThrough[1]);
+
+        Assert.assertEquals(1, plan.taskPlan("t2").subscriptions.length);
+        Assert.assertEquals(0, plan.taskPlan("t3").subscriptions.length);
+    }
+
+    @Test
+    public void nextHopsAreResolvedFromEachRoute() {
+
+        ArrayList<SubscriptionRecord> subscriptions = new ArrayList<SubscriptionRecord>();
+        subscriptions.add(subscription("a1", "t1", new StaticRouting(new String[] {"n0", "n1", "n2"})));
+        subscriptions.add(subscription("a2", "t1", new StaticRouting(new String[] {"n2", "n1", "n0"})));
+
+        FeedDeliveryPlan.TaskPlan taskPlan = plan(subscriptions, "t1").taskPlan("t1");
+
+        Assert.assertArrayEquals(new String[] {"n1"}, taskPlan.nextNodes(0));
+
+        /* The subscriber is attached to this node, so this node is the next hop */
+        Assert.assertArrayEquals(new String[] {"n0"}, taskPlan.nextNodes(1));
+    }
+
+    @Test
+    public void nextHopsAreCachedUntilTheNeighboursChange() {
+
+        CountingRouting routing = new CountingRouting("n0", "n1", "n2");
+        ArrayList<SubscriptionRecord> subscriptions = new ArrayList<SubscriptionRecord>();
+        subscriptions.add(subscription("a1", "t1", routing));
+
+        FeedDeliveryPlan.TaskPlan taskPlan = plan(subscriptions, "t1").taskPlan("t1");
+        Assert.assertEquals(1, routing.resolved);
+
+        /* Messages use the next hops resolved when the plan was built */
+        for (int m = 0; m < 10; m++) {
+            Assert.assertArrayEquals(new String[] {"n1"}, taskPlan.nextNodes(0));
+        }
+
+        Assert.assertEquals(1, routing.resolved);
+
+        /* A change to the neighbours of a node causes the next hops to be resolved again, once */
+        routing.next = new String[] {"n3"};
+        NeighbourCache.invalidate("n0");
+
+        Assert.assertArrayEquals(new String[] {"n3"}, taskPlan.nextNodes(0));
+        Assert.assertArrayEquals(new String[] {"n3"}, taskPlan.nextNodes(0));
+        Assert.assertEquals(2, routing.resolved);
+    }
+}
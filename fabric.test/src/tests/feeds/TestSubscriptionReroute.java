@@ -0,0 +1,49 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.feeds;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.bus.feeds.impl.SubscriptionManager;
+
+/**
+ * Tests for the splicing of a new route into the route of a subscription, when it is moved away from a degraded link.
+ */
+public class TestSubscriptionReroute {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    @Test
+    public void theHopToTheNeighbourIsReplaced() {
+
+        String[] route = {"p", "n0", "n1", "s"};
+
+        Assert.assertArrayEquals(new String[] {"p", "n0", "n2", "n1", "s"}, SubscriptionManager.spliceRoute(route, 1,
+                new String[] {"n0", "n2", "n1"}));
+    }
+
+    @Test
+    public void loopsThroughLaterNodesAreRemoved() {
+
+        String[] route = {"p", "n0", "n1", "n3", "s"};
+
+        /* The new route to n1 passes through n3, which is beyond n1 already, so n1 is no longer needed */
+        Assert.assertArrayEquals(new String[] {"p", "n0", "n3", "s"}, SubscriptionManager.spliceRoute(route, 1,
+                new String[] {"n0", "n3", "n1"}));
+    }
+
+    @Test
+    public void routesBackThroughEarlierNodesAreRejected() {
+
+        String[] route = {"p", "n0", "n1", "s"};
+
+        Assert.assertNull(SubscriptionManager.spliceRoute(route, 1, new String[] {"n0", "p", "n1"}));
+    }
+}
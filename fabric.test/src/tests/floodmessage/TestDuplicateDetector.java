@@ -0,0 +1,126 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.floodmessage;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.services.floodmessage.DuplicateDetector;
+
+/**
+ * Tests for the time-bucketed duplicate detector used for flooded messages.
+ */
+public class TestDuplicateDetector {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    @Test
+    public void duplicatesAreDetected() {
+
+        DuplicateDetector detector = new DuplicateDetector(1000, 0);
+
+        Assert.assertFalse(detector.checkAndAdd("m1", 60000));
+        Assert.assertFalse(detector.checkAndAdd("m2", 60000));
+        Assert.assertTrue(detector.checkAndAdd("m1", 60000));
+
+        /* A UID is a duplicate regardless of the bucket in which it was first recorded */
+        Assert.assertTrue(detector.checkAndAdd("m2", 0));
+
+        Assert.assertTrue(detector.contains("m1"));
+        Assert.assertFalse(detector.contains("m3"));
+        Assert.assertEquals(4, detector.getChecks());
+        Assert.assertEquals(2, detector.getDuplicates());
+        Assert.assertEquals(2, detector.getOccupancy());
+    }
+
+    @Test
+    public void uidsExpireWithTheirBucket() throws Exception {
+
+        DuplicateDetector detector = new DuplicateDetector(20, 0);
+
+        detector.add("short", 20);
+        detector.add("forever", 0);
+        Assert.assertTrue(detector.contains("short"));
+
+        /* UIDs are retained for at most one bucket width after they expire */
+        Thread.sleep(100);
+
+        Assert.assertFalse(detector.contains("short"));
+        Assert.assertTrue(detector.contains("forever"));
+        Assert.assertEquals(1, detector.getBucketCount());
+        Assert.assertFalse(detector.checkAndAdd("short", 20));
+    }
+
+    @Test
+    public void occupancyIsBounded() {
+
+        DuplicateDetector detector = new DuplicateDetector(10, 100);
+
+        detector.add("forever", 0);
+
+        /* Spread the UIDs over many buckets */
+        for (int m = 0; m < 1000; m++) {
+            detector.add("m" + m, 60000 + m * 10);
+        }
+
+        Assert.assertTrue(detector.getOccupancy() <= 100);
+        Assert.assertEquals(1001 - detector.getOccupancy(), detector.getEarlyEvictions());
+
+        /* The UIDs closest to expiry are evicted first */
+        Assert.assertTrue(detector.contains("m999"));
+        Assert.assertFalse(detector.contains("m0"));
+        Assert.assertTrue(detector.contains("forever"));
+    }
+
+    @Test
+    public void concurrentChecksSeeOneNewMessage() throws Exception {
+
+        /* UIDs that do not expire always share a bucket, so exactly one thread must see each as new */
+        final DuplicateDetector detector = new DuplicateDetector(60000, 0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger newCount = new AtomicInteger(0);
+        Thread[] threads = new Thread[8];
+
+        for (int t = 0; t < threads.length; t++) {
+
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                        for (int m = 0; m < 1000; m++) {
+                            if (!detector.checkAndAdd("m" + m, 0)) {
+                                newCount.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+
+            threads[t].start();
+        }
+
+        start.countDown();
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+
+        Assert.assertEquals(1000, detector.getOccupancy());
+        Assert.assertEquals(1000, newCount.get());
+        Assert.assertEquals(7000, detector.getDuplicates());
+    }
+}
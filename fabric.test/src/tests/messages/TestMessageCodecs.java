@@ -0,0 +1,263 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.messages;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.lang.reflect.Field;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.Fabric;
+import fabric.LocalConfig;
+import fabric.TaskServiceDescriptor;
+import fabric.bus.messages.BinaryWireWriter;
+import fabric.bus.messages.FabricMessageFactory;
+import fabric.bus.messages.IFabricMessage;
+import fabric.bus.messages.IWireBinary;
+import fabric.bus.messages.impl.FabricMessage;
+import fabric.bus.feeds.impl.ServiceList;
+import fabric.bus.messages.impl.FeedMessage;
+import fabric.bus.messages.impl.ServiceMessage;
+import fabric.bus.messages.impl.TaskSubscriptions;
+import fabric.bus.routing.impl.StaticRouting;
+import fabric.services.floodmessage.FloodRouting;
+import fabric.core.xml.XML;
+import fabric.core.xml.XMLSections;
+
+/**
+ * Tests for the XML and binary wire formats of Fabric messages, including the deferred decoding of inbound messages.
+ */
+public class TestMessageCodecs {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private static final String TOPIC = "$fabric/n0/$feeds/$bus/p/s/f";
+
+    @BeforeClass
+    public static void enableLazyParsing() throws Exception {
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        writer.write("fabric.node=n0\nfabric.message.lazyParsing=true\n");
+        writer.close();
+        Fabric.setConfig(new LocalConfig(configFile.getPath()));
+
+        /* The setting is read once per VM, so make sure it applies even if another test has already created messages */
+        new FeedMessage();
+        Field useLazyParsing = FabricMessage.class.getDeclaredField("useLazyParsing");
+        useLazyParsing.setAccessible(true);
+        useLazyParsing.setBoolean(null, true);
+    }
+
+    private static FeedMessage newMessage() throws Exception {
+
+        FeedMessage message = new FeedMessage();
+        message.setProperty("colour", "red & <blue>");
+        message.getPayload().setPayloadText("reading=\"42\" > 41");
+        message.setRouting(new StaticRouting(new String[] {"n1", "n2"}));
+        return message;
+    }
+
+    /**
+     * Answers the binary wire form of a message.
+     */
+    private static byte[] toBinary(FabricMessage message) throws Exception {
+
+        BinaryWireWriter out = new BinaryWireWriter();
+        out.writeByte(IWireBinary.MAGIC);
+        out.writeByte(IWireBinary.VERSION);
+        out.writeByte(IWireBinary.FLAGS_NONE);
+        message.embed(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void splitSeparatesSectionsFromEnvelope() throws Exception {
+
+        String xml = "<?xml version=\"1.0\"?><fab t=\"a>b\"><prop><p n=\"k\">v</p></prop><rt><prev>n1</prev></rt>"
+                + "<!-- <pay> --><pay enc=\"txt\">x &lt;y&gt;</pay></fab>";
+
+        XMLSections sections = XMLSections.split(xml, "prop", "pay");
+
+        Assert.assertNotNull(sections);
+        Assert.assertEquals("fab", sections.getRootName());
+        Assert.assertEquals("<?xml version=\"1.0\"?><fab t=\"a>b\"><rt><prev>n1</prev></rt><!-- <pay> --></fab>",
+                sections.getEnvelope());
+        Assert.assertEquals("<prop><p n=\"k\">v</p></prop>", sections.getSection("prop"));
+
+        XML payload = sections.parseSection("pay");
+        Assert.assertEquals("x <y>", payload.get("/fab/pay"));
+        Assert.assertEquals("txt", payload.get("/fab/pay@enc"));
+        Assert.assertNull(sections.parseSection("missing"));
+    }
+
+    @Test
+    public void splitDeclinesDocumentsItCannotSplit() {
+
+        /* Repeated section */
+        Assert.assertNull(XMLSections.split("<fab><pay/><pay/></fab>", "pay"));
+
+        /* Unbalanced and unterminated documents */
+        Assert.assertNull(XMLSections.split("<fab><pay></fab>", "pay"));
+        Assert.assertNull(XMLSections.split("<fab><pay enc=\"txt\"", "pay"));
+        Assert.assertNull(XMLSections.split("no markup", "pay"));
+
+        /* Sections are only split from the document element, not from deeper elements */
+        XMLSections sections = XMLSections.split("<fab><a><pay/></a></fab>", "pay");
+        Assert.assertNull(sections.getSection("pay"));
+        Assert.assertEquals("<fab><a><pay/></a></fab>", sections.getEnvelope());
+    }
+
+    @Test
+    public void xmlMessagesRoundTrip() throws Exception {
+
+        FeedMessage message = newMessage();
+
+        IFabricMessage received = FabricMessageFactory.create(TOPIC, message.toXML().toBytes());
+
+        Assert.assertTrue(received instanceof FeedMessage);
+        Assert.assertEquals(message.getUID(), received.getUID());
+        Assert.assertEquals("red & <blue>", received.getProperty("colour"));
+        Assert.assertEquals("reading=\"42\" > 41", received.getPayload().getPayloadText());
+        Assert.assertEquals(message.toString(), received.toString());
+        Assert.assertFalse(received.metaIsModified());
+    }
+
+    @Test
+    public void binaryMessagesRoundTrip() throws Exception {
+
+        FeedMessage message = newMessage();
+        message.getPayload().setPayloadBytes(new byte[] {1, 2, 3, (byte) 200});
+
+        BinaryWireWriter out = new BinaryWireWriter();
+        out.writeByte(IWireBinary.MAGIC);
+        out.writeByte(IWireBinary.VERSION);
+        out.writeByte(IWireBinary.FLAGS_NONE);
+        message.embed(out);
+
+        IFabricMessage received = FabricMessageFactory.create(TOPIC, out.toByteArray());
+
+        Assert.assertEquals(message.getUID(), received.getUID());
+        Assert.assertEquals("red & <blue>", received.getProperty("colour"));
+        Assert.assertArrayEquals(new byte[] {1, 2, 3, (byte) 200}, received.getPayload().getPayloadBytes());
+        Assert.assertEquals(message.toString(), received.toString());
+    }
+
+    @Test
+    public void undecodedMessagesAreForwardedUnchanged() throws Exception {
+
+        FeedMessage message = newMessage();
+
+        BinaryWireWriter out = new BinaryWireWriter();
+        out.writeByte(IWireBinary.MAGIC);
+        out.writeByte(IWireBinary.VERSION);
+        out.writeByte(IWireBinary.FLAGS_NONE);
+        message.embed(out);
+        byte[] wireBytes = out.toByteArray();
+
+        /* Re-encode the received message without touching its properties or payload */
+        FabricMessage received = (FabricMessage) FabricMessageFactory.create(TOPIC, wireBytes);
+        BinaryWireWriter forwarded = new BinaryWireWriter();
+        forwarded.writeByte(IWireBinary.MAGIC);
+        forwarded.writeByte(IWireBinary.VERSION);
+        forwarded.writeByte(IWireBinary.FLAGS_NONE);
+        received.embed(forwarded);
+
+        Assert.assertArrayEquals(wireBytes, forwarded.toByteArray());
+    }
+
+    @Test
+    public void decodeFailuresAreReported() throws Exception {
+
+        String xml = new String(newMessage().toXML().toBytes());
+        String payload = XMLSections.split(xml, "pay").getSection("pay");
+        byte[] corrupt = xml.replace(payload, "<pay enc=\"no.such.PayloadType\"/>").getBytes();
+
+        /* The envelope and properties are intact... */
+        IFabricMessage received = FabricMessageFactory.create(TOPIC, corrupt);
+        Assert.assertEquals("red & <blue>", received.getProperty("colour"));
+
+        /* ...but the payload cannot be decoded, and must not look empty however often it is asked for */
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                received.getPayload();
+                Assert.fail("Corrupt payload decoded");
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(e.getCause() instanceof ClassNotFoundException);
+            }
+        }
+    }
+
+    @Test
+    public void binarySubscriptionsRoundTrip() throws Exception {
+
+        FeedMessage message = newMessage();
+        TaskSubscriptions subscriptions = new TaskSubscriptions();
+        subscriptions.addActor("task1", "actor1");
+        subscriptions.addActor("task1", "actor2");
+        subscriptions.addActor("task2", "actor1");
+        message.setSubscriptions(subscriptions);
+
+        FeedMessage received = (FeedMessage) FabricMessageFactory.create(TOPIC, toBinary(message));
+
+        Assert.assertEquals(subscriptions.getActors("task1"), received.getSubscriptions().getActors("task1"));
+        Assert.assertEquals(subscriptions.getActors("task2"), received.getSubscriptions().getActors("task2"));
+        Assert.assertEquals(message.toString(), received.toString());
+    }
+
+    @Test
+    public void binaryServiceMessagesRoundTrip() throws Exception {
+
+        ServiceMessage message = new ServiceMessage();
+        message.setServiceFamilyName("family");
+        message.setServiceName("fabric.services.floodmessage.FloodRouting");
+        message.setAction("subscribe");
+        message.setActionEnRoute(true);
+        message.setNotification(true);
+        message.setNotificationTimeout(30);
+        ServiceList services = new ServiceList();
+        services.addService(new TaskServiceDescriptor("task1", "p", "s", "f"));
+        message.setServiceList(services);
+        message.setRouting(new StaticRouting(new String[] {"n1", "n2"}));
+
+        ServiceMessage received = (ServiceMessage) FabricMessageFactory.create(TOPIC, toBinary(message));
+
+        Assert.assertEquals("family", received.getServiceFamilyName());
+        Assert.assertEquals("fabric.services.floodmessage.FloodRouting", received.getServiceName());
+        Assert.assertEquals("subscribe", received.getAction());
+        Assert.assertTrue(received.getActionEnRoute());
+        Assert.assertTrue(received.getNotification());
+        Assert.assertEquals(30, received.getNotificationTimeout());
+        Assert.assertEquals(1, received.getServiceList().size());
+        Assert.assertEquals("task1", received.getServiceList().getServices()[0].task());
+        Assert.assertEquals(message.toString(), received.toString());
+    }
+
+    @Test
+    public void binaryFloodRoutingRoundTrip() throws Exception {
+
+        FeedMessage message = newMessage();
+        FloodRouting routing = new FloodRouting("n0");
+        routing.setTTL(5000);
+        routing.setRetained(true);
+        message.setRouting(routing);
+
+        IFabricMessage received = FabricMessageFactory.create(TOPIC, toBinary(message));
+
+        Assert.assertTrue(received.getRouting() instanceof FloodRouting);
+        FloodRouting receivedRouting = (FloodRouting) received.getRouting();
+        Assert.assertEquals("n0", receivedRouting.startNode());
+        Assert.assertEquals(5000, receivedRouting.getTTL());
+        Assert.assertTrue(receivedRouting.isRetained());
+    }
+}
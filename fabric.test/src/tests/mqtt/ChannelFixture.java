@@ -0,0 +1,145 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.mqtt;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import fabric.core.io.InputTopic;
+import fabric.core.io.Message;
+import fabric.core.io.mqtt.MqttChannel;
+import fabric.core.io.mqtt.MqttConfig;
+import fabric.core.io.mqtt.MqttEndPoint;
+import fabric.core.properties.Properties;
+
+/**
+ * Creates MQTT channels that are not connected to a broker, so that the inbound dispatch path can be tested by passing
+ * messages directly to the channels, and the outbound path by completing publications from the test.
+ */
+public class ChannelFixture {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /**
+     * An end point with a fixed configuration and no broker connection.
+     */
+    public static class TestEndPoint extends MqttEndPoint {
+
+        /** The configuration of the end point. */
+        private final MqttConfig config;
+
+        /** The publications in progress, completed only by the test. */
+        public final List<CompletableFuture<Void>> deliveries = new CopyOnWriteArrayList<CompletableFuture<Void>>();
+
+        TestEndPoint(MqttConfig config) {
+
+            this.config = config;
+        }
+
+        /**
+         * @see fabric.core.io.mqtt.MqttEndPoint#getConfig()
+         */
+        @Override
+        public Object getConfig() {
+
+            return config;
+        }
+
+        /**
+         * @see fabric.core.io.mqtt.MqttEndPoint#publishAsync(java.lang.String, byte[], int, boolean)
+         */
+        @Override
+        public CompletableFuture<Void> publishAsync(String topic, byte[] payload, int qos, boolean retain) {
+
+            CompletableFuture<Void> delivery = new CompletableFuture<Void>();
+            deliveries.add(delivery);
+            return delivery;
+        }
+    }
+
+    /**
+     * A channel that does not subscribe to its topic; messages are passed to it by the test.
+     */
+    public static class TestChannel extends MqttChannel {
+
+        /** The end point of the channel. */
+        public final TestEndPoint endPoint;
+
+        TestChannel(TestEndPoint endPoint, String topic) {
+
+            super(endPoint, new InputTopic(topic));
+            this.endPoint = endPoint;
+        }
+
+        /**
+         * Passes a message to the channel, as the end point does when a message arrives from the broker.
+         *
+         * @param data
+         *            the message data.
+         *
+         * @return <code>true</code> if the channel accepted the message, <code>false</code> otherwise.
+         */
+        public boolean deliver(byte[] data) {
+
+            Message message = new Message();
+            message.topic = inputTopic().name();
+            message.data = data;
+            return messageArrived(message);
+        }
+
+        /**
+         * @see fabric.core.io.mqtt.MqttChannel#subscribe()
+         */
+        @Override
+        protected void subscribe() {
+
+        }
+
+        /**
+         * @see fabric.core.io.mqtt.MqttChannel#unsubscribe()
+         */
+        @Override
+        protected void unsubscribe() throws IOException {
+
+        }
+    }
+
+    /**
+     * Opens a channel.
+     *
+     * @param topic
+     *            the inbound topic of the channel.
+     *
+     * @param settings
+     *            the MQTT configuration settings, as alternating property names and values.
+     *
+     * @return the channel.
+     *
+     * @throws Exception
+     */
+    public static TestChannel open(String topic, String... settings) throws Exception {
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        for (int s = 0; s < settings.length; s += 2) {
+            writer.write(settings[s] + "=" + settings[s + 1] + "\n");
+        }
+        writer.close();
+
+        TestEndPoint endPoint = new TestEndPoint(new MqttConfig(new Properties(configFile.getPath())));
+        TestChannel channel = new TestChannel(endPoint, topic);
+        channel.open();
+        return channel;
+    }
+}
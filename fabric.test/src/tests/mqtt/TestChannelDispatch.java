@@ -0,0 +1,211 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.mqtt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.core.io.ICallback;
+import fabric.core.io.Message;
+import fabric.core.properties.ConfigProperties;
+import tests.mqtt.ChannelFixture.TestChannel;
+
+/**
+ * Tests for the lock-free path by which inbound messages are queued on a channel and passed to its callbacks.
+ */
+public class TestChannelDispatch {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /**
+     * A callback recording the messages it is passed, optionally waiting for a gate to open before handling each one.
+     */
+    private static class RecordingCallback implements ICallback {
+
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        final CountDownLatch expected;
+
+        final CountDownLatch gate;
+
+        RecordingCallback(int expected, CountDownLatch gate) {
+
+            this.expected = new CountDownLatch(expected);
+            this.gate = gate;
+        }
+
+        @Override
+        public void startCallback(Object arg1) {
+
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+
+            try {
+                if (gate != null) {
+                    gate.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            received.add(new String(message.data));
+            expected.countDown();
+        }
+
+        @Override
+        public void cancelCallback(Object arg1) {
+
+        }
+
+        boolean await() throws InterruptedException {
+
+            return expected.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void messagesFromConcurrentProducersAreDeliveredInOrder() throws Exception {
+
+        final int producers = 4;
+        final int messagesEach = 2000;
+        final TestChannel channel = ChannelFixture.open("test/order", ConfigProperties.MQTT_DISPATCH_QUEUE_LIMIT,
+                "0");
+        final AtomicInteger refused = new AtomicInteger(0);
+        RecordingCallback callback = new RecordingCallback(producers * messagesEach, null);
+        channel.read(callback);
+
+        try {
+
+            Thread[] threads = new Thread[producers];
+
+            for (int p = 0; p < producers; p++) {
+
+                final int producer = p;
+                threads[p] = new Thread() {
+
+                    @Override
+                    public void run() {
+
+                        for (int m = 0; m < messagesEach; m++) {
+                            if (!channel.deliver((producer + ":" + m).getBytes())) {
+                                refused.incrementAndGet();
+                            }
+                        }
+                    }
+                };
+                threads[p].start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            Assert.assertEquals(0, refused.get());
+            Assert.assertTrue(callback.await());
+
+            /* Each producer's messages arrive in the order in which they were sent */
+            int[] next = new int[producers];
+            synchronized (callback.received) {
+                for (String message : callback.received) {
+                    String[] parts = message.split(":");
+                    int producer = Integer.parseInt(parts[0]);
+                    Assert.assertEquals(next[producer]++, Integer.parseInt(parts[1]));
+                }
+            }
+
+            Assert.assertEquals(producers * messagesEach, channel.getDispatchedCount());
+            Assert.assertEquals(0, channel.getDispatchQueueDepth());
+            Assert.assertEquals(0, channel.getDroppedCount());
+
+        } finally {
+
+            channel.close();
+
+        }
+    }
+
+    @Test
+    public void slowCallbacksDoNotHoldUpOtherChannels() throws Exception {
+
+        TestChannel slow = ChannelFixture.open("test/slow");
+        TestChannel fast = ChannelFixture.open("test/fast");
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingCallback slowCallback = new RecordingCallback(10, gate);
+        RecordingCallback fastCallback = new RecordingCallback(10, null);
+        slow.read(slowCallback);
+        fast.read(fastCallback);
+
+        try {
+
+            /* Messages for the slow channel are queued without waiting for its callback */
+            for (int m = 0; m < 10; m++) {
+                Assert.assertTrue(slow.deliver(("slow" + m).getBytes()));
+                Assert.assertTrue(fast.deliver(("fast" + m).getBytes()));
+            }
+
+            Assert.assertTrue(fastCallback.await());
+            Assert.assertTrue(slowCallback.received.isEmpty());
+            Assert.assertTrue(slow.getDispatchQueueDepth() >= 9);
+
+            gate.countDown();
+            Assert.assertTrue(slowCallback.await());
+            Assert.assertEquals(10, slowCallback.received.size());
+
+        } finally {
+
+            gate.countDown();
+            slow.close();
+            fast.close();
+
+        }
+    }
+
+    @Test
+    public void eachCallbackReceivesEachMessage() throws Exception {
+
+        TestChannel channel = ChannelFixture.open("test/callbacks");
+        RecordingCallback first = new RecordingCallback(3, null);
+        RecordingCallback second = new RecordingCallback(3, null);
+        channel.read(first);
+        channel.read(second);
+
+        try {
+
+            for (int m = 0; m < 3; m++) {
+                Assert.assertTrue(channel.deliver(("m" + m).getBytes()));
+            }
+
+            Assert.assertTrue(first.await());
+            Assert.assertTrue(second.await());
+            Assert.assertEquals(first.received, second.received);
+
+            /* A cancelled callback receives nothing further */
+            channel.cancelCallback(second);
+            RecordingCallback third = new RecordingCallback(1, null);
+            channel.read(third);
+            Assert.assertTrue(channel.deliver("last".getBytes()));
+            Assert.assertTrue(third.await());
+            Assert.assertEquals(3, second.received.size());
+
+        } finally {
+
+            channel.close();
+
+        }
+    }
+}
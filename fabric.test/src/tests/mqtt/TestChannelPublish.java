@@ -0,0 +1,108 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.mqtt;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.core.io.MessageQoS;
+import fabric.core.io.OutputTopic;
+import fabric.core.properties.ConfigProperties;
+import tests.mqtt.ChannelFixture.TestChannel;
+
+/**
+ * Tests for the bounds on the time that channel writes wait for MQTT publications to complete.
+ */
+public class TestChannelPublish {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private static final OutputTopic TARGET = new OutputTopic("test/target");
+
+    @Test
+    public void synchronousWritesFailWhenDeliveryTimesOut() throws Exception {
+
+        TestChannel channel = ChannelFixture.open("test/sync", ConfigProperties.MQTT_PUBLISH_TIMEOUT, "200");
+
+        try {
+
+            long start = System.currentTimeMillis();
+
+            try {
+                channel.write("m".getBytes(), TARGET, MessageQoS.RELIABLE);
+                Assert.fail("Write completed without delivery");
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("Timed out"));
+            }
+
+            long elapsed = System.currentTimeMillis() - start;
+            Assert.assertTrue("Waited " + elapsed + " ms", elapsed >= 150 && elapsed < 5000);
+
+        } finally {
+
+            channel.close();
+
+        }
+    }
+
+    @Test
+    public void synchronousWritesReturnOnceDelivered() throws Exception {
+
+        final TestChannel channel = ChannelFixture.open("test/delivered", ConfigProperties.MQTT_PUBLISH_TIMEOUT,
+                "10000");
+
+        /* Complete the publication from another thread, as the MQTT client does */
+        Thread client = new Thread() {
+
+            @Override
+            public void run() {
+
+                while (channel.endPoint.deliveries.isEmpty()) {
+                    Thread.yield();
+                }
+                channel.endPoint.deliveries.get(0).complete(null);
+            }
+        };
+        client.start();
+
+        try {
+
+            channel.write("m".getBytes(), TARGET, MessageQoS.RELIABLE);
+            client.join();
+
+        } finally {
+
+            channel.close();
+
+        }
+    }
+
+    @Test
+    public void asynchronousWritesDoNotWait() throws Exception {
+
+        TestChannel channel = ChannelFixture.open("test/async", ConfigProperties.MQTT_PUBLISH_TIMEOUT, "10000");
+
+        try {
+
+            CompletableFuture<Void> delivery = channel.writeAsync("m".getBytes(), TARGET, MessageQoS.RELIABLE);
+            Assert.assertFalse(delivery.isDone());
+
+            channel.endPoint.deliveries.get(0).completeExceptionally(new IOException("lost"));
+            Assert.assertTrue(delivery.isCompletedExceptionally());
+
+        } finally {
+
+            channel.close();
+
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.mqtt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.core.io.ICallback;
+import fabric.core.io.Message;
+import fabric.core.properties.ConfigProperties;
+import tests.mqtt.ChannelFixture.TestChannel;
+
+/**
+ * Tests for the action taken when a message arrives on a channel whose dispatch queue is full.
+ * <p>
+ * Each test holds the first message in the callback, fills the queue (of two messages), then sends more.
+ * </p>
+ */
+public class TestDispatchPolicies {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /**
+     * A callback that records the messages it is passed, holding each one until a gate is opened.
+     */
+    private static class GatedCallback implements ICallback {
+
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public void startCallback(Object arg1) {
+
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+
+            started.countDown();
+
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            received.add(new String(message.data));
+        }
+
+        @Override
+        public void cancelCallback(Object arg1) {
+
+        }
+    }
+
+    /**
+     * Opens a channel with a queue of two messages, and holds the first message in its callback.
+     */
+    private static TestChannel fill(GatedCallback callback, String policy, String... settings) throws Exception {
+
+        List<String> config = new ArrayList<String>(Arrays.asList(ConfigProperties.MQTT_DISPATCH_QUEUE_LIMIT, "2",
+                ConfigProperties.MQTT_DISPATCH_QUEUE_POLICY, policy));
+        config.addAll(Arrays.asList(settings));
+
+        TestChannel channel = ChannelFixture.open("test/" + policy, config.toArray(new String[config.size()]));
+        channel.read(callback);
+
+        Assert.assertTrue(channel.deliver("m0".getBytes()));
+        Assert.assertTrue(callback.started.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(channel.deliver("m1".getBytes()));
+        Assert.assertTrue(channel.deliver("m2".getBytes()));
+
+        return channel;
+    }
+
+    /**
+     * Releases the callback and waits for the channel to deliver the expected messages.
+     */
+    private static void drain(TestChannel channel, GatedCallback callback, String... expected) throws Exception {
+
+        callback.gate.countDown();
+
+        for (int wait = 0; wait < 1000 && callback.received.size() < expected.length; wait++) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(Arrays.asList(expected), callback.received);
+        Assert.assertEquals(0, channel.getDispatchQueueDepth());
+        channel.close();
+    }
+
+    @Test
+    public void dropNewestDiscardsArrivingMessages() throws Exception {
+
+        GatedCallback callback = new GatedCallback();
+        TestChannel channel = fill(callback, "dropNewest");
+
+        Assert.assertFalse(channel.deliver("m3".getBytes()));
+        Assert.assertEquals(1, channel.getDroppedCount());
+
+        drain(channel, callback, "m0", "m1", "m2");
+    }
+
+    @Test
+    public void dropOldestDiscardsQueuedMessages() throws Exception {
+
+        GatedCallback callback = new GatedCallback();
+        TestChannel channel = fill(callback, "dropOldest");
+
+        Assert.assertTrue(channel.deliver("m3".getBytes()));
+        Assert.assertEquals(1, channel.getDroppedCount());
+
+        drain(channel, callback, "m0", "m2", "m3");
+    }
+
+    @Test
+    public void spillDeliversOverflowedMessagesInOrder() throws Exception {
+
+        GatedCallback callback = new GatedCallback();
+        TestChannel channel = fill(callback, "spill");
+
+        Assert.assertTrue(channel.deliver("m3".getBytes()));
+        Assert.assertTrue(channel.deliver("m4".getBytes()));
+        Assert.assertEquals(2, channel.getSpilledCount());
+        Assert.assertEquals(4, channel.getDispatchQueueDepth());
+
+        drain(channel, callback, "m0", "m1", "m2", "m3", "m4");
+    }
+
+    @Test
+    public void spillDiscardsMessagesOnceTheFileIsFull() throws Exception {
+
+        /* Room for one spilled message (8 + 4 + 10 (topic) + 4 + 2 (data) = 28 bytes) */
+        GatedCallback callback = new GatedCallback();
+        TestChannel channel = fill(callback, "spill", ConfigProperties.MQTT_DISPATCH_SPILL_LIMIT, "40");
+
+        Assert.assertTrue(channel.deliver("m3".getBytes()));
+        Assert.assertFalse(channel.deliver("m4".getBytes()));
+        Assert.assertEquals(1, channel.getSpilledCount());
+        Assert.assertEquals(1, channel.getDroppedCount());
+
+        drain(channel, callback, "m0", "m1", "m2", "m3");
+    }
+
+    @Test
+    public void blockWaitsForALimitedTimeThenSpills() throws Exception {
+
+        GatedCallback callback = new GatedCallback();
+        TestChannel channel = fill(callback, "block", ConfigProperties.MQTT_DISPATCH_BLOCK_TIMEOUT, "200");
+
+        long start = System.currentTimeMillis();
+        Assert.assertTrue(channel.deliver("m3".getBytes()));
+        long elapsed = System.currentTimeMillis() - start;
+
+        Assert.assertTrue("Waited " + elapsed + " ms", elapsed >= 150 && elapsed < 5000);
+        Assert.assertEquals(1, channel.getSpilledCount());
+        Assert.assertTrue(channel.getTotalBlockedTime() >= 150);
+
+        /* Once messages are overflowing, later messages follow them without waiting */
+        start = System.currentTimeMillis();
+        Assert.assertTrue(channel.deliver("m4".getBytes()));
+        Assert.assertTrue(System.currentTimeMillis() - start < 150);
+        Assert.assertEquals(2, channel.getSpilledCount());
+
+        drain(channel, callback, "m0", "m1", "m2", "m3", "m4");
+    }
+
+    @Test
+    public void blockQueuesMessagesWhenSpaceBecomesAvailable() throws Exception {
+
+        final GatedCallback callback = new GatedCallback();
+        TestChannel channel = fill(callback, "block", ConfigProperties.MQTT_DISPATCH_BLOCK_TIMEOUT, "10000");
+
+        /* Release the callback while the channel is waiting for space */
+        new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                }
+                callback.gate.countDown();
+            }
+        }.start();
+
+        Assert.assertTrue(channel.deliver("m3".getBytes()));
+        Assert.assertEquals(0, channel.getSpilledCount());
+
+        drain(channel, callback, "m0", "m1", "m2", "m3");
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.mqtt;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import fabric.core.io.Message;
+import fabric.core.io.mqtt.SpillQueue;
+
+/**
+ * Tests for the file-backed queue holding messages that overflow a channel's dispatch queue.
+ */
+public class TestSpillQueue {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private File directory = null;
+
+    @Before
+    public void createDirectory() throws Exception {
+
+        directory = File.createTempFile("fabric", ".test");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdir());
+    }
+
+    @After
+    public void deleteDirectory() {
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static Message message(String topic, String data) {
+
+        Message message = new Message();
+        message.topic = topic;
+        message.data = (data != null) ? data.getBytes() : null;
+        return message;
+    }
+
+    @Test
+    public void messagesAreReturnedInOrder() throws Exception {
+
+        SpillQueue queue = new SpillQueue(directory, "test-", 0);
+
+        /* No file is created until a message is spilled */
+        Assert.assertEquals(0, directory.listFiles().length);
+        Assert.assertNull(queue.poll(null));
+
+        for (int m = 0; m < 5; m++) {
+            Assert.assertTrue(queue.append(message("t/" + m, "m" + m), 1000 + m));
+        }
+
+        Assert.assertEquals(5, queue.size());
+        Assert.assertEquals(1, directory.listFiles().length);
+
+        long[] queuedAt = new long[1];
+
+        for (int m = 0; m < 5; m++) {
+            Message next = queue.poll(queuedAt);
+            Assert.assertEquals("t/" + m, next.topic);
+            Assert.assertEquals("m" + m, new String(next.data));
+            Assert.assertEquals(1000 + m, queuedAt[0]);
+        }
+
+        Assert.assertNull(queue.poll(queuedAt));
+        Assert.assertEquals(0, queue.size());
+
+        queue.close();
+        Assert.assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void nullAndEmptyFieldsArePreserved() throws Exception {
+
+        SpillQueue queue = new SpillQueue(directory, "test-", 0);
+
+        queue.append(message(null, null), 0);
+        queue.append(message("", ""), 0);
+
+        Message first = queue.poll(null);
+        Assert.assertNull(first.topic);
+        Assert.assertNull(first.data);
+
+        Message second = queue.poll(null);
+        Assert.assertEquals("", second.topic);
+        Assert.assertEquals(0, second.data.length);
+
+        queue.close();
+    }
+
+    @Test
+    public void theFileIsLimitedInSizeAndReusedOnceEmpty() throws Exception {
+
+        /* Each record is 8 (time) + 4 + 3 (topic) + 4 + 4 (data) = 23 bytes */
+        SpillQueue queue = new SpillQueue(directory, "test-", 50);
+
+        Assert.assertTrue(queue.append(message("t/a", "m0.."), 0));
+        Assert.assertTrue(queue.append(message("t/b", "m1.."), 0));
+        Assert.assertEquals(46, queue.length());
+
+        /* The next message would take the file over its limit */
+        Assert.assertFalse(queue.append(message("t/c", "m2.."), 0));
+        Assert.assertEquals(2, queue.size());
+
+        /* Reading does not free space until the queue is empty... */
+        Assert.assertEquals("t/a", queue.poll(null).topic);
+        Assert.assertFalse(queue.append(message("t/c", "m2.."), 0));
+
+        /* ...at which point the file is reused from the beginning */
+        Assert.assertEquals("t/b", queue.poll(null).topic);
+        Assert.assertEquals(0, queue.length());
+        Assert.assertTrue(queue.append(message("t/c", "m2.."), 0));
+        Assert.assertEquals("t/c", queue.poll(null).topic);
+
+        queue.close();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.mqtt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.core.io.mqtt.TopicTrie;
+
+/**
+ * Tests for the topic trie used to match inbound MQTT topics to channel subscriptions.
+ */
+public class TestTopicTrie {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /**
+     * Builds a trie in which each filter is associated with itself.
+     */
+    private static TopicTrie<String> trie(String... filters) {
+
+        TopicTrie<String> trie = new TopicTrie<String>();
+
+        for (String filter : filters) {
+            trie.put(filter, filter);
+        }
+
+        return trie;
+    }
+
+    /**
+     * Asserts that a topic matches exactly the specified filters (in any order).
+     */
+    private static void assertMatches(TopicTrie<String> trie, String topic, String... expected) {
+
+        List<String> matches = new ArrayList<String>(trie.match(topic));
+        List<String> expectedMatches = new ArrayList<String>(Arrays.asList(expected));
+        Collections.sort(matches);
+        Collections.sort(expectedMatches);
+        Assert.assertEquals("Filters matching [" + topic + "]", expectedMatches, matches);
+    }
+
+    @Test
+    public void topicsMatchIdenticalFilters() {
+
+        TopicTrie<String> trie = trie("$fabric/n0/$feeds", "$fabric/n0/$feeds/$bus", "$fabric/n1/$feeds");
+
+        assertMatches(trie, "$fabric/n0/$feeds", "$fabric/n0/$feeds");
+        assertMatches(trie, "$fabric/n0/$feeds/$bus", "$fabric/n0/$feeds/$bus");
+
+        /* Neither a parent nor a child of a filter matches it */
+        assertMatches(trie, "$fabric/n0");
+        assertMatches(trie, "$fabric/n0/$feeds/$bus/p");
+        assertMatches(trie, "$fabric/n2/$feeds");
+    }
+
+    @Test
+    public void singleLevelWildcardsMatchOneLevel() {
+
+        TopicTrie<String> trie = trie("a/+", "a/+/c", "+/b/c", "+");
+
+        assertMatches(trie, "a/b", "a/+");
+        assertMatches(trie, "a/b/c", "a/+/c", "+/b/c");
+        assertMatches(trie, "x/b/c", "+/b/c");
+        assertMatches(trie, "a", "+");
+
+        /* An empty level is still a level */
+        assertMatches(trie, "a/", "a/+");
+
+        assertMatches(trie, "a/b/c/d");
+        assertMatches(trie, "a/b/d");
+    }
+
+    @Test
+    public void multiLevelWildcardsMatchTheParentAndAllDescendants() {
+
+        TopicTrie<String> trie = trie("a/#", "a/+/#", "x/y");
+
+        assertMatches(trie, "a", "a/#");
+        assertMatches(trie, "a/b", "a/#", "a/+/#");
+        assertMatches(trie, "a/b/c/d", "a/#", "a/+/#");
+        assertMatches(trie, "b");
+
+        trie.put("#", "#");
+        assertMatches(trie, "x/y", "#", "x/y");
+        assertMatches(trie, "b", "#");
+    }
+
+    @Test
+    public void putReplacesTheValueOfAFilter() {
+
+        TopicTrie<String> trie = trie("a/b");
+        trie.put("a/b", "replaced");
+
+        assertMatches(trie, "a/b", "replaced");
+    }
+
+    @Test
+    public void removeLeavesOtherFiltersInPlace() {
+
+        TopicTrie<String> trie = trie("a", "a/b", "a/b/c", "a/+", "a/#");
+
+        /* Removing a filter that has longer filters beneath it */
+        trie.remove("a/b");
+        assertMatches(trie, "a/b", "a/+", "a/#");
+        assertMatches(trie, "a/b/c", "a/b/c", "a/#");
+
+        /* Removing a wildcard filter */
+        trie.remove("a/#");
+        assertMatches(trie, "a", "a");
+        assertMatches(trie, "a/b/c", "a/b/c");
+
+        /* Removing filters that are not present */
+        trie.remove("a/b");
+        trie.remove("x/y/z");
+        trie.remove("a/b/c/d");
+        assertMatches(trie, "a/b/c", "a/b/c");
+
+        /* Removing the last filters, and adding one back */
+        trie.remove("a");
+        trie.remove("a/+");
+        trie.remove("a/b/c");
+        assertMatches(trie, "a");
+        assertMatches(trie, "a/b/c");
+
+        trie.put("a/b/c", "a/b/c");
+        assertMatches(trie, "a/b/c", "a/b/c");
+    }
+
+    @Test
+    public void lookupsSeeStableFiltersWhileOthersChange() throws Exception {
+
+        final TopicTrie<String> trie = trie("$fabric/+/$feeds/#");
+        final AtomicBoolean isRunning = new AtomicBoolean(true);
+        final AtomicInteger updates = new AtomicInteger(0);
+
+        /* Repeatedly add and remove filters that share levels with the stable filter */
+        Thread updater = new Thread() {
+
+            @Override
+            public void run() {
+
+                while (isRunning.get()) {
+                    int n = updates.incrementAndGet() % 50;
+                    trie.put("$fabric/n" + n + "/$feeds/p", "n" + n);
+                    trie.put("$fabric/+/$feeds", "parent");
+                    trie.remove("$fabric/n" + n + "/$feeds/p");
+                    trie.remove("$fabric/+/$feeds");
+                }
+            }
+        };
+        updater.start();
+
+        try {
+
+            for (int m = 0; m < 100000 || updates.get() < 1000; m++) {
+                Assert.assertTrue(trie.match("$fabric/n" + (m % 50) + "/$feeds/p").contains("$fabric/+/$feeds/#"));
+            }
+
+        } finally {
+
+            isRunning.set(false);
+            updater.join();
+
+        }
+
+        assertMatches(trie, "$fabric/n0/$feeds/p", "$fabric/+/$feeds/#");
+    }
+}
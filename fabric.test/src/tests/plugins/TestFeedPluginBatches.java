@@ -0,0 +1,217 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.plugins;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.Fabric;
+import fabric.LocalConfig;
+import fabric.bus.messages.IFabricMessage;
+import fabric.bus.messages.IFeedMessage;
+import fabric.bus.messages.impl.FeedMessage;
+import fabric.bus.plugins.IBatchFeedPlugin;
+import fabric.bus.plugins.IFeedPlugin;
+import fabric.bus.plugins.IFeedPluginHandler;
+import fabric.bus.plugins.IPluginConfig;
+import fabric.bus.plugins.impl.FeedPluginConfig;
+import fabric.bus.plugins.impl.FeedPluginDispatcher;
+import fabric.bus.plugins.impl.FeedPluginHandler;
+import fabric.bus.routing.IRouting;
+
+/**
+ * Tests for the dispatch of batches of feed messages to plug-ins, in particular when a plug-in fails part of the way
+ * through a batch.
+ */
+public class TestFeedPluginBatches {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /** The UIDs of the messages processed by the plug-ins, in the order in which they were processed */
+    private static final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+
+    @BeforeClass
+    public static void setConfig() throws Exception {
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        writer.write("fabric.node=n0\n");
+        writer.close();
+        Fabric.setConfig(new LocalConfig(configFile.getPath()));
+    }
+
+    @Before
+    public void reset() {
+
+        processed.clear();
+    }
+
+    /**
+     * A batch plug-in that discards the messages it processes, failing after the second message of a batch.
+     */
+    public static class FailingPlugin implements IBatchFeedPlugin {
+
+        @Override
+        public void startPlugin(IPluginConfig pluginConfig) {
+
+        }
+
+        @Override
+        public void stopPlugin() {
+
+        }
+
+        @Override
+        public void handleControlMessage(IFabricMessage message) {
+
+        }
+
+        @Override
+        public int handleFeedMessage(IFeedMessage message, IRouting routing, int pluginAction) {
+
+            processed.add(message.getUID());
+            return IFeedPlugin.ACTION_DISCARD;
+        }
+
+        @Override
+        public int[] handleFeedMessages(IFeedMessage[] messages, IRouting routing, int[] pluginActions) {
+
+            for (int m = 0; m < messages.length; m++) {
+
+                if (m == 2) {
+                    throw new IllegalStateException("Failed part of the way through the batch");
+                }
+
+                pluginActions[m] = handleFeedMessage(messages[m], routing, pluginActions[m]);
+            }
+
+            return pluginActions;
+        }
+    }
+
+    /**
+     * A plug-in handler that records the messages it is passed, optionally failing after the second message of a batch.
+     */
+    private static class RecordingHandler implements IFeedPluginHandler {
+
+        private final String name;
+
+        private final boolean fail;
+
+        RecordingHandler(String name, boolean fail) {
+
+            this.name = name;
+            this.fail = fail;
+        }
+
+        @Override
+        public void start() {
+
+        }
+
+        @Override
+        public void stop() {
+
+        }
+
+        @Override
+        public IPluginConfig pluginConfig() {
+
+            FeedPluginConfig config = new FeedPluginConfig();
+            config.setName(name);
+            return config;
+        }
+
+        @Override
+        public int run(IFeedMessage message, IRouting routing, int pluginAction) {
+
+            processed.add(name + ":" + message.getUID());
+            return pluginAction;
+        }
+
+        @Override
+        public int[] run(IFeedMessage[] messages, IRouting routing, int[] pluginActions) {
+
+            int[] actions = pluginActions.clone();
+
+            for (int m = 0; m < messages.length; m++) {
+
+                if (fail && m == 2) {
+                    throw new IllegalStateException("Failed part of the way through the batch");
+                }
+
+                actions[m] = run(messages[m], routing, actions[m]);
+            }
+
+            return actions;
+        }
+    }
+
+    private static IFeedMessage[] batch(int size) {
+
+        IFeedMessage[] messages = new IFeedMessage[size];
+
+        for (int m = 0; m < size; m++) {
+            messages[m] = new FeedMessage();
+            messages[m].setUID("m" + m);
+        }
+
+        return messages;
+    }
+
+    private static int[] continueAll(int size) {
+
+        int[] actions = new int[size];
+        Arrays.fill(actions, IFeedPlugin.ACTION_CONTINUE);
+        return actions;
+    }
+
+    @Test
+    public void aFailedBatchIsNotReplayedByTheDispatcher() throws Exception {
+
+        FeedPluginDispatcher dispatcher = new FeedPluginDispatcher();
+        dispatcher.register(new RecordingHandler("failing", true));
+        dispatcher.register(new RecordingHandler("next", false));
+
+        int[] actions = dispatcher.dispatch(batch(4), null, continueAll(4));
+
+        /* The messages processed before the failure are not processed again, and later plug-ins still run */
+        Assert.assertEquals(Arrays.asList("failing:m0", "failing:m1", "next:m0", "next:m1", "next:m2",
+                "next:m3"), processed);
+        Assert.assertArrayEquals(continueAll(4), actions);
+    }
+
+    @Test
+    public void aFailedBatchPluginIsNotReplayedByItsHandler() throws Exception {
+
+        FeedPluginConfig config = new FeedPluginConfig();
+        config.setName(FailingPlugin.class.getName());
+        FeedPluginHandler handler = new FeedPluginHandler(config);
+        handler.start();
+
+        FeedPluginDispatcher dispatcher = new FeedPluginDispatcher();
+        dispatcher.register(handler);
+
+        int[] actions = dispatcher.dispatch(batch(4), null, continueAll(4));
+
+        /* Each message is processed at most once, and all keep the action they had before the failed invocation */
+        Assert.assertEquals(Arrays.asList("m0", "m1"), processed);
+        Assert.assertArrayEquals(continueAll(4), actions);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import fabric.Fabric;
+import fabric.LocalConfig;
+import fabric.core.properties.ConfigProperties;
+import fabric.core.properties.Properties;
+import fabric.registry.persistence.PersistenceManager;
+import fabric.session.RegistryDescriptor;
+
+/**
+ * Connects the Registry classes to an in-memory Derby database holding the tables used by the Registry tests.
+ * <p>
+ * The write-behind queue and the query cache read their configuration once, so every Registry test shares the
+ * configuration set here: write-behind is enabled with no periodic writes, and query results are cached.
+ * </p>
+ */
+public class RegistryFixture {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /** The URL of the test database. */
+    private static final String URL = "jdbc:derby:memory:fabricRegistryTest;create=true";
+
+    /** The maximum number of cached query results. */
+    static final int QUERY_CACHE_SIZE = 8;
+
+    /** The tables used by the tests. */
+    private static final String[] TABLES = {
+            "CREATE TABLE FABRIC.DEFAULT_CONFIG (NAME VARCHAR(32672) NOT NULL, VALUE VARCHAR(32672),"
+                    + " PRIMARY KEY (NAME))",
+            "CREATE TABLE FABRIC.NODE_CONFIG (NODE_ID VARCHAR(32672) NOT NULL, NAME VARCHAR(32672) NOT NULL,"
+                    + " VALUE VARCHAR(32672), PRIMARY KEY (NODE_ID, NAME))",
+            "CREATE TABLE FABRIC.TASKS (TASK_ID VARCHAR(32672) NOT NULL, PRIORITY INTEGER,"
+                    + " AFFILIATION VARCHAR(32672), DESCRIPTION VARCHAR(32672), TASK_DETAIL VARCHAR(32672),"
+                    + " TASK_DETAIL_URI VARCHAR(32672), PRIMARY KEY (TASK_ID))",
+            "CREATE TABLE FABRIC.PLATFORMS (PLATFORM_ID VARCHAR(32672) NOT NULL, TYPE_ID VARCHAR(32672) NOT NULL,"
+                    + " NODE_ID VARCHAR(32672), AFFILIATION VARCHAR(32672), CREDENTIALS VARCHAR(32672),"
+                    + " READINESS VARCHAR(32672), AVAILABILITY VARCHAR(32672), LATITUDE DOUBLE, LONGITUDE DOUBLE,"
+                    + " ALTITUDE DOUBLE, BEARING DOUBLE, VELOCITY DOUBLE, DESCRIPTION VARCHAR(32672),"
+                    + " ATTRIBUTES VARCHAR(32672), ATTRIBUTES_URI VARCHAR(32672), PRIMARY KEY (PLATFORM_ID))",
+            "CREATE TABLE FABRIC.NODES (NODE_ID VARCHAR(32672) NOT NULL, TYPE_ID VARCHAR(32672) NOT NULL,"
+                    + " AFFILIATION VARCHAR(32672), CREDENTIALS VARCHAR(32672), READINESS VARCHAR(32672),"
+                    + " AVAILABILITY VARCHAR(32672), LATITUDE DOUBLE, LONGITUDE DOUBLE, ALTITUDE DOUBLE,"
+                    + " BEARING DOUBLE, VELOCITY DOUBLE, DESCRIPTION VARCHAR(32672), ATTRIBUTES VARCHAR(32672),"
+                    + " ATTRIBUTES_URI VARCHAR(32672), PRIMARY KEY (NODE_ID))",
+            "CREATE TABLE FABRIC.NODE_PLUGINS (NODE_ID VARCHAR(32672) NOT NULL, NAME VARCHAR(32672) NOT NULL,"
+                    + " FAMILY VARCHAR(32672) NOT NULL, TYPE VARCHAR(32672) NOT NULL, ORDINAL INTEGER NOT NULL,"
+                    + " DESCRIPTION VARCHAR(32672), ARGUMENTS VARCHAR(32672),"
+                    + " PRIMARY KEY (NODE_ID, ORDINAL, TYPE, FAMILY, NAME))",
+            "CREATE TABLE FABRIC.ACTORS (ACTOR_ID VARCHAR(32672) NOT NULL, TYPE_ID VARCHAR(32672) NOT NULL,"
+                    + " AFFILIATION VARCHAR(32672), ROLES VARCHAR(32672), CREDENTIALS VARCHAR(32672),"
+                    + " DESCRIPTION VARCHAR(32672), ATTRIBUTES VARCHAR(32672), ATTRIBUTES_URI VARCHAR(32672),"
+                    + " PRIMARY KEY (ACTOR_ID))",
+            "CREATE TABLE FABRIC.BEARERS (BEARER_ID VARCHAR(32672) NOT NULL, AVAILABLE VARCHAR(7) NOT NULL,"
+                    + " DESCRIPTION VARCHAR(32672), ATTRIBUTES VARCHAR(32672), ATTRIBUTES_URI VARCHAR(32672),"
+                    + " PRIMARY KEY (BEARER_ID))",
+            "CREATE TABLE FABRIC.ROUTES (START_NODE_ID VARCHAR(32672) NOT NULL, END_NODE_ID VARCHAR(32672) NOT NULL,"
+                    + " ORDINAL SMALLINT NOT NULL, ROUTE VARCHAR(32672) NOT NULL,"
+                    + " PRIMARY KEY (START_NODE_ID, END_NODE_ID, ORDINAL))"};
+
+    /** Flag indicating if the database has been set up. */
+    private static boolean isStarted = false;
+
+    /**
+     * Creates the test database and connects the Registry to it, if this has not already been done.
+     *
+     * @throws Exception
+     */
+    public static synchronized void start() throws Exception {
+
+        if (isStarted) {
+            return;
+        }
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        writer.write("fabric.node=a\n");
+        writer.write(ConfigProperties.REGISTRY_TYPE + "=" + RegistryDescriptor.TYPE_SINGLETON + "\n");
+        writer.write(ConfigProperties.REGISTRY_WRITE_BEHIND + "=true\n");
+        writer.write(ConfigProperties.REGISTRY_WRITE_BEHIND_INTERVAL + "=0\n");
+        writer.write(ConfigProperties.REGISTRY_WRITE_BEHIND_MAX_PENDING + "=1000\n");
+        writer.write(ConfigProperties.REGISTRY_QUERY_CACHE + "=true\n");
+        writer.write(ConfigProperties.REGISTRY_QUERY_CACHE_SIZE + "=" + QUERY_CACHE_SIZE + "\n");
+        writer.write(ConfigProperties.REGISTRY_QUERY_CACHE_TTL + "=0\n");
+        writer.write(ConfigProperties.REGISTRY_QUERY_CACHE_TABLES + "=PLATFORMS\n");
+        writer.close();
+        Fabric.setConfig(new LocalConfig(configFile.getPath()));
+
+        Connection connection = DriverManager.getConnection(URL);
+        Statement statement = connection.createStatement();
+        for (String table : TABLES) {
+            statement.execute(table);
+        }
+        statement.close();
+        connection.close();
+
+        PersistenceManager.connect(URL, new Properties(configFile.getPath()));
+
+        isStarted = true;
+    }
+
+    /**
+     * Runs a statement directly against the test database, bypassing the Registry classes (and so the query cache and
+     * the write-behind queue), in the same way as a change made by another node.
+     *
+     * @param sql
+     *            the statement.
+     *
+     * @throws Exception
+     */
+    public static void execute(String sql) throws Exception {
+
+        Connection connection = DriverManager.getConnection(URL);
+        Statement statement = connection.createStatement();
+        statement.execute(sql);
+        statement.close();
+        connection.close();
+    }
+}
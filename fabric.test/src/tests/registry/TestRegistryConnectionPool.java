@@ -0,0 +1,206 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.registry.persistence.impl.RegistryConnectionPool;
+import fabric.registry.persistence.impl.RegistryConnectionPool.PooledConnection;
+
+/**
+ * Tests for the Registry connection pool: acquiring and releasing connections, waiting and timing out when the pool is
+ * full, validating idle connections, and caching prepared statements.
+ */
+public class TestRegistryConnectionPool {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /** The URL of the test database (no tables are needed). */
+    private static final String URL = "jdbc:derby:memory:fabricPoolTest;create=true";
+
+    private RegistryConnectionPool pool = null;
+
+    @After
+    public void closePool() {
+
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void releasedConnectionsAreReused() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 2, 1000, 60000, 8, -1);
+
+        PooledConnection first = pool.acquire();
+        Assert.assertEquals(1, pool.getInUse());
+
+        first.release(false);
+        Assert.assertEquals(0, pool.getInUse());
+
+        PooledConnection second = pool.acquire();
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, pool.getSize());
+
+        /* A second connection is opened while the first is in use */
+        PooledConnection third = pool.acquire();
+        Assert.assertNotSame(second, third);
+        Assert.assertEquals(2, pool.getSize());
+        Assert.assertEquals(2, pool.getPeakInUse());
+
+        second.release(false);
+        third.release(false);
+        Assert.assertEquals(3, pool.getAcquisitions());
+    }
+
+    @Test
+    public void brokenConnectionsAreDiscarded() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 1, 1000, 60000, 8, -1);
+
+        PooledConnection broken = pool.acquire();
+        broken.release(true);
+
+        Assert.assertEquals(0, pool.getSize());
+        Assert.assertEquals(1, pool.getDiscarded());
+        Assert.assertTrue(broken.getConnection().isClosed());
+
+        PooledConnection replacement = pool.acquire();
+        Assert.assertNotSame(broken, replacement);
+        replacement.release(false);
+    }
+
+    @Test
+    public void requestsWaitForAConnectionToBeReleased() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 1, 5000, 60000, 8, -1);
+        final PooledConnection held = pool.acquire();
+
+        new Thread() {
+
+            @Override
+            public void run() {
+
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                }
+
+                held.release(false);
+            }
+        }.start();
+
+        long start = System.currentTimeMillis();
+        PooledConnection next = pool.acquire();
+
+        Assert.assertSame(held, next);
+        Assert.assertTrue(System.currentTimeMillis() - start >= 150);
+        Assert.assertTrue(pool.getMaxWaitTime() >= 150);
+        next.release(false);
+    }
+
+    @Test
+    public void requestsTimeOutWhenThePoolIsFull() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 1, 100, 60000, 8, -1);
+        PooledConnection held = pool.acquire();
+
+        try {
+            pool.acquire();
+            Assert.fail("Expected a timeout");
+        } catch (SQLException e) {
+            Assert.assertEquals("HYT00", e.getSQLState());
+        }
+
+        Assert.assertEquals(1, pool.getTimeouts());
+        Assert.assertEquals(1, pool.getInUse());
+        held.release(false);
+    }
+
+    @Test
+    public void failedIdleConnectionsAreReplacedOnValidation() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 1, 1000, 0, 8, -1);
+
+        PooledConnection failed = pool.acquire();
+        failed.getConnection().close();
+        failed.release(false);
+        Thread.sleep(10);
+
+        /* The idle connection is checked before reuse, found to have failed, and replaced */
+        PooledConnection replacement = pool.acquire();
+        Assert.assertNotSame(failed, replacement);
+        Assert.assertFalse(replacement.getConnection().isClosed());
+        Assert.assertEquals(1, pool.getDiscarded());
+        Assert.assertEquals(1, pool.getSize());
+        replacement.release(false);
+
+        /* Purging keeps connections that are still good */
+        pool.purge();
+        Assert.assertEquals(1, pool.getSize());
+        Assert.assertEquals(1, pool.getDiscarded());
+    }
+
+    @Test
+    public void statementsAreCachedWhenReleased() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 1, 1000, 60000, 1, -1);
+        PooledConnection connection = pool.acquire();
+
+        PreparedStatement first = connection.prepareStatement("values(1)");
+        connection.releaseStatement("values(1)", first, true);
+
+        PreparedStatement second = connection.prepareStatement("values(1)");
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, pool.getStatementCacheHits());
+        Assert.assertEquals(1, pool.getStatementCacheMisses());
+
+        /* A statement in use is not handed out again */
+        PreparedStatement third = connection.prepareStatement("values(1)");
+        Assert.assertNotSame(second, third);
+
+        /* Only one statement is kept per SQL */
+        connection.releaseStatement("values(1)", second, true);
+        connection.releaseStatement("values(1)", third, true);
+        Assert.assertFalse(second.isClosed());
+        Assert.assertTrue(third.isClosed());
+
+        /* Statements that are not reusable are closed */
+        PreparedStatement failed = connection.prepareStatement("values(1)");
+        connection.releaseStatement("values(1)", failed, false);
+        Assert.assertTrue(failed.isClosed());
+
+        connection.release(false);
+    }
+
+    @Test
+    public void leastRecentlyUsedStatementsAreEvicted() throws Exception {
+
+        pool = new RegistryConnectionPool(URL, 1, 1000, 60000, 1, -1);
+        PooledConnection connection = pool.acquire();
+
+        PreparedStatement first = connection.prepareStatement("values(1)");
+        connection.releaseStatement("values(1)", first, true);
+
+        PreparedStatement second = connection.prepareStatement("values(2)");
+        connection.releaseStatement("values(2)", second, true);
+
+        /* The cache holds one statement, so the first is closed */
+        Assert.assertTrue(first.isClosed());
+        Assert.assertFalse(second.isClosed());
+
+        connection.release(false);
+    }
+}
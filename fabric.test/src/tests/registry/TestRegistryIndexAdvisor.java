@@ -0,0 +1,146 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.registry.persistence.impl.RegistryProfiler;
+import fabric.tools.RegistryIndexAdvisor;
+
+/**
+ * Tests for the Registry index advisor, run against profiles written by the Registry profiler.
+ */
+public class TestRegistryIndexAdvisor {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /** The URL of the test database (the user name selects the <code>FABRIC</code> schema). */
+    private static final String URL = "jdbc:derby:memory:fabricAdvisorTest;create=true;user=fabric";
+
+    private static Connection conn = null;
+
+    @BeforeClass
+    public static void createTables() throws Exception {
+
+        conn = DriverManager.getConnection(URL);
+        Statement stmt = conn.createStatement();
+        stmt.execute("CREATE TABLE NODES (NODE_ID VARCHAR(32) NOT NULL PRIMARY KEY, AVAILABILITY VARCHAR(32))");
+        stmt.execute("CREATE TABLE PLATFORMS (PLATFORM_ID VARCHAR(32) NOT NULL PRIMARY KEY, NODE_ID VARCHAR(32),"
+                + " TYPE_ID VARCHAR(32))");
+        stmt.close();
+
+        PreparedStatement nodes = conn.prepareStatement("INSERT INTO NODES VALUES (?, ?)");
+        PreparedStatement platforms = conn.prepareStatement("INSERT INTO PLATFORMS VALUES (?, ?, ?)");
+
+        for (int r = 0; r < 1000; r++) {
+
+            /* Nearly every node is available */
+            nodes.setString(1, "n" + r);
+            nodes.setString(2, (r % 20 == 0) ? "UNAVAILABLE" : "AVAILABLE");
+            nodes.executeUpdate();
+
+            platforms.setString(1, "p" + r);
+            platforms.setString(2, "n" + (r % 50));
+            platforms.setString(3, "t" + (r % 4));
+            platforms.executeUpdate();
+        }
+
+        nodes.close();
+        platforms.close();
+    }
+
+    @AfterClass
+    public static void close() throws Exception {
+
+        conn.close();
+    }
+
+    /**
+     * Profiles a set of statements, and answers the advice for the profile.
+     */
+    private static String advise(String... statements) throws Exception {
+
+        File profileFile = File.createTempFile("fabric", ".profile");
+        profileFile.deleteOnExit();
+        RegistryProfiler profiler = new RegistryProfiler(profileFile, 0);
+
+        for (String statement : statements) {
+            profiler.record(statement, null, 1000000, 1);
+        }
+
+        profiler.write();
+
+        ByteArrayOutputStream advice = new ByteArrayOutputStream();
+        RegistryIndexAdvisor.advise(conn, profileFile, new PrintStream(advice, true));
+        return advice.toString();
+    }
+
+    @Test
+    public void scansOfSelectiveColumnsAreIndexed() throws Exception {
+
+        String advice = advise("SELECT * FROM FABRIC.PLATFORMS WHERE NODE_ID='n1'");
+
+        Assert.assertTrue(advice, advice.contains("(1 queries analysed)"));
+        Assert.assertTrue(advice, advice.contains("CREATE INDEX FABRIC.PLATFORMS_NODE_ID_IX ON FABRIC.PLATFORMS"
+                + " (NODE_ID);"));
+    }
+
+    @Test
+    public void updatesAndDeletesAreAnalysedAndProposalsMerged() throws Exception {
+
+        String advice = advise("SELECT * FROM FABRIC.PLATFORMS WHERE NODE_ID='n1'",
+                "DELETE FROM FABRIC.PLATFORMS WHERE NODE_ID='n2' AND TYPE_ID='t2'",
+                "UPDATE FABRIC.PLATFORMS SET TYPE_ID='t0' WHERE NODE_ID='n3'");
+
+        /* The statements share one index, leading with the column they all compare */
+        Assert.assertTrue(advice, advice.contains("(3 queries analysed)"));
+        Assert.assertTrue(advice, advice.contains("PLATFORMS: 3 call(s)"));
+        Assert.assertTrue(advice, advice.contains("CREATE INDEX FABRIC.PLATFORMS_NODE_ID_TYPE_ID_IX ON"
+                + " FABRIC.PLATFORMS (NODE_ID, TYPE_ID);"));
+        Assert.assertFalse(advice, advice.contains("PLATFORMS_NODE_ID_IX"));
+
+        /* UPDATE and DELETE statements are only read, so the table is unchanged */
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM PLATFORMS WHERE TYPE_ID='t0'");
+        rs.next();
+        Assert.assertEquals(250, rs.getInt(1));
+        rs.close();
+        stmt.close();
+    }
+
+    @Test
+    public void primaryKeyLookupsAreNotIndexed() throws Exception {
+
+        String advice = advise("SELECT * FROM FABRIC.PLATFORMS WHERE PLATFORM_ID='p1'");
+
+        Assert.assertFalse(advice, advice.contains("CREATE INDEX"));
+        Assert.assertTrue(advice, advice.contains("-- No indexes recommended"));
+    }
+
+    @Test
+    public void unselectiveColumnsAreNotIndexed() throws Exception {
+
+        String advice = advise("SELECT * FROM FABRIC.NODES WHERE AVAILABILITY='AVAILABLE'");
+
+        Assert.assertTrue(advice, advice.contains("-- Not indexed on (AVAILABILITY)"));
+        Assert.assertTrue(advice, advice.contains("-- No indexes recommended"));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.registry.Actor;
+import fabric.registry.ActorFactory;
+import fabric.registry.Bearer;
+import fabric.registry.BearerFactory;
+import fabric.registry.DefaultConfigFactory;
+import fabric.registry.FabricRegistry;
+import fabric.registry.Node;
+import fabric.registry.NodeConfigFactory;
+import fabric.registry.NodeFactory;
+import fabric.registry.NodePluginFactory;
+import fabric.registry.QueryScope;
+import fabric.registry.Route;
+import fabric.registry.RouteFactory;
+import fabric.registry.Task;
+import fabric.registry.TaskFactory;
+
+/**
+ * Tests that the Registry factory queries using bound parameters answer the same rows as the literal SQL that they
+ * replaced, including for <code>null</code> IDs (which the literal SQL matched as the string <code>'null'</code>).
+ * <p>
+ * The literal SQL is run through the predicate query of each factory, built in the same way as the original query.
+ * </p>
+ */
+public class TestRegistryParameters {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    @BeforeClass
+    public static void startRegistry() throws Exception {
+
+        RegistryFixture.start();
+
+        RegistryFixture.execute("INSERT INTO FABRIC.DEFAULT_CONFIG VALUES ('bp.c1', 'v1'), ('null', 'v2')");
+        RegistryFixture.execute("INSERT INTO FABRIC.NODE_CONFIG VALUES ('bp-n1', 'bp.c1', 'v1'),"
+                + " ('bp-n2', 'bp.c1', 'v2'), ('null', 'null', 'v3')");
+        RegistryFixture.execute("INSERT INTO FABRIC.NODES (NODE_ID, TYPE_ID, AVAILABILITY) VALUES"
+                + " ('bp-n1', 'bp-router', 'AVAILABLE'), ('bp-n2', 'bp-router', 'UNAVAILABLE'),"
+                + " ('null', 'bp-sensor', 'AVAILABLE')");
+        RegistryFixture.execute("INSERT INTO FABRIC.NODE_PLUGINS VALUES"
+                + " ('bp-n1', 'p.One', 'f', 'INBOUND', 1, NULL, NULL),"
+                + " ('bp-n1', 'p.Two', 'f', 'OUTBOUND', 2, 'second', 'x=1'),"
+                + " ('bp-n2', 'p.One', 'f', 'INBOUND', 1, NULL, NULL)");
+        RegistryFixture.execute("INSERT INTO FABRIC.TASKS (TASK_ID, PRIORITY, DESCRIPTION) VALUES"
+                + " ('bp-t1', 1, 'first'), ('null', 2, NULL)");
+        RegistryFixture.execute("INSERT INTO FABRIC.ACTORS (ACTOR_ID, TYPE_ID, ROLES) VALUES"
+                + " ('bp-a1', 'bp-user', 'r'), ('bp-a2', 'bp-user', NULL), ('null', 'bp-admin', NULL)");
+        RegistryFixture.execute("INSERT INTO FABRIC.BEARERS (BEARER_ID, AVAILABLE, DESCRIPTION) VALUES"
+                + " ('bp-b1', 'true', 'wifi'), ('null', 'unknown', NULL)");
+        RegistryFixture.execute("INSERT INTO FABRIC.ROUTES VALUES ('bp-r1', 'bp-r2', 1, 'bp-r1,bp-r3,bp-r2'),"
+                + " ('bp-r1', 'bp-r2', 0, 'bp-r1,bp-r2'), ('bp-r2', 'bp-r1', 0, 'bp-r2,bp-r1'),"
+                + " ('*', '*', 999, 'factory=fabric.bus.routing.DynamicRoutingFactory')");
+    }
+
+    /**
+     * Answers the string forms of the objects in a query result, sorted (the <code>equals()</code> methods of Registry
+     * objects do not allow for <code>null</code> columns).
+     */
+    private static List<String> rows(Object... result) {
+
+        ArrayList<String> rows = new ArrayList<String>();
+
+        for (Object row : result) {
+            rows.add(String.valueOf(row));
+        }
+
+        Collections.sort(rows);
+        return rows;
+    }
+
+    /**
+     * Asserts that two query results hold the same objects (in any order), and are not empty.
+     */
+    private static void assertSameRows(Object[] literal, Object[] bound) {
+
+        Assert.assertTrue("Literal query matched nothing", literal.length > 0);
+        Assert.assertEquals(rows(literal), rows(bound));
+    }
+
+    /**
+     * Asserts that a query by ID answers the single row matched by the literal query.
+     */
+    private static void assertSameRow(Object[] literal, Object bound) {
+
+        Assert.assertEquals(1, literal.length);
+        Assert.assertEquals(rows(literal), rows(bound));
+    }
+
+    @Test
+    public void configurationQueriesMatchTheLiteralSql() throws Exception {
+
+        DefaultConfigFactory defaults = FabricRegistry.getDefaultConfigFactory(QueryScope.LOCAL);
+        NodeConfigFactory nodeConfig = FabricRegistry.getNodeConfigFactory(QueryScope.LOCAL);
+
+        for (String name : new String[] {"bp.c1", null}) {
+            assertSameRow(defaults.getDefaultConfig("NAME='" + name + "'"), defaults.getDefaultConfigByName(name));
+        }
+
+        assertSameRow(nodeConfig.getNodeConfig("NODE_ID='bp-n2' and NAME='bp.c1'"), nodeConfig.getNodeConfigByName(
+                "bp-n2", "bp.c1"));
+        assertSameRow(nodeConfig.getNodeConfig("NODE_ID='" + null + "' and NAME='" + null + "'"), nodeConfig
+                .getNodeConfigByName(null, null));
+    }
+
+    @Test
+    public void nodeQueriesMatchTheLiteralSql() throws Exception {
+
+        NodeFactory nodes = FabricRegistry.getNodeFactory(QueryScope.LOCAL);
+        NodePluginFactory plugins = FabricRegistry.getNodePluginFactory(QueryScope.LOCAL);
+
+        for (String id : new String[] {"bp-n1", null}) {
+            Node node = nodes.getNodeById(id);
+            assertSameRow(nodes.getNodes("NODE_ID='" + id + "'"), node);
+        }
+
+        assertSameRows(nodes.getNodes("TYPE_ID='bp-router'"), nodes.getNodesByType("bp-router"));
+        assertSameRows(plugins.getNodePlugins("NODE_ID='bp-n1'"), plugins.getNodePluginsByNode("bp-n1"));
+        Assert.assertEquals(2, plugins.getNodePluginsByNode("bp-n1").length);
+    }
+
+    @Test
+    public void taskQueriesMatchTheLiteralSql() throws Exception {
+
+        TaskFactory tasks = FabricRegistry.getTaskFactory(QueryScope.LOCAL);
+
+        for (String id : new String[] {"bp-t1", null}) {
+            Task task = tasks.getTaskById(id);
+            assertSameRow(tasks.getTasksWithPredicates("TASK_ID='" + id + "'"), task);
+        }
+    }
+
+    @Test
+    public void actorQueriesMatchTheLiteralSql() throws Exception {
+
+        ActorFactory actors = FabricRegistry.getActorFactory(QueryScope.LOCAL);
+
+        for (String id : new String[] {"bp-a1", null}) {
+            Actor actor = actors.getActorById(id);
+            assertSameRow(actors.getActors("ACTOR_ID='" + id + "'"), actor);
+        }
+
+        assertSameRows(actors.getActors("TYPE_ID='bp-user'"), actors.getActorsByType("bp-user"));
+    }
+
+    @Test
+    public void bearerQueriesMatchTheLiteralSql() throws Exception {
+
+        BearerFactory bearers = FabricRegistry.getBearerFactory(QueryScope.LOCAL);
+
+        for (String id : new String[] {"bp-b1", null}) {
+            Bearer bearer = bearers.getBearerById(id);
+            assertSameRow(bearers.getBearers("BEARER_ID='" + id + "'"), bearer);
+        }
+    }
+
+    @Test
+    public void routeQueriesMatchTheLiteralSql() throws Exception {
+
+        RouteFactory routes = FabricRegistry.getRouteFactory(QueryScope.LOCAL);
+
+        assertSameRows(routes.getRoutes("START_NODE_ID='bp-r1'"), routes.getRouteByStartingNodeId("bp-r1"));
+
+        /* Point-to-point queries also match the default route, and answer routes in order */
+        Route[] literal = routes.getRoutes("(START_NODE_ID='bp-r1' and END_NODE_ID='bp-r2')"
+                + " or (START_NODE_ID='*' and END_NODE_ID='*') order by ORDINAL");
+        Route[] bound = routes.getRoutes("bp-r1", "bp-r2");
+
+        Assert.assertEquals(3, literal.length);
+        Assert.assertEquals(literal.length, bound.length);
+
+        for (int r = 0; r < literal.length; r++) {
+            Assert.assertEquals(literal[r].getOrdinal(), bound[r].getOrdinal());
+            Assert.assertEquals(literal[r].getRoute(), bound[r].getRoute());
+        }
+    }
+}
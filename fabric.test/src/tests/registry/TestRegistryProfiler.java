@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.registry.persistence.impl.RegistryProfiler;
+import fabric.registry.persistence.impl.RegistryProfiler.Profile;
+
+/**
+ * Tests for the Registry profiler: grouping statements by shape, the statistics recorded for each shape, and the
+ * format of the profile file read by the index advisor.
+ */
+public class TestRegistryProfiler {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private static final long MILLIS = 1000000;
+
+    private static RegistryProfiler profiler() throws Exception {
+
+        File profileFile = File.createTempFile("fabric", ".profile");
+        profileFile.deleteOnExit();
+        return new RegistryProfiler(profileFile, 0);
+    }
+
+    @Test
+    public void statementsAreGroupedByShape() throws Exception {
+
+        RegistryProfiler profiler = profiler();
+
+        /* Literal and bound forms of the same statement share a shape */
+        profiler.record("SELECT * FROM FABRIC.NODES WHERE NODE_ID='n1'", null, 2 * MILLIS, 1);
+        profiler.record("SELECT *  FROM FABRIC.NODES\n WHERE NODE_ID='n2'", null, 5 * MILLIS, 0);
+        profiler.record("SELECT * FROM FABRIC.NODES WHERE NODE_ID=?", new Object[] {"n3"}, 3 * MILLIS, 1);
+        profiler.record("DELETE FROM FABRIC.NODES WHERE NODE_ID='n1' AND 1=1", null, MILLIS, -1);
+
+        List<Profile> profiles = profiler.getProfiles();
+        Assert.assertEquals(2, profiles.size());
+
+        /* The most expensive shape is first */
+        Profile select = profiles.get(0);
+        Assert.assertEquals("SELECT * FROM FABRIC.NODES WHERE NODE_ID=?", select.getShape());
+        Assert.assertEquals("SELECT * FROM FABRIC.NODES WHERE NODE_ID='n3'", select.getSample());
+        Assert.assertEquals(3, select.getCalls());
+        Assert.assertEquals(10 * MILLIS, select.getTotalNanos());
+        Assert.assertEquals(5 * MILLIS, select.getMaxNanos());
+        Assert.assertEquals(2, select.getRows());
+
+        /* Numeric literals are replaced too, and unknown row counts are not added */
+        Profile delete = profiles.get(1);
+        Assert.assertEquals("DELETE FROM FABRIC.NODES WHERE NODE_ID=? AND ?=?", delete.getShape());
+        Assert.assertEquals(0, delete.getRows());
+
+        profiler.reset();
+        Assert.assertTrue(profiler.getProfiles().isEmpty());
+    }
+
+    @Test
+    public void theProfileIsWrittenAsTabSeparatedLines() throws Exception {
+
+        File profileFile = File.createTempFile("fabric", ".profile");
+        profileFile.deleteOnExit();
+        RegistryProfiler profiler = new RegistryProfiler(profileFile, 0);
+
+        profiler.record("SELECT * FROM FABRIC.PLATFORMS WHERE NODE_ID=?", new Object[] {"n1"}, 1500000, 4);
+        profiler.record("SELECT * FROM FABRIC.PLATFORMS WHERE NODE_ID=?", new Object[] {"n2"}, 500000, 2);
+
+        /* Times are written in the same form whatever the default locale */
+        Locale locale = Locale.getDefault();
+
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            profiler.write();
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        List<String> lines = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new FileReader(profileFile));
+
+        try {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                lines.add(line);
+            }
+        } finally {
+            in.close();
+        }
+
+        Assert.assertEquals(2, lines.size());
+        Assert.assertTrue(lines.get(0).startsWith("#"));
+        Assert.assertArrayEquals(new String[] {"2", "2.000", "1.500", "6",
+                "SELECT * FROM FABRIC.PLATFORMS WHERE NODE_ID=?", "SELECT * FROM FABRIC.PLATFORMS WHERE NODE_ID='n2'"},
+                lines.get(1).split("\t"));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.registry.FabricRegistry;
+import fabric.registry.Platform;
+import fabric.registry.PlatformFactory;
+import fabric.registry.QueryScope;
+import fabric.registry.impl.RegistryQueryCache;
+
+/**
+ * Tests for the Registry query cache: hits, invalidation by local updates and by Registry trigger notifications, and
+ * eviction of the least recently used results.
+ */
+public class TestRegistryQueryCache {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private final RegistryQueryCache cache = RegistryQueryCache.getInstance();
+
+    private final PlatformFactory platforms = FabricRegistry.getPlatformFactory(QueryScope.LOCAL);
+
+    @BeforeClass
+    public static void startRegistry() throws Exception {
+
+        RegistryFixture.start();
+    }
+
+    /**
+     * Saves a platform, and caches the result of querying for it.
+     *
+     * @param id
+     *            the platform ID.
+     *
+     * @return the cached platform.
+     */
+    private Platform cachePlatform(String id) throws Exception {
+
+        Platform platform = platforms.createPlatform(id, "type", "a");
+        platform.setAvailability("AVAILABLE");
+        Assert.assertTrue(FabricRegistry.save(platform));
+        FabricRegistry.flush();
+
+        return platforms.getPlatformById(id);
+    }
+
+    /**
+     * Builds a notification in the form published by the Registry triggers for the platforms table.
+     */
+    private static String notification(String platformId, String action) {
+
+        return String.format("{\"table\":\"PLATFORMS\",\"key\":\"PLATFORM_ID:TYPE_ID\",\"id\":\"%s:type\","
+                + "\"action\":\"%s\"}", platformId, action);
+    }
+
+    @Test
+    public void repeatedQueriesAreAnsweredFromTheCache() throws Exception {
+
+        cachePlatform("qc-hit");
+        long hits = cache.getHits();
+
+        Platform platform = platforms.getPlatformById("qc-hit");
+        Assert.assertEquals("AVAILABLE", platform.getAvailability());
+        Assert.assertEquals(hits + 1, cache.getHits());
+
+        /* Callers receive copies, so changing a result does not change the cache */
+        platform.setAvailability("CHANGED");
+        Assert.assertEquals("AVAILABLE", platforms.getPlatformById("qc-hit").getAvailability());
+    }
+
+    @Test
+    public void localUpdatesInvalidateCachedResults() throws Exception {
+
+        Platform platform = cachePlatform("qc-local");
+        long invalidations = cache.getInvalidations();
+
+        platform.setAvailability("UNAVAILABLE");
+        Assert.assertTrue(FabricRegistry.save(platform));
+
+        Assert.assertTrue(cache.getInvalidations() > invalidations);
+        Assert.assertEquals("UNAVAILABLE", platforms.getPlatformById("qc-local").getAvailability());
+
+        Assert.assertTrue(FabricRegistry.delete(platform));
+        Assert.assertNull(platforms.getPlatformById("qc-local"));
+    }
+
+    @Test
+    public void triggerNotificationsInvalidateCachedResults() throws Exception {
+
+        cachePlatform("qc-remote");
+
+        /* A change made elsewhere is not seen until it is reported */
+        RegistryFixture.execute("UPDATE FABRIC.PLATFORMS SET AVAILABILITY='UNAVAILABLE' WHERE PLATFORM_ID='qc-remote'");
+        Assert.assertEquals("AVAILABLE", platforms.getPlatformById("qc-remote").getAvailability());
+
+        cache.registryUpdate(notification("qc-remote", "UPDATE"));
+        Assert.assertEquals("UNAVAILABLE", platforms.getPlatformById("qc-remote").getAvailability());
+    }
+
+    @Test
+    public void notificationsOnlyInvalidateMatchingRows() throws Exception {
+
+        /* Save both before caching either, as a local insert may invalidate every result from the table */
+        for (String id : new String[] {"qc-kept", "qc-changed"}) {
+            Platform platform = platforms.createPlatform(id, "type", "a");
+            Assert.assertTrue(FabricRegistry.save(platform));
+        }
+        FabricRegistry.flush();
+        platforms.getPlatformById("qc-kept");
+        platforms.getPlatformById("qc-changed");
+        long hits = cache.getHits();
+
+        cache.registryUpdate(notification("qc-changed", "UPDATE"));
+
+        platforms.getPlatformById("qc-kept");
+        Assert.assertEquals(hits + 1, cache.getHits());
+
+        platforms.getPlatformById("qc-changed");
+        Assert.assertEquals(hits + 1, cache.getHits());
+    }
+
+    @Test
+    public void malformedNotificationsAreIgnored() throws Exception {
+
+        cachePlatform("qc-malformed");
+        long hits = cache.getHits();
+
+        cache.registryUpdate("not JSON");
+
+        platforms.getPlatformById("qc-malformed");
+        Assert.assertEquals(hits + 1, cache.getHits());
+    }
+
+    @Test
+    public void updatesToOtherTablesDoNotInvalidateCachedResults() throws Exception {
+
+        cachePlatform("qc-other");
+        long hits = cache.getHits();
+        long invalidations = cache.getInvalidations();
+
+        cache.invalidate("UPDATE FABRIC.NODES SET AVAILABILITY=? WHERE NODE_ID=?", new Object[] {"AVAILABLE", "n1"});
+        cache.invalidate("DELETE FROM FABRIC.NODES", null);
+
+        platforms.getPlatformById("qc-other");
+        Assert.assertEquals(invalidations, cache.getInvalidations());
+        Assert.assertEquals(hits + 1, cache.getHits());
+    }
+
+    @Test
+    public void leastRecentlyUsedResultsAreEvicted() throws Exception {
+
+        int size = RegistryFixture.QUERY_CACHE_SIZE;
+
+        for (int p = 0; p <= size; p++) {
+            Assert.assertTrue(FabricRegistry.save(platforms.createPlatform("qc-lru" + p, "type", "a")));
+        }
+        FabricRegistry.flush();
+
+        /* Fill the cache, then use the first result again so that the second is the least recently used */
+        for (int p = 0; p < size; p++) {
+            platforms.getPlatformById("qc-lru" + p);
+        }
+        platforms.getPlatformById("qc-lru0");
+        long evictions = cache.getEvictions();
+
+        platforms.getPlatformById("qc-lru" + size);
+        Assert.assertEquals(evictions + 1, cache.getEvictions());
+        Assert.assertEquals(size, cache.getSize());
+
+        long hits = cache.getHits();
+        platforms.getPlatformById("qc-lru0");
+        Assert.assertEquals(hits + 1, cache.getHits());
+
+        long misses = cache.getMisses();
+        platforms.getPlatformById("qc-lru1");
+        Assert.assertEquals(misses + 1, cache.getMisses());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.registry;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.registry.FabricRegistry;
+import fabric.registry.QueryScope;
+import fabric.registry.SaveStatus;
+import fabric.registry.Task;
+import fabric.registry.TaskFactory;
+import fabric.registry.impl.RegistryWriteBehind;
+
+/**
+ * Tests for the Registry write-behind queue: coalescing of queued saves, update-only saves of existing objects, and
+ * writing queued saves before local queries.
+ */
+public class TestRegistryWriteBehind {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private final RegistryWriteBehind queue = RegistryWriteBehind.getInstance();
+
+    private final TaskFactory tasks = FabricRegistry.getTaskFactory(QueryScope.LOCAL);
+
+    @BeforeClass
+    public static void startRegistry() throws Exception {
+
+        RegistryFixture.start();
+    }
+
+    @After
+    public void emptyQueue() {
+
+        Assert.assertTrue(queue.flush());
+    }
+
+    @Test
+    public void savesOfTheSameObjectAreCoalesced() throws Exception {
+
+        long coalesced = queue.getCoalesced();
+        long batchedSaves = queue.getBatchedSaves();
+
+        Task task = tasks.createTask("wb-coalesce", 1, null, "first", null, null);
+        Assert.assertEquals(SaveStatus.QUEUED, FabricRegistry.queueSave(task));
+        task.setPriority(2);
+        task.setDescription("second");
+        Assert.assertEquals(SaveStatus.QUEUED, FabricRegistry.queueSave(task));
+        Assert.assertEquals(SaveStatus.QUEUED, FabricRegistry.queueSave(tasks.createTask("wb-other")));
+
+        Assert.assertEquals(2, queue.getPending());
+        Assert.assertEquals(coalesced + 1, queue.getCoalesced());
+
+        Assert.assertTrue(FabricRegistry.flush());
+        Assert.assertEquals(0, queue.getPending());
+        Assert.assertEquals(batchedSaves + 2, queue.getBatchedSaves());
+
+        /* Only the latest state of the object is written */
+        Task saved = tasks.getTaskById("wb-coalesce");
+        Assert.assertEquals(2, saved.getPriority());
+        Assert.assertEquals("second", saved.getDescription());
+        Assert.assertNotNull(tasks.getTaskById("wb-other"));
+    }
+
+    @Test
+    public void coalescedSavesUpdateTheOriginalRow() throws Exception {
+
+        Task task = tasks.createTask("wb-before", 1, null, null, null, null);
+        Assert.assertTrue(FabricRegistry.save(task));
+
+        /* Change the key, then change the object again before the first change is written */
+        task.setId("wb-after");
+        FabricRegistry.queueSave(task);
+        task.setPriority(3);
+        FabricRegistry.queueSave(task);
+        Assert.assertEquals(1, queue.getPending());
+
+        Assert.assertTrue(FabricRegistry.flush());
+        Assert.assertNull(tasks.getTaskById("wb-before"));
+        Assert.assertEquals(3, tasks.getTaskById("wb-after").getPriority());
+    }
+
+    @Test
+    public void queuedUpdatesDoNotRecreateDeletedRows() throws Exception {
+
+        Task task = tasks.createTask("wb-deleted", 1, null, null, null, null);
+        Assert.assertTrue(FabricRegistry.save(task));
+
+        /* The row is deleted by someone else before a routine update is written */
+        RegistryFixture.execute("DELETE FROM FABRIC.TASKS WHERE TASK_ID='wb-deleted'");
+        task.setPriority(5);
+        Assert.assertEquals(SaveStatus.QUEUED, FabricRegistry.queueSave(task));
+
+        Assert.assertTrue(FabricRegistry.flush());
+        Assert.assertNull(tasks.getTaskById("wb-deleted"));
+    }
+
+    @Test
+    public void localQueriesWriteQueuedSavesForTheirTable() throws Exception {
+
+        Task task = tasks.createTask("wb-query", 4, null, null, null, null);
+        Assert.assertEquals(SaveStatus.QUEUED, FabricRegistry.queueSave(task));
+
+        Task saved = tasks.getTaskById("wb-query");
+        Assert.assertNotNull(saved);
+        Assert.assertEquals(4, saved.getPriority());
+        Assert.assertEquals(0, queue.getPending());
+    }
+
+    @Test
+    public void queriesOfOtherTablesLeaveTheQueue() throws Exception {
+
+        FabricRegistry.queueSave(tasks.createTask("wb-unread"));
+
+        FabricRegistry.getPlatformFactory(QueryScope.LOCAL).getPlatformById("wb-none");
+        Assert.assertEquals(1, queue.getPending());
+    }
+}
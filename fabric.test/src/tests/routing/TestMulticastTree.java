@@ -0,0 +1,266 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.routing;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import fabric.bus.routing.TopologyGraph;
+
+/**
+ * Tests for the forwarding of flooded messages over multicast trees, including when the nodes' views of the topology
+ * have diverged.
+ * <p>
+ * Each simulated node forwards a message as <code>FloodRouting</code> does: over the tree if
+ * <code>TopologyGraph.treeNextNodes()</code> answers the next hops, and otherwise to every neighbour other than the one
+ * from which the message was received. Only the first copy of a message received by a node is forwarded.
+ * </p>
+ */
+public class TestMulticastTree {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    /**
+     * The actual topology:
+     *
+     * <pre>
+     * a - b - d - e
+     *  \     /    |
+     *   - c -  -  f
+     * </pre>
+     */
+    private static final String[][] LINKS = { {"a", "b"}, {"a", "c"}, {"b", "d"}, {"c", "d"}, {"d", "e"}, {"c", "f"},
+            {"e", "f"}};
+
+    private static final String[] NODES = {"a", "b", "c", "d", "e", "f"};
+
+    private final TopologyGraph graph = TopologyGraph.getInstance();
+
+    /** The number of copies of the message sent in the last simulation. */
+    private int copies = 0;
+
+    @Before
+    public void markLoaded() throws Exception {
+
+        setField("isStale", false);
+        setField("loadedAt", System.currentTimeMillis());
+    }
+
+    private void setField(String name, Object value) throws Exception {
+
+        Field field = TopologyGraph.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(graph, value);
+    }
+
+    /**
+     * Answers a view of the topology: the actual links (recorded in both directions), less some neighbour entries that
+     * the view has missed, plus some that no longer exist. Each entry is a node ID followed by a neighbour ID.
+     */
+    private static HashMap<String, HashMap<String, Double>> view(String[][] missing, String[][] stale) {
+
+        HashMap<String, HashMap<String, Double>> edges = new HashMap<String, HashMap<String, Double>>();
+
+        for (int l = 0; l < LINKS.length; l++) {
+            addEdge(edges, LINKS[l][0], LINKS[l][1]);
+            addEdge(edges, LINKS[l][1], LINKS[l][0]);
+        }
+
+        for (int m = 0; m < missing.length; m++) {
+            edges.get(missing[m][0]).remove(missing[m][1]);
+        }
+
+        for (int s = 0; s < stale.length; s++) {
+            addEdge(edges, stale[s][0], stale[s][1]);
+        }
+
+        return edges;
+    }
+
+    private static void addEdge(HashMap<String, HashMap<String, Double>> edges, String node, String neighbour) {
+
+        if (!edges.containsKey(node)) {
+            edges.put(node, new HashMap<String, Double>());
+        }
+
+        edges.get(node).put(neighbour, TopologyGraph.DEFAULT_WEIGHT);
+    }
+
+    private static Set<String> actualNeighbours(String node) {
+
+        HashSet<String> neighbours = new HashSet<String>();
+
+        for (int l = 0; l < LINKS.length; l++) {
+            if (LINKS[l][0].equals(node)) {
+                neighbours.add(LINKS[l][1]);
+            } else if (LINKS[l][1].equals(node)) {
+                neighbours.add(LINKS[l][0]);
+            }
+        }
+
+        return neighbours;
+    }
+
+    /**
+     * Sends a message from a node, answering the nodes that it reaches.
+     */
+    private Set<String> send(String root, HashMap<String, HashMap<String, HashMap<String, Double>>> views)
+            throws Exception {
+
+        setField("edges", views.get(root));
+        String version = graph.topologyVersion();
+
+        TreeSet<String> reached = new TreeSet<String>();
+        ArrayList<String[]> inFlight = new ArrayList<String[]>();
+        inFlight.add(new String[] {root, null});
+        copies = 0;
+
+        while (!inFlight.isEmpty()) {
+
+            String[] delivery = inFlight.remove(0);
+            String node = delivery[0];
+            String previousNode = delivery[1];
+
+            if (reached.add(node)) {
+
+                setField("edges", views.get(node));
+                Set<String> neighbours = actualNeighbours(node);
+                String[] nextNodes = graph.treeNextNodes(root, node, previousNode, version, neighbours);
+
+                if (nextNodes == null) {
+                    neighbours.remove(previousNode);
+                    nextNodes = neighbours.toArray(new String[neighbours.size()]);
+                }
+
+                for (int n = 0; n < nextNodes.length; n++) {
+                    inFlight.add(new String[] {nextNodes[n], node});
+                    copies++;
+                }
+            }
+        }
+
+        return reached;
+    }
+
+    private static HashMap<String, HashMap<String, HashMap<String, Double>>> sameViews() {
+
+        HashMap<String, HashMap<String, HashMap<String, Double>>> views =
+                new HashMap<String, HashMap<String, HashMap<String, Double>>>();
+
+        for (int n = 0; n < NODES.length; n++) {
+            views.put(NODES[n], view(new String[0][], new String[0][]));
+        }
+
+        return views;
+    }
+
+    @Test
+    public void sameViewsSendOneCopyToEachNode() throws Exception {
+
+        for (int r = 0; r < NODES.length; r++) {
+
+            Set<String> reached = send(NODES[r], sameViews());
+
+            Assert.assertEquals(NODES.length, reached.size());
+            Assert.assertEquals(NODES.length - 1, copies);
+        }
+    }
+
+    @Test
+    public void divergentViewsStillReachEveryNode() throws Exception {
+
+        HashMap<String, HashMap<String, HashMap<String, Double>>> views = sameViews();
+
+        /* b has missed the link between d and e, so that its tree reaches e via f */
+        views.put("b", view(new String[][] { {"d", "e"}, {"e", "d"}}, new String[0][]));
+
+        /* c still has f's entry for a link between b and f */
+        views.put("c", view(new String[0][], new String[][] { {"f", "b"}}));
+
+        /* e has missed c's entry for the link between c and f, and d has missed all of them */
+        views.put("e", view(new String[][] { {"c", "f"}}, new String[0][]));
+        views.put("d", view(new String[][] { {"c", "f"}, {"f", "c"}, {"d", "e"}, {"e", "d"}}, new String[0][]));
+
+        for (int r = 0; r < NODES.length; r++) {
+
+            Set<String> reached = send(NODES[r], views);
+            Assert.assertEquals("Message from " + NODES[r] + " reached " + reached, NODES.length, reached.size());
+        }
+
+        /* Even when the originating node's own view is out of date */
+        views.put("a", view(new String[][] { {"e", "f"}, {"b", "a"}}, new String[][] { {"b", "f"}}));
+        Assert.assertEquals(NODES.length, send("a", views).size());
+    }
+
+    @Test
+    public void randomlyDivergentViewsStillReachEveryNode() throws Exception {
+
+        Random random = new Random(1);
+
+        for (int trial = 0; trial < 2000; trial++) {
+
+            HashMap<String, HashMap<String, HashMap<String, Double>>> views = sameViews();
+
+            /* Add or remove a few neighbour entries in the views of random nodes */
+            for (int change = random.nextInt(4); change >= 0; change--) {
+
+                HashMap<String, HashMap<String, Double>> view = views.get(NODES[random.nextInt(NODES.length)]);
+                String node = NODES[random.nextInt(NODES.length)];
+                String neighbour = NODES[random.nextInt(NODES.length)];
+
+                if (!node.equals(neighbour) && view.get(node).remove(neighbour) == null) {
+                    addEdge(view, node, neighbour);
+                }
+            }
+
+            String root = NODES[random.nextInt(NODES.length)];
+            Assert.assertEquals("Trial " + trial, NODES.length, send(root, views).size());
+        }
+    }
+
+    @Test
+    public void versionsIgnoreWeights() throws Exception {
+
+        setField("edges", view(new String[0][], new String[0][]));
+        String version = graph.topologyVersion();
+
+        HashMap<String, HashMap<String, Double>> weighted = view(new String[0][], new String[0][]);
+        weighted.get("a").put("b", 7.5);
+        setField("edges", weighted);
+        Assert.assertEquals(version, graph.topologyVersion());
+
+        setField("edges", view(new String[][] { {"a", "b"}}, new String[0][]));
+        Assert.assertNotEquals(version, graph.topologyVersion());
+    }
+
+    @Test
+    public void unloadedGraphsFloodWithoutLoading() throws Exception {
+
+        setField("edges", view(new String[0][], new String[0][]));
+        String version = graph.topologyVersion();
+        long reloads = graph.getReloads();
+        long failures = graph.getReloadFailures();
+
+        setField("isStale", true);
+
+        Assert.assertNull(graph.treeNextNodes("a", "a", null, version, actualNeighbours("a")));
+        Assert.assertNull(graph.treeNextNodes("a", "a", null, null, actualNeighbours("a")));
+        Assert.assertEquals(reloads, graph.getReloads());
+        Assert.assertEquals(failures, graph.getReloadFailures());
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.routing;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import fabric.Fabric;
+import fabric.LocalConfig;
+import fabric.bus.routing.TopologyGraph;
+
+/**
+ * Tests for the topology graph: shortest routes, alternative routes (Yen's algorithm), and incremental updates from
+ * Registry notifications.
+ */
+public class TestTopologyGraph {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private final TopologyGraph graph = TopologyGraph.getInstance();
+
+    @BeforeClass
+    public static void setConfig() throws Exception {
+
+        File configFile = File.createTempFile("fabric", ".properties");
+        configFile.deleteOnExit();
+        FileWriter writer = new FileWriter(configFile);
+        writer.write("fabric.node=a\n");
+        writer.close();
+        Fabric.setConfig(new LocalConfig(configFile.getPath()));
+    }
+
+    /**
+     * Replaces the graph with a loaded, empty graph, and then adds the edges (in both directions) of the topology:
+     *
+     * <pre>
+     * a - b - d
+     *  \  |  /
+     *   - c -
+     *     |
+     *     e
+     * </pre>
+     */
+    @Before
+    public void loadTopology() throws Exception {
+
+        setField("edges", new HashMap<String, HashMap<String, Double>>());
+        setField("isStale", false);
+        setField("loadedAt", System.currentTimeMillis());
+        setField("retryAt", 0L);
+
+        String[][] links = { {"a", "b"}, {"a", "c"}, {"b", "c"}, {"b", "d"}, {"c", "d"}, {"c", "e"}};
+
+        for (int l = 0; l < links.length; l++) {
+            graph.setEdgeAvailable(links[l][0], links[l][1], true);
+            graph.setEdgeAvailable(links[l][1], links[l][0], true);
+        }
+    }
+
+    private void setField(String name, Object value) throws Exception {
+
+        Field field = TopologyGraph.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(graph, value);
+    }
+
+    private static String notification(String table, String id, String action, String availability) {
+
+        return String.format("{\"table\":\"%s\",\"id\":\"%s\",\"action\":\"%s\",\"availability\":\"%s\"}", table, id,
+                action, availability);
+    }
+
+    @Test
+    public void shortestRouteFollowsWeights() {
+
+        Assert.assertArrayEquals(new String[] {"a", "c", "e"}, graph.shortestRoute("a", "e"));
+        Assert.assertArrayEquals(new String[] {"e"}, graph.shortestRoute("e", "e"));
+        Assert.assertArrayEquals(new String[0], graph.shortestRoute("a", "unknown"));
+
+        /* Make the route via c more expensive than the route via b */
+        graph.setEdgeWeight("a", "c", 5.0);
+        Assert.assertArrayEquals(new String[] {"a", "b", "c", "e"}, graph.shortestRoute("a", "e"));
+    }
+
+    @Test
+    public void alternativeRoutesAreLoopFreeAndOrdered() {
+
+        graph.setEdgeWeight("a", "c", 1.5);
+
+        String[][] routes = graph.shortestRoutes("a", "d", 10);
+
+        Assert.assertArrayEquals(new String[] {"a", "b", "d"}, routes[0]);
+        Assert.assertArrayEquals(new String[] {"a", "c", "d"}, routes[1]);
+
+        /* a-b-c-d and a-c-b-d, and no others */
+        Assert.assertEquals(4, routes.length);
+
+        for (int r = 0; r < routes.length; r++) {
+
+            Assert.assertEquals("a", routes[r][0]);
+            Assert.assertEquals("d", routes[r][routes[r].length - 1]);
+
+            for (int n = 0; n < routes[r].length; n++) {
+                for (int m = n + 1; m < routes[r].length; m++) {
+                    Assert.assertNotEquals("Route contains a loop", routes[r][n], routes[r][m]);
+                }
+            }
+
+            for (int q = 0; q < r; q++) {
+                Assert.assertFalse("Duplicate route", Arrays.equals(routes[q], routes[r]));
+            }
+        }
+
+        Assert.assertEquals(2, graph.shortestRoutes("a", "d", 2).length);
+        Assert.assertEquals(0, graph.shortestRoutes("a", "unknown", 3).length);
+    }
+
+    @Test
+    public void neighbourNotificationsUpdateTheGraphInPlace() {
+
+        long reloads = graph.getReloads();
+
+        graph.registryUpdate(notification("NODE_NEIGHBOURS", "c/e", "UPDATE", "UNAVAILABLE"));
+        Assert.assertArrayEquals(new String[0], graph.shortestRoute("c", "e"));
+
+        graph.registryUpdate(notification("NODE_NEIGHBOURS", "c/e", "UPDATE", "AVAILABLE"));
+        Assert.assertArrayEquals(new String[] {"c", "e"}, graph.shortestRoute("c", "e"));
+
+        graph.registryUpdate(notification("NODE_NEIGHBOURS", "c/e", "DELETE", ""));
+        Assert.assertArrayEquals(new String[0], graph.shortestRoute("c", "e"));
+
+        /* A notification without an availability adds the neighbour, as it would be when the graph is loaded */
+        graph.registryUpdate(notification("NODE_NEIGHBOURS", "c/e", "INSERT", ""));
+        Assert.assertArrayEquals(new String[] {"c", "e"}, graph.shortestRoute("c", "e"));
+
+        graph.registryUpdate(notification("NODE_NEIGHBOURS", "malformed", "UPDATE", ""));
+        graph.registryUpdate("not JSON");
+
+        Assert.assertEquals(reloads, graph.getReloads());
+    }
+
+    @Test
+    public void deletedNodesAreRemoved() {
+
+        long reloads = graph.getReloads();
+
+        graph.registryUpdate(notification("NODES", "c:router", "DELETE", ""));
+
+        Assert.assertTrue(graph.neighbours("c").isEmpty());
+        Assert.assertFalse(graph.neighbours("a").contains("c"));
+        Assert.assertArrayEquals(new String[] {"a", "b", "d"}, graph.shortestRoute("a", "d"));
+        Assert.assertArrayEquals(new String[0], graph.shortestRoute("a", "e"));
+        Assert.assertEquals(reloads, graph.getReloads());
+    }
+
+    @Test
+    public void nodeNotificationsUseTheirAvailability() {
+
+        long reloads = graph.getReloads();
+
+        graph.registryUpdate(notification("NODES", "e:router", "UPDATE", "AVAILABLE"));
+        Assert.assertArrayEquals(new String[] {"a", "c", "e"}, graph.shortestRoute("a", "e"));
+
+        graph.registryUpdate(notification("NODES", "e:router", "UPDATE", "UNAVAILABLE"));
+        Assert.assertArrayEquals(new String[0], graph.shortestRoute("a", "e"));
+        Assert.assertEquals(reloads, graph.getReloads());
+    }
+
+    @Test
+    public void nodeNotificationsWithoutAvailabilityDoNotWaitForTheRegistry() {
+
+        /* The node is looked up on another thread (and, as there is no Registry, left in place) */
+        long start = System.currentTimeMillis();
+        graph.registryUpdate(notification("NODES", "e:router", "UPDATE", "null"));
+
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        Assert.assertArrayEquals(new String[] {"a", "c", "e"}, graph.shortestRoute("a", "e"));
+    }
+
+    @Test
+    public void theGraphIsNotReloadedPeriodicallyByDefault() throws Exception {
+
+        long reloads = graph.getReloads();
+        long failures = graph.getReloadFailures();
+        setField("loadedAt", 0L);
+
+        /* Once loaded, the graph is kept up to date by notifications alone */
+        Assert.assertTrue(graph.isLoaded());
+        Thread.sleep(100);
+
+        Assert.assertEquals(reloads, graph.getReloads());
+        Assert.assertEquals(failures, graph.getReloadFailures());
+    }
+
+    @Test
+    public void failedLoadsBackOff() throws Exception {
+
+        /* There is no Registry, so the load fails */
+        setField("isStale", true);
+        long failures = graph.getReloadFailures();
+
+        graph.shortestRoute("a", "e");
+        Assert.assertEquals(failures + 1, graph.getReloadFailures());
+
+        /* Further requests use the current graph rather than retrying straight away */
+        for (int r = 0; r < 5; r++) {
+            graph.shortestRoutes("a", "e", 2);
+        }
+
+        Assert.assertEquals(failures + 1, graph.getReloadFailures());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright IBM Corp. 2016
+ *
+ * LICENSE: Eclipse Public License v1.0
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package tests.xml;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fabric.core.xml.CompiledXMLPath;
+import fabric.core.xml.RelativeXMLPath;
+import fabric.core.xml.XML;
+
+/**
+ * Tests for compiled and relative XML paths.
+ */
+public class TestCompiledXMLPath {
+
+    /** Copyright notice. */
+    public static final String copyrightNotice = "(C) Copyright IBM Corp. 2016";
+
+    private static final RelativeXMLPath UID = new RelativeXMLPath("@uid");
+
+    private static final RelativeXMLPath START_NODE = new RelativeXMLPath("/rt/strt");
+
+    @Test
+    public void compiledPathsMatchStringPaths() throws Exception {
+
+        XML xml = new XML();
+        xml.set(CompiledXMLPath.compile("/fab@uid"), "u1");
+        xml.set(CompiledXMLPath.compile("/fab/rt/strt"), "nodeA");
+        xml.set("/fab/prop/p[1]", "second");
+
+        Assert.assertEquals("u1", xml.get("/fab@uid"));
+        Assert.assertEquals("nodeA", xml.get("/fab/rt/strt"));
+        Assert.assertEquals("second", xml.get(CompiledXMLPath.compile("/fab/prop/p[1]")));
+        Assert.assertNull(xml.get(CompiledXMLPath.compile("/fab@missing")));
+    }
+
+    @Test
+    public void compiledPathsAreCached() {
+
+        Assert.assertSame(CompiledXMLPath.compile("/fab/pay@enc"), CompiledXMLPath.compile("/fab/pay@enc"));
+    }
+
+    @Test
+    public void relativePathsResolveWithinTheirElement() throws Exception {
+
+        XML xml = new XML();
+        xml.set(UID.in("/fab"), "u1");
+        xml.set(START_NODE.in("/fab"), "nodeA");
+        xml.set(UID.in("/fab/emb"), "u2");
+
+        Assert.assertEquals("u1", xml.get("/fab@uid"));
+        Assert.assertEquals("nodeA", xml.get("/fab/rt/strt"));
+        Assert.assertEquals("u2", xml.get("/fab/emb@uid"));
+
+        /* Resolving again for the same element answers the same compiled path */
+        Assert.assertSame(UID.in("/fab"), UID.in(new String("/fab")));
+        Assert.assertEquals("u1", xml.get(UID.in("/fab")));
+    }
+}